@@ -27,10 +27,12 @@ import nl.lxtreme.ols.api.acquisition.*;
 
 
 /**
- * Provides a base data set implementation.
+ * Provides a base data set implementation, which keeps its decoded data as a
+ * list of data entities.
  * 
  * @param <DATA>
  *          the actual data entity of this base data set.
+ * @see CompactDataSet
  */
 public class BaseDataSet<DATA extends BaseData<DATA>>
 {
@@ -75,12 +77,25 @@ public class BaseDataSet<DATA extends BaseData<DATA>>
 
   // METHODS
 
+  /**
+   * Returns the channel index of the data entity at the given index, without
+   * creating the data entity itself.
+   * 
+   * @param aIdx
+   *          the index of the data entity, >= 0 && < {@link #size()}.
+   * @return a channel index.
+   */
+  public int getChannelIdx( final int aIdx )
+  {
+    return this.data.get( aIdx ).getChannelIdx();
+  }
+
   /**
    * Returns the (decoded) data in this data set.
    * 
    * @return the data, never <code>null</code>.
    */
-  public final List<DATA> getData()
+  public List<DATA> getData()
   {
     return this.data;
   }
@@ -95,6 +110,32 @@ public class BaseDataSet<DATA extends BaseData<DATA>>
     return this.endOfDecode;
   }
 
+  /**
+   * Returns the end sample index of the data entity at the given index, without
+   * creating the data entity itself.
+   * 
+   * @param aIdx
+   *          the index of the data entity, >= 0 && < {@link #size()}.
+   * @return a sample (array) index, >= 0.
+   */
+  public int getEndSampleIndex( final int aIdx )
+  {
+    return this.data.get( aIdx ).getEndSampleIndex();
+  }
+
+  /**
+   * Returns the event name of the data entity at the given index, without
+   * creating the data entity itself.
+   * 
+   * @param aIdx
+   *          the index of the data entity, >= 0 && < {@link #size()}.
+   * @return an event name, can be <code>null</code>.
+   */
+  public String getEventName( final int aIdx )
+  {
+    return this.data.get( aIdx ).getEventName();
+  }
+
   /**
    * @return the sampleRate
    */
@@ -113,6 +154,19 @@ public class BaseDataSet<DATA extends BaseData<DATA>>
     return this.startOfDecode;
   }
 
+  /**
+   * Returns the start sample index of the data entity at the given index,
+   * without creating the data entity itself.
+   * 
+   * @param aIdx
+   *          the index of the data entity, >= 0 && < {@link #size()}.
+   * @return a sample (array) index, >= 0.
+   */
+  public int getStartSampleIndex( final int aIdx )
+  {
+    return this.data.get( aIdx ).getStartSampleIndex();
+  }
+
   /**
    * Returns the time-value for the given sample index, taking the (optional)
    * trigger position into consideration.
@@ -144,7 +198,17 @@ public class BaseDataSet<DATA extends BaseData<DATA>>
    */
   public final boolean isEmpty()
   {
-    return this.data.isEmpty();
+    return size() == 0;
+  }
+
+  /**
+   * Returns the current size of this data set.
+   * 
+   * @return a data set size, >= 0.
+   */
+  public int size()
+  {
+    return this.data.size();
   }
 
   /**
@@ -152,27 +216,37 @@ public class BaseDataSet<DATA extends BaseData<DATA>>
    * 
    * @param aData
    *          the data to add, cannot be <code>null</code>.
+   * @throws IllegalStateException
+   *           in case this data set uses compact storage.
    */
   protected final void addData( final DATA aData )
   {
+    if ( usesCompactStorage() )
+    {
+      throw new IllegalStateException( "Data set uses compact storage!" );
+    }
     this.data.add( aData );
   }
 
   /**
-   * Returns the current size of this data set.
-   * 
-   * @return a data set size, >= 0.
+   * Sorts the data according to the {@link Comparable} implementation of DATA.
+   * The sort is stable.
    */
-  protected final int size()
+  protected void sort()
   {
-    return this.data.size();
+    Collections.sort( this.data );
   }
 
   /**
-   * Sorts the data according to the {@link Comparable} implementation of DATA.
+   * Returns whether this data set uses compact storage.
+   * 
+   * @return <code>true</code> if the data is stored compactly,
+   *         <code>false</code> if it is stored as list of data entities.
    */
-  protected void sort()
+  boolean usesCompactStorage()
   {
-    Collections.sort( this.data );
+    return false;
   }
 }
+
+/* EOF */
@@ -228,6 +228,40 @@ public class CapturedData implements AcquisitionResult
     this.absoluteLength = absLength;
   }
 
+  /**
+   * Constructs CapturedData from the sample data collected by the given
+   * builder.
+   * <p>
+   * As the builder already compresses its data while it is collected, the
+   * given arrays are used as-is, and should no longer be modified by the
+   * caller.
+   * </p>
+   * 
+   * @param aBuilder
+   *          the builder providing the acquisition settings;
+   * @param aValues
+   *          the compressed sample values;
+   * @param aTimestamps
+   *          the timestamps of the compressed sample values;
+   * @param aAbsLen
+   *          absolute number of samples
+   */
+  CapturedData( final CapturedDataBuilder aBuilder, final int[] aValues, final long[] aTimestamps, final long aAbsLen )
+  {
+    if ( aValues.length != aTimestamps.length )
+    {
+      throw new IllegalArgumentException( "Values and timestamps size mismatch!" );
+    }
+
+    this.values = aValues;
+    this.timestamps = aTimestamps;
+    this.triggerPosition = aBuilder.getTriggerPosition();
+    this.rate = aBuilder.getSampleRate();
+    this.channels = aBuilder.getChannels();
+    this.enabledChannels = aBuilder.getEnabledChannels();
+    this.absoluteLength = aAbsLen;
+  }
+
   /**
    * Constructs CapturedData based on the given compressed sampling data.
    * 
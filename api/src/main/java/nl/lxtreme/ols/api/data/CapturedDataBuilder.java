@@ -0,0 +1,306 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+
+
+/**
+ * Provides a builder for {@link CapturedData}, which collects sample values and
+ * their timestamps directly in primitive arrays.
+ * <p>
+ * Only the actual transitions are kept: a sample value that is equal to the
+ * previously added sample value is silently ignored. When the arrays are
+ * filled up exactly, they are handed to the resulting {@link CapturedData}
+ * without being copied, hence it is recommended to create this builder with
+ * a sensible initial capacity.
+ * </p>
+ * <p>
+ * Note: a builder can only be used to build a single {@link CapturedData}
+ * instance.
+ * </p>
+ */
+public final class CapturedDataBuilder
+{
+  // CONSTANTS
+
+  private static final int DEFAULT_CAPACITY = 1024;
+
+  // VARIABLES
+
+  private int[] values;
+  private long[] timestamps;
+  private int size;
+  private long lastTimestamp;
+  private int lastValue;
+
+  private long triggerPosition;
+  private int sampleRate;
+  private int channels;
+  private int enabledChannels;
+  private long absoluteLength;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link CapturedDataBuilder} instance with a default initial
+   * capacity.
+   */
+  public CapturedDataBuilder()
+  {
+    this( DEFAULT_CAPACITY );
+  }
+
+  /**
+   * Creates a new {@link CapturedDataBuilder} instance.
+   *
+   * @param aCapacity
+   *          the initial number of transitions to reserve room for, >= 0.
+   */
+  public CapturedDataBuilder( final int aCapacity )
+  {
+    if ( aCapacity < 0 )
+    {
+      throw new IllegalArgumentException( "Capacity cannot be negative!" );
+    }
+
+    this.values = new int[aCapacity];
+    this.timestamps = new long[aCapacity];
+    this.size = 0;
+
+    this.triggerPosition = Ols.NOT_AVAILABLE;
+    this.sampleRate = Ols.NOT_AVAILABLE;
+    this.channels = Ols.MAX_CHANNELS;
+    this.enabledChannels = 0xFFFFFFFF;
+    this.absoluteLength = -1L;
+  }
+
+  // METHODS
+
+  /**
+   * Adds a sample value with its timestamp.
+   * <p>
+   * Timestamps are expected to be added in ascending order. If the given value
+   * equals the previously added value, it is not stored.
+   * </p>
+   *
+   * @param aValue
+   *          the sample value to add;
+   * @param aTimestamp
+   *          the timestamp of the sample value, >= 0.
+   * @return this builder.
+   */
+  public CapturedDataBuilder add( final int aValue, final long aTimestamp )
+  {
+    if ( ( this.size == 0 ) || ( aValue != this.lastValue ) )
+    {
+      ensureCapacity( this.size + 1 );
+
+      this.values[this.size] = aValue;
+      this.timestamps[this.size] = aTimestamp;
+      this.size++;
+
+      this.lastValue = aValue;
+    }
+    this.lastTimestamp = aTimestamp;
+    return this;
+  }
+
+  /**
+   * Creates the {@link CapturedData} from all added sample values.
+   *
+   * @return a new {@link CapturedData} instance, never <code>null</code>.
+   * @throws IllegalStateException
+   *           in case no sample values were added.
+   */
+  public CapturedData build()
+  {
+    if ( this.values == null )
+    {
+      throw new IllegalStateException( "Builder already used!" );
+    }
+    if ( this.size == 0 )
+    {
+      throw new IllegalStateException( "No sample values added!" );
+    }
+
+    // Ensure we've got an absolute length available...
+    final long absLength = Math.max( this.absoluteLength, this.lastTimestamp );
+
+    // Issue #167: make sure the absolute length is *always* present...
+    final long lastTransition = this.timestamps[this.size - 1];
+    if ( ( lastTransition != absLength ) || ( this.size < 2 ) )
+    {
+      ensureCapacity( this.size + 1 );
+
+      this.values[this.size] = this.lastValue;
+      this.timestamps[this.size] = absLength;
+      this.size++;
+    }
+
+    int[] resultValues = this.values;
+    long[] resultTimestamps = this.timestamps;
+    if ( resultValues.length != this.size )
+    {
+      resultValues = Arrays.copyOf( resultValues, this.size );
+      resultTimestamps = Arrays.copyOf( resultTimestamps, this.size );
+    }
+
+    // Avoid this builder from being used again...
+    this.values = null;
+    this.timestamps = null;
+
+    return new CapturedData( this, resultValues, resultTimestamps, absLength );
+  }
+
+  /**
+   * Sets the absolute length of the sample data.
+   *
+   * @param aAbsoluteLength
+   *          the absolute length, or a negative value to use the timestamp of
+   *          the last added sample value.
+   * @return this builder.
+   */
+  public CapturedDataBuilder setAbsoluteLength( final long aAbsoluteLength )
+  {
+    this.absoluteLength = aAbsoluteLength;
+    return this;
+  }
+
+  /**
+   * Sets the number of channels in the sample data.
+   *
+   * @param aChannels
+   *          the number of channels, >= 1 && <= 32.
+   * @return this builder.
+   */
+  public CapturedDataBuilder setChannels( final int aChannels )
+  {
+    this.channels = aChannels;
+    return this;
+  }
+
+  /**
+   * Sets the bitmask of enabled channels in the sample data.
+   *
+   * @param aEnabledChannels
+   *          the bitmask of enabled channels.
+   * @return this builder.
+   */
+  public CapturedDataBuilder setEnabledChannels( final int aEnabledChannels )
+  {
+    this.enabledChannels = aEnabledChannels;
+    return this;
+  }
+
+  /**
+   * Sets the sample rate of the sample data.
+   *
+   * @param aSampleRate
+   *          the sample rate, in Hertz, or {@link Ols#NOT_AVAILABLE}.
+   * @return this builder.
+   */
+  public CapturedDataBuilder setSampleRate( final int aSampleRate )
+  {
+    this.sampleRate = aSampleRate;
+    return this;
+  }
+
+  /**
+   * Sets the trigger position of the sample data.
+   *
+   * @param aTriggerPosition
+   *          the trigger position, as time value, or {@link Ols#NOT_AVAILABLE}.
+   * @return this builder.
+   */
+  public CapturedDataBuilder setTriggerPosition( final long aTriggerPosition )
+  {
+    this.triggerPosition = aTriggerPosition;
+    return this;
+  }
+
+  /**
+   * Returns the number of transitions added so far.
+   *
+   * @return a transition count, >= 0.
+   */
+  public int size()
+  {
+    return this.size;
+  }
+
+  /**
+   * @return the number of channels.
+   */
+  final int getChannels()
+  {
+    return this.channels;
+  }
+
+  /**
+   * @return the bit mask of enabled channels.
+   */
+  final int getEnabledChannels()
+  {
+    return this.enabledChannels;
+  }
+
+  /**
+   * @return the sample rate.
+   */
+  final int getSampleRate()
+  {
+    return this.sampleRate;
+  }
+
+  /**
+   * @return the trigger position.
+   */
+  final long getTriggerPosition()
+  {
+    return this.triggerPosition;
+  }
+
+  /**
+   * Ensures there is room for at least the given number of transitions.
+   *
+   * @param aCapacity
+   *          the minimal capacity.
+   */
+  private void ensureCapacity( final int aCapacity )
+  {
+    final int oldCapacity = this.values.length;
+    if ( aCapacity > oldCapacity )
+    {
+      int newCapacity = Math.max( 16, oldCapacity + ( oldCapacity >> 1 ) );
+      if ( newCapacity < aCapacity )
+      {
+        newCapacity = aCapacity;
+      }
+
+      this.values = Arrays.copyOf( this.values, newCapacity );
+      this.timestamps = Arrays.copyOf( this.timestamps, newCapacity );
+    }
+  }
+}
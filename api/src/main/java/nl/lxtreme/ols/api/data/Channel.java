@@ -41,6 +41,14 @@ public interface Channel extends Comparable<Channel>
    */
   void addAnnotation( Annotation<?> aAnnotation );
 
+  /**
+   * Adds all given annotations to this channel at once.
+   * 
+   * @param aAnnotations
+   *          the annotations to add, cannot be <code>null</code>.
+   */
+  void addAnnotations( Collection<? extends Annotation<?>> aAnnotations );
+
   /**
    * Clears all annotations from this channel.
    */
@@ -54,6 +62,14 @@ public interface Channel extends Comparable<Channel>
    */
   Collection<Annotation<?>> getAnnotations();
 
+  /**
+   * Returns the index of the data annotations of this channel, which allows
+   * them to be looked up by time.
+   * 
+   * @return the data annotation index, never <code>null</code>.
+   */
+  DataAnnotationIndex getAnnotationIndex();
+
   /**
    * Returns the index of this channel.
    * 
@@ -0,0 +1,261 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides a base data set implementation that keeps its decoded data in a
+ * compact, column-oriented, form.
+ * <p>
+ * Only the primitive properties of each data entity are kept, see
+ * {@link #addData(int, int, int, int, String, int)}, and the actual data
+ * entities are created on demand through
+ * {@link #createData(int, int, int, int, int, String, int)}. This considerably
+ * reduces the memory needed for large data sets.
+ * </p>
+ * 
+ * @param <DATA>
+ *          the actual data entity of this compact data set.
+ */
+public abstract class CompactDataSet<DATA extends BaseData<DATA>> extends BaseDataSet<DATA>
+{
+  // INNER TYPES
+
+  /**
+   * Provides a read-only list view on the compact data store, creating the data
+   * entities on demand.
+   */
+  final class CompactDataView extends AbstractList<DATA> implements RandomAccess
+  {
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DATA get( final int aIndex )
+    {
+      final CompactDataStore s = CompactDataSet.this.store;
+      if ( ( aIndex < 0 ) || ( aIndex >= s.size() ) )
+      {
+        throw new IndexOutOfBoundsException( "Invalid index: " + aIndex );
+      }
+      return createData( aIndex, s.getChannelIdx( aIndex ), s.getStartSampleIndex( aIndex ),
+          s.getEndSampleIndex( aIndex ), s.getValue( aIndex ), s.getEventName( aIndex ), s.getAttribute( aIndex ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size()
+    {
+      return CompactDataSet.this.store.size();
+    }
+  }
+
+  // VARIABLES
+
+  private final CompactDataStore store;
+  private final List<DATA> storeView;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CompactDataSet.
+   * 
+   * @param aStartOfDecodeIdx
+   *          the sample index denoting the start of this data set;
+   * @param aEndOfDecodeIdx
+   *          the sample index denoting the end of this data set;
+   * @param aData
+   *          the actual acquisition results used in this data set.
+   */
+  public CompactDataSet( final int aStartOfDecodeIdx, final int aEndOfDecodeIdx, final AcquisitionResult aData )
+  {
+    super( aStartOfDecodeIdx, aEndOfDecodeIdx, aData );
+
+    this.store = new CompactDataStore();
+    this.storeView = new CompactDataView();
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final int getChannelIdx( final int aIdx )
+  {
+    return this.store.getChannelIdx( aIdx );
+  }
+
+  /**
+   * Returns the (decoded) data in this data set. The returned list is a
+   * read-only view that creates the data entities on demand.
+   * 
+   * @return the data, never <code>null</code>.
+   */
+  @Override
+  public final List<DATA> getData()
+  {
+    return this.storeView;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final int getEndSampleIndex( final int aIdx )
+  {
+    return this.store.getEndSampleIndex( aIdx );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final String getEventName( final int aIdx )
+  {
+    return this.store.getEventName( aIdx );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final int getStartSampleIndex( final int aIdx )
+  {
+    return this.store.getStartSampleIndex( aIdx );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final int size()
+  {
+    return this.store.size();
+  }
+
+  /**
+   * Adds data to this dataset in its compact form.
+   * 
+   * @param aChannelIdx
+   *          the channel index of the data;
+   * @param aStartSampleIdx
+   *          the start sample index of the data;
+   * @param aEndSampleIdx
+   *          the end sample index of the data;
+   * @param aValue
+   *          the data value, if any;
+   * @param aEventName
+   *          the event name, can be <code>null</code> in case the data does not
+   *          represent an event;
+   * @param aAttribute
+   *          an additional, implementation specific, attribute of the data.
+   * @see #createData(int, int, int, int, int, String, int)
+   */
+  protected final void addData( final int aChannelIdx, final int aStartSampleIdx, final int aEndSampleIdx,
+      final int aValue, final String aEventName, final int aAttribute )
+  {
+    this.store.add( aChannelIdx, aStartSampleIdx, aEndSampleIdx, aValue, aEventName, aAttribute );
+  }
+
+  /**
+   * Creates a data entity for compactly stored data.
+   * <p>
+   * The returned entities are created on demand and are not retained by this
+   * data set. The given index should be passed on as index of the created
+   * entity.
+   * </p>
+   * 
+   * @param aIdx
+   *          the index of the data entity;
+   * @param aChannelIdx
+   *          the channel index of the data;
+   * @param aStartSampleIdx
+   *          the start sample index of the data;
+   * @param aEndSampleIdx
+   *          the end sample index of the data;
+   * @param aValue
+   *          the data value;
+   * @param aEventName
+   *          the event name, can be <code>null</code>;
+   * @param aAttribute
+   *          the implementation specific attribute of the data.
+   * @return a new data entity, never <code>null</code>.
+   */
+  protected abstract DATA createData( final int aIdx, final int aChannelIdx, final int aStartSampleIdx,
+      final int aEndSampleIdx, final int aValue, final String aEventName, final int aAttribute );
+
+  /**
+   * Returns the attribute of the compactly stored data at the given index.
+   * 
+   * @param aIdx
+   *          the index of the data entity, >= 0 && < {@link #size()}.
+   * @return the attribute, as given to
+   *         {@link #addData(int, int, int, int, String, int)}.
+   */
+  protected final int getAttribute( final int aIdx )
+  {
+    return this.store.getAttribute( aIdx );
+  }
+
+  /**
+   * Returns the value of the compactly stored data at the given index.
+   * 
+   * @param aIdx
+   *          the index of the data entity, >= 0 && < {@link #size()}.
+   * @return the value, as given to
+   *         {@link #addData(int, int, int, int, String, int)}.
+   */
+  protected final int getValue( final int aIdx )
+  {
+    return this.store.getValue( aIdx );
+  }
+
+  /**
+   * Sorts the data on its start sample index, without creating any data
+   * entities. The sort is stable.
+   */
+  @Override
+  protected void sort()
+  {
+    this.store.sortByStartSampleIndex();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  final boolean usesCompactStorage()
+  {
+    return true;
+  }
+}
+
+/* EOF */
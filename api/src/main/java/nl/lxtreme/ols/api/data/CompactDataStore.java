@@ -0,0 +1,279 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.util.*;
+
+
+/**
+ * Provides a compact, column-oriented store for decoded data.
+ * <p>
+ * Instead of keeping an object per decoded data entity, each property is kept
+ * in its own primitive array. Event names are interned in a small table, and
+ * only their ordinal is stored per entity. This reduces the cost of a single
+ * entity to a little over twenty bytes, and allows properties to be iterated
+ * over sequentially without touching any other memory.
+ * </p>
+ * <p>
+ * This class is <em>not</em> thread-safe.
+ * </p>
+ */
+final class CompactDataStore
+{
+  // CONSTANTS
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private static final short NO_EVENT = -1;
+
+  // VARIABLES
+
+  private int[] channels;
+  private int[] startSampleIdxs;
+  private int[] endSampleIdxs;
+  private int[] values;
+  private int[] attributes;
+  private short[] events;
+  private int size;
+
+  private final List<String> eventNames;
+  private final Map<String, Short> eventOrdinals;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new, empty, CompactDataStore instance.
+   */
+  public CompactDataStore()
+  {
+    this.channels = new int[INITIAL_CAPACITY];
+    this.startSampleIdxs = new int[INITIAL_CAPACITY];
+    this.endSampleIdxs = new int[INITIAL_CAPACITY];
+    this.values = new int[INITIAL_CAPACITY];
+    this.attributes = new int[INITIAL_CAPACITY];
+    this.events = new short[INITIAL_CAPACITY];
+    this.size = 0;
+
+    this.eventNames = new ArrayList<String>();
+    this.eventOrdinals = new HashMap<String, Short>();
+  }
+
+  // METHODS
+
+  /**
+   * Adds a new entity to this store.
+   * 
+   * @param aChannelIdx
+   *          the channel index of the entity;
+   * @param aStartSampleIdx
+   *          the start sample index of the entity;
+   * @param aEndSampleIdx
+   *          the end sample index of the entity;
+   * @param aValue
+   *          the data value of the entity;
+   * @param aEventName
+   *          the event name of the entity, can be <code>null</code>;
+   * @param aAttribute
+   *          the (implementation specific) attribute of the entity.
+   */
+  public void add( final int aChannelIdx, final int aStartSampleIdx, final int aEndSampleIdx, final int aValue,
+      final String aEventName, final int aAttribute )
+  {
+    if ( this.size == this.channels.length )
+    {
+      grow();
+    }
+
+    final int idx = this.size++;
+    this.channels[idx] = aChannelIdx;
+    this.startSampleIdxs[idx] = aStartSampleIdx;
+    this.endSampleIdxs[idx] = aEndSampleIdx;
+    this.values[idx] = aValue;
+    this.attributes[idx] = aAttribute;
+    this.events[idx] = getEventOrdinal( aEventName );
+  }
+
+  /**
+   * @return the attribute of the entity at the given index.
+   */
+  public int getAttribute( final int aIdx )
+  {
+    return this.attributes[aIdx];
+  }
+
+  /**
+   * @return the channel index of the entity at the given index.
+   */
+  public int getChannelIdx( final int aIdx )
+  {
+    return this.channels[aIdx];
+  }
+
+  /**
+   * @return the end sample index of the entity at the given index.
+   */
+  public int getEndSampleIndex( final int aIdx )
+  {
+    return this.endSampleIdxs[aIdx];
+  }
+
+  /**
+   * @return the event name of the entity at the given index, can be
+   *         <code>null</code>.
+   */
+  public String getEventName( final int aIdx )
+  {
+    final short ordinal = this.events[aIdx];
+    if ( ordinal == NO_EVENT )
+    {
+      return null;
+    }
+    return this.eventNames.get( ordinal );
+  }
+
+  /**
+   * @return the start sample index of the entity at the given index.
+   */
+  public int getStartSampleIndex( final int aIdx )
+  {
+    return this.startSampleIdxs[aIdx];
+  }
+
+  /**
+   * @return the value of the entity at the given index.
+   */
+  public int getValue( final int aIdx )
+  {
+    return this.values[aIdx];
+  }
+
+  /**
+   * Sorts all entities in this store on their start sample index. The sort is
+   * stable.
+   */
+  public void sortByStartSampleIndex()
+  {
+    // Sort the start sample index together with the current index in a single
+    // primitive key; the latter keeps the sort stable...
+    final long[] keys = new long[this.size];
+    for ( int i = 0; i < this.size; i++ )
+    {
+      keys[i] = ( ( long )this.startSampleIdxs[i] << 32 ) | i;
+    }
+    Arrays.sort( keys );
+
+    final int[] order = new int[this.size];
+    for ( int i = 0; i < this.size; i++ )
+    {
+      order[i] = ( int )keys[i];
+    }
+    reorder( order );
+  }
+
+  /**
+   * @return the number of entities in this store, >= 0.
+   */
+  public int size()
+  {
+    return this.size;
+  }
+
+  /**
+   * Returns the ordinal for the given event name, adding it to the event name
+   * table if needed.
+   */
+  private short getEventOrdinal( final String aEventName )
+  {
+    if ( aEventName == null )
+    {
+      return NO_EVENT;
+    }
+
+    Short ordinal = this.eventOrdinals.get( aEventName );
+    if ( ordinal == null )
+    {
+      if ( this.eventNames.size() >= Short.MAX_VALUE )
+      {
+        throw new IllegalStateException( "Too many distinct event names!" );
+      }
+
+      ordinal = Short.valueOf( ( short )this.eventNames.size() );
+      this.eventNames.add( aEventName );
+      this.eventOrdinals.put( aEventName, ordinal );
+    }
+    return ordinal.shortValue();
+  }
+
+  /**
+   * Grows all columns by roughly 50%.
+   */
+  private void grow()
+  {
+    final int newCapacity = this.channels.length + ( this.channels.length >> 1 );
+
+    this.channels = Arrays.copyOf( this.channels, newCapacity );
+    this.startSampleIdxs = Arrays.copyOf( this.startSampleIdxs, newCapacity );
+    this.endSampleIdxs = Arrays.copyOf( this.endSampleIdxs, newCapacity );
+    this.values = Arrays.copyOf( this.values, newCapacity );
+    this.attributes = Arrays.copyOf( this.attributes, newCapacity );
+    this.events = Arrays.copyOf( this.events, newCapacity );
+  }
+
+  /**
+   * Reorders all entities in this store.
+   * 
+   * @param aOrder
+   *          the new order of the entities, the n-th element denotes the
+   *          current index of the entity that should become the n-th entity.
+   *          Its length should equal the size of this store.
+   */
+  private void reorder( final int[] aOrder )
+  {
+    this.channels = reorder( this.channels, aOrder );
+    this.startSampleIdxs = reorder( this.startSampleIdxs, aOrder );
+    this.endSampleIdxs = reorder( this.endSampleIdxs, aOrder );
+    this.values = reorder( this.values, aOrder );
+    this.attributes = reorder( this.attributes, aOrder );
+
+    final short[] newEvents = new short[this.events.length];
+    for ( int i = 0; i < this.size; i++ )
+    {
+      newEvents[i] = this.events[aOrder[i]];
+    }
+    this.events = newEvents;
+  }
+
+  /**
+   * @return a copy of the given column in the given order.
+   */
+  private int[] reorder( final int[] aColumn, final int[] aOrder )
+  {
+    final int[] result = new int[aColumn.length];
+    for ( int i = 0; i < this.size; i++ )
+    {
+      result[i] = aColumn[aOrder[i]];
+    }
+    return result;
+  }
+}
+
+/* EOF */
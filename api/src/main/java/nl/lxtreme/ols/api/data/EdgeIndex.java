@@ -0,0 +1,454 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides a per-channel index of all signal edges in an
+ * {@link AcquisitionResult}.
+ * <p>
+ * For each channel, the sample indexes (that is, indexes in the arrays returned
+ * by {@link AcquisitionResult#getValues()} and
+ * {@link AcquisitionResult#getTimestamps()}) at which the channel changes its
+ * value are kept in a sorted array. This array is only built the first time a
+ * channel is queried, after which all edge lookups are simple binary searches.
+ * </p>
+ * <p>
+ * An "edge" at sample index <tt>i</tt> means that the value of the channel at
+ * index <tt>i</tt> differs from its value at index <tt>i - 1</tt>, hence, the
+ * first sample index is never considered to be an edge.
+ * </p>
+ * <p>
+ * Next to the edges themselves, the accumulated time a channel is high is kept
+ * for each edge. Together with the fact that the edges of a channel always
+ * alternate between rising and falling, this allows the number of rising and
+ * falling edges and the high and low times of any range to be determined
+ * without visiting the individual edges.
+ * </p>
+ */
+public final class EdgeIndex
+{
+  // CONSTANTS
+
+  private static final int[] NO_EDGES = new int[0];
+  private static final long[] NO_TIMES = new long[0];
+
+  /** Keeps the edge indexes of all acquisition results that are still in use. */
+  private static final Map<AcquisitionResult, EdgeIndex> INSTANCES = new WeakHashMap<AcquisitionResult, EdgeIndex>();
+
+  // VARIABLES
+
+  private final int[] values;
+  private final long[] timestamps;
+  /** the sample indexes of all edges, per channel; lazily created. */
+  private final int[][] edges;
+  /** the accumulated high time at each edge, per channel; lazily created. */
+  private final long[][] highTimes;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link EdgeIndex} instance.
+   *
+   * @param aValues
+   *          the sample values to index, cannot be <code>null</code>;
+   * @param aTimestamps
+   *          the timestamps of the sample values, cannot be <code>null</code>.
+   */
+  EdgeIndex( final int[] aValues, final long[] aTimestamps )
+  {
+    this.values = aValues;
+    this.timestamps = aTimestamps;
+    this.edges = new int[Ols.MAX_CHANNELS][];
+    this.highTimes = new long[Ols.MAX_CHANNELS][];
+  }
+
+  // METHODS
+
+  /**
+   * Returns the edge index for the given acquisition result.
+   * <p>
+   * Edge indexes are cached for as long as the given acquisition result is in
+   * use, so repeatedly calling this method for the same acquisition result
+   * yields the same edge index.
+   * </p>
+   *
+   * @param aResult
+   *          the acquisition result to get the edge index for, cannot be
+   *          <code>null</code>.
+   * @return the edge index for the given acquisition result, never
+   *         <code>null</code>.
+   */
+  public static EdgeIndex getInstance( final AcquisitionResult aResult )
+  {
+    if ( aResult == null )
+    {
+      throw new IllegalArgumentException( "Result cannot be null!" );
+    }
+
+    synchronized ( INSTANCES )
+    {
+      EdgeIndex result = INSTANCES.get( aResult );
+      if ( ( result == null ) || ( result.values != aResult.getValues() )
+          || ( result.timestamps != aResult.getTimestamps() ) )
+      {
+        result = new EdgeIndex( aResult.getValues(), aResult.getTimestamps() );
+        INSTANCES.put( aResult, result );
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Searches for the given key in the given (sorted) array.
+   *
+   * @param aArray
+   *          the array to search in;
+   * @param aKey
+   *          the key to search for.
+   * @return the number of elements in the given array that are less than or
+   *         equal to the given key, >= 0.
+   */
+  private static int rank( final int[] aArray, final int aKey )
+  {
+    int low = 0;
+    int high = aArray.length;
+
+    while ( low < high )
+    {
+      final int mid = ( low + high ) >>> 1;
+      if ( aArray[mid] <= aKey )
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid;
+      }
+    }
+
+    return low;
+  }
+
+  /**
+   * Returns the sample index of the first edge <em>after</em> the given sample
+   * index.
+   *
+   * @param aChannelIdx
+   *          the index of the channel to search, >= 0 && < 32;
+   * @param aSampleIdx
+   *          the sample index to start searching from (exclusive).
+   * @return the sample index of the found edge, or -1 if no edge was found.
+   */
+  public int findEdgeAfter( final int aChannelIdx, final int aSampleIdx )
+  {
+    final int[] channelEdges = getEdges( aChannelIdx );
+    final int n = rank( channelEdges, aSampleIdx );
+    return ( n < channelEdges.length ) ? channelEdges[n] : -1;
+  }
+
+  /**
+   * Returns the sample index of the last edge <em>at or before</em> the given
+   * sample index.
+   *
+   * @param aChannelIdx
+   *          the index of the channel to search, >= 0 && < 32;
+   * @param aSampleIdx
+   *          the sample index to start searching from (inclusive).
+   * @return the sample index of the found edge, or -1 if no edge was found.
+   */
+  public int findEdgeBefore( final int aChannelIdx, final int aSampleIdx )
+  {
+    final int[] channelEdges = getEdges( aChannelIdx );
+    final int n = rank( channelEdges, aSampleIdx );
+    return ( n > 0 ) ? channelEdges[n - 1] : -1;
+  }
+
+  /**
+   * Returns the sample index of the n-th edge of the given channel.
+   *
+   * @param aChannelIdx
+   *          the index of the channel, >= 0 && < 32;
+   * @param aEdgeNr
+   *          the number of the edge to return, >= 0 && <
+   *          {@link #getEdgeCount(int)}.
+   * @return the sample index of the requested edge.
+   * @throws IndexOutOfBoundsException
+   *           in case the given edge number is invalid.
+   */
+  public int getEdge( final int aChannelIdx, final int aEdgeNr )
+  {
+    return getEdges( aChannelIdx )[aEdgeNr];
+  }
+
+  /**
+   * Returns the total number of edges of the given channel.
+   *
+   * @param aChannelIdx
+   *          the index of the channel, >= 0 && < 32.
+   * @return the number of edges, >= 0.
+   */
+  public int getEdgeCount( final int aChannelIdx )
+  {
+    return getEdges( aChannelIdx ).length;
+  }
+
+  /**
+   * Returns the number of edges of the given channel that lie in the given
+   * range of sample indexes.
+   *
+   * @param aChannelIdx
+   *          the index of the channel, >= 0 && < 32;
+   * @param aFromIdx
+   *          the sample index to start counting from (exclusive);
+   * @param aToIdx
+   *          the sample index to stop counting at (inclusive).
+   * @return the number of edges, >= 0.
+   */
+  public int getEdgeCount( final int aChannelIdx, final int aFromIdx, final int aToIdx )
+  {
+    if ( aToIdx <= aFromIdx )
+    {
+      return 0;
+    }
+    final int[] channelEdges = getEdges( aChannelIdx );
+    return rank( channelEdges, aToIdx ) - rank( channelEdges, aFromIdx );
+  }
+
+  /**
+   * Returns the number of edges of the given channel that lie at or before the
+   * given sample index. This value can directly be used as edge number for
+   * {@link #getEdge(int, int)} to obtain the first edge <em>after</em> the
+   * given sample index.
+   *
+   * @param aChannelIdx
+   *          the index of the channel, >= 0 && < 32;
+   * @param aSampleIdx
+   *          the sample index.
+   * @return the number of edges at or before the given sample index, >= 0.
+   */
+  public int getEdgeNumber( final int aChannelIdx, final int aSampleIdx )
+  {
+    return rank( getEdges( aChannelIdx ), aSampleIdx );
+  }
+
+  /**
+   * Returns the total time the given channel is high between two of its edges.
+   *
+   * @param aChannelIdx
+   *          the index of the channel, >= 0 && < 32;
+   * @param aFromEdgeNr
+   *          the number of the edge to start from, >= 0 && <
+   *          {@link #getEdgeCount(int)};
+   * @param aToEdgeNr
+   *          the number of the edge to stop at, >= aFromEdgeNr && <
+   *          {@link #getEdgeCount(int)}.
+   * @return the high time, in the same unit as the timestamps, >= 0.
+   * @throws IndexOutOfBoundsException
+   *           in case one of the given edge numbers is invalid.
+   */
+  public long getHighTime( final int aChannelIdx, final int aFromEdgeNr, final int aToEdgeNr )
+  {
+    final long[] channelHighTimes = getHighTimes( aChannelIdx );
+    return channelHighTimes[aToEdgeNr] - channelHighTimes[aFromEdgeNr];
+  }
+
+  /**
+   * Returns the number of rising edges of the given channel that lie in the
+   * given range of sample indexes.
+   *
+   * @param aChannelIdx
+   *          the index of the channel, >= 0 && < 32;
+   * @param aFromIdx
+   *          the sample index to start counting from (exclusive);
+   * @param aToIdx
+   *          the sample index to stop counting at (inclusive).
+   * @return the number of rising edges, >= 0.
+   */
+  public int getRisingEdgeCount( final int aChannelIdx, final int aFromIdx, final int aToIdx )
+  {
+    if ( aToIdx <= aFromIdx )
+    {
+      return 0;
+    }
+
+    final int[] channelEdges = getEdges( aChannelIdx );
+    final int firstEdgeNr = rank( channelEdges, aFromIdx );
+    final int count = rank( channelEdges, aToIdx ) - firstEdgeNr;
+    if ( count <= 0 )
+    {
+      return 0;
+    }
+
+    // Edges alternate, so only the direction of the first one is relevant...
+    final boolean firstRising = ( this.values[channelEdges[firstEdgeNr]] & ( 1 << aChannelIdx ) ) != 0;
+    return firstRising ? ( ( count + 1 ) / 2 ) : ( count / 2 );
+  }
+
+  /**
+   * Returns whether the given channel is already indexed, meaning that queries
+   * for this channel do not have to scan the sample values.
+   *
+   * @param aChannelIdx
+   *          the index of the channel, >= 0 && < 32.
+   * @return <code>true</code> if the given channel is indexed,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isIndexed( final int aChannelIdx )
+  {
+    synchronized ( this.edges )
+    {
+      return ( aChannelIdx >= 0 ) && ( aChannelIdx < Ols.MAX_CHANNELS ) && ( this.highTimes[aChannelIdx] != null );
+    }
+  }
+
+  /**
+   * Returns the sorted sample indexes of all edges of the given channel,
+   * creating them if needed.
+   *
+   * @param aChannelIdx
+   *          the index of the channel, >= 0 && < 32.
+   * @return the edges of the given channel, never <code>null</code>.
+   */
+  int[] getEdges( final int aChannelIdx )
+  {
+    if ( ( aChannelIdx < 0 ) || ( aChannelIdx >= Ols.MAX_CHANNELS ) )
+    {
+      throw new IllegalArgumentException( "Invalid channel index: " + aChannelIdx + "! Should be between 0 and "
+          + Ols.MAX_CHANNELS );
+    }
+
+    synchronized ( this.edges )
+    {
+      int[] result = this.edges[aChannelIdx];
+      if ( result == null )
+      {
+        result = indexChannel( 1 << aChannelIdx );
+        this.edges[aChannelIdx] = result;
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Returns the accumulated high time at each edge of the given channel,
+   * creating them if needed. The value for edge <tt>n</tt> is the time the
+   * channel is high between its first edge and edge <tt>n</tt>.
+   *
+   * @param aChannelIdx
+   *          the index of the channel, >= 0 && < 32.
+   * @return the accumulated high times of the given channel, never
+   *         <code>null</code>.
+   */
+  long[] getHighTimes( final int aChannelIdx )
+  {
+    final int[] channelEdges = getEdges( aChannelIdx );
+
+    synchronized ( this.edges )
+    {
+      long[] result = this.highTimes[aChannelIdx];
+      if ( result == null )
+      {
+        result = accumulateHighTimes( channelEdges, 1 << aChannelIdx );
+        this.highTimes[aChannelIdx] = result;
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Accumulates the high times for the given edges.
+   *
+   * @param aEdges
+   *          the sample indexes of the edges of a channel;
+   * @param aMask
+   *          the channel mask of the edges.
+   * @return the accumulated high time at each edge, never <code>null</code>.
+   */
+  private long[] accumulateHighTimes( final int[] aEdges, final int aMask )
+  {
+    final int count = aEdges.length;
+    if ( count == 0 )
+    {
+      return NO_TIMES;
+    }
+
+    final long[] result = new long[count];
+    for ( int n = 1; n < count; n++ )
+    {
+      long highTime = 0L;
+      if ( ( this.values[aEdges[n]] & aMask ) == 0 )
+      {
+        // Falling edge: the channel was high since the previous edge...
+        highTime = this.timestamps[aEdges[n]] - this.timestamps[aEdges[n - 1]];
+      }
+      result[n] = result[n - 1] + highTime;
+    }
+
+    return result;
+  }
+
+  /**
+   * Determines the sample indexes of all edges for the given mask.
+   *
+   * @param aMask
+   *          the channel mask to determine the edges for.
+   * @return the sample indexes of all edges, never <code>null</code>.
+   */
+  private int[] indexChannel( final int aMask )
+  {
+    final int[] data = this.values;
+    final int size = data.length;
+
+    // 1: count the number of edges, as to allocate our result only once...
+    int count = 0;
+    for ( int i = 1; i < size; i++ )
+    {
+      if ( ( ( data[i] ^ data[i - 1] ) & aMask ) != 0 )
+      {
+        count++;
+      }
+    }
+
+    if ( count == 0 )
+    {
+      return NO_EDGES;
+    }
+
+    // 2: store the sample indexes of all edges...
+    final int[] result = new int[count];
+    for ( int i = 1, j = 0; i < size; i++ )
+    {
+      if ( ( ( data[i] ^ data[i - 1] ) & aMask ) != 0 )
+      {
+        result[j++] = i;
+      }
+    }
+
+    return result;
+  }
+}
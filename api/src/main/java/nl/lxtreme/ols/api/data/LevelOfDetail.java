@@ -0,0 +1,561 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides a multi-resolution ("mipmap") summary of an
+ * {@link AcquisitionResult}, allowing zoomed-out views of the data to be drawn
+ * without visiting each individual sample.
+ * <p>
+ * The time line is divided into buckets of <tt>2<sup>level</sup></tt> time
+ * units. For each bucket two bit masks are kept: one with all channels that
+ * have been high at some time in that bucket, and one with all channels that
+ * have been low at some time in that bucket. A channel that is set in both
+ * masks is toggling in that bucket. Each level is derived from the level below
+ * it by combining two adjacent buckets.
+ * </p>
+ * <p>
+ * For analog signals, the minimum and maximum value of a group of channels
+ * can be obtained per bucket as well. As these values cannot be derived from
+ * the bit masks, they are determined on first use for each distinct group of
+ * channels.
+ * </p>
+ * <p>
+ * To bound the amount of memory used, the lowest level is chosen such that it
+ * never contains more than {@value #MAX_BASE_BUCKETS} buckets. For views that
+ * need a finer resolution than that, the actual samples should be used.
+ * </p>
+ */
+public final class LevelOfDetail
+{
+  // INNER TYPES
+
+  /**
+   * Keeps the minimum and maximum value of a group of channels, per bucket and
+   * per level.
+   * <p>
+   * Values are stored with their sign bit flipped, allowing unsigned 32-bit
+   * values to be compared as regular integers.
+   * </p>
+   */
+  private static final class ValueRanges
+  {
+    // VARIABLES
+
+    /** the minimum values, per level, the first index is the base level. */
+    final int[][] minimums;
+    /** the maximum values, per level, the first index is the base level. */
+    final int[][] maximums;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link ValueRanges} instance.
+     */
+    ValueRanges( final int aLevelCount )
+    {
+      this.minimums = new int[aLevelCount][];
+      this.maximums = new int[aLevelCount][];
+    }
+  }
+
+  // CONSTANTS
+
+  /** The maximum number of buckets in the lowest level. */
+  static final int MAX_BASE_BUCKETS = 1 << 20;
+
+  /** Keeps the level of details of all acquisition results still in use. */
+  private static final Map<AcquisitionResult, LevelOfDetail> INSTANCES = new WeakHashMap<AcquisitionResult, LevelOfDetail>();
+
+  // VARIABLES
+
+  private final int[] values;
+  private final long[] timestamps;
+  private final long length;
+  private final int baseLevel;
+  /** the "high" bit masks, per level, the first index is the base level. */
+  private final int[][] highMasks;
+  /** the "low" bit masks, per level, the first index is the base level. */
+  private final int[][] lowMasks;
+  /** the value ranges, per group of channels. */
+  private final Map<Integer, ValueRanges> valueRanges;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link LevelOfDetail} instance.
+   *
+   * @param aValues
+   *          the sample values;
+   * @param aTimestamps
+   *          the sample timestamps;
+   * @param aAbsoluteLength
+   *          the absolute length of the sample data.
+   */
+  LevelOfDetail( final int[] aValues, final long[] aTimestamps, final long aAbsoluteLength )
+  {
+    this.values = aValues;
+    this.timestamps = aTimestamps;
+    this.valueRanges = new HashMap<Integer, ValueRanges>();
+
+    final int size = aTimestamps.length;
+    final long length = ( size == 0 ) ? 1L : Math.max( aAbsoluteLength, aTimestamps[size - 1] ) + 1L;
+    this.length = length;
+
+    int level = 1;
+    while ( getBucketCount( length, level ) > MAX_BASE_BUCKETS )
+    {
+      level++;
+    }
+    this.baseLevel = level;
+
+    int levelCount = 1;
+    while ( getBucketCount( length, level + levelCount - 1 ) > 1 )
+    {
+      levelCount++;
+    }
+
+    this.highMasks = new int[levelCount][];
+    this.lowMasks = new int[levelCount][];
+
+    // 1: create the base level directly from the sample data...
+    final int[] high = new int[getBucketCount( length, level )];
+    final int[] low = new int[high.length];
+
+    for ( int i = 0; i < size; i++ )
+    {
+      final long start = aTimestamps[i];
+      final long end = ( ( i + 1 ) < size ) ? aTimestamps[i + 1] : length;
+      if ( end <= start )
+      {
+        continue;
+      }
+
+      final int value = aValues[i];
+      final int lastBucket = ( int )( ( end - 1L ) >> level );
+      for ( int b = ( int )( start >> level ); b <= lastBucket; b++ )
+      {
+        high[b] |= value;
+        low[b] |= ~value;
+      }
+    }
+
+    this.highMasks[0] = high;
+    this.lowMasks[0] = low;
+
+    // 2: derive all higher levels from their preceeding level...
+    for ( int l = 1; l < levelCount; l++ )
+    {
+      this.highMasks[l] = combine( this.highMasks[l - 1] );
+      this.lowMasks[l] = combine( this.lowMasks[l - 1] );
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Returns the level of detail for the given acquisition result.
+   * <p>
+   * The level of detail is cached for as long as the given acquisition result
+   * is in use, so repeatedly calling this method for the same acquisition
+   * result yields the same level of detail.
+   * </p>
+   *
+   * @param aResult
+   *          the acquisition result to get the level of detail for, cannot be
+   *          <code>null</code>.
+   * @return the level of detail for the given acquisition result, never
+   *         <code>null</code>.
+   */
+  public static LevelOfDetail getInstance( final AcquisitionResult aResult )
+  {
+    if ( aResult == null )
+    {
+      throw new IllegalArgumentException( "Result cannot be null!" );
+    }
+
+    synchronized ( INSTANCES )
+    {
+      LevelOfDetail result = INSTANCES.get( aResult );
+      if ( ( result == null ) || ( result.values != aResult.getValues() ) )
+      {
+        result = new LevelOfDetail( aResult.getValues(), aResult.getTimestamps(), aResult.getAbsoluteLength() );
+        INSTANCES.put( aResult, result );
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Combines each two adjacent buckets of the given level into one.
+   *
+   * @param aMasks
+   *          the bit masks to combine.
+   * @return the combined bit masks, never <code>null</code>.
+   */
+  private static int[] combine( final int[] aMasks )
+  {
+    final int[] result = new int[( aMasks.length + 1 ) / 2];
+    for ( int i = 0; i < aMasks.length; i++ )
+    {
+      result[i >> 1] |= aMasks[i];
+    }
+    return result;
+  }
+
+  /**
+   * Combines each two adjacent buckets of the given level into one, keeping
+   * the largest value of both.
+   *
+   * @param aValues
+   *          the values to combine.
+   * @return the combined values, never <code>null</code>.
+   */
+  private static int[] combineMaximums( final int[] aValues )
+  {
+    final int[] result = new int[( aValues.length + 1 ) / 2];
+    Arrays.fill( result, Integer.MIN_VALUE );
+    for ( int i = 0; i < aValues.length; i++ )
+    {
+      result[i >> 1] = Math.max( result[i >> 1], aValues[i] );
+    }
+    return result;
+  }
+
+  /**
+   * Combines each two adjacent buckets of the given level into one, keeping
+   * the smallest value of both.
+   *
+   * @param aValues
+   *          the values to combine.
+   * @return the combined values, never <code>null</code>.
+   */
+  private static int[] combineMinimums( final int[] aValues )
+  {
+    final int[] result = new int[( aValues.length + 1 ) / 2];
+    Arrays.fill( result, Integer.MAX_VALUE );
+    for ( int i = 0; i < aValues.length; i++ )
+    {
+      result[i >> 1] = Math.min( result[i >> 1], aValues[i] );
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of buckets needed to cover the given length.
+   *
+   * @param aLength
+   *          the length to cover;
+   * @param aLevel
+   *          the level to determine the number of buckets for.
+   * @return a bucket count, >= 1.
+   */
+  private static int getBucketCount( final long aLength, final int aLevel )
+  {
+    return ( int )Math.min( Integer.MAX_VALUE, ( ( aLength - 1L ) >> aLevel ) + 1L );
+  }
+
+  /**
+   * Returns the lowest level that is available.
+   *
+   * @return the base level, >= 1.
+   */
+  public int getBaseLevel()
+  {
+    return this.baseLevel;
+  }
+
+  /**
+   * Returns the bit mask of all channels that have been high at some time in
+   * the given time range.
+   *
+   * @param aLevel
+   *          the level to use, as returned by {@link #getLevel(double)};
+   * @param aStartTime
+   *          the start of the time range (inclusive);
+   * @param aEndTime
+   *          the end of the time range (exclusive).
+   * @return a bit mask with all channels that are high in the given range.
+   */
+  public int getHighMask( final int aLevel, final long aStartTime, final long aEndTime )
+  {
+    return getMask( this.highMasks, aLevel, aStartTime, aEndTime );
+  }
+
+  /**
+   * Returns the level that best matches the given zoom factor, that is, the
+   * level whose buckets are at most one pixel wide.
+   *
+   * @param aZoomFactor
+   *          the zoom factor, in pixels per time unit.
+   * @return the level to use, or -1 if the given zoom factor requires a finer
+   *         resolution than available. In the latter case, the actual samples
+   *         should be used instead.
+   */
+  public int getLevel( final double aZoomFactor )
+  {
+    final double timePerPixel = 1.0 / aZoomFactor;
+    if ( Double.isInfinite( timePerPixel ) || Double.isNaN( timePerPixel ) )
+    {
+      return -1;
+    }
+
+    final int level = ( int )Math.floor( Math.log( timePerPixel ) / Math.log( 2.0 ) );
+    if ( level < this.baseLevel )
+    {
+      return -1;
+    }
+
+    return Math.min( level, this.baseLevel + this.highMasks.length - 1 );
+  }
+
+  /**
+   * Returns the bit mask of all channels that have been low at some time in
+   * the given time range.
+   *
+   * @param aLevel
+   *          the level to use, as returned by {@link #getLevel(double)};
+   * @param aStartTime
+   *          the start of the time range (inclusive);
+   * @param aEndTime
+   *          the end of the time range (exclusive).
+   * @return a bit mask with all channels that are low in the given range.
+   */
+  public int getLowMask( final int aLevel, final long aStartTime, final long aEndTime )
+  {
+    return getMask( this.lowMasks, aLevel, aStartTime, aEndTime );
+  }
+
+  /**
+   * Returns the largest value the given group of channels has had at some time
+   * in the given time range.
+   * <p>
+   * The value of a group of channels is the sample value masked with the given
+   * mask, and shifted to the right by the number of trailing zeros of that
+   * mask.
+   * </p>
+   *
+   * @param aMask
+   *          the bit mask of the group of channels, should not be zero;
+   * @param aLevel
+   *          the level to use, as returned by {@link #getLevel(double)};
+   * @param aStartTime
+   *          the start of the time range (inclusive);
+   * @param aEndTime
+   *          the end of the time range (exclusive).
+   * @return the maximum value in the given range, as unsigned 32-bit value, or
+   *         -1 if there are no samples in the given range.
+   */
+  public long getMaximumValue( final int aMask, final int aLevel, final long aStartTime, final long aEndTime )
+  {
+    final ValueRanges ranges = getValueRanges( aMask );
+    final int idx = getLevelIndex( aLevel );
+    final int[] minimums = ranges.minimums[idx];
+    final int[] maximums = ranges.maximums[idx];
+
+    int result = Integer.MIN_VALUE;
+    boolean found = false;
+
+    final long end = getEndBucket( maximums, aLevel, aEndTime );
+    for ( int b = getStartBucket( aLevel, aStartTime ); b < end; b++ )
+    {
+      // empty buckets have their maximum below their minimum...
+      if ( ( maximums[b] >= minimums[b] ) && ( maximums[b] >= result ) )
+      {
+        result = maximums[b];
+        found = true;
+      }
+    }
+    return found ? toUnsigned( result ) : -1L;
+  }
+
+  /**
+   * Returns the smallest value the given group of channels has had at some
+   * time in the given time range.
+   *
+   * @param aMask
+   *          the bit mask of the group of channels, should not be zero;
+   * @param aLevel
+   *          the level to use, as returned by {@link #getLevel(double)};
+   * @param aStartTime
+   *          the start of the time range (inclusive);
+   * @param aEndTime
+   *          the end of the time range (exclusive).
+   * @return the minimum value in the given range, as unsigned 32-bit value, or
+   *         -1 if there are no samples in the given range.
+   * @see #getMaximumValue(int, int, long, long)
+   */
+  public long getMinimumValue( final int aMask, final int aLevel, final long aStartTime, final long aEndTime )
+  {
+    final ValueRanges ranges = getValueRanges( aMask );
+    final int idx = getLevelIndex( aLevel );
+    final int[] minimums = ranges.minimums[idx];
+    final int[] maximums = ranges.maximums[idx];
+
+    int result = Integer.MAX_VALUE;
+    boolean found = false;
+
+    final long end = getEndBucket( minimums, aLevel, aEndTime );
+    for ( int b = getStartBucket( aLevel, aStartTime ); b < end; b++ )
+    {
+      // empty buckets have their maximum below their minimum...
+      if ( ( maximums[b] >= minimums[b] ) && ( minimums[b] <= result ) )
+      {
+        result = minimums[b];
+        found = true;
+      }
+    }
+    return found ? toUnsigned( result ) : -1L;
+  }
+
+  /**
+   * Returns the index of the bucket after the one containing the given end
+   * time.
+   */
+  private long getEndBucket( final int[] aBuckets, final int aLevel, final long aEndTime )
+  {
+    return Math.min( aBuckets.length, ( ( aEndTime - 1L ) >> aLevel ) + 1L );
+  }
+
+  /**
+   * Returns the index of the given level in the arrays of levels.
+   */
+  private int getLevelIndex( final int aLevel )
+  {
+    final int idx = aLevel - this.baseLevel;
+    if ( ( idx < 0 ) || ( idx >= this.highMasks.length ) )
+    {
+      throw new IllegalArgumentException( "Invalid level: " + aLevel + "!" );
+    }
+    return idx;
+  }
+
+  /**
+   * Combines all bit masks of the given level in the given time range.
+   *
+   * @param aMasks
+   *          the bit masks of all levels;
+   * @param aLevel
+   *          the level to use;
+   * @param aStartTime
+   *          the start of the time range (inclusive);
+   * @param aEndTime
+   *          the end of the time range (exclusive).
+   * @return the combined bit mask.
+   */
+  private int getMask( final int[][] aMasks, final int aLevel, final long aStartTime, final long aEndTime )
+  {
+    final int[] masks = aMasks[getLevelIndex( aLevel )];
+
+    final long end = getEndBucket( masks, aLevel, aEndTime );
+
+    int result = 0;
+    for ( int b = getStartBucket( aLevel, aStartTime ); b < end; b++ )
+    {
+      result |= masks[b];
+    }
+    return result;
+  }
+
+  /**
+   * Returns the index of the bucket containing the given start time.
+   */
+  private int getStartBucket( final int aLevel, final long aStartTime )
+  {
+    return ( int )( Math.max( 0L, aStartTime ) >> aLevel );
+  }
+
+  /**
+   * Returns the value ranges for the given group of channels, creating them if
+   * needed.
+   *
+   * @param aMask
+   *          the bit mask of the group of channels.
+   * @return the value ranges, never <code>null</code>.
+   */
+  private ValueRanges getValueRanges( final int aMask )
+  {
+    synchronized ( this.valueRanges )
+    {
+      ValueRanges result = this.valueRanges.get( Integer.valueOf( aMask ) );
+      if ( result == null )
+      {
+        result = new ValueRanges( this.highMasks.length );
+
+        // 1: create the base level directly from the sample data...
+        final int level = this.baseLevel;
+        final int shift = Integer.numberOfTrailingZeros( aMask );
+        final int size = this.timestamps.length;
+
+        final int[] min = new int[this.highMasks[0].length];
+        final int[] max = new int[min.length];
+        Arrays.fill( min, Integer.MAX_VALUE );
+        Arrays.fill( max, Integer.MIN_VALUE );
+
+        for ( int i = 0; i < size; i++ )
+        {
+          final long start = this.timestamps[i];
+          final long end = ( ( i + 1 ) < size ) ? this.timestamps[i + 1] : this.length;
+          if ( end <= start )
+          {
+            continue;
+          }
+
+          final int value = ( ( this.values[i] & aMask ) >>> shift ) ^ Integer.MIN_VALUE;
+          final int lastBucket = ( int )( ( end - 1L ) >> level );
+          for ( int b = ( int )( start >> level ); b <= lastBucket; b++ )
+          {
+            min[b] = Math.min( min[b], value );
+            max[b] = Math.max( max[b], value );
+          }
+        }
+
+        result.minimums[0] = min;
+        result.maximums[0] = max;
+
+        // 2: derive all higher levels from their preceeding level...
+        for ( int l = 1; l < result.minimums.length; l++ )
+        {
+          result.minimums[l] = combineMinimums( result.minimums[l - 1] );
+          result.maximums[l] = combineMaximums( result.maximums[l - 1] );
+        }
+
+        this.valueRanges.put( Integer.valueOf( aMask ), result );
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Converts a stored value, with its sign bit flipped, back to its unsigned
+   * 32-bit value.
+   */
+  private long toUnsigned( final int aValue )
+  {
+    return ( aValue ^ Integer.MIN_VALUE ) & 0xFFFFFFFFL;
+  }
+}
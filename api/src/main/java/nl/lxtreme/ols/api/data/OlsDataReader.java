@@ -0,0 +1,846 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides a reader for the (textual) OLS data file format.
+ * <p>
+ * The data lines are scanned byte by byte, and their sample values and
+ * timestamps are parsed directly into primitive arrays, without creating any
+ * intermediary strings. Regular files are memory-mapped and split into
+ * line-aligned segments that are parsed concurrently.
+ * </p>
+ * <p>
+ * Note: a reader is not thread-safe, but can be used to read multiple files
+ * after each other.
+ * </p>
+ */
+public final class OlsDataReader
+{
+  // INNER TYPES
+
+  /**
+   * Parses the lines of a consecutive range of an OLS data file.
+   */
+  static final class Segment
+  {
+    // CONSTANTS
+
+    private static final int STATE_LINE_START = 0;
+    private static final int STATE_VALUE = 1;
+    private static final int STATE_TIMESTAMP = 2;
+    private static final int STATE_INSTRUCTION = 3;
+    private static final int STATE_SKIP_LINE = 4;
+
+    private static final byte[] HEX_DIGITS = new byte[256];
+
+    static
+    {
+      Arrays.fill( HEX_DIGITS, ( byte )-1 );
+      for ( int i = 0; i < 10; i++ )
+      {
+        HEX_DIGITS['0' + i] = ( byte )i;
+      }
+      for ( int i = 0; i < 6; i++ )
+      {
+        HEX_DIGITS['a' + i] = ( byte )( 10 + i );
+        HEX_DIGITS['A' + i] = ( byte )( 10 + i );
+      }
+    }
+
+    // VARIABLES
+
+    private int[] values;
+    private long[] timestamps;
+    private int size;
+
+    private final List<String> instructions;
+    private final StringBuilder instruction;
+
+    private int state;
+    private long value;
+    private long timestamp;
+    private boolean timestampSeen;
+    private boolean overflow;
+    private boolean invalid;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Segment instance.
+     *
+     * @param aCapacity
+     *          the initial number of samples to reserve room for, > 0.
+     */
+    Segment( final int aCapacity )
+    {
+      this.values = new int[aCapacity];
+      this.timestamps = new long[aCapacity];
+      this.size = 0;
+
+      this.instructions = new ArrayList<String>();
+      this.instruction = new StringBuilder();
+
+      this.state = STATE_LINE_START;
+    }
+
+    // METHODS
+
+    /**
+     * Terminates the last line of this segment.
+     */
+    final void end()
+    {
+      endOfLine();
+    }
+
+    /**
+     * Parses the given bytes as (a part of) the lines of this segment.
+     *
+     * @param aBuffer
+     *          the buffer with bytes;
+     * @param aOffset
+     *          the offset of the first byte to parse;
+     * @param aLength
+     *          the number of bytes to parse.
+     */
+    final void feed( final byte[] aBuffer, final int aOffset, final int aLength )
+    {
+      final int end = aOffset + aLength;
+      for ( int i = aOffset; i < end; i++ )
+      {
+        final int b = aBuffer[i] & 0xFF;
+        if ( ( b == '\n' ) || ( b == '\r' ) )
+        {
+          endOfLine();
+          continue;
+        }
+
+        int digit;
+        switch ( this.state )
+        {
+          case STATE_LINE_START:
+            if ( b == ';' )
+            {
+              this.instruction.setLength( 0 );
+              this.state = STATE_INSTRUCTION;
+            }
+            else if ( ( digit = HEX_DIGITS[b] ) >= 0 )
+            {
+              this.value = digit;
+              this.timestamp = 0L;
+              this.timestampSeen = false;
+              this.overflow = false;
+              this.state = STATE_VALUE;
+            }
+            else
+            {
+              this.state = STATE_SKIP_LINE;
+            }
+            break;
+
+          case STATE_VALUE:
+            if ( b == '@' )
+            {
+              this.state = STATE_TIMESTAMP;
+            }
+            else if ( ( digit = HEX_DIGITS[b] ) >= 0 )
+            {
+              // More than 63 significant bits cannot be represented...
+              if ( ( this.value & 0xF800000000000000L ) != 0L )
+              {
+                this.overflow = true;
+              }
+              this.value = ( this.value << 4 ) | digit;
+            }
+            else
+            {
+              this.state = STATE_SKIP_LINE;
+            }
+            break;
+
+          case STATE_TIMESTAMP:
+            digit = b - '0';
+            if ( ( digit >= 0 ) && ( digit <= 9 ) )
+            {
+              if ( this.timestamp > ( ( Long.MAX_VALUE - digit ) / 10L ) )
+              {
+                this.overflow = true;
+              }
+              this.timestamp = ( this.timestamp * 10L ) + digit;
+              this.timestampSeen = true;
+            }
+            else
+            {
+              this.state = STATE_SKIP_LINE;
+            }
+            break;
+
+          case STATE_INSTRUCTION:
+            this.instruction.append( ( char )b );
+            break;
+
+          default:
+            // Ignore the remainder of this line...
+            break;
+        }
+      }
+    }
+
+    /**
+     * Returns the instructions found in this segment.
+     *
+     * @return the instruction lines, without their leading semicolon, in the
+     *         order they were found.
+     */
+    final List<String> getInstructions()
+    {
+      return this.instructions;
+    }
+
+    /**
+     * Returns the timestamp of the n-th sample.
+     */
+    final long getTimestamp( final int aIndex )
+    {
+      return this.timestamps[aIndex];
+    }
+
+    /**
+     * Returns the value of the n-th sample.
+     */
+    final int getValue( final int aIndex )
+    {
+      return this.values[aIndex];
+    }
+
+    /**
+     * Returns whether this segment contained data lines with values that could
+     * not be represented.
+     *
+     * @return <code>true</code> if invalid data was found, <code>false</code>
+     *         otherwise.
+     */
+    final boolean isInvalid()
+    {
+      return this.invalid;
+    }
+
+    /**
+     * Releases the samples of this segment, once they are no longer needed.
+     */
+    final void release()
+    {
+      this.values = null;
+      this.timestamps = null;
+    }
+
+    /**
+     * Returns the number of samples in this segment.
+     */
+    final int size()
+    {
+      return this.size;
+    }
+
+    /**
+     * Completes the current line.
+     */
+    private void endOfLine()
+    {
+      if ( ( this.state == STATE_TIMESTAMP ) && this.timestampSeen )
+      {
+        if ( this.overflow )
+        {
+          this.invalid = true;
+        }
+
+        if ( this.size == this.values.length )
+        {
+          final int newCapacity = this.size + ( this.size >> 1 ) + 1;
+          this.values = Arrays.copyOf( this.values, newCapacity );
+          this.timestamps = Arrays.copyOf( this.timestamps, newCapacity );
+        }
+
+        this.values[this.size] = ( int )this.value;
+        this.timestamps[this.size] = this.timestamp;
+        this.size++;
+      }
+      else if ( this.state == STATE_INSTRUCTION )
+      {
+        this.instructions.add( this.instruction.toString() );
+      }
+
+      this.state = STATE_LINE_START;
+    }
+  }
+
+  /**
+   * Parses a single segment of a memory-mapped file.
+   */
+  static final class SegmentTask implements Callable<Segment>
+  {
+    // VARIABLES
+
+    private final FileChannel channel;
+    private final long start;
+    private final long end;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new SegmentTask instance.
+     */
+    SegmentTask( final FileChannel aChannel, final long aStart, final long aEnd )
+    {
+      this.channel = aChannel;
+      this.start = aStart;
+      this.end = aEnd;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Segment call() throws IOException
+    {
+      final int length = ( int )( this.end - this.start );
+      final ByteBuffer buffer = this.channel.map( MapMode.READ_ONLY, this.start, length );
+
+      // Assume a typical line length when estimating the number of samples...
+      final Segment segment = new Segment( Math.max( 16, length / 16 ) );
+      final byte[] bytes = new byte[BUFFER_SIZE];
+
+      int remaining;
+      while ( ( remaining = buffer.remaining() ) > 0 )
+      {
+        final int count = Math.min( remaining, bytes.length );
+        buffer.get( bytes, 0, count );
+        segment.feed( bytes, 0, count );
+      }
+      segment.end();
+
+      return segment;
+    }
+  }
+
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( OlsDataReader.class.getName() );
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  /** The smallest file part that is worth parsing concurrently. */
+  static final long MIN_SEGMENT_SIZE = 1024L * 1024L;
+  /** The largest file part that is mapped at once. */
+  private static final long MAX_SEGMENT_SIZE = 1024L * 1024L * 1024L;
+
+  // VARIABLES
+
+  private boolean cursorsEnabled;
+  private final long[] cursors;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new OlsDataReader instance.
+   */
+  public OlsDataReader()
+  {
+    this.cursors = new long[Ols.MAX_CURSORS];
+  }
+
+  // METHODS
+
+  /**
+   * Returns the timestamp of the n-th cursor, as read from the last data file.
+   *
+   * @param aIndex
+   *          the index of the cursor, >= 0 && < {@link Ols#MAX_CURSORS}.
+   * @return the cursor timestamp, or {@link Long#MIN_VALUE} if the cursor was
+   *         not defined.
+   */
+  public long getCursorTimestamp( final int aIndex )
+  {
+    return this.cursors[aIndex];
+  }
+
+  /**
+   * Returns whether the cursors were enabled, according to the last data file.
+   *
+   * @return <code>true</code> if the cursors were enabled, <code>false</code>
+   *         otherwise.
+   */
+  public boolean isCursorsEnabled()
+  {
+    return this.cursorsEnabled;
+  }
+
+  /**
+   * Reads the data from a given file.
+   * <p>
+   * Regular files are memory-mapped and parsed concurrently; other files, such
+   * as named pipes, are read as stream.
+   * </p>
+   *
+   * @param aFile
+   *          the file to read the data from, cannot be <code>null</code>.
+   * @return the read captured data, never <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems, or in case the file contains invalid
+   *           data.
+   */
+  public AcquisitionResult read( final File aFile ) throws IOException
+  {
+    final FileInputStream fis = new FileInputStream( aFile );
+
+    try
+    {
+      if ( !aFile.isFile() )
+      {
+        return read( fis );
+      }
+
+      if ( LOG.isLoggable( Level.INFO ) )
+      {
+        LOG.info( "Parsing OLS captured data from " + aFile + "..." );
+      }
+
+      final FileChannel channel = fis.getChannel();
+      final long length = channel.size();
+
+      final int cpuCount = Runtime.getRuntime().availableProcessors();
+      final int segmentCount = ( int )Math.max( Math.min( cpuCount, length / MIN_SEGMENT_SIZE ),
+          ( length + MAX_SEGMENT_SIZE - 1 ) / MAX_SEGMENT_SIZE );
+
+      final List<SegmentTask> tasks = new ArrayList<SegmentTask>( segmentCount );
+
+      long start = 0L;
+      for ( int i = 1; i <= segmentCount; i++ )
+      {
+        long end = length;
+        if ( i < segmentCount )
+        {
+          end = Math.max( start, findLineStart( channel, ( length * i ) / segmentCount, length ) );
+        }
+        if ( end > start )
+        {
+          tasks.add( new SegmentTask( channel, start, end ) );
+        }
+        start = end;
+      }
+
+      return createCapturedData( parseSegments( tasks ) );
+    }
+    finally
+    {
+      fis.close();
+    }
+  }
+
+  /**
+   * Reads the data from a given input stream.
+   *
+   * @param aInputStream
+   *          the input stream to read the data from, cannot be
+   *          <code>null</code>. This stream is <em>not</em> closed by this
+   *          method.
+   * @return the read captured data, never <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems, or in case the stream contains invalid
+   *           data.
+   */
+  public AcquisitionResult read( final InputStream aInputStream ) throws IOException
+  {
+    if ( LOG.isLoggable( Level.INFO ) )
+    {
+      LOG.info( "Parsing OLS captured data from stream..." );
+    }
+
+    final Segment segment = new Segment( BUFFER_SIZE );
+    final byte[] bytes = new byte[BUFFER_SIZE];
+
+    int count;
+    while ( ( count = aInputStream.read( bytes ) ) >= 0 )
+    {
+      segment.feed( bytes, 0, count );
+    }
+    segment.end();
+
+    return createCapturedData( Collections.singletonList( segment ) );
+  }
+
+  /**
+   * Reads the data from a given reader.
+   *
+   * @param aReader
+   *          the reader to read the data from, cannot be <code>null</code>.
+   *          This reader is <em>not</em> closed by this method.
+   * @return the read captured data, never <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems, or in case the reader contains invalid
+   *           data.
+   */
+  public AcquisitionResult read( final Reader aReader ) throws IOException
+  {
+    if ( LOG.isLoggable( Level.INFO ) )
+    {
+      LOG.info( "Parsing OLS captured data from stream..." );
+    }
+
+    final Segment segment = new Segment( BUFFER_SIZE );
+    final char[] chars = new char[BUFFER_SIZE];
+    final byte[] bytes = new byte[BUFFER_SIZE];
+
+    int count;
+    while ( ( count = aReader.read( chars ) ) >= 0 )
+    {
+      // The file format is pure ASCII, anything else is simply not valid...
+      for ( int i = 0; i < count; i++ )
+      {
+        final char c = chars[i];
+        bytes[i] = ( c <= 0xFF ) ? ( byte )c : 0;
+      }
+      segment.feed( bytes, 0, count );
+    }
+    segment.end();
+
+    return createCapturedData( Collections.singletonList( segment ) );
+  }
+
+  /**
+   * Returns the position of the first line that starts at or after the given
+   * position.
+   *
+   * @param aChannel
+   *          the file channel to search;
+   * @param aPosition
+   *          the position to start searching at;
+   * @param aLength
+   *          the length of the file.
+   * @return a file position, >= aPosition && <= aLength.
+   */
+  private static long findLineStart( final FileChannel aChannel, final long aPosition, final long aLength )
+      throws IOException
+  {
+    final ByteBuffer buffer = ByteBuffer.allocate( 256 );
+
+    long position = aPosition;
+    while ( position < aLength )
+    {
+      buffer.clear();
+      final int count = aChannel.read( buffer, position );
+      if ( count <= 0 )
+      {
+        break;
+      }
+      for ( int i = 0; i < count; i++ )
+      {
+        final byte b = buffer.get( i );
+        if ( ( b == '\n' ) || ( b == '\r' ) )
+        {
+          return position + i + 1;
+        }
+      }
+      position += count;
+    }
+    return aLength;
+  }
+
+  /**
+   * Returns whether the given character is considered whitespace.
+   */
+  private static boolean isWhitespace( final char aChar )
+  {
+    return ( aChar == ' ' ) || ( aChar == '\t' ) || ( aChar == '\n' ) || ( aChar == '\u000B' ) || ( aChar == '\f' )
+        || ( aChar == '\r' );
+  }
+
+  /**
+   * Parses the given text as an integer, avoiding runtime exceptions.
+   */
+  private static int safeParseInt( final String aText, final int aDefault )
+  {
+    try
+    {
+      return Integer.parseInt( aText );
+    }
+    catch ( NumberFormatException exception )
+    {
+      return aDefault;
+    }
+  }
+
+  /**
+   * Parses the given text as a long, avoiding runtime exceptions.
+   */
+  private static long safeParseLong( final String aText, final long aDefault )
+  {
+    try
+    {
+      return Long.parseLong( aText );
+    }
+    catch ( NumberFormatException exception )
+    {
+      return aDefault;
+    }
+  }
+
+  /**
+   * Creates the captured data from the given parsed segments.
+   *
+   * @param aSegments
+   *          the parsed segments, in the order they appear in the file.
+   * @return the captured data, never <code>null</code>.
+   * @throws IOException
+   *           in case the segments do not form a valid data file.
+   */
+  private AcquisitionResult createCapturedData( final List<Segment> aSegments ) throws IOException
+  {
+    int size = -1;
+    int rate = Ols.NOT_AVAILABLE, channels = -1, enabledChannels = -1;
+    boolean rateSeen = false;
+    long triggerPos = -1L;
+    long absLen = -1L;
+
+    // assume 'new' file format is in use, don't support uncompressed ones...
+    boolean compressed = true;
+
+    this.cursorsEnabled = false;
+    Arrays.fill( this.cursors, Long.MIN_VALUE );
+
+    long sampleCount = 0L;
+    boolean invalid = false;
+
+    for ( Segment segment : aSegments )
+    {
+      sampleCount += segment.size();
+      invalid |= segment.isInvalid();
+
+      for ( String instruction : segment.getInstructions() )
+      {
+        // Instructions are of the form "<key>:<whitespace><value>"...
+        final int colonIdx = instruction.indexOf( ':' );
+        final int length = instruction.length();
+        if ( ( colonIdx < 1 ) || ( colonIdx + 1 >= length ) || !isWhitespace( instruction.charAt( colonIdx + 1 ) ) )
+        {
+          continue;
+        }
+
+        int valueIdx = colonIdx + 1;
+        while ( ( valueIdx < length ) && isWhitespace( instruction.charAt( valueIdx ) ) )
+        {
+          valueIdx++;
+        }
+
+        final String instrKey = instruction.substring( 0, colonIdx );
+        final String instrValue = instruction.substring( valueIdx );
+
+        if ( "Size".equals( instrKey ) )
+        {
+          size = safeParseInt( instrValue, -1 );
+        }
+        else if ( "Rate".equals( instrKey ) )
+        {
+          rate = safeParseInt( instrValue, -1 );
+          rateSeen = true;
+        }
+        else if ( "Channels".equals( instrKey ) )
+        {
+          channels = safeParseInt( instrValue, -1 );
+        }
+        else if ( "TriggerPosition".equals( instrKey ) )
+        {
+          triggerPos = parseLong( instrValue );
+        }
+        else if ( "EnabledChannels".equals( instrKey ) )
+        {
+          enabledChannels = safeParseInt( instrValue, -1 );
+        }
+        else if ( "CursorEnabled".equals( instrKey ) )
+        {
+          this.cursorsEnabled = Boolean.parseBoolean( instrValue );
+        }
+        else if ( "Compressed".equals( instrKey ) )
+        {
+          compressed = Boolean.parseBoolean( instrValue );
+        }
+        else if ( "AbsoluteLength".equals( instrKey ) )
+        {
+          absLen = parseLong( instrValue );
+        }
+        else if ( "CursorA".equals( instrKey ) )
+        {
+          this.cursors[0] = safeParseLong( instrValue, Long.MIN_VALUE );
+        }
+        else if ( "CursorB".equals( instrKey ) )
+        {
+          this.cursors[1] = safeParseLong( instrValue, Long.MIN_VALUE );
+        }
+        else if ( instrKey.startsWith( "Cursor" ) )
+        {
+          final int idx = safeParseInt( instrKey.substring( 6 ), -1 );
+          if ( ( idx >= 0 ) && ( idx < this.cursors.length ) )
+          {
+            this.cursors[idx] = parseLong( instrValue );
+          }
+        }
+      }
+    }
+
+    // Perform some sanity checks, make it not possible to import invalid
+    // data...
+    if ( sampleCount == 0L )
+    {
+      throw new IOException( "Data file does not contain any sample data!" );
+    }
+    if ( !compressed )
+    {
+      throw new IOException( "Uncompressed data file found! Please send this file to the OLS developers!" );
+    }
+    // In case the size is not provided (as of 0.9.4 no longer mandatory),
+    // take the length of the data values as size indicator...
+    if ( ( size >= 0 ) && ( size != sampleCount ) )
+    {
+      throw new IOException( "Data file is corrupt?! Data size does not match sample count!" );
+    }
+    if ( sampleCount > Integer.MAX_VALUE )
+    {
+      throw new IOException( "Data file is too large!" );
+    }
+    if ( !rateSeen )
+    {
+      throw new IOException( "Data file is corrupt?! Sample rate is not provided!" );
+    }
+    if ( ( channels <= 0 ) || ( channels > 32 ) )
+    {
+      throw new IOException( "Data file is corrupt?! Channel count is not provided!" );
+    }
+    if ( invalid )
+    {
+      throw new IOException( "Invalid data encountered." );
+    }
+
+    final CapturedDataBuilder builder = new CapturedDataBuilder( ( int )sampleCount );
+    builder.setTriggerPosition( triggerPos ).setSampleRate( rate ).setChannels( channels )
+        .setEnabledChannels( enabledChannels ).setAbsoluteLength( absLen );
+
+    for ( Segment segment : aSegments )
+    {
+      final int count = segment.size();
+      for ( int i = 0; i < count; i++ )
+      {
+        builder.add( segment.getValue( i ), segment.getTimestamp( i ) );
+      }
+      segment.release();
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * Parses the given text as a long.
+   *
+   * @throws IOException
+   *           in case the given text is not a valid number.
+   */
+  private long parseLong( final String aText ) throws IOException
+  {
+    try
+    {
+      return Long.parseLong( aText );
+    }
+    catch ( NumberFormatException exception )
+    {
+      throw new IOException( "Invalid data encountered.", exception );
+    }
+  }
+
+  /**
+   * Parses the given segments, concurrently if more than one segment is given.
+   *
+   * @param aTasks
+   *          the segments to parse, cannot be <code>null</code>.
+   * @return the parsed segments, in the same order as the given tasks.
+   */
+  private List<Segment> parseSegments( final List<SegmentTask> aTasks ) throws IOException
+  {
+    final List<Segment> result = new ArrayList<Segment>( aTasks.size() );
+    if ( aTasks.size() < 2 )
+    {
+      for ( SegmentTask task : aTasks )
+      {
+        result.add( task.call() );
+      }
+      return result;
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool( aTasks.size() );
+    try
+    {
+      for ( Future<Segment> future : executor.invokeAll( aTasks ) )
+      {
+        result.add( future.get() );
+      }
+      return result;
+    }
+    catch ( InterruptedException exception )
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Reading data file interrupted!" );
+    }
+    catch ( ExecutionException exception )
+    {
+      final Throwable cause = exception.getCause();
+      if ( cause instanceof IOException )
+      {
+        throw ( IOException )cause;
+      }
+      if ( cause instanceof RuntimeException )
+      {
+        throw ( RuntimeException )cause;
+      }
+      if ( cause instanceof Error )
+      {
+        throw ( Error )cause;
+      }
+      throw new IOException( "Reading data file failed!", cause );
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.io.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides a writer for the (textual) OLS data file format.
+ * <p>
+ * The data lines are formatted directly into a character buffer, without
+ * creating any intermediary strings.
+ * </p>
+ */
+public final class OlsDataWriter
+{
+  // CONSTANTS
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  /** The longest possible data line: 8 hex digits, '@' and 19 digits. */
+  private static final int MAX_LINE_LENGTH = 28;
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  // METHODS
+
+  /**
+   * Writes the given captured data to the given writer.
+   *
+   * @param aCapturedData
+   *          the captured data to write, cannot be <code>null</code>;
+   * @param aCursors
+   *          the cursors to write, cannot be <code>null</code>;
+   * @param aCursorsEnabled
+   *          <code>true</code> if the cursors are enabled, <code>false</code>
+   *          otherwise;
+   * @param aWriter
+   *          the writer to write the data to, cannot be <code>null</code>. This
+   *          writer is flushed, but <em>not</em> closed by this method.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public static void write( final AcquisitionResult aCapturedData, final Cursor[] aCursors,
+      final boolean aCursorsEnabled, final Writer aWriter ) throws IOException
+  {
+    final char[] newLine = System.getProperty( "line.separator", "\n" ).toCharArray();
+    final char[] buffer = new char[BUFFER_SIZE];
+
+    try
+    {
+      final int[] values = aCapturedData.getValues();
+      final long[] timestamps = aCapturedData.getTimestamps();
+
+      final StringBuilder header = new StringBuilder();
+      header.append( ";Size: " ).append( values.length ).append( newLine );
+      header.append( ";Rate: " ).append( aCapturedData.getSampleRate() ).append( newLine );
+      header.append( ";Channels: " ).append( aCapturedData.getChannels() ).append( newLine );
+      header.append( ";EnabledChannels: " ).append( aCapturedData.getEnabledChannels() ).append( newLine );
+      if ( aCapturedData.hasTriggerData() )
+      {
+        header.append( ";TriggerPosition: " ).append( aCapturedData.getTriggerPosition() ).append( newLine );
+      }
+      header.append( ";Compressed: " ).append( true ).append( newLine );
+      header.append( ";AbsoluteLength: " ).append( aCapturedData.getAbsoluteLength() ).append( newLine );
+      header.append( ";CursorEnabled: " ).append( aCursorsEnabled ).append( newLine );
+      for ( int i = 0; aCursorsEnabled && ( i < aCursors.length ); i++ )
+      {
+        if ( aCursors[i].isDefined() )
+        {
+          header.append( ";Cursor" ).append( i ).append( ": " ).append( aCursors[i].getTimestamp() ).append( newLine );
+        }
+      }
+      aWriter.write( header.toString() );
+
+      final int limit = buffer.length - MAX_LINE_LENGTH - newLine.length;
+
+      int pos = 0;
+      for ( int i = 0; i < values.length; i++ )
+      {
+        if ( pos > limit )
+        {
+          aWriter.write( buffer, 0, pos );
+          pos = 0;
+        }
+
+        pos = formatSample( buffer, pos, values[i], timestamps[i] );
+        for ( char c : newLine )
+        {
+          buffer[pos++] = c;
+        }
+      }
+      aWriter.write( buffer, 0, pos );
+    }
+    finally
+    {
+      aWriter.flush();
+    }
+  }
+
+  /**
+   * Formats the given value and timestamp into a single sample, in the form of
+   * &lt;value<sub>16</sub>&gt;@&lt;timestamp<sub>10</sub>&gt;.
+   *
+   * @param aBuffer
+   *          the buffer to format the sample in, should have room for at least
+   *          {@link #MAX_LINE_LENGTH} characters;
+   * @param aOffset
+   *          the offset in the buffer to start formatting;
+   * @param aValue
+   *          the sample value to format;
+   * @param aTimestamp
+   *          the timestamp to format.
+   * @return the offset in the buffer directly after the formatted sample.
+   */
+  static int formatSample( final char[] aBuffer, final int aOffset, final int aValue, final long aTimestamp )
+  {
+    // values can become negative (full 32-bit is used!), while timestamps never
+    // can be negative (it is a relative timestamp!)...
+    int pos = aOffset;
+    for ( int shift = 28; shift >= 0; shift -= 4 )
+    {
+      aBuffer[pos++] = HEX_DIGITS[( aValue >>> shift ) & 0x0F];
+    }
+    aBuffer[pos++] = '@';
+
+    long timestamp = aTimestamp & Long.MAX_VALUE;
+    final int start = pos;
+    do
+    {
+      aBuffer[pos++] = ( char )( '0' + ( timestamp % 10L ) );
+      timestamp /= 10L;
+    }
+    while ( timestamp != 0L );
+
+    // Digits are written least significant first, so reverse them...
+    for ( int i = start, j = pos - 1; i < j; i++, j-- )
+    {
+      final char c = aBuffer[i];
+      aBuffer[i] = aBuffer[j];
+      aBuffer[j] = c;
+    }
+
+    return pos;
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides a cursor over the transitions of a single channel, allowing
+ * decoders to jump from one transition to the next, instead of sampling the
+ * channel at every time tick.
+ * <p>
+ * The value of a channel at time <tt>t</tt> is the value of the last sample
+ * whose timestamp is at or before <tt>t</tt> (or the first sample, if there is
+ * no such sample). A transition is the timestamp of a sample at which this
+ * value changes.
+ * </p>
+ * <p>
+ * The cursor remembers its last position, and moves from there to the next
+ * requested time. As decoders tend to move forward in small steps, most
+ * lookups only need to look at a few transitions; larger jumps (in both
+ * directions) are done by a galloping search. This class is <em>not</em>
+ * thread-safe.
+ * </p>
+ *
+ * @see EdgeIndex
+ */
+public final class TransitionCursor
+{
+  // VARIABLES
+
+  private final int[] values;
+  private final long[] timestamps;
+  /** the sample indexes of all transitions of our channel. */
+  private final int[] edges;
+  private final int mask;
+
+  /** the number of transitions at or before the last requested time. */
+  private int position;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link TransitionCursor} instance.
+   *
+   * @param aResult
+   *          the acquisition result to iterate over, cannot be
+   *          <code>null</code>;
+   * @param aChannelIdx
+   *          the index of the channel to iterate over, >= 0 && < 32.
+   */
+  public TransitionCursor( final AcquisitionResult aResult, final int aChannelIdx )
+  {
+    this.values = aResult.getValues();
+    this.timestamps = aResult.getTimestamps();
+    this.edges = EdgeIndex.getInstance( aResult ).getEdges( aChannelIdx );
+    this.mask = ( 1 << aChannelIdx );
+    this.position = 0;
+  }
+
+  // METHODS
+
+  /**
+   * Finds the first transition of the given type strictly between the two
+   * given timestamps.
+   *
+   * @param aFrom
+   *          the timestamp to start searching from (exclusive);
+   * @param aTo
+   *          the timestamp to stop searching at (exclusive);
+   * @param aEdge
+   *          the type of transition to find, {@link Edge#NONE} for any
+   *          transition.
+   * @return the timestamp of the found transition, or -1 if no such transition
+   *         was found.
+   */
+  public long findTransition( final long aFrom, final long aTo, final Edge aEdge )
+  {
+    seek( aFrom );
+
+    final int count = this.edges.length;
+    for ( int i = this.position; i < count; i++ )
+    {
+      final int sampleIdx = this.edges[i];
+      final long time = this.timestamps[sampleIdx];
+      if ( time >= aTo )
+      {
+        break;
+      }
+
+      if ( aEdge.isNone()
+          || ( aEdge == Edge.toEdge( this.values[sampleIdx - 1] & this.mask, this.values[sampleIdx] & this.mask ) ) )
+      {
+        return time;
+      }
+    }
+
+    return -1L;
+  }
+
+  /**
+   * Returns the (masked) value of the channel at the given time.
+   *
+   * @param aTime
+   *          the timestamp to return the value for.
+   * @return the value of the channel, either 0 or the channel mask.
+   */
+  public int getValue( final long aTime )
+  {
+    seek( aTime );
+
+    final int sampleIdx = ( this.position == 0 ) ? 0 : this.edges[this.position - 1];
+    return this.values[sampleIdx] & this.mask;
+  }
+
+  /**
+   * Returns the index of the first transition in the given range whose
+   * timestamp lies after the given time.
+   *
+   * @param aLow
+   *          the lowest transition index to consider (inclusive);
+   * @param aHigh
+   *          the highest transition index to consider (exclusive);
+   * @param aTime
+   *          the timestamp to search for.
+   * @return a transition index, >= aLow && <= aHigh.
+   */
+  private int search( int aLow, int aHigh, final long aTime )
+  {
+    while ( aLow < aHigh )
+    {
+      final int mid = ( aLow + aHigh ) >>> 1;
+      if ( this.timestamps[this.edges[mid]] <= aTime )
+      {
+        aLow = mid + 1;
+      }
+      else
+      {
+        aHigh = mid;
+      }
+    }
+    return aLow;
+  }
+
+  /**
+   * Moves this cursor to the given time, such that {@link #position} equals the
+   * number of transitions at or before the given time.
+   *
+   * @param aTime
+   *          the timestamp to move to.
+   */
+  private void seek( final long aTime )
+  {
+    final int count = this.edges.length;
+    final int pos = this.position;
+
+    if ( ( pos < count ) && ( this.timestamps[this.edges[pos]] <= aTime ) )
+    {
+      // Move forward: gallop until we've passed the given time...
+      int low = pos + 1;
+      int bound = 1;
+      while ( ( ( low + bound - 1 ) < count ) && ( this.timestamps[this.edges[low + bound - 1]] <= aTime ) )
+      {
+        low += bound;
+        bound <<= 1;
+      }
+      this.position = search( low, Math.min( low + bound - 1, count ), aTime );
+    }
+    else if ( ( pos > 0 ) && ( this.timestamps[this.edges[pos - 1]] > aTime ) )
+    {
+      // Move backward: gallop until we're before the given time...
+      int high = pos - 1;
+      int bound = 1;
+      while ( ( ( high - bound ) >= 0 ) && ( this.timestamps[this.edges[high - bound]] > aTime ) )
+      {
+        high -= bound;
+        bound <<= 1;
+      }
+      this.position = search( Math.max( 0, high - bound + 1 ), high, aTime );
+    }
+  }
+}
@@ -21,6 +21,9 @@
 package nl.lxtreme.ols.api.data.annotation;
 
 
+import java.util.*;
+
+
 /**
  * Can be used to create a service that listens for the addition/removal of
  * annotation on channel data.
@@ -56,4 +59,16 @@ public interface AnnotationListener
    */
   void onAnnotation( Annotation<?> aAnnotation );
 
+  /**
+   * Called for a block of annotations at once.
+   * <p>
+   * Equivalent to calling {@link #onAnnotation(Annotation)} for each of the
+   * given annotations, in the order of the given collection.
+   * </p>
+   * 
+   * @param aAnnotations
+   *          the (new) annotations, cannot be <code>null</code>.
+   */
+  void onAnnotations( Collection<? extends Annotation<?>> aAnnotations );
+
 }
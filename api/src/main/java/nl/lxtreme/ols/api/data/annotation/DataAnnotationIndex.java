@@ -0,0 +1,667 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.annotation;
+
+
+import java.util.*;
+
+
+/**
+ * Provides an index of data annotations, sorted on their start and end
+ * timestamps, allowing them to be looked up by time.
+ * <p>
+ * The annotations are kept in arrays sorted on their start timestamp. On top
+ * of these, a max-tree keeps the largest end timestamp of each block of
+ * annotations, which allows all annotations overlapping a time range to be
+ * found without visiting the annotations that do not overlap it. Likewise, a
+ * min-tree keeps the smallest end timestamp of each block, which allows the
+ * last annotation ending before a timestamp to be found directly.
+ * </p>
+ * <p>
+ * Annotations that are added in chronological order, as is done by all
+ * decoders, are appended directly. Other annotations are collected and merged
+ * into the index by the first query following them.
+ * </p>
+ * <p>
+ * As appending never touches the annotations already in the index, and merging
+ * or clearing replaces the arrays altogether, readers can take a snapshot of
+ * all annotations without copying them.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public final class DataAnnotationIndex
+{
+  // INNER TYPES
+
+  /**
+   * Provides an immutable view on the first annotations of the sorted array.
+   */
+  static final class Snapshot extends AbstractList<DataAnnotation<?>> implements RandomAccess
+  {
+    // VARIABLES
+
+    private final DataAnnotation<?>[] annotations;
+    private final int size;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Snapshot instance.
+     */
+    Snapshot( final DataAnnotation<?>[] aAnnotations, final int aSize )
+    {
+      this.annotations = aAnnotations;
+      this.size = aSize;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataAnnotation<?> get( final int aIndex )
+    {
+      if ( ( aIndex < 0 ) || ( aIndex >= this.size ) )
+      {
+        throw new IndexOutOfBoundsException( "Index: " + aIndex + ", size: " + this.size );
+      }
+      return this.annotations[aIndex];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size()
+    {
+      return this.size;
+    }
+  }
+
+  // CONSTANTS
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  /** The number of annotations covered by a single leaf of the max-tree. */
+  private static final int BLOCK_SHIFT = 4;
+  private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+  private static final Comparator<DataAnnotation<?>> COMPARATOR = new Comparator<DataAnnotation<?>>()
+  {
+    @Override
+    public int compare( final DataAnnotation<?> aAnn1, final DataAnnotation<?> aAnn2 )
+    {
+      int result = compareLong( aAnn1.getStartTimestamp(), aAnn2.getStartTimestamp() );
+      if ( result == 0 )
+      {
+        result = compareLong( aAnn1.getEndTimestamp(), aAnn2.getEndTimestamp() );
+      }
+      return result;
+    }
+  };
+
+  // VARIABLES
+
+  private DataAnnotation<?>[] annotations;
+  private long[] startTimestamps;
+  private long[] endTimestamps;
+  private int size;
+
+  /** Contains the largest end timestamp of each block, leafs start at leafCount. */
+  private long[] maxEndTree;
+  /** Contains the smallest end timestamp of each block, leafs start at leafCount. */
+  private long[] minEndTree;
+  private int leafCount;
+
+  private final List<DataAnnotation<?>> pending;
+  /** Incremented on each change, see {@link #getModificationCount()}. */
+  private int modificationCount;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new, empty, {@link DataAnnotationIndex} instance.
+   */
+  public DataAnnotationIndex()
+  {
+    this.pending = new ArrayList<DataAnnotation<?>>();
+
+    clear();
+  }
+
+  // METHODS
+
+  /**
+   * Adds a given data annotation to this index.
+   *
+   * @param aAnnotation
+   *          the data annotation to add, cannot be <code>null</code>.
+   */
+  public synchronized void add( final DataAnnotation<?> aAnnotation )
+  {
+    if ( aAnnotation == null )
+    {
+      throw new IllegalArgumentException( "Annotation cannot be null!" );
+    }
+
+    this.modificationCount++;
+
+    insert( aAnnotation );
+  }
+
+  /**
+   * Adds all given data annotations to this index, making them visible to
+   * readers at once.
+   *
+   * @param aAnnotations
+   *          the data annotations to add, cannot be <code>null</code> or
+   *          contain <code>null</code>s.
+   */
+  public synchronized void addAll( final Collection<? extends DataAnnotation<?>> aAnnotations )
+  {
+    for ( DataAnnotation<?> annotation : aAnnotations )
+    {
+      if ( annotation == null )
+      {
+        throw new IllegalArgumentException( "Annotation cannot be null!" );
+      }
+    }
+
+    this.modificationCount++;
+
+    for ( DataAnnotation<?> annotation : aAnnotations )
+    {
+      insert( annotation );
+    }
+  }
+
+  /**
+   * Removes all data annotations from this index.
+   */
+  public synchronized void clear()
+  {
+    this.annotations = new DataAnnotation<?>[INITIAL_CAPACITY];
+    this.startTimestamps = new long[INITIAL_CAPACITY];
+    this.endTimestamps = new long[INITIAL_CAPACITY];
+    this.size = 0;
+
+    this.pending.clear();
+    this.modificationCount++;
+
+    rebuildTree();
+  }
+
+  /**
+   * Returns the number of data annotations that start in the given time range.
+   * This is considerably cheaper than {@link #getAnnotations(long, long)}, as
+   * it does not need to visit the individual annotations.
+   *
+   * @param aStartTime
+   *          the start timestamp of the time range, inclusive;
+   * @param aEndTime
+   *          the end timestamp of the time range, exclusive.
+   * @return an annotation count, >= 0.
+   */
+  public synchronized int countAnnotations( final long aStartTime, final long aEndTime )
+  {
+    mergePending();
+
+    if ( aEndTime <= aStartTime )
+    {
+      return 0;
+    }
+    return lowerBound( aEndTime ) - lowerBound( aStartTime );
+  }
+
+  /**
+   * Finds the first data annotation that starts before or at the given
+   * timestamp, and ends at or after the given timestamp.
+   *
+   * @param aTimestamp
+   *          the timestamp to search for annotations.
+   * @return a data annotation covering the given timestamp, or
+   *         <code>null</code> if not found.
+   */
+  public synchronized DataAnnotation<?> getAnnotation( final long aTimestamp )
+  {
+    mergePending();
+
+    final int idx = findOverlapping( 0, upperBound( aTimestamp ), aTimestamp );
+    return ( idx < 0 ) ? null : this.annotations[idx];
+  }
+
+  /**
+   * Finds the first data annotation that starts and ends at or after the given
+   * timestamp.
+   *
+   * @param aTimestamp
+   *          the timestamp to search for annotations.
+   * @return a data annotation following the given timestamp, or
+   *         <code>null</code> if not found.
+   */
+  public synchronized DataAnnotation<?> getAnnotationAfter( final long aTimestamp )
+  {
+    mergePending();
+
+    for ( int i = lowerBound( aTimestamp ); i < this.size; i++ )
+    {
+      if ( this.endTimestamps[i] >= aTimestamp )
+      {
+        return this.annotations[i];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Finds the last data annotation that starts and ends before the given
+   * timestamp.
+   *
+   * @param aTimestamp
+   *          the timestamp to search for annotations.
+   * @return a data annotation preceeding the given timestamp, or
+   *         <code>null</code> if not found.
+   */
+  public synchronized DataAnnotation<?> getAnnotationBefore( final long aTimestamp )
+  {
+    mergePending();
+
+    final int idx = findEndingBefore( lowerBound( aTimestamp ), aTimestamp );
+    return ( idx < 0 ) ? null : this.annotations[idx];
+  }
+
+  /**
+   * Takes a snapshot of all data annotations in this index.
+   * <p>
+   * The returned list is not affected by later changes of this index, and
+   * taking it does not copy any annotations.
+   * </p>
+   *
+   * @return an immutable list with all data annotations, sorted on their start
+   *         timestamp, never <code>null</code>.
+   */
+  public synchronized List<DataAnnotation<?>> getAnnotations()
+  {
+    mergePending();
+
+    return new Snapshot( this.annotations, this.size );
+  }
+
+  /**
+   * Returns all data annotations that overlap the given time range.
+   *
+   * @param aStartTime
+   *          the start timestamp of the time range;
+   * @param aEndTime
+   *          the end timestamp of the time range, >= aStartTime.
+   * @return a list with data annotations, sorted on their start timestamp,
+   *         never <code>null</code>.
+   */
+  public synchronized List<DataAnnotation<?>> getAnnotations( final long aStartTime, final long aEndTime )
+  {
+    mergePending();
+
+    final List<DataAnnotation<?>> result = new ArrayList<DataAnnotation<?>>();
+
+    final int endIdx = upperBound( aEndTime );
+    int idx = findOverlapping( 0, endIdx, aStartTime );
+    while ( idx >= 0 )
+    {
+      result.add( this.annotations[idx] );
+      idx = findOverlapping( idx + 1, endIdx, aStartTime );
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the number of times this index has been modified. As long as this
+   * count does not change, neither do the annotations in this index, which
+   * allows results derived from them to be cached.
+   *
+   * @return a modification count.
+   */
+  public synchronized int getModificationCount()
+  {
+    return this.modificationCount;
+  }
+
+  /**
+   * Returns whether this index is empty.
+   *
+   * @return <code>true</code> if this index contains no annotations,
+   *         <code>false</code> otherwise.
+   */
+  public synchronized boolean isEmpty()
+  {
+    return ( this.size == 0 ) && this.pending.isEmpty();
+  }
+
+  /**
+   * Returns the number of data annotations in this index.
+   *
+   * @return an annotation count, >= 0.
+   */
+  public synchronized int size()
+  {
+    return this.size + this.pending.size();
+  }
+
+  /**
+   * Appends the given annotation to the sorted arrays.
+   */
+  private void append( final DataAnnotation<?> aAnnotation )
+  {
+    if ( this.size == this.annotations.length )
+    {
+      final int newCapacity = this.size << 1;
+      this.annotations = Arrays.copyOf( this.annotations, newCapacity );
+      this.startTimestamps = Arrays.copyOf( this.startTimestamps, newCapacity );
+      this.endTimestamps = Arrays.copyOf( this.endTimestamps, newCapacity );
+    }
+
+    final long endTimestamp = aAnnotation.getEndTimestamp();
+
+    this.annotations[this.size] = aAnnotation;
+    this.startTimestamps[this.size] = aAnnotation.getStartTimestamp();
+    this.endTimestamps[this.size] = endTimestamp;
+
+    final int block = this.size >> BLOCK_SHIFT;
+    this.size++;
+
+    if ( block >= this.leafCount )
+    {
+      rebuildTree();
+    }
+    else
+    {
+      int node = this.leafCount + block;
+      while ( ( node > 0 ) && ( this.maxEndTree[node] < endTimestamp ) )
+      {
+        this.maxEndTree[node] = endTimestamp;
+        node >>= 1;
+      }
+      node = this.leafCount + block;
+      while ( ( node > 0 ) && ( this.minEndTree[node] > endTimestamp ) )
+      {
+        this.minEndTree[node] = endTimestamp;
+        node >>= 1;
+      }
+    }
+  }
+
+  /**
+   * Compares two long values in the same way as {@link Long#compareTo(Long)}.
+   */
+  private static int compareLong( final long aValue1, final long aValue2 )
+  {
+    return ( aValue1 < aValue2 ) ? -1 : ( ( aValue1 == aValue2 ) ? 0 : 1 );
+  }
+
+  /**
+   * Finds the first block at or after the given block whose largest end
+   * timestamp is at or after the given timestamp.
+   */
+  private int findBlock( final int aNode, final int aNodeStart, final int aNodeEnd, final int aFromBlock,
+      final int aToBlock, final long aTimestamp )
+  {
+    if ( ( aNodeEnd <= aFromBlock ) || ( aNodeStart >= aToBlock ) || ( this.maxEndTree[aNode] < aTimestamp ) )
+    {
+      return -1;
+    }
+    if ( ( aNodeEnd - aNodeStart ) == 1 )
+    {
+      return aNodeStart;
+    }
+
+    final int mid = ( aNodeStart + aNodeEnd ) >>> 1;
+    final int result = findBlock( 2 * aNode, aNodeStart, mid, aFromBlock, aToBlock, aTimestamp );
+    if ( result >= 0 )
+    {
+      return result;
+    }
+    return findBlock( ( 2 * aNode ) + 1, mid, aNodeEnd, aFromBlock, aToBlock, aTimestamp );
+  }
+
+  /**
+   * Finds the last block before the given block whose smallest end timestamp
+   * is before the given timestamp.
+   */
+  private int findBlockBefore( final int aNode, final int aNodeStart, final int aNodeEnd, final int aToBlock,
+      final long aTimestamp )
+  {
+    if ( ( aNodeStart >= aToBlock ) || ( this.minEndTree[aNode] >= aTimestamp ) )
+    {
+      return -1;
+    }
+    if ( ( aNodeEnd - aNodeStart ) == 1 )
+    {
+      return aNodeStart;
+    }
+
+    final int mid = ( aNodeStart + aNodeEnd ) >>> 1;
+    final int result = findBlockBefore( ( 2 * aNode ) + 1, mid, aNodeEnd, aToBlock, aTimestamp );
+    if ( result >= 0 )
+    {
+      return result;
+    }
+    return findBlockBefore( 2 * aNode, aNodeStart, mid, aToBlock, aTimestamp );
+  }
+
+  /**
+   * Finds the last annotation before the given index that ends before the
+   * given timestamp.
+   *
+   * @return the index of the found annotation, or -1 if not found.
+   */
+  private int findEndingBefore( final int aToIdx, final long aTimestamp )
+  {
+    int to = aToIdx;
+    while ( to > 0 )
+    {
+      final int block = findBlockBefore( 1, 0, this.leafCount, ( to + BLOCK_SIZE - 1 ) >> BLOCK_SHIFT, aTimestamp );
+      if ( block < 0 )
+      {
+        break;
+      }
+
+      final int blockStart = block << BLOCK_SHIFT;
+      for ( int i = Math.min( to, ( block + 1 ) << BLOCK_SHIFT ) - 1; i >= blockStart; i-- )
+      {
+        if ( this.endTimestamps[i] < aTimestamp )
+        {
+          return i;
+        }
+      }
+      to = blockStart;
+    }
+    return -1;
+  }
+
+  /**
+   * Finds the first annotation in the given index range that ends at or after
+   * the given timestamp.
+   *
+   * @return the index of the found annotation, or -1 if not found.
+   */
+  private int findOverlapping( final int aFromIdx, final int aToIdx, final long aTimestamp )
+  {
+    final int toBlock = ( aToIdx + BLOCK_SIZE - 1 ) >> BLOCK_SHIFT;
+
+    int from = aFromIdx;
+    while ( from < aToIdx )
+    {
+      final int block = findBlock( 1, 0, this.leafCount, from >> BLOCK_SHIFT, toBlock, aTimestamp );
+      if ( block < 0 )
+      {
+        break;
+      }
+
+      final int blockEnd = Math.min( aToIdx, ( block + 1 ) << BLOCK_SHIFT );
+      for ( int i = Math.max( from, block << BLOCK_SHIFT ); i < blockEnd; i++ )
+      {
+        if ( this.endTimestamps[i] >= aTimestamp )
+        {
+          return i;
+        }
+      }
+      from = blockEnd;
+    }
+    return -1;
+  }
+
+  /**
+   * Appends the given annotation, or defers it to the next query in case it
+   * is not in chronological order.
+   */
+  private void insert( final DataAnnotation<?> aAnnotation )
+  {
+    if ( ( this.size > 0 ) && ( COMPARATOR.compare( this.annotations[this.size - 1], aAnnotation ) > 0 ) )
+    {
+      this.pending.add( aAnnotation );
+    }
+    else
+    {
+      append( aAnnotation );
+    }
+  }
+
+  /**
+   * Returns the index of the first annotation starting at or after the given
+   * timestamp.
+   */
+  private int lowerBound( final long aTimestamp )
+  {
+    int lo = 0, hi = this.size;
+    while ( lo < hi )
+    {
+      final int mid = ( lo + hi ) >>> 1;
+      if ( this.startTimestamps[mid] < aTimestamp )
+      {
+        lo = mid + 1;
+      }
+      else
+      {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Merges all pending annotations into the sorted arrays.
+   */
+  private void mergePending()
+  {
+    if ( this.pending.isEmpty() )
+    {
+      return;
+    }
+
+    final DataAnnotation<?>[] added = this.pending.toArray( new DataAnnotation<?>[this.pending.size()] );
+    Arrays.sort( added, COMPARATOR );
+    this.pending.clear();
+
+    final int newSize = this.size + added.length;
+    final int newCapacity = Math.max( INITIAL_CAPACITY, Integer.highestOneBit( newSize - 1 ) << 1 );
+
+    final DataAnnotation<?>[] merged = new DataAnnotation<?>[newCapacity];
+    final long[] mergedStarts = new long[newCapacity];
+    final long[] mergedEnds = new long[newCapacity];
+
+    int i = 0, j = 0, k = 0;
+    while ( k < newSize )
+    {
+      final DataAnnotation<?> ann;
+      if ( ( j >= added.length )
+          || ( ( i < this.size ) && ( COMPARATOR.compare( this.annotations[i], added[j] ) <= 0 ) ) )
+      {
+        ann = this.annotations[i++];
+      }
+      else
+      {
+        ann = added[j++];
+      }
+
+      merged[k] = ann;
+      mergedStarts[k] = ann.getStartTimestamp();
+      mergedEnds[k] = ann.getEndTimestamp();
+      k++;
+    }
+
+    this.annotations = merged;
+    this.startTimestamps = mergedStarts;
+    this.endTimestamps = mergedEnds;
+    this.size = newSize;
+
+    rebuildTree();
+  }
+
+  /**
+   * Rebuilds the max- and min-trees for the current capacity.
+   */
+  private void rebuildTree()
+  {
+    final int blocks = Math.max( 1, this.annotations.length >> BLOCK_SHIFT );
+    this.leafCount = Integer.highestOneBit( ( blocks << 1 ) - 1 );
+    this.maxEndTree = new long[2 * this.leafCount];
+    this.minEndTree = new long[2 * this.leafCount];
+
+    Arrays.fill( this.maxEndTree, Long.MIN_VALUE );
+    Arrays.fill( this.minEndTree, Long.MAX_VALUE );
+    for ( int i = 0; i < this.size; i++ )
+    {
+      final int leaf = this.leafCount + ( i >> BLOCK_SHIFT );
+      this.maxEndTree[leaf] = Math.max( this.maxEndTree[leaf], this.endTimestamps[i] );
+      this.minEndTree[leaf] = Math.min( this.minEndTree[leaf], this.endTimestamps[i] );
+    }
+    for ( int node = this.leafCount - 1; node > 0; node-- )
+    {
+      this.maxEndTree[node] = Math.max( this.maxEndTree[2 * node], this.maxEndTree[( 2 * node ) + 1] );
+      this.minEndTree[node] = Math.min( this.minEndTree[2 * node], this.minEndTree[( 2 * node ) + 1] );
+    }
+  }
+
+  /**
+   * Returns the index of the first annotation starting after the given
+   * timestamp.
+   */
+  private int upperBound( final long aTimestamp )
+  {
+    int lo = 0, hi = this.size;
+    while ( lo < hi )
+    {
+      final int mid = ( lo + hi ) >>> 1;
+      if ( this.startTimestamps[mid] <= aTimestamp )
+      {
+        lo = mid + 1;
+      }
+      else
+      {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+}
@@ -93,6 +93,23 @@ public interface Project
    */
   boolean isChanged();
 
+  /**
+   * Allows data to be read from a given file, any current data in this project
+   * will be overwritten!
+   * <p>
+   * The format expected by this method is the same as for
+   * {@link #readData(Reader)}. Regular files are memory-mapped and parsed
+   * concurrently, which is considerably faster than reading them through a
+   * reader.
+   * </p>
+   * 
+   * @param aFile
+   *          the file to read from, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  void readData( File aFile ) throws IOException;
+
   /**
    * Allows data to be read from a given reader, any current data in this
    * project will be overwritten!
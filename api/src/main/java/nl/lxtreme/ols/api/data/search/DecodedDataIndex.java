@@ -0,0 +1,345 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+
+
+/**
+ * Provides an inverted index over decoded protocol data, such as the bytes
+ * decoded by the SPI, I<sup>2</sup>C or UART analysers.
+ * <p>
+ * Per channel, the decoded values are kept in the order in which they occur,
+ * and a posting list is kept that is sorted on value, allowing all frames with
+ * a given value to be found with a binary search. Events, such as the start or
+ * stop conditions of a protocol, are indexed on their type. Both are looked up
+ * in O(log n), regardless of the number of decoded frames.
+ * </p>
+ * <p>
+ * Use a {@link DecodedDataIndexBuilder} to create an index. An index is
+ * immutable, and hence can be queried from multiple threads.
+ * </p>
+ */
+public final class DecodedDataIndex
+{
+  // INNER TYPES
+
+  /**
+   * Provides the decoded frames and events of a single channel.
+   */
+  static final class ChannelIndex
+  {
+    // VARIABLES
+
+    final long[] startTimestamps;
+    final long[] endTimestamps;
+    final int[] values;
+    /** (value, frame index) tuples packed in a long, sorted. */
+    final long[] postings;
+    final Map<String, SearchResult> events;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link ChannelIndex} instance.
+     *
+     * @param aStartTimestamps
+     *          the start timestamps of all frames, sorted;
+     * @param aEndTimestamps
+     *          the end timestamps of all frames;
+     * @param aValues
+     *          the decoded values of all frames;
+     * @param aEvents
+     *          the events, keyed by their type.
+     */
+    ChannelIndex( final long[] aStartTimestamps, final long[] aEndTimestamps, final int[] aValues,
+        final Map<String, SearchResult> aEvents )
+    {
+      this.startTimestamps = aStartTimestamps;
+      this.endTimestamps = aEndTimestamps;
+      this.values = aValues;
+      this.events = aEvents;
+
+      this.postings = new long[aValues.length];
+      for ( int i = 0; i < aValues.length; i++ )
+      {
+        this.postings[i] = createPosting( aValues[i], i );
+      }
+      Arrays.sort( this.postings );
+    }
+
+    // METHODS
+
+    /**
+     * Returns the index of the first posting for the given value.
+     */
+    int firstPosting( final int aValue )
+    {
+      return lowerBound( createPosting( aValue, 0 ) );
+    }
+
+    /**
+     * Returns the index beyond the last posting for the given value.
+     */
+    int lastPosting( final int aValue )
+    {
+      return lowerBound( createPosting( aValue, Integer.MAX_VALUE ) );
+    }
+
+    /**
+     * Returns the number of postings that are less than the given key.
+     */
+    private int lowerBound( final long aKey )
+    {
+      final int idx = Arrays.binarySearch( this.postings, aKey );
+      return ( idx < 0 ) ? -( idx + 1 ) : idx;
+    }
+  }
+
+  // CONSTANTS
+
+  /** Denotes that all channels should be searched. */
+  public static final int ANY_CHANNEL = -1;
+
+  private static final SearchResult NO_HITS = new SearchResult( new long[0], new long[0] );
+
+  // VARIABLES
+
+  private final ChannelIndex[] channels;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link DecodedDataIndex} instance.
+   *
+   * @param aChannels
+   *          the index per channel, or <code>null</code> for channels without
+   *          decoded data.
+   */
+  DecodedDataIndex( final ChannelIndex[] aChannels )
+  {
+    this.channels = aChannels;
+  }
+
+  // METHODS
+
+  /**
+   * Packs the given value and frame index into a single, sortable, posting.
+   */
+  static long createPosting( final int aValue, final int aFrameIdx )
+  {
+    return ( ( long )aValue << 32 ) | aFrameIdx;
+  }
+
+  /**
+   * Finds all events of the given type, for example, the start conditions of
+   * an I<sup>2</sup>C bus.
+   *
+   * @param aChannelIdx
+   *          the index of the channel to search, or {@link #ANY_CHANNEL};
+   * @param aType
+   *          the type of event to search for, cannot be <code>null</code>.
+   * @return the search result, never <code>null</code>.
+   */
+  public SearchResult findEvent( final int aChannelIdx, final String aType )
+  {
+    if ( aType == null )
+    {
+      throw new IllegalArgumentException( "Type cannot be null!" );
+    }
+
+    SearchResult result = NO_HITS;
+    for ( ChannelIndex channel : getChannels( aChannelIdx ) )
+    {
+      final SearchResult events = channel.events.get( aType );
+      if ( events != null )
+      {
+        result = result.isEmpty() ? events : SearchResult.merge( result, events );
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Finds all consecutive frames that decode to the given sequence of values,
+   * for example, a register address directly followed by the value written to
+   * it. Each hit starts at the first frame of the sequence and ends at the end
+   * of the last frame.
+   *
+   * @param aChannelIdx
+   *          the index of the channel to search, or {@link #ANY_CHANNEL};
+   * @param aValues
+   *          the sequence of values to search for, cannot be empty.
+   * @return the search result, never <code>null</code>.
+   */
+  public SearchResult findSequence( final int aChannelIdx, final int... aValues )
+  {
+    if ( ( aValues == null ) || ( aValues.length == 0 ) )
+    {
+      throw new IllegalArgumentException( "Values cannot be null or empty!" );
+    }
+
+    SearchResult result = NO_HITS;
+    for ( ChannelIndex channel : getChannels( aChannelIdx ) )
+    {
+      final SearchResult hits = findSequence( channel, aValues );
+      if ( !hits.isEmpty() )
+      {
+        result = result.isEmpty() ? hits : SearchResult.merge( result, hits );
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Finds all frames that decode to the given value.
+   *
+   * @param aChannelIdx
+   *          the index of the channel to search, or {@link #ANY_CHANNEL};
+   * @param aValue
+   *          the value to search for.
+   * @return the search result, never <code>null</code>.
+   */
+  public SearchResult findValue( final int aChannelIdx, final int aValue )
+  {
+    return findSequence( aChannelIdx, aValue );
+  }
+
+  /**
+   * Returns the types of all events on the given channel.
+   *
+   * @param aChannelIdx
+   *          the index of the channel, or {@link #ANY_CHANNEL}.
+   * @return a sorted set of event types, never <code>null</code>.
+   */
+  public SortedSet<String> getEventTypes( final int aChannelIdx )
+  {
+    final SortedSet<String> result = new TreeSet<String>();
+    for ( ChannelIndex channel : getChannels( aChannelIdx ) )
+    {
+      result.addAll( channel.events.keySet() );
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of decoded frames on the given channel.
+   *
+   * @param aChannelIdx
+   *          the index of the channel, or {@link #ANY_CHANNEL}.
+   * @return a frame count, >= 0.
+   */
+  public int getFrameCount( final int aChannelIdx )
+  {
+    int result = 0;
+    for ( ChannelIndex channel : getChannels( aChannelIdx ) )
+    {
+      result += channel.values.length;
+    }
+    return result;
+  }
+
+  /**
+   * Finds the given sequence of values in a single channel.
+   * <p>
+   * Only the postings of the least frequent value of the sequence are visited,
+   * the other values are verified against the frames around them.
+   * </p>
+   */
+  private SearchResult findSequence( final ChannelIndex aChannel, final int[] aValues )
+  {
+    int pivot = 0;
+    int pivotFrom = aChannel.firstPosting( aValues[0] );
+    int pivotTo = aChannel.lastPosting( aValues[0] );
+    for ( int i = 1; ( i < aValues.length ) && ( pivotFrom < pivotTo ); i++ )
+    {
+      final int from = aChannel.firstPosting( aValues[i] );
+      final int to = aChannel.lastPosting( aValues[i] );
+      if ( ( to - from ) < ( pivotTo - pivotFrom ) )
+      {
+        pivot = i;
+        pivotFrom = from;
+        pivotTo = to;
+      }
+    }
+
+    if ( pivotFrom >= pivotTo )
+    {
+      return NO_HITS;
+    }
+
+    final int frameCount = aChannel.values.length;
+    final long[] starts = new long[pivotTo - pivotFrom];
+    final long[] ends = new long[starts.length];
+    int count = 0;
+
+    for ( int p = pivotFrom; p < pivotTo; p++ )
+    {
+      // Postings of a single value are sorted on frame index, hence the hits
+      // are found in order...
+      final int first = ( int )aChannel.postings[p] - pivot;
+      final int last = first + aValues.length - 1;
+      if ( ( first < 0 ) || ( last >= frameCount ) )
+      {
+        continue;
+      }
+
+      boolean match = true;
+      for ( int i = 0; match && ( i < aValues.length ); i++ )
+      {
+        match = ( aChannel.values[first + i] == aValues[i] );
+      }
+
+      if ( match )
+      {
+        starts[count] = aChannel.startTimestamps[first];
+        ends[count] = aChannel.endTimestamps[last];
+        count++;
+      }
+    }
+
+    return new SearchResult( Arrays.copyOf( starts, count ), Arrays.copyOf( ends, count ) );
+  }
+
+  /**
+   * Returns the indexes of the given channel, or of all channels.
+   */
+  private List<ChannelIndex> getChannels( final int aChannelIdx )
+  {
+    if ( ( aChannelIdx < ANY_CHANNEL ) || ( aChannelIdx >= Ols.MAX_CHANNELS ) )
+    {
+      throw new IllegalArgumentException( "Invalid channel index: " + aChannelIdx );
+    }
+
+    final List<ChannelIndex> result = new ArrayList<ChannelIndex>();
+    for ( int i = 0; i < this.channels.length; i++ )
+    {
+      if ( ( this.channels[i] != null ) && ( ( aChannelIdx == ANY_CHANNEL ) || ( aChannelIdx == i ) ) )
+      {
+        result.add( this.channels[i] );
+      }
+    }
+    return result;
+  }
+}
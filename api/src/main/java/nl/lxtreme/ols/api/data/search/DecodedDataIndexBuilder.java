@@ -0,0 +1,280 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.api.data.search.DecodedDataIndex.ChannelIndex;
+
+
+/**
+ * Provides a builder for {@link DecodedDataIndex}, which collects the decoded
+ * frames and events directly in primitive arrays.
+ * <p>
+ * Data annotations that implement {@link ValueAnnotation} are indexed as
+ * decoded frames, on their value; all other data annotations are indexed as
+ * events, on their textual representation. As the annotations of a channel are
+ * typically added in order, the frames only need to be sorted when they are
+ * not.
+ * </p>
+ * <p>
+ * Note: a builder can only be used to build a single {@link DecodedDataIndex}
+ * instance.
+ * </p>
+ */
+public final class DecodedDataIndexBuilder
+{
+  // INNER TYPES
+
+  /**
+   * Collects a list of frames, optionally with their values.
+   */
+  static final class Frames
+  {
+    // VARIABLES
+
+    long[] starts = new long[16];
+    long[] ends = new long[16];
+    int[] values = new int[16];
+    int size;
+    boolean sorted = true;
+
+    // METHODS
+
+    /**
+     * Adds a frame.
+     */
+    void add( final long aStartTimestamp, final long aEndTimestamp, final int aValue )
+    {
+      if ( this.size == this.starts.length )
+      {
+        this.starts = Arrays.copyOf( this.starts, 2 * this.size );
+        this.ends = Arrays.copyOf( this.ends, 2 * this.size );
+        this.values = Arrays.copyOf( this.values, 2 * this.size );
+      }
+      if ( ( this.size > 0 ) && ( aStartTimestamp < this.starts[this.size - 1] ) )
+      {
+        this.sorted = false;
+      }
+      this.starts[this.size] = aStartTimestamp;
+      this.ends[this.size] = aEndTimestamp;
+      this.values[this.size] = aValue;
+      this.size++;
+    }
+
+    /**
+     * Trims all arrays to the actual size, and sorts them on start timestamp
+     * if needed.
+     */
+    void trim()
+    {
+      if ( this.sorted )
+      {
+        this.starts = Arrays.copyOf( this.starts, this.size );
+        this.ends = Arrays.copyOf( this.ends, this.size );
+        this.values = Arrays.copyOf( this.values, this.size );
+        return;
+      }
+
+      final Integer[] order = new Integer[this.size];
+      for ( int i = 0; i < order.length; i++ )
+      {
+        order[i] = Integer.valueOf( i );
+      }
+      // Stable, so frames with equal start timestamps keep their order...
+      Arrays.sort( order, new Comparator<Integer>()
+      {
+        @Override
+        public int compare( final Integer aIdx1, final Integer aIdx2 )
+        {
+          final long start1 = Frames.this.starts[aIdx1.intValue()];
+          final long start2 = Frames.this.starts[aIdx2.intValue()];
+          return ( start1 < start2 ) ? -1 : ( ( start1 == start2 ) ? 0 : 1 );
+        }
+      } );
+
+      final long[] newStarts = new long[this.size];
+      final long[] newEnds = new long[this.size];
+      final int[] newValues = new int[this.size];
+      for ( int i = 0; i < order.length; i++ )
+      {
+        final int idx = order[i].intValue();
+        newStarts[i] = this.starts[idx];
+        newEnds[i] = this.ends[idx];
+        newValues[i] = this.values[idx];
+      }
+
+      this.starts = newStarts;
+      this.ends = newEnds;
+      this.values = newValues;
+      this.sorted = true;
+    }
+  }
+
+  // VARIABLES
+
+  private Frames[] frames;
+  private List<Map<String, Frames>> events;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link DecodedDataIndexBuilder} instance.
+   */
+  public DecodedDataIndexBuilder()
+  {
+    this.frames = new Frames[Ols.MAX_CHANNELS];
+    this.events = new ArrayList<Map<String, Frames>>( Ols.MAX_CHANNELS );
+    for ( int i = 0; i < Ols.MAX_CHANNELS; i++ )
+    {
+      this.events.add( new HashMap<String, Frames>() );
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Adds a single data annotation.
+   *
+   * @param aAnnotation
+   *          the data annotation to add, cannot be <code>null</code>.
+   * @return this builder.
+   */
+  public DecodedDataIndexBuilder add( final DataAnnotation<?> aAnnotation )
+  {
+    if ( this.frames == null )
+    {
+      throw new IllegalStateException( "Builder already used!" );
+    }
+    if ( aAnnotation == null )
+    {
+      throw new IllegalArgumentException( "Annotation cannot be null!" );
+    }
+
+    final int channelIdx = aAnnotation.getChannel();
+    if ( ( channelIdx < 0 ) || ( channelIdx >= Ols.MAX_CHANNELS ) )
+    {
+      throw new IllegalArgumentException( "Invalid channel index: " + channelIdx );
+    }
+
+    Frames target;
+    int value = 0;
+    if ( aAnnotation instanceof ValueAnnotation<?> )
+    {
+      target = this.frames[channelIdx];
+      if ( target == null )
+      {
+        target = this.frames[channelIdx] = new Frames();
+      }
+      value = ( ( ValueAnnotation<?> )aAnnotation ).getValue();
+    }
+    else
+    {
+      final String type = String.valueOf( aAnnotation.getAnnotation() );
+      final Map<String, Frames> channelEvents = this.events.get( channelIdx );
+
+      target = channelEvents.get( type );
+      if ( target == null )
+      {
+        target = new Frames();
+        channelEvents.put( type, target );
+      }
+    }
+
+    target.add( aAnnotation.getStartTimestamp(), aAnnotation.getEndTimestamp(), value );
+    return this;
+  }
+
+  /**
+   * Adds all data annotations of the given channel.
+   *
+   * @param aChannel
+   *          the channel whose data annotations should be added, cannot be
+   *          <code>null</code>.
+   * @return this builder.
+   */
+  public DecodedDataIndexBuilder addAll( final Channel aChannel )
+  {
+    if ( aChannel == null )
+    {
+      throw new IllegalArgumentException( "Channel cannot be null!" );
+    }
+
+    for ( DataAnnotation<?> annotation : aChannel.getAnnotationIndex().getAnnotations( Long.MIN_VALUE,
+        Long.MAX_VALUE ) )
+    {
+      add( annotation );
+    }
+    return this;
+  }
+
+  /**
+   * Creates the {@link DecodedDataIndex} from all added data annotations.
+   *
+   * @return a new {@link DecodedDataIndex} instance, never <code>null</code>.
+   */
+  public DecodedDataIndex build()
+  {
+    if ( this.frames == null )
+    {
+      throw new IllegalStateException( "Builder already used!" );
+    }
+
+    final ChannelIndex[] channels = new ChannelIndex[Ols.MAX_CHANNELS];
+    for ( int i = 0; i < channels.length; i++ )
+    {
+      final Frames channelFrames = this.frames[i];
+      final Map<String, Frames> channelEvents = this.events.get( i );
+      if ( ( channelFrames == null ) && channelEvents.isEmpty() )
+      {
+        continue;
+      }
+
+      final Map<String, SearchResult> eventResults = new HashMap<String, SearchResult>();
+      for ( Map.Entry<String, Frames> entry : channelEvents.entrySet() )
+      {
+        final Frames eventFrames = entry.getValue();
+        eventFrames.trim();
+        eventResults.put( entry.getKey(), new SearchResult( eventFrames.starts, eventFrames.ends ) );
+      }
+
+      if ( channelFrames == null )
+      {
+        channels[i] = new ChannelIndex( new long[0], new long[0], new int[0], eventResults );
+      }
+      else
+      {
+        channelFrames.trim();
+        channels[i] = new ChannelIndex( channelFrames.starts, channelFrames.ends, channelFrames.values, eventResults );
+      }
+    }
+
+    // Avoid this builder from being used again...
+    this.frames = null;
+    this.events = null;
+
+    return new DecodedDataIndex( channels );
+  }
+}
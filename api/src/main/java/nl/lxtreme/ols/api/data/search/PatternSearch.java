@@ -0,0 +1,431 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Searches for {@link SearchPattern}s in the captured data of an
+ * {@link AcquisitionResult}.
+ * <p>
+ * The search is done in two passes over the transitions of the captured data,
+ * which are both split in chunks that are processed concurrently. The first
+ * pass compares each sample value with each state of the pattern, comparing
+ * all channels at once, and marks the samples at which a state is entered in a
+ * bit set per state. The second pass walks the marks of the first state and
+ * looks up the following states in their bit sets, 64 samples at a time.
+ * </p>
+ */
+public final class PatternSearch
+{
+  // INNER TYPES
+
+  /**
+   * Denotes a consecutive range of samples, and the hits found in it.
+   */
+  static final class Chunk
+  {
+    // VARIABLES
+
+    final int from;
+    final int to;
+
+    int[] starts = new int[16];
+    int[] ends = new int[16];
+    int count;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link Chunk} instance.
+     */
+    Chunk( final int aFrom, final int aTo )
+    {
+      this.from = aFrom;
+      this.to = aTo;
+    }
+
+    // METHODS
+
+    /**
+     * Adds a hit to this chunk.
+     */
+    void add( final int aStart, final int aEnd )
+    {
+      if ( this.count == this.starts.length )
+      {
+        this.starts = Arrays.copyOf( this.starts, 2 * this.count );
+        this.ends = Arrays.copyOf( this.ends, 2 * this.count );
+      }
+      this.starts[this.count] = aStart;
+      this.ends[this.count] = aEnd;
+      this.count++;
+    }
+  }
+
+  /**
+   * Finds all hits that start in a chunk (second pass).
+   */
+  final class HitTask implements Callable<Chunk>
+  {
+    // VARIABLES
+
+    private final Chunk chunk;
+    private final SearchPattern pattern;
+    private final long[][] entered;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link HitTask} instance.
+     */
+    HitTask( final Chunk aChunk, final SearchPattern aPattern, final long[][] aEntered )
+    {
+      this.chunk = aChunk;
+      this.pattern = aPattern;
+      this.entered = aEntered;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Chunk call()
+    {
+      final int states = this.entered.length;
+      final long maxDuration = this.pattern.getMaxDuration();
+
+      // As the hits are visited in order, the next entry of each state can
+      // only move forward; remember it to not scan the same words over and
+      // over again...
+      final int[] nextEntry = new int[states];
+      Arrays.fill( nextEntry, -1 );
+
+      final long[] first = this.entered[0];
+      for ( int w = this.chunk.from >> 6; w < ( ( this.chunk.to + 63 ) >> 6 ); w++ )
+      {
+        long bits = first[w];
+        while ( bits != 0L )
+        {
+          final int start = ( w << 6 ) + Long.numberOfTrailingZeros( bits );
+          bits &= bits - 1L;
+
+          int pos = start;
+          for ( int s = 1; ( pos >= 0 ) && ( s < states ); s++ )
+          {
+            if ( nextEntry[s] <= pos )
+            {
+              nextEntry[s] = nextSetBit( this.entered[s], pos + 1, PatternSearch.this.size );
+            }
+            pos = nextEntry[s];
+          }
+
+          if ( pos < 0 )
+          {
+            // One of the states is never entered anymore...
+            return this.chunk;
+          }
+          if ( ( maxDuration < 0L )
+              || ( ( PatternSearch.this.timestamps[pos] - PatternSearch.this.timestamps[start] ) <= maxDuration ) )
+          {
+            this.chunk.add( start, pos );
+          }
+        }
+      }
+
+      return this.chunk;
+    }
+  }
+
+  /**
+   * Marks the samples of a chunk at which the states of the pattern are
+   * entered (first pass).
+   */
+  final class MarkTask implements Callable<Chunk>
+  {
+    // VARIABLES
+
+    private final Chunk chunk;
+    private final SearchPattern pattern;
+    private final long[][] entered;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link MarkTask} instance.
+     */
+    MarkTask( final Chunk aChunk, final SearchPattern aPattern, final long[][] aEntered )
+    {
+      this.chunk = aChunk;
+      this.pattern = aPattern;
+      this.entered = aEntered;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Chunk call()
+    {
+      final int[] data = PatternSearch.this.values;
+
+      for ( int s = 0; s < this.entered.length; s++ )
+      {
+        final long[] marks = this.entered[s];
+
+        for ( int w = this.chunk.from >> 6; w < ( ( this.chunk.to + 63 ) >> 6 ); w++ )
+        {
+          final int base = w << 6;
+          final int end = Math.min( this.chunk.to, base + 64 );
+
+          long matches = 0L;
+          for ( int i = base; i < end; i++ )
+          {
+            if ( this.pattern.matches( s, data[i] ) )
+            {
+              matches |= 1L << ( i - base );
+            }
+          }
+
+          // A state is entered where it matches, and did not match before...
+          final long before = ( base > 0 ) && this.pattern.matches( s, data[base - 1] ) ? 1L : 0L;
+          marks[w] = matches & ~( ( matches << 1 ) | before );
+        }
+      }
+
+      return this.chunk;
+    }
+  }
+
+  // CONSTANTS
+
+  /** The minimal number of samples in a chunk, should be a multiple of 64. */
+  private static final int MIN_CHUNK_SIZE = 1 << 18;
+
+  // VARIABLES
+
+  private final int[] values;
+  private final long[] timestamps;
+  private final int size;
+  private final int chunkSize;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link PatternSearch} instance.
+   *
+   * @param aData
+   *          the captured data to search in, cannot be <code>null</code>.
+   */
+  public PatternSearch( final AcquisitionResult aData )
+  {
+    this( aData, MIN_CHUNK_SIZE );
+  }
+
+  /**
+   * Creates a new {@link PatternSearch} instance.
+   *
+   * @param aData
+   *          the captured data to search in, cannot be <code>null</code>;
+   * @param aMinChunkSize
+   *          the minimal number of samples in a chunk, > 0.
+   */
+  PatternSearch( final AcquisitionResult aData, final int aMinChunkSize )
+  {
+    if ( aData == null )
+    {
+      throw new IllegalArgumentException( "Data cannot be null!" );
+    }
+
+    this.values = aData.getValues();
+    this.timestamps = aData.getTimestamps();
+    this.size = this.values.length;
+
+    final int cpuCount = Runtime.getRuntime().availableProcessors();
+    final int length = Math.max( aMinChunkSize, ( this.size + cpuCount - 1 ) / cpuCount );
+    // Make sure chunks never share a word of the bit sets...
+    this.chunkSize = ( length + 63 ) & ~63;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the index of the first set bit at or after the given index.
+   *
+   * @return the index of the found bit, or -1 if no bit is set.
+   */
+  private static int nextSetBit( final long[] aBits, final int aFromIdx, final int aSize )
+  {
+    if ( aFromIdx >= aSize )
+    {
+      return -1;
+    }
+
+    int w = aFromIdx >> 6;
+    long bits = aBits[w] & ( -1L << ( aFromIdx & 63 ) );
+    while ( bits == 0L )
+    {
+      if ( ++w >= aBits.length )
+      {
+        return -1;
+      }
+      bits = aBits[w];
+    }
+
+    return ( w << 6 ) + Long.numberOfTrailingZeros( bits );
+  }
+
+  /**
+   * Searches for all occurrences of the given pattern.
+   *
+   * @param aPattern
+   *          the pattern to search for, cannot be <code>null</code>.
+   * @return the search result, never <code>null</code>.
+   * @throws InterruptedException
+   *           in case the search was interrupted.
+   */
+  public SearchResult search( final SearchPattern aPattern ) throws InterruptedException
+  {
+    if ( aPattern == null )
+    {
+      throw new IllegalArgumentException( "Pattern cannot be null!" );
+    }
+
+    final long[][] entered = new long[aPattern.getStateCount()][( this.size + 63 ) >> 6];
+    final List<Chunk> chunks = createChunks();
+
+    final List<MarkTask> markTasks = new ArrayList<MarkTask>( chunks.size() );
+    final List<HitTask> hitTasks = new ArrayList<HitTask>( chunks.size() );
+    for ( Chunk chunk : chunks )
+    {
+      markTasks.add( new MarkTask( chunk, aPattern, entered ) );
+      hitTasks.add( new HitTask( chunk, aPattern, entered ) );
+    }
+
+    if ( chunks.size() < 2 )
+    {
+      for ( MarkTask task : markTasks )
+      {
+        task.call();
+      }
+      for ( HitTask task : hitTasks )
+      {
+        task.call();
+      }
+    }
+    else
+    {
+      final ExecutorService executor = Executors.newFixedThreadPool( Math.min( chunks.size(), Runtime.getRuntime()
+          .availableProcessors() ) );
+      try
+      {
+        // The hits can only be determined once all marks are known...
+        execute( executor, markTasks );
+        execute( executor, hitTasks );
+      }
+      finally
+      {
+        executor.shutdownNow();
+      }
+    }
+
+    return createResult( chunks );
+  }
+
+  /**
+   * Splits the captured data in chunks.
+   *
+   * @return the chunks, in order, never <code>null</code>.
+   */
+  private List<Chunk> createChunks()
+  {
+    final List<Chunk> result = new ArrayList<Chunk>();
+    for ( int from = 0; from < this.size; from += this.chunkSize )
+    {
+      result.add( new Chunk( from, ( int )Math.min( this.size, ( long )from + this.chunkSize ) ) );
+    }
+    return result;
+  }
+
+  /**
+   * Concatenates the hits of all given chunks.
+   */
+  private SearchResult createResult( final List<Chunk> aChunks )
+  {
+    int count = 0;
+    for ( Chunk chunk : aChunks )
+    {
+      count += chunk.count;
+    }
+
+    final long[] startTimestamps = new long[count];
+    final long[] endTimestamps = new long[count];
+
+    int idx = 0;
+    for ( Chunk chunk : aChunks )
+    {
+      for ( int i = 0; i < chunk.count; i++, idx++ )
+      {
+        startTimestamps[idx] = this.timestamps[chunk.starts[i]];
+        endTimestamps[idx] = this.timestamps[chunk.ends[i]];
+      }
+    }
+
+    return new SearchResult( startTimestamps, endTimestamps );
+  }
+
+  /**
+   * Executes all given tasks, and waits until they are all done.
+   */
+  private void execute( final ExecutorService aExecutor, final List<? extends Callable<Chunk>> aTasks )
+      throws InterruptedException
+  {
+    for ( Future<Chunk> future : aExecutor.invokeAll( aTasks ) )
+    {
+      try
+      {
+        future.get();
+      }
+      catch ( ExecutionException exception )
+      {
+        final Throwable cause = exception.getCause();
+        if ( cause instanceof RuntimeException )
+        {
+          throw ( RuntimeException )cause;
+        }
+        if ( cause instanceof Error )
+        {
+          throw ( Error )cause;
+        }
+        throw new RuntimeException( "Pattern search failed!", cause );
+      }
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import java.util.*;
+
+
+/**
+ * Describes a pattern to search for in captured data.
+ * <p>
+ * A pattern consists of one or more states, each given as a mask/value pair: a
+ * sample is in a state if all channels in the mask have the given value. A
+ * single state matches every time the captured data enters that state. A
+ * sequence of states matches every time the first state is entered, followed
+ * by the second state, and so on, where each state has to be entered after the
+ * previous one. Optionally, the entire sequence has to occur within a given
+ * duration.
+ * </p>
+ * <p>
+ * Patterns are immutable, all methods that alter a pattern return a new
+ * instance.
+ * </p>
+ */
+public final class SearchPattern
+{
+  // VARIABLES
+
+  private final int[] masks;
+  private final int[] values;
+  private final long maxDuration;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link SearchPattern} instance for a single state.
+   *
+   * @param aMask
+   *          the channels that should be compared;
+   * @param aValue
+   *          the value the masked channels should have, cannot have bits set
+   *          outside the mask.
+   * @throws IllegalArgumentException
+   *           in case the given value does not fit the given mask.
+   */
+  public SearchPattern( final int aMask, final int aValue )
+  {
+    this( new int[0], new int[0], -1L, aMask, aValue );
+  }
+
+  /**
+   * Creates a new {@link SearchPattern} instance.
+   */
+  private SearchPattern( final int[] aMasks, final int[] aValues, final long aMaxDuration, final int aMask,
+      final int aValue )
+  {
+    if ( ( aValue & ~aMask ) != 0 )
+    {
+      throw new IllegalArgumentException( "Value has bits set outside the mask!" );
+    }
+
+    this.masks = Arrays.copyOf( aMasks, aMasks.length + 1 );
+    this.values = Arrays.copyOf( aValues, aValues.length + 1 );
+    this.masks[aMasks.length] = aMask;
+    this.values[aValues.length] = aValue;
+    this.maxDuration = aMaxDuration;
+  }
+
+  /**
+   * Creates a new {@link SearchPattern} instance.
+   */
+  private SearchPattern( final SearchPattern aPattern, final long aMaxDuration )
+  {
+    this.masks = aPattern.masks;
+    this.values = aPattern.values;
+    this.maxDuration = aMaxDuration;
+  }
+
+  // METHODS
+
+  /**
+   * Returns a new pattern that matches this pattern followed by the given
+   * state.
+   *
+   * @param aMask
+   *          the channels that should be compared;
+   * @param aValue
+   *          the value the masked channels should have, cannot have bits set
+   *          outside the mask.
+   * @return a new search pattern, never <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the given value does not fit the given mask.
+   */
+  public SearchPattern followedBy( final int aMask, final int aValue )
+  {
+    return new SearchPattern( this.masks, this.values, this.maxDuration, aMask, aValue );
+  }
+
+  /**
+   * Returns the maximum duration of a match, counting from the moment the first
+   * state is entered until the moment the last state is entered.
+   *
+   * @return a duration, in samples, or -1L if the duration is not limited.
+   */
+  public long getMaxDuration()
+  {
+    return this.maxDuration;
+  }
+
+  /**
+   * Returns the number of states in this pattern.
+   *
+   * @return a state count, >= 1.
+   */
+  public int getStateCount()
+  {
+    return this.masks.length;
+  }
+
+  /**
+   * Returns whether the given sample value is in the given state of this
+   * pattern. All channels are compared in one go.
+   *
+   * @param aState
+   *          the index of the state, >= 0 && < {@link #getStateCount()};
+   * @param aSampleValue
+   *          the sample value to test.
+   * @return <code>true</code> if the sample value is in the given state,
+   *         <code>false</code> otherwise.
+   */
+  public boolean matches( final int aState, final int aSampleValue )
+  {
+    return ( ( aSampleValue ^ this.values[aState] ) & this.masks[aState] ) == 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString()
+  {
+    final StringBuilder sb = new StringBuilder();
+    for ( int i = 0; i < this.masks.length; i++ )
+    {
+      if ( i > 0 )
+      {
+        sb.append( " -> " );
+      }
+      sb.append( String.format( "%08x/%08x", Integer.valueOf( this.values[i] ), Integer.valueOf( this.masks[i] ) ) );
+    }
+    if ( this.maxDuration >= 0L )
+    {
+      sb.append( " within " ).append( this.maxDuration );
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns a new pattern that only matches if the entire sequence of states
+   * occurs within the given duration.
+   *
+   * @param aDuration
+   *          the maximum duration, in samples, >= 0L.
+   * @return a new search pattern, never <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the given duration is negative.
+   */
+  public SearchPattern within( final long aDuration )
+  {
+    if ( aDuration < 0L )
+    {
+      throw new IllegalArgumentException( "Duration cannot be negative!" );
+    }
+    return new SearchPattern( this, aDuration );
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+/**
+ * Provides the hits of a {@link PatternSearch} or a query on a
+ * {@link DecodedDataIndex}, sorted on their start timestamp.
+ * <p>
+ * The timestamps of a hit can directly be used as cursor position. To step
+ * through the hits, use {@link #getHitAfter(long)} and
+ * {@link #getHitBefore(long)} with the current cursor position.
+ * </p>
+ */
+public final class SearchResult
+{
+  // VARIABLES
+
+  private final long[] startTimestamps;
+  private final long[] endTimestamps;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link SearchResult} instance.
+   *
+   * @param aStartTimestamps
+   *          the start timestamps of all hits, sorted;
+   * @param aEndTimestamps
+   *          the end timestamps of all hits.
+   */
+  SearchResult( final long[] aStartTimestamps, final long[] aEndTimestamps )
+  {
+    this.startTimestamps = aStartTimestamps;
+    this.endTimestamps = aEndTimestamps;
+  }
+
+  // METHODS
+
+  /**
+   * Merges the two given results into one.
+   *
+   * @return a new search result, with the hits of both results, sorted.
+   */
+  static SearchResult merge( final SearchResult aResult1, final SearchResult aResult2 )
+  {
+    final int size1 = aResult1.size();
+    final int size2 = aResult2.size();
+
+    final long[] starts = new long[size1 + size2];
+    final long[] ends = new long[starts.length];
+
+    int i = 0, j = 0;
+    for ( int k = 0; k < starts.length; k++ )
+    {
+      if ( ( j >= size2 ) || ( ( i < size1 ) && ( aResult1.startTimestamps[i] <= aResult2.startTimestamps[j] ) ) )
+      {
+        starts[k] = aResult1.startTimestamps[i];
+        ends[k] = aResult1.endTimestamps[i++];
+      }
+      else
+      {
+        starts[k] = aResult2.startTimestamps[j];
+        ends[k] = aResult2.endTimestamps[j++];
+      }
+    }
+
+    return new SearchResult( starts, ends );
+  }
+
+  /**
+   * Returns the timestamp at which the given hit ends. For a pattern search,
+   * this is the timestamp at which the last state is entered.
+   *
+   * @param aHit
+   *          the index of the hit, >= 0 && < {@link #size()}.
+   * @return a timestamp.
+   */
+  public long getEndTimestamp( final int aHit )
+  {
+    return this.endTimestamps[aHit];
+  }
+
+  /**
+   * Returns the first hit that starts after the given timestamp.
+   *
+   * @param aTimestamp
+   *          the timestamp to search from (exclusive).
+   * @return the index of the found hit, or -1 if no such hit exists.
+   */
+  public int getHitAfter( final long aTimestamp )
+  {
+    final int idx = rank( aTimestamp );
+    return ( idx < this.startTimestamps.length ) ? idx : -1;
+  }
+
+  /**
+   * Returns the last hit that starts before the given timestamp.
+   *
+   * @param aTimestamp
+   *          the timestamp to search from (exclusive).
+   * @return the index of the found hit, or -1 if no such hit exists.
+   */
+  public int getHitBefore( final long aTimestamp )
+  {
+    return rank( aTimestamp - 1L ) - 1;
+  }
+
+  /**
+   * Returns the timestamp at which the given hit starts. For a pattern search,
+   * this is the timestamp at which the first state is entered.
+   *
+   * @param aHit
+   *          the index of the hit, >= 0 && < {@link #size()}.
+   * @return a timestamp.
+   */
+  public long getStartTimestamp( final int aHit )
+  {
+    return this.startTimestamps[aHit];
+  }
+
+  /**
+   * Returns whether there are no hits at all.
+   *
+   * @return <code>true</code> if nothing was found, <code>false</code>
+   *         otherwise.
+   */
+  public boolean isEmpty()
+  {
+    return this.startTimestamps.length == 0;
+  }
+
+  /**
+   * Returns the number of hits.
+   *
+   * @return a hit count, >= 0.
+   */
+  public int size()
+  {
+    return this.startTimestamps.length;
+  }
+
+  /**
+   * Returns the number of hits that start at or before the given timestamp.
+   */
+  private int rank( final long aTimestamp )
+  {
+    int low = 0;
+    int high = this.startTimestamps.length;
+
+    while ( low < high )
+    {
+      final int mid = ( low + high ) >>> 1;
+      if ( this.startTimestamps[mid] <= aTimestamp )
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid;
+      }
+    }
+
+    return low;
+  }
+}
@@ -84,6 +84,15 @@ public interface ToolContext
    * @return a start sample index, >= 0.
    */
   int getStartSampleIndex();
+
+  /**
+   * Moves the view of the acquired data to the given timestamp, for example,
+   * to show the location of a decoded result.
+   * 
+   * @param aTimestamp
+   *          the timestamp to move the view to, >= 0.
+   */
+  void gotoTimestamp( long aTimestamp );
 }
 
 /* EOF */
@@ -0,0 +1,75 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.tools;
+
+
+/**
+ * Provides a push-style protocol decoder, which is fed with batches of signal
+ * transitions instead of pulling them from a complete acquisition result.
+ * <p>
+ * Each transition consists of a sample value and the timestamp at which that
+ * value became valid. Implementations keep their decoding state between
+ * successive calls to {@link #decode(int[], long[], int, int)}, and emit their
+ * frames and annotations as soon as they are decoded. This allows a decoder to
+ * run while the acquisition is still in progress.
+ * </p>
+ */
+public interface TransitionDecoder
+{
+  // METHODS
+
+  /**
+   * Decodes the next batch of transitions.
+   * <p>
+   * The given arrays are only valid for the duration of this call; callers are
+   * free to reuse them for the next batch. Implementations should therefore
+   * not retain a reference to them.
+   * </p>
+   * 
+   * @param aValues
+   *          the sample values of the transitions, cannot be <code>null</code>;
+   * @param aTimestamps
+   *          the timestamps of the transitions, cannot be <code>null</code>;
+   * @param aOffset
+   *          the index of the first transition in the given arrays to decode;
+   * @param aLength
+   *          the number of transitions to decode, >= 0.
+   */
+  void decode( int[] aValues, long[] aTimestamps, int aOffset, int aLength );
+
+  /**
+   * Signals this decoder that no more transitions will follow, allowing it to
+   * flush any pending state.
+   */
+  void finish();
+
+  /**
+   * Returns whether this decoder is done, that is, whether it will not decode
+   * anything more, regardless of the transitions that are fed to it. Callers
+   * can use this to stop feeding transitions early.
+   * 
+   * @return <code>true</code> if this decoder is done, <code>false</code> if
+   *         it might decode more transitions.
+   */
+  boolean isDone();
+}
+
+/* EOF */
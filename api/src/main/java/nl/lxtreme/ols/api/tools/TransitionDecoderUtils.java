@@ -0,0 +1,98 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.tools;
+
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides some utility methods for working with {@link TransitionDecoder}s.
+ */
+public final class TransitionDecoderUtils
+{
+  // CONSTANTS
+
+  /** The default number of transitions passed to a decoder in one batch. */
+  public static final int DEFAULT_BATCH_SIZE = 4096;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new TransitionDecoderUtils instance, never used.
+   */
+  private TransitionDecoderUtils()
+  {
+    // NO-op
+  }
+
+  // METHODS
+
+  /**
+   * Feeds the transitions of a (completed) acquisition result in batches to
+   * the given decoder, and finishes it afterwards. The feeding stops early once
+   * the decoder is done.
+   * 
+   * @param aDecoder
+   *          the decoder to feed, cannot be <code>null</code>;
+   * @param aData
+   *          the acquisition result to take the transitions from, cannot be
+   *          <code>null</code>;
+   * @param aStartSampleIdx
+   *          the index of the first sample to feed (inclusive);
+   * @param aEndSampleIdx
+   *          the index of the last sample to feed (exclusive);
+   * @param aProgressListener
+   *          the progress listener to report the progress to, can be
+   *          <code>null</code>.
+   */
+  public static void feed( final TransitionDecoder aDecoder, final AcquisitionResult aData,
+      final int aStartSampleIdx, final int aEndSampleIdx, final ToolProgressListener aProgressListener )
+  {
+    final int[] values = aData.getValues();
+    final long[] timestamps = aData.getTimestamps();
+
+    final int total = Math.max( 1, aEndSampleIdx - aStartSampleIdx );
+
+    int idx = aStartSampleIdx;
+    while ( ( idx < aEndSampleIdx ) && !aDecoder.isDone() && !Thread.currentThread().isInterrupted() )
+    {
+      final int length = Math.min( DEFAULT_BATCH_SIZE, aEndSampleIdx - idx );
+
+      aDecoder.decode( values, timestamps, idx, length );
+      idx += length;
+
+      if ( aProgressListener != null )
+      {
+        aProgressListener.setProgress( ( int )( ( ( idx - aStartSampleIdx ) * 100L ) / total ) );
+      }
+    }
+
+    aDecoder.finish();
+
+    if ( aProgressListener != null )
+    {
+      aProgressListener.setProgress( 100 );
+    }
+  }
+}
+
+/* EOF */
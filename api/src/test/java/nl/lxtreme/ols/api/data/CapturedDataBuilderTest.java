@@ -0,0 +1,111 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link CapturedDataBuilder}.
+ */
+public class CapturedDataBuilderTest
+{
+  // METHODS
+
+  /**
+   * Tests that the builder yields the same result as the list-based
+   * constructor of {@link CapturedData}.
+   */
+  @Test
+  @SuppressWarnings( "boxing" )
+  public void testBuildEqualsListBasedCapturedData()
+  {
+    final int[] values = { 0x01, 0x01, 0x02, 0x02, 0x02, 0x03, 0x01, 0x01 };
+
+    final List<Integer> valueList = new ArrayList<Integer>();
+    final List<Long> timestampList = new ArrayList<Long>();
+
+    final CapturedDataBuilder builder = new CapturedDataBuilder( 2 );
+    for ( int i = 0; i < values.length; i++ )
+    {
+      valueList.add( values[i] );
+      timestampList.add( ( long )( 2 * i ) );
+
+      builder.add( values[i], 2 * i );
+    }
+
+    final CapturedData expected = new CapturedData( valueList, timestampList, 4L, 100, 8, 0xFF, 20L );
+    final CapturedData actual = builder.setTriggerPosition( 4L ).setSampleRate( 100 ).setChannels( 8 )
+        .setEnabledChannels( 0xFF ).setAbsoluteLength( 20L ).build();
+
+    assertArrayEquals( expected.getValues(), actual.getValues() );
+    assertArrayEquals( expected.getTimestamps(), actual.getTimestamps() );
+    assertEquals( expected.getAbsoluteLength(), actual.getAbsoluteLength() );
+    assertEquals( expected.getTriggerPosition(), actual.getTriggerPosition() );
+    assertEquals( expected.getSampleRate(), actual.getSampleRate() );
+    assertEquals( expected.getChannels(), actual.getChannels() );
+    assertEquals( expected.getEnabledChannels(), actual.getEnabledChannels() );
+  }
+
+  /**
+   * Tests that a single value still results in a start and end sample.
+   */
+  @Test
+  public void testBuildSingleValue()
+  {
+    final CapturedData actual = new CapturedDataBuilder().add( 0x55, 0L ).add( 0x55, 10L ).build();
+
+    assertArrayEquals( new int[] { 0x55, 0x55 }, actual.getValues() );
+    assertArrayEquals( new long[] { 0L, 10L }, actual.getTimestamps() );
+    assertEquals( 10L, actual.getAbsoluteLength() );
+  }
+
+  /**
+   * Tests that, unlike the array-based constructor of {@link CapturedData},
+   * trailing samples without transitions still count towards the absolute
+   * length.
+   */
+  @Test
+  public void testBuildKeepsTrailingSamplesWithoutTransitions()
+  {
+    final int[] values = { 0x01, 0x01, 0x02, 0x02, 0x03, 0x03, 0x03 };
+
+    final CapturedDataBuilder builder = new CapturedDataBuilder();
+    for ( int i = 0; i < values.length; i++ )
+    {
+      builder.add( values[i], i );
+    }
+
+    final CapturedData legacy = new CapturedData( values, 1L, 100, 8, 0xFF );
+    final CapturedData actual = builder.setTriggerPosition( 1L ).setSampleRate( 100 ).setChannels( 8 )
+        .setEnabledChannels( 0xFF ).build();
+
+    assertEquals( 4L, legacy.getAbsoluteLength() );
+    assertEquals( 6L, actual.getAbsoluteLength() );
+    assertArrayEquals( new int[] { 0x01, 0x02, 0x03, 0x03 }, actual.getValues() );
+    assertArrayEquals( new long[] { 0L, 2L, 4L, 6L }, actual.getTimestamps() );
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link CompactDataSet}.
+ */
+public class CompactDataSetTest
+{
+  // INNER TYPES
+
+  /**
+   * Data entity that is ordered on its start sample index.
+   */
+  static final class TestData extends BaseData<TestData>
+  {
+    // VARIABLES
+
+    private final int value;
+
+    // CONSTRUCTORS
+
+    TestData( final int aIdx, final int aChannelIdx, final int aStartSampleIdx, final int aEndSampleIdx,
+        final int aValue, final String aEventName )
+    {
+      super( aIdx, aChannelIdx, aStartSampleIdx, aEndSampleIdx, aEventName );
+      this.value = aValue;
+    }
+
+    // METHODS
+
+    @Override
+    public int compareTo( final TestData aOther )
+    {
+      return getStartSampleIndex() - aOther.getStartSampleIndex();
+    }
+
+    int getValue()
+    {
+      return this.value;
+    }
+  }
+
+  /**
+   * Data set using compact storage.
+   */
+  static final class TestDataSet extends CompactDataSet<TestData>
+  {
+    // CONSTRUCTORS
+
+    TestDataSet()
+    {
+      super( 0, 16, new CapturedDataBuilder().add( 0, 0L ).build() );
+    }
+
+    // METHODS
+
+    @Override
+    public void sort()
+    {
+      super.sort();
+    }
+
+    void reportData( final int aChannelIdx, final int aStartSampleIdx, final int aEndSampleIdx, final int aValue )
+    {
+      addData( aChannelIdx, aStartSampleIdx, aEndSampleIdx, aValue, null, 0 );
+    }
+
+    void reportDataObject( final int aChannelIdx, final int aSampleIdx )
+    {
+      addData( new TestData( size(), aChannelIdx, aSampleIdx, aSampleIdx, 0, null ) );
+    }
+
+    void reportEvent( final int aChannelIdx, final int aSampleIdx, final String aEventName )
+    {
+      addData( aChannelIdx, aSampleIdx, aSampleIdx, 0, aEventName, 0 );
+    }
+
+    @Override
+    protected TestData createData( final int aIdx, final int aChannelIdx, final int aStartSampleIdx,
+        final int aEndSampleIdx, final int aValue, final String aEventName, final int aAttribute )
+    {
+      return new TestData( aIdx, aChannelIdx, aStartSampleIdx, aEndSampleIdx, aValue, aEventName );
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Tests that the compactly stored data is presented as data entities.
+   */
+  @Test
+  public void testCompactDataViewOk()
+  {
+    final TestDataSet dataSet = new TestDataSet();
+    assertTrue( dataSet.isEmpty() );
+
+    dataSet.reportEvent( 1, 2, "START" );
+    dataSet.reportData( 1, 3, 10, 0x5A );
+    dataSet.reportEvent( 1, 11, "STOP" );
+
+    assertFalse( dataSet.isEmpty() );
+    assertEquals( 3, dataSet.size() );
+
+    final List<TestData> data = dataSet.getData();
+    assertEquals( 3, data.size() );
+    assertTrue( data instanceof RandomAccess );
+
+    final TestData event = data.get( 0 );
+    assertEquals( 0, event.getIndex() );
+    assertEquals( 1, event.getChannelIdx() );
+    assertEquals( 2, event.getStartSampleIndex() );
+    assertEquals( "START", event.getEventName() );
+    assertTrue( event.isEvent() );
+
+    final TestData value = data.get( 1 );
+    assertEquals( 1, value.getIndex() );
+    assertEquals( 3, value.getStartSampleIndex() );
+    assertEquals( 10, value.getEndSampleIndex() );
+    assertEquals( 0x5A, value.getValue() );
+    assertNull( value.getEventName() );
+    assertFalse( value.isEvent() );
+
+    assertEquals( "STOP", dataSet.getEventName( 2 ) );
+    assertEquals( 11, dataSet.getStartSampleIndex( 2 ) );
+    assertEquals( 11, dataSet.getEndSampleIndex( 2 ) );
+    assertEquals( 1, dataSet.getChannelIdx( 2 ) );
+  }
+
+  /**
+   * Tests that compact and non-compact storage cannot be mixed.
+   */
+  @Test( expected = IllegalStateException.class )
+  public void testMixingStorageFails()
+  {
+    final TestDataSet dataSet = new TestDataSet();
+    dataSet.reportDataObject( 0, 1 );
+    dataSet.reportEvent( 0, 2, "START" );
+  }
+
+  /**
+   * Tests that sorting compactly stored data is stable and orders the data on
+   * its start sample index.
+   */
+  @Test
+  public void testSortCompactDataOk()
+  {
+    final TestDataSet dataSet = new TestDataSet();
+    dataSet.reportData( 0, 8, 9, 1 );
+    dataSet.reportData( 1, 2, 3, 2 );
+    dataSet.reportEvent( 0, 8, "A" );
+    dataSet.reportData( 1, 5, 6, 3 );
+
+    dataSet.sort();
+
+    final List<TestData> data = dataSet.getData();
+    assertEquals( 2, data.get( 0 ).getValue() );
+    assertEquals( 3, data.get( 1 ).getValue() );
+    assertEquals( 1, data.get( 2 ).getValue() );
+    assertEquals( "A", data.get( 3 ).getEventName() );
+    assertEquals( 8, dataSet.getStartSampleIndex( 3 ) );
+  }
+}
+
+/* EOF */
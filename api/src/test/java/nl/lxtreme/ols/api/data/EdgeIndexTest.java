@@ -0,0 +1,179 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link EdgeIndex}.
+ */
+public class EdgeIndexTest
+{
+  // VARIABLES
+
+  private CapturedData data;
+  private EdgeIndex edgeIndex;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    // channel 0 toggles on every sample, channel 1 only toggles twice...
+    final int[] values = { 0x00, 0x01, 0x00, 0x01, 0x02, 0x03, 0x02, 0x03, 0x00, 0x01 };
+    final long[] timestamps = { 0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L };
+
+    this.data = new CapturedData( values, timestamps, -1L, 100, 8, 0xFF, 10L );
+    this.edgeIndex = EdgeIndex.getInstance( this.data );
+  }
+
+  /**
+   * Tests that the edge index is cached for the same acquisition result.
+   */
+  @Test
+  public void testEdgeIndexIsCached()
+  {
+    assertSame( this.edgeIndex, EdgeIndex.getInstance( this.data ) );
+  }
+
+  /**
+   * Tests that the edge count for each channel is correct.
+   */
+  @Test
+  public void testGetEdgeCount()
+  {
+    assertEquals( 9, this.edgeIndex.getEdgeCount( 0 ) );
+    assertEquals( 2, this.edgeIndex.getEdgeCount( 1 ) );
+    assertEquals( 0, this.edgeIndex.getEdgeCount( 2 ) );
+
+    assertEquals( 1, this.edgeIndex.getEdgeCount( 1, 0, 4 ) );
+    assertEquals( 0, this.edgeIndex.getEdgeCount( 1, 4, 7 ) );
+    assertEquals( 2, this.edgeIndex.getEdgeCount( 1, 0, 9 ) );
+  }
+
+  /**
+   * Tests that the rising edge count and high times match a linear scan over
+   * random data.
+   */
+  @Test
+  public void testGetRisingEdgeCountAndHighTime()
+  {
+    final Random rnd = new Random( 3L );
+
+    final int[] samples = new int[2000];
+    final long[] sampleTimes = new long[samples.length];
+    for ( int i = 1; i < samples.length; i++ )
+    {
+      samples[i] = rnd.nextInt( 4 ) == 0 ? ( samples[i - 1] ^ rnd.nextInt( 4 ) ) : samples[i - 1];
+      sampleTimes[i] = sampleTimes[i - 1] + 1 + rnd.nextInt( 10 );
+    }
+
+    final CapturedData randomData = new CapturedData( samples, sampleTimes, -1L, 100, 8, 0xFF,
+        sampleTimes[sampleTimes.length - 1] + 1 );
+    final EdgeIndex index = EdgeIndex.getInstance( randomData );
+
+    // Captured data only retains the samples that differ...
+    final int[] values = randomData.getValues();
+    final long[] timestamps = randomData.getTimestamps();
+
+    for ( int i = 0; i < 500; i++ )
+    {
+      final int channel = rnd.nextInt( 2 );
+      final int mask = 1 << channel;
+      final int from = rnd.nextInt( values.length );
+      final int to = from + rnd.nextInt( values.length - from );
+
+      int rising = 0;
+      long highTime = 0L;
+      int lastEdge = -1;
+      for ( int j = from + 1; j <= to; j++ )
+      {
+        if ( ( ( values[j] ^ values[j - 1] ) & mask ) != 0 )
+        {
+          if ( ( values[j] & mask ) != 0 )
+          {
+            rising++;
+          }
+          else if ( lastEdge >= 0 )
+          {
+            highTime += timestamps[j] - timestamps[lastEdge];
+          }
+          lastEdge = j;
+        }
+      }
+
+      assertEquals( rising, index.getRisingEdgeCount( channel, from, to ) );
+
+      final int firstEdgeNr = index.getEdgeNumber( channel, from );
+      final int lastEdgeNr = index.getEdgeNumber( channel, to ) - 1;
+      if ( firstEdgeNr <= lastEdgeNr )
+      {
+        assertEquals( highTime, index.getHighTime( channel, firstEdgeNr, lastEdgeNr ) );
+      }
+    }
+
+    assertTrue( index.isIndexed( 0 ) );
+    assertFalse( index.isIndexed( 2 ) );
+  }
+
+  /**
+   * Tests that the n-th edge of a channel can be found.
+   */
+  @Test
+  public void testGetEdge()
+  {
+    assertEquals( 4, this.edgeIndex.getEdge( 1, 0 ) );
+    assertEquals( 8, this.edgeIndex.getEdge( 1, 1 ) );
+  }
+
+  /**
+   * Tests that searching for edges after a given sample index works.
+   */
+  @Test
+  public void testFindEdgeAfter()
+  {
+    assertEquals( 4, this.edgeIndex.findEdgeAfter( 1, 0 ) );
+    assertEquals( 8, this.edgeIndex.findEdgeAfter( 1, 4 ) );
+    assertEquals( -1, this.edgeIndex.findEdgeAfter( 1, 8 ) );
+    assertEquals( -1, this.edgeIndex.findEdgeAfter( 2, 0 ) );
+  }
+
+  /**
+   * Tests that searching for edges before a given sample index works.
+   */
+  @Test
+  public void testFindEdgeBefore()
+  {
+    assertEquals( -1, this.edgeIndex.findEdgeBefore( 1, 3 ) );
+    assertEquals( 4, this.edgeIndex.findEdgeBefore( 1, 4 ) );
+    assertEquals( 4, this.edgeIndex.findEdgeBefore( 1, 7 ) );
+    assertEquals( 8, this.edgeIndex.findEdgeBefore( 1, 9 ) );
+  }
+}
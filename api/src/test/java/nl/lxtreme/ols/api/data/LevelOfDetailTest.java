@@ -0,0 +1,129 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link LevelOfDetail}.
+ */
+public class LevelOfDetailTest
+{
+  // VARIABLES
+
+  private LevelOfDetail lod;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    // channel 0 toggles rapidly in the first half, channel 1 is high in the
+    // second half only...
+    final int[] values = { 0x00, 0x01, 0x00, 0x01, 0x00, 0x02 };
+    final long[] timestamps = { 0L, 2L, 4L, 6L, 8L, 64L };
+
+    this.lod = new LevelOfDetail( values, timestamps, 127L );
+  }
+
+  /**
+   * Tests that the level is chosen according to the zoom factor.
+   */
+  @Test
+  public void testGetLevel()
+  {
+    assertEquals( -1, this.lod.getLevel( 1.0 ) );
+    assertEquals( 1, this.lod.getLevel( 0.5 ) );
+    assertEquals( 2, this.lod.getLevel( 0.25 ) );
+    assertEquals( 2, this.lod.getLevel( 0.2 ) );
+    // never beyond the top level...
+    assertEquals( 7, this.lod.getLevel( 0.0001 ) );
+  }
+
+  /**
+   * Tests that toggling, high and low channels are reported correctly.
+   */
+  @Test
+  public void testGetMasks()
+  {
+    // a single bucket covering everything...
+    assertEquals( 0x03, this.lod.getHighMask( 7, 0L, 128L ) & 0x03 );
+    assertEquals( 0x03, this.lod.getLowMask( 7, 0L, 128L ) & 0x03 );
+
+    // the first half: channel 0 toggles, channel 1 stays low...
+    assertEquals( 0x01, this.lod.getHighMask( 6, 0L, 64L ) & 0x03 );
+    assertEquals( 0x03, this.lod.getLowMask( 6, 0L, 64L ) & 0x03 );
+
+    // the second half: channel 0 stays low, channel 1 stays high...
+    assertEquals( 0x02, this.lod.getHighMask( 6, 64L, 128L ) & 0x03 );
+    assertEquals( 0x01, this.lod.getLowMask( 6, 64L, 128L ) & 0x03 );
+  }
+
+  /**
+   * Tests that the minimum and maximum values of a group of channels are the
+   * actual values, not a bitwise envelope of them.
+   */
+  @Test
+  public void testGetMinimumAndMaximumValue()
+  {
+    // the upper byte toggles between 0x7F and 0x80, then stays at 0x10...
+    final int[] values = { 0x7F00, 0x8000, 0x7F00, 0x8000, 0x1000 };
+    final long[] timestamps = { 0L, 2L, 4L, 6L, 64L };
+
+    final LevelOfDetail analogLOD = new LevelOfDetail( values, timestamps, 127L );
+
+    assertEquals( 0x7F, analogLOD.getMinimumValue( 0xFF00, 6, 0L, 64L ) );
+    assertEquals( 0x80, analogLOD.getMaximumValue( 0xFF00, 6, 0L, 64L ) );
+
+    assertEquals( 0x10, analogLOD.getMinimumValue( 0xFF00, 6, 64L, 128L ) );
+    assertEquals( 0x10, analogLOD.getMaximumValue( 0xFF00, 6, 64L, 128L ) );
+
+    assertEquals( 0x10, analogLOD.getMinimumValue( 0xFF00, 7, 0L, 128L ) );
+    assertEquals( 0x80, analogLOD.getMaximumValue( 0xFF00, 7, 0L, 128L ) );
+
+    // the full 32-bit range is treated as unsigned...
+    final LevelOfDetail wideLOD = new LevelOfDetail( new int[] { 0x7FFFFFFF, 0x80000000 }, new long[] { 0L, 64L },
+        127L );
+    assertEquals( 0x7FFFFFFFL, wideLOD.getMinimumValue( 0xFFFFFFFF, 7, 0L, 128L ) );
+    assertEquals( 0x80000000L, wideLOD.getMaximumValue( 0xFFFFFFFF, 7, 0L, 128L ) );
+  }
+
+  /**
+   * Tests that a time range without any samples yields no minimum and maximum
+   * value.
+   */
+  @Test
+  public void testGetMinimumAndMaximumValueWithoutSamples()
+  {
+    final LevelOfDetail sparseLOD = new LevelOfDetail( new int[] { 0x01 }, new long[] { 64L }, 127L );
+
+    assertEquals( -1L, sparseLOD.getMinimumValue( 0x01, 6, 0L, 64L ) );
+    assertEquals( -1L, sparseLOD.getMaximumValue( 0x01, 6, 0L, 64L ) );
+    assertEquals( 1L, sparseLOD.getMaximumValue( 0x01, 6, 64L, 128L ) );
+  }
+}
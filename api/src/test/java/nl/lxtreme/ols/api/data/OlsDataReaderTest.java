@@ -0,0 +1,154 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link OlsDataReader} and {@link OlsDataWriter}.
+ */
+public class OlsDataReaderTest
+{
+  // CONSTANTS
+
+  private static final String MINIMAL_HEADER = ";Rate: 1\n;Channels: 8\n";
+
+  // METHODS
+
+  /**
+   * Tests that samples are formatted in the same way as before.
+   */
+  @Test
+  public void testFormatSample()
+  {
+    final char[] buffer = new char[64];
+
+    int length = OlsDataWriter.formatSample( buffer, 0, 0x80000000, 0L );
+    assertEquals( "80000000@0", new String( buffer, 0, length ) );
+
+    length = OlsDataWriter.formatSample( buffer, 0, -1, -1L );
+    assertEquals( "ffffffff@" + Long.MAX_VALUE, new String( buffer, 0, length ) );
+
+    length = OlsDataWriter.formatSample( buffer, 0, 0x1a, 1234567890L );
+    assertEquals( "0000001a@1234567890", new String( buffer, 0, length ) );
+  }
+
+  /**
+   * Tests that lines that do not denote a sample or instruction are ignored.
+   */
+  @Test
+  public void testReadIgnoresMalformedLines() throws Exception
+  {
+    final String snippet = MINIMAL_HEADER + ";Size: 2\r\n\r\nfoo\n1@x\n 2@3\n@4\n3@\n3@4\r\n;CursorA: 5\n4@5";
+
+    final OlsDataReader reader = new OlsDataReader();
+    final AcquisitionResult result = reader.read( new StringReader( snippet ) );
+
+    assertArrayEquals( new int[] { 3, 4 }, result.getValues() );
+    assertArrayEquals( new long[] { 4L, 5L }, result.getTimestamps() );
+    assertEquals( 5L, reader.getCursorTimestamp( 0 ) );
+    assertEquals( Long.MIN_VALUE, reader.getCursorTimestamp( 1 ) );
+  }
+
+  /**
+   * Tests that a timestamp that does not fit in a long is reported.
+   */
+  @Test( expected = IOException.class )
+  public void testReadTimestampOverflowFail() throws Exception
+  {
+    final String snippet = MINIMAL_HEADER + "0@0\n1@" + Long.MAX_VALUE + "0\n";
+
+    new OlsDataReader().read( new StringReader( snippet ) );
+  }
+
+  /**
+   * Tests that a file that is parsed in multiple segments yields the same
+   * result as the written captured data.
+   */
+  @Test
+  public void testWriteAndReadFileOk() throws Exception
+  {
+    final Random rnd = new Random( 4L );
+
+    final int size = ( int )( 4 * OlsDataReader.MIN_SEGMENT_SIZE / 16 );
+    final int[] values = new int[size];
+    final long[] timestamps = new long[size];
+
+    long timestamp = 0L;
+    for ( int i = 0; i < size; i++ )
+    {
+      values[i] = ( i == 0 ) ? 0 : values[i - 1] + 1 + rnd.nextInt( 1000 );
+      timestamps[i] = timestamp;
+      timestamp += 1 + rnd.nextInt( 100 );
+    }
+
+    final CapturedData expected = new CapturedData( values, timestamps, 10L, 1000000, 32, -1, timestamp );
+
+    final File file = File.createTempFile( "ols", ".ols" );
+    file.deleteOnExit();
+
+    final Writer writer = new FileWriter( file );
+    try
+    {
+      OlsDataWriter.write( expected, new Cursor[0], false, writer );
+    }
+    finally
+    {
+      writer.close();
+    }
+
+    final AcquisitionResult mapped = new OlsDataReader().read( file );
+    assertCapturedDataEquals( expected, mapped );
+
+    final Reader reader = new FileReader( file );
+    try
+    {
+      assertCapturedDataEquals( expected, new OlsDataReader().read( reader ) );
+    }
+    finally
+    {
+      reader.close();
+    }
+  }
+
+  /**
+   * Asserts that the given captured data are equal.
+   */
+  private void assertCapturedDataEquals( final AcquisitionResult aExpected, final AcquisitionResult aActual )
+  {
+    assertArrayEquals( aExpected.getValues(), aActual.getValues() );
+    assertArrayEquals( aExpected.getTimestamps(), aActual.getTimestamps() );
+    assertEquals( aExpected.getAbsoluteLength(), aActual.getAbsoluteLength() );
+    assertEquals( aExpected.getTriggerPosition(), aActual.getTriggerPosition() );
+    assertEquals( aExpected.getSampleRate(), aActual.getSampleRate() );
+    assertEquals( aExpected.getChannels(), aActual.getChannels() );
+    assertEquals( aExpected.getEnabledChannels(), aActual.getEnabledChannels() );
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link TransitionCursor}.
+ */
+public class TransitionCursorTest
+{
+  // VARIABLES
+
+  private CapturedData data;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    final Random rnd = new Random( 3L );
+
+    final CapturedDataBuilder builder = new CapturedDataBuilder().setSampleRate( 1000000 );
+
+    long time = 10L;
+    for ( int i = 0; i < 2000; i++ )
+    {
+      builder.add( rnd.nextInt( 8 ), time );
+      time += 1 + rnd.nextInt( ( i % 100 ) == 0 ? 5000 : 10 );
+    }
+
+    this.data = builder.build();
+  }
+
+  /**
+   * Tests that transitions are found in both directions, compared to sampling
+   * the channel at every time tick.
+   */
+  @Test
+  public void testFindTransition()
+  {
+    final Random rnd = new Random( 5L );
+    final TransitionCursor cursor = new TransitionCursor( this.data, 1 );
+    final long last = this.data.getAbsoluteLength();
+
+    for ( int i = 0; i < 2000; i++ )
+    {
+      final long from = rnd.nextInt( ( int )last + 20 ) - 10;
+      final long to = from + rnd.nextInt( 500 );
+      final Edge edge = Edge.values()[rnd.nextInt( 3 )];
+
+      long expected = -1L;
+      for ( long t = from + 1; ( expected < 0 ) && ( t < to ); t++ )
+      {
+        final Edge actual = Edge.toEdge( getValue( t - 1, 2 ), getValue( t, 2 ) );
+        if ( !actual.isNone() && ( edge.isNone() || ( edge == actual ) ) )
+        {
+          expected = t;
+        }
+      }
+
+      assertEquals( expected, cursor.findTransition( from, to, edge ) );
+    }
+  }
+
+  /**
+   * Tests that the value of a channel is correct for random and sequential
+   * times.
+   */
+  @Test
+  public void testGetValue()
+  {
+    final Random rnd = new Random( 7L );
+    final TransitionCursor cursor = new TransitionCursor( this.data, 2 );
+    final long last = this.data.getAbsoluteLength();
+
+    for ( long t = -5L; t < last + 5L; t++ )
+    {
+      assertEquals( getValue( t, 4 ), cursor.getValue( t ) );
+    }
+    for ( int i = 0; i < 5000; i++ )
+    {
+      final long t = rnd.nextInt( ( int )last + 20 ) - 10;
+      assertEquals( getValue( t, 4 ), cursor.getValue( t ) );
+    }
+  }
+
+  /**
+   * Returns the masked value of the last sample at or before the given time.
+   */
+  private int getValue( final long aTime, final int aMask )
+  {
+    final long[] timestamps = this.data.getTimestamps();
+    int i = 0;
+    while ( ( ( i + 1 ) < timestamps.length ) && ( timestamps[i + 1] <= aTime ) )
+    {
+      i++;
+    }
+    return this.data.getValues()[i] & aMask;
+  }
+}
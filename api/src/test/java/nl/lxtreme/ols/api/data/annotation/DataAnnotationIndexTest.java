@@ -0,0 +1,336 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.annotation;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link DataAnnotationIndex}.
+ */
+public class DataAnnotationIndexTest
+{
+  // INNER TYPES
+
+  /**
+   * Provides a minimal data annotation.
+   */
+  static final class TestAnnotation implements DataAnnotation<String>
+  {
+    // VARIABLES
+
+    private final long start;
+    private final long end;
+
+    // CONSTRUCTORS
+
+    TestAnnotation( final long aStart, final long aEnd )
+    {
+      this.start = aStart;
+      this.end = aEnd;
+    }
+
+    // METHODS
+
+    @Override
+    public int compareTo( final Annotation<String> aOther )
+    {
+      return 0;
+    }
+
+    @Override
+    public String getAnnotation()
+    {
+      return this.start + "-" + this.end;
+    }
+
+    @Override
+    public int getChannel()
+    {
+      return 0;
+    }
+
+    @Override
+    public long getEndTimestamp()
+    {
+      return this.end;
+    }
+
+    @Override
+    public long getStartTimestamp()
+    {
+      return this.start;
+    }
+  }
+
+  // VARIABLES
+
+  private List<TestAnnotation> annotations;
+  private DataAnnotationIndex index;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.annotations = new ArrayList<TestAnnotation>();
+    this.index = new DataAnnotationIndex();
+
+    final Random rnd = new Random( 7L );
+
+    // Two interleaved "decoders", one of them with long annotations...
+    long time1 = 0L, time2 = 0L;
+    for ( int i = 0; i < 5000; i++ )
+    {
+      final TestAnnotation ann;
+      if ( rnd.nextInt( 10 ) == 0 )
+      {
+        ann = new TestAnnotation( time2, time2 + rnd.nextInt( 2000 ) );
+        time2 += 1 + rnd.nextInt( 3000 );
+      }
+      else
+      {
+        ann = new TestAnnotation( time1, time1 + rnd.nextInt( 20 ) );
+        time1 += 1 + rnd.nextInt( 30 );
+      }
+
+      this.annotations.add( ann );
+      this.index.add( ann );
+    }
+  }
+
+  /**
+   * Tests that adding annotations in bulk yields the same index as adding them
+   * one by one.
+   */
+  @Test
+  public void testAddAll()
+  {
+    final DataAnnotationIndex bulkIndex = new DataAnnotationIndex();
+    for ( int i = 0; i < this.annotations.size(); i += 100 )
+    {
+      bulkIndex.addAll( this.annotations.subList( i, Math.min( i + 100, this.annotations.size() ) ) );
+    }
+
+    assertEquals( this.index.size(), bulkIndex.size() );
+    assertEquals( this.index.getAnnotations(), bulkIndex.getAnnotations() );
+  }
+
+  /**
+   * Tests that clearing the index removes all annotations.
+   */
+  @Test
+  public void testClear()
+  {
+    assertEquals( this.annotations.size(), this.index.size() );
+
+    this.index.clear();
+
+    assertTrue( this.index.isEmpty() );
+    assertNull( this.index.getAnnotationAfter( 0L ) );
+    assertTrue( this.index.getAnnotations( 0L, Long.MAX_VALUE ).isEmpty() );
+  }
+
+  /**
+   * Tests the counting of annotations against a linear search.
+   */
+  @Test
+  public void testCountAnnotations()
+  {
+    final Random rnd = new Random( 7L );
+
+    for ( int i = 0; i < 500; i++ )
+    {
+      final long start = rnd.nextInt( 80000 );
+      final long end = start + rnd.nextInt( 500 );
+
+      int expected = 0;
+      for ( TestAnnotation ann : this.annotations )
+      {
+        if ( ( ann.start >= start ) && ( ann.start < end ) )
+        {
+          expected++;
+        }
+      }
+
+      assertEquals( expected, this.index.countAnnotations( start, end ) );
+    }
+
+    assertEquals( this.annotations.size(), this.index.countAnnotations( Long.MIN_VALUE, Long.MAX_VALUE ) );
+    assertEquals( 0, this.index.countAnnotations( 100L, 100L ) );
+  }
+
+  /**
+   * Tests the neighbour queries against a linear search.
+   */
+  @Test
+  public void testGetAnnotationAfterAndBefore()
+  {
+    for ( long time = -10L; time < 80000L; time += 7L )
+    {
+      TestAnnotation after = null, before = null;
+      for ( TestAnnotation ann : this.annotations )
+      {
+        if ( ( ann.start >= time ) && ( ann.end >= time ) && ( ( after == null ) || ( ann.start < after.start ) ) )
+        {
+          after = ann;
+        }
+        if ( ( ann.start < time ) && ( ann.end < time ) && ( ( before == null ) || ( ann.start > before.start ) ) )
+        {
+          before = ann;
+        }
+      }
+
+      assertStartEquals( after, this.index.getAnnotationAfter( time ) );
+      assertStartEquals( before, this.index.getAnnotationBefore( time ) );
+    }
+  }
+
+  /**
+   * Tests the range and point queries against a linear search.
+   */
+  @Test
+  public void testGetAnnotationsInRange()
+  {
+    final Random rnd = new Random( 11L );
+
+    for ( int i = 0; i < 500; i++ )
+    {
+      final long start = rnd.nextInt( 80000 );
+      final long end = start + rnd.nextInt( 500 );
+
+      final Set<TestAnnotation> expected = new HashSet<TestAnnotation>();
+      for ( TestAnnotation ann : this.annotations )
+      {
+        if ( ( ann.start <= end ) && ( ann.end >= start ) )
+        {
+          expected.add( ann );
+        }
+      }
+
+      final List<DataAnnotation<?>> actual = this.index.getAnnotations( start, end );
+      assertEquals( expected.size(), actual.size() );
+      assertTrue( expected.containsAll( actual ) );
+
+      for ( int j = 1; j < actual.size(); j++ )
+      {
+        assertTrue( actual.get( j - 1 ).getStartTimestamp() <= actual.get( j ).getStartTimestamp() );
+      }
+
+      final DataAnnotation<?> covering = this.index.getAnnotation( start );
+      if ( covering == null )
+      {
+        assertTrue( this.index.getAnnotations( start, start ).isEmpty() );
+      }
+      else
+      {
+        assertTrue( ( covering.getStartTimestamp() <= start ) && ( covering.getEndTimestamp() >= start ) );
+      }
+    }
+  }
+
+  /**
+   * Tests that the modification count changes on each change of the index,
+   * and only then.
+   */
+  @Test
+  public void testModificationCount()
+  {
+    final int count = this.index.getModificationCount();
+
+    this.index.getAnnotations( 0L, Long.MAX_VALUE );
+    this.index.countAnnotations( 0L, 1000L );
+    assertEquals( count, this.index.getModificationCount() );
+
+    // an out-of-order annotation is merged by the next query...
+    this.index.add( new TestAnnotation( 10L, 20L ) );
+    final int addedCount = this.index.getModificationCount();
+    assertTrue( addedCount != count );
+
+    this.index.getAnnotation( 15L );
+    assertEquals( addedCount, this.index.getModificationCount() );
+
+    this.index.clear();
+    assertTrue( this.index.getModificationCount() != addedCount );
+  }
+
+  /**
+   * Tests that a snapshot contains all annotations sorted on their start
+   * timestamp, and is not affected by later modifications of the index.
+   */
+  @Test
+  public void testSnapshotIsStable()
+  {
+    final List<DataAnnotation<?>> snapshot = this.index.getAnnotations();
+    assertEquals( this.annotations.size(), snapshot.size() );
+    for ( int i = 1; i < snapshot.size(); i++ )
+    {
+      assertTrue( snapshot.get( i - 1 ).getStartTimestamp() <= snapshot.get( i ).getStartTimestamp() );
+    }
+
+    final DataAnnotation<?> last = snapshot.get( snapshot.size() - 1 );
+
+    // one appended, and one out-of-order annotation...
+    this.index.add( new TestAnnotation( Long.MAX_VALUE - 1L, Long.MAX_VALUE ) );
+    this.index.add( new TestAnnotation( 0L, 0L ) );
+    assertEquals( this.annotations.size() + 2, this.index.getAnnotations().size() );
+
+    this.index.clear();
+    assertTrue( this.index.getAnnotations().isEmpty() );
+
+    assertEquals( this.annotations.size(), snapshot.size() );
+    assertSame( last, snapshot.get( snapshot.size() - 1 ) );
+
+    try
+    {
+      snapshot.add( new TestAnnotation( 0L, 0L ) );
+      fail( "Snapshot should be immutable!" );
+    }
+    catch ( UnsupportedOperationException exception )
+    {
+      // Ok; expected...
+    }
+  }
+
+  /**
+   * Asserts that the given annotations have the same start timestamp.
+   */
+  private void assertStartEquals( final TestAnnotation aExpected, final DataAnnotation<?> aActual )
+  {
+    if ( aExpected == null )
+    {
+      assertNull( aActual );
+    }
+    else
+    {
+      assertNotNull( aActual );
+      assertEquals( aExpected.start, aActual.getStartTimestamp() );
+    }
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.annotation.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link DecodedDataIndex}.
+ */
+public class DecodedDataIndexTest
+{
+  // INNER TYPES
+
+  /**
+   * Provides a simple data annotation, optionally with a decoded value.
+   */
+  static class TestAnnotation implements ValueAnnotation<String>
+  {
+    // VARIABLES
+
+    private final int channel;
+    private final long start;
+    private final long end;
+    private final int value;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link TestAnnotation} instance.
+     */
+    TestAnnotation( final int aChannel, final long aStart, final long aEnd, final int aValue )
+    {
+      this.channel = aChannel;
+      this.start = aStart;
+      this.end = aEnd;
+      this.value = aValue;
+    }
+
+    // METHODS
+
+    @Override
+    public int compareTo( final Annotation<String> aOther )
+    {
+      return 0;
+    }
+
+    @Override
+    public String getAnnotation()
+    {
+      return String.valueOf( this.value );
+    }
+
+    @Override
+    public int getChannel()
+    {
+      return this.channel;
+    }
+
+    @Override
+    public long getEndTimestamp()
+    {
+      return this.end;
+    }
+
+    @Override
+    public long getStartTimestamp()
+    {
+      return this.start;
+    }
+
+    @Override
+    public int getValue()
+    {
+      return this.value;
+    }
+  }
+
+  /**
+   * Provides a simple data annotation without a decoded value.
+   */
+  static class TestEvent implements DataAnnotation<String>
+  {
+    // VARIABLES
+
+    private final int channel;
+    private final long timestamp;
+    private final String type;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link TestEvent} instance.
+     */
+    TestEvent( final int aChannel, final long aTimestamp, final String aType )
+    {
+      this.channel = aChannel;
+      this.timestamp = aTimestamp;
+      this.type = aType;
+    }
+
+    // METHODS
+
+    @Override
+    public int compareTo( final Annotation<String> aOther )
+    {
+      return 0;
+    }
+
+    @Override
+    public String getAnnotation()
+    {
+      return this.type;
+    }
+
+    @Override
+    public int getChannel()
+    {
+      return this.channel;
+    }
+
+    @Override
+    public long getEndTimestamp()
+    {
+      return this.timestamp;
+    }
+
+    @Override
+    public long getStartTimestamp()
+    {
+      return this.timestamp;
+    }
+  }
+
+  // VARIABLES
+
+  private int[] values;
+  private DecodedDataIndex index;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    final Random rnd = new Random( 7L );
+
+    final DecodedDataIndexBuilder builder = new DecodedDataIndexBuilder();
+
+    this.values = new int[5000];
+    for ( int i = 0; i < this.values.length; i++ )
+    {
+      this.values[i] = rnd.nextInt( 8 );
+      builder.add( new TestAnnotation( 1, 10L * i, ( 10L * i ) + 8L, this.values[i] ) );
+      if ( ( i % 100 ) == 0 )
+      {
+        builder.add( new TestEvent( 1, 10L * i, "START" ) );
+      }
+    }
+    // Added out of order on purpose...
+    builder.add( new TestAnnotation( 3, 200L, 208L, 0x7E ) );
+    builder.add( new TestAnnotation( 3, 100L, 108L, 0x3A ) );
+    builder.add( new TestEvent( 3, 50L, "START" ) );
+
+    this.index = builder.build();
+  }
+
+  /**
+   * Tests that events are found on their type.
+   */
+  @Test
+  public void testFindEvent()
+  {
+    assertEquals( 50, this.index.findEvent( 1, "START" ).size() );
+    assertEquals( 0, this.index.findEvent( 1, "STOP" ).size() );
+
+    final SearchResult result = this.index.findEvent( DecodedDataIndex.ANY_CHANNEL, "START" );
+    assertEquals( 51, result.size() );
+    assertEquals( 0L, result.getStartTimestamp( 0 ) );
+    assertEquals( 50L, result.getStartTimestamp( 1 ) );
+    assertEquals( 1000L, result.getStartTimestamp( 2 ) );
+
+    assertEquals( new TreeSet<String>( Arrays.asList( "START" ) ), this.index.getEventTypes( 3 ) );
+  }
+
+  /**
+   * Tests that sequences of values are found in consecutive frames only.
+   */
+  @Test
+  public void testFindSequence()
+  {
+    final int[][] sequences = { { 1, 2 }, { 3, 3, 3 }, { 7, 0, 7, 0 } };
+    for ( int[] sequence : sequences )
+    {
+      final List<Integer> expected = new ArrayList<Integer>();
+      for ( int i = 0; i + sequence.length <= this.values.length; i++ )
+      {
+        boolean match = true;
+        for ( int j = 0; match && ( j < sequence.length ); j++ )
+        {
+          match = ( this.values[i + j] == sequence[j] );
+        }
+        if ( match )
+        {
+          expected.add( Integer.valueOf( i ) );
+        }
+      }
+
+      final SearchResult result = this.index.findSequence( 1, sequence );
+      assertEquals( expected.size(), result.size() );
+      for ( int i = 0; i < result.size(); i++ )
+      {
+        final int frame = expected.get( i ).intValue();
+        assertEquals( 10L * frame, result.getStartTimestamp( i ) );
+        assertEquals( ( 10L * ( frame + sequence.length - 1 ) ) + 8L, result.getEndTimestamp( i ) );
+      }
+    }
+
+    assertTrue( this.index.findSequence( 3, 0x7E, 0x3A ).isEmpty() );
+    assertEquals( 1, this.index.findSequence( 3, 0x3A, 0x7E ).size() );
+  }
+
+  /**
+   * Tests that single values are found on each channel.
+   */
+  @Test
+  public void testFindValue()
+  {
+    int count = 0;
+    for ( int value : this.values )
+    {
+      if ( value == 5 )
+      {
+        count++;
+      }
+    }
+
+    assertEquals( count, this.index.findValue( 1, 5 ).size() );
+    assertEquals( 0, this.index.findValue( 2, 5 ).size() );
+
+    final SearchResult result = this.index.findValue( DecodedDataIndex.ANY_CHANNEL, 0x3A );
+    assertEquals( 1, result.size() );
+    assertEquals( 100L, result.getStartTimestamp( 0 ) );
+    assertEquals( 108L, result.getEndTimestamp( 0 ) );
+
+    assertEquals( this.values.length, this.index.getFrameCount( 1 ) );
+  }
+}
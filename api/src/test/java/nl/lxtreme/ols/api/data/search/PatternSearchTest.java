@@ -0,0 +1,178 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link PatternSearch}.
+ */
+public class PatternSearchTest
+{
+  // VARIABLES
+
+  private CapturedData data;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    final Random rnd = new Random( 5L );
+
+    final int[] values = new int[20000];
+    final long[] timestamps = new long[values.length];
+    for ( int i = 1; i < values.length; i++ )
+    {
+      values[i] = values[i - 1] ^ ( 1 << rnd.nextInt( 4 ) );
+      timestamps[i] = timestamps[i - 1] + 1 + rnd.nextInt( 5 );
+    }
+
+    this.data = new CapturedData( values, timestamps, -1L, 100, 4, 0x0F, timestamps[timestamps.length - 1] + 1 );
+  }
+
+  /**
+   * Tests that stepping through the hits works.
+   */
+  @Test
+  public void testHitAfterAndBefore() throws Exception
+  {
+    final SearchResult result = new PatternSearch( this.data ).search( new SearchPattern( 0x03, 0x01 ) );
+    assertFalse( result.isEmpty() );
+
+    final long first = result.getStartTimestamp( 0 );
+    assertEquals( 0, result.getHitAfter( first - 1L ) );
+    assertEquals( 1, result.getHitAfter( first ) );
+    assertEquals( -1, result.getHitBefore( first ) );
+    assertEquals( 0, result.getHitBefore( first + 1L ) );
+
+    final int last = result.size() - 1;
+    assertEquals( -1, result.getHitAfter( result.getStartTimestamp( last ) ) );
+    assertEquals( last, result.getHitBefore( Long.MAX_VALUE ) );
+  }
+
+  /**
+   * Tests that a single state is found each time it is entered.
+   */
+  @Test
+  public void testSearchSingleState() throws Exception
+  {
+    assertSearch( new SearchPattern( 0x05, 0x04 ) );
+    assertSearch( new SearchPattern( 0x0F, 0x0A ) );
+    assertSearch( new SearchPattern( 0x00, 0x00 ) );
+  }
+
+  /**
+   * Tests that sequences of states are found, with and without a maximum
+   * duration.
+   */
+  @Test
+  public void testSearchSequence() throws Exception
+  {
+    assertSearch( new SearchPattern( 0x03, 0x03 ).followedBy( 0x0C, 0x00 ) );
+    assertSearch( new SearchPattern( 0x0F, 0x01 ).followedBy( 0x0F, 0x02 ).followedBy( 0x0F, 0x03 ) );
+    assertSearch( new SearchPattern( 0x0F, 0x01 ).followedBy( 0x0F, 0x02 ).within( 40L ) );
+    assertSearch( new SearchPattern( 0x0F, 0x05 ).followedBy( 0x0F, 0x0A ).within( 0L ) );
+  }
+
+  /**
+   * Tests that a value outside the mask is rejected.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testValueOutsideMaskFails()
+  {
+    new SearchPattern( 0x01, 0x02 );
+  }
+
+  /**
+   * Asserts that searching for the given pattern yields the same hits as a
+   * plain linear search, both in one and in multiple chunks.
+   */
+  private void assertSearch( final SearchPattern aPattern ) throws Exception
+  {
+    final int[] values = this.data.getValues();
+    final long[] timestamps = this.data.getTimestamps();
+
+    final List<Integer> expected = new ArrayList<Integer>();
+    for ( int i = 0; i < values.length; i++ )
+    {
+      if ( !isEntered( aPattern, 0, values, i ) )
+      {
+        continue;
+      }
+
+      int pos = i;
+      for ( int s = 1; ( pos >= 0 ) && ( s < aPattern.getStateCount() ); s++ )
+      {
+        int next = -1;
+        for ( int j = pos + 1; ( next < 0 ) && ( j < values.length ); j++ )
+        {
+          if ( isEntered( aPattern, s, values, j ) )
+          {
+            next = j;
+          }
+        }
+        pos = next;
+      }
+
+      if ( ( pos >= 0 )
+          && ( ( aPattern.getMaxDuration() < 0L ) || ( ( timestamps[pos] - timestamps[i] ) <= aPattern
+              .getMaxDuration() ) ) )
+      {
+        expected.add( Integer.valueOf( i ) );
+      }
+    }
+
+    for ( PatternSearch search : new PatternSearch[] { new PatternSearch( this.data ),
+        new PatternSearch( this.data, 640 ) } )
+    {
+      final SearchResult result = search.search( aPattern );
+
+      assertEquals( aPattern.toString(), expected.size(), result.size() );
+      for ( int i = 0; i < result.size(); i++ )
+      {
+        final int sampleIdx = expected.get( i ).intValue();
+        assertEquals( timestamps[sampleIdx], result.getStartTimestamp( i ) );
+        assertTrue( result.getEndTimestamp( i ) >= result.getStartTimestamp( i ) );
+      }
+    }
+  }
+
+  /**
+   * Returns whether the given state is entered at the given sample index.
+   */
+  private boolean isEntered( final SearchPattern aPattern, final int aState, final int[] aValues, final int aIdx )
+  {
+    return aPattern.matches( aState, aValues[aIdx] )
+        && ( ( aIdx == 0 ) || !aPattern.matches( aState, aValues[aIdx - 1] ) );
+  }
+}
@@ -0,0 +1,376 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.batch;
+
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Provides the configuration of a batch run, as read from a properties file.
+ * <p>
+ * The properties file lists the tools to run and the settings of their tool
+ * tasks, for example:
+ * </p>
+ * 
+ * <pre>
+ * tools = i2c
+ * export.vcd = true
+ * export.png = true
+ * 
+ * i2c.tool = nl.lxtreme.ols.tool.i2c.I2CAnalyser
+ * i2c.lineAIndex = 0
+ * i2c.lineBIndex = 1
+ * i2c.reportACK = true
+ * </pre>
+ * <p>
+ * Each setting of a tool is applied to its tool task by calling the setter
+ * with the same name, such as <tt>setLineAIndex(int)</tt> in the example
+ * above. Integer, long, boolean, string and enum-typed setters are supported.
+ * The <tt>export.vcd</tt> and <tt>export.png</tt> settings write the captured
+ * data itself as value change dump and as image of its entire time line.
+ * </p>
+ */
+public final class BatchConfiguration
+{
+  // INNER TYPES
+
+  /**
+   * Provides the configuration of a single tool.
+   */
+  public static final class ToolConfiguration
+  {
+    // VARIABLES
+
+    private final String id;
+    private final Tool<?> tool;
+    private final Map<String, String> settings;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new ToolConfiguration instance.
+     * 
+     * @param aId
+     *          the identifier of the tool, cannot be <code>null</code>;
+     * @param aTool
+     *          the tool to run, cannot be <code>null</code>;
+     * @param aSettings
+     *          the settings to apply to the tool task, cannot be
+     *          <code>null</code>.
+     */
+    ToolConfiguration( final String aId, final Tool<?> aTool, final Map<String, String> aSettings )
+    {
+      this.id = aId;
+      this.tool = aTool;
+      this.settings = aSettings;
+    }
+
+    // METHODS
+
+    /**
+     * Creates a new tool task with all settings of this configuration applied.
+     * 
+     * @param aContext
+     *          the tool context to create the task for, cannot be
+     *          <code>null</code>;
+     * @param aProgressListener
+     *          the progress listener to use, cannot be <code>null</code>;
+     * @param aAnnotationListener
+     *          the annotation listener to use, cannot be <code>null</code>.
+     * @return a new, configured, tool task, never <code>null</code>.
+     * @throws IllegalArgumentException
+     *           in case a setting could not be applied to the tool task.
+     */
+    public ToolTask<?> createToolTask( final ToolContext aContext, final ToolProgressListener aProgressListener,
+        final AnnotationListener aAnnotationListener )
+    {
+      final ToolTask<?> task = this.tool.createToolTask( aContext, aProgressListener, aAnnotationListener );
+      for ( Map.Entry<String, String> entry : this.settings.entrySet() )
+      {
+        applySetting( task, entry.getKey(), entry.getValue() );
+      }
+      return task;
+    }
+
+    /**
+     * Returns the identifier of this tool.
+     * 
+     * @return an identifier, never <code>null</code>.
+     */
+    public String getId()
+    {
+      return this.id;
+    }
+
+    /**
+     * Calls the setter for the given setting on the given task.
+     */
+    private void applySetting( final Object aTask, final String aName, final String aValue )
+    {
+      final String setterName = "set" + aName;
+
+      for ( Method method : aTask.getClass().getMethods() )
+      {
+        if ( !setterName.equalsIgnoreCase( method.getName() ) || ( method.getParameterTypes().length != 1 )
+            || Modifier.isStatic( method.getModifiers() ) )
+        {
+          continue;
+        }
+
+        final Object value = convert( method.getParameterTypes()[0], aValue );
+        if ( value == null )
+        {
+          continue;
+        }
+
+        try
+        {
+          method.invoke( aTask, value );
+          return;
+        }
+        catch ( IllegalAccessException exception )
+        {
+          throw new IllegalArgumentException( "Cannot apply setting " + this.id + "." + aName + "!", exception );
+        }
+        catch ( InvocationTargetException exception )
+        {
+          throw new IllegalArgumentException( "Cannot apply setting " + this.id + "." + aName + "!",
+              exception.getCause() );
+        }
+      }
+
+      throw new IllegalArgumentException( "Unknown or invalid setting " + this.id + "." + aName + " = " + aValue
+          + " for " + aTask.getClass().getName() + "!" );
+    }
+  }
+
+  // CONSTANTS
+
+  private static final String KEY_TOOLS = "tools";
+  private static final String KEY_TOOL_CLASS = "tool";
+  private static final String KEY_EXPORT_VCD = "export.vcd";
+  private static final String KEY_EXPORT_PNG = "export.png";
+
+  // VARIABLES
+
+  private final List<ToolConfiguration> tools;
+  private final boolean exportCapture;
+  private final boolean exportImage;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new BatchConfiguration instance.
+   * 
+   * @param aProperties
+   *          the properties to create the configuration from, cannot be
+   *          <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the given properties do not denote a valid
+   *           configuration.
+   */
+  public BatchConfiguration( final Properties aProperties )
+  {
+    this.tools = new ArrayList<ToolConfiguration>();
+    this.exportCapture = Boolean.parseBoolean( aProperties.getProperty( KEY_EXPORT_VCD, "false" ).trim() );
+    this.exportImage = Boolean.parseBoolean( aProperties.getProperty( KEY_EXPORT_PNG, "false" ).trim() );
+
+    for ( String id : aProperties.getProperty( KEY_TOOLS, "" ).split( "," ) )
+    {
+      id = id.trim();
+      if ( "".equals( id ) )
+      {
+        continue;
+      }
+
+      final String className = aProperties.getProperty( id + "." + KEY_TOOL_CLASS );
+      if ( className == null )
+      {
+        throw new IllegalArgumentException( "No tool class defined for " + id + "!" );
+      }
+
+      final Map<String, String> settings = new TreeMap<String, String>();
+      final String prefix = id + ".";
+      for ( String name : aProperties.stringPropertyNames() )
+      {
+        if ( name.startsWith( prefix ) && !name.equals( prefix + KEY_TOOL_CLASS ) )
+        {
+          settings.put( name.substring( prefix.length() ), aProperties.getProperty( name ).trim() );
+        }
+      }
+
+      this.tools.add( new ToolConfiguration( id, createTool( className.trim() ), settings ) );
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Reads the batch configuration from the given file.
+   * 
+   * @param aFile
+   *          the properties file to read, cannot be <code>null</code>.
+   * @return the batch configuration, never <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems reading the given file.
+   */
+  public static BatchConfiguration read( final File aFile ) throws IOException
+  {
+    final Properties properties = new Properties();
+
+    final InputStream is = new FileInputStream( aFile );
+    try
+    {
+      properties.load( is );
+    }
+    finally
+    {
+      HostUtils.closeResource( is );
+    }
+
+    return new BatchConfiguration( properties );
+  }
+
+  /**
+   * Converts the given string value to the given type.
+   * 
+   * @return the converted value, or <code>null</code> if the value could not
+   *         be converted.
+   */
+  @SuppressWarnings( { "unchecked", "rawtypes" } )
+  static Object convert( final Class<?> aType, final String aValue )
+  {
+    try
+    {
+      if ( ( aType == Integer.TYPE ) || ( aType == Integer.class ) )
+      {
+        return Integer.decode( aValue );
+      }
+      else if ( ( aType == Long.TYPE ) || ( aType == Long.class ) )
+      {
+        return Long.decode( aValue );
+      }
+      else if ( ( aType == Boolean.TYPE ) || ( aType == Boolean.class ) )
+      {
+        // Boolean.valueOf would silently turn anything but "true" into false...
+        if ( "true".equalsIgnoreCase( aValue ) || "false".equalsIgnoreCase( aValue ) )
+        {
+          return Boolean.valueOf( aValue );
+        }
+      }
+      else if ( aType == String.class )
+      {
+        return aValue;
+      }
+      else if ( aType.isEnum() )
+      {
+        for ( Object constant : aType.getEnumConstants() )
+        {
+          if ( ( ( Enum )constant ).name().equalsIgnoreCase( aValue ) )
+          {
+            return constant;
+          }
+        }
+      }
+    }
+    catch ( NumberFormatException exception )
+    {
+      // Ignore; not a valid number...
+    }
+    return null;
+  }
+
+  /**
+   * Instantiates the tool with the given class name.
+   */
+  private static Tool<?> createTool( final String aClassName )
+  {
+    final Class<?> type;
+    try
+    {
+      type = Class.forName( aClassName );
+    }
+    catch ( ClassNotFoundException exception )
+    {
+      throw new IllegalArgumentException( "Unknown tool " + aClassName + "!", exception );
+    }
+
+    if ( !Tool.class.isAssignableFrom( type ) )
+    {
+      throw new IllegalArgumentException( aClassName + " is not a tool!" );
+    }
+
+    try
+    {
+      return ( Tool<?> )type.getDeclaredConstructor().newInstance();
+    }
+    catch ( InvocationTargetException exception )
+    {
+      throw new IllegalArgumentException( "Cannot instantiate tool " + aClassName + "!", exception.getCause() );
+    }
+    catch ( Exception exception )
+    {
+      throw new IllegalArgumentException( "Cannot instantiate tool " + aClassName + "!", exception );
+    }
+  }
+
+  /**
+   * Returns the configurations of all tools to run.
+   * 
+   * @return a list of tool configurations, never <code>null</code>.
+   */
+  public List<ToolConfiguration> getTools()
+  {
+    return Collections.unmodifiableList( this.tools );
+  }
+
+  /**
+   * Returns whether the captured data itself should be exported as well.
+   * 
+   * @return <code>true</code> if the captured data should be written as value
+   *         change dump, <code>false</code> otherwise.
+   */
+  public boolean isExportCapture()
+  {
+    return this.exportCapture;
+  }
+
+  /**
+   * Returns whether the entire time line of the captured data should be
+   * exported as image.
+   * 
+   * @return <code>true</code> if the captured data should be written as PNG
+   *         image, <code>false</code> otherwise.
+   */
+  public boolean isExportImage()
+  {
+    return this.exportImage;
+  }
+}
+
+/* EOF */
@@ -0,0 +1,437 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.batch;
+
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.batch.BatchConfiguration.ToolConfiguration;
+import nl.lxtreme.ols.client.project.impl.*;
+import nl.lxtreme.ols.export.image.*;
+import nl.lxtreme.ols.export.vcd.*;
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Analyses a single project or data file with all configured tools.
+ * <p>
+ * Decoded data is written as CSV file, while tools that yield new acquisition
+ * results are written as value change dump, or as OLS data file in case of
+ * state data (such as yielded by the state analyser). The
+ * result of each tool is written to a file named after the input file and the
+ * identifier of the tool, for example <tt>capture-i2c.csv</tt>.
+ * </p>
+ */
+final class BatchJob implements Callable<Integer>
+{
+  // INNER TYPES
+
+  /**
+   * Provides a tool context for the decoding range of a data set.
+   */
+  static final class BatchToolContext implements ToolContext
+  {
+    // VARIABLES
+
+    private final DataSet dataSet;
+    private final int startSampleIdx;
+    private final int endSampleIdx;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new BatchToolContext instance.
+     * 
+     * @param aStartSampleIdx
+     *          the starting sample index;
+     * @param aEndSampleIdx
+     *          the ending sample index;
+     * @param aDataSet
+     *          the data set to analyse.
+     */
+    BatchToolContext( final int aStartSampleIdx, final int aEndSampleIdx, final DataSet aDataSet )
+    {
+      this.startSampleIdx = aStartSampleIdx;
+      this.endSampleIdx = aEndSampleIdx;
+      this.dataSet = aDataSet;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getChannels()
+    {
+      return getData().getChannels();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Cursor getCursor( final int aIndex )
+    {
+      return this.dataSet.getCursor( aIndex );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AcquisitionResult getData()
+    {
+      return this.dataSet.getCapturedData();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getEnabledChannels()
+    {
+      return getData().getEnabledChannels();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getEndSampleIndex()
+    {
+      return this.endSampleIdx;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getLength()
+    {
+      return Math.max( 0, this.endSampleIdx - this.startSampleIdx );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getStartSampleIndex()
+    {
+      return this.startSampleIdx;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void gotoTimestamp( final long aTimestamp )
+    {
+      // Nothing to show...
+    }
+  }
+
+  /**
+   * Ignores all progress reports and annotations of a tool task.
+   */
+  static final class NullListener implements AnnotationListener, ToolProgressListener
+  {
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearAnnotations()
+    {
+      // NO-op
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearAnnotations( final int aChannelIdx )
+    {
+      // NO-op
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onAnnotation( final Annotation<?> aAnnotation )
+    {
+      // NO-op
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onAnnotations( final Collection<? extends Annotation<?>> aAnnotations )
+    {
+      // NO-op
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setProgress( final int aPercentage )
+    {
+      // NO-op
+    }
+  }
+
+  // CONSTANTS
+
+  private static final NullListener NULL_LISTENER = new NullListener();
+
+  // VARIABLES
+
+  private final File file;
+  private final File outputDir;
+  private final BatchConfiguration configuration;
+  private final DataSetCsvWriter csvWriter;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new BatchJob instance.
+   * 
+   * @param aFile
+   *          the project or data file to analyse, cannot be <code>null</code>;
+   * @param aOutputDir
+   *          the directory to write the results to, cannot be
+   *          <code>null</code>;
+   * @param aConfiguration
+   *          the batch configuration to use, cannot be <code>null</code>;
+   * @param aCsvWriter
+   *          the CSV writer to use, cannot be <code>null</code>.
+   */
+  public BatchJob( final File aFile, final File aOutputDir, final BatchConfiguration aConfiguration,
+      final DataSetCsvWriter aCsvWriter )
+  {
+    this.file = aFile;
+    this.outputDir = aOutputDir;
+    this.configuration = aConfiguration;
+    this.csvWriter = aCsvWriter;
+  }
+
+  // METHODS
+
+  /**
+   * Creates a tool context for the given data set, using the same decoding
+   * range as the client does: the range between the first two cursors, if
+   * enabled, or the entire data set otherwise.
+   * 
+   * @param aDataSet
+   *          the data set to create the tool context for, cannot be
+   *          <code>null</code>.
+   * @return a tool context, never <code>null</code>.
+   */
+  static ToolContext createToolContext( final DataSet aDataSet )
+  {
+    final AcquisitionResult capturedData = aDataSet.getCapturedData();
+    final int dataLength = capturedData.getValues().length;
+
+    int startOfDecode = -1;
+    int endOfDecode = -1;
+
+    if ( aDataSet.isCursorsEnabled() )
+    {
+      final Cursor cursor1 = aDataSet.getCursor( 0 );
+      if ( cursor1.isDefined() )
+      {
+        startOfDecode = capturedData.getSampleIndex( cursor1.getTimestamp() ) - 1;
+      }
+      final Cursor cursor2 = aDataSet.getCursor( 1 );
+      if ( cursor2.isDefined() )
+      {
+        endOfDecode = capturedData.getSampleIndex( cursor2.getTimestamp() ) + 1;
+      }
+    }
+    else
+    {
+      startOfDecode = 0;
+      endOfDecode = dataLength;
+    }
+
+    startOfDecode = Math.max( 0, startOfDecode );
+    if ( ( endOfDecode < 0 ) || ( endOfDecode >= dataLength ) )
+    {
+      endOfDecode = dataLength - 1;
+    }
+
+    return new BatchToolContext( startOfDecode, endOfDecode, aDataSet );
+  }
+
+  /**
+   * Analyses the file of this job with all configured tools.
+   * 
+   * @return the number of samples analysed, >= 0.
+   * @throws Exception
+   *           in case the file could not be read, or one of the tools failed.
+   */
+  @Override
+  public Integer call() throws Exception
+  {
+    final DataSet dataSet = readDataSet();
+    final AcquisitionResult capturedData = dataSet.getCapturedData();
+    if ( capturedData == null )
+    {
+      throw new IOException( "No captured data found in " + this.file + "!" );
+    }
+
+    final String baseName = HostUtils.stripFileExtension( this.file, "ols", "olp" );
+
+    if ( this.configuration.isExportCapture() )
+    {
+      writeValueChangeDump( new File( this.outputDir, baseName + ".vcd" ), dataSet );
+    }
+    if ( this.configuration.isExportImage() )
+    {
+      writeImage( new File( this.outputDir, baseName + ".png" ), dataSet );
+    }
+
+    final ToolContext context = createToolContext( dataSet );
+    for ( ToolConfiguration tool : this.configuration.getTools() )
+    {
+      final Object result = tool.createToolTask( context, NULL_LISTENER, NULL_LISTENER ).call();
+
+      final String name = baseName + "-" + tool.getId();
+      if ( result instanceof BaseDataSet<?> )
+      {
+        this.csvWriter.write( new File( this.outputDir, name + ".csv" ), ( BaseDataSet<?> )result );
+      }
+      else if ( result instanceof AcquisitionResult )
+      {
+        final AcquisitionResult acquisitionResult = ( AcquisitionResult )result;
+        final DataSet resultDataSet = new DataSetImpl( acquisitionResult, dataSet, false /* aRetainAnnotations */);
+        if ( acquisitionResult.getSampleRate() == Ols.NOT_AVAILABLE )
+        {
+          // State data cannot be written as value change dump...
+          writeDataFile( new File( this.outputDir, name + ".ols" ), resultDataSet );
+        }
+        else
+        {
+          writeValueChangeDump( new File( this.outputDir, name + ".vcd" ), resultDataSet );
+        }
+      }
+    }
+
+    return Integer.valueOf( capturedData.getValues().length );
+  }
+
+  /**
+   * Returns the file analysed by this job.
+   * 
+   * @return a file, never <code>null</code>.
+   */
+  public File getFile()
+  {
+    return this.file;
+  }
+
+  /**
+   * Reads the data set from the file of this job, which is either a project
+   * or a data file.
+   */
+  private DataSet readDataSet() throws IOException
+  {
+    if ( "olp".equals( HostUtils.getFileExtension( this.file ) ) )
+    {
+      final InputStream is = new FileInputStream( this.file );
+      try
+      {
+        final ProjectManagerImpl projectManager = new ProjectManagerImpl();
+        projectManager.loadProject( is );
+        return projectManager.getCurrentProject().getDataSet();
+      }
+      finally
+      {
+        HostUtils.closeResource( is );
+      }
+    }
+
+    return OlsDataHelper.read( this.file );
+  }
+
+  /**
+   * Writes the given data set as OLS data file to the given file.
+   */
+  private void writeDataFile( final File aFile, final DataSet aDataSet ) throws IOException
+  {
+    final Writer writer = new BufferedWriter( new FileWriter( aFile ) );
+    try
+    {
+      OlsDataHelper.write( aDataSet, writer );
+    }
+    finally
+    {
+      HostUtils.closeResource( writer );
+    }
+  }
+
+  /**
+   * Writes the entire time line of the given data set as image to the given
+   * file.
+   */
+  private void writeImage( final File aFile, final DataSet aDataSet ) throws IOException
+  {
+    final OutputStream os = new BufferedOutputStream( new FileOutputStream( aFile ) );
+    try
+    {
+      // Without a component, the image is rendered directly from the data...
+      new ImageExporter().export( aDataSet, null /* aComponent */, os );
+    }
+    finally
+    {
+      HostUtils.closeResource( os );
+    }
+  }
+
+  /**
+   * Writes the given data set as value change dump to the given file.
+   */
+  private void writeValueChangeDump( final File aFile, final DataSet aDataSet ) throws IOException
+  {
+    final OutputStream os = new BufferedOutputStream( new FileOutputStream( aFile ) );
+    try
+    {
+      new ValueChangeDumpExporter().export( aDataSet, null /* aComponent */, os );
+    }
+    finally
+    {
+      HostUtils.closeResource( os );
+    }
+  }
+}
+
+/* EOF */
@@ -0,0 +1,310 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.batch;
+
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Provides a main entry point for analysing many project and data files from
+ * the command line, without any user interface.
+ * <p>
+ * Usage:
+ * </p>
+ * 
+ * <pre>
+ * BatchRunner -config=tools.properties [-outputDir=dir] [-threads=n] file-or-dir...
+ * </pre>
+ * <p>
+ * All given files, and all <tt>.ols</tt> and <tt>.olp</tt> files in the given
+ * directories, are analysed in parallel by the tools listed in the
+ * configuration file. See {@link BatchConfiguration} for its format.
+ * </p>
+ */
+public final class BatchRunner
+{
+  // INNER CLASSES
+
+  static class CmdLineOptions
+  {
+    // VARIABLES
+
+    final File configFile;
+    final File outputDir;
+    final int threads;
+    final List<File> inputs;
+
+    // CONSTRUCTORS
+
+    public CmdLineOptions( final String... aCmdLineArgs ) throws IOException
+    {
+      String _configFile = null;
+      String _outputDir = null;
+      int _threads = Runtime.getRuntime().availableProcessors();
+      Set<File> _inputs = new LinkedHashSet<File>();
+
+      for ( String cmdLineArg : aCmdLineArgs )
+      {
+        if ( cmdLineArg.startsWith( "-config=" ) )
+        {
+          _configFile = cmdLineArg.substring( 8 );
+        }
+        else if ( cmdLineArg.startsWith( "-outputDir=" ) )
+        {
+          _outputDir = cmdLineArg.substring( 11 );
+        }
+        else if ( cmdLineArg.startsWith( "-threads=" ) )
+        {
+          _threads = Integer.parseInt( cmdLineArg.substring( 9 ) );
+        }
+        else if ( cmdLineArg.startsWith( "-" ) )
+        {
+          throw new IllegalArgumentException( String.format( "Unknown option (%s)!", cmdLineArg ) );
+        }
+        else
+        {
+          addInputs( _inputs, new File( cmdLineArg ).getCanonicalFile() );
+        }
+      }
+
+      if ( _configFile == null )
+      {
+        throw new IllegalArgumentException( "No configuration file given!" );
+      }
+      if ( _threads < 1 )
+      {
+        throw new IllegalArgumentException( "Invalid number of threads, should be at least 1!" );
+      }
+      if ( _inputs.isEmpty() )
+      {
+        throw new IllegalArgumentException( "No input files given!" );
+      }
+
+      this.configFile = new File( _configFile ).getCanonicalFile();
+      if ( !this.configFile.isFile() )
+      {
+        throw new IllegalArgumentException( String.format( "Invalid configuration file (%s)!", this.configFile ) );
+      }
+
+      if ( _outputDir == null )
+      {
+        this.outputDir = null;
+      }
+      else
+      {
+        this.outputDir = new File( _outputDir ).getCanonicalFile();
+        if ( !this.outputDir.exists() && !this.outputDir.mkdirs() )
+        {
+          throw new IllegalArgumentException( String.format(
+              "Invalid output directory (%s): cannot create directory!", this.outputDir ) );
+        }
+      }
+
+      this.threads = _threads;
+      this.inputs = new ArrayList<File>( _inputs );
+
+      // Inputs with the same base name would write the same result files
+      // concurrently, so refuse them up front...
+      final Map<File, File> outputs = new HashMap<File, File>();
+      for ( File input : this.inputs )
+      {
+        final File output = new File( getOutputDir( input ), HostUtils.stripFileExtension( input, "ols", "olp" ) );
+        final File clash = outputs.put( output, input );
+        if ( clash != null )
+        {
+          throw new IllegalArgumentException( String.format(
+              "Input files %s and %s would overwrite each other's results in %s!", clash, input,
+              getOutputDir( input ) ) );
+        }
+      }
+    }
+
+    // METHODS
+
+    /**
+     * Adds the given file, or all project and data files in the given
+     * directory, to the given list of inputs.
+     */
+    private static void addInputs( final Set<File> aInputs, final File aFile )
+    {
+      if ( !aFile.isDirectory() )
+      {
+        if ( !aFile.isFile() )
+        {
+          throw new IllegalArgumentException( String.format( "Invalid input file (%s)!", aFile ) );
+        }
+        aInputs.add( aFile );
+        return;
+      }
+
+      final File[] files = aFile.listFiles( new FilenameFilter()
+      {
+        @Override
+        public boolean accept( final File aDir, final String aName )
+        {
+          final String name = aName.toLowerCase();
+          return name.endsWith( ".ols" ) || name.endsWith( ".olp" );
+        }
+      } );
+      if ( files != null )
+      {
+        Arrays.sort( files );
+        aInputs.addAll( Arrays.asList( files ) );
+      }
+    }
+
+    /**
+     * Returns the directory to write the results of the given input file to.
+     * 
+     * @param aInput
+     *          the input file, cannot be <code>null</code>.
+     * @return the output directory, never <code>null</code>.
+     */
+    File getOutputDir( final File aInput )
+    {
+      return ( this.outputDir != null ) ? this.outputDir : aInput.getParentFile();
+    }
+  }
+
+  // VARIABLES
+
+  private final CmdLineOptions options;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link BatchRunner} instance.
+   */
+  public BatchRunner( final CmdLineOptions aOptions )
+  {
+    this.options = aOptions;
+  }
+
+  // METHODS
+
+  /**
+   * MAIN ENTRY POINT
+   * 
+   * @param aArgs
+   *          the command line arguments, cannot be <code>null</code>.
+   */
+  public static void main( final String[] aArgs ) throws Exception
+  {
+    // Make sure nothing accidentally tries to open a window...
+    System.setProperty( "java.awt.headless", "true" );
+
+    System.exit( execute( aArgs ) );
+  }
+
+  /**
+   * Runs the batch as given by the command line arguments.
+   * 
+   * @param aArgs
+   *          the command line arguments, cannot be <code>null</code>.
+   * @return the exit code: 0 if all files were analysed, 1 if one or more files
+   *         could not be analysed, or 2 in case of invalid arguments.
+   */
+  static int execute( final String... aArgs ) throws IOException, InterruptedException
+  {
+    final int failures;
+    try
+    {
+      final BatchRunner runner = new BatchRunner( new CmdLineOptions( aArgs ) );
+      failures = runner.run();
+    }
+    catch ( IllegalArgumentException exception )
+    {
+      System.err.println( exception.getMessage() );
+      if ( exception.getCause() != null )
+      {
+        System.err.println( "  caused by: " + exception.getCause() );
+      }
+      System.err.println( "Usage: BatchRunner -config=<file> [-outputDir=<dir>] [-threads=<n>] <file or dir>..." );
+      return 2;
+    }
+
+    return ( failures > 0 ) ? 1 : 0;
+  }
+
+  /**
+   * Analyses all input files and reports the throughput.
+   * 
+   * @return the number of files that could not be analysed, >= 0.
+   */
+  public int run() throws IOException, InterruptedException
+  {
+    final BatchConfiguration configuration = BatchConfiguration.read( this.options.configFile );
+    final DataSetCsvWriter csvWriter = new DataSetCsvWriter();
+
+    final ExecutorService executor = Executors.newFixedThreadPool( this.options.threads );
+    final Map<BatchJob, Future<Integer>> futures = new LinkedHashMap<BatchJob, Future<Integer>>();
+
+    final long startTime = System.nanoTime();
+    try
+    {
+      for ( File input : this.options.inputs )
+      {
+        final BatchJob job = new BatchJob( input, this.options.getOutputDir( input ), configuration, csvWriter );
+        futures.put( job, executor.submit( job ) );
+      }
+
+      int failures = 0;
+      long samples = 0L;
+      long bytes = 0L;
+      for ( Map.Entry<BatchJob, Future<Integer>> entry : futures.entrySet() )
+      {
+        final File file = entry.getKey().getFile();
+        try
+        {
+          samples += entry.getValue().get().intValue();
+          bytes += file.length();
+        }
+        catch ( ExecutionException exception )
+        {
+          failures++;
+          System.err.printf( "Failed to analyse %s: %s%n", file, exception.getCause() );
+        }
+      }
+
+      final double seconds = Math.max( 1.0e-3, ( System.nanoTime() - startTime ) / 1.0e9 );
+      final int processed = futures.size() - failures;
+
+      System.out.printf( "Analysed %d of %d files using %d threads in %.3f s%n", Integer.valueOf( processed ),
+          Integer.valueOf( futures.size() ), Integer.valueOf( this.options.threads ), Double.valueOf( seconds ) );
+      System.out.printf( "Throughput: %.1f files/s, %.1f Msamples/s, %.1f MB/s%n",
+          Double.valueOf( processed / seconds ), Double.valueOf( samples / seconds / 1.0e6 ),
+          Double.valueOf( bytes / seconds / ( 1024.0 * 1024.0 ) ) );
+
+      return failures;
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+}
+
+/* EOF */
@@ -0,0 +1,190 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.batch;
+
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.util.*;
+import nl.lxtreme.ols.util.*;
+import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
+
+
+/**
+ * Writes the decoded data of any tool to a CSV file.
+ * <p>
+ * Next to the common columns of {@link BaseData}, a column is written for
+ * each public getter that is declared by the data type of the decoded data,
+ * such as <tt>getValue()</tt> for I2C data.
+ * </p>
+ */
+final class DataSetCsvWriter
+{
+  // CONSTANTS
+
+  private static final String[] COMMON_HEADERS = { "index", "channel", "start-time", "end-time", "event?",
+      "event-type" };
+
+  // VARIABLES
+
+  private final Map<Class<?>, Method[]> gettersCache;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new DataSetCsvWriter instance.
+   */
+  public DataSetCsvWriter()
+  {
+    this.gettersCache = new HashMap<Class<?>, Method[]>();
+  }
+
+  // METHODS
+
+  /**
+   * Returns the name of the property of the given getter.
+   */
+  private static String getPropertyName( final Method aGetter )
+  {
+    final String name = aGetter.getName();
+    final int offset = name.startsWith( "is" ) ? 2 : 3;
+    return Character.toLowerCase( name.charAt( offset ) ) + name.substring( offset + 1 );
+  }
+
+  /**
+   * Returns the value of the given getter for the given data.
+   */
+  private static Object getValue( final Method aGetter, final BaseData<?> aData )
+  {
+    try
+    {
+      return aGetter.invoke( aData );
+    }
+    catch ( Exception exception )
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Returns whether the given method is a getter that is not already covered
+   * by the common columns.
+   */
+  private static boolean isDataGetter( final Method aMethod, final Set<String> aCommonNames )
+  {
+    final String name = aMethod.getName();
+    if ( Modifier.isStatic( aMethod.getModifiers() ) || ( aMethod.getParameterTypes().length != 0 )
+        || ( aMethod.getReturnType() == Void.TYPE ) || aCommonNames.contains( name ) )
+    {
+      return false;
+    }
+    return ( name.startsWith( "get" ) && ( name.length() > 3 ) )
+        || ( name.startsWith( "is" ) && ( name.length() > 2 ) && ( aMethod.getReturnType() == Boolean.TYPE ) );
+  }
+
+  /**
+   * Writes the given data set to the given file.
+   * 
+   * @param aFile
+   *          the file to write, cannot be <code>null</code>;
+   * @param aDataSet
+   *          the data set to write, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public void write( final File aFile, final BaseDataSet<?> aDataSet ) throws IOException
+  {
+    final List<? extends BaseData<?>> data = aDataSet.getData();
+    final Method[] getters = data.isEmpty() ? new Method[0] : getGetters( data.get( 0 ).getClass() );
+
+    final String[] headers = Arrays.copyOf( COMMON_HEADERS, COMMON_HEADERS.length + getters.length );
+    for ( int i = 0; i < getters.length; i++ )
+    {
+      headers[COMMON_HEADERS.length + i] = getPropertyName( getters[i] );
+    }
+
+    final CsvExporter exporter = ExportUtils.createCsvExporter( aFile );
+    try
+    {
+      exporter.setHeaders( headers );
+
+      final Object[] row = new Object[headers.length];
+      for ( int i = 0, size = data.size(); i < size; i++ )
+      {
+        final BaseData<?> ds = data.get( i );
+
+        row[0] = Integer.valueOf( i );
+        row[1] = Integer.valueOf( ds.getChannelIdx() );
+        row[2] = Unit.Time.format( aDataSet.getTime( ds.getStartSampleIndex() ) );
+        row[3] = Unit.Time.format( aDataSet.getTime( ds.getEndSampleIndex() ) );
+        row[4] = Boolean.valueOf( ds.isEvent() );
+        row[5] = ds.getEventName();
+        for ( int j = 0; j < getters.length; j++ )
+        {
+          row[COMMON_HEADERS.length + j] = getValue( getters[j], ds );
+        }
+
+        exporter.addRow( row );
+      }
+    }
+    finally
+    {
+      exporter.close();
+    }
+  }
+
+  /**
+   * Returns the data getters of the given data type, sorted by name.
+   */
+  private Method[] getGetters( final Class<?> aType )
+  {
+    synchronized ( this.gettersCache )
+    {
+      Method[] result = this.gettersCache.get( aType );
+      if ( result == null )
+      {
+        final Set<String> commonNames = new HashSet<String>();
+        for ( Method method : BaseData.class.getMethods() )
+        {
+          commonNames.add( method.getName() );
+        }
+
+        final SortedMap<String, Method> getters = new TreeMap<String, Method>();
+        for ( Method method : aType.getMethods() )
+        {
+          if ( isDataGetter( method, commonNames ) )
+          {
+            getters.put( method.getName(), method );
+          }
+        }
+
+        result = getters.values().toArray( new Method[getters.size()] );
+        this.gettersCache.put( aType, result );
+      }
+      return result;
+    }
+  }
+}
+
+/* EOF */
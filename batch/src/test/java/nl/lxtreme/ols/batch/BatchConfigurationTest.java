@@ -0,0 +1,229 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.batch;
+
+
+import static org.junit.Assert.*;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.batch.BatchConfiguration.ToolConfiguration;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link BatchConfiguration}.
+ */
+public class BatchConfigurationTest
+{
+  // INNER TYPES
+
+  public static enum Mode
+  {
+    FAST, SLOW;
+  }
+
+  /**
+   * Provides a minimal tool task with some settings.
+   */
+  public static final class TestTask implements ToolTask<Void>
+  {
+    // VARIABLES
+
+    int lineIndex = -1;
+    boolean enabled;
+    Mode mode;
+
+    // METHODS
+
+    @Override
+    public Void call() throws Exception
+    {
+      return null;
+    }
+
+    public void setEnabled( final boolean aEnabled )
+    {
+      this.enabled = aEnabled;
+    }
+
+    public void setLineIndex( final int aLineIndex )
+    {
+      this.lineIndex = aLineIndex;
+    }
+
+    public void setMode( final Mode aMode )
+    {
+      this.mode = aMode;
+    }
+  }
+
+  /**
+   * Provides a minimal tool creating {@link TestTask}s.
+   */
+  public static final class TestTool implements Tool<Void>
+  {
+    // METHODS
+
+    @Override
+    public ToolTask<Void> createToolTask( final ToolContext aContext, final ToolProgressListener aProgressListener,
+        final AnnotationListener aAnnotationListener )
+    {
+      return new TestTask();
+    }
+
+    @Override
+    public ToolCategory getCategory()
+    {
+      return ToolCategory.OTHER;
+    }
+
+    @Override
+    public String getName()
+    {
+      return "Test tool";
+    }
+
+    @Override
+    public void invoke( final Window aParent, final ToolContext aContext )
+    {
+      // NO-op
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Tests that all settings of a tool are applied to its tool task.
+   */
+  @Test
+  public void testCreateToolTaskAppliesSettings()
+  {
+    final Properties props = createProperties();
+    props.setProperty( "test.lineIndex", "0x3" );
+    props.setProperty( "test.enabled", "true" );
+    props.setProperty( "test.mode", "slow" );
+
+    final List<ToolConfiguration> tools = new BatchConfiguration( props ).getTools();
+    assertEquals( 1, tools.size() );
+    assertEquals( "test", tools.get( 0 ).getId() );
+
+    final TestTask task = ( TestTask )tools.get( 0 ).createToolTask( null, null, null );
+    assertEquals( 3, task.lineIndex );
+    assertTrue( task.enabled );
+    assertEquals( Mode.SLOW, task.mode );
+  }
+
+  /**
+   * Tests that the exports of the captured data are disabled by default, and
+   * can be enabled individually.
+   */
+  @Test
+  public void testExportSettings()
+  {
+    final Properties props = createProperties();
+    assertFalse( new BatchConfiguration( props ).isExportCapture() );
+    assertFalse( new BatchConfiguration( props ).isExportImage() );
+
+    props.setProperty( "export.png", "true" );
+    assertFalse( new BatchConfiguration( props ).isExportCapture() );
+    assertTrue( new BatchConfiguration( props ).isExportImage() );
+  }
+
+  /**
+   * Tests that a boolean setting only accepts "true" or "false".
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testInvalidBooleanSettingValueFails()
+  {
+    final Properties props = createProperties();
+    props.setProperty( "test.enabled", "yes" );
+
+    new BatchConfiguration( props ).getTools().get( 0 ).createToolTask( null, null, null );
+  }
+
+  /**
+   * Tests that an invalid value for a setting is reported.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testInvalidSettingValueFails()
+  {
+    final Properties props = createProperties();
+    props.setProperty( "test.mode", "medium" );
+
+    new BatchConfiguration( props ).getTools().get( 0 ).createToolTask( null, null, null );
+  }
+
+  /**
+   * Tests that a tool without tool class is reported.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testMissingToolClassFails()
+  {
+    final Properties props = new Properties();
+    props.setProperty( "tools", "test" );
+
+    new BatchConfiguration( props );
+  }
+
+  /**
+   * Tests that a tool class that does not implement {@link Tool} is reported.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testNonToolClassFails()
+  {
+    final Properties props = new Properties();
+    props.setProperty( "tools", "test" );
+    props.setProperty( "test.tool", TestTask.class.getName() );
+
+    new BatchConfiguration( props );
+  }
+
+  /**
+   * Tests that a setting without corresponding setter is reported.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testUnknownSettingFails()
+  {
+    final Properties props = createProperties();
+    props.setProperty( "test.speed", "1" );
+
+    new BatchConfiguration( props ).getTools().get( 0 ).createToolTask( null, null, null );
+  }
+
+  /**
+   * Creates the properties for a single test tool.
+   */
+  private Properties createProperties()
+  {
+    final Properties props = new Properties();
+    props.setProperty( "tools", "test" );
+    props.setProperty( "test.tool", TestTool.class.getName() );
+    return props;
+  }
+}
+
+/* EOF */
@@ -0,0 +1,410 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.batch;
+
+
+import static org.junit.Assert.*;
+
+import java.awt.*;
+import java.io.*;
+import java.util.*;
+import java.util.List;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.client.project.impl.*;
+import nl.lxtreme.ols.client.project.impl.OlsDataHelper;
+import nl.lxtreme.ols.test.data.*;
+import nl.lxtreme.ols.test.data.project.*;
+import nl.lxtreme.ols.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link BatchJob}.
+ */
+public class BatchJobTest
+{
+  // INNER TYPES
+
+  /**
+   * Provides a minimal decoded data item.
+   */
+  public static final class TestData extends BaseData<TestData>
+  {
+    // VARIABLES
+
+    private final int value;
+
+    // CONSTRUCTORS
+
+    public TestData( final int aIdx, final int aSampleIdx, final int aValue )
+    {
+      super( aIdx, 0, aSampleIdx, aSampleIdx + 1 );
+      this.value = aValue;
+    }
+
+    // METHODS
+
+    public int getValue()
+    {
+      return this.value;
+    }
+  }
+
+  /**
+   * Provides a minimal decoded data set.
+   */
+  public static final class TestDataSet extends BaseDataSet<TestData>
+  {
+    // CONSTRUCTORS
+
+    public TestDataSet( final ToolContext aContext )
+    {
+      super( aContext.getStartSampleIndex(), aContext.getEndSampleIndex(), aContext.getData() );
+
+      addData( new TestData( 0, aContext.getStartSampleIndex(), 0x12 ) );
+      addData( new TestData( 1, aContext.getEndSampleIndex() - 1, 0x34 ) );
+    }
+  }
+
+  /**
+   * Provides a tool task that yields decoded data, timing data or state data,
+   * or fails, depending on its result setting.
+   */
+  public static final class TestTask implements ToolTask<Object>
+  {
+    // VARIABLES
+
+    private final ToolContext context;
+    private String result = "data";
+
+    // CONSTRUCTORS
+
+    public TestTask( final ToolContext aContext )
+    {
+      this.context = aContext;
+    }
+
+    // METHODS
+
+    @Override
+    public Object call() throws Exception
+    {
+      final AcquisitionResult data = this.context.getData();
+      if ( "timing".equals( this.result ) )
+      {
+        return new CapturedData( data.getValues(), data.getTimestamps(), Ols.NOT_AVAILABLE, data.getSampleRate(),
+            data.getChannels(), data.getEnabledChannels(), data.getAbsoluteLength() );
+      }
+      else if ( "state".equals( this.result ) )
+      {
+        return new CapturedData( data.getValues(), Ols.NOT_AVAILABLE, Ols.NOT_AVAILABLE, data.getChannels(),
+            data.getEnabledChannels() );
+      }
+      else if ( "fail".equals( this.result ) )
+      {
+        throw new IllegalStateException( "Failing on purpose!" );
+      }
+      return new TestDataSet( this.context );
+    }
+
+    public void setResult( final String aResult )
+    {
+      this.result = aResult;
+    }
+  }
+
+  /**
+   * Provides a minimal tool creating {@link TestTask}s.
+   */
+  public static final class TestTool implements Tool<Object>
+  {
+    // METHODS
+
+    @Override
+    public ToolTask<Object> createToolTask( final ToolContext aContext, final ToolProgressListener aProgressListener,
+        final AnnotationListener aAnnotationListener )
+    {
+      return new TestTask( aContext );
+    }
+
+    @Override
+    public ToolCategory getCategory()
+    {
+      return ToolCategory.OTHER;
+    }
+
+    @Override
+    public String getName()
+    {
+      return "Test tool";
+    }
+
+    @Override
+    public void invoke( final Window aParent, final ToolContext aContext )
+    {
+      // NO-op
+    }
+  }
+
+  // VARIABLES
+
+  private File tempDir;
+
+  // METHODS
+
+  /**
+   * Creates a small capture, with a transition every other sample, as data
+   * file in the given directory.
+   * 
+   * @return the created data file, never <code>null</code>.
+   */
+  static File createDataFile( final File aDir, final String aName ) throws IOException
+  {
+    final Writer writer = new FileWriter( new File( aDir, aName ) );
+    try
+    {
+      OlsDataHelper.write( DataTestUtils.createStubDataSet( 16, 2 ), writer );
+    }
+    finally
+    {
+      HostUtils.closeResource( writer );
+    }
+    return new File( aDir, aName );
+  }
+
+  /**
+   * Creates a new, empty, temporary directory.
+   */
+  static File createTempDir() throws IOException
+  {
+    final File result = File.createTempFile( "batch", "" );
+    assertTrue( result.delete() );
+    assertTrue( result.mkdir() );
+    return result;
+  }
+
+  /**
+   * Deletes the given file or directory, including all of its contents.
+   */
+  static void delete( final File aFile )
+  {
+    final File[] files = aFile.listFiles();
+    if ( files != null )
+    {
+      for ( File file : files )
+      {
+        delete( file );
+      }
+    }
+    aFile.delete();
+  }
+
+  /**
+   * Reads all lines of the given file.
+   */
+  static List<String> readLines( final File aFile ) throws IOException
+  {
+    final List<String> result = new ArrayList<String>();
+
+    final BufferedReader reader = new BufferedReader( new FileReader( aFile ) );
+    try
+    {
+      String line;
+      while ( ( line = reader.readLine() ) != null )
+      {
+        result.add( line );
+      }
+    }
+    finally
+    {
+      HostUtils.closeResource( reader );
+    }
+    return result;
+  }
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp() throws IOException
+  {
+    this.tempDir = createTempDir();
+  }
+
+  /**
+   * Tears down the test case.
+   */
+  @After
+  public void tearDown()
+  {
+    delete( this.tempDir );
+  }
+
+  /**
+   * Tests that the tool context is clamped to the captured data when the
+   * cursors are at (or beyond) its edges, or the second cursor is not set.
+   */
+  @Test
+  public void testCreateToolContextClampsCursorRange()
+  {
+    final StubDataSet dataSet = createDataSet();
+    dataSet.setCursorsEnabled( true );
+    dataSet.getCursor( 0 ).setTimestamp( 0L );
+
+    final AcquisitionResult data = dataSet.getCapturedData();
+    final int lastSampleIdx = data.getValues().length - 1;
+
+    ToolContext context = BatchJob.createToolContext( dataSet );
+    assertEquals( 0, context.getStartSampleIndex() );
+    assertEquals( lastSampleIdx, context.getEndSampleIndex() );
+
+    dataSet.getCursor( 1 ).setTimestamp( data.getAbsoluteLength() );
+
+    context = BatchJob.createToolContext( dataSet );
+    assertEquals( 0, context.getStartSampleIndex() );
+    assertEquals( lastSampleIdx, context.getEndSampleIndex() );
+  }
+
+  /**
+   * Tests that the tool context covers the range between the first two
+   * cursors, including one sample on both sides, if cursors are enabled.
+   */
+  @Test
+  public void testCreateToolContextUsesCursorRange()
+  {
+    final StubDataSet dataSet = createDataSet();
+    dataSet.setCursorsEnabled( true );
+    dataSet.getCursor( 0 ).setTimestamp( 6L );
+    dataSet.getCursor( 1 ).setTimestamp( 20L );
+
+    final ToolContext context = BatchJob.createToolContext( dataSet );
+    assertEquals( 2, context.getStartSampleIndex() );
+    assertEquals( 11, context.getEndSampleIndex() );
+    assertEquals( 9, context.getLength() );
+  }
+
+  /**
+   * Tests that the tool context covers the entire captured data if cursors
+   * are disabled, even if they are set.
+   */
+  @Test
+  public void testCreateToolContextUsesEntireDataWithoutCursors()
+  {
+    final StubDataSet dataSet = createDataSet();
+    dataSet.getCursor( 0 ).setTimestamp( 6L );
+    dataSet.getCursor( 1 ).setTimestamp( 20L );
+
+    final ToolContext context = BatchJob.createToolContext( dataSet );
+    assertEquals( 0, context.getStartSampleIndex() );
+    assertEquals( dataSet.getCapturedData().getValues().length - 1, context.getEndSampleIndex() );
+  }
+
+  /**
+   * Tests that decoded data is written as CSV file with the common columns
+   * and a column for each getter of the data type.
+   */
+  @Test
+  public void testDecodedDataWrittenAsCsv() throws Exception
+  {
+    final Integer samples = createJob( "data" ).call();
+    assertEquals( createDataSet().getCapturedData().getValues().length, samples.intValue() );
+
+    final List<String> lines = readLines( new File( this.tempDir, "capture-test.csv" ) );
+    assertEquals( 3, lines.size() );
+    assertEquals( "\"index\",\"channel\",\"start-time\",\"end-time\",\"event?\",\"event-type\",\"value\"",
+        lines.get( 0 ) );
+    assertTrue( lines.get( 1 ), lines.get( 1 ).startsWith( "\"0\",\"0\"," ) );
+    assertTrue( lines.get( 1 ), lines.get( 1 ).endsWith( ",\"false\",\"\",\"18\"" ) );
+    assertTrue( lines.get( 2 ), lines.get( 2 ).endsWith( ",\"false\",\"\",\"52\"" ) );
+  }
+
+  /**
+   * Tests that a failing tool fails the entire job.
+   */
+  @Test( expected = IllegalStateException.class )
+  public void testFailingToolFailsJob() throws Exception
+  {
+    createJob( "fail" ).call();
+  }
+
+  /**
+   * Tests that state data cannot be written as value change dump, and is
+   * written as OLS data file instead.
+   */
+  @Test
+  public void testStateResultWrittenAsDataFile() throws Exception
+  {
+    createJob( "state" ).call();
+
+    assertFalse( new File( this.tempDir, "capture-test.vcd" ).exists() );
+
+    final AcquisitionResult result = OlsDataHelper.read( new File( this.tempDir, "capture-test.ols" ) )
+        .getCapturedData();
+    assertFalse( result.hasTimingData() );
+    assertEquals( Ols.NOT_AVAILABLE, result.getSampleRate() );
+    assertEquals( 2, result.getChannels() );
+  }
+
+  /**
+   * Tests that timing data is written as value change dump.
+   */
+  @Test
+  public void testTimingResultWrittenAsValueChangeDump() throws Exception
+  {
+    createJob( "timing" ).call();
+
+    assertFalse( new File( this.tempDir, "capture-test.ols" ).exists() );
+
+    final List<String> lines = readLines( new File( this.tempDir, "capture-test.vcd" ) );
+    assertTrue( lines.contains( "$enddefinitions $end" ) );
+  }
+
+  /**
+   * Creates a data set with the same capture as {@link #createDataFile}.
+   */
+  private StubDataSet createDataSet()
+  {
+    return ( StubDataSet )DataTestUtils.createStubDataSet( 16, 2 );
+  }
+
+  /**
+   * Creates a job analysing a new data file with a single stub tool yielding
+   * the given result.
+   */
+  private BatchJob createJob( final String aResult ) throws IOException
+  {
+    final Properties props = new Properties();
+    props.setProperty( "tools", "test" );
+    props.setProperty( "test.tool", TestTool.class.getName() );
+    props.setProperty( "test.result", aResult );
+
+    final File file = createDataFile( this.tempDir, "capture.ols" );
+    return new BatchJob( file, this.tempDir, new BatchConfiguration( props ), new DataSetCsvWriter() );
+  }
+}
+
+/* EOF */
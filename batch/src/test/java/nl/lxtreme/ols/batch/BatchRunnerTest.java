@@ -0,0 +1,186 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.batch;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import nl.lxtreme.ols.batch.BatchJobTest.TestTool;
+import nl.lxtreme.ols.batch.BatchRunner.CmdLineOptions;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link BatchRunner}.
+ */
+public class BatchRunnerTest
+{
+  // VARIABLES
+
+  private File tempDir;
+  private File configFile;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp() throws IOException
+  {
+    this.tempDir = BatchJobTest.createTempDir();
+
+    this.configFile = new File( this.tempDir, "batch.properties" );
+    final Writer writer = new FileWriter( this.configFile );
+    try
+    {
+      writer.write( "tools = test\n" );
+      writer.write( "test.tool = " + TestTool.class.getName() + "\n" );
+    }
+    finally
+    {
+      writer.close();
+    }
+  }
+
+  /**
+   * Tears down the test case.
+   */
+  @After
+  public void tearDown()
+  {
+    BatchJobTest.delete( this.tempDir );
+  }
+
+  /**
+   * Tests that invalid command line arguments yield exit code 2.
+   */
+  @Test
+  public void testExecuteInvalidArgumentsFails() throws Exception
+  {
+    final File input = BatchJobTest.createDataFile( this.tempDir, "capture.ols" );
+
+    assertEquals( 2, BatchRunner.execute( input.getPath() ) );
+    assertEquals( 2, BatchRunner.execute( "-config=" + this.configFile, "-threads=0", input.getPath() ) );
+    assertEquals( 2, BatchRunner.execute( "-config=" + this.configFile ) );
+  }
+
+  /**
+   * Tests that analysing all files successfully yields exit code 0, and that
+   * any file that cannot be analysed yields exit code 1.
+   */
+  @Test
+  public void testExecuteReturnsExitCode() throws Exception
+  {
+    final File input = BatchJobTest.createDataFile( this.tempDir, "capture.ols" );
+    final String config = "-config=" + this.configFile;
+
+    assertEquals( 0, BatchRunner.execute( config, input.getPath() ) );
+    assertTrue( new File( this.tempDir, "capture-test.csv" ).isFile() );
+
+    createBrokenFile( "broken.ols" );
+
+    assertEquals( 1, BatchRunner.execute( config, this.tempDir.getPath() ) );
+  }
+
+  /**
+   * Tests that inputs with the same base name are refused when their results
+   * would end up in the same directory.
+   */
+  @Test
+  public void testOutputClashFails() throws Exception
+  {
+    final File dir1 = new File( this.tempDir, "a" );
+    final File dir2 = new File( this.tempDir, "b" );
+    assertTrue( dir1.mkdir() && dir2.mkdir() );
+
+    final File input1 = BatchJobTest.createDataFile( dir1, "capture.ols" );
+    final File input2 = BatchJobTest.createDataFile( dir2, "capture.ols" );
+    final String config = "-config=" + this.configFile;
+
+    // Without output directory, each result is written next to its input...
+    new CmdLineOptions( config, input1.getPath(), input2.getPath() );
+
+    try
+    {
+      new CmdLineOptions( config, "-outputDir=" + this.tempDir, input1.getPath(), input2.getPath() );
+      fail( "Expected IllegalArgumentException!" );
+    }
+    catch ( IllegalArgumentException exception )
+    {
+      // Ok; expected...
+    }
+
+    final File input3 = BatchJobTest.createDataFile( dir1, "capture.olp" );
+    try
+    {
+      new CmdLineOptions( config, input1.getPath(), input3.getPath() );
+      fail( "Expected IllegalArgumentException!" );
+    }
+    catch ( IllegalArgumentException exception )
+    {
+      // Ok; expected...
+    }
+  }
+
+  /**
+   * Tests that the failures are counted per file, and do not prevent the other
+   * files from being analysed.
+   */
+  @Test
+  public void testRunCountsFailures() throws Exception
+  {
+    BatchJobTest.createDataFile( this.tempDir, "capture1.ols" );
+    createBrokenFile( "capture2.ols" );
+    BatchJobTest.createDataFile( this.tempDir, "capture3.ols" );
+    createBrokenFile( "capture4.ols" );
+
+    final BatchRunner runner = new BatchRunner( new CmdLineOptions( "-config=" + this.configFile, "-threads=2",
+        this.tempDir.getPath() ) );
+    assertEquals( 2, runner.run() );
+
+    assertTrue( new File( this.tempDir, "capture1-test.csv" ).isFile() );
+    assertFalse( new File( this.tempDir, "capture2-test.csv" ).exists() );
+    assertTrue( new File( this.tempDir, "capture3-test.csv" ).isFile() );
+    assertFalse( new File( this.tempDir, "capture4-test.csv" ).exists() );
+  }
+
+  /**
+   * Creates a file with the given name that cannot be read as data file.
+   */
+  private void createBrokenFile( final String aName ) throws IOException
+  {
+    final Writer writer = new FileWriter( new File( this.tempDir, aName ) );
+    try
+    {
+      writer.write( "this is not a capture\n" );
+    }
+    finally
+    {
+      writer.close();
+    }
+  }
+}
+
+/* EOF */
@@ -23,8 +23,6 @@ package nl.lxtreme.ols.client.project.impl;
 
 import java.beans.*;
 import java.util.*;
-import java.util.List;
-import java.util.concurrent.*;
 
 import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.data.*;
@@ -48,7 +46,7 @@ public final class ChannelImpl implements Channel
   private String label;
   private boolean enabled;
 
-  private final List<Annotation<?>> annotations;
+  private final DataAnnotationIndex annotationIndex;
   private final PropertyChangeSupport propertyChangeSupport;
 
   // CONSTRUCTORS
@@ -76,10 +74,10 @@ public final class ChannelImpl implements Channel
     this.label = aChannel.hasName() ? aChannel.getLabel() : null;
     this.enabled = aChannel.isEnabled();
 
-    this.annotations = new CopyOnWriteArrayList<Annotation<?>>();
+    this.annotationIndex = new DataAnnotationIndex();
     if ( aRetainAnnotation )
     {
-      this.annotations.addAll( aChannel.getAnnotations() );
+      addAnnotations( aChannel.getAnnotations() );
     }
   }
 
@@ -103,7 +101,7 @@ public final class ChannelImpl implements Channel
     this.label = null;
     this.enabled = true;
 
-    this.annotations = new CopyOnWriteArrayList<Annotation<?>>();
+    this.annotationIndex = new DataAnnotationIndex();
   }
 
   // METHODS
@@ -116,7 +114,7 @@ public final class ChannelImpl implements Channel
   {
     if ( aAnnotation instanceof DataAnnotation )
     {
-      this.annotations.add( aAnnotation );
+      this.annotationIndex.add( ( DataAnnotation<?> )aAnnotation );
     }
     else
     {
@@ -127,6 +125,32 @@ public final class ChannelImpl implements Channel
     }
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void addAnnotations( final Collection<? extends Annotation<?>> aAnnotations )
+  {
+    final List<DataAnnotation<?>> dataAnnotations = new ArrayList<DataAnnotation<?>>( aAnnotations.size() );
+    for ( Annotation<?> annotation : aAnnotations )
+    {
+      if ( annotation instanceof DataAnnotation )
+      {
+        dataAnnotations.add( ( DataAnnotation<?> )annotation );
+      }
+      else
+      {
+        if ( !hasName() )
+        {
+          setLabel( annotation.toString() );
+        }
+      }
+    }
+
+    // Publish all data annotations at once...
+    this.annotationIndex.addAll( dataAnnotations );
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -141,7 +165,7 @@ public final class ChannelImpl implements Channel
   @Override
   public void clearAnnotations()
   {
-    this.annotations.clear();
+    this.annotationIndex.clear();
   }
 
   /**
@@ -183,7 +207,16 @@ public final class ChannelImpl implements Channel
   @Override
   public Collection<Annotation<?>> getAnnotations()
   {
-    return Collections.unmodifiableCollection( this.annotations );
+    return Collections.<Annotation<?>> unmodifiableList( this.annotationIndex.getAnnotations() );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DataAnnotationIndex getAnnotationIndex()
+  {
+    return this.annotationIndex;
   }
 
   /**
@@ -0,0 +1,519 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.project.impl;
+
+
+import java.io.*;
+import java.util.*;
+import java.util.logging.*;
+import java.util.zip.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+
+
+/**
+ * Helper class that is capable of reading &amp; writing OLS data in a compact
+ * binary format.
+ * <p>
+ * The binary format stores the sample values and timestamps as two columns,
+ * divided into blocks of at most {@value #BLOCK_SIZE} transitions. Within a
+ * block, each timestamp is stored as (variable length) delta to its preceeding
+ * timestamp, and each value as (variable length) XOR with its preceeding value,
+ * after which the whole block is deflated. The layout is as follows (all
+ * numbers are big-endian):
+ * </p>
+ *
+ * <pre>
+ * header:  magic ("OLSB"), version, transition count, block count, rate,
+ *          channels, enabled channels, trigger position, absolute length,
+ *          cursors enabled, cursor count, cursor timestamps
+ * blocks:  for each block: transition count, first timestamp, first value,
+ *          raw length, compressed length, compressed data
+ * index:   block count, for each block: file offset of the block
+ * trailer: file offset of the index
+ * </pre>
+ * <p>
+ * As each block is preceeded by its lengths, the data can be read in a single
+ * pass from a stream (for example, from a ZIP-file). The index allows the
+ * blocks to be located directly when random access to the data is available.
+ * </p>
+ */
+public final class OlsBinaryDataHelper
+{
+  // INNER TYPES
+
+  /**
+   * Provides an output stream that counts the number of bytes written to it.
+   */
+  private static final class CountingOutputStream extends FilterOutputStream
+  {
+    // VARIABLES
+
+    private long count;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new CountingOutputStream instance.
+     *
+     * @param aOutput
+     *          the output stream to write to, cannot be <code>null</code>.
+     */
+    CountingOutputStream( final OutputStream aOutput )
+    {
+      super( aOutput );
+    }
+
+    // METHODS
+
+    /**
+     * Returns the number of bytes written so far.
+     *
+     * @return a byte count, >= 0.
+     */
+    public long getCount()
+    {
+      return this.count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+    {
+      this.out.write( aBuffer, aOffset, aLength );
+      this.count += aLength;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write( final int aByte ) throws IOException
+    {
+      this.out.write( aByte );
+      this.count++;
+    }
+  }
+
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( OlsBinaryDataHelper.class.getName() );
+
+  /** The magic number, "OLSB", that starts each binary data file. */
+  private static final int MAGIC = 0x4F4C5342;
+  /** The version of the binary format. */
+  private static final int VERSION = 1;
+  /** The maximum number of transitions in a single block. */
+  static final int BLOCK_SIZE = 8192;
+  /**
+   * The maximum number of transitions to reserve room for up front, as the
+   * header cannot be trusted before the blocks are actually read.
+   */
+  private static final int MAX_INITIAL_CAPACITY = 64 * BLOCK_SIZE;
+  /** Used to denote an undefined cursor. */
+  private static final long UNDEFINED_CURSOR = Long.MIN_VALUE;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new OlsBinaryDataHelper instance, never used.
+   */
+  private OlsBinaryDataHelper()
+  {
+    // NO-op
+  }
+
+  // METHODS
+
+  /**
+   * Reads the data from a given input stream.
+   * <p>
+   * The given input stream is read sequentially up to the block index, and is
+   * <em>not</em> closed afterwards.
+   * </p>
+   *
+   * @param aInput
+   *          the input stream to read the data from, cannot be
+   *          <code>null</code>.
+   * @return the read data set, never <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public static DataSetImpl read( final InputStream aInput ) throws IOException
+  {
+    final DataInputStream in = new DataInputStream( new BufferedInputStream( aInput ) );
+
+    final int size = readPreamble( in );
+    final int blockCount = in.readInt();
+    if ( blockCount != ( ( ( size - 1 ) / BLOCK_SIZE ) + 1 ) )
+    {
+      throw new IOException( "Data file is corrupt?! Block count does not match transition count!" );
+    }
+
+    // The builder grows as needed, so a corrupt size cannot force a huge
+    // allocation before any data is read...
+    final CapturedDataBuilder builder = new CapturedDataBuilder( Math.min( size, MAX_INITIAL_CAPACITY ) );
+    final DataSetImpl tempDataSet = new DataSetImpl();
+    readMetadata( in, builder, tempDataSet );
+
+    final byte[][] buffers = new byte[2][0];
+    final Inflater inflater = new Inflater();
+    try
+    {
+      int count = 0;
+      for ( int i = 0; i < blockCount; i++ )
+      {
+        count += readBlock( in, inflater, buffers, builder );
+      }
+
+      if ( count != size )
+      {
+        throw new IOException( "Data file is corrupt?! Transition count mismatch!" );
+      }
+    }
+    finally
+    {
+      inflater.end();
+    }
+
+    return new DataSetImpl( builder.build(), tempDataSet, false /* aRetainAnnotations */);
+  }
+
+  /**
+   * Writes the data to the given output stream.
+   * <p>
+   * The given output stream is flushed, but <em>not</em> closed after writing.
+   * </p>
+   *
+   * @param aDataSet
+   *          the data set to write, cannot be <code>null</code>;
+   * @param aOutput
+   *          the output stream to write the data to, cannot be
+   *          <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public static void write( final DataSet aDataSet, final OutputStream aOutput ) throws IOException
+  {
+    final AcquisitionResult capturedData = aDataSet.getCapturedData();
+
+    final int[] values = capturedData.getValues();
+    final long[] timestamps = capturedData.getTimestamps();
+    final int blockCount = ( values.length + BLOCK_SIZE - 1 ) / BLOCK_SIZE;
+
+    final CountingOutputStream counter = new CountingOutputStream( new BufferedOutputStream( aOutput ) );
+    final DataOutputStream out = new DataOutputStream( counter );
+    final Deflater deflater = new Deflater( Deflater.BEST_SPEED );
+
+    try
+    {
+      out.writeInt( MAGIC );
+      out.writeInt( VERSION );
+      out.writeInt( values.length );
+      out.writeInt( blockCount );
+
+      out.writeInt( capturedData.getSampleRate() );
+      out.writeInt( capturedData.getChannels() );
+      out.writeInt( capturedData.getEnabledChannels() );
+      out.writeLong( capturedData.hasTriggerData() ? capturedData.getTriggerPosition() : Ols.NOT_AVAILABLE );
+      out.writeLong( capturedData.getAbsoluteLength() );
+
+      final Cursor[] cursors = aDataSet.getCursors();
+      out.writeBoolean( aDataSet.isCursorsEnabled() );
+      out.writeInt( cursors.length );
+      for ( Cursor cursor : cursors )
+      {
+        out.writeLong( cursor.isDefined() ? cursor.getTimestamp() : UNDEFINED_CURSOR );
+      }
+
+      final long[] offsets = new long[blockCount];
+
+      // worst case, each transition takes a 10-byte delta and a 5-byte value...
+      final byte[] raw = new byte[BLOCK_SIZE * 15];
+      byte[] compressed = new byte[raw.length / 2];
+
+      for ( int b = 0; b < blockCount; b++ )
+      {
+        final int start = b * BLOCK_SIZE;
+        final int end = Math.min( values.length, start + BLOCK_SIZE );
+
+        int rawLength = 0;
+        for ( int i = start + 1; i < end; i++ )
+        {
+          rawLength = writeVarLong( raw, rawLength, timestamps[i] - timestamps[i - 1] );
+          rawLength = writeVarLong( raw, rawLength, ( values[i] ^ values[i - 1] ) & 0xFFFFFFFFL );
+        }
+
+        deflater.reset();
+        deflater.setInput( raw, 0, rawLength );
+        deflater.finish();
+
+        int compressedLength = 0;
+        while ( !deflater.finished() )
+        {
+          if ( compressedLength == compressed.length )
+          {
+            compressed = Arrays.copyOf( compressed, 2 * compressed.length );
+          }
+          compressedLength += deflater.deflate( compressed, compressedLength, compressed.length - compressedLength );
+        }
+
+        offsets[b] = counter.getCount();
+
+        out.writeInt( end - start );
+        out.writeLong( timestamps[start] );
+        out.writeInt( values[start] );
+        out.writeInt( rawLength );
+        out.writeInt( compressedLength );
+        out.write( compressed, 0, compressedLength );
+      }
+
+      final long indexOffset = counter.getCount();
+      out.writeInt( blockCount );
+      for ( long offset : offsets )
+      {
+        out.writeLong( offset );
+      }
+      out.writeLong( indexOffset );
+    }
+    finally
+    {
+      deflater.end();
+      out.flush();
+    }
+
+    if ( LOG.isLoggable( Level.FINE ) )
+    {
+      LOG.fine( "Written " + values.length + " transitions in " + blockCount + " blocks..." );
+    }
+  }
+
+  /**
+   * Reads a single block of transitions and adds them to the given builder.
+   *
+   * @param aInput
+   *          the input to read the block from;
+   * @param aInflater
+   *          the (reusable) inflater to decompress the block with;
+   * @param aBuffers
+   *          the (reusable) buffers for the compressed and raw block data;
+   * @param aBuilder
+   *          the builder to add the transitions to.
+   * @return the number of transitions read, > 0.
+   * @throws IOException
+   *           in case of I/O problems or a corrupt block.
+   */
+  private static int readBlock( final DataInput aInput, final Inflater aInflater, final byte[][] aBuffers,
+      final CapturedDataBuilder aBuilder ) throws IOException
+  {
+    final int count = aInput.readInt();
+    long timestamp = aInput.readLong();
+    int value = aInput.readInt();
+    final int rawLength = aInput.readInt();
+    final int compressedLength = aInput.readInt();
+
+    if ( ( count <= 0 ) || ( count > BLOCK_SIZE ) || ( rawLength < 0 ) || ( compressedLength < 0 ) )
+    {
+      throw new IOException( "Data file is corrupt?! Invalid block header!" );
+    }
+
+    if ( aBuffers[0].length < compressedLength )
+    {
+      aBuffers[0] = new byte[compressedLength];
+    }
+    if ( aBuffers[1].length < rawLength )
+    {
+      aBuffers[1] = new byte[rawLength];
+    }
+
+    final byte[] compressed = aBuffers[0];
+    final byte[] raw = aBuffers[1];
+
+    aInput.readFully( compressed, 0, compressedLength );
+
+    try
+    {
+      aInflater.reset();
+      aInflater.setInput( compressed, 0, compressedLength );
+
+      int length = 0;
+      while ( ( length < rawLength ) && !aInflater.finished() )
+      {
+        final int inflated = aInflater.inflate( raw, length, rawLength - length );
+        if ( ( inflated == 0 ) && ( aInflater.needsInput() || aInflater.needsDictionary() ) )
+        {
+          break;
+        }
+        length += inflated;
+      }
+
+      if ( length != rawLength )
+      {
+        throw new IOException( "Data file is corrupt?! Block size mismatch!" );
+      }
+    }
+    catch ( DataFormatException exception )
+    {
+      throw new IOException( "Data file is corrupt?! Invalid block data!", exception );
+    }
+
+    aBuilder.add( value, timestamp );
+
+    int pos = 0;
+    for ( int i = 1; i < count; i++ )
+    {
+      long delta = 0L;
+      int shift = 0;
+      byte b;
+      do
+      {
+        if ( pos >= rawLength )
+        {
+          throw new IOException( "Data file is corrupt?! Block data truncated!" );
+        }
+        b = raw[pos++];
+        delta |= ( long )( b & 0x7F ) << shift;
+        shift += 7;
+      }
+      while ( b < 0 );
+
+      long xor = 0L;
+      shift = 0;
+      do
+      {
+        if ( pos >= rawLength )
+        {
+          throw new IOException( "Data file is corrupt?! Block data truncated!" );
+        }
+        b = raw[pos++];
+        xor |= ( long )( b & 0x7F ) << shift;
+        shift += 7;
+      }
+      while ( b < 0 );
+
+      timestamp += delta;
+      value ^= ( int )xor;
+
+      aBuilder.add( value, timestamp );
+    }
+
+    return count;
+  }
+
+  /**
+   * Reads the metadata of the captured data.
+   *
+   * @param aInput
+   *          the input to read the metadata from;
+   * @param aBuilder
+   *          the builder to set the metadata of the captured data on;
+   * @param aDataSet
+   *          the data set to set the cursors on.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  private static void readMetadata( final DataInput aInput, final CapturedDataBuilder aBuilder,
+      final DataSetImpl aDataSet ) throws IOException
+  {
+    aBuilder.setSampleRate( aInput.readInt() );
+
+    final int channels = aInput.readInt();
+    if ( ( channels <= 0 ) || ( channels > Ols.MAX_CHANNELS ) )
+    {
+      throw new IOException( "Data file is corrupt?! Channel count is not provided!" );
+    }
+    aBuilder.setChannels( channels );
+    aBuilder.setEnabledChannels( aInput.readInt() );
+    aBuilder.setTriggerPosition( aInput.readLong() );
+    aBuilder.setAbsoluteLength( aInput.readLong() );
+
+    aDataSet.setCursorsEnabled( aInput.readBoolean() );
+
+    final int cursorCount = aInput.readInt();
+    for ( int i = 0; i < cursorCount; i++ )
+    {
+      final long timestamp = aInput.readLong();
+      if ( ( i < Ols.MAX_CURSORS ) && ( timestamp != UNDEFINED_CURSOR ) )
+      {
+        aDataSet.getCursor( i ).setTimestamp( timestamp );
+      }
+    }
+  }
+
+  /**
+   * Reads the magic number and version, and the total number of transitions.
+   *
+   * @param aInput
+   *          the input to read from.
+   * @return the total number of transitions, > 0.
+   * @throws IOException
+   *           in case of I/O problems, or an unsupported file.
+   */
+  private static int readPreamble( final DataInput aInput ) throws IOException
+  {
+    if ( aInput.readInt() != MAGIC )
+    {
+      throw new IOException( "Not a binary OLS data file!" );
+    }
+
+    final int version = aInput.readInt();
+    if ( version != VERSION )
+    {
+      throw new IOException( "Unsupported binary OLS data file version: " + version + "!" );
+    }
+
+    final int size = aInput.readInt();
+    if ( size <= 0 )
+    {
+      throw new IOException( "Data file does not contain any sample data!" );
+    }
+    return size;
+  }
+
+  /**
+   * Writes the given (unsigned) value as variable length quantity, using 7 bits
+   * per byte.
+   *
+   * @param aBuffer
+   *          the buffer to write to;
+   * @param aOffset
+   *          the offset in the buffer to start writing;
+   * @param aValue
+   *          the value to write, >= 0.
+   * @return the offset in the buffer directly after the written value.
+   */
+  private static int writeVarLong( final byte[] aBuffer, final int aOffset, final long aValue )
+  {
+    int offset = aOffset;
+    long value = aValue;
+    while ( ( value & ~0x7FL ) != 0L )
+    {
+      aBuffer[offset++] = ( byte )( ( value & 0x7F ) | 0x80 );
+      value >>>= 7;
+    }
+    aBuffer[offset++] = ( byte )value;
+    return offset;
+  }
+}
@@ -166,6 +166,15 @@ public final class ProjectImpl implements Project, ProjectProperties, PropertyCh
     this.propertyChangeSupport.firePropertyChange( aEvent );
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final void readData( final File aFile ) throws IOException
+  {
+    setDataSet( OlsDataHelper.read( aFile ) );
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -44,6 +44,7 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
   private static final String FILENAME_CHANNEL_LABELS = "channel.labels";
   private static final String FILENAME_PROJECT_SETTINGS = "settings/";
   private static final String FILENAME_CAPTURE_RESULTS = "data.ols";
+  private static final String FILENAME_BINARY_CAPTURE_RESULTS = "data.olsb";
 
   // VARIABLES
 
@@ -125,6 +126,7 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
     {
       ZipEntry ze = null;
       boolean entriesSeen = false;
+      boolean binaryResultsSeen = false;
       while ( ( ze = zipIS.getNextEntry() ) != null )
       {
         final String name = ze.getName();
@@ -138,9 +140,20 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
           labels = loadChannelLabels( zipIS );
           entriesSeen = true;
         }
+        else if ( FILENAME_BINARY_CAPTURE_RESULTS.equals( name ) )
+        {
+          loadBinaryCapturedResults( newProject, zipIS );
+          binaryResultsSeen = true;
+          entriesSeen = true;
+        }
         else if ( FILENAME_CAPTURE_RESULTS.equals( name ) )
         {
-          loadCapturedResults( newProject, zipIS );
+          // The binary capture results are preferred over the textual ones, as
+          // they are much faster to read...
+          if ( !binaryResultsSeen )
+          {
+            loadCapturedResults( newProject, zipIS );
+          }
           entriesSeen = true;
         }
         else if ( name.startsWith( FILENAME_PROJECT_SETTINGS ) )
@@ -216,7 +229,10 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
       storeChannelLabels( this.project.getDataSet(), zipOS );
       // Store the settings...
       storeProjectSettings( this.project, zipOS );
-      // Store the last capture results...
+      // Store the last capture results; the binary results are stored first
+      // so they can be picked up while loading without parsing the textual
+      // results, which are kept for older versions...
+      storeBinaryCapturedResults( this.project, zipOS );
       storeCapturedResults( this.project, zipOS );
 
       // Mark the project as no longer changed...
@@ -240,6 +256,22 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
     this.hostProperties = aHostProperties;
   }
 
+  /**
+   * Reads the binary capture results from the given ZIP-input stream.
+   * 
+   * @param aProject
+   *          the project to read the capture results for;
+   * @param aZipIS
+   *          the ZIP input stream to read the capture results from.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  protected void loadBinaryCapturedResults( final ProjectImpl aProject, final ZipInputStream aZipIS )
+      throws IOException
+  {
+    aProject.setDataSet( OlsBinaryDataHelper.read( aZipIS ) );
+  }
+
   /**
    * Reads the capture results from the given ZIP-input stream.
    * 
@@ -342,6 +374,48 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
     }
   }
 
+  /**
+   * Stores the captured results in binary format to the given ZIP-output
+   * stream.
+   * <p>
+   * If the given project does not have capture results, this method does
+   * nothing.
+   * </p>
+   * 
+   * @param aProject
+   *          the project to write the capture results for;
+   * @param aZipOS
+   *          the ZIP output stream to write the capture results to.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  protected void storeBinaryCapturedResults( final Project aProject, final ZipOutputStream aZipOS )
+      throws IOException
+  {
+    final DataSet dataSet = aProject.getDataSet();
+    if ( dataSet.getCapturedData() == null )
+    {
+      return;
+    }
+
+    // The binary data is already compressed, so store it as-is, which needs
+    // its size and checksum up front...
+    final ByteArrayOutputStream data = new ByteArrayOutputStream();
+    OlsBinaryDataHelper.write( dataSet, data );
+
+    final CRC32 crc = new CRC32();
+    crc.update( data.toByteArray() );
+
+    final ZipEntry zipEntry = new ZipEntry( FILENAME_BINARY_CAPTURE_RESULTS );
+    zipEntry.setMethod( ZipEntry.STORED );
+    zipEntry.setSize( data.size() );
+    zipEntry.setCompressedSize( data.size() );
+    zipEntry.setCrc( crc.getValue() );
+    aZipOS.putNextEntry( zipEntry );
+
+    data.writeTo( aZipOS );
+  }
+
   /**
    * Stores the captured results to the given ZIP-output stream.
    * <p>
@@ -0,0 +1,186 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.project.impl;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.test.data.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link OlsBinaryDataHelper}.
+ */
+public class OlsBinaryDataHelperTest
+{
+  // VARIABLES
+
+  private DataSetImpl dataSet;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    // use enough transitions to span multiple blocks...
+    final int size = ( 2 * OlsBinaryDataHelper.BLOCK_SIZE ) + 123;
+    final Random rnd = new Random( 42 );
+
+    final CapturedDataBuilder builder = new CapturedDataBuilder( size );
+    long timestamp = 0L;
+    for ( int i = 0; i < size; i++ )
+    {
+      builder.add( rnd.nextInt(), timestamp );
+      timestamp += 1L + rnd.nextInt( ( i % 2 ) == 0 ? 10 : 100000 );
+    }
+    builder.setChannels( 32 ).setSampleRate( 1000000 ).setTriggerPosition( 1234L ).setAbsoluteLength( timestamp );
+
+    final DataSetImpl template = new DataSetImpl();
+    template.setCursorsEnabled( true );
+    template.getCursor( 0 ).setTimestamp( 10L );
+    template.getCursor( 3 ).setTimestamp( 30L );
+
+    this.dataSet = new DataSetImpl( builder.build(), template, false /* aRetainAnnotations */);
+  }
+
+  /**
+   * Tests that data written to a stream can be read back from a stream.
+   */
+  @Test
+  public void testWriteAndReadStreamOk() throws IOException
+  {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    OlsBinaryDataHelper.write( this.dataSet, baos );
+
+    final DataSetImpl read = OlsBinaryDataHelper.read( new ByteArrayInputStream( baos.toByteArray() ) );
+    assertDataSetEquals( this.dataSet, read );
+  }
+
+  /**
+   * Tests that reading a block whose data is shorter than its transition count
+   * claims fails.
+   */
+  @Test( expected = IOException.class )
+  public void testReadTruncatedBlockFail() throws IOException
+  {
+    // a single transition: delta = 1, xor = 3...
+    final byte[] raw = { 0x01, 0x03 };
+
+    final Deflater deflater = new Deflater();
+    deflater.setInput( raw );
+    deflater.finish();
+    final byte[] compressed = new byte[64];
+    final int compressedLength = deflater.deflate( compressed );
+    deflater.end();
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream( baos );
+    out.writeInt( 0x4F4C5342 ); // magic
+    out.writeInt( 1 ); // version
+    out.writeInt( 3 ); // transition count
+    out.writeInt( 1 ); // block count
+    out.writeInt( 1000 ); // rate
+    out.writeInt( 8 ); // channels
+    out.writeInt( 0xFF ); // enabled channels
+    out.writeLong( 0L ); // trigger position
+    out.writeLong( 10L ); // absolute length
+    out.writeBoolean( false ); // cursors enabled
+    out.writeInt( 0 ); // cursor count
+    // block claiming three transitions, but only containing two...
+    out.writeInt( 3 );
+    out.writeLong( 0L );
+    out.writeInt( 0 );
+    out.writeInt( raw.length );
+    out.writeInt( compressedLength );
+    out.write( compressed, 0, compressedLength );
+    out.flush();
+
+    OlsBinaryDataHelper.read( new ByteArrayInputStream( baos.toByteArray() ) );
+  }
+
+  /**
+   * Tests that a header claiming far more transitions than the data contains
+   * fails without reserving room for all of them.
+   */
+  @Test( expected = EOFException.class )
+  public void testReadHugeTransitionCountFail() throws IOException
+  {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream( baos );
+    out.writeInt( 0x4F4C5342 ); // magic
+    out.writeInt( 1 ); // version
+    out.writeInt( Integer.MAX_VALUE ); // transition count
+    out.writeInt( ( int )( ( Integer.MAX_VALUE + ( long )OlsBinaryDataHelper.BLOCK_SIZE - 1 )
+        / OlsBinaryDataHelper.BLOCK_SIZE ) ); // block count
+    out.writeInt( 1000 ); // rate
+    out.writeInt( 8 ); // channels
+    out.writeInt( 0xFF ); // enabled channels
+    out.writeLong( 0L ); // trigger position
+    out.writeLong( 10L ); // absolute length
+    out.writeBoolean( false ); // cursors enabled
+    out.writeInt( 0 ); // cursor count
+    out.flush();
+
+    OlsBinaryDataHelper.read( new ByteArrayInputStream( baos.toByteArray() ) );
+  }
+
+  /**
+   * Tests that reading something else than binary data fails.
+   */
+  @Test( expected = IOException.class )
+  public void testReadInvalidDataFail() throws IOException
+  {
+    OlsBinaryDataHelper.read( new ByteArrayInputStream( ";Size: 1\n".getBytes() ) );
+  }
+
+  /**
+   * Asserts that the given data sets are equal.
+   */
+  private void assertDataSetEquals( final DataSet aExpected, final DataSet aTested )
+  {
+    final AcquisitionResult expected = aExpected.getCapturedData();
+    final AcquisitionResult tested = aTested.getCapturedData();
+
+    DataTestUtils.assertEquals( expected, tested );
+    assertEquals( expected.getTriggerPosition(), tested.getTriggerPosition() );
+
+    assertEquals( aExpected.isCursorsEnabled(), aTested.isCursorsEnabled() );
+    for ( int i = 0; i < aExpected.getCursors().length; i++ )
+    {
+      assertEquals( aExpected.getCursor( i ).isDefined(), aTested.getCursor( i ).isDefined() );
+      if ( aExpected.getCursor( i ).isDefined() )
+      {
+        assertEquals( aExpected.getCursor( i ).getTimestamp(), aTested.getCursor( i ).getTimestamp() );
+      }
+    }
+  }
+}
@@ -25,6 +25,7 @@ import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 import java.io.*;
+import java.util.zip.*;
 
 import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.acquisition.*;
@@ -96,6 +97,32 @@ public class ProjectManagerImplTest
     this.projectManager.loadProject( bais );
   }
 
+  /**
+   * Test method for
+   * {@link SimpleProjectManager#loadProject(java.io.InputStream)}.
+   */
+  @Test
+  public void testLoadLegacyProjectOk() throws IOException
+  {
+    final AcquisitionResult mockedCapturedData = DataTestUtils.getMockedCapturedData();
+
+    final Project project = this.projectManager.createTemporaryProject();
+    project.setCapturedData( mockedCapturedData );
+
+    // Older versions only store the capture results in the textual format...
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream( 1024 );
+    final ZipOutputStream zipOS = new ZipOutputStream( baos );
+    zipOS.putNextEntry( new ZipEntry( "data.ols" ) );
+    project.writeData( new OutputStreamWriter( zipOS ) );
+    zipOS.close();
+
+    final ByteArrayInputStream bais = new ByteArrayInputStream( baos.toByteArray() );
+    this.projectManager.loadProject( bais );
+
+    DataTestUtils.assertEquals( mockedCapturedData, this.projectManager.getCurrentProject().getDataSet()
+        .getCapturedData() );
+  }
+
   /**
    * Test method for
    * {@link SimpleProjectManager#loadProject(java.io.InputStream)}.
@@ -116,6 +143,30 @@ public class ProjectManagerImplTest
     this.projectManager.saveProject( null );
   }
 
+  /**
+   * Tests that the (already compressed) binary capture results are stored
+   * without compressing them again.
+   */
+  @Test
+  public void testSaveProjectStoresBinaryCaptureResultsUncompressed() throws IOException
+  {
+    final Project project = this.projectManager.getCurrentProject();
+    project.setCapturedData( DataTestUtils.getMockedCapturedData() );
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream( 1024 );
+    this.projectManager.saveProject( baos ); // should succeed...
+
+    final ZipInputStream zis = new ZipInputStream( new ByteArrayInputStream( baos.toByteArray() ) );
+    ZipEntry ze;
+    while ( ( ( ze = zis.getNextEntry() ) != null ) && !"data.olsb".equals( ze.getName() ) )
+    {
+      // Skip entry...
+    }
+
+    assertNotNull( ze );
+    assertEquals( ZipEntry.STORED, ze.getMethod() );
+  }
+
   /**
    * Test method for
    * {@link SimpleProjectManager#saveProject(java.io.OutputStream)}.
@@ -39,6 +39,7 @@ import nl.lxtreme.ols.api.data.annotation.Annotation;
 import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
 import nl.lxtreme.ols.api.data.export.*;
 import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.api.data.search.*;
 import nl.lxtreme.ols.api.devices.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.api.ui.*;
@@ -47,6 +48,7 @@ import nl.lxtreme.ols.client.action.*;
 import nl.lxtreme.ols.client.actionmanager.*;
 import nl.lxtreme.ols.client.osgi.*;
 import nl.lxtreme.ols.client.signaldisplay.*;
+import nl.lxtreme.ols.client.signaldisplay.util.*;
 import nl.lxtreme.ols.util.*;
 import nl.lxtreme.ols.util.swing.*;
 import nl.lxtreme.ols.util.swing.component.*;
@@ -162,6 +164,7 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
   {
     // VARIABLES
 
+    private final ClientController controller;
     private final DataSet dataSet;
     private final int startSampleIdx;
     private final int endSampleIdx;
@@ -176,10 +179,14 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
      * @param aEndSampleIdx
      *          the ending sample index;
      * @param aData
-     *          the acquisition result.
+     *          the acquisition result;
+     * @param aController
+     *          the client controller to use for moving the view.
      */
-    public DefaultToolContext( final int aStartSampleIdx, final int aEndSampleIdx, final DataSet aDataSet )
+    public DefaultToolContext( final int aStartSampleIdx, final int aEndSampleIdx, final DataSet aDataSet,
+        final ClientController aController )
     {
+      this.controller = aController;
       this.startSampleIdx = aStartSampleIdx;
       this.endSampleIdx = aEndSampleIdx;
       this.dataSet = aDataSet;
@@ -247,6 +254,19 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
     {
       return this.startSampleIdx;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void gotoTimestamp( final long aTimestamp )
+    {
+      final MainFrame mainFrame = this.controller.mainFrame;
+      if ( mainFrame != null )
+      {
+        mainFrame.gotoPosition( 0, aTimestamp );
+      }
+    }
   }
 
   /**
@@ -267,6 +287,98 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
     }
   }
 
+  /**
+   * Provides a {@link SwingWorker} to search a data set asynchronously from the
+   * UI, and goes to the first hit when done.
+   */
+  final class SearchWorker extends SwingWorker<SearchResult, Void>
+  {
+    // VARIABLES
+
+    private final DataSet dataSet;
+    private final String query;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link SearchWorker} instance.
+     *
+     * @param aDataSet
+     *          the data set to search in;
+     * @param aQuery
+     *          the query to search for.
+     */
+    public SearchWorker( final DataSet aDataSet, final String aQuery )
+    {
+      this.dataSet = aDataSet;
+      this.query = aQuery;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected SearchResult doInBackground() throws Exception
+    {
+      return new SearchHelper( this.dataSet ).search( this.query );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void done()
+    {
+      if ( isCancelled() )
+      {
+        return;
+      }
+
+      final SearchResult result;
+      try
+      {
+        result = get();
+      }
+      catch ( InterruptedException exception )
+      {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      catch ( ExecutionException exception )
+      {
+        final Throwable cause = exception.getCause();
+        if ( cause instanceof IllegalArgumentException )
+        {
+          setStatusOnEDT( "Invalid search query: {0}", cause.getMessage() );
+        }
+        else if ( !( cause instanceof InterruptedException ) )
+        {
+          LOG.log( Level.WARNING, "Search failed!", cause );
+        }
+        return;
+      }
+
+      getSignalDiagramController().getViewModel().setSearchResult( result );
+
+      if ( result.isEmpty() )
+      {
+        setStatusOnEDT( "No hits found for \"{0}\" ...", this.query );
+      }
+      else
+      {
+        setStatusOnEDT( "Found {0} hit(s) for \"{1}\"; use ALT+SHIFT+arrow to jump between them ...",
+            Integer.valueOf( result.size() ), this.query );
+
+        if ( ClientController.this.mainFrame != null )
+        {
+          ClientController.this.mainFrame.gotoPosition( 0, result.getStartTimestamp( 0 ) );
+        }
+      }
+    }
+  }
+
   // CONSTANTS
 
   private static final Logger LOG = Logger.getLogger( ClientController.class.getName() );
@@ -292,6 +404,9 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
 
   private volatile long acquisitionStartTime;
 
+  /** the search in progress, only accessed on the EDT. */
+  private SearchWorker searchWorker;
+
   // CONSTRUCTORS
 
   /**
@@ -1000,6 +1115,37 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
     this.repaintAccumulatingRunnable.add( ( Void )null );
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onAnnotations( final Collection<? extends Annotation<?>> aAnnotations )
+  {
+    // Group the annotations per channel, so each channel can add them at once...
+    final Map<Integer, List<Annotation<?>>> annotationsPerChannel = new TreeMap<Integer, List<Annotation<?>>>();
+    for ( Annotation<?> annotation : aAnnotations )
+    {
+      final Integer channelIdx = Integer.valueOf( annotation.getChannel() );
+
+      List<Annotation<?>> annotations = annotationsPerChannel.get( channelIdx );
+      if ( annotations == null )
+      {
+        annotations = new ArrayList<Annotation<?>>();
+        annotationsPerChannel.put( channelIdx, annotations );
+      }
+      annotations.add( annotation );
+    }
+
+    for ( Map.Entry<Integer, List<Annotation<?>>> entry : annotationsPerChannel.entrySet() )
+    {
+      final Channel channel = getChannel( entry.getKey().intValue() );
+      channel.addAnnotations( entry.getValue() );
+    }
+
+    // Accumulate repaint events to avoid an avalanche of events on the EDT...
+    this.repaintAccumulatingRunnable.add( ( Void )null );
+  }
+
   /**
    * Opens a given file as OLS-data file.
    *
@@ -1010,17 +1156,14 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
    */
   public void openDataFile( final File aFile ) throws IOException
   {
-    final FileReader reader = new FileReader( aFile );
-
     try
     {
-      getCurrentProject().readData( reader );
+      getCurrentProject().readData( aFile );
 
       setStatusOnEDT( "Capture data loaded from {0} ...", aFile.getName() );
     }
     finally
     {
-      HostUtils.closeResource( reader );
       updateActionsOnEDT();
     }
   }
@@ -1265,6 +1408,37 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
     }
   }
 
+  /**
+   * Searches the current data set for the given query in the background, and
+   * goes to the first hit. All hits can be jumped to using the smart jump
+   * actions while holding ALT+SHIFT. A search still in progress is cancelled.
+   * <p>
+   * This method should be called from the EDT.
+   * </p>
+   *
+   * @param aQuery
+   *          the query to search for, cannot be <code>null</code>.
+   * @see SearchHelper
+   */
+  public void search( final String aQuery )
+  {
+    final DataSet dataSet = getCurrentDataSet();
+    if ( dataSet == null )
+    {
+      return;
+    }
+
+    if ( this.searchWorker != null )
+    {
+      this.searchWorker.cancel( true /* mayInterruptIfRunning */);
+    }
+
+    setStatusOnEDT( "Searching for \"{0}\" ...", aQuery );
+
+    this.searchWorker = new SearchWorker( dataSet, aQuery );
+    this.searchWorker.execute();
+  }
+
   /**
    * Selects the device with the given name.
    *
@@ -1650,6 +1824,7 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
 
         getAction( DeleteAllCursorsAction.ID ).setEnabled( enableCursors && anyCursorSet );
         getAction( RemoveAnnotationsAction.ID ).setEnabled( dataAvailable );
+        getAction( SearchAction.ID ).setEnabled( dataAvailable );
 
         getAction( SetMeasurementModeAction.ID ).setEnabled( timingDataPresent && dataAvailable );
         getAction( ShowManagerViewAction.ID ).setEnabled( dataAvailable );
@@ -1824,7 +1999,7 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
       }
     }
 
-    return new DefaultToolContext( startOfDecode, endOfDecode, dataSet );
+    return new DefaultToolContext( startOfDecode, endOfDecode, dataSet, this );
   }
 
   /**
@@ -1060,6 +1060,7 @@ public final class MainFrame extends JFrame implements Closeable, PropertyChange
     diagramMenu.add( this.controller.getAction( ZoomAllAction.ID ) );
     diagramMenu.addSeparator();
     diagramMenu.add( this.controller.getAction( GotoTriggerAction.ID ) );
+    diagramMenu.add( this.controller.getAction( SearchAction.ID ) );
     diagramMenu.addSeparator();
     diagramMenu.add( new JCheckBoxMenuItem( this.controller.getAction( SetCursorModeAction.ID ) ) );
     diagramMenu.add( new JCheckBoxMenuItem( this.controller.getAction( SetCursorSnapModeAction.ID ) ) );
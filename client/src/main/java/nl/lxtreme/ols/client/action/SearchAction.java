@@ -0,0 +1,87 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.action;
+
+
+import java.awt.*;
+import java.awt.event.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.client.*;
+import nl.lxtreme.ols.util.swing.*;
+
+
+/**
+ * Searches the current data set for a user-given query.
+ */
+public class SearchAction extends BaseAction
+{
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  public static final String ID = "Search";
+
+  // VARIABLES
+
+  private String lastQuery = "";
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SearchAction instance.
+   * 
+   * @param aController
+   *          the controller to use for this action.
+   */
+  public SearchAction( final ClientController aController )
+  {
+    super( ID, aController, "Find...", "Search the decoded data" );
+    putValue( ACCELERATOR_KEY, SwingComponentUtils.createMenuKeyMask( KeyEvent.VK_F, InputEvent.SHIFT_DOWN_MASK ) );
+    putValue( MNEMONIC_KEY, Integer.valueOf( KeyEvent.VK_I ) );
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void actionPerformed( final ActionEvent aEvent )
+  {
+    final Window owner = SwingComponentUtils.getOwningWindow( aEvent );
+
+    final Object query = JOptionPane.showInputDialog( owner,
+        "<html>Search for decoded value(s), such as \"0x4F 0x4C\", an event, such as \"START\",<br>"
+            + "or a pattern of value/mask states, such as \"pattern 0x1/0x3 0x2/0x3 within 100\":", "Find",
+        JOptionPane.QUESTION_MESSAGE, null, null, this.lastQuery );
+    if ( ( query == null ) || "".equals( String.valueOf( query ).trim() ) )
+    {
+      return;
+    }
+
+    this.lastQuery = String.valueOf( query ).trim();
+    getController().search( this.lastQuery );
+  }
+}
+
+/* EOF */
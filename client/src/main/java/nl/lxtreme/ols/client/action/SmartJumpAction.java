@@ -59,7 +59,7 @@ public class SmartJumpAction extends BaseAction
    */
   public static enum JumpType
   {
-    CURSOR, SIGNAL_EDGE, ANNOTATION;
+    CURSOR, SIGNAL_EDGE, ANNOTATION, SEARCH_HIT;
   }
 
   // CONSTANTS
@@ -107,7 +107,8 @@ public class SmartJumpAction extends BaseAction
   private static String getDescription( final JumpDirection aDirection )
   {
     return String.format( "<html>Jumps to the %1$s event. Use<br/>SHIFT to jump to %1$s cursor;<br/>"
-        + "CTRL to jump to %1$s edge, and<br/>ALT to jump to %1$s annotation.</html>",
+        + "CTRL to jump to %1$s edge;<br/>ALT to jump to %1$s annotation, and<br/>"
+        + "ALT+SHIFT to jump to %1$s search hit.</html>",
         ( aDirection == JumpDirection.LEFT ? "previous" : "next" ) );
   }
 
@@ -137,7 +138,13 @@ public class SmartJumpAction extends BaseAction
   {
     // What do we need to jump to?
     JumpType type = null;
-    if ( ( aEvent.getModifiers() & InputEvent.SHIFT_MASK ) != 0 )
+    final int searchHitMask = InputEvent.ALT_MASK | InputEvent.SHIFT_MASK;
+    if ( ( aEvent.getModifiers() & searchHitMask ) == searchHitMask )
+    {
+      // Search hit...
+      type = JumpType.SEARCH_HIT;
+    }
+    else if ( ( aEvent.getModifiers() & InputEvent.SHIFT_MASK ) != 0 )
     {
       // Cursor...
       type = JumpType.CURSOR;
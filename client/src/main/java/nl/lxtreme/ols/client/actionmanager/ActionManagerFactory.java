@@ -89,6 +89,7 @@ public final class ActionManagerFactory
     aActionManager.add( new SetCursorSnapModeAction( signalDiagramController ) );
     aActionManager.add( new SetCursorModeAction( signalDiagramController ) );
     aActionManager.add( new RemoveAnnotationsAction( aController ) ).setEnabled( false );
+    aActionManager.add( new SearchAction( aController ) ).setEnabled( false );
     aActionManager.add( new SetMeasurementModeAction( signalDiagramController ) ).setEnabled( false );
 
     aActionManager.add( new ShowManagerViewAction( aController ) );
@@ -474,7 +474,7 @@ public class SignalDiagramComponent extends JPanel implements Scrollable
     registerKeyBinding( this, ']', zoomOriginalAction );
 
     int[] modifiers = { InputEvent.SHIFT_DOWN_MASK, InputEvent.ALT_DOWN_MASK, InputEvent.CTRL_DOWN_MASK,
-        InputEvent.META_DOWN_MASK };
+        InputEvent.META_DOWN_MASK, InputEvent.ALT_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK };
 
     Action smartJumpLeftAction = actionManager.getAction( SmartJumpAction.getJumpLeftID() );
 
@@ -0,0 +1,392 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.signaldisplay.laf;
+
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.client.signaldisplay.model.*;
+import nl.lxtreme.ols.client.signaldisplay.signalelement.*;
+
+
+/**
+ * Provides a cache of pre-rendered signal tiles, which are rendered by
+ * background threads.
+ * <p>
+ * A tile covers {@link #TILE_WIDTH} pixels of a single signal element. Its key
+ * contains everything that influences how it is rendered, like the zoom factor,
+ * the captured data and the settings of the signal element, so a tile that is
+ * no longer up to date is never returned. Invalidating this cache, for example
+ * when the data or zoom factor changes, only serves to release the tiles that
+ * are no longer needed.
+ * </p>
+ */
+final class SignalTileCache
+{
+  // INNER TYPES
+
+  /**
+   * Renders a single tile in the background.
+   */
+  private final class RenderTask implements Runnable
+  {
+    // VARIABLES
+
+    private final TileKey key;
+    private final SignalViewModel model;
+    private final GraphicsConfiguration gc;
+    private final int yPosition;
+    private final int generation;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link RenderTask} instance.
+     */
+    RenderTask( final TileKey aKey, final SignalViewModel aModel, final GraphicsConfiguration aGC,
+        final int aYposition, final int aGeneration )
+    {
+      this.key = aKey;
+      this.model = aModel;
+      this.gc = aGC;
+      this.yPosition = aYposition;
+      this.generation = aGeneration;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run()
+    {
+      Image image = null;
+      try
+      {
+        if ( this.generation == SignalTileCache.this.generation.get() )
+        {
+          image = renderTile( this.key, this.model, this.gc );
+        }
+      }
+      finally
+      {
+        synchronized ( SignalTileCache.this.tiles )
+        {
+          SignalTileCache.this.pending.remove( this.key );
+          if ( ( image != null ) && ( this.generation == SignalTileCache.this.generation.get() ) )
+          {
+            SignalTileCache.this.tiles.put( this.key, image );
+          }
+        }
+      }
+
+      if ( image != null )
+      {
+        // Repainting is thread-safe...
+        SignalTileCache.this.view.repaint( this.key.index * TILE_WIDTH, this.yPosition, TILE_WIDTH, this.key.height );
+      }
+    }
+  }
+
+  /**
+   * Identifies a single tile, and everything that influences how it looks.
+   */
+  static final class TileKey
+  {
+    // VARIABLES
+
+    final SignalElement element;
+    final int index;
+    final int height;
+
+    private final double zoomFactor;
+    private final int[] values;
+    private final int signalHeight;
+    private final int offset;
+    private final int mask;
+    private final boolean enabled;
+    private final Color color;
+    private final Color barColor;
+    private final Font font;
+    private final int padding;
+    private final int flags;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link TileKey} instance.
+     */
+    TileKey( final SignalViewModel aModel, final SignalElement aElement, final int aIndex )
+    {
+      this.element = aElement;
+      this.index = aIndex;
+      this.height = aElement.getHeight();
+
+      this.zoomFactor = aModel.getZoomFactor();
+      this.values = aModel.getDataValues();
+      this.signalHeight = aElement.getSignalHeight();
+      this.offset = aElement.getOffset();
+      this.mask = aElement.getMask();
+      this.enabled = aElement.isEnabled();
+      this.color = aElement.getColor();
+      this.barColor = aModel.getGroupSummaryBarColor();
+      this.font = aModel.getGroupSummaryTextFont();
+      this.padding = aModel.getGroupSummaryPadding();
+      this.flags = ( aModel.isRenderGroupSummaryAntiAliased() ? 1 : 0 )
+          | ( aModel.isRenderScopeSignalAntiAliased() ? 2 : 0 ) | ( aModel.isSloppyScopeRenderingAllowed() ? 4 : 0 );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( final Object aObject )
+    {
+      if ( this == aObject )
+      {
+        return true;
+      }
+      if ( !( aObject instanceof TileKey ) )
+      {
+        return false;
+      }
+
+      final TileKey other = ( TileKey )aObject;
+      if ( ( this.element != other.element ) || ( this.index != other.index ) || ( this.values != other.values ) )
+      {
+        return false;
+      }
+      if ( Double.doubleToLongBits( this.zoomFactor ) != Double.doubleToLongBits( other.zoomFactor ) )
+      {
+        return false;
+      }
+      if ( ( this.height != other.height ) || ( this.signalHeight != other.signalHeight )
+          || ( this.offset != other.offset ) || ( this.mask != other.mask ) || ( this.enabled != other.enabled )
+          || ( this.padding != other.padding ) || ( this.flags != other.flags ) )
+      {
+        return false;
+      }
+
+      return this.color.equals( other.color ) && this.barColor.equals( other.barColor )
+          && this.font.equals( other.font );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+      final long zf = Double.doubleToLongBits( this.zoomFactor );
+
+      int result = System.identityHashCode( this.element );
+      result = ( 31 * result ) + this.index;
+      result = ( 31 * result ) + ( int )( zf ^ ( zf >>> 32 ) );
+      result = ( 31 * result ) + this.mask;
+      result = ( 31 * result ) + this.height;
+      result = ( 31 * result ) + this.color.hashCode();
+      return result;
+    }
+  }
+
+  // CONSTANTS
+
+  /** The width of a single tile, in pixels. */
+  static final int TILE_WIDTH = 256;
+
+  /** The maximum number of tiles to keep. */
+  private static final int MAX_TILES = 512;
+
+  // VARIABLES
+
+  private final SignalUI ui;
+  private final JComponent view;
+  private final ExecutorService executor;
+  private final AtomicInteger generation;
+
+  private final Map<TileKey, Image> tiles;
+  private final Set<TileKey> pending;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link SignalTileCache} instance.
+   *
+   * @param aUI
+   *          the UI that renders the tiles, cannot be <code>null</code>;
+   * @param aView
+   *          the view to repaint when a tile is rendered, cannot be
+   *          <code>null</code>.
+   */
+  SignalTileCache( final SignalUI aUI, final JComponent aView )
+  {
+    this.ui = aUI;
+    this.view = aView;
+    this.generation = new AtomicInteger();
+
+    this.tiles = new LinkedHashMap<TileKey, Image>( 16, 0.75f, true /* accessOrder */)
+    {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry( final Map.Entry<TileKey, Image> aEldest )
+      {
+        return size() > MAX_TILES;
+      }
+    };
+    this.pending = new HashSet<TileKey>();
+
+    this.executor = Executors.newFixedThreadPool( Runtime.getRuntime().availableProcessors(), new ThreadFactory()
+    {
+      private final AtomicInteger count = new AtomicInteger();
+
+      @Override
+      public Thread newThread( final Runnable aRunnable )
+      {
+        final Thread result = new Thread( aRunnable, "SignalTileRenderer-" + this.count.incrementAndGet() );
+        result.setDaemon( true );
+        result.setPriority( Thread.MIN_PRIORITY );
+        return result;
+      }
+    } );
+  }
+
+  // METHODS
+
+  /**
+   * Disposes this cache, stops all background rendering.
+   */
+  public void dispose()
+  {
+    invalidate();
+
+    this.executor.shutdownNow();
+  }
+
+  /**
+   * Returns the tile with the given index for the given signal element. If the
+   * tile is not yet rendered, it will be rendered in the background, after
+   * which the view is repainted.
+   *
+   * @param aModel
+   *          the model to use, cannot be <code>null</code>;
+   * @param aElement
+   *          the signal element to return the tile for, cannot be
+   *          <code>null</code>;
+   * @param aIndex
+   *          the index of the tile, >= 0;
+   * @param aYposition
+   *          the current Y-position of the signal element in the view.
+   * @return the rendered tile, or <code>null</code> if the tile is not yet
+   *         available.
+   */
+  public Image getTile( final SignalViewModel aModel, final SignalElement aElement, final int aIndex,
+      final int aYposition )
+  {
+    final TileKey key = new TileKey( aModel, aElement, aIndex );
+
+    synchronized ( this.tiles )
+    {
+      final Image result = this.tiles.get( key );
+      if ( ( result != null ) || !this.pending.add( key ) )
+      {
+        return result;
+      }
+    }
+
+    try
+    {
+      this.executor.execute( new RenderTask( key, aModel, this.view.getGraphicsConfiguration(), aYposition,
+          this.generation.get() ) );
+    }
+    catch ( RejectedExecutionException exception )
+    {
+      // Disposed while painting; leave the tile empty...
+      synchronized ( this.tiles )
+      {
+        this.pending.remove( key );
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Invalidates all tiles in this cache, and discards all pending renderings.
+   */
+  public void invalidate()
+  {
+    synchronized ( this.tiles )
+    {
+      this.generation.incrementAndGet();
+
+      this.tiles.clear();
+      this.pending.clear();
+    }
+  }
+
+  /**
+   * Renders the tile identified by the given key.
+   *
+   * @return the rendered tile, never <code>null</code>.
+   */
+  Image renderTile( final TileKey aKey, final SignalViewModel aModel, final GraphicsConfiguration aGC )
+  {
+    final int height = Math.max( 1, aKey.height );
+
+    final Image result;
+    if ( aGC != null )
+    {
+      result = aGC.createCompatibleImage( TILE_WIDTH, height, Transparency.TRANSLUCENT );
+    }
+    else
+    {
+      result = new BufferedImage( TILE_WIDTH, height, BufferedImage.TYPE_INT_ARGB );
+    }
+
+    final Graphics2D canvas = ( Graphics2D )result.getGraphics();
+    try
+    {
+      final int x = aKey.index * TILE_WIDTH;
+
+      // Render in the coordinate system of the view...
+      canvas.translate( -x, 0 );
+      canvas.setClip( x, 0, TILE_WIDTH, height );
+
+      this.ui.paintSignalElement( canvas, aModel, aKey.element );
+    }
+    finally
+    {
+      canvas.dispose();
+    }
+
+    return result;
+  }
+}
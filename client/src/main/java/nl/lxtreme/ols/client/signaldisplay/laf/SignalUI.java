@@ -21,11 +21,14 @@ package nl.lxtreme.ols.client.signaldisplay.laf;
 
 
 import java.awt.*;
+import java.awt.image.*;
+import java.util.*;
 
 import javax.swing.*;
 import javax.swing.plaf.*;
 
 import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.data.annotation.*;
 import nl.lxtreme.ols.client.signaldisplay.*;
 import nl.lxtreme.ols.client.signaldisplay.model.*;
@@ -39,8 +42,150 @@ import nl.lxtreme.ols.client.signaldisplay.view.*;
  */
 public class SignalUI extends ComponentUI
 {
+  // INNER TYPES
+
+  /**
+   * Caches the labels of annotations and their widths, so they do not need to
+   * be formatted and measured on every repaint. Only used on the EDT.
+   */
+  static final class LabelCache
+  {
+    // CONSTANTS
+
+    private static final int MAX_ENTRIES = 4096;
+
+    // VARIABLES
+
+    private final Map<DataAnnotation<?>, String> labels;
+    private final Map<String, Integer> widths;
+    private Font font;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link LabelCache} instance.
+     */
+    LabelCache()
+    {
+      this.labels = new LinkedHashMap<DataAnnotation<?>, String>( 16, 0.75f, true /* accessOrder */)
+      {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry( final Map.Entry<DataAnnotation<?>, String> aEldest )
+        {
+          return size() > MAX_ENTRIES;
+        }
+      };
+      this.widths = new LinkedHashMap<String, Integer>( 16, 0.75f, true /* accessOrder */)
+      {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry( final Map.Entry<String, Integer> aEldest )
+        {
+          return size() > MAX_ENTRIES;
+        }
+      };
+    }
+
+    // METHODS
+
+    /**
+     * Returns the label of the given annotation.
+     *
+     * @param aAnnotation
+     *          the annotation to return the label for, cannot be
+     *          <code>null</code>.
+     * @return a label, never <code>null</code>.
+     */
+    String getLabel( final DataAnnotation<?> aAnnotation )
+    {
+      String result = this.labels.get( aAnnotation );
+      if ( result == null )
+      {
+        result = String.valueOf( aAnnotation.getAnnotation() );
+        this.labels.put( aAnnotation, result );
+      }
+      return result;
+    }
+
+    /**
+     * Returns the width of the given label.
+     *
+     * @param aLabel
+     *          the label to measure;
+     * @param aMetrics
+     *          the font metrics to measure the label with.
+     * @return the width of the label, in pixels.
+     */
+    int getWidth( final String aLabel, final FontMetrics aMetrics )
+    {
+      if ( !aMetrics.getFont().equals( this.font ) )
+      {
+        this.font = aMetrics.getFont();
+        this.widths.clear();
+      }
+
+      Integer result = this.widths.get( aLabel );
+      if ( result == null )
+      {
+        result = Integer.valueOf( aMetrics.stringWidth( aLabel ) );
+        this.widths.put( aLabel, result );
+      }
+      return result.intValue();
+    }
+
+    /**
+     * Removes all cached labels.
+     */
+    void clear()
+    {
+      this.labels.clear();
+      this.widths.clear();
+    }
+  }
+
+  /**
+   * Provides the points of a polyline, growing as needed.
+   */
+  static final class PointBuffer
+  {
+    // VARIABLES
+
+    int[] x = new int[1024];
+    int[] y = new int[1024];
+
+    // METHODS
+
+    /**
+     * Makes sure this buffer can hold at least the given number of points.
+     *
+     * @param aCount
+     *          the number of points, will be capped to the maximum number of
+     *          points in a polyline.
+     */
+    void ensureCapacity( final long aCount )
+    {
+      final int count = ( int )Math.min( aCount, POINT_COUNT );
+      if ( count > this.x.length )
+      {
+        final int length = Math.max( count, Math.min( 2 * this.x.length, POINT_COUNT ) );
+        this.x = new int[length];
+        this.y = new int[length];
+      }
+    }
+  }
+
   // CONSTANTS
 
+  /**
+   * The minimal width, in pixels, of an annotation before it is drawn as box;
+   * narrower annotations are only shown in the density lane of a signal.
+   */
+  private static final int MIN_ANNOTATION_WIDTH = 6;
+  /** The number of intensities used to show the density of annotations. */
+  private static final int DENSITY_LEVELS = 8;
   /** The maximum number of points in a polyline. */
   private static final int POINT_COUNT = 1000000;
   /**
@@ -54,9 +199,31 @@ public class SignalUI extends ComponentUI
   private volatile boolean listening = true;
   private volatile MeasurementInfo measurementInfo;
   private volatile Rectangle measurementRect;
+  private volatile SignalTileCache tileCache;
+
+  /** The labels of the painted annotations, only used on the EDT. */
+  private final LabelCache labelCache = new LabelCache();
 
-  private static final int[] x = new int[2 * POINT_COUNT];
-  private static final int[] y = new int[2 * POINT_COUNT];
+  /** The signals and annotations of the visible area, only used on the EDT. */
+  private BufferedImage baseLayer;
+  private final Rectangle baseLayerRect = new Rectangle();
+  /** The area that is to be repainted for the overlay only, EDT only. */
+  private Rectangle overlayDirty;
+
+  private final Object baseLayerLock = new Object();
+  /** The area of the base layer that is to be repainted, guarded by lock. */
+  private Rectangle baseLayerDirty;
+  private boolean baseLayerValid;
+
+  /** The points of the polylines rendered by the current thread. */
+  private static final ThreadLocal<PointBuffer> POINTS = new ThreadLocal<PointBuffer>()
+  {
+    @Override
+    protected PointBuffer initialValue()
+    {
+      return new PointBuffer();
+    }
+  };
 
   // METHODS
 
@@ -133,6 +300,71 @@ public class SignalUI extends ComponentUI
     }
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void installUI( final JComponent aComponent )
+  {
+    super.installUI( aComponent );
+
+    this.tileCache = new SignalTileCache( this, aComponent );
+  }
+
+  /**
+   * Marks the given area of the base layer, containing the signals and
+   * annotations, as dirty. This method can be called from any thread.
+   *
+   * @param aX
+   *          the X-coordinate of the dirty area;
+   * @param aY
+   *          the Y-coordinate of the dirty area;
+   * @param aWidth
+   *          the width of the dirty area;
+   * @param aHeight
+   *          the height of the dirty area.
+   */
+  public void invalidateBaseLayer( final int aX, final int aY, final int aWidth, final int aHeight )
+  {
+    final Rectangle rect = new Rectangle( aX, aY, aWidth, aHeight );
+
+    synchronized ( this.baseLayerLock )
+    {
+      this.baseLayerDirty = union( this.baseLayerDirty, rect );
+    }
+  }
+
+  /**
+   * Marks the given area as only to be repainted for the overlay, containing
+   * the cursors and measurement arrow. When painting this area, the base layer
+   * is reused instead of repainted. This method should be called on the EDT.
+   *
+   * @param aRect
+   *          the area to mark, cannot be <code>null</code>.
+   */
+  public void invalidateOverlay( final Rectangle aRect )
+  {
+    this.overlayDirty = union( this.overlayDirty, aRect );
+  }
+
+  /**
+   * Invalidates all pre-rendered signal tiles and the base layer, for example,
+   * when the data or zoom factor changes.
+   */
+  public void invalidateTiles()
+  {
+    final SignalTileCache cache = this.tileCache;
+    if ( cache != null )
+    {
+      cache.invalidate();
+    }
+
+    synchronized ( this.baseLayerLock )
+    {
+      this.baseLayerValid = false;
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -160,46 +392,438 @@ public class SignalUI extends ComponentUI
     try
     {
       final Rectangle clip = aGraphics.getClipBounds();
-      final IUIElement[] elements = model.getSignalElements( clip.y, clip.height );
+      final Rectangle visible = view.getVisibleRect();
+
+      final Rectangle overlay = this.overlayDirty;
+      this.overlayDirty = null;
+
+      if ( visible.isEmpty() || !visible.contains( clip ) )
+      {
+        // Painting outside the visible area, for example, when exporting;
+        // paint the base layer directly...
+        final Graphics2D canvas = ( Graphics2D )aGraphics.create();
+        try
+        {
+          paintBaseLayer( canvas, model, clip );
+        }
+        finally
+        {
+          canvas.dispose();
+        }
+      }
+      else
+      {
+        updateBaseLayer( view, model, visible, clip, overlay );
+
+        aGraphics.drawImage( this.baseLayer, visible.x, visible.y, null );
+      }
+
+      // Draw the overlay on top of the base layer...
+      paintOverlay( ( Graphics2D )aGraphics, model );
+    }
+    finally
+    {
+      this.listening = true;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void uninstallUI( final JComponent aComponent )
+  {
+    final SignalTileCache cache = this.tileCache;
+    if ( cache != null )
+    {
+      cache.dispose();
+    }
+    this.tileCache = null;
+
+    this.labelCache.clear();
+
+    super.uninstallUI( aComponent );
+  }
+
+  /**
+   * Paints a single signal channel, group byte or analogue scope signal. This
+   * method is called by the rendering threads of the tile cache.
+   *
+   * @param aCanvas
+   *          the canvas to paint on, its origin is at the top of the signal
+   *          element and its clip denotes the area to paint, cannot be
+   *          <code>null</code>;
+   * @param aModel
+   *          the model to use, cannot be <code>null</code>;
+   * @param aSignalElement
+   *          the signal element to paint, cannot be <code>null</code>.
+   */
+  final void paintSignalElement( final Graphics2D aCanvas, final SignalViewModel aModel,
+      final SignalElement aSignalElement )
+  {
+    final int[] values = aModel.getDataValues();
+    final long[] timestamps = aModel.getTimestamps();
+
+    final Rectangle clip = aCanvas.getClipBounds();
+
+    final int startIdx = aModel.getStartIndex( clip );
+    final int endIdx = aModel.getEndIndex( clip, values.length );
+
+    final double zoomFactor = aModel.getZoomFactor();
+
+    final boolean enableSloppyScopePainting = aModel.isSloppyScopeRenderingAllowed();
+
+    // When zoomed out, use a summary of the data instead of the individual
+    // samples, as to keep the number of points drawn bounded by the clip...
+    final LevelOfDetail lod = aModel.getLevelOfDetail();
+    final int lodLevel = ( lod == null ) ? -1 : lod.getLevel( zoomFactor );
+    final int firstX = Math.max( clip.x, ( int )( zoomFactor * timestamps[startIdx] ) );
+    final int lastX = Math.min( clip.x + clip.width, ( int )( zoomFactor * timestamps[endIdx] ) );
+
+    final PointBuffer points = POINTS.get();
+
+    aCanvas.setColor( aSignalElement.getColor() );
+
+    if ( aSignalElement.isDigitalSignal() )
+    {
+      int signalHeight = aSignalElement.getSignalHeight();
+      int signalOffset = aSignalElement.getOffset();
+
+      // Tell Swing how we would like to render ourselves...
+      aCanvas.setRenderingHints( createSignalRenderingHints( false /* aUseAA */) );
+
+      aCanvas.translate( 0, signalOffset );
+
+      if ( !aSignalElement.isEnabled() || ( startIdx == endIdx ) )
+      {
+        // Forced zero'd channel is *very* easy to draw...
+        aCanvas.drawLine( clip.x, signalHeight, clip.x + clip.width, signalHeight );
+      }
+      else if ( lodLevel >= 0 )
+      {
+        // Zoomed out data set; draw its summary...
+        final int p = createDigitalSignalSummary( points, lod, lodLevel, aSignalElement.getMask(), signalHeight,
+            firstX, lastX, zoomFactor );
+
+        aCanvas.drawPolyline( points.x, points.y, p );
+      }
+      else
+      {
+        // "Normal" data set; draw as accurate as possible...
+        final int mask = aSignalElement.getMask();
+
+        points.ensureCapacity( ( 2L * ( endIdx - startIdx ) ) + 2L );
+
+        final int[] x = points.x;
+        final int[] y = points.y;
+
+        // Make sure we always start with time 0...
+        long timestamp = timestamps[startIdx];
+        int prevSampleValue = ( values[startIdx] & mask );
+
+        int xValue = ( int )( zoomFactor * timestamp );
+        int yValue = ( prevSampleValue == 0 ? signalHeight : 0 );
+
+        x[0] = xValue;
+        y[0] = yValue;
+        int p = 1;
+
+        for ( int sampleIdx = startIdx + 1; ( p < ( x.length - 2 ) ) && ( sampleIdx <= endIdx ); sampleIdx++ )
+        {
+          timestamp = timestamps[sampleIdx];
+          int sampleValue = ( values[sampleIdx] & mask );
+
+          xValue = ( int )( zoomFactor * timestamp );
+
+          if ( prevSampleValue != sampleValue )
+          {
+            x[p] = xValue;
+            y[p] = ( prevSampleValue == 0 ? signalHeight : 0 );
+            p++;
+          }
+
+          x[p] = xValue;
+          y[p] = ( sampleValue == 0 ? signalHeight : 0 );
+          p++;
+
+          prevSampleValue = sampleValue;
+        }
+
+        aCanvas.drawPolyline( x, y, p );
+      }
+
+      // Move back to the original position...
+      aCanvas.translate( 0, -signalOffset );
+    }
+
+    // As each tile is rendered on its own, decide on sloppy painting by the
+    // number of samples in this tile...
+    int sampleIncr = 1;
+    if ( enableSloppyScopePainting && ( ( endIdx - startIdx ) > SLOPPY_DRAW_THRESHOLD ) )
+    {
+      sampleIncr = ( int )Math.max( 1.0, ( 1.0 / zoomFactor ) );
+    }
+
+    if ( aSignalElement.isGroupSummary() && ( lodLevel >= 0 ) )
+    {
+      // Tell Swing how we would like to render ourselves...
+      aCanvas.setRenderingHints( createSignalRenderingHints( aModel.isRenderGroupSummaryAntiAliased() ) );
+
+      paintGroupSummary( aCanvas, aModel, aSignalElement, lod, lodLevel, firstX, lastX, zoomFactor );
+    }
+    else if ( aSignalElement.isGroupSummary() )
+    {
+      // Tell Swing how we would like to render ourselves...
+      aCanvas.setRenderingHints( createSignalRenderingHints( aModel.isRenderGroupSummaryAntiAliased() ) );
+
+      int mask = aSignalElement.getMask();
+
+      int padding = aModel.getGroupSummaryPadding();
+
+      int prevSampleValue = values[startIdx] & mask;
+      int prevX = ( int )( zoomFactor * timestamps[startIdx] );
+
+      aCanvas.setFont( aModel.getGroupSummaryTextFont() );
+
+      FontMetrics fm = aCanvas.getFontMetrics();
+      int textYpos = ( int )( ( aSignalElement.getHeight() + fm.getLeading() + fm.getMaxAscent() ) / 2.0 ) - padding;
+
+      for ( int sampleIdx = startIdx + 1; sampleIdx < endIdx; sampleIdx += sampleIncr )
+      {
+        int sampleValue = ( values[sampleIdx] & mask );
+
+        if ( sampleValue != prevSampleValue )
+        {
+          int x = ( int )( zoomFactor * timestamps[sampleIdx] );
+
+          String text = String.format( "%02X", Integer.valueOf( aSignalElement.getValue( prevSampleValue ) ) );
+
+          int textWidth = fm.stringWidth( text ) + ( 2 * padding );
+          int cellWidth = x - prevX;
+          if ( textWidth < cellWidth )
+          {
+            int textXpos = prevX + ( int )( ( cellWidth - textWidth ) / 2.0 ) + padding;
+
+            aCanvas.setColor( aSignalElement.getColor() );
+
+            aCanvas.drawString( text, textXpos, textYpos );
+          }
+
+          aCanvas.setColor( aModel.getGroupSummaryBarColor() );
+
+          // draw a small line...
+          aCanvas.drawLine( x, padding, x, aSignalElement.getHeight() - padding );
+
+          prevX = x;
+        }
+
+        prevSampleValue = sampleValue;
+      }
+    }
+
+    if ( aSignalElement.isAnalogSignal() )
+    {
+      // Tell Swing how we would like to render ourselves...
+      aCanvas.setRenderingHints( createSignalRenderingHints( aModel.isRenderScopeSignalAntiAliased() ) );
+
+      aCanvas.setColor( aSignalElement.getColor() );
+
+      long mask = aSignalElement.getMask() & 0xFFFFFFFFL;
+      final int trailingZeros = Long.numberOfTrailingZeros( mask );
+      final int onesCount = Long.SIZE - Long.numberOfLeadingZeros( mask ) - trailingZeros;
+      final long maxValue = ( ( 1L << onesCount ) - 1L ) & 0xFFFFFFFFL;
+      double scaleFactor = ( maxValue == 0L ) ? 1.0 : aSignalElement.getHeight() / ( double )maxValue;
+
+      points.ensureCapacity( ( endIdx - startIdx ) + 2L );
+
+      // Make sure we always start with time 0...
+      int p = 0;
+      if ( startIdx == endIdx )
+      {
+        points.x[p] = clip.x;
+        points.y[p] = aSignalElement.getHeight();
+        p++;
+      }
+      else if ( lodLevel >= 0 )
+      {
+        p = createAnalogSignalSummary( points, lod, lodLevel, ( int )mask, maxValue, scaleFactor, firstX,
+            lastX, zoomFactor );
+      }
+      else
+      {
+        final int[] x = points.x;
+        final int[] y = points.y;
+
+        for ( int sampleIdx = startIdx; ( p < ( x.length - 1 ) ) && ( sampleIdx < endIdx ); sampleIdx += sampleIncr )
+        {
+          long timestamp = timestamps[sampleIdx];
+
+          int sampleValue = ( int )( ( values[sampleIdx] & mask ) >> trailingZeros );
+          final int i_max = Math.min( endIdx, ( sampleIdx + sampleIncr ) - 1 );
+          for ( int i = sampleIdx + 1; i < i_max; i++ )
+          {
+            sampleValue += ( ( values[i] & mask ) >> trailingZeros );
+          }
+          sampleValue = ( int )( maxValue - ( sampleValue / ( double )sampleIncr ) );
+
+          x[p] = ( int )( zoomFactor * timestamp );
+          y[p] = ( int )( scaleFactor * sampleValue );
+          p++;
+        }
+      }
+
+      // Make sure we end at the last visible sample index...
+      points.x[p] = clip.x + clip.width;
+      points.y[p] = points.y[p - 1];
+      p++;
+
+      aCanvas.drawPolyline( points.x, points.y, p );
+    }
+  }
+
+  /**
+   * Returns the union of the two given rectangles.
+   *
+   * @return the union, or a copy of the given rectangle if the given union is
+   *         <code>null</code>.
+   */
+  private static Rectangle union( final Rectangle aUnion, final Rectangle aRect )
+  {
+    return ( aUnion == null ) ? new Rectangle( aRect ) : aUnion.union( aRect );
+  }
+
+  /**
+   * Creates the polyline for a zoomed-out analog scope signal, in which each
+   * pixel column is drawn as a vertical line from the minimum to the maximum
+   * value in that column.
+   *
+   * @return the number of points in the polyline.
+   */
+  private int createAnalogSignalSummary( final PointBuffer aPoints, final LevelOfDetail aLOD, final int aLevel,
+      final int aMask, final long aMaxValue, final double aScaleFactor, final int aFirstX,
+      final int aLastX, final double aZoomFactor )
+  {
+    aPoints.ensureCapacity( ( 2L * ( aLastX - aFirstX ) ) + 2L );
+
+    final int[] x = aPoints.x;
+    final int[] y = aPoints.y;
+
+    int p = 0;
+    for ( int xPos = aFirstX; ( p < ( x.length - 2 ) ) && ( xPos < aLastX ); xPos++ )
+    {
+      final long startTime = ( long )Math.ceil( xPos / aZoomFactor );
+      final long endTime = ( long )Math.ceil( ( xPos + 1 ) / aZoomFactor );
+
+      final long maxValue = aLOD.getMaximumValue( aMask, aLevel, startTime, endTime );
+      final long minValue = aLOD.getMinimumValue( aMask, aLevel, startTime, endTime );
+      if ( maxValue < 0L )
+      {
+        // No samples in this column...
+        continue;
+      }
+
+      x[p] = xPos;
+      y[p] = ( int )( aScaleFactor * ( aMaxValue - maxValue ) );
+      p++;
+
+      if ( minValue != maxValue )
+      {
+        x[p] = xPos;
+        y[p] = ( int )( aScaleFactor * ( aMaxValue - minValue ) );
+        p++;
+      }
+    }
+
+    if ( p == 0 )
+    {
+      x[p] = aFirstX;
+      y[p] = ( int )( aScaleFactor * aMaxValue );
+      p++;
+    }
+
+    return p;
+  }
+
+  /**
+   * Creates the polyline for a zoomed-out digital signal, in which each pixel
+   * column is either drawn as high, low or toggling.
+   *
+   * @return the number of points in the polyline.
+   */
+  private int createDigitalSignalSummary( final PointBuffer aPoints, final LevelOfDetail aLOD, final int aLevel,
+      final int aMask, final int aSignalHeight, final int aFirstX, final int aLastX, final double aZoomFactor )
+  {
+    aPoints.ensureCapacity( ( 2L * ( aLastX - aFirstX ) ) + 3L );
+
+    final int[] x = aPoints.x;
+    final int[] y = aPoints.y;
+
+    int p = 0;
+    int prevY = -1;
+
+    for ( int xPos = aFirstX; ( p < ( x.length - 3 ) ) && ( xPos < aLastX ); xPos++ )
+    {
+      final long startTime = ( long )Math.ceil( xPos / aZoomFactor );
+      final long endTime = ( long )Math.ceil( ( xPos + 1 ) / aZoomFactor );
+
+      final boolean high = ( aLOD.getHighMask( aLevel, startTime, endTime ) & aMask ) != 0;
+      final boolean low = ( aLOD.getLowMask( aLevel, startTime, endTime ) & aMask ) != 0;
+
+      if ( high && low )
+      {
+        // Toggling in this column; draw a vertical line...
+        final int yValue = ( prevY == 0 ) ? aSignalHeight : 0;
 
-      Graphics2D canvas = ( Graphics2D )aGraphics.create();
+        x[p] = xPos;
+        y[p] = ( prevY < 0 ) ? aSignalHeight - yValue : prevY;
+        p++;
 
-      try
-      {
-        if ( elements.length > 0 )
-        {
-          paintSignals( canvas, model, elements );
-        }
+        x[p] = xPos;
+        y[p] = yValue;
+        p++;
+
+        prevY = yValue;
       }
-      finally
+      else
       {
-        canvas.dispose();
-        canvas = null;
-      }
+        final int yValue = high ? 0 : aSignalHeight;
+        if ( yValue != prevY )
+        {
+          if ( prevY >= 0 )
+          {
+            x[p] = xPos;
+            y[p] = prevY;
+            p++;
+          }
 
-      // Use the *original* graphics object, as the one defined above is
-      // translated to some unknown coordinate system...
-      canvas = ( Graphics2D )aGraphics;
+          x[p] = xPos;
+          y[p] = yValue;
+          p++;
 
-      // Draw the cursor "flags"...
-      if ( model.isCursorMode() )
-      {
-        paintCursors( canvas, model );
+          prevY = yValue;
+        }
       }
+    }
 
-      // Draw the measurement stuff...
-      if ( model.isMeasurementMode() && MeasurementInfo.isDefined( this.measurementInfo ) )
-      {
-        paintMeasurementArrow( canvas, model, this.measurementInfo );
-      }
+    // Make sure we end at the last visible position...
+    x[p] = aLastX;
+    y[p] = ( prevY < 0 ) ? aSignalHeight : prevY;
+    p++;
 
-      // Draw the annotations...
-      paintAnnotations( canvas, model, elements );
-    }
-    finally
+    return p;
+  }
+
+  /**
+   * Creates an image for the base layer.
+   */
+  private BufferedImage createBaseLayer( final JComponent aComponent, final int aWidth, final int aHeight )
+  {
+    final GraphicsConfiguration gc = aComponent.getGraphicsConfiguration();
+    if ( gc != null )
     {
-      this.listening = true;
+      return gc.createCompatibleImage( aWidth, aHeight, Transparency.OPAQUE );
     }
+    return new BufferedImage( aWidth, aHeight, BufferedImage.TYPE_INT_RGB );
   }
 
   /**
@@ -227,9 +851,83 @@ public class SignalUI extends ComponentUI
   }
 
   /**
+   * Paints the density lane of a single signal element, showing how many
+   * annotations start in each pixel column.
+   *
+   * @param aCanvas
+   *          the canvas to paint on, cannot be <code>null</code>;
+   * @param aModel
+   *          the model to use, cannot be <code>null</code>;
+   * @param aCounts
+   *          the number of annotations per pixel column;
+   * @param aXpos
+   *          the X-position of the first pixel column;
+   * @param aYpos
+   *          the Y-position of the lane;
+   * @param aHeight
+   *          the height of the lane.
+   */
+  private void paintAnnotationDensity( final Graphics2D aCanvas, final SignalViewModel aModel, final int[] aCounts,
+      final int aXpos, final int aYpos, final int aHeight )
+  {
+    int maxCount = 0;
+    for ( int count : aCounts )
+    {
+      maxCount = Math.max( maxCount, count );
+    }
+    if ( maxCount == 0 )
+    {
+      // Nothing to do...
+      return;
+    }
+
+    final Color color = aModel.getAnnotationColor();
+    final float alpha = aModel.getAnnotationAlpha();
+
+    final Color[] levels = new Color[DENSITY_LEVELS + 1];
+    for ( int i = 1; i <= DENSITY_LEVELS; i++ )
+    {
+      final int a = Math.round( 255.0f * alpha * i / DENSITY_LEVELS );
+      levels[i] = new Color( color.getRed(), color.getGreen(), color.getBlue(), Math.max( 1, Math.min( 255, a ) ) );
+    }
+
+    // Draw each run of columns with the same intensity as a single rectangle...
+    int runStart = 0;
+    int runLevel = 0;
+    for ( int i = 0; i <= aCounts.length; i++ )
+    {
+      int level = 0;
+      if ( ( i < aCounts.length ) && ( aCounts[i] > 0 ) )
+      {
+        level = 1 + ( int )( ( ( long )( aCounts[i] - 1 ) * DENSITY_LEVELS ) / maxCount );
+        level = Math.min( DENSITY_LEVELS, level );
+      }
+
+      if ( level != runLevel )
+      {
+        if ( runLevel > 0 )
+        {
+          aCanvas.setColor( levels[runLevel] );
+          aCanvas.fillRect( aXpos + runStart, aYpos, i - runStart, aHeight );
+        }
+        runStart = i;
+        runLevel = level;
+      }
+    }
+  }
+
+  /**
+   * Paints the annotations of all given signal elements. Annotations that are
+   * too narrow to be readable are aggregated in a density lane per signal
+   * element; if the visible area contains more annotations than can be drawn
+   * readable at all, the annotations are not visited individually.
+   *
    * @param aCanvas
+   *          the canvas to paint on, cannot be <code>null</code>;
    * @param aModel
+   *          the model to use, cannot be <code>null</code>;
    * @param aSignalElements
+   *          the signal elements to paint the annotations for.
    */
   private void paintAnnotations( final Graphics2D aCanvas, final SignalViewModel aModel,
       final IUIElement[] aSignalElements )
@@ -260,6 +958,8 @@ public class SignalUI extends ComponentUI
 
     final AlphaComposite alphaComposite = AlphaComposite.SrcOver.derive( aModel.getAnnotationAlpha() );
 
+    final int[] density = new int[Math.max( 0, clip.width )];
+
     for ( IUIElement element : aSignalElements )
     {
       if ( element instanceof SignalElement )
@@ -281,62 +981,92 @@ public class SignalUI extends ComponentUI
             final FontMetrics fm = aCanvas.getFontMetrics();
             final int fontHeight = fm.getHeight();
 
-            for ( DataAnnotation<?> ann : helper.getAnnotations( DataAnnotation.class, startTimestamp, endTimestamp ) )
+            final int y1 = signalElement.getOffset( aModel.getAnnotationAlignment() );
+            final int y2 = y1 + signalElement.getSignalHeight();
+            final int midY = y1 + ( ( y2 - y1 ) / 2 );
+
+            Arrays.fill( density, 0 );
+
+            final int count = helper.countAnnotations( startTimestamp, endTimestamp + 1L );
+            if ( ( ( long )count * MIN_ANNOTATION_WIDTH ) > density.length )
+            {
+              // Too many annotations to show any of them readable; only count
+              // the annotations per pixel column...
+              for ( int i = 0; i < density.length; i++ )
+              {
+                final long colStart = ( long )Math.ceil( ( clip.x + i ) / zoomFactor );
+                final long colEnd = ( long )Math.ceil( ( clip.x + i + 1 ) / zoomFactor );
+                density[i] = helper.countAnnotations( colStart, colEnd );
+              }
+            }
+            else
             {
-              final long annStartTime = ann.getStartTimestamp();
-              final long annEndTime = ann.getEndTimestamp();
+              for ( DataAnnotation<?> ann : helper.getAnnotations( DataAnnotation.class, startTimestamp, endTimestamp ) )
+              {
+                final long annStartTime = ann.getStartTimestamp();
+                final long annEndTime = ann.getEndTimestamp();
 
-              int x1 = ( int )( annStartTime * zoomFactor );
-              int x2 = ( int )( annEndTime * zoomFactor );
-              int y1 = signalElement.getOffset( aModel.getAnnotationAlignment() );
-              int y2 = y1 + signalElement.getSignalHeight();
-              int midY = y1 + ( ( y2 - y1 ) / 2 );
+                int x1 = ( int )( annStartTime * zoomFactor );
+                int x2 = ( int )( annEndTime * zoomFactor );
 
-              final String annText = ann.getAnnotation().toString();
+                if ( ( x2 - x1 ) < MIN_ANNOTATION_WIDTH )
+                {
+                  final int col = x1 - clip.x;
+                  if ( ( col >= 0 ) && ( col < density.length ) )
+                  {
+                    density[col]++;
+                  }
+                  continue;
+                }
 
-              final int annotationWidth = ( x2 - x1 ) + 2;
+                final int annotationWidth = ( x2 - x1 ) + 2;
 
-              final Composite oldComposite = aCanvas.getComposite();
-              final Stroke oldStroke = aCanvas.getStroke();
+                final Composite oldComposite = aCanvas.getComposite();
+                final Stroke oldStroke = aCanvas.getStroke();
 
-              aCanvas.setComposite( alphaComposite );
+                aCanvas.setComposite( alphaComposite );
 
-              // Fade out the signal itself...
-              aCanvas.setColor( aModel.getBackgroundColor() );
-              if ( annotationRenderStyle )
-              {
-                aCanvas.fillRect( x1, y1 + 0, annotationWidth, ( y2 - y1 ) + 1 );
-              }
-              else
-              {
-                aCanvas.fillRect( x1, y1 + 1, annotationWidth, ( y2 - y1 ) - 1 );
-              }
+                // Fade out the signal itself...
+                aCanvas.setColor( aModel.getBackgroundColor() );
+                if ( annotationRenderStyle )
+                {
+                  aCanvas.fillRect( x1, y1 + 0, annotationWidth, ( y2 - y1 ) + 1 );
+                }
+                else
+                {
+                  aCanvas.fillRect( x1, y1 + 1, annotationWidth, ( y2 - y1 ) - 1 );
+                }
 
-              aCanvas.setComposite( oldComposite );
+                aCanvas.setComposite( oldComposite );
 
-              // Draw the thick white boundaries...
-              aCanvas.setColor( aModel.getAnnotationColor() );
-              aCanvas.setStroke( stroke );
-              aCanvas.drawLine( x1, y1 + 2, x1, y2 - 2 );
-              aCanvas.drawLine( x2, y1 + 2, x2, y2 - 2 );
+                // Draw the thick white boundaries...
+                aCanvas.setColor( aModel.getAnnotationColor() );
+                aCanvas.setStroke( stroke );
+                aCanvas.drawLine( x1, y1 + 2, x1, y2 - 2 );
+                aCanvas.drawLine( x2, y1 + 2, x2, y2 - 2 );
 
-              aCanvas.setStroke( oldStroke );
+                aCanvas.setStroke( oldStroke );
 
-              final int textWidth = fm.stringWidth( annText );
-              final int textXoffset = ( int )( ( annotationWidth - textWidth ) / 2.0 );
+                final String annText = this.labelCache.getLabel( ann );
 
-              if ( textXoffset > 0 )
-              {
-                int x3 = ( x1 + textXoffset );
-                if ( annotationRenderStyle && ( ( x3 - 4 ) > 0 ) )
+                final int textWidth = this.labelCache.getWidth( annText, fm );
+                final int textXoffset = ( int )( ( annotationWidth - textWidth ) / 2.0 );
+
+                if ( textXoffset > 0 )
                 {
-                  aCanvas.drawLine( x1, midY, x3 - 4, midY );
-                  aCanvas.drawLine( x3 + textWidth + 8, midY, x2, midY );
+                  int x3 = ( x1 + textXoffset );
+                  if ( annotationRenderStyle && ( ( x3 - 4 ) > 0 ) )
+                  {
+                    aCanvas.drawLine( x1, midY, x3 - 4, midY );
+                    aCanvas.drawLine( x3 + textWidth + 8, midY, x2, midY );
+                  }
+
+                  aCanvas.drawString( annText, x1 + textXoffset, y1 + fontHeight );
                 }
-
-                aCanvas.drawString( annText, x1 + textXoffset, y1 + fontHeight );
               }
             }
+
+            paintAnnotationDensity( aCanvas, aModel, density, clip.x, y1 + 1, Math.max( 1, ( y2 - y1 ) - 1 ) );
           }
         }
       }
@@ -346,6 +1076,32 @@ public class SignalUI extends ComponentUI
     }
   }
 
+  /**
+   * Paints the base layer, containing the signals and annotations.
+   *
+   * @param aCanvas
+   *          the canvas to paint on, cannot be <code>null</code>;
+   * @param aModel
+   *          the model to use, cannot be <code>null</code>;
+   * @param aClip
+   *          the area to paint, cannot be <code>null</code>.
+   */
+  private void paintBaseLayer( final Graphics2D aCanvas, final SignalViewModel aModel, final Rectangle aClip )
+  {
+    final IUIElement[] elements = aModel.getSignalElements( aClip.y, aClip.height );
+    if ( elements.length == 0 )
+    {
+      aCanvas.setBackground( aModel.getBackgroundColor() );
+      aCanvas.clearRect( aClip.x, aClip.y, aClip.width, aClip.height );
+      return;
+    }
+
+    paintSignals( aCanvas, aModel, elements );
+
+    // Draw the annotations...
+    paintAnnotations( aCanvas, aModel, elements );
+  }
+
   /**
    * Paints the cursors over the signals.
    *
@@ -378,6 +1134,84 @@ public class SignalUI extends ComponentUI
     }
   }
 
+  /**
+   * Paints a zoomed-out group summary, in which each run of pixel columns with
+   * a constant value is drawn as a single cell.
+   */
+  private void paintGroupSummary( final Graphics2D aCanvas, final SignalViewModel aModel,
+      final SignalElement aSignalElement, final LevelOfDetail aLOD, final int aLevel, final int aFirstX,
+      final int aLastX, final double aZoomFactor )
+  {
+    final int mask = aSignalElement.getMask();
+    final int padding = aModel.getGroupSummaryPadding();
+
+    aCanvas.setFont( aModel.getGroupSummaryTextFont() );
+
+    final FontMetrics fm = aCanvas.getFontMetrics();
+    final int textYpos = ( int )( ( aSignalElement.getHeight() + fm.getLeading() + fm.getMaxAscent() ) / 2.0 )
+        - padding;
+
+    int prevX = aFirstX;
+    // -1 denotes a toggling cell, which has no value to show...
+    long prevValue = -1L;
+
+    for ( int xPos = aFirstX; xPos < aLastX; xPos++ )
+    {
+      final long startTime = ( long )Math.ceil( xPos / aZoomFactor );
+      final long endTime = ( long )Math.ceil( ( xPos + 1 ) / aZoomFactor );
+
+      final int high = aLOD.getHighMask( aLevel, startTime, endTime ) & mask;
+      final int low = aLOD.getLowMask( aLevel, startTime, endTime ) & mask;
+      final long value = ( ( high & low ) == 0 ) ? ( high & 0xFFFFFFFFL ) : -1L;
+
+      if ( ( xPos > aFirstX ) && ( value >= 0 ) && ( value == prevValue ) )
+      {
+        // Same cell as before...
+        continue;
+      }
+
+      paintGroupSummaryText( aCanvas, aSignalElement, fm, padding, textYpos, prevValue, prevX, xPos );
+
+      if ( xPos > aFirstX )
+      {
+        // draw a small line...
+        aCanvas.setColor( aModel.getGroupSummaryBarColor() );
+        aCanvas.drawLine( xPos, padding, xPos, aSignalElement.getHeight() - padding );
+      }
+
+      prevX = xPos;
+      prevValue = value;
+    }
+
+    paintGroupSummaryText( aCanvas, aSignalElement, fm, padding, textYpos, prevValue, prevX, aLastX );
+  }
+
+  /**
+   * Paints the value of a single group summary cell, if it fits in that cell.
+   */
+  private void paintGroupSummaryText( final Graphics2D aCanvas, final SignalElement aSignalElement,
+      final FontMetrics aFM, final int aPadding, final int aTextYpos, final long aValue, final int aStartX,
+      final int aEndX )
+  {
+    if ( aValue < 0L )
+    {
+      // Nothing to show...
+      return;
+    }
+
+    final String text = String.format( "%02X", Integer.valueOf( aSignalElement.getValue( ( int )aValue ) ) );
+
+    final int textWidth = aFM.stringWidth( text ) + ( 2 * aPadding );
+    final int cellWidth = aEndX - aStartX;
+    if ( textWidth < cellWidth )
+    {
+      final int textXpos = aStartX + ( int )( ( cellWidth - textWidth ) / 2.0 ) + aPadding;
+
+      aCanvas.setColor( aSignalElement.getColor() );
+      aCanvas.drawString( text, textXpos, aTextYpos );
+    }
+  }
+
   /**
    * Renders the measurement information arrows.
    *
@@ -412,9 +1246,32 @@ public class SignalUI extends ComponentUI
     aCanvas.translate( -x, -y );
   }
 
+  /**
+   * Paints the overlay, containing the cursors and measurement arrow.
+   *
+   * @param aCanvas
+   *          the canvas to paint on, cannot be <code>null</code>;
+   * @param aModel
+   *          the model to use, cannot be <code>null</code>.
+   */
+  private void paintOverlay( final Graphics2D aCanvas, final SignalViewModel aModel )
+  {
+    // Draw the cursor "flags"...
+    if ( aModel.isCursorMode() )
+    {
+      paintCursors( aCanvas, aModel );
+    }
+
+    // Draw the measurement stuff...
+    if ( aModel.isMeasurementMode() && MeasurementInfo.isDefined( this.measurementInfo ) )
+    {
+      paintMeasurementArrow( aCanvas, aModel, this.measurementInfo );
+    }
+  }
+
   /**
    * Paints the individual signal channels, group bytes and analogue scope
-   * signals.
+   * signals, using the pre-rendered tiles of the tile cache.
    *
    * @param aCanvas
    *          the canvas to paint on, cannot be <code>null</code>;
@@ -425,7 +1282,6 @@ public class SignalUI extends ComponentUI
    */
   private void paintSignals( final Graphics2D aCanvas, final SignalViewModel aModel, final IUIElement[] aElements )
   {
-    final int[] values = aModel.getDataValues();
     final long[] timestamps = aModel.getTimestamps();
 
     final Rectangle clip = aCanvas.getClipBounds();
@@ -434,7 +1290,7 @@ public class SignalUI extends ComponentUI
     aCanvas.clearRect( clip.x, clip.y, clip.width, clip.height );
 
     final int startIdx = aModel.getStartIndex( clip );
-    final int endIdx = aModel.getEndIndex( clip, values.length );
+    final int endIdx = aModel.getEndIndex( clip, timestamps.length );
 
     final double zoomFactor = aModel.getZoomFactor();
 
@@ -451,196 +1307,159 @@ public class SignalUI extends ComponentUI
       }
     }
 
-    // Start drawing at the correct position in the clipped region...
-    aCanvas.translate( 0, aElements[0].getYposition() );
+    final SignalTileCache cache = this.tileCache;
 
-    final boolean enableSloppyScopePainting = aModel.isSloppyScopeRenderingAllowed();
-    int lastP = 0;
+    final int firstTile = clip.x / SignalTileCache.TILE_WIDTH;
+    final int lastTile = ( clip.x + clip.width - 1 ) / SignalTileCache.TILE_WIDTH;
+
+    int yPos = aElements[0].getYposition();
 
     for ( IUIElement element : aElements )
     {
-      if ( element instanceof ElementGroup )
-      {
-        // Draw nothing...
-
-        // advance to the next element...
-        aCanvas.translate( 0, element.getHeight() + aModel.getSignalElementSpacing() );
-
-        continue;
-      }
-
-      aCanvas.setColor( element.getColor() );
-
-      final SignalElement signalElement = ( SignalElement )element;
-
-      if ( signalElement.isDigitalSignal() )
+      if ( element instanceof SignalElement )
       {
-        int signalHeight = signalElement.getSignalHeight();
-        int signalOffset = signalElement.getOffset();
-
-        // Tell Swing how we would like to render ourselves...
-        aCanvas.setRenderingHints( createSignalRenderingHints( false /* aUseAA */) );
+        final SignalElement signalElement = ( SignalElement )element;
 
-        aCanvas.translate( 0, signalOffset );
-
-        if ( !signalElement.isEnabled() || ( startIdx == endIdx ) )
-        {
-          // Forced zero'd channel is *very* easy to draw...
-          aCanvas.drawLine( clip.x, signalHeight, clip.x + clip.width, signalHeight );
-        }
-        else
+        for ( int tile = firstTile; tile <= lastTile; tile++ )
         {
-          // "Normal" data set; draw as accurate as possible...
-          final int mask = signalElement.getMask();
-
-          // Make sure we always start with time 0...
-          long timestamp = timestamps[startIdx];
-          int prevSampleValue = ( values[startIdx] & mask );
+          final int x = tile * SignalTileCache.TILE_WIDTH;
 
-          int xValue = ( int )( zoomFactor * timestamp );
-          int yValue = ( prevSampleValue == 0 ? signalHeight : 0 );
-
-          x[0] = xValue;
-          y[0] = yValue;
-          int p = 1;
-
-          for ( int sampleIdx = startIdx + 1; ( p < POINT_COUNT ) && ( sampleIdx <= endIdx ); sampleIdx++ )
+          final Image image = ( cache == null ) ? null : cache.getTile( aModel, signalElement, tile, yPos );
+          if ( image != null )
           {
-            timestamp = timestamps[sampleIdx];
-            int sampleValue = ( values[sampleIdx] & mask );
-
-            xValue = ( int )( zoomFactor * timestamp );
-
-            if ( prevSampleValue != sampleValue )
-            {
-              x[p] = xValue;
-              y[p] = ( prevSampleValue == 0 ? signalHeight : 0 );
-              p++;
-            }
-
-            x[p] = xValue;
-            y[p] = ( sampleValue == 0 ? signalHeight : 0 );
-            p++;
-
-            prevSampleValue = sampleValue;
+            aCanvas.drawImage( image, x, yPos, null );
+          }
+          else
+          {
+            paintTilePlaceholder( aCanvas, aModel, signalElement, x, yPos );
           }
-
-          aCanvas.drawPolyline( x, y, p );
-
-          lastP = ( int )( ( p * 0.1 ) + ( lastP * 0.9 ) );
         }
-
-        // Move back to the original position...
-        aCanvas.translate( 0, -signalOffset );
-      }
-
-      int sampleIncr = 1;
-      if ( enableSloppyScopePainting && ( lastP > SLOPPY_DRAW_THRESHOLD ) )
-      {
-        sampleIncr = ( int )Math.max( 1.0, ( 1.0 / zoomFactor ) );
       }
 
-      if ( signalElement.isGroupSummary() )
-      {
-        // Tell Swing how we would like to render ourselves...
-        aCanvas.setRenderingHints( createSignalRenderingHints( aModel.isRenderGroupSummaryAntiAliased() ) );
-
-        int mask = signalElement.getMask();
-
-        int padding = aModel.getGroupSummaryPadding();
-
-        int prevSampleValue = values[startIdx] & mask;
-        int prevX = ( int )( zoomFactor * timestamps[startIdx] );
-
-        aCanvas.setFont( aModel.getGroupSummaryTextFont() );
-
-        FontMetrics fm = aCanvas.getFontMetrics();
-        int textYpos = ( int )( ( signalElement.getHeight() + fm.getLeading() + fm.getMaxAscent() ) / 2.0 ) - padding;
-
-        for ( int sampleIdx = startIdx + 1; sampleIdx < endIdx; sampleIdx += sampleIncr )
-        {
-          int sampleValue = ( values[sampleIdx] & mask );
-
-          if ( sampleValue != prevSampleValue )
-          {
-            int x = ( int )( zoomFactor * timestamps[sampleIdx] );
-
-            String text = String.format( "%02X", Integer.valueOf( signalElement.getValue( prevSampleValue ) ) );
+      // advance to the next element...
+      yPos += element.getHeight() + aModel.getSignalElementSpacing();
+    }
+  }
 
-            int textWidth = fm.stringWidth( text ) + ( 2 * padding );
-            int cellWidth = x - prevX;
-            if ( textWidth < cellWidth )
-            {
-              int textXpos = prevX + ( int )( ( cellWidth - textWidth ) / 2.0 ) + padding;
+  /**
+   * Paints a placeholder for a tile that is not yet rendered.
+   */
+  private void paintTilePlaceholder( final Graphics2D aCanvas, final SignalViewModel aModel,
+      final SignalElement aSignalElement, final int aXpos, final int aYpos )
+  {
+    final int y = aYpos + ( aSignalElement.getHeight() / 2 );
 
-              aCanvas.setColor( signalElement.getColor() );
+    aCanvas.setColor( aModel.getGroupSummaryBarColor() );
+    aCanvas.drawLine( aXpos, y, aXpos + SignalTileCache.TILE_WIDTH - 1, y );
+  }
 
-              aCanvas.drawString( text, textXpos, textYpos );
-            }
+  /**
+   * Brings the base layer up to date for painting the given clip.
+   *
+   * @param aComponent
+   *          the component to paint;
+   * @param aModel
+   *          the model to use;
+   * @param aVisible
+   *          the visible area of the component;
+   * @param aClip
+   *          the area to paint, should be inside the visible area;
+   * @param aOverlay
+   *          the area that is to be repainted for the overlay only, can be
+   *          <code>null</code>.
+   */
+  private void updateBaseLayer( final JComponent aComponent, final SignalViewModel aModel,
+      final Rectangle aVisible, final Rectangle aClip, final Rectangle aOverlay )
+  {
+    Rectangle dirty;
+    boolean valid;
+    synchronized ( this.baseLayerLock )
+    {
+      dirty = this.baseLayerDirty;
+      valid = this.baseLayerValid;
 
-            aCanvas.setColor( aModel.getGroupSummaryBarColor() );
+      this.baseLayerDirty = null;
+      this.baseLayerValid = true;
+    }
 
-            // draw a small line...
-            aCanvas.drawLine( x, padding, x, signalElement.getHeight() - padding );
+    final int width = aVisible.width;
+    final int height = aVisible.height;
 
-            prevX = x;
-          }
+    if ( ( this.baseLayer == null ) || ( this.baseLayer.getWidth() != width )
+        || ( this.baseLayer.getHeight() != height ) )
+    {
+      this.baseLayer = createBaseLayer( aComponent, width, height );
+      valid = false;
+    }
+    else if ( valid && !this.baseLayerRect.getLocation().equals( aVisible.getLocation() ) )
+    {
+      // Scrolled; move the part that is still visible and repaint the rest...
+      final int dx = this.baseLayerRect.x - aVisible.x;
+      final int dy = this.baseLayerRect.y - aVisible.y;
 
-          prevSampleValue = sampleValue;
-        }
+      if ( ( Math.abs( dx ) >= width ) || ( Math.abs( dy ) >= height ) )
+      {
+        valid = false;
       }
-
-      if ( signalElement.isAnalogSignal() )
+      else
       {
-        // Tell Swing how we would like to render ourselves...
-        aCanvas.setRenderingHints( createSignalRenderingHints( aModel.isRenderScopeSignalAntiAliased() ) );
-
-        aCanvas.setColor( signalElement.getColor() );
-
-        long mask = signalElement.getMask() & 0xFFFFFFFFL;
-        final int trailingZeros = Long.numberOfTrailingZeros( mask );
-        final int onesCount = Long.SIZE - Long.numberOfLeadingZeros( mask ) - trailingZeros;
-        final long maxValue = ( ( 1L << onesCount ) - 1L ) & 0xFFFFFFFFL;
-        double scaleFactor = ( maxValue == 0L ) ? 1.0 : signalElement.getHeight() / ( double )maxValue;
+        final Graphics graphics = this.baseLayer.getGraphics();
+        try
+        {
+          graphics.copyArea( 0, 0, width, height, dx, dy );
+        }
+        finally
+        {
+          graphics.dispose();
+        }
 
-        // Make sure we always start with time 0...
-        int p = 0;
-        if ( startIdx == endIdx )
+        if ( dx != 0 )
         {
-          x[p] = clip.x;
-          y[p] = signalElement.getHeight();
-          p++;
+          final int x = ( dx > 0 ) ? aVisible.x : ( aVisible.x + width + dx );
+          dirty = union( dirty, new Rectangle( x, aVisible.y, Math.abs( dx ), height ) );
         }
-        else
+        if ( dy != 0 )
         {
-          for ( int sampleIdx = startIdx; ( p < POINT_COUNT ) && ( sampleIdx < endIdx ); sampleIdx += sampleIncr )
-          {
-            long timestamp = timestamps[sampleIdx];
+          final int y = ( dy > 0 ) ? aVisible.y : ( aVisible.y + height + dy );
+          dirty = union( dirty, new Rectangle( aVisible.x, y, width, Math.abs( dy ) ) );
+        }
+      }
+    }
 
-            int sampleValue = ( int )( ( values[sampleIdx] & mask ) >> trailingZeros );
-            final int i_max = Math.min( endIdx, ( sampleIdx + sampleIncr ) - 1 );
-            for ( int i = sampleIdx + 1; i < i_max; i++ )
-            {
-              sampleValue += ( ( values[i] & mask ) >> trailingZeros );
-            }
-            sampleValue = ( int )( maxValue - ( sampleValue / ( double )sampleIncr ) );
+    this.baseLayerRect.setBounds( aVisible );
 
-            x[p] = ( int )( zoomFactor * timestamp );
-            y[p] = ( int )( scaleFactor * sampleValue );
-            p++;
-          }
-        }
+    if ( !valid )
+    {
+      dirty = new Rectangle( aVisible );
+    }
+    else if ( ( aOverlay == null ) || !aOverlay.contains( aClip ) )
+    {
+      // Not painting for the overlay only; repaint the base layer as well...
+      dirty = union( dirty, aClip );
+    }
 
-        // Make sure we end at the last visible sample index...
-        x[p] = clip.x + clip.width;
-        y[p] = y[p - 1];
-        p++;
+    if ( dirty == null )
+    {
+      return;
+    }
 
-        aCanvas.drawPolyline( x, y, p );
-      }
+    dirty = dirty.intersection( aVisible );
+    if ( dirty.isEmpty() )
+    {
+      return;
+    }
 
-      // advance to the next element...
-      aCanvas.translate( 0, signalElement.getHeight() + aModel.getSignalElementSpacing() );
+    final Graphics2D canvas = this.baseLayer.createGraphics();
+    try
+    {
+      canvas.translate( -aVisible.x, -aVisible.y );
+      canvas.clipRect( dirty.x, dirty.y, dirty.width, dirty.height );
+
+      paintBaseLayer( canvas, aModel, dirty );
+    }
+    finally
+    {
+      canvas.dispose();
     }
   }
 }
@@ -32,6 +32,7 @@ import javax.swing.event.*;
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.data.Cursor;
+import nl.lxtreme.ols.api.data.search.*;
 import nl.lxtreme.ols.client.signaldisplay.*;
 import nl.lxtreme.ols.client.signaldisplay.laf.*;
 import nl.lxtreme.ols.client.signaldisplay.signalelement.*;
@@ -66,6 +67,7 @@ public class SignalDiagramModel
   private volatile int mode;
   private volatile int selectedChannelIndex;
   private volatile DataSet dataSet;
+  private volatile SearchResult searchResult;
 
   private final ZoomController zoomController;
   private final SignalElementManager channelGroupManager;
@@ -237,73 +239,58 @@ public class SignalDiagramModel
   }
 
   /**
+   * Finds the timestamp of the first signal edge after the given timestamp.
+   *
    * @param aChannelIdx
+   *          the index of the channel to find the edge for;
    * @param aTimestamp
-   * @return
+   *          the timestamp to start searching from.
+   * @return the timestamp of the found edge, or the last timestamp in case no
+   *         more edges are found.
    */
   public final long findEdgeAfter( final int aChannelIdx, final long aTimestamp )
   {
     final long[] timestamps = getTimestamps();
-    final int[] values = getValues();
-
-    int refIdx = Arrays.binarySearch( timestamps, aTimestamp );
-    if ( refIdx < 0 )
-    {
-      refIdx = -( refIdx + 1 ) - 1;
-    }
 
-    if ( ( refIdx < 0 ) || ( refIdx >= values.length ) )
+    final int refIdx = findSampleIndex( aTimestamp );
+    if ( ( refIdx < 0 ) || ( refIdx >= timestamps.length ) )
     {
       return timestamps[0];
     }
 
-    // find the reference time value; which is the "timestamp" under the
-    // cursor...
-    final int mask = ( 1 << aChannelIdx );
-    final int refValue = ( values[refIdx] & mask );
-
-    do
+    final int edgeIdx = getEdgeIndex().findEdgeAfter( aChannelIdx, refIdx );
+    if ( edgeIdx < 0 )
     {
-      refIdx++;
+      return timestamps[timestamps.length - 1];
     }
-    while ( ( refIdx < ( values.length - 1 ) ) && ( ( values[refIdx] & mask ) == refValue ) );
 
-    return timestamps[refIdx];
+    return timestamps[edgeIdx];
   }
 
   /**
+   * Finds the timestamp right before the last signal edge at or before the
+   * given timestamp.
+   *
    * @param aChannelIdx
+   *          the index of the channel to find the edge for;
    * @param aTimestamp
-   * @return
+   *          the timestamp to start searching from.
+   * @return the timestamp of the sample preceeding the found edge, or the first
+   *         timestamp in case no edges are found.
    */
   public final long findEdgeBefore( final int aChannelIdx, final long aTimestamp )
   {
     final long[] timestamps = getTimestamps();
-    final int[] values = getValues();
-
-    int refIdx = Arrays.binarySearch( timestamps, aTimestamp );
-    if ( refIdx < 0 )
-    {
-      refIdx = -( refIdx + 1 ) - 1;
-    }
 
-    if ( ( refIdx < 0 ) || ( refIdx >= values.length ) )
+    final int refIdx = findSampleIndex( aTimestamp );
+    if ( ( refIdx < 0 ) || ( refIdx >= timestamps.length ) )
     {
       return timestamps[0];
     }
 
-    // find the reference time value; which is the "timestamp" under the
-    // cursor...
-    final int mask = ( 1 << aChannelIdx );
-    final int refValue = ( values[refIdx] & mask );
-
-    do
-    {
-      refIdx--;
-    }
-    while ( ( refIdx > 0 ) && ( ( values[refIdx] & mask ) == refValue ) );
+    final int edgeIdx = getEdgeIndex().findEdgeBefore( aChannelIdx, refIdx );
 
-    return timestamps[Math.max( 0, refIdx )];
+    return timestamps[Math.max( 0, edgeIdx - 1 )];
   }
 
   /**
@@ -426,6 +413,21 @@ public class SignalDiagramModel
     return Double.valueOf( result );
   }
 
+  /**
+   * Returns the edge index of the current captured data.
+   *
+   * @return the edge index, can only be <code>null</code> if there is no data.
+   */
+  public EdgeIndex getEdgeIndex()
+  {
+    final AcquisitionResult capturedData = getCapturedData();
+    if ( capturedData == null )
+    {
+      return null;
+    }
+    return EdgeIndex.getInstance( capturedData );
+  }
+
   /**
    * Calculates the horizontal block increment.
    * <p>
@@ -474,6 +476,22 @@ public class SignalDiagramModel
     return inc;
   }
 
+  /**
+   * Returns the level of detail of the current captured data.
+   *
+   * @return the level of detail, can only be <code>null</code> if there is no
+   *         data.
+   */
+  public LevelOfDetail getLevelOfDetail()
+  {
+    final AcquisitionResult capturedData = getCapturedData();
+    if ( capturedData == null )
+    {
+      return null;
+    }
+    return LevelOfDetail.getInstance( capturedData );
+  }
+
   /**
    * @return the minimum height of the signal diagram, in pixels, > 0.
    */
@@ -508,6 +526,17 @@ public class SignalDiagramModel
     return capturedData.getChannels();
   }
 
+  /**
+   * Returns the result of the last search, whose hits can be jumped to.
+   *
+   * @return the search result, can be <code>null</code> if nothing is
+   *         searched for.
+   */
+  public SearchResult getSearchResult()
+  {
+    return this.searchResult;
+  }
+
   /**
    * Returns the index of the current selected channel.
    *
@@ -595,44 +624,27 @@ public class SignalDiagramModel
     final int[] values = getValues();
     if ( ( refIdx >= 0 ) && ( refIdx < values.length ) )
     {
-      final int mask = channel.getMask();
-      final int refValue = ( values[refIdx] & mask );
+      final EdgeIndex edgeIndex = getEdgeIndex();
+      final int channelIdx = channel.getIndex();
 
-      int idx = refIdx;
-      do
-      {
-        idx--;
-      }
-      while ( ( idx >= 0 ) && ( ( values[idx] & mask ) == refValue ) );
-
-      // convert the found index back to "screen" values...
-      final int tm_idx = Math.max( 0, idx + 1 );
+      // find the edge that started the pulse under the cursor...
+      final int tm_idx = Math.max( 0, edgeIndex.findEdgeBefore( channelIdx, refIdx ) );
       tm = ( tm_idx == 0 ) ? 0 : timestamps[tm_idx];
 
-      // Search for the original value again, to complete the pulse...
-      do
-      {
-        idx--;
-      }
-      while ( ( idx >= 0 ) && ( ( values[idx] & mask ) != refValue ) );
-
-      // convert the found index back to "screen" values...
-      final int ts_idx = Math.max( 0, idx + 1 );
+      // Search for the edge before that one, to complete the pulse...
+      final int ts_idx = ( tm_idx == 0 ) ? 0 : Math.max( 0, edgeIndex.findEdgeBefore( channelIdx, tm_idx - 1 ) );
       ts = ( ts_idx == 0 ) ? 0 : timestamps[ts_idx];
 
-      idx = refIdx;
-      do
+      // Search for the edge that ends the pulse under the cursor...
+      int te_idx = edgeIndex.findEdgeAfter( channelIdx, refIdx );
+      if ( te_idx < 0 )
       {
-        idx++;
+        te_idx = timestamps.length - 1;
       }
-      while ( ( idx < values.length ) && ( ( values[idx] & mask ) == refValue ) );
-
-      // convert the found index back to "screen" values...
-      final int te_idx = Math.min( idx, timestamps.length - 1 );
       te = ( te_idx == 0 ) ? 0 : timestamps[te_idx];
 
       // Determine the width of the "high" part...
-      if ( ( values[ts_idx] & mask ) != 0 )
+      if ( ( values[ts_idx] & channel.getMask() ) != 0 )
       {
         th = Math.abs( tm - ts );
       }
@@ -1221,6 +1233,8 @@ public class SignalDiagramModel
     }
 
     this.dataSet = aDataSet;
+    // The hits of a previous search no longer apply...
+    this.searchResult = null;
 
     final IDataModelChangeListener[] listeners = this.eventListeners.getListeners( IDataModelChangeListener.class );
     for ( IDataModelChangeListener listener : listeners )
@@ -1257,6 +1271,18 @@ public class SignalDiagramModel
     }
   }
 
+  /**
+   * Sets the result of a search, whose hits can be jumped to.
+   *
+   * @param aSearchResult
+   *          the search result to set, can be <code>null</code> to clear the
+   *          current search result.
+   */
+  public void setSearchResult( final SearchResult aSearchResult )
+  {
+    this.searchResult = aSearchResult;
+  }
+
   /**
    * Sets the selected channel index to the given value.
    *
@@ -1304,6 +1330,25 @@ public class SignalDiagramModel
     }
   }
 
+  /**
+   * Returns the index of the last sample whose timestamp is at or before the
+   * given timestamp.
+   *
+   * @param aTimestamp
+   *          the timestamp to find the sample index for.
+   * @return a sample index, or -1 if the given timestamp lies before the first
+   *         sample.
+   */
+  private int findSampleIndex( final long aTimestamp )
+  {
+    int refIdx = Arrays.binarySearch( getTimestamps(), aTimestamp );
+    if ( refIdx < 0 )
+    {
+      refIdx = -( refIdx + 1 ) - 1;
+    }
+    return refIdx;
+  }
+
   /**
    * {@inheritDoc}
    */
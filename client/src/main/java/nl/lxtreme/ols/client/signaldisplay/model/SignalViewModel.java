@@ -26,6 +26,7 @@ import java.awt.*;
 
 import javax.swing.*;
 
+import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.client.signaldisplay.*;
 import nl.lxtreme.ols.client.signaldisplay.model.SignalDiagramModel.*;
 import nl.lxtreme.ols.client.signaldisplay.view.*;
@@ -192,6 +193,16 @@ public class SignalViewModel extends AbstractViewModel
     return font;
   }
 
+  /**
+   * Returns the level of detail to use for drawing zoomed-out signals.
+   * 
+   * @return the level of detail, can be <code>null</code> if there is no data.
+   */
+  public LevelOfDetail getLevelOfDetail()
+  {
+    return this.controller.getViewModel().getLevelOfDetail();
+  }
+
   /**
    * Returns the color for the arrows shown in the measurement view.
    * 
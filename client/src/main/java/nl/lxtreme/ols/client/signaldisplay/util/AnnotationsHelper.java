@@ -77,6 +77,20 @@ public final class AnnotationsHelper
 
   // METHODS
 
+  /**
+   * Returns the number of annotations that start in the given time range.
+   * 
+   * @param aStartTime
+   *          the start timestamp, inclusive;
+   * @param aEndTime
+   *          the end timestamp, exclusive.
+   * @return an annotation count, >= 0.
+   */
+  public int countAnnotations( final long aStartTime, final long aEndTime )
+  {
+    return this.channel.getAnnotationIndex().countAnnotations( aStartTime, aEndTime );
+  }
+
   /**
    * Finds the annotation that starts before the given timestamp, and ends at or
    * after the given timestamp.
@@ -88,26 +102,7 @@ public final class AnnotationsHelper
    */
   public DataAnnotation<?> getAnnotation( final long aTimestamp )
   {
-    DataAnnotation<?> result = null;
-    for ( Annotation<?> annotation : this.channel.getAnnotations() )
-    {
-      if ( !( annotation instanceof DataAnnotation<?> ) )
-      {
-        continue;
-      }
-
-      final DataAnnotation<?> ann = ( DataAnnotation<?> )annotation;
-
-      final long annStartTime = ann.getStartTimestamp();
-      final long annEndTime = ann.getEndTimestamp();
-
-      if ( ( annStartTime <= aTimestamp ) && ( annEndTime >= aTimestamp ) )
-      {
-        result = ann;
-        break;
-      }
-    }
-    return result;
+    return this.channel.getAnnotationIndex().getAnnotation( aTimestamp );
   }
 
   /**
@@ -120,30 +115,11 @@ public final class AnnotationsHelper
    */
   public DataAnnotation<?> getAnnotationAfter( final long aTimestamp )
   {
-    SortedSet<Annotation<?>> annotations = new TreeSet<Annotation<?>>( this.channel.getAnnotations() );
-    for ( Annotation<?> annotation : annotations )
-    {
-      if ( !( annotation instanceof DataAnnotation<?> ) )
-      {
-        continue;
-      }
-
-      final DataAnnotation<?> ann = ( DataAnnotation<?> )annotation;
-
-      final long annStartTime = ann.getStartTimestamp();
-      final long annEndTime = ann.getEndTimestamp();
-
-      if ( ( annStartTime >= aTimestamp ) && ( annEndTime >= aTimestamp ) )
-      {
-        return ann;
-      }
-    }
-
-    return null;
+    return this.channel.getAnnotationIndex().getAnnotationAfter( aTimestamp );
   }
 
   /**
-   * Finds the first annotation that starts and ends before the given timestamp.
+   * Finds the last annotation that starts and ends before the given timestamp.
    * 
    * @param aTimestamp
    *          the timestamp to search for annotations, >= 0L.
@@ -152,32 +128,7 @@ public final class AnnotationsHelper
    */
   public DataAnnotation<?> getAnnotationBefore( final long aTimestamp )
   {
-    DataAnnotation<?> result = null;
-
-    SortedSet<Annotation<?>> annotations = new TreeSet<Annotation<?>>( this.channel.getAnnotations() );
-    for ( Annotation<?> annotation : annotations )
-    {
-      if ( !( annotation instanceof DataAnnotation<?> ) )
-      {
-        continue;
-      }
-
-      final DataAnnotation<?> ann = ( DataAnnotation<?> )annotation;
-
-      final long annStartTime = ann.getStartTimestamp();
-      final long annEndTime = ann.getEndTimestamp();
-
-      if ( ( annStartTime < aTimestamp ) && ( annEndTime < aTimestamp ) )
-      {
-        result = ann;
-      }
-      else
-      {
-        break;
-      }
-    }
-
-    return result;
+    return this.channel.getAnnotationIndex().getAnnotationBefore( aTimestamp );
   }
 
   /**
@@ -193,26 +144,12 @@ public final class AnnotationsHelper
       final long aEndTime )
   {
     List<T> result = new ArrayList<T>();
-    for ( Annotation<?> annotation : this.channel.getAnnotations() )
+    for ( DataAnnotation<?> annotation : this.channel.getAnnotationIndex().getAnnotations( aStartTime, aEndTime ) )
     {
-      if ( !aType.isAssignableFrom( annotation.getClass() ) )
+      if ( aType.isAssignableFrom( annotation.getClass() ) )
       {
-        continue;
+        result.add( ( T )annotation );
       }
-
-      final DataAnnotation<?> ann = ( DataAnnotation<?> )annotation;
-
-      final long annStartTime = ann.getStartTimestamp();
-      final long annEndTime = ann.getEndTimestamp();
-
-      if ( ( ( annStartTime < aStartTime ) && ( annEndTime < aStartTime ) )
-          || ( ( annStartTime > aEndTime ) && ( annEndTime > aEndTime ) ) )
-      {
-        // Simple reject: annotation falls outside clip boundaries...
-        continue;
-      }
-
-      result.add( ( T )ann );
     }
     return result;
   }
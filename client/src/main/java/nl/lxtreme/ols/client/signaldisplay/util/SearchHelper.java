@@ -0,0 +1,284 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.signaldisplay.util;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.api.data.search.*;
+
+
+/**
+ * Provides a simple query language for searching a data set, whose hits can be
+ * jumped to with the smart jump actions.
+ * <p>
+ * A query starting with "pattern" searches the captured data for a sequence
+ * of states, each given as <tt>value/mask</tt>, optionally followed by
+ * "within" and the maximum duration (in samples) of the sequence, for example,
+ * "pattern 0x1/0x3 0x2/0x3 within 100". A query consisting solely of numbers
+ * (decimal, or hexadecimal when prefixed with "0x") searches for consecutive
+ * decoded frames with that sequence of values. Any other query searches for
+ * decoded events of that type, for example, "START". Both search the decoded
+ * data of all channels.
+ * </p>
+ * <p>
+ * The index of the decoded data is cached per data set, and is only rebuilt
+ * when the annotations of one of its channels change. Searches can take a
+ * while on large data sets, and should therefore not be run on the EDT.
+ * </p>
+ */
+public final class SearchHelper
+{
+  // INNER TYPES
+
+  /**
+   * Keeps the index of the decoded data of a data set, along with the state of
+   * the annotations it was built from.
+   */
+  private static final class CachedIndex
+  {
+    // VARIABLES
+
+    private final DataAnnotationIndex[] annotationIndices;
+    private final int[] modificationCounts;
+    private final DecodedDataIndex index;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link CachedIndex} instance, indexing the decoded data of
+     * all given channels.
+     */
+    CachedIndex( final Channel[] aChannels )
+    {
+      this.annotationIndices = new DataAnnotationIndex[aChannels.length];
+      this.modificationCounts = new int[aChannels.length];
+
+      final DecodedDataIndexBuilder builder = new DecodedDataIndexBuilder();
+      for ( int i = 0; i < aChannels.length; i++ )
+      {
+        final DataAnnotationIndex annotationIndex = aChannels[i].getAnnotationIndex();
+        // Take the count *before* adding the annotations, so a concurrent
+        // change causes a rebuild the next time...
+        this.modificationCounts[i] = annotationIndex.getModificationCount();
+        this.annotationIndices[i] = annotationIndex;
+
+        builder.addAll( aChannels[i] );
+      }
+      this.index = builder.build();
+    }
+
+    // METHODS
+
+    /**
+     * Returns whether this index still reflects the annotations of the given
+     * channels.
+     */
+    boolean isUpToDate( final Channel[] aChannels )
+    {
+      if ( aChannels.length != this.annotationIndices.length )
+      {
+        return false;
+      }
+      for ( int i = 0; i < aChannels.length; i++ )
+      {
+        final DataAnnotationIndex annotationIndex = aChannels[i].getAnnotationIndex();
+        if ( ( annotationIndex != this.annotationIndices[i] )
+            || ( annotationIndex.getModificationCount() != this.modificationCounts[i] ) )
+        {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  // CONSTANTS
+
+  /** Keeps the indices of all data sets still in use. */
+  private static final Map<DataSet, CachedIndex> INDICES = new WeakHashMap<DataSet, CachedIndex>();
+
+  private static final String PATTERN_KEYWORD = "pattern";
+  private static final String WITHIN_KEYWORD = "within";
+
+  // VARIABLES
+
+  private final DataSet dataSet;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link SearchHelper} instance.
+   *
+   * @param aDataSet
+   *          the data set to search in, cannot be <code>null</code>.
+   */
+  public SearchHelper( final DataSet aDataSet )
+  {
+    if ( aDataSet == null )
+    {
+      throw new IllegalArgumentException( "Data set cannot be null!" );
+    }
+    this.dataSet = aDataSet;
+  }
+
+  // METHODS
+
+  /**
+   * Parses the given query as pattern query.
+   *
+   * @param aQuery
+   *          the query to parse, cannot be <code>null</code>.
+   * @return the parsed search pattern, or <code>null</code> if the query is not
+   *         a pattern query.
+   * @throws IllegalArgumentException
+   *           in case the query is a malformed pattern query.
+   */
+  static SearchPattern parsePattern( final String aQuery )
+  {
+    final String[] tokens = aQuery.trim().split( "\\s+" );
+    if ( !PATTERN_KEYWORD.equalsIgnoreCase( tokens[0] ) )
+    {
+      return null;
+    }
+
+    SearchPattern result = null;
+    int i = 1;
+    for ( ; ( i < tokens.length ) && !WITHIN_KEYWORD.equalsIgnoreCase( tokens[i] ); i++ )
+    {
+      final String[] state = tokens[i].split( "/" );
+      if ( state.length != 2 )
+      {
+        throw new IllegalArgumentException( "Invalid state: " + tokens[i] + "; expected value/mask!" );
+      }
+
+      final int value = Long.decode( state[0] ).intValue();
+      final int mask = Long.decode( state[1] ).intValue();
+      result = ( result == null ) ? new SearchPattern( mask, value ) : result.followedBy( mask, value );
+    }
+
+    if ( result == null )
+    {
+      throw new IllegalArgumentException( "Pattern needs at least one state!" );
+    }
+    if ( i < tokens.length )
+    {
+      if ( i != ( tokens.length - 2 ) )
+      {
+        throw new IllegalArgumentException( "Expected a single duration after \"" + WITHIN_KEYWORD + "\"!" );
+      }
+      result = result.within( Long.decode( tokens[i + 1] ).longValue() );
+    }
+    return result;
+  }
+
+  /**
+   * Parses the given query as a sequence of numbers, separated by whitespace
+   * and/or commas.
+   *
+   * @param aQuery
+   *          the query to parse, cannot be <code>null</code>.
+   * @return the parsed numbers, or <code>null</code> if the query contains
+   *         anything else than numbers.
+   */
+  static int[] parseValues( final String aQuery )
+  {
+    final String[] tokens = aQuery.trim().split( "[\\s,]+" );
+    if ( ( tokens.length == 0 ) || "".equals( tokens[0] ) )
+    {
+      return null;
+    }
+
+    final int[] result = new int[tokens.length];
+    for ( int i = 0; i < tokens.length; i++ )
+    {
+      try
+      {
+        result[i] = Long.decode( tokens[i] ).intValue();
+      }
+      catch ( NumberFormatException exception )
+      {
+        return null;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Searches the data set for the given query.
+   *
+   * @param aQuery
+   *          the query to search for, cannot be <code>null</code> or empty.
+   * @return the search result, never <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the query is a malformed pattern query;
+   * @throws InterruptedException
+   *           in case the search was interrupted.
+   */
+  public SearchResult search( final String aQuery ) throws InterruptedException
+  {
+    if ( ( aQuery == null ) || "".equals( aQuery.trim() ) )
+    {
+      throw new IllegalArgumentException( "Query cannot be null or empty!" );
+    }
+
+    final String query = aQuery.trim();
+
+    final SearchPattern pattern = parsePattern( query );
+    if ( pattern != null )
+    {
+      return new PatternSearch( this.dataSet.getCapturedData() ).search( pattern );
+    }
+
+    final DecodedDataIndex index = getIndex();
+
+    final int[] values = parseValues( query );
+    if ( values != null )
+    {
+      return index.findSequence( DecodedDataIndex.ANY_CHANNEL, values );
+    }
+    return index.findEvent( DecodedDataIndex.ANY_CHANNEL, query );
+  }
+
+  /**
+   * Returns the index of the decoded data of all channels, rebuilding it only
+   * if the annotations of any channel changed since it was last built.
+   */
+  private DecodedDataIndex getIndex()
+  {
+    final Channel[] channels = this.dataSet.getChannels();
+
+    synchronized ( INDICES )
+    {
+      CachedIndex result = INDICES.get( this.dataSet );
+      if ( ( result == null ) || !result.isUpToDate( channels ) )
+      {
+        result = new CachedIndex( channels );
+        INDICES.put( this.dataSet, result );
+      }
+      return result.index;
+    }
+  }
+}
+
+/* EOF */
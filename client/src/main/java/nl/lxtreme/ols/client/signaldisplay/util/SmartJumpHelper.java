@@ -27,6 +27,7 @@ import java.util.List;
 
 import nl.lxtreme.ols.api.data.Cursor;
 import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.api.data.search.*;
 import nl.lxtreme.ols.client.action.SmartJumpAction.*;
 import nl.lxtreme.ols.client.signaldisplay.*;
 import nl.lxtreme.ols.client.signaldisplay.model.*;
@@ -97,6 +98,9 @@ public final class SmartJumpHelper
         case CURSOR:
           return getCursorJumpPosition( refTimestamp );
 
+        case SEARCH_HIT:
+          return getSearchHitJumpPosition( refTimestamp );
+
         case SIGNAL_EDGE:
           return getSignalEdgeJumpPosition( aChannelIndex, refTimestamp );
       }
@@ -177,6 +181,36 @@ public final class SmartJumpHelper
     return -1L;
   }
 
+  /**
+   * @param refTimestamp
+   * @return
+   */
+  private long getSearchHitJumpPosition( final long refTimestamp )
+  {
+    SearchResult result = getSignalDiagramModel().getSearchResult();
+    if ( result == null )
+    {
+      return -1L;
+    }
+
+    int hit;
+    if ( this.direction.isLeft() )
+    {
+      hit = result.getHitBefore( refTimestamp );
+    }
+    else
+    {
+      hit = result.getHitAfter( refTimestamp );
+    }
+
+    if ( hit >= 0 )
+    {
+      return result.getStartTimestamp( hit );
+    }
+
+    return -1L;
+  }
+
   /**
    * @return
    */
@@ -216,6 +216,7 @@ ICursorChangeListener, IMeasurementListener
     // VARIABLES
 
     private final AcquisitionResult result;
+    private final int index;
     private final int mask;
     private final long startTimestamp;
     private final long endTimestamp;
@@ -229,6 +230,7 @@ ICursorChangeListener, IMeasurementListener
         final long aEndTimestamp )
     {
       this.result = aResult;
+      this.index = aIndex;
       this.mask = ( 1 << aIndex );
       this.startTimestamp = aStartTimestamp;
       this.endTimestamp = aEndTimestamp;
@@ -250,44 +252,42 @@ ICursorChangeListener, IMeasurementListener
 
       final boolean hasTimingData = this.result.hasTimingData();
 
-      final int[] values = this.result.getValues();
       final long[] timestamps = this.result.getTimestamps();
+      final EdgeIndex edgeIndex = EdgeIndex.getInstance( this.result );
 
       int fallingEdgeCount = 0;
       long highTime = 0;
       int risingEdgeCount = 0;
       long lowTime = 0;
 
-      int i = startIdx;
-      long lastTransition = timestamps[i];
-      int lastBitValue = values[i++] & this.mask;
-
-      for ( ; !Thread.currentThread().isInterrupted() && ( i <= endIdx ); i++ )
+      // Only look at the actual edges of our channel in (startIdx, endIdx]...
+      final int firstEdgeNr = edgeIndex.getEdgeNumber( this.index, startIdx );
+      final int lastEdgeNr = edgeIndex.getEdgeNumber( this.index, endIdx ) - 1;
+      if ( firstEdgeNr <= lastEdgeNr )
       {
-        final int bitValue = values[i] & this.mask;
-        final Edge edge = Edge.toEdge( lastBitValue, bitValue );
+        risingEdgeCount = edgeIndex.getRisingEdgeCount( this.index, startIdx, endIdx );
+        fallingEdgeCount = ( lastEdgeNr - firstEdgeNr + 1 ) - risingEdgeCount;
 
-        if ( !edge.isNone() )
-        {
-          final long periodTime = timestamps[i] - lastTransition;
-          lastTransition = timestamps[i];
+        final int firstEdge = edgeIndex.getEdge( this.index, firstEdgeNr );
+        final int lastEdge = edgeIndex.getEdge( this.index, lastEdgeNr );
 
-          if ( edge.isRising() )
-          {
-            // Low to high transition: previously seen a low-state...
-            risingEdgeCount++;
-            lowTime += periodTime;
-          }
-          else
-            /* if ( edge.isFalling() ) */
-          {
-            // High to low transition: previously seen a high-state...
-            fallingEdgeCount++;
-            highTime += periodTime;
-          }
+        // The period up to the first edge in our range...
+        final long firstPeriod = timestamps[firstEdge] - timestamps[startIdx];
+        if ( ( this.result.getValues()[firstEdge] & this.mask ) != 0 )
+        {
+          // Low to high transition: previously seen a low-state...
+          lowTime += firstPeriod;
+        }
+        else
+        {
+          // High to low transition: previously seen a high-state...
+          highTime += firstPeriod;
         }
 
-        lastBitValue = bitValue;
+        // The periods between the first and last edge in our range...
+        final long periodHighTime = edgeIndex.getHighTime( this.index, firstEdgeNr, lastEdgeNr );
+        highTime += periodHighTime;
+        lowTime += ( timestamps[lastEdge] - timestamps[firstEdge] ) - periodHighTime;
       }
 
       final double measureTime = Math.abs( ( this.endTimestamp - this.startTimestamp )
@@ -306,27 +306,19 @@ ICursorChangeListener, IMeasurementListener
   {
     // VARIABLES
 
-    private final int index;
-    private final long startTimestamp;
-    private final long endTimestamp;
+    private final SignalMeasurer measurer;
 
     // CONSTRUCTORS
 
     /**
      * Creates a new {@link SignalMeasurerWorker} instance.
      *
-     * @param aChannel
-     *          the channel to measure;
-     * @param aCursorA
-     *          the cursor denoting the start of measurement;
-     * @param aCursorB
-     *          the cursor denoting the end of measurement.
+     * @param aMeasurer
+     *          the measurer to run.
      */
-    public SignalMeasurerWorker( final Channel aChannel, final Cursor aCursorA, final Cursor aCursorB )
+    public SignalMeasurerWorker( final SignalMeasurer aMeasurer )
     {
-      this.index = aChannel.getIndex();
-      this.startTimestamp = aCursorA != null ? aCursorA.getTimestamp() : -1L;
-      this.endTimestamp = aCursorB != null ? aCursorB.getTimestamp() : -1L;
+      this.measurer = aMeasurer;
     }
 
     // METHODS
@@ -337,20 +329,7 @@ ICursorChangeListener, IMeasurementListener
     @Override
     protected PulseCountInfo doInBackground() throws Exception
     {
-      final SignalDiagramModel model = getSignalDiagramModel();
-
-      long start = this.startTimestamp;
-      if ( start < 0L )
-      {
-        start = model.getTimestamps()[0];
-      }
-      long end = this.endTimestamp;
-      if ( end < 0L )
-      {
-        end = model.getAbsoluteLength();
-      }
-
-      return new SignalMeasurer( model.getCapturedData(), this.index, start, end ).run();
+      return this.measurer.run();
     }
 
     /**
@@ -1030,6 +1009,37 @@ ICursorChangeListener, IMeasurementListener
     return aComboBox;
   }
 
+  /**
+   * Creates a new signal measurer for the given channel and cursors.
+   *
+   * @param aChannel
+   *          the channel to measure;
+   * @param aCursorA
+   *          the cursor denoting the start of measurement, can be
+   *          <code>null</code>;
+   * @param aCursorB
+   *          the cursor denoting the end of measurement, can be
+   *          <code>null</code>.
+   * @return a new signal measurer, never <code>null</code>.
+   */
+  private SignalMeasurer createSignalMeasurer( final Channel aChannel, final Cursor aCursorA, final Cursor aCursorB )
+  {
+    final SignalDiagramModel model = getSignalDiagramModel();
+
+    long start = aCursorA != null ? aCursorA.getTimestamp() : -1L;
+    if ( start < 0L )
+    {
+      start = model.getTimestamps()[0];
+    }
+    long end = aCursorB != null ? aCursorB.getTimestamp() : -1L;
+    if ( end < 0L )
+    {
+      end = model.getAbsoluteLength();
+    }
+
+    return new SignalMeasurer( model.getCapturedData(), aChannel.getIndex(), start, end );
+  }
+
   /**
    * Updates the actual measurement information.
    */
@@ -1043,14 +1053,28 @@ ICursorChangeListener, IMeasurementListener
       {
         if ( ( this.signalMeasurerWorker == null ) || this.signalMeasurerWorker.isDone() )
         {
-          this.indicator.setVisible( true );
-
           Channel channel = ( Channel )MeasurementView.this.measureChannel.getSelectedItem();
           Cursor cursorA = ( Cursor )MeasurementView.this.cursorA.getSelectedItem();
           Cursor cursorB = ( Cursor )MeasurementView.this.cursorB.getSelectedItem();
 
-          this.signalMeasurerWorker = new SignalMeasurerWorker( channel, cursorA, cursorB );
-          this.signalMeasurerWorker.execute();
+          final SignalMeasurer measurer = createSignalMeasurer( channel, cursorA, cursorB );
+
+          final EdgeIndex edgeIndex = getSignalDiagramModel().getEdgeIndex();
+          if ( ( edgeIndex != null ) && edgeIndex.isIndexed( channel.getIndex() ) )
+          {
+            // Once indexed, measuring takes only a few lookups, so we can do
+            // this directly and follow the cursors while they are dragged...
+            updatePulseCountInformation( measurer.run() );
+
+            repaint( 50L );
+          }
+          else
+          {
+            this.indicator.setVisible( true );
+
+            this.signalMeasurerWorker = new SignalMeasurerWorker( measurer );
+            this.signalMeasurerWorker.execute();
+          }
         }
       }
     }
@@ -22,10 +22,14 @@ package nl.lxtreme.ols.client.signaldisplay.view;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.util.*;
 
+import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.data.Cursor;
 import nl.lxtreme.ols.api.data.annotation.*;
 import nl.lxtreme.ols.client.signaldisplay.*;
+import nl.lxtreme.ols.client.signaldisplay.ZoomController.ZoomEvent;
+import nl.lxtreme.ols.client.signaldisplay.ZoomController.ZoomListener;
 import nl.lxtreme.ols.client.signaldisplay.laf.*;
 import nl.lxtreme.ols.client.signaldisplay.model.*;
 import nl.lxtreme.ols.client.signaldisplay.signalelement.*;
@@ -35,7 +39,8 @@ import nl.lxtreme.ols.client.signaldisplay.util.*;
 /**
  * Provides a view for the signal data as individual channels.
  */
-public class SignalView extends AbstractViewLayer implements IMeasurementListener, ICursorChangeListener
+public class SignalView extends AbstractViewLayer implements IMeasurementListener, ICursorChangeListener,
+    IDataModelChangeListener, ZoomListener, ISignalElementChangeListener
 {
   // INNER TYPES
 
@@ -188,6 +193,10 @@ public class SignalView extends AbstractViewLayer implements IMeasurementListene
 
     aController.addCursorChangeListener( signalView );
     aController.addMeasurementListener( signalView );
+    aController.addDataModelChangeListener( signalView );
+    aController.addChannelChangeListener( signalView );
+
+    aController.getZoomController().addZoomListener( signalView );
 
     return signalView;
   }
@@ -212,12 +221,12 @@ public class SignalView extends AbstractViewLayer implements IMeasurementListene
   @Override
   public void cursorAdded( final Cursor aCursor )
   {
-    final int visibleHeight = getVisibleRect().height;
+    final Rectangle visibleRect = getVisibleRect();
 
     final SignalViewModel model = getModel();
 
     int cursorPos = model.timestampToCoordinate( aCursor.getTimestamp() );
-    repaint( new Rectangle( cursorPos - 1, 0, 2, visibleHeight ) );
+    repaintOverlay( new Rectangle( cursorPos - 1, visibleRect.y, 2, visibleRect.height ) );
   }
 
   /**
@@ -233,10 +242,10 @@ public class SignalView extends AbstractViewLayer implements IMeasurementListene
     final SignalViewModel model = getModel();
 
     int cursorPos = model.timestampToCoordinate( aOldCursor.getTimestamp() );
-    repaint( 0, cursorPos - 1, y, 2, height );
+    repaintOverlay( new Rectangle( cursorPos - 1, y, 2, height ) );
 
     cursorPos = model.timestampToCoordinate( aNewCursor.getTimestamp() );
-    repaint( 0, cursorPos - 1, y, 2, height );
+    repaintOverlay( new Rectangle( cursorPos - 1, y, 2, height ) );
   }
 
   /**
@@ -245,12 +254,12 @@ public class SignalView extends AbstractViewLayer implements IMeasurementListene
   @Override
   public void cursorRemoved( final Cursor aOldCursor )
   {
-    final int visibleHeight = getVisibleRect().height;
+    final Rectangle visibleRect = getVisibleRect();
 
     final SignalViewModel model = getModel();
 
     int cursorPos = model.timestampToCoordinate( aOldCursor.getTimestamp() );
-    repaint( 0, cursorPos - 1, 0, 2, visibleHeight );
+    repaintOverlay( new Rectangle( cursorPos - 1, visibleRect.y, 2, visibleRect.height ) );
   }
 
   /**
@@ -259,7 +268,7 @@ public class SignalView extends AbstractViewLayer implements IMeasurementListene
   @Override
   public void cursorsInvisible()
   {
-    repaint( 50L );
+    repaintOverlay( getVisibleRect() );
   }
 
   /**
@@ -268,7 +277,16 @@ public class SignalView extends AbstractViewLayer implements IMeasurementListene
   @Override
   public void cursorsVisible()
   {
-    repaint( 50L );
+    repaintOverlay( getVisibleRect() );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void dataModelChanged( final DataSet aDataSet )
+  {
+    ( ( SignalUI )this.ui ).invalidateTiles();
   }
 
   /**
@@ -282,7 +300,7 @@ public class SignalView extends AbstractViewLayer implements IMeasurementListene
     final Rectangle oldRect = signalUI.getMeasurementRect();
     if ( oldRect != null )
     {
-      repaint( oldRect );
+      repaintOverlay( oldRect );
     }
   }
 
@@ -305,6 +323,15 @@ public class SignalView extends AbstractViewLayer implements IMeasurementListene
     return this.model;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void groupStructureChanged( final Collection<SignalElement> aSignalList )
+  {
+    ( ( SignalUI )this.ui ).invalidateTiles();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -330,11 +357,11 @@ public class SignalView extends AbstractViewLayer implements IMeasurementListene
 
     if ( oldRect != null )
     {
-      repaint( oldRect );
+      repaintOverlay( oldRect );
     }
     if ( newRect != null )
     {
-      repaint( newRect );
+      repaintOverlay( newRect );
     }
   }
 
@@ -347,6 +374,15 @@ public class SignalView extends AbstractViewLayer implements IMeasurementListene
     return ( ( SignalUI )this.ui ).isListening();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void notifyZoomChange( final ZoomEvent aEvent )
+  {
+    ( ( SignalUI )this.ui ).invalidateTiles();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -359,6 +395,30 @@ public class SignalView extends AbstractViewLayer implements IMeasurementListene
     super.removeNotify();
   }
 
+  /**
+   * Marks the given area as dirty, causing both the signals and the overlay to
+   * be repainted.
+   */
+  @Override
+  public void repaint( final long aTime, final int aX, final int aY, final int aWidth, final int aHeight )
+  {
+    if ( this.ui instanceof SignalUI )
+    {
+      ( ( SignalUI )this.ui ).invalidateBaseLayer( aX, aY, aWidth, aHeight );
+    }
+
+    super.repaint( aTime, aX, aY, aWidth, aHeight );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void signalElementMoved( final ElementMoveEvent aEvent )
+  {
+    ( ( SignalUI )this.ui ).invalidateTiles();
+  }
+
   /**
    * Overridden in order to set a custom UI, which not only paints this diagram,
    * but also can be used to manage the various settings, such as colors,
@@ -379,4 +439,18 @@ public class SignalView extends AbstractViewLayer implements IMeasurementListene
   {
     return getController().getViewModel();
   }
+
+  /**
+   * Repaints the given area of the overlay, containing the cursors and
+   * measurement arrow, without repainting the signals beneath it.
+   *
+   * @param aRect
+   *          the area to repaint, cannot be <code>null</code>.
+   */
+  private void repaintOverlay( final Rectangle aRect )
+  {
+    ( ( SignalUI )this.ui ).invalidateOverlay( aRect );
+
+    super.repaint( 0L, aRect.x, aRect.y, aRect.width, aRect.height );
+  }
 }
@@ -0,0 +1,131 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.signaldisplay.util;
+
+
+import static org.junit.Assert.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.search.*;
+import nl.lxtreme.ols.test.data.*;
+import nl.lxtreme.ols.test.data.project.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link SearchHelper}.
+ */
+public class SearchHelperTest
+{
+  // METHODS
+
+  /**
+   * Tests that a malformed pattern query is rejected.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testParseMalformedPatternFail()
+  {
+    SearchHelper.parsePattern( "pattern 0x1 within 10" );
+  }
+
+  /**
+   * Tests that other queries than pattern queries are not parsed as pattern.
+   */
+  @Test
+  public void testParseNonPattern()
+  {
+    assertNull( SearchHelper.parsePattern( "START" ) );
+    assertNull( SearchHelper.parsePattern( "0x4F 0x4C" ) );
+  }
+
+  /**
+   * Tests that queries with anything else than numbers are not parsed as
+   * values.
+   */
+  @Test
+  public void testParseNonValues()
+  {
+    assertNull( SearchHelper.parseValues( "START" ) );
+    assertNull( SearchHelper.parseValues( "0x4F STOP" ) );
+    assertNull( SearchHelper.parseValues( " " ) );
+  }
+
+  /**
+   * Tests that pattern queries are parsed into a search pattern.
+   */
+  @Test
+  public void testParsePattern()
+  {
+    assertEquals( "00000001/00000003 -> 00000002/00000003 within 100",
+        String.valueOf( SearchHelper.parsePattern( "pattern 0x1/0x3 2/3 within 100" ) ) );
+    assertEquals( "00000001/00000001", String.valueOf( SearchHelper.parsePattern( "PATTERN 1/1" ) ) );
+  }
+
+  /**
+   * Tests that decimal and hexadecimal values are parsed.
+   */
+  @Test
+  public void testParseValues()
+  {
+    assertArrayEquals( new int[] { 0x4F, 76, 0xFFFFFFFF }, SearchHelper.parseValues( " 0x4F, 76 0xFFFFFFFF" ) );
+  }
+
+  /**
+   * Tests that an empty query is rejected.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testSearchEmptyQueryFail() throws Exception
+  {
+    new SearchHelper( DataTestUtils.createStubDataSet( 4 ) ).search( " " );
+  }
+
+  /**
+   * Tests that a pattern query searches the captured data.
+   */
+  @Test
+  public void testSearchPattern() throws Exception
+  {
+    final StubDataSet dataSet = new StubDataSet();
+    dataSet.setCapturedData( new CapturedData( new int[] { 0, 1, 2, 3, 1, 2 }, new long[] { 0, 1, 2, 3, 4, 5 }, 0L,
+        100, 2, 0x03, 6L ) );
+
+    final SearchResult result = new SearchHelper( dataSet ).search( "pattern 1/3 2/3" );
+
+    assertEquals( 2, result.size() );
+    assertEquals( 1L, result.getStartTimestamp( 0 ) );
+    assertEquals( 4L, result.getStartTimestamp( 1 ) );
+  }
+
+  /**
+   * Tests that searching data without decoded data yields no hits.
+   */
+  @Test
+  public void testSearchWithoutDecodedData() throws Exception
+  {
+    final SearchHelper helper = new SearchHelper( DataTestUtils.createStubDataSet( 4 ) );
+
+    assertTrue( helper.search( "START" ).isEmpty() );
+    assertTrue( helper.search( "0x4F 0x4C" ).isEmpty() );
+  }
+}
+
+/* EOF */
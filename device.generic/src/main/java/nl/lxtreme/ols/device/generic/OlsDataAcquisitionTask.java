@@ -25,7 +25,6 @@ import java.io.*;
 
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.devices.*;
-import nl.lxtreme.ols.util.*;
 
 
 /**
@@ -65,28 +64,14 @@ public final class OlsDataAcquisitionTask implements AcquisitionTask
   @Override
   public AcquisitionResult call() throws IOException
   {
-    Reader reader = null;
+    this.progressListener.acquisitionInProgress( 0 );
 
-    try
-    {
-      this.progressListener.acquisitionInProgress( 0 );
+    // Reading the file directly allows regular files to be memory-mapped and
+    // parsed concurrently...
+    AcquisitionResult result = OlsDataHelper.read( new File( this.deviceConfig.getDevicePath() ) );
 
-      reader = new FileReader( this.deviceConfig.getDevicePath() );
+    this.progressListener.acquisitionInProgress( 100 );
 
-      AcquisitionResult result = OlsDataHelper.read( reader );
-
-      this.progressListener.acquisitionInProgress( 100 );
-
-      return result;
-    }
-    catch ( IOException exception )
-    {
-      // Rethrow the caught exception...
-      throw exception;
-    }
-    finally
-    {
-      HostUtils.closeResource( reader );
-    }
+    return result;
   }
 }
@@ -24,7 +24,6 @@ package nl.lxtreme.ols.device.generic;
 import java.io.*;
 import java.util.logging.*;
 
-import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.devices.*;
@@ -80,8 +79,10 @@ public final class RawDataAcquisitionTask implements AcquisitionTask
 
     final int count = depth * width;
 
-    final int[] values = new int[count];
-    final long[] timestamps = new long[count];
+    final CapturedDataBuilder builder = new CapturedDataBuilder();
+    builder.setSampleRate( rate );
+    builder.setChannels( channels );
+    builder.setEnabledChannels( ( 1 << channels ) - 1 );
 
     this.inputStream = new FileInputStream( this.deviceConfig.getDevicePath() );
 
@@ -97,17 +98,13 @@ public final class RawDataAcquisitionTask implements AcquisitionTask
           LOG.log( Level.FINE, "Read: 0x{0}", Integer.toHexString( sample ) );
         }
 
-        values[idx] = sample;
-        timestamps[idx] = idx;
+        builder.add( sample, idx );
 
         // Update the progress...
         this.progressListener.acquisitionInProgress( ( int )( ( idx++ * 100.0 ) / count ) );
       }
 
-      final long absLength = timestamps[idx - 1];
-      final int enabledChannels = ( 1 << channels ) - 1;
-
-      return new CapturedData( values, timestamps, Ols.NOT_AVAILABLE, rate, channels, enabledChannels, absLength );
+      return builder.setAbsoluteLength( idx - 1 ).build();
     }
     catch ( IOException exception )
     {
@@ -23,11 +23,11 @@ package org.sump.device.logicsniffer;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.*;
 
 import javax.microedition.io.*;
 
-import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.devices.*;
@@ -48,6 +48,13 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
 
   private static final Logger LOG = Logger.getLogger( LogicSnifferAcquisitionTask.class.getName() );
 
+  /** The number of samples that are read and decoded at once. */
+  private static final int CHUNK_SIZE = 64 * 1024;
+  /** The maximum number of chunks waiting to be decoded. */
+  private static final int MAX_PENDING_CHUNKS = 16;
+  /** Marks the end of all chunks read. */
+  private static final int[] END_OF_SAMPLES = new int[0];
+
   // VARIABLES
 
   private final DeviceProfileManager deviceProfileManager;
@@ -114,54 +121,55 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
     // Setup/configure the device with the UI-settings...
     configureAndArmDevice();
 
-    // read all samples
-    int[] samples = readSamples( this.config.getEnabledGroupCount(), sampleCount );
-
-    if ( samples.length < sampleCount )
-    {
-      LOG.log( Level.INFO, "Only {0} samples read!", Integer.valueOf( samples.length ) );
-    }
-    else
-    {
-      LOG.log( Level.FINE, "{0} samples read. Starting post processing...", Integer.valueOf( sampleCount ) );
-    }
-
-    final List<Integer> values = new ArrayList<Integer>();
-    final List<Long> timestamps = new ArrayList<Long>();
-
-    // collect additional information for CapturedData; we use arrays here,
-    // as their values are to be filled from anonymous inner classes...
-    final long[] absoluteLength = { 0L };
-    final long[] triggerPos = { Ols.NOT_AVAILABLE };
-    final int rate = this.config.getSampleRate();
+    // The builder only keeps the actual transitions and grows on demand, so
+    // there's no need to reserve room for all samples up front...
+    final CapturedDataBuilder builder = new CapturedDataBuilder();
+    // Issue #98: use the *enabled* channel count, not the total channel
+    // count...
+    builder.setChannels( this.config.getEnabledChannelsCount() );
+    builder.setEnabledChannels( this.config.getEnabledChannelsMask() );
+    builder.setSampleRate( this.config.getSampleRate() );
 
     final SampleProcessorCallback callback = new SampleProcessorCallback()
     {
       public void addValue( final int aSampleValue, final long aTimestamp )
       {
-        values.add( Integer.valueOf( aSampleValue ) );
-        timestamps.add( Long.valueOf( aTimestamp ) );
+        builder.add( aSampleValue, aTimestamp );
       }
 
       public void ready( final long aAbsoluteLength, final long aTriggerPosition )
       {
-        absoluteLength[0] = aAbsoluteLength;
+        builder.setAbsoluteLength( aAbsoluteLength );
         if ( LogicSnifferAcquisitionTask.this.config.isTriggerEnabled() )
         {
-          triggerPos[0] = aTriggerPosition;
+          builder.setTriggerPosition( aTriggerPosition );
         }
       }
     };
-    // Process the actual samples...
-    createSampleProcessor( sampleCount, samples, callback ).process();
+
+    // In DDR-mode, RLE-counts span two samples, hence, a chunk can only be
+    // decoded once its preceeding chunk is known...
+    if ( this.config.isRleEnabled() && this.config.isDoubleDataRateEnabled() )
+    {
+      // read all samples
+      int[] samples = readSamples( this.config.getEnabledGroupCount(), sampleCount );
+
+      LOG.log( Level.FINE, "{0} samples read. Starting post processing...", Integer.valueOf( samples.length ) );
+
+      // Process the actual samples...
+      createSampleProcessor( sampleCount, samples, callback ).process();
+    }
+    else
+    {
+      // Decode the samples while reading them...
+      readAndDecodeSamples( this.config.getEnabledGroupCount(), sampleCount,
+          createSampleProcessor( sampleCount, null, callback ) );
+    }
 
     // Close the connection...
     close();
 
-    // Issue #98: use the *enabled* channel count, not the total channel
-    // count...
-    return new CapturedData( values, timestamps, triggerPos[0], rate, this.config.getEnabledChannelsCount(),
-        this.config.getEnabledChannelsMask(), absoluteLength[0] );
+    return builder.build();
   }
 
   /**
@@ -317,24 +325,39 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
    * @param aSampleCount
    *          the actual number of samples to process;
    * @param aSampleValues
-   *          the sample values to process;
+   *          the sample values to process, can be <code>null</code> in case
+   *          the samples are decoded in chunks;
    * @param aCallback
    *          the processor callback to use.
    * @return a sample processor instance, never <code>null</code>.
    */
-  private SampleProcessor createSampleProcessor( final int aSampleCount, final int[] aSampleValues,
+  private ChunkedSampleProcessor createSampleProcessor( final int aSampleCount, final int[] aSampleValues,
       final SampleProcessorCallback aCallback )
   {
-    final SampleProcessor processor;
+    final ChunkedSampleProcessor processor;
     if ( this.config.isRleEnabled() )
     {
       LOG.log( Level.INFO, "Decoding Run Length Encoded data, sample count: {0}", Integer.valueOf( aSampleCount ) );
-      processor = new RleDecoder( this.config, aSampleValues, this.trigcount, aCallback );
+      if ( aSampleValues == null )
+      {
+        processor = new RleDecoder( this.config, this.trigcount, aCallback );
+      }
+      else
+      {
+        processor = new RleDecoder( this.config, aSampleValues, this.trigcount, aCallback );
+      }
     }
     else
     {
       LOG.log( Level.INFO, "Decoding unencoded data, sample count: {0}", Integer.valueOf( aSampleCount ) );
-      processor = new EqualityFilter( this.config, aSampleValues, this.trigcount, aCallback );
+      if ( aSampleValues == null )
+      {
+        processor = new EqualityFilter( this.config, this.trigcount, aCallback );
+      }
+      else
+      {
+        processor = new EqualityFilter( this.config, aSampleValues, this.trigcount, aCallback );
+      }
     }
     return processor;
   }
@@ -397,6 +420,215 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
     }
   }
 
+  /**
+   * Normalizes the given raw data into sample values, as to match the layout of
+   * the enabled groups.
+   * 
+   * @param aRawData
+   *          the raw data, as read from the device;
+   * @param aSampleCount
+   *          the number of samples in the raw data;
+   * @param aReverse
+   *          <code>true</code> if the device sent the samples in reverse
+   *          order, that is, newest first, <code>false</code> otherwise.
+   * @return the normalized samples, in chronological order, never
+   *         <code>null</code>.
+   */
+  private int[] normalizeSamples( final byte[] aRawData, final int aSampleCount, final boolean aReverse )
+  {
+    final int groupCount = this.config.getGroupCount();
+
+    int[] samples = new int[aSampleCount];
+    for ( int n = 0, j = 0; n < aSampleCount; n++ )
+    {
+      final int i = aReverse ? ( aSampleCount - 1 - n ) : n;
+      for ( int g = 0; g < groupCount; g++ )
+      {
+        if ( this.config.isGroupEnabled( g ) )
+        {
+          samples[i] |= ( ( aRawData[j++] & 0xff ) << ( 8 * g ) );
+        }
+      }
+    }
+
+    return samples;
+  }
+
+  /**
+   * Hands the given chunk over to the decoder, waiting for room to become
+   * available if needed.
+   * 
+   * @param aQueue
+   *          the queue to add the chunk to;
+   * @param aChunk
+   *          the chunk to add;
+   * @param aDecoder
+   *          the decoder consuming the queue.
+   * @return <code>true</code> if the chunk is handed over, <code>false</code>
+   *         if the decoder is no longer running.
+   * @throws InterruptedException
+   *           in case the current thread was interrupted.
+   */
+  private boolean offerChunk( final BlockingQueue<int[]> aQueue, final int[] aChunk, final Future<?> aDecoder )
+      throws InterruptedException
+  {
+    while ( !aQueue.offer( aChunk, 100L, TimeUnit.MILLISECONDS ) )
+    {
+      if ( aDecoder.isDone() )
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Reads all samples from the OLS device in fixed-size chunks, while decoding
+   * the chunks already read on a separate thread.
+   * <p>
+   * As the device normally sends its samples newest first, the chunks arrive in
+   * reverse chronological order. Each chunk is reversed while normalizing it,
+   * after which it can be decoded on its own. Only when all chunks are decoded,
+   * they are combined in chronological order, which is cheap compared to the
+   * decoding itself.
+   * </p>
+   * 
+   * @param aEnabledGroupCount
+   *          the number of enabled groups (denotes the number of bytes for one
+   *          sample);
+   * @param aSampleCount
+   *          the number of samples to read;
+   * @param aProcessor
+   *          the sample processor to decode the chunks with.
+   * @throws IOException
+   *           in case of I/O problems;
+   * @throws InterruptedException
+   *           in case the current thread was interrupted.
+   */
+  private void readAndDecodeSamples( final int aEnabledGroupCount, final int aSampleCount,
+      final ChunkedSampleProcessor aProcessor ) throws IOException, InterruptedException
+  {
+    final boolean reverse = !this.config.isSamplesInReverseOrder();
+    final BlockingQueue<int[]> queue = new ArrayBlockingQueue<int[]>( MAX_PENDING_CHUNKS );
+
+    final FutureTask<List<SampleChunk>> decoder = new FutureTask<List<SampleChunk>>( new Callable<List<SampleChunk>>()
+    {
+      public List<SampleChunk> call() throws Exception
+      {
+        final List<SampleChunk> result = new ArrayList<SampleChunk>();
+
+        int decoded = 0;
+        int[] chunk;
+        while ( ( chunk = queue.take() ) != END_OF_SAMPLES )
+        {
+          final int startIndex = reverse ? ( aSampleCount - decoded - chunk.length ) : decoded;
+          result.add( aProcessor.decode( chunk, 0, chunk.length, startIndex ) );
+          decoded += chunk.length;
+        }
+
+        // Make sure the chunks are in chronological order...
+        if ( reverse )
+        {
+          Collections.reverse( result );
+        }
+        return result;
+      }
+    } );
+
+    final Thread decoderThread = new Thread( decoder, "LogicSniffer sample decoder" );
+    decoderThread.setDaemon( true );
+    decoderThread.start();
+
+    try
+    {
+      final int chunkSize = Math.min( CHUNK_SIZE, aSampleCount );
+      final int length = aEnabledGroupCount * aSampleCount;
+      final byte[] rawData = new byte[aEnabledGroupCount * chunkSize];
+
+      boolean decoding = true;
+      try
+      {
+        int samplesRead = 0;
+        while ( decoding && !Thread.currentThread().isInterrupted() && ( samplesRead < aSampleCount ) )
+        {
+          final int chunkLength = Math.min( chunkSize, aSampleCount - samplesRead );
+          final int chunkBytes = aEnabledGroupCount * chunkLength;
+
+          int offset = 0;
+          while ( !Thread.currentThread().isInterrupted() && ( offset < chunkBytes ) )
+          {
+            int read = this.inputStream.readRawData( rawData, offset, chunkBytes - offset );
+            if ( read < 0 )
+            {
+              throw new EOFException();
+            }
+            offset += read;
+
+            final long bytesRead = ( aEnabledGroupCount * ( long )samplesRead ) + offset;
+            this.acquisitionProgressListener.acquisitionInProgress( ( int )( ( 100L * bytesRead ) / length ) );
+          }
+
+          if ( offset == chunkBytes )
+          {
+            decoding = offerChunk( queue, normalizeSamples( rawData, chunkLength, reverse ), decoder );
+            samplesRead += chunkLength;
+          }
+        }
+      }
+      catch ( IOException exception )
+      {
+        // Make sure to handle IO-interrupted exceptions properly!
+        if ( !HostUtils.handleInterruptedException( exception ) )
+        {
+          throw exception;
+        }
+      }
+      finally
+      {
+        // Make sure we leave the device in a correct state...
+        this.outputStream.writeCmdReset();
+
+        this.acquisitionProgressListener.acquisitionInProgress( 100 );
+      }
+
+      if ( Thread.currentThread().isInterrupted() )
+      {
+        // We're interrupted while read samples, do not proceed...
+        throw new InterruptedException();
+      }
+
+      if ( decoding )
+      {
+        offerChunk( queue, END_OF_SAMPLES, decoder );
+      }
+
+      final List<SampleChunk> chunks = decoder.get();
+
+      LOG.log( Level.FINE, "{0} samples read and decoded. Combining {1} chunks...", new Object[] {
+          Integer.valueOf( aSampleCount ), Integer.valueOf( chunks.size() ) } );
+
+      aProcessor.finish( chunks );
+    }
+    catch ( ExecutionException exception )
+    {
+      final Throwable cause = exception.getCause();
+      if ( cause instanceof RuntimeException )
+      {
+        throw ( RuntimeException )cause;
+      }
+      else if ( cause instanceof Error )
+      {
+        throw ( Error )cause;
+      }
+      throw new IOException( "Decoding samples failed!", cause );
+    }
+    finally
+    {
+      // Make sure the decoder no longer waits for any chunks...
+      decoder.cancel( true /* mayInterruptIfRunning */);
+    }
+  }
+
   /**
    * Reads all (or as many as possible) samples from the OLS device.
    * 
@@ -457,28 +689,9 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
       throw new InterruptedException();
     }
     
-    final int groupCount = this.config.getGroupCount();
-    
-    // Normalize the raw data into the sample data, as expected...
-    int[] samples = new int[aSampleCount];
-    for ( int i = samples.length - 1, j = 0; i >= 0; i-- )
-    {
-      for ( int g = 0; g < groupCount; g++ )
-      {
-        if ( this.config.isGroupEnabled( g ) )
-        {
-          samples[i] |= ( ( rawData[j++] & 0xff ) << ( 8 * g ) );
-        }
-      }
-    }
-
-    // In case the device sends its samples in "reverse" order, we need to
-    // revert it now, before processing them further...
-    if ( this.config.isSamplesInReverseOrder() )
-    {
-      HostUtils.reverse( samples );
-    }
-
-    return samples;
+    // Normalize the raw data into the sample data, as expected; in case the
+    // device sends its samples in "reverse" order, they're already in the
+    // order we want them...
+    return normalizeSamples( rawData, aSampleCount, !this.config.isSamplesInReverseOrder() );
   }
 }
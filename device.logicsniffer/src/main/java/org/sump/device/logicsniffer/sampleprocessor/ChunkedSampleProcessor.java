@@ -0,0 +1,66 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import java.util.*;
+
+
+/**
+ * Denotes a sample processor that is able to process its samples in chunks,
+ * allowing the samples to be decoded while they are still being read from the
+ * device.
+ * <p>
+ * Each chunk is decoded independently of the other chunks, so chunks can be
+ * decoded in any order. Once all chunks are decoded, they are combined in
+ * chronological order and reported to the callback of this processor.
+ * </p>
+ */
+public interface ChunkedSampleProcessor extends SampleProcessor
+{
+  // METHODS
+
+  /**
+   * Decodes a single chunk of samples.
+   *
+   * @param aSamples
+   *          the array with samples, in chronological order;
+   * @param aOffset
+   *          the offset in the given array of the first sample of the chunk;
+   * @param aLength
+   *          the number of samples in the chunk;
+   * @param aStartIndex
+   *          the index of the first sample of the chunk in <em>all</em>
+   *          samples.
+   * @return the decoded chunk, never <code>null</code>.
+   */
+  SampleChunk decode( int[] aSamples, int aOffset, int aLength, int aStartIndex );
+
+  /**
+   * Combines the given decoded chunks and reports the resulting sample values
+   * to the callback.
+   *
+   * @param aChunks
+   *          the decoded chunks, in chronological order, cannot be
+   *          <code>null</code>.
+   */
+  void finish( List<SampleChunk> aChunks );
+}
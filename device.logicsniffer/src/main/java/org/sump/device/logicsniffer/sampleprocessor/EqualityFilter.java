@@ -21,13 +21,15 @@
 package org.sump.device.logicsniffer.sampleprocessor;
 
 
+import java.util.*;
+
 import org.sump.device.logicsniffer.*;
 
 
 /**
  * Processes all samples and only returns the actual changed sample values.
  */
-public final class EqualityFilter implements SampleProcessor
+public final class EqualityFilter implements ChunkedSampleProcessor
 {
   // VARIABLES
 
@@ -38,6 +40,22 @@ public final class EqualityFilter implements SampleProcessor
 
   // CONSTRUCTORS
 
+  /**
+   * Creates a new EqualityFilter instance that only decodes chunks of samples,
+   * as given to {@link #decode(int[], int, int, int)}.
+   * 
+   * @param aConfig
+   *          the configuration to use;
+   * @param aTrigCount
+   *          the trigcount value;
+   * @param aCallback
+   *          the callback to use.
+   */
+  public EqualityFilter( final LogicSnifferConfig aConfig, final int aTrigCount, final SampleProcessorCallback aCallback )
+  {
+    this( aConfig, new int[0], aTrigCount, aCallback );
+  }
+
   /**
    * @param aConfig
    *          the configuration to use;
@@ -65,30 +83,68 @@ public final class EqualityFilter implements SampleProcessor
   // METHODS
 
   /**
-   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#process()
+   * @see org.sump.device.logicsniffer.sampleprocessor.ChunkedSampleProcessor#decode(int[],
+   *      int, int, int)
    */
   @Override
-  public final void process()
+  public SampleChunk decode( final int[] aSamples, final int aOffset, final int aLength, final int aStartIndex )
   {
-    long time = 0;
+    final SampleChunk chunk = new SampleChunk( Math.max( 16, aLength >> 4 ) );
 
-    final int samples = this.buffer.length;
+    long time = 0;
 
     int lastSample = 0; // first value doesn't really matter
-    for ( int i = 0; i < samples; i++ )
+    for ( int i = aOffset; i < ( aOffset + aLength ); i++ )
     {
-      final int newSample = this.buffer[i];
+      final int newSample = aSamples[i];
 
-      if ( ( i == 0 ) || ( lastSample != newSample ) )
+      if ( ( i == aOffset ) || ( lastSample != newSample ) )
       {
         // add the read sample & add a timestamp value as well...
-        this.callback.addValue( newSample, time );
+        chunk.add( newSample, time );
       }
 
       lastSample = newSample;
       time++;
     }
 
+    chunk.setDuration( time );
+
+    return chunk;
+  }
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.ChunkedSampleProcessor#finish(java.util.List)
+   */
+  @Override
+  public void finish( final List<SampleChunk> aChunks )
+  {
+    long time = 0;
+
+    int lastSample = 0; // first value doesn't really matter
+    boolean sampleSeen = false;
+    for ( SampleChunk chunk : aChunks )
+    {
+      final int size = chunk.size();
+      for ( int i = 0; i < size; i++ )
+      {
+        final int newSample = chunk.getValue( i );
+
+        // the first sample value of a chunk can equal the last one of its
+        // preceeding chunk...
+        if ( !sampleSeen || ( lastSample != newSample ) )
+        {
+          this.callback.addValue( newSample, time + chunk.getTimestamp( i ) );
+        }
+
+        lastSample = newSample;
+        sampleSeen = true;
+      }
+
+      time += chunk.getDuration();
+      chunk.release();
+    }
+
     // Ensure the last sample is shown as well (even if there was a lot of time
     // between the last real sample and the end of the capture; i.e., constant
     // data)...
@@ -104,4 +160,13 @@ public final class EqualityFilter implements SampleProcessor
     // Take the last seen time value as "absolete" length of this trace...
     this.callback.ready( time, ( this.trigCount - correction ) );
   }
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#process()
+   */
+  @Override
+  public final void process()
+  {
+    finish( Collections.singletonList( decode( this.buffer, 0, this.buffer.length, 0 ) ) );
+  }
 }
@@ -21,6 +21,7 @@
 package org.sump.device.logicsniffer.sampleprocessor;
 
 
+import java.util.*;
 import java.util.logging.*;
 
 import org.sump.device.logicsniffer.*;
@@ -29,7 +30,7 @@ import org.sump.device.logicsniffer.*;
 /**
  * Provides a RLE decoder.
  */
-public final class RleDecoder implements SampleProcessor
+public final class RleDecoder implements ChunkedSampleProcessor
 {
   // CONSTANTS
 
@@ -47,6 +48,19 @@ public final class RleDecoder implements SampleProcessor
 
   // CONSTRUCTORS
 
+  /**
+   * Creates a new RleDecoder instance that only decodes chunks of samples, as
+   * given to {@link #decode(int[], int, int, int)}.
+   * 
+   * @param aConfig
+   * @param aTrigCount
+   * @param aCallback
+   */
+  public RleDecoder( final LogicSnifferConfig aConfig, final int aTrigCount, final SampleProcessorCallback aCallback )
+  {
+    this( aConfig, new int[0], aTrigCount, aCallback );
+  }
+
   /**
    * Creates a new RleDecoder instance.
    * 
@@ -96,34 +110,38 @@ public final class RleDecoder implements SampleProcessor
   // METHODS
 
   /**
-   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#process()
+   * @see org.sump.device.logicsniffer.sampleprocessor.ChunkedSampleProcessor#decode(int[],
+   *      int, int, int)
    */
-  public void process()
+  public SampleChunk decode( final int[] aSamples, final int aOffset, final int aLength, final int aStartIndex )
   {
+    final SampleChunk chunk = new SampleChunk( Math.max( 16, aLength >> 4 ) );
+
     long time = 0;
-    long rleTrigPos = 0;
+    long leadingCount = 0;
+    boolean sampleSeen = false;
     int lastSample = -1;
 
     // if msb set increment time by the count value
     // else save sample check trigger pos and increment time by 1
     // this should work for either dogsbody or rasmus bitstreams
 
-    final int samples = this.buffer.length;
+    final int end = aOffset + aLength;
 
     // shiftBits needs to be 8 if 8 bit selected and 16 if 16 bit selected
     final int rleShiftBits = this.config.getRLEDataWidth();
     final boolean ddrMode = this.config.isDoubleDataRateEnabled();
 
-    for ( int i = 0; i < samples; i++ )
+    for ( int i = aOffset; i < end; i++ )
     {
-      final int sampleValue = this.buffer[i];
+      final int sampleValue = aSamples[i];
       final int normalizedSampleValue = normalizeSampleValue( sampleValue );
 
       // if a count just add it to the time
       if ( ( normalizedSampleValue & this.rleCountValue ) != 0 )
       {
         long count = ( normalizedSampleValue & this.rleCountMask );
-        if ( ddrMode && ( i < ( samples - 1 ) ) )
+        if ( ddrMode && ( i < ( end - 1 ) ) )
         {
           // In case of "double data rate", the RLE-counts are encoded as 16-
           // resp. 32-bit values, so we need to take two samples for each
@@ -132,38 +150,96 @@ public final class RleDecoder implements SampleProcessor
 
           // Issue #55: double the RLE-count as we're using DDR mode which
           // takes two samples in one time period...
-          long ddrCount = ( ( count << rleShiftBits ) | normalizeSampleValue( this.buffer[++i] ) );
+          long ddrCount = ( ( count << rleShiftBits ) | normalizeSampleValue( aSamples[++i] ) );
           count = 2L * ddrCount;
         }
 
-        if ( lastSample >= 0 )
+        // Whether or not a count without preceeding sample value is to be
+        // ignored, can only be decided once all chunks are combined...
+        if ( !sampleSeen )
         {
-          time += count;
-        }
-        else
-        {
-          LOG.warning( "Ignoring RLE count without preceeding sample value: " + Long.toHexString( count ) );
+          leadingCount += count;
         }
+        time += count;
       }
       else
       {
         // this is a data value only save data if different to last
-        if ( sampleValue != lastSample )
+        if ( !sampleSeen || ( sampleValue != lastSample ) )
         {
-          // set the trigger position as a time value
-          if ( ( i >= this.trigCount ) && ( rleTrigPos == 0 ) )
+          if ( ( aStartIndex + ( i - aOffset ) ) >= this.trigCount )
           {
-            rleTrigPos = time;
+            chunk.markTrigger();
           }
 
           // add the read sample & add a timestamp value as well...
-          this.callback.addValue( sampleValue, time );
+          chunk.add( sampleValue, time );
           lastSample = sampleValue;
+          sampleSeen = true;
         }
         time++;
       }
     }
 
+    chunk.setDuration( time );
+    chunk.setLeadingCount( leadingCount );
+
+    return chunk;
+  }
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.ChunkedSampleProcessor#finish(java.util.List)
+   */
+  public void finish( final List<SampleChunk> aChunks )
+  {
+    long time = 0;
+    long rleTrigPos = 0;
+    boolean triggerSeen = false;
+    boolean sampleSeen = false;
+    int lastSample = -1;
+
+    for ( SampleChunk chunk : aChunks )
+    {
+      long offset = time;
+      if ( !sampleSeen && ( chunk.getLeadingCount() > 0 ) )
+      {
+        LOG.warning( "Ignoring RLE count without preceeding sample value: "
+            + Long.toHexString( chunk.getLeadingCount() ) );
+        offset -= chunk.getLeadingCount();
+      }
+
+      final int size = chunk.size();
+      for ( int i = 0; i < size; i++ )
+      {
+        if ( i == chunk.getTriggerIndex() )
+        {
+          triggerSeen = true;
+        }
+
+        final int sampleValue = chunk.getValue( i );
+        // the first sample value of a chunk can equal the last one of its
+        // preceeding chunk...
+        if ( sampleSeen && ( sampleValue == lastSample ) )
+        {
+          continue;
+        }
+
+        final long timestamp = offset + chunk.getTimestamp( i );
+        // set the trigger position as a time value
+        if ( triggerSeen && ( rleTrigPos == 0 ) )
+        {
+          rleTrigPos = timestamp;
+        }
+
+        this.callback.addValue( sampleValue, timestamp );
+        lastSample = sampleValue;
+        sampleSeen = true;
+      }
+
+      time = offset + chunk.getDuration();
+      chunk.release();
+    }
+
     // Ensure the last sample is shown as well (even if there was a lot of time
     // between the last real sample and the end of the capture; i.e., constant
     // data)...
@@ -173,6 +249,14 @@ public final class RleDecoder implements SampleProcessor
     this.callback.ready( time, rleTrigPos - 1 );
   }
 
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#process()
+   */
+  public void process()
+  {
+    finish( Collections.singletonList( decode( this.buffer, 0, this.buffer.length, 0 ) ) );
+  }
+
   /**
    * Normalizes the given sample value to mask out the unused channel groups and
    * get a sample value in the correct width.
@@ -0,0 +1,193 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import java.util.*;
+
+
+/**
+ * Denotes the decoded transitions of a consecutive range of samples, as
+ * created by {@link ChunkedSampleProcessor#decode(int[], int, int, int)}.
+ * <p>
+ * All timestamps are relative to the start of the chunk. As a chunk is decoded
+ * without knowing the chunks before it, its first sample value is always
+ * present, even if it equals the last sample value of the preceeding chunk.
+ * </p>
+ */
+public final class SampleChunk
+{
+  // VARIABLES
+
+  private int[] values;
+  private long[] timestamps;
+  private int size;
+
+  private long duration;
+  private long leadingCount;
+  private int triggerIndex;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SampleChunk instance.
+   *
+   * @param aCapacity
+   *          the initial number of transitions to reserve room for, > 0.
+   */
+  SampleChunk( final int aCapacity )
+  {
+    this.values = new int[aCapacity];
+    this.timestamps = new long[aCapacity];
+    this.size = 0;
+    this.triggerIndex = -1;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the duration of this chunk.
+   *
+   * @return the duration, in time units, >= 0.
+   */
+  public long getDuration()
+  {
+    return this.duration;
+  }
+
+  /**
+   * Returns the number of transitions in this chunk.
+   *
+   * @return a transition count, >= 0.
+   */
+  public int size()
+  {
+    return this.size;
+  }
+
+  /**
+   * Adds a transition to this chunk.
+   *
+   * @param aValue
+   *          the sample value;
+   * @param aTimestamp
+   *          the timestamp, relative to the start of this chunk.
+   */
+  final void add( final int aValue, final long aTimestamp )
+  {
+    if ( this.size == this.values.length )
+    {
+      final int newCapacity = this.size + ( this.size >> 1 ) + 1;
+      this.values = Arrays.copyOf( this.values, newCapacity );
+      this.timestamps = Arrays.copyOf( this.timestamps, newCapacity );
+    }
+
+    this.values[this.size] = aValue;
+    this.timestamps[this.size] = aTimestamp;
+    this.size++;
+  }
+
+  /**
+   * Returns the amount of time that is spent in (RLE) counts before the first
+   * sample value of this chunk.
+   *
+   * @return the leading count, in time units, >= 0.
+   */
+  final long getLeadingCount()
+  {
+    return this.leadingCount;
+  }
+
+  /**
+   * Returns the timestamp of the n-th transition.
+   *
+   * @param aIndex
+   *          the index of the transition, >= 0 && < {@link #size()}.
+   * @return the timestamp, relative to the start of this chunk.
+   */
+  final long getTimestamp( final int aIndex )
+  {
+    return this.timestamps[aIndex];
+  }
+
+  /**
+   * Returns the index of the first transition that lies at or beyond the
+   * trigger count.
+   *
+   * @return a transition index, or -1 if all transitions lie before the trigger
+   *         count.
+   */
+  final int getTriggerIndex()
+  {
+    return this.triggerIndex;
+  }
+
+  /**
+   * Returns the sample value of the n-th transition.
+   *
+   * @param aIndex
+   *          the index of the transition, >= 0 && < {@link #size()}.
+   * @return the sample value.
+   */
+  final int getValue( final int aIndex )
+  {
+    return this.values[aIndex];
+  }
+
+  /**
+   * Marks the next transition to add as the first one at or beyond the trigger
+   * count.
+   */
+  final void markTrigger()
+  {
+    if ( this.triggerIndex < 0 )
+    {
+      this.triggerIndex = this.size;
+    }
+  }
+
+  /**
+   * Releases the transitions of this chunk, once they are no longer needed.
+   */
+  final void release()
+  {
+    this.values = null;
+    this.timestamps = null;
+  }
+
+  /**
+   * @param aDuration
+   *          the duration to set, in time units.
+   */
+  final void setDuration( final long aDuration )
+  {
+    this.duration = aDuration;
+  }
+
+  /**
+   * @param aLeadingCount
+   *          the leading count to set, in time units.
+   */
+  final void setLeadingCount( final long aLeadingCount )
+  {
+    this.leadingCount = aLeadingCount;
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+import org.sump.device.logicsniffer.sampleprocessor.*;
+
+
+/**
+ * Test cases for {@link RleDecoder}.
+ */
+public class RleDecoderTest
+{
+  // INNER TYPES
+
+  /**
+   * Records all reported sample values.
+   */
+  static final class RecordingCallback implements SampleProcessorCallback
+  {
+    final List<String> values = new ArrayList<String>();
+    long absoluteLength;
+    long triggerPosition;
+
+    public void addValue( final int aSampleValue, final long aTimestamp )
+    {
+      this.values.add( Integer.toHexString( aSampleValue ) + "@" + aTimestamp );
+    }
+
+    public void ready( final long aAbsoluteLength, final long aTriggerPosition )
+    {
+      this.absoluteLength = aAbsoluteLength;
+      this.triggerPosition = aTriggerPosition;
+    }
+  }
+
+  // CONSTANTS
+
+  /** 8-bit RLE data: counts have their MSB set. */
+  private static final int[] SAMPLES = { 0x83, 0x01, 0x84, 0x02, 0x02, 0x81, 0x03, 0x01, 0x85, 0x01, 0x82, 0x04,
+      0x04, 0x04, 0x80, 0x05, 0x86 };
+
+  // VARIABLES
+
+  private LogicSnifferConfig config;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp() throws Exception
+  {
+    this.config = new LogicSnifferConfig();
+
+    VirtualLogicSnifferDevice device = new VirtualLogicSnifferDevice( this.config );
+    this.config.setDeviceProfile( device.addDeviceProfile( "MOCK", "MockedDevice" ) );
+    this.config.setEnabledChannels( 0xFF );
+    this.config.setRleEnabled( true );
+
+    device.close();
+  }
+
+  /**
+   * Tests that decoding the samples in chunks, in reverse order, yields the
+   * same result as decoding them at once.
+   */
+  @Test
+  public void testDecodeChunksInReverseOrder()
+  {
+    for ( int trigCount = 0; trigCount <= SAMPLES.length; trigCount++ )
+    {
+      for ( int chunkSize = 1; chunkSize <= SAMPLES.length; chunkSize++ )
+      {
+        final RecordingCallback expected = new RecordingCallback();
+        new RleDecoder( this.config, SAMPLES, trigCount, expected ).process();
+
+        final RecordingCallback actual = new RecordingCallback();
+        final RleDecoder decoder = new RleDecoder( this.config, trigCount, actual );
+
+        final LinkedList<SampleChunk> chunks = new LinkedList<SampleChunk>();
+        for ( int end = SAMPLES.length; end > 0; end -= chunkSize )
+        {
+          final int start = Math.max( 0, end - chunkSize );
+          final int[] chunk = Arrays.copyOfRange( SAMPLES, start, end );
+          chunks.addFirst( decoder.decode( chunk, 0, chunk.length, start ) );
+        }
+        decoder.finish( chunks );
+
+        assertEquals( expected.values, actual.values );
+        assertEquals( expected.absoluteLength, actual.absoluteLength );
+        assertEquals( expected.triggerPosition, actual.triggerPosition );
+      }
+    }
+  }
+
+  /**
+   * Tests that RLE counts are added to the time of the preceeding sample value,
+   * and that leading counts are ignored.
+   */
+  @Test
+  public void testProcess()
+  {
+    final RecordingCallback callback = new RecordingCallback();
+    new RleDecoder( this.config, SAMPLES, 0, callback ).process();
+
+    assertEquals( Arrays.asList( "1@0", "2@5", "3@8", "1@9", "4@18", "5@21", "5@28" ), callback.values );
+    assertEquals( 28, callback.absoluteLength );
+  }
+}
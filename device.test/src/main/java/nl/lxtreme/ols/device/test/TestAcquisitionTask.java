@@ -67,7 +67,9 @@ public class TestAcquisitionTask implements AcquisitionTask
     final int dataLength = this.configDialog.getDataLength();
     final int channels = this.configDialog.getChannels();
 
-    final int[] data;
+    final CapturedDataBuilder builder = new CapturedDataBuilder();
+
+    int[] data = null;
     int rate = 1000000000;
     int trigger = -1;
     int enabledChannels = ( int )( ( 1L << channels ) - 1 );
@@ -106,34 +108,30 @@ public class TestAcquisitionTask implements AcquisitionTask
 
       boolean state = false;
 
-      data = new int[dataLength];
-      for ( int i = 0; i < data.length; i++ )
+      for ( int i = 0; i < dataLength; i++ )
       {
+        int value = 0x00;
         if ( DATA_FUNCTIONS[0].equals( dataFunction ) )
         {
           final int v = ( i / 8 ) & 0xff;
-          data[i] = ( 255 - v ) | ( v << 8 ) | ( ( 255 - v ) << 16 ) | ( v << 24 );
-        }
-        else if ( DATA_FUNCTIONS[1].equals( dataFunction ) )
-        {
-          data[i] = 0x00;
+          value = ( 255 - v ) | ( v << 8 ) | ( ( 255 - v ) << 16 ) | ( v << 24 );
         }
         else if ( DATA_FUNCTIONS[2].equals( dataFunction ) )
         {
-          data[i] = ( int )( half + ( half * Math.sin( i * factor ) ) );
+          value = ( int )( half + ( half * Math.sin( i * factor ) ) );
           rate = -1;
         }
         else if ( DATA_FUNCTIONS[3].equals( dataFunction ) )
         {
-          data[i] = ( ( i % 2 ) == 0 ) ? 0x55 : 0xAA;
+          value = ( ( i % 2 ) == 0 ) ? 0x55 : 0xAA;
         }
         else if ( DATA_FUNCTIONS[4].equals( dataFunction ) )
         {
-          data[i] = ( ( i % 4 ) == 0 ) ? 0x55 : 0xAA;
+          value = ( ( i % 4 ) == 0 ) ? 0x55 : 0xAA;
         }
         else if ( DATA_FUNCTIONS[5].equals( dataFunction ) )
         {
-          data[i] = rnd.nextInt();
+          value = rnd.nextInt();
         }
         else if ( DATA_FUNCTIONS[9].equals( dataFunction ) )
         {
@@ -141,16 +139,33 @@ public class TestAcquisitionTask implements AcquisitionTask
           {
             state = !state;
           }
-          data[i] = state ? 0x00 : 0x8000;
+          value = state ? 0x00 : 0x8000;
           enabledChannels = 0x0000FF00;
         }
 
-        this.progressListener.acquisitionInProgress( ( int )( ( i * 100.0 ) / data.length ) );
+        builder.add( value, i );
+
+        this.progressListener.acquisitionInProgress( ( int )( ( i * 100.0 ) / dataLength ) );
       }
 
-      trigger = ( int )( data.length * 0.25 );
+      trigger = ( int )( dataLength * 0.25 );
+    }
+
+    if ( data != null )
+    {
+      // Use the generated data as-is...
+      for ( int i = 0; i < data.length; i++ )
+      {
+        builder.add( data[i], i );
+      }
     }
 
-    return new CapturedData( data, trigger, rate, channels, enabledChannels );
+    builder.setTriggerPosition( trigger );
+    builder.setSampleRate( rate );
+    builder.setChannels( channels );
+    builder.setEnabledChannels( enabledChannels );
+    builder.setAbsoluteLength( ( data != null ? data.length : dataLength ) - 1 );
+
+    return builder.build();
   }
 }
@@ -29,12 +29,20 @@ import javax.imageio.*;
 import javax.swing.*;
 import javax.swing.border.*;
 
+import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.data.export.*;
 
 
 /**
  * Provides a simple export-to-image functionality.
+ * <p>
+ * When exporting a Swing component, the visible part of the component is
+ * painted on an image, limited to {@value #MAX_WIDTH}x{@value #MAX_HEIGHT}
+ * pixels. Without a component, or through {@link #export(DataSet, int,
+ * OutputStream)}, the entire time line is rendered directly from the data set
+ * by a {@link SignalImageRenderer}, which is not bound to these limits.
+ * </p>
  */
 public class ImageExporter implements Exporter
 {
@@ -44,6 +52,8 @@ public class ImageExporter implements Exporter
   private static final int MAX_WIDTH = 8192;
   /** The maximum height of the image to export. */
   private static final int MAX_HEIGHT = 8192;
+  /** The maximum width of a headless export without an explicit width. */
+  private static final int MAX_HEADLESS_WIDTH = 1 << 22;
 
   // METHODS
 
@@ -54,6 +64,15 @@ public class ImageExporter implements Exporter
   public void export( final DataSet aDataSet, final JComponent aComponent, final OutputStream aStream )
       throws IOException
   {
+    if ( aComponent == null )
+    {
+      final AcquisitionResult data = aDataSet.getCapturedData();
+      final long length = ( data == null ) ? 1L : data.getAbsoluteLength() + 1L;
+
+      export( aDataSet, ( int )Math.max( 1L, Math.min( MAX_HEADLESS_WIDTH, length ) ), aStream );
+      return;
+    }
+
     final Dimension dims = getExportSize( aComponent );
 
     final BufferedImage image = new BufferedImage( dims.width, dims.height, BufferedImage.TYPE_INT_RGB );
@@ -76,6 +95,29 @@ public class ImageExporter implements Exporter
     }
   }
 
+  /**
+   * Exports the entire time line of the given data set to an image of the
+   * given width, without the need for a Swing component.
+   * <p>
+   * The image is rendered in tiles and streamed to the given stream, so the
+   * memory used is proportional to the width of the image only.
+   * </p>
+   *
+   * @param aDataSet
+   *          the data set to export, cannot be <code>null</code>;
+   * @param aWidth
+   *          the width of the image, in pixels, > 0;
+   * @param aStream
+   *          the output stream to write the image to, cannot be
+   *          <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public void export( final DataSet aDataSet, final int aWidth, final OutputStream aStream ) throws IOException
+  {
+    new SignalImageRenderer( aDataSet, aWidth ).write( aStream );
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.export.Exporter#getFilenameExtentions()
    */
@@ -0,0 +1,281 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.image;
+
+
+import java.io.*;
+import java.util.zip.*;
+
+
+/**
+ * Provides a minimal PNG encoder for palette-based images, that writes the
+ * image one scanline at a time.
+ * <p>
+ * In contrast to {@link javax.imageio.ImageIO}, this encoder never needs the
+ * entire image in memory: each scanline is directly compressed and written as
+ * part of the image data, allowing images of (nearly) arbitrary size to be
+ * written.
+ * </p>
+ */
+final class PngWriter
+{
+  // INNER TYPES
+
+  /**
+   * Collects the compressed image data and writes it in IDAT-chunks.
+   */
+  static final class ImageDataOutputStream extends OutputStream
+  {
+    // VARIABLES
+
+    private final DataOutputStream out;
+    private final byte[] buffer;
+    private int count;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link ImageDataOutputStream} instance.
+     */
+    ImageDataOutputStream( final DataOutputStream aStream, final int aChunkSize )
+    {
+      this.out = aStream;
+      this.buffer = new byte[aChunkSize];
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() throws IOException
+    {
+      if ( this.count > 0 )
+      {
+        writeChunk( this.out, "IDAT", this.buffer, this.count );
+        this.count = 0;
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+    {
+      int offset = aOffset;
+      int length = aLength;
+      while ( length > 0 )
+      {
+        final int n = Math.min( length, this.buffer.length - this.count );
+        System.arraycopy( aBuffer, offset, this.buffer, this.count, n );
+        this.count += n;
+        offset += n;
+        length -= n;
+
+        if ( this.count == this.buffer.length )
+        {
+          flush();
+        }
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write( final int aByte ) throws IOException
+    {
+      write( new byte[] { ( byte )aByte }, 0, 1 );
+    }
+  }
+
+  // CONSTANTS
+
+  private static final byte[] SIGNATURE = { ( byte )0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+  private static final int COLOR_TYPE_PALETTE = 3;
+  private static final int CHUNK_SIZE = 1 << 16;
+
+  // VARIABLES
+
+  private final DataOutputStream out;
+  private final int width;
+  private final int height;
+  private final int bitDepth;
+  private final byte[] palette;
+
+  private Deflater deflater;
+  private DeflaterOutputStream imageData;
+  private int rowsWritten;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link PngWriter} instance.
+   *
+   * @param aStream
+   *          the stream to write the image to, cannot be <code>null</code>;
+   * @param aWidth
+   *          the width of the image, in pixels, > 0;
+   * @param aHeight
+   *          the height of the image, in pixels, > 0;
+   * @param aBitDepth
+   *          the number of bits per pixel, 1, 2, 4 or 8;
+   * @param aPalette
+   *          the RGB-triplets of the palette, cannot be <code>null</code>.
+   */
+  PngWriter( final OutputStream aStream, final int aWidth, final int aHeight, final int aBitDepth,
+      final byte[] aPalette )
+  {
+    if ( ( aWidth <= 0 ) || ( aHeight <= 0 ) )
+    {
+      throw new IllegalArgumentException( "Invalid image size: " + aWidth + "x" + aHeight + "!" );
+    }
+    if ( ( aBitDepth != 1 ) && ( aBitDepth != 2 ) && ( aBitDepth != 4 ) && ( aBitDepth != 8 ) )
+    {
+      throw new IllegalArgumentException( "Invalid bit depth: " + aBitDepth + "!" );
+    }
+    if ( ( aPalette.length % 3 ) != 0 || ( ( aPalette.length / 3 ) > ( 1 << aBitDepth ) ) )
+    {
+      throw new IllegalArgumentException( "Invalid palette!" );
+    }
+
+    this.out = new DataOutputStream( aStream );
+    this.width = aWidth;
+    this.height = aHeight;
+    this.bitDepth = aBitDepth;
+    this.palette = aPalette;
+  }
+
+  // METHODS
+
+  /**
+   * Writes a single chunk with a CRC-32 checksum.
+   */
+  static void writeChunk( final DataOutputStream aStream, final String aType, final byte[] aData, final int aLength )
+      throws IOException
+  {
+    final byte[] type = aType.getBytes( "US-ASCII" );
+
+    final CRC32 crc = new CRC32();
+    crc.update( type );
+    crc.update( aData, 0, aLength );
+
+    aStream.writeInt( aLength );
+    aStream.write( type );
+    aStream.write( aData, 0, aLength );
+    aStream.writeInt( ( int )crc.getValue() );
+  }
+
+  /**
+   * Finishes the image after all scanlines are written.
+   *
+   * @throws IOException
+   *           in case of I/O problems.
+   * @throws IllegalStateException
+   *           in case not all scanlines are written.
+   */
+  public void finish() throws IOException
+  {
+    if ( this.rowsWritten != this.height )
+    {
+      throw new IllegalStateException( "Only " + this.rowsWritten + " of " + this.height + " rows written!" );
+    }
+
+    try
+    {
+      this.imageData.finish();
+      this.imageData.flush();
+    }
+    finally
+    {
+      this.deflater.end();
+    }
+
+    writeChunk( this.out, "IEND", new byte[0], 0 );
+    this.out.flush();
+  }
+
+  /**
+   * Returns the number of bytes in a scanline, excluding the filter byte.
+   *
+   * @return a scanline length, > 0.
+   */
+  public int getScanlineLength()
+  {
+    return ( int )( ( ( long )this.width * this.bitDepth + 7L ) / 8L );
+  }
+
+  /**
+   * Writes the header of the image, should be called before any scanline is
+   * written.
+   *
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public void start() throws IOException
+  {
+    this.out.write( SIGNATURE );
+
+    final ByteArrayOutputStream header = new ByteArrayOutputStream( 13 );
+    final DataOutputStream dos = new DataOutputStream( header );
+    dos.writeInt( this.width );
+    dos.writeInt( this.height );
+    dos.writeByte( this.bitDepth );
+    dos.writeByte( COLOR_TYPE_PALETTE );
+    dos.writeByte( 0 ); // compression method
+    dos.writeByte( 0 ); // filter method
+    dos.writeByte( 0 ); // interlace method
+    dos.flush();
+
+    writeChunk( this.out, "IHDR", header.toByteArray(), header.size() );
+    writeChunk( this.out, "PLTE", this.palette, this.palette.length );
+
+    // Signal data is highly repetitive, so the fastest compression suffices...
+    this.deflater = new Deflater( Deflater.BEST_SPEED );
+    this.imageData = new DeflaterOutputStream( new ImageDataOutputStream( this.out, CHUNK_SIZE ), this.deflater,
+        CHUNK_SIZE );
+  }
+
+  /**
+   * Writes the next scanline of the image.
+   *
+   * @param aScanline
+   *          the packed pixels of the scanline, should contain at least
+   *          {@link #getScanlineLength()} bytes.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public void writeRow( final byte[] aScanline ) throws IOException
+  {
+    if ( this.rowsWritten >= this.height )
+    {
+      throw new IllegalStateException( "All rows are already written!" );
+    }
+
+    // Each scanline is preceeded by its filter type, we never filter...
+    this.imageData.write( 0 );
+    this.imageData.write( aScanline, 0, getScanlineLength() );
+    this.rowsWritten++;
+  }
+}
@@ -0,0 +1,447 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.image;
+
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+
+
+/**
+ * Renders the digital signals of a {@link DataSet} directly to a PNG image,
+ * without the need for a Swing component.
+ * <p>
+ * Rendering is done in two steps. First, the time line is divided in columns
+ * of one pixel, and for each column, the channels that are high and low in it
+ * are determined. This is done in horizontal tiles that are processed
+ * concurrently, using the {@link LevelOfDetail} of the captured data when a
+ * column spans multiple buckets. Second, the scanlines of the image are
+ * derived from these columns and streamed to a {@link PngWriter}. Only the two
+ * bit masks per column are kept in memory, regardless of the height of the
+ * image.
+ * </p>
+ */
+public final class SignalImageRenderer
+{
+  // INNER TYPES
+
+  /**
+   * Determines the high and low channels of the columns of a single tile.
+   */
+  final class TileTask implements Callable<Void>
+  {
+    // VARIABLES
+
+    private final int from;
+    private final int to;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link TileTask} instance.
+     */
+    TileTask( final int aFrom, final int aTo )
+    {
+      this.from = aFrom;
+      this.to = aTo;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Void call()
+    {
+      if ( SignalImageRenderer.this.level >= 0 )
+      {
+        final LevelOfDetail lod = LevelOfDetail.getInstance( SignalImageRenderer.this.data );
+        for ( int c = this.from; c < this.to; c++ )
+        {
+          final long start = getColumnStart( c );
+          final long end = Math.max( start + 1L, getColumnStart( c + 1 ) );
+
+          SignalImageRenderer.this.highMasks[c] = lod.getHighMask( SignalImageRenderer.this.level, start, end );
+          SignalImageRenderer.this.lowMasks[c] = lod.getLowMask( SignalImageRenderer.this.level, start, end );
+        }
+        return null;
+      }
+
+      final int[] values = SignalImageRenderer.this.data.getValues();
+      final long[] timestamps = SignalImageRenderer.this.data.getTimestamps();
+
+      // Walk the samples once for the entire tile, starting at the sample that
+      // is valid at the start of the tile...
+      int idx = Arrays.binarySearch( timestamps, getColumnStart( this.from ) );
+      if ( idx < 0 )
+      {
+        idx = Math.max( 0, -idx - 2 );
+      }
+      for ( int c = this.from; c < this.to; c++ )
+      {
+        final long start = getColumnStart( c );
+        final long end = Math.max( start + 1L, getColumnStart( c + 1 ) );
+
+        while ( ( ( idx + 1 ) < timestamps.length ) && ( timestamps[idx + 1] <= start ) )
+        {
+          idx++;
+        }
+
+        int high = values[idx];
+        int low = ~values[idx];
+        while ( ( ( idx + 1 ) < timestamps.length ) && ( timestamps[idx + 1] < end ) )
+        {
+          idx++;
+          high |= values[idx];
+          low |= ~values[idx];
+        }
+
+        SignalImageRenderer.this.highMasks[c] = high;
+        SignalImageRenderer.this.lowMasks[c] = low;
+      }
+      return null;
+    }
+  }
+
+  // CONSTANTS
+
+  /** The height of a single channel, in pixels. */
+  static final int CHANNEL_HEIGHT = 20;
+  /** The height of the signal itself, in pixels. */
+  static final int SIGNAL_HEIGHT = 14;
+  /** The number of columns rendered in one go. */
+  static final int TILE_WIDTH = 1 << 16;
+
+  /** The minimal number of samples per column to use the level of detail. */
+  private static final int LOD_MIN_SAMPLES_PER_COLUMN = 64;
+  /** The minimal number of level of detail buckets per column. */
+  private static final int LOD_BUCKETS_PER_COLUMN = 16;
+
+  private static final int BIT_DEPTH = 2;
+  private static final int PIXELS_PER_BYTE = 8 / BIT_DEPTH;
+
+  private static final int BACKGROUND = 0;
+  private static final int SEPARATOR = 1;
+  private static final int SIGNAL = 2;
+
+  private static final byte[] PALETTE = { 0x00, 0x00, 0x00, // background
+      0x30, 0x30, 0x30, // separator
+      0x1E, ( byte )0xC8, 0x1E // signal
+  };
+
+  // VARIABLES
+
+  private final AcquisitionResult data;
+  private final int[] channelMasks;
+  private final int width;
+  private final long startTime;
+  private final long timeSpan;
+  private final int level;
+
+  private final int[] highMasks;
+  private final int[] lowMasks;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link SignalImageRenderer} instance.
+   *
+   * @param aDataSet
+   *          the data set to render, cannot be <code>null</code>;
+   * @param aWidth
+   *          the width of the image to render, in pixels, > 0. The entire time
+   *          line of the captured data is scaled to fit this width.
+   */
+  public SignalImageRenderer( final DataSet aDataSet, final int aWidth )
+  {
+    if ( ( aDataSet == null ) || ( aDataSet.getCapturedData() == null ) )
+    {
+      throw new IllegalArgumentException( "DataSet cannot be null and should contain data!" );
+    }
+    if ( aWidth <= 0 )
+    {
+      throw new IllegalArgumentException( "Width should be positive!" );
+    }
+
+    this.data = aDataSet.getCapturedData();
+    this.width = aWidth;
+    this.channelMasks = getChannelMasks( aDataSet );
+
+    final long[] timestamps = this.data.getTimestamps();
+    if ( timestamps.length == 0 )
+    {
+      throw new IllegalArgumentException( "DataSet cannot be null and should contain data!" );
+    }
+
+    this.startTime = timestamps[0];
+    this.timeSpan = Math.max( 1L, Math.max( this.data.getAbsoluteLength(), timestamps[timestamps.length - 1] ) + 1L
+        - this.startTime );
+
+    // Walking the samples is exact, and linear in the number of samples; only
+    // use the level of detail if there are many samples per column. Use
+    // buckets that are much smaller than a column, as a bucket that crosses a
+    // column boundary is accounted to both columns...
+    if ( ( timestamps.length / aWidth ) >= LOD_MIN_SAMPLES_PER_COLUMN )
+    {
+      final double zoomFactor = ( ( double )aWidth * LOD_BUCKETS_PER_COLUMN ) / this.timeSpan;
+      this.level = LevelOfDetail.getInstance( this.data ).getLevel( zoomFactor );
+    }
+    else
+    {
+      this.level = -1;
+    }
+
+    this.highMasks = new int[aWidth];
+    this.lowMasks = new int[aWidth];
+  }
+
+  // METHODS
+
+  /**
+   * Returns the masks of all channels that should be rendered.
+   */
+  private static int[] getChannelMasks( final DataSet aDataSet )
+  {
+    final int enabledChannels = aDataSet.getCapturedData().getEnabledChannels();
+
+    final List<Integer> masks = new ArrayList<Integer>();
+    for ( Channel channel : aDataSet.getChannels() )
+    {
+      if ( channel.isEnabled() && ( ( enabledChannels & channel.getMask() ) != 0 ) )
+      {
+        masks.add( Integer.valueOf( channel.getMask() ) );
+      }
+    }
+
+    final int[] result = new int[masks.size()];
+    for ( int i = 0; i < result.length; i++ )
+    {
+      result[i] = masks.get( i ).intValue();
+    }
+    return result;
+  }
+
+  /**
+   * Sets the given pixel in a packed scanline.
+   */
+  private static void setPixel( final byte[] aScanline, final int aX, final int aColor )
+  {
+    final int shift = 8 - BIT_DEPTH * ( 1 + ( aX % PIXELS_PER_BYTE ) );
+    aScanline[aX / PIXELS_PER_BYTE] |= ( aColor << shift );
+  }
+
+  /**
+   * Returns the height of the image to render.
+   *
+   * @return a height, in pixels, > 0.
+   */
+  public int getHeight()
+  {
+    return Math.max( 1, this.channelMasks.length * CHANNEL_HEIGHT );
+  }
+
+  /**
+   * Returns the width of the image to render.
+   *
+   * @return a width, in pixels, > 0.
+   */
+  public int getWidth()
+  {
+    return this.width;
+  }
+
+  /**
+   * Renders the image and writes it as PNG to the given stream.
+   *
+   * @param aStream
+   *          the stream to write the image to, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems, or when rendering was interrupted.
+   */
+  public void write( final OutputStream aStream ) throws IOException
+  {
+    try
+    {
+      renderColumns();
+    }
+    catch ( InterruptedException exception )
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Rendering interrupted!" );
+    }
+
+    final PngWriter writer = new PngWriter( aStream, this.width, getHeight(), BIT_DEPTH, PALETTE );
+    writer.start();
+
+    final int length = writer.getScanlineLength();
+    final byte[] empty = new byte[length];
+    final byte[] separator = new byte[length];
+    for ( int x = 0; x < this.width; x++ )
+    {
+      setPixel( separator, x, SEPARATOR );
+    }
+
+    final byte[] top = new byte[length];
+    final byte[] middle = new byte[length];
+    final byte[] bottom = new byte[length];
+
+    final int signalTop = ( CHANNEL_HEIGHT - SIGNAL_HEIGHT ) / 2;
+    final int signalBottom = signalTop + SIGNAL_HEIGHT - 1;
+
+    for ( int mask : this.channelMasks )
+    {
+      createScanlines( mask, top, middle, bottom );
+
+      for ( int y = 0; y < CHANNEL_HEIGHT; y++ )
+      {
+        if ( y == signalTop )
+        {
+          writer.writeRow( top );
+        }
+        else if ( y == signalBottom )
+        {
+          writer.writeRow( bottom );
+        }
+        else if ( ( y > signalTop ) && ( y < signalBottom ) )
+        {
+          writer.writeRow( middle );
+        }
+        else if ( y == ( CHANNEL_HEIGHT - 1 ) )
+        {
+          writer.writeRow( separator );
+        }
+        else
+        {
+          writer.writeRow( empty );
+        }
+      }
+    }
+
+    if ( this.channelMasks.length == 0 )
+    {
+      writer.writeRow( empty );
+    }
+
+    writer.finish();
+  }
+
+  /**
+   * Creates the scanlines for the top, the middle and the bottom of the signal
+   * of a single channel. All other scanlines of a channel are empty.
+   */
+  private void createScanlines( final int aMask, final byte[] aTop, final byte[] aMiddle, final byte[] aBottom )
+  {
+    Arrays.fill( aTop, ( byte )BACKGROUND );
+    Arrays.fill( aMiddle, ( byte )BACKGROUND );
+    Arrays.fill( aBottom, ( byte )BACKGROUND );
+
+    boolean prevHigh = ( this.highMasks[0] & aMask ) != 0;
+    boolean prevLow = ( this.lowMasks[0] & aMask ) != 0;
+    for ( int x = 0; x < this.width; x++ )
+    {
+      final boolean high = ( this.highMasks[x] & aMask ) != 0;
+      final boolean low = ( this.lowMasks[x] & aMask ) != 0;
+
+      if ( high )
+      {
+        setPixel( aTop, x, SIGNAL );
+      }
+      if ( low )
+      {
+        setPixel( aBottom, x, SIGNAL );
+      }
+      // Draw a vertical line where the signal toggles, or where it changes
+      // with respect to the previous column...
+      if ( ( high && low ) || ( high && !prevHigh ) || ( low && !prevLow ) )
+      {
+        setPixel( aMiddle, x, SIGNAL );
+      }
+
+      prevHigh = high;
+      prevLow = low;
+    }
+  }
+
+  /**
+   * Returns the first timestamp of the given column.
+   */
+  private long getColumnStart( final int aColumn )
+  {
+    return this.startTime + ( long )( ( ( double )aColumn * this.timeSpan ) / this.width );
+  }
+
+  /**
+   * Determines the high and low channels of all columns, in concurrently
+   * rendered tiles.
+   */
+  private void renderColumns() throws InterruptedException
+  {
+    final List<TileTask> tasks = new ArrayList<TileTask>();
+    for ( int from = 0; from < this.width; from += TILE_WIDTH )
+    {
+      tasks.add( new TileTask( from, Math.min( this.width, from + TILE_WIDTH ) ) );
+    }
+
+    if ( tasks.size() < 2 )
+    {
+      for ( TileTask task : tasks )
+      {
+        task.call();
+      }
+      return;
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool( Math.min( tasks.size(), Runtime.getRuntime()
+        .availableProcessors() ) );
+    try
+    {
+      for ( Future<Void> future : executor.invokeAll( tasks ) )
+      {
+        try
+        {
+          future.get();
+        }
+        catch ( ExecutionException exception )
+        {
+          final Throwable cause = exception.getCause();
+          if ( cause instanceof RuntimeException )
+          {
+            throw ( RuntimeException )cause;
+          }
+          if ( cause instanceof Error )
+          {
+            throw ( Error )cause;
+          }
+          throw new RuntimeException( "Rendering failed!", cause );
+        }
+      }
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.image;
+
+
+import static org.junit.Assert.*;
+
+import java.awt.image.*;
+import java.io.*;
+
+import javax.imageio.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link PngWriter}.
+ */
+public class PngWriterTest
+{
+  // CONSTANTS
+
+  private static final byte[] PALETTE = { 0x00, 0x00, 0x00, //
+      ( byte )0xFF, 0x00, 0x00, //
+      0x00, ( byte )0xFF, 0x00, //
+      0x00, 0x00, ( byte )0xFF };
+
+  private static final int[] COLORS = { 0xFF000000, 0xFFFF0000, 0xFF00FF00, 0xFF0000FF };
+
+  // METHODS
+
+  /**
+   * Tests that an image that spans multiple image data chunks is written
+   * correctly.
+   */
+  @Test
+  public void testWriteLargeImageOk() throws IOException
+  {
+    // Use incompressible (pseudo random) data to force multiple chunks...
+    final int width = 1024;
+    final int height = 512;
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final PngWriter writer = new PngWriter( baos, width, height, 8, PALETTE );
+    writer.start();
+
+    final byte[] row = new byte[writer.getScanlineLength()];
+    int seed = 1;
+    for ( int y = 0; y < height; y++ )
+    {
+      for ( int x = 0; x < width; x++ )
+      {
+        seed = ( seed * 1103515245 ) + 12345;
+        row[x] = ( byte )( ( seed >>> 16 ) & 0x03 );
+      }
+      writer.writeRow( row );
+    }
+    writer.finish();
+
+    final BufferedImage image = ImageIO.read( new ByteArrayInputStream( baos.toByteArray() ) );
+    assertNotNull( image );
+    assertEquals( width, image.getWidth() );
+    assertEquals( height, image.getHeight() );
+
+    // The last row should be the last one written...
+    for ( int x = 0; x < width; x++ )
+    {
+      assertEquals( COLORS[row[x]], image.getRGB( x, height - 1 ) );
+    }
+  }
+
+  /**
+   * Tests that a packed 2-bit image can be read back with {@link ImageIO}.
+   */
+  @Test
+  public void testWritePackedImageOk() throws IOException
+  {
+    final int width = 7;
+    final int height = 3;
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final PngWriter writer = new PngWriter( baos, width, height, 2, PALETTE );
+    assertEquals( 2, writer.getScanlineLength() );
+
+    writer.start();
+    for ( int y = 0; y < height; y++ )
+    {
+      final byte[] row = new byte[writer.getScanlineLength()];
+      for ( int x = 0; x < width; x++ )
+      {
+        row[x / 4] |= ( ( ( x + y ) % 4 ) << ( 6 - 2 * ( x % 4 ) ) );
+      }
+      writer.writeRow( row );
+    }
+    writer.finish();
+
+    final BufferedImage image = ImageIO.read( new ByteArrayInputStream( baos.toByteArray() ) );
+    assertNotNull( image );
+    assertEquals( width, image.getWidth() );
+    assertEquals( height, image.getHeight() );
+
+    for ( int y = 0; y < height; y++ )
+    {
+      for ( int x = 0; x < width; x++ )
+      {
+        assertEquals( "(" + x + "," + y + ")", COLORS[( x + y ) % 4], image.getRGB( x, y ) );
+      }
+    }
+  }
+
+  /**
+   * Tests that finishing an image before all rows are written is reported.
+   */
+  @Test( expected = IllegalStateException.class )
+  public void testWriteTooFewRowsFail() throws IOException
+  {
+    final PngWriter writer = new PngWriter( new ByteArrayOutputStream(), 4, 2, 2, PALETTE );
+    writer.start();
+    writer.writeRow( new byte[writer.getScanlineLength()] );
+    writer.finish();
+  }
+}
+
+/* EOF */
@@ -0,0 +1,152 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.image;
+
+
+import static org.junit.Assert.*;
+
+import java.awt.image.*;
+import java.io.*;
+
+import javax.imageio.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.test.data.project.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link SignalImageRenderer}.
+ */
+public class SignalImageRendererTest
+{
+  // CONSTANTS
+
+  private static final int BACKGROUND = 0xFF000000;
+  private static final int SEPARATOR = 0xFF303030;
+  private static final int SIGNAL = 0xFF1EC81E;
+
+  private static final int SIGNAL_TOP = ( SignalImageRenderer.CHANNEL_HEIGHT - SignalImageRenderer.SIGNAL_HEIGHT ) / 2;
+  private static final int SIGNAL_BOTTOM = SIGNAL_TOP + SignalImageRenderer.SIGNAL_HEIGHT - 1;
+
+  // METHODS
+
+  /**
+   * Tests that disabled channels are not rendered.
+   */
+  @Test
+  public void testRenderDisabledChannelOk() throws IOException
+  {
+    final StubDataSet dataSet = createDataSet( new int[] { 0x0, 0x1 }, new long[] { 0L, 10L }, 20L, 2 );
+    dataSet.getChannel( 0 ).setEnabled( false );
+
+    final BufferedImage image = render( dataSet, 20 );
+    assertEquals( SignalImageRenderer.CHANNEL_HEIGHT, image.getHeight() );
+
+    // Only channel 1 remains, which is always low...
+    for ( int x = 0; x < 20; x++ )
+    {
+      assertEquals( BACKGROUND, image.getRGB( x, SIGNAL_TOP ) );
+      assertEquals( SIGNAL, image.getRGB( x, SIGNAL_BOTTOM ) );
+    }
+  }
+
+  /**
+   * Tests that a single channel is rendered as low, high and transition.
+   */
+  @Test
+  public void testRenderSingleTransitionOk() throws IOException
+  {
+    final StubDataSet dataSet = createDataSet( new int[] { 0x0, 0x1 }, new long[] { 0L, 10L }, 20L, 1 );
+
+    final BufferedImage image = render( dataSet, 20 );
+    assertEquals( 20, image.getWidth() );
+    assertEquals( SignalImageRenderer.CHANNEL_HEIGHT, image.getHeight() );
+
+    for ( int x = 0; x < 20; x++ )
+    {
+      final boolean high = ( x >= 10 );
+      assertEquals( "top @ " + x, high ? SIGNAL : BACKGROUND, image.getRGB( x, SIGNAL_TOP ) );
+      assertEquals( "bottom @ " + x, high ? BACKGROUND : SIGNAL, image.getRGB( x, SIGNAL_BOTTOM ) );
+      assertEquals( "middle @ " + x, ( x == 10 ) ? SIGNAL : BACKGROUND, image.getRGB( x, SIGNAL_TOP + 1 ) );
+      assertEquals( "separator @ " + x, SEPARATOR, image.getRGB( x, SignalImageRenderer.CHANNEL_HEIGHT - 1 ) );
+    }
+  }
+
+  /**
+   * Tests that a column spanning multiple samples is rendered as toggling.
+   */
+  @Test
+  public void testRenderToggleWithinColumnOk() throws IOException
+  {
+    final int size = 1000;
+    final int[] values = new int[size];
+    final long[] timestamps = new long[size];
+    for ( int i = 0; i < size; i++ )
+    {
+      values[i] = ( i % 2 );
+      timestamps[i] = i;
+    }
+
+    final BufferedImage image = render( createDataSet( values, timestamps, size, 1 ), 10 );
+    assertEquals( 10, image.getWidth() );
+
+    for ( int x = 0; x < 10; x++ )
+    {
+      assertEquals( SIGNAL, image.getRGB( x, SIGNAL_TOP ) );
+      assertEquals( SIGNAL, image.getRGB( x, SIGNAL_TOP + 1 ) );
+      assertEquals( SIGNAL, image.getRGB( x, SIGNAL_BOTTOM ) );
+    }
+  }
+
+  /**
+   * Creates a data set with the given samples.
+   */
+  private StubDataSet createDataSet( final int[] aValues, final long[] aTimestamps, final long aAbsLength,
+      final int aChannels )
+  {
+    final StubDataSet dataSet = new StubDataSet();
+    dataSet.setCapturedData( new CapturedData( aValues, aTimestamps, Ols.NOT_AVAILABLE, 1000, aChannels,
+        ( 1 << aChannels ) - 1, aAbsLength ) );
+    return dataSet;
+  }
+
+  /**
+   * Renders the given data set and reads it back as image.
+   */
+  private BufferedImage render( final DataSet aDataSet, final int aWidth ) throws IOException
+  {
+    final SignalImageRenderer renderer = new SignalImageRenderer( aDataSet, aWidth );
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    renderer.write( baos );
+
+    final BufferedImage image = ImageIO.read( new ByteArrayInputStream( baos.toByteArray() ) );
+    assertNotNull( image );
+    assertEquals( renderer.getWidth(), image.getWidth() );
+    assertEquals( renderer.getHeight(), image.getHeight() );
+    return image;
+  }
+}
+
+/* EOF */
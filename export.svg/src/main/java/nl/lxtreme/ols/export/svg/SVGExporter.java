@@ -21,69 +21,143 @@
 package nl.lxtreme.ols.export.svg;
 
 
-import java.awt.*;
 import java.io.*;
-import java.util.*;
 
 import javax.swing.*;
-import javax.swing.border.*;
 
+import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.data.export.*;
-
-import org.apache.batik.dom.*;
-import org.apache.batik.svggen.*;
-import org.w3c.dom.*;
+import nl.lxtreme.ols.util.*;
 
 
 /**
- * @author jawi
+ * Provides a scalable vector graphics (SVG) exporter, that streams the
+ * digital signals of the captured data directly to the output stream.
+ * <p>
+ * Each channel is written as a single <tt>&lt;path&gt;</tt> element. The time
+ * line is divided in resolution units, and all edges of a channel that fall in
+ * the same unit are collapsed into a single vertical line. This way, the size
+ * of the file is bound by the number of resolution units, not by the number of
+ * transitions in the captured data. The edges are looked up in the
+ * {@link EdgeIndex} of the captured data, so only the edges of the exported
+ * channels are visited.
+ * </p>
  */
 public class SVGExporter implements Exporter
 {
+  // CONSTANTS
+
+  /** The width of the signals, in resolution units, if no component is given. */
+  private static final int DEFAULT_WIDTH = 8192;
+  /** The maximum width of the signals, in resolution units. */
+  private static final int MAX_WIDTH = 1 << 20;
+
+  private static final int CHANNEL_HEIGHT = 20;
+  private static final int SIGNAL_HEIGHT = 14;
+  private static final int LABEL_WIDTH = 80;
+
   // METHODS
 
   /**
-   * @see nl.lxtreme.ols.api.data.export.Exporter#export(nl.lxtreme.ols.api.data.DataContainer,
-   *      javax.swing.JComponent, java.io.OutputStream)
+   * Escapes the given text for use in XML.
+   *
+   * @param aText
+   *          the text to escape, cannot be <code>null</code>.
+   * @return the escaped text, never <code>null</code>.
+   */
+  private static String escape( final String aText )
+  {
+    final StringBuilder sb = new StringBuilder( aText.length() );
+    for ( int i = 0; i < aText.length(); i++ )
+    {
+      final char c = aText.charAt( i );
+      switch ( c )
+      {
+        case '<':
+          sb.append( "&lt;" );
+          break;
+        case '>':
+          sb.append( "&gt;" );
+          break;
+        case '&':
+          sb.append( "&amp;" );
+          break;
+        case '"':
+          sb.append( "&quot;" );
+          break;
+        default:
+          sb.append( c );
+          break;
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * {@inheritDoc}
    */
   @Override
-  public void export( final DataContainer aContainer, final JComponent aComponent, final OutputStream aStream )
+  public void export( final DataSet aDataSet, final JComponent aComponent, final OutputStream aStream )
       throws IOException
   {
-    // Get a DOMImplementation.
-    DOMImplementation domImpl = GenericDOMImplementation.getDOMImplementation();
-
-    // Create an instance of org.w3c.dom.Document.
-    final String svgNS = "http://www.w3.org/2000/svg";
-    Document document = domImpl.createDocument( svgNS, "svg", null );
-
-    final SVGGeneratorContext ctx = SVGGeneratorContext.createDefault( document );
-    ctx.setComment( "Generated on " + new Date() );
-
-    // Create an instance of the SVG Generator.
-    final SVGGraphics2D svgGenerator = new SVGGraphics2D( ctx, false /* textAsShapes */);
-    // Make sure to set the correct canvas size, in order for viewers to get a
-    // notion of the size of the display...
-    svgGenerator.setSVGCanvasSize( getImageSize( aComponent ) );
-    // "Paint" the diagram component to SVG...
-    paintDiagram( svgGenerator, aComponent );
-
-    Writer out = new OutputStreamWriter( aStream, "UTF-8" );
-    try
+    final AcquisitionResult data = aDataSet.getCapturedData();
+    if ( data == null )
     {
-      svgGenerator.stream( out, true /* useCSS */);
+      throw new IOException( "Nothing to export!" );
     }
-    finally
+
+    final int width = getExportWidth( aComponent );
+
+    int channelCount = 0;
+    for ( Channel channel : aDataSet.getChannels() )
     {
-      out.flush();
-      out.close();
-      out = null;
+      if ( isExported( data, channel ) )
+      {
+        channelCount++;
+      }
     }
+
+    final Writer out = new BufferedWriter( new OutputStreamWriter( aStream, "UTF-8" ), 1 << 16 );
+
+    final int totalWidth = LABEL_WIDTH + width;
+    final int totalHeight = Math.max( 1, channelCount * CHANNEL_HEIGHT );
+
+    out.write( "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n" );
+    out.write( "<svg xmlns=\"http://www.w3.org/2000/svg\" version=\"1.1\" width=\"" + totalWidth + "\" height=\""
+        + totalHeight + "\" viewBox=\"0 0 " + totalWidth + " " + totalHeight + "\">\n" );
+    out.write( "<rect width=\"100%\" height=\"100%\" fill=\"black\"/>\n" );
+    out.write( "<g font-family=\"sans-serif\" font-size=\"11\" fill=\"white\">\n" );
+
+    final EdgeIndex edgeIndex = EdgeIndex.getInstance( data );
+
+    int row = 0;
+    for ( Channel channel : aDataSet.getChannels() )
+    {
+      if ( !isExported( data, channel ) )
+      {
+        continue;
+      }
+
+      String label = channel.getLabel();
+      if ( StringUtils.isEmpty( label ) )
+      {
+        label = String.format( "Ch.%d", Integer.valueOf( channel.getIndex() ) );
+      }
+
+      final int y = row * CHANNEL_HEIGHT;
+      out.write( "<text x=\"4\" y=\"" + ( y + CHANNEL_HEIGHT - 6 ) + "\">" + escape( label ) + "</text>\n" );
+      writeSignalPath( out, data, edgeIndex, channel, y, width );
+      row++;
+    }
+
+    out.write( "</g>\n" );
+    out.write( "</svg>\n" );
+    out.flush();
   }
 
   /**
-   * @see nl.lxtreme.ols.api.data.export.Exporter#getFilenameExtentions()
+   * {@inheritDoc}
    */
   @Override
   public String[] getFilenameExtentions()
@@ -92,7 +166,7 @@ public class SVGExporter implements Exporter
   }
 
   /**
-   * @see nl.lxtreme.ols.api.data.export.Exporter#getName()
+   * {@inheritDoc}
    */
   @Override
   public String getName()
@@ -101,115 +175,126 @@ public class SVGExporter implements Exporter
   }
 
   /**
-   * Returns the export image size for the given component.
-   * 
+   * Returns the width of the exported signals, in resolution units. This is
+   * the full width of the given diagram, as shown on screen.
+   *
    * @param aDiagram
-   *          the component to get the export image size for, cannot be
+   *          the component to get the export width for, can be
    *          <code>null</code>.
-   * @return a export image size, never <code>null</code>.
+   * @return an export width, > 0.
    */
-  private Dimension getImageSize( final JComponent aDiagram )
+  private int getExportWidth( final JComponent aDiagram )
   {
+    int width = DEFAULT_WIDTH;
     if ( aDiagram instanceof JScrollPane )
     {
-      final JScrollPane scrollpane = ( JScrollPane )aDiagram;
-
-      final Dimension viewSize = scrollpane.getViewport().getViewSize();
-      final Dimension rowHeaderSize = scrollpane.getRowHeader().getViewSize();
-      final Dimension columnHeaderSize = scrollpane.getColumnHeader().getViewSize();
-
-      final int width = viewSize.width + rowHeaderSize.width;
-      final int height = viewSize.height + columnHeaderSize.height;
-
-      return new Dimension( width, height );
+      width = ( ( JScrollPane )aDiagram ).getViewport().getViewSize().width;
     }
-
-    return aDiagram.getPreferredSize();
+    else if ( aDiagram != null )
+    {
+      width = aDiagram.getPreferredSize().width;
+    }
+    return Math.max( 1, Math.min( MAX_WIDTH, width ) );
   }
 
   /**
-   * Paints the given component on the given canvas.
-   * 
-   * @param aCanvas
-   *          the canvas to paint on, cannot be <code>null</code>;
-   * @param aDiagram
-   *          the component to paint, cannot be <code>null</code>.
-   * @see #paintScrollPaneContents(Graphics2D, JScrollPane)
+   * Returns whether the given channel should be exported.
    */
-  private void paintDiagram( final Graphics2D aCanvas, final JComponent aDiagram )
+  private boolean isExported( final AcquisitionResult aData, final Channel aChannel )
   {
-    if ( aDiagram instanceof JScrollPane )
-    {
-      paintScrollPaneContents( aCanvas, ( JScrollPane )aDiagram );
-    }
-    else
-    {
-      final Border border = aDiagram.getBorder();
-      if ( border != null )
-      {
-        final Insets insets = border.getBorderInsets( aDiagram );
-        if ( insets != null )
-        {
-          aCanvas.translate( -insets.left, -insets.top );
-        }
-      }
-
-      aDiagram.paint( aCanvas );
-    }
+    return aChannel.isEnabled() && ( ( aData.getEnabledChannels() & aChannel.getMask() ) != 0 );
   }
 
   /**
-   * Paints the contents of the given scrollpane on the given canvas, expanding
-   * it to its full view (without scroll bars).
-   * 
-   * @param aCanvas
-   *          the canvas to paint on, cannot be <code>null</code>;
-   * @param aScrollPane
-   *          the scroll pane to paint, cannot be <code>null</code>.
+   * Writes the signal of a single channel as path.
+   *
+   * @param aWriter
+   *          the writer to write the path to;
+   * @param aData
+   *          the captured data;
+   * @param aEdgeIndex
+   *          the edge index of the captured data;
+   * @param aChannel
+   *          the channel to write;
+   * @param aY
+   *          the top of the channel;
+   * @param aWidth
+   *          the width of the signal, in resolution units.
    */
-  private void paintScrollPaneContents( final Graphics2D aCanvas, final JScrollPane aScrollPane )
+  private void writeSignalPath( final Writer aWriter, final AcquisitionResult aData, final EdgeIndex aEdgeIndex,
+      final Channel aChannel, final int aY, final int aWidth ) throws IOException
   {
-    int offsetX = 0;
-    int offsetY = 0;
+    final int[] values = aData.getValues();
+    final long[] timestamps = aData.getTimestamps();
 
-    final Component rowHeaderView = aScrollPane.getRowHeader().getView();
-    final Component columnHeaderView = aScrollPane.getColumnHeader().getView();
-    final Component cornerView = aScrollPane.getCorner( ScrollPaneConstants.UPPER_LEADING_CORNER );
-    final Component contentView = aScrollPane.getViewport().getView();
+    final long startTime = timestamps[0];
+    final long timeSpan = Math.max( 1L, Math.max( aData.getAbsoluteLength(), timestamps[timestamps.length - 1] )
+        - startTime );
+    final double scale = ( double )aWidth / timeSpan;
 
-    if ( rowHeaderView != null )
-    {
-      offsetX = rowHeaderView.getWidth();
-    }
-    if ( columnHeaderView != null )
-    {
-      offsetY = columnHeaderView.getHeight();
-    }
+    final int mask = aChannel.getMask();
+    final int channelIdx = aChannel.getIndex();
 
-    if ( cornerView != null )
-    {
-      cornerView.paint( aCanvas );
-    }
+    final int yHigh = aY + ( CHANNEL_HEIGHT - SIGNAL_HEIGHT ) / 2;
+    final int yLow = yHigh + SIGNAL_HEIGHT - 1;
 
-    if ( columnHeaderView != null )
-    {
-      aCanvas.translate( offsetX, 0 );
-      columnHeaderView.paint( aCanvas );
-      aCanvas.translate( -offsetX, 0 );
-    }
+    final StringBuilder path = new StringBuilder( 256 );
 
-    if ( rowHeaderView != null )
-    {
-      aCanvas.translate( 0, offsetY );
-      rowHeaderView.paint( aCanvas );
-      aCanvas.translate( 0, -offsetY );
-    }
+    boolean level = ( values[0] & mask ) != 0;
+    path.append( "<path fill=\"none\" stroke=\"#1ec81e\" d=\"M" ).append( LABEL_WIDTH ).append( ' ' )
+        .append( level ? yHigh : yLow );
 
-    if ( contentView != null )
+    // The unit in which edges are being collapsed, its level at the start and
+    // the number of edges in it...
+    int unit = -1;
+    boolean unitLevel = level;
+    int unitEdges = 0;
+
+    final int edgeCount = aEdgeIndex.getEdgeCount( channelIdx );
+    for ( int e = 0; e <= edgeCount; e++ )
     {
-      aCanvas.translate( offsetX, offsetY );
-      contentView.paint( aCanvas );
-      aCanvas.translate( -offsetX, -offsetY );
+      final int edgeUnit;
+      if ( e < edgeCount )
+      {
+        final int sampleIdx = aEdgeIndex.getEdge( channelIdx, e );
+        edgeUnit = ( int )Math.min( aWidth, ( long )( ( timestamps[sampleIdx] - startTime ) * scale ) );
+      }
+      else
+      {
+        edgeUnit = Integer.MAX_VALUE;
+      }
+
+      if ( ( edgeUnit != unit ) && ( unitEdges > 0 ) )
+      {
+        // Flush the edges of the previous unit as a single vertical line...
+        path.append( 'H' ).append( LABEL_WIDTH + unit );
+        if ( ( level == unitLevel ) && ( unitEdges > 1 ) )
+        {
+          path.append( 'V' ).append( level ? yLow : yHigh );
+        }
+        path.append( 'V' ).append( level ? yHigh : yLow );
+
+        if ( path.length() > 8192 )
+        {
+          aWriter.append( path );
+          path.setLength( 0 );
+        }
+        unitEdges = 0;
+      }
+
+      if ( e < edgeCount )
+      {
+        if ( unitEdges == 0 )
+        {
+          unit = edgeUnit;
+          unitLevel = level;
+        }
+        level = !level;
+        unitEdges++;
+      }
     }
+
+    path.append( 'H' ).append( LABEL_WIDTH + aWidth ).append( "\"/>\n" );
+    aWriter.append( path );
   }
 }
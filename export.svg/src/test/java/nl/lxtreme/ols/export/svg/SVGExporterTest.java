@@ -0,0 +1,210 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.svg;
+
+
+import static org.junit.Assert.*;
+
+import java.awt.*;
+import java.io.*;
+
+import javax.swing.*;
+import javax.xml.parsers.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.test.data.project.*;
+
+import org.junit.*;
+import org.w3c.dom.*;
+
+
+/**
+ * Test cases for {@link SVGExporter}.
+ */
+public class SVGExporterTest
+{
+  // METHODS
+
+  /**
+   * Tests that disabled channels are not exported.
+   */
+  @Test
+  public void testExportDisabledChannelOk() throws Exception
+  {
+    final StubDataSet dataSet = createDataSet( new int[] { 0x0, 0x3 }, new long[] { 0L, 10L }, 20L, 2 );
+    dataSet.getChannel( 0 ).setEnabled( false );
+
+    final Document doc = export( dataSet, 20 );
+
+    assertEquals( 1, doc.getElementsByTagName( "path" ).getLength() );
+    assertEquals( 1, doc.getElementsByTagName( "text" ).getLength() );
+  }
+
+  /**
+   * Tests that a large capture yields an output whose size is bound by the
+   * width of the export, not by the number of transitions.
+   */
+  @Test
+  public void testExportLargeCaptureIsBounded() throws Exception
+  {
+    final int size = 1000000;
+    final int[] values = new int[size];
+    final long[] timestamps = new long[size];
+    for ( int i = 0; i < size; i++ )
+    {
+      // channel 0 toggles every sample, channel 1 every 1000 samples...
+      values[i] = ( i % 2 ) | ( ( ( i / 1000 ) % 2 ) << 1 );
+      timestamps[i] = i;
+    }
+
+    final int width = 100;
+    final byte[] output = exportBytes( createDataSet( values, timestamps, size, 2 ), width );
+
+    // a few commands per unit and channel, plus a fixed overhead...
+    assertTrue( "Output too large: " + output.length, output.length < ( 2 * width * 30 ) + 1024 );
+
+    final NodeList paths = parse( output ).getElementsByTagName( "path" );
+    assertEquals( 2, paths.getLength() );
+
+    // channel 0 toggles within each unit, so it has a vertical line in each...
+    final String d = ( ( Element )paths.item( 0 ) ).getAttribute( "d" );
+    assertTrue( d.startsWith( "M80 " ) );
+    assertTrue( d.endsWith( "H" + ( 80 + width ) ) );
+    assertTrue( countCommands( d, 'H' ) <= ( width + 2 ) );
+    assertTrue( countCommands( d, 'V' ) <= ( 2 * ( width + 1 ) ) );
+  }
+
+  /**
+   * Tests that the output is well-formed XML, with the channel labels properly
+   * escaped.
+   */
+  @Test
+  public void testExportLabelsAreEscaped() throws Exception
+  {
+    final String label = "<a & \"b\">";
+
+    final StubDataSet dataSet = createDataSet( new int[] { 0x0, 0x1 }, new long[] { 0L, 10L }, 20L, 1 );
+    dataSet.getChannel( 0 ).setLabel( label );
+
+    final byte[] output = exportBytes( dataSet, 20 );
+    assertFalse( new String( output, "UTF-8" ).contains( label ) );
+
+    final Document doc = parse( output );
+    assertEquals( "svg", doc.getDocumentElement().getNodeName() );
+    assertEquals( label, doc.getElementsByTagName( "text" ).item( 0 ).getTextContent() );
+  }
+
+  /**
+   * Tests that a single transition is written as a single vertical line.
+   */
+  @Test
+  public void testExportSingleTransitionOk() throws Exception
+  {
+    final StubDataSet dataSet = createDataSet( new int[] { 0x0, 0x1 }, new long[] { 0L, 10L }, 20L, 1 );
+
+    assertEquals( "M80 16H90V3H100", getPath( export( dataSet, 20 ), 0 ) );
+  }
+
+  /**
+   * Tests that the edges falling in the same unit are collapsed into a single
+   * vertical line.
+   */
+  @Test
+  public void testExportToggleWithinUnitIsCollapsed() throws Exception
+  {
+    // a short pulse, which falls in a single unit...
+    StubDataSet dataSet = createDataSet( new int[] { 0x0, 0x1, 0x0 }, new long[] { 0L, 10L, 11L }, 20L, 1 );
+    assertEquals( "M80 16H85V3V16H90", getPath( export( dataSet, 10 ), 0 ) );
+
+    // three edges in a single unit change the level...
+    dataSet = createDataSet( new int[] { 0x0, 0x1, 0x0, 0x1 }, new long[] { 0L, 8L, 9L, 10L }, 40L, 1 );
+    assertEquals( "M80 16H82V3H90", getPath( export( dataSet, 10 ), 0 ) );
+  }
+
+  /**
+   * Counts the number of times the given command occurs in the given path.
+   */
+  private int countCommands( final String aPath, final char aCommand )
+  {
+    int result = 0;
+    for ( int i = 0; i < aPath.length(); i++ )
+    {
+      if ( aPath.charAt( i ) == aCommand )
+      {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Creates a data set with the given samples.
+   */
+  private StubDataSet createDataSet( final int[] aValues, final long[] aTimestamps, final long aAbsLength,
+      final int aChannels )
+  {
+    final StubDataSet dataSet = new StubDataSet();
+    dataSet.setCapturedData( new CapturedData( aValues, aTimestamps, Ols.NOT_AVAILABLE, 1000, aChannels,
+        ( 1 << aChannels ) - 1, aAbsLength ) );
+    return dataSet;
+  }
+
+  /**
+   * Exports the given data set and parses the result.
+   */
+  private Document export( final DataSet aDataSet, final int aWidth ) throws Exception
+  {
+    return parse( exportBytes( aDataSet, aWidth ) );
+  }
+
+  /**
+   * Exports the given data set with the given width.
+   */
+  private byte[] exportBytes( final DataSet aDataSet, final int aWidth ) throws IOException
+  {
+    final JPanel component = new JPanel();
+    component.setPreferredSize( new Dimension( aWidth, 100 ) );
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    new SVGExporter().export( aDataSet, component, baos );
+    return baos.toByteArray();
+  }
+
+  /**
+   * Returns the path data of the given path element.
+   */
+  private String getPath( final Document aDocument, final int aIndex )
+  {
+    return ( ( Element )aDocument.getElementsByTagName( "path" ).item( aIndex ) ).getAttribute( "d" );
+  }
+
+  /**
+   * Parses the given output as XML, failing if it is not well-formed.
+   */
+  private Document parse( final byte[] aOutput ) throws Exception
+  {
+    final DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+    return builder.parse( new ByteArrayInputStream( aOutput ) );
+  }
+}
+
+/* EOF */
@@ -309,6 +309,12 @@ public final class DataTestUtils
       {
         return first.intValue();
       }
+
+      @Override
+      public void gotoTimestamp( final long aTimestamp )
+      {
+        // NO-op
+      }
     };
   }
 
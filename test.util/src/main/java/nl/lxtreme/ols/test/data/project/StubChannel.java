@@ -66,6 +66,15 @@ public class StubChannel implements Channel
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void addAnnotations( final Collection<? extends Annotation<?>> aAnnotations )
+  {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -93,6 +102,15 @@ public class StubChannel implements Channel
     return Collections.emptyList();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DataAnnotationIndex getAnnotationIndex()
+  {
+    return new DataAnnotationIndex();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -131,6 +131,23 @@ public class StubTestProject implements Project
     return this.changed;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void readData( final File aFile ) throws IOException
+  {
+    final Reader reader = new FileReader( aFile );
+    try
+    {
+      readData( reader );
+    }
+    finally
+    {
+      reader.close();
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
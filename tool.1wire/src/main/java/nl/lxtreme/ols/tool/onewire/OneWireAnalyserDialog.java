@@ -42,7 +42,7 @@ import nl.lxtreme.ols.util.*;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
-import nl.lxtreme.ols.util.ExportUtils.HtmlFileExporter;
+import nl.lxtreme.ols.util.ExportUtils.HtmlReportWriter;
 import nl.lxtreme.ols.util.swing.*;
 
 import org.osgi.framework.*;
@@ -53,15 +53,93 @@ import org.osgi.framework.*;
  */
 public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implements ExportAware<OneWireDataSet>
 {
+  // INNER TYPES
+
+  /**
+   * Provides a lazy table model for the decoded 1-Wire data.
+   */
+  final class OneWireDataTableModel extends DataSetTableModel<OneWireData>
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link OneWireDataTableModel} instance.
+     */
+    public OneWireDataTableModel()
+    {
+      super( "Hex", "Bin", "Dec", "ASCII" );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Color getRowBackground( final int aRowIndex )
+    {
+      final OneWireData data = getData( aRowIndex );
+      if ( !data.isEvent() )
+      {
+        return null;
+      }
+
+      final String event = data.getEventName();
+      if ( OneWireDataSet.OW_RESET.equals( event ) )
+      {
+        return EVENT_ROW_COLOR;
+      }
+      // unknown event
+      return ERROR_ROW_COLOR;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object getValueAt( final OneWireData aData, final int aColumnIndex )
+    {
+      if ( aData.isEvent() )
+      {
+        return ( aColumnIndex == 0 ) ? aData.getEventName() : null;
+      }
+
+      final int value = aData.getValue();
+      switch ( aColumnIndex )
+      {
+        case 0:
+          return "0x".concat( integerToHexString( value, 2 ) );
+        case 1:
+          return "0b".concat( integerToBinString( value, 8 ) );
+        case 2:
+          return Integer.valueOf( value );
+        default:
+          return toASCII( value );
+      }
+    }
+  }
+
   // CONSTANTS
 
   private static final long serialVersionUID = 1L;
 
+  private static final Color EVENT_ROW_COLOR = new Color( 0xe0e0e0 );
+  private static final Color ERROR_ROW_COLOR = new Color( 0xff8000 );
+
+  /** The number of rows after which the export progress is reported. */
+  private static final int PROGRESS_INTERVAL = 1024;
+  /** The column spans of an event row in the HTML report. */
+  private static final int[] EVENT_COL_SPANS = { 1, 1, 4 };
+
   // VARIABLES
 
   private JComboBox owLine;
   private JComboBox owMode;
-  private JEditorPane outText;
+  private DataSetTable<OneWireData> resultTable;
 
   private RestorableAction runAnalysisAction;
   private Action exportAction;
@@ -102,7 +180,7 @@ public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implem
     final OneWireDataSet lastResult = getLastResult();
     if ( ExportFormat.HTML.equals( aFormat ) )
     {
-      toHtmlPage( aOutputFile, lastResult );
+      storeToHtmlFile( aOutputFile, lastResult );
     }
     else if ( ExportFormat.CSV.equals( aFormat ) )
     {
@@ -128,9 +206,8 @@ public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implem
   @Override
   public void reset()
   {
-    final String emptyHtmlPage = getEmptyHtmlPage();
-    this.outText.setText( emptyHtmlPage );
-    this.outText.setEditable( false );
+    this.resultTable.setDataSet( null );
+    this.resultTable.setSummary( null );
 
     this.runAnalysisAction.restore();
 
@@ -155,32 +232,10 @@ public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implem
   @Override
   protected void onToolEnded( final OneWireDataSet aResult )
   {
-    try
-    {
-      final String htmlPage;
-      if ( aResult != null )
-      {
-        htmlPage = toHtmlPage( null /* aFile */, aResult );
-      }
-      else
-      {
-        htmlPage = getEmptyHtmlPage();
-      }
+    this.resultTable.setDataSet( aResult );
+    this.resultTable.setSummary( ( aResult == null ) ? null : getSummary( aResult ) );
 
-      this.outText.setText( htmlPage );
-      this.outText.setEditable( false );
-
-      this.runAnalysisAction.restore();
-    }
-    catch ( final IOException exception )
-    {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        // This should not happen for the no-file exports!
-        throw new RuntimeException( exception );
-      }
-    }
+    this.runAnalysisAction.restore();
   }
 
   /**
@@ -273,6 +328,40 @@ public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implem
     return aExporter;
   }
 
+  /**
+   * Creates the macro resolver for the statistics of the given analysis
+   * results.
+   *
+   * @param aAnalysisResult
+   *          the analysis results to create the macro resolver for, cannot be
+   *          <code>null</code>.
+   * @return a macro resolver, never <code>null</code>.
+   */
+  private MacroResolver createMacroResolver( final OneWireDataSet aAnalysisResult )
+  {
+    return new MacroResolver()
+    {
+      @Override
+      public Object resolve( final String aMacro, final Element aParent )
+      {
+        if ( "date-now".equals( aMacro ) )
+        {
+          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
+          return df.format( new Date() );
+        }
+        else if ( "decoded-bytes".equals( aMacro ) )
+        {
+          return Integer.valueOf( aAnalysisResult.getDecodedByteCount() );
+        }
+        else if ( "detected-bus-errors".equals( aMacro ) )
+        {
+          return Integer.valueOf( aAnalysisResult.getBusErrorCount() );
+        }
+        return null;
+      }
+    };
+  }
+
   /**
    * @return
    */
@@ -280,10 +369,9 @@ public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implem
   {
     final JPanel output = new JPanel( new GridLayout( 1, 1, 0, 0 ) );
 
-    this.outText = new JEditorPane( "text/html", getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.resultTable = new DataSetTable<OneWireData>( new OneWireDataTableModel(), getContext() );
 
-    output.add( new JScrollPane( this.outText ) );
+    output.add( this.resultTable );
 
     return output;
   }
@@ -318,34 +406,16 @@ public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implem
   }
 
   /**
-   * Returns an "empty" HTML page.
+   * Returns a short summary of the statistics of the given analysis results.
    *
-   * @return an empty HTML page string, never <code>null</code>.
+   * @param aAnalysisResult
+   *          the analysis results to summarize, cannot be <code>null</code>.
+   * @return a summary, never <code>null</code>.
    */
-  private String getEmptyHtmlPage()
+  private String getSummary( final OneWireDataSet aAnalysisResult )
   {
-    final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-    return exporter.toString( new MacroResolver()
-    {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
-      {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        else if ( "sda-bus-config".equals( aMacro ) || "scl-bus-config".equals( aMacro ) )
-        {
-          return "&lt;auto detect&gt;";
-        }
-        else if ( "decoded-bytes".equals( aMacro ) || "detected-bus-errors".equals( aMacro ) )
-        {
-          return "-";
-        }
-        return null;
-      }
-    } );
+    return String.format( "<html>Decoded bytes: <b>%d</b>, detected bus errors: <b>%d</b></html>",
+        Integer.valueOf( aAnalysisResult.getDecodedByteCount() ), Integer.valueOf( aAnalysisResult.getBusErrorCount() ) );
   }
 
   /**
@@ -385,96 +455,90 @@ public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implem
   }
 
   /**
-   * generate a HTML page
+   * Stores the given analysis results to the given file as HTML.
    *
-   * @param aEmpty
-   *          if this is true an empty output is generated
-   * @return String with HTML data
+   * @param aFile
+   *          the file to write to, cannot be <code>null</code>;
+   * @param aAnalysisResult
+   *          the analysis results to store, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private String toHtmlPage( final File aFile, final OneWireDataSet aAnalysisResult ) throws IOException
+  private void storeToHtmlFile( final File aFile, final OneWireDataSet aAnalysisResult ) throws IOException
   {
-    final MacroResolver macroResolver = new MacroResolver()
+    final HtmlExporter template = createHtmlTemplate( ExportUtils.createHtmlExporter() );
+    final HtmlReportWriter writer = ExportUtils.createHtmlReportWriter( aFile, template, "decoded-data",
+        createMacroResolver( aAnalysisResult ) );
+
+    try
     {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
+      writeDecodedData( writer, aAnalysisResult, getProgressListener() );
+    }
+    finally
+    {
+      writer.close();
+    }
+  }
+
+  /**
+   * Writes the decoded data as table rows to the given report writer.
+   *
+   * @param aWriter
+   *          the report writer to write the rows to, cannot be
+   *          <code>null</code>;
+   * @param aAnalysisResult
+   *          the analysis results to write, cannot be <code>null</code>;
+   * @param aProgressListener
+   *          the progress listener to report the progress to, cannot be
+   *          <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  private void writeDecodedData( final HtmlReportWriter aWriter, final OneWireDataSet aAnalysisResult,
+      final ToolProgressListener aProgressListener ) throws IOException
+  {
+    final List<OneWireData> dataSet = aAnalysisResult.getData();
+    final int size = dataSet.size();
+
+    for ( int i = 0; i < size; i++ )
+    {
+      final OneWireData data = dataSet.get( i );
+
+      final String index = String.valueOf( i );
+      final String time = Unit.Time.format( aAnalysisResult.getTime( data.getStartSampleIndex() ) );
+
+      if ( data.isEvent() )
       {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        else if ( "decoded-bytes".equals( aMacro ) )
-        {
-          return Integer.valueOf( aAnalysisResult.getDecodedByteCount() );
-        }
-        else if ( "detected-bus-errors".equals( aMacro ) )
+        // this is an event
+        final String event = data.getEventName();
+
+        String bgColor;
+        if ( OneWireDataSet.OW_RESET.equals( event ) )
         {
-          return Integer.valueOf( aAnalysisResult.getBusErrorCount() );
+          bgColor = "#e0e0e0";
         }
-        else if ( "decoded-data".equals( aMacro ) )
+        else
         {
-          final List<OneWireData> dataSet = aAnalysisResult.getData();
-          Element tr;
-
-          for ( int i = 0; i < dataSet.size(); i++ )
-          {
-            final OneWireData data = dataSet.get( i );
-
-            if ( data.isEvent() )
-            {
-              // this is an event
-              final String event = data.getEventName();
-
-              String bgColor;
-              if ( OneWireDataSet.OW_RESET.equals( event ) )
-              {
-                bgColor = "#e0e0e0";
-              }
-              else
-              {
-                // unknown event
-                bgColor = "#ff8000";
-              }
-
-              tr = aParent.addChild( TR ).addAttribute( "style", "background-color: " + bgColor + ";" );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( Unit.Time.format( aAnalysisResult.getTime( data.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( event );
-              tr.addChild( TD );
-              tr.addChild( TD );
-              tr.addChild( TD );
-            }
-            else
-            {
-              final int value = data.getValue();
-
-              tr = aParent.addChild( TR );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( Unit.Time.format( aAnalysisResult.getTime( data.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( "0x", integerToHexString( value, 2 ) );
-              tr.addChild( TD ).addContent( "0b", integerToBinString( value, 8 ) );
-              tr.addChild( TD ).addContent( String.valueOf( value ) );
-              tr.addChild( TD ).addContent( toASCII( value ) );
-            }
-          }
+          // unknown event
+          bgColor = "#ff8000";
         }
 
-        return null;
+        aWriter.writeRow( "background-color: " + bgColor + ";", EVENT_COL_SPANS, index, time, event );
       }
-    };
+      else
+      {
+        final int value = data.getValue();
 
-    if ( aFile == null )
-    {
-      final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-      return exporter.toString( macroResolver );
-    }
-    else
-    {
-      final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
-      exporter.write( macroResolver );
-      exporter.close();
+        aWriter.writeRow( null /* aStyle */, index, time, "0x".concat( integerToHexString( value, 2 ) ),
+            "0b".concat( integerToBinString( value, 8 ) ), String.valueOf( value ), toASCII( value ) );
+      }
+
+      if ( ( i % PROGRESS_INTERVAL ) == 0 )
+      {
+        aProgressListener.setProgress( NumberUtils.getPercentage( i, size ) );
+      }
     }
 
-    return null;
+    aProgressListener.setProgress( 100 );
   }
 }
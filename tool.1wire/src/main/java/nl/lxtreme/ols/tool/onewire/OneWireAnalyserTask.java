@@ -168,6 +168,10 @@ public class OneWireAnalyserTask implements ToolTask<OneWireDataSet>
     // to use in order to obtain those kind of time values...
     final double timingCorrection = ( 1.0e6 / aData.getSampleRate() );
 
+    // Jump from one transition of the 1-wire line to the next, instead of
+    // looking at each individual time tick...
+    final TransitionCursor cursor = new TransitionCursor( aData, this.owLineIndex );
+
     long time = Math.max( 0, startOfDecode );
 
     int bitCount = 8;
@@ -176,14 +180,14 @@ public class OneWireAnalyserTask implements ToolTask<OneWireDataSet>
 
     while ( ( endOfDecode - time ) > 0 )
     {
-      long fallingEdge = findEdge( aData, time, endOfDecode, Edge.FALLING );
+      long fallingEdge = cursor.findTransition( time, endOfDecode, Edge.FALLING );
       if ( fallingEdge < 0 )
       {
         LOG.log( Level.INFO, "Decoding ended at {0}; no falling edge found...",
             Unit.Time.format( time / ( double )aData.getSampleRate() ) );
         break;
       }
-      long risingEdge = findEdge( aData, fallingEdge, endOfDecode, Edge.RISING );
+      long risingEdge = cursor.findTransition( fallingEdge, endOfDecode, Edge.RISING );
       if ( risingEdge < 0 )
       {
         risingEdge = endOfDecode;
@@ -196,7 +200,7 @@ public class OneWireAnalyserTask implements ToolTask<OneWireDataSet>
       {
         // Take the next falling edge, whose difference with the last leading
         // edge should indicate the presence of a slave or not...
-        final long nextFallingEdge = findEdge( aData, risingEdge, endOfDecode, Edge.FALLING );
+        final long nextFallingEdge = cursor.findTransition( risingEdge, endOfDecode, Edge.FALLING );
 
         boolean slavePresent = false;
         if ( nextFallingEdge > 0 )
@@ -264,64 +268,6 @@ public class OneWireAnalyserTask implements ToolTask<OneWireDataSet>
     this.progressListener.setProgress( 100 );
   }
 
-  /**
-   * Find first falling edge this is the start of the start bit. If the signal
-   * is inverted, find the first rising edge.
-   * 
-   * @param aStartOfDecode
-   *          the timestamp to start searching;
-   * @param aEndOfDecode
-   *          the timestamp to end the search;
-   * @param aMask
-   *          the bit-value mask to apply for finding the start bit.
-   * @return the time at which the start bit was found, -1 if it is not found.
-   */
-  private long findEdge( final AcquisitionResult aData, final long aStartOfDecode, final long aEndOfDecode,
-      final Edge aEdge )
-  {
-    long result = -1;
-
-    int oldBitValue = getDataValue( aData, aStartOfDecode ) & this.owLineMask;
-    for ( long timeCursor = aStartOfDecode + 1; ( result < 0 ) && ( timeCursor < aEndOfDecode ); timeCursor++ )
-    {
-      final int bitValue = getDataValue( aData, timeCursor ) & this.owLineMask;
-
-      final Edge edge = Edge.toEdge( oldBitValue, bitValue );
-      if ( aEdge == edge )
-      {
-        result = timeCursor;
-      }
-
-      oldBitValue = bitValue;
-    }
-
-    return result;
-  }
-
-  /**
-   * Returns the data value for the given time stamp.
-   * 
-   * @param aTimeValue
-   *          the time stamp to return the data value for.
-   * @return the data value of the sample index right before the given time
-   *         value.
-   */
-  private int getDataValue( final AcquisitionResult aData, final long aTimeValue )
-  {
-    final int[] values = aData.getValues();
-    final long[] timestamps = aData.getTimestamps();
-
-    int i;
-    for ( i = 1; i < timestamps.length; i++ )
-    {
-      if ( aTimeValue < timestamps[i] )
-      {
-        break;
-      }
-    }
-    return values[i - 1];
-  }
-
   /**
    * Determines the resulting channel label and clears any existing annotations.
    * 
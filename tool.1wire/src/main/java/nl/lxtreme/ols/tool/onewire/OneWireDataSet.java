@@ -28,7 +28,7 @@ import nl.lxtreme.ols.api.data.*;
 /**
  * Denotes a 1-Wire data set.
  */
-public class OneWireDataSet extends BaseDataSet<OneWireData>
+public class OneWireDataSet extends CompactDataSet<OneWireData>
 {
   // CONSTANTS
 
@@ -87,9 +87,8 @@ public class OneWireDataSet extends BaseDataSet<OneWireData>
    */
   public void reportBusError( final int aChannelIdx, final int aSampleIdx )
   {
-    final int idx = size();
     this.busErrors++;
-    addData( new OneWireData( idx, aChannelIdx, aSampleIdx, OW_BUS_ERROR, false /* aSlavePresent */) );
+    addData( aChannelIdx, aSampleIdx, aSampleIdx, 0 /* aSlavePresent */, OW_BUS_ERROR, 0 );
   }
 
   /**
@@ -107,9 +106,8 @@ public class OneWireDataSet extends BaseDataSet<OneWireData>
   public void reportData( final int aChannelIdx, final int aStartSampleIdx, final int aEndSampleIdx,
       final int aByteValue )
   {
-    final int idx = size();
     this.decodedBytes++;
-    addData( new OneWireData( idx, aChannelIdx, aStartSampleIdx, aEndSampleIdx, aByteValue ) );
+    addData( aChannelIdx, aStartSampleIdx, aEndSampleIdx, aByteValue, null, 0 );
   }
 
   /**
@@ -128,7 +126,20 @@ public class OneWireDataSet extends BaseDataSet<OneWireData>
   public void reportReset( final int aChannelIdx, final int aSampleIdx, final int aEndSampleIdx,
       final boolean aSlaveIsPresent )
   {
-    final int idx = size();
-    addData( new OneWireData( idx, aChannelIdx, aSampleIdx, OW_RESET, aSlaveIsPresent ) );
+    addData( aChannelIdx, aSampleIdx, aSampleIdx, aSlaveIsPresent ? 1 : 0, OW_RESET, 0 );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected OneWireData createData( final int aIdx, final int aChannelIdx, final int aStartSampleIdx,
+      final int aEndSampleIdx, final int aValue, final String aEventName, final int aAttribute )
+  {
+    if ( aEventName != null )
+    {
+      return new OneWireData( aIdx, aChannelIdx, aStartSampleIdx, aEventName, aValue != 0 );
+    }
+    return new OneWireData( aIdx, aChannelIdx, aStartSampleIdx, aEndSampleIdx, aValue );
   }
 }
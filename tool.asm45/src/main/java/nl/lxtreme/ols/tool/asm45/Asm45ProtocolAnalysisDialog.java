@@ -30,7 +30,6 @@ import java.io.*;
 import java.text.*;
 import java.util.*;
 import java.util.List;
-import java.util.logging.*;
 
 import javax.swing.*;
 
@@ -43,7 +42,7 @@ import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
-import nl.lxtreme.ols.util.ExportUtils.HtmlFileExporter;
+import nl.lxtreme.ols.util.ExportUtils.HtmlReportWriter;
 import nl.lxtreme.ols.util.swing.*;
 import nl.lxtreme.ols.util.swing.component.*;
 
@@ -58,11 +57,86 @@ import org.osgi.framework.*;
 public final class Asm45ProtocolAnalysisDialog extends BaseToolDialog<Asm45DataSet> implements
 ExportAware<Asm45DataSet>
 {
+  // INNER TYPES
+
+  /**
+   * Provides a lazy table model for the decoded Asm45 data.
+   */
+  final class Asm45DataTableModel extends DataSetTableModel<Asm45Data>
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link Asm45DataTableModel} instance.
+     */
+    public Asm45DataTableModel()
+    {
+      super( "Clocks", "Block", "Address", "Value", "Bus Grant", "Type", "Event" );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Color getRowBackground( final int aRowIndex )
+    {
+      final Asm45Data data = getData( aRowIndex );
+      if ( aRowIndex == ( ( Asm45DataSet )getDataSet() ).getTriggerEvent() )
+      {
+        // trigger event
+        return TRIGGER_ROW_COLOR;
+      }
+      else if ( Asm45Data.TYPE_INSTRUCTION.equals( data.getType() ) )
+      {
+        // machine instruction
+        return null;
+      }
+      // data transfer (w/ or w/o bus grant)
+      return data.getBusGrant() ? BUS_GRANT_ROW_COLOR : TRANSFER_ROW_COLOR;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object getValueAt( final Asm45Data aData, final int aColumnIndex )
+    {
+      switch ( aColumnIndex )
+      {
+        case 0:
+          return Integer.valueOf( aData.getClocks() );
+        case 1:
+          return integerToHexString( aData.getBlock(), 2 );
+        case 2:
+          return integerToHexString( aData.getAddress(), 4 );
+        case 3:
+          return integerToHexString( aData.getValue(), 4 );
+        case 4:
+          return aData.getBusGrant() ? "X" : "-";
+        case 5:
+          return aData.getType();
+        default:
+          return aData.getEvent();
+      }
+    }
+  }
+
   // CONSTANTS
 
   private static final long serialVersionUID = 1L;
 
-  private static final Logger LOG = Logger.getLogger( Asm45ProtocolAnalysisDialog.class.getName() );
+  private static final Color TRIGGER_ROW_COLOR = new Color( 0xffa0ff );
+  private static final Color BUS_GRANT_ROW_COLOR = new Color( 0x64ff64 );
+  private static final Color TRANSFER_ROW_COLOR = new Color( 0xe0e0ff );
+
+  /** The number of rows after which the export progress is reported. */
+  private static final int PROGRESS_INTERVAL = 1024;
 
   // VARIABLES
 
@@ -87,7 +161,7 @@ ExportAware<Asm45DataSet>
   private JCheckBox showInst;
   private JCheckBox showData;
   private JCheckBox showBusGrants;
-  private JEditorPane outText;
+  private DataSetTable<Asm45Data> resultTable;
 
   private RestorableAction runAnalysisAction;
   private Action exportAction;
@@ -156,9 +230,8 @@ ExportAware<Asm45DataSet>
   @Override
   public void reset()
   {
-    final String emptyHtmlPage = getEmptyHtmlPage();
-    this.outText.setText( emptyHtmlPage );
-    this.outText.setEditable( false );
+    this.resultTable.setDataSet( null );
+    this.resultTable.setSummary( null );
 
     this.runAnalysisAction.restore();
 
@@ -190,32 +263,10 @@ ExportAware<Asm45DataSet>
   @Override
   protected void onToolEnded( final Asm45DataSet aAnalysisResult )
   {
-    try
-    {
-      final String htmlPage;
-      if ( aAnalysisResult != null )
-      {
-        htmlPage = toHtmlPage( null /* aFile */, aAnalysisResult );
-      }
-      else
-      {
-        htmlPage = getEmptyHtmlPage();
-      }
+    this.resultTable.setDataSet( aAnalysisResult );
+    this.resultTable.setSummary( ( aAnalysisResult == null ) ? null : getSummary( aAnalysisResult ) );
 
-      this.outText.setText( htmlPage );
-      this.outText.setEditable( false );
-
-      this.runAnalysisAction.restore();
-    }
-    catch ( final IOException exception )
-    {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        // This should not happen for the no-file exports!
-        throw new RuntimeException( exception );
-      }
-    }
+    this.runAnalysisAction.restore();
   }
 
   /**
@@ -372,6 +423,65 @@ ExportAware<Asm45DataSet>
     return aExporter;
   }
 
+  /**
+   * Creates the macro resolver for the configuration and statistics of the
+   * given analysis results.
+   *
+   * @param aAnalysisResult
+   *          the analysis results to create the macro resolver for, cannot be
+   *          <code>null</code>.
+   * @return a macro resolver, never <code>null</code>.
+   */
+  private MacroResolver createMacroResolver( final Asm45DataSet aAnalysisResult )
+  {
+    return new MacroResolver()
+    {
+      @Override
+      @SuppressWarnings( "boxing" )
+      public Object resolve( final String aMacro, final Element aParent )
+      {
+        if ( "date-now".equals( aMacro ) )
+        {
+          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
+          return df.format( new Date() );
+        }
+        else if ( "smc-bus-config".equals( aMacro ) )
+        {
+          return Asm45ProtocolAnalysisDialog.this.lineSMC.getSelectedIndex();
+        }
+        else if ( "stm-bus-config".equals( aMacro ) )
+        {
+          return Asm45ProtocolAnalysisDialog.this.lineSTM.getSelectedIndex();
+        }
+        else if ( "ebg-bus-config".equals( aMacro ) )
+        {
+          return Asm45ProtocolAnalysisDialog.this.lineEBG.getSelectedIndex();
+        }
+        else if ( "byte-bus-config".equals( aMacro ) )
+        {
+          return Asm45ProtocolAnalysisDialog.this.lineBYTE.getSelectedIndex();
+        }
+        else if ( "bl-bus-config".equals( aMacro ) )
+        {
+          return Asm45ProtocolAnalysisDialog.this.lineBL.getSelectedIndex();
+        }
+        else if ( "wrt-bus-config".equals( aMacro ) )
+        {
+          return Asm45ProtocolAnalysisDialog.this.lineWRT.getSelectedIndex();
+        }
+        else if ( "sync-bus-config".equals( aMacro ) )
+        {
+          return Asm45ProtocolAnalysisDialog.this.lineSYNC.getSelectedIndex();
+        }
+        else if ( "decoded-words".equals( aMacro ) )
+        {
+          return Integer.valueOf( aAnalysisResult.getDecodedWordCount() );
+        }
+        return null;
+      }
+    };
+  }
+
   /**
    * @return
    */
@@ -379,10 +489,9 @@ ExportAware<Asm45DataSet>
   {
     final JPanel output = new JPanel( new GridLayout( 1, 1, 0, 0 ) );
 
-    this.outText = new JEditorPane( "text/html", getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.resultTable = new DataSetTable<Asm45Data>( new Asm45DataTableModel(), getContext() );
 
-    output.add( new JScrollPane( this.outText ) );
+    output.add( this.resultTable );
 
     return output;
   }
@@ -464,59 +573,16 @@ ExportAware<Asm45DataSet>
   }
 
   /**
-   * Returns an "empty" HTML page.
+   * Returns a short summary of the statistics of the given analysis results.
    *
-   * @return an empty HTML page string, never <code>null</code>.
+   * @param aAnalysisResult
+   *          the analysis results to summarize, cannot be <code>null</code>.
+   * @return a summary, never <code>null</code>.
    */
-  private String getEmptyHtmlPage()
+  private String getSummary( final Asm45DataSet aAnalysisResult )
   {
-    final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-    return exporter.toString( new MacroResolver()
-    {
-      @Override
-      @SuppressWarnings( "boxing" )
-      public Object resolve( final String aMacro, final Element aParent )
-      {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        else if ( "smc-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineSMC.getSelectedIndex();
-        }
-        else if ( "stm-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineSTM.getSelectedIndex();
-        }
-        else if ( "ebg-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineEBG.getSelectedIndex();
-        }
-        else if ( "byte-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineBYTE.getSelectedIndex();
-        }
-        else if ( "bl-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineBL.getSelectedIndex();
-        }
-        else if ( "wrt-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineWRT.getSelectedIndex();
-        }
-        else if ( "sync-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineSYNC.getSelectedIndex();
-        }
-        else if ( "decoded-words".equals( aMacro ) )
-        {
-          return "-";
-        }
-        return null;
-      }
-    } );
+    return String.format( "<html>Decoded words: <b>%d</b>, total time: <b>%s</b></html>",
+        Integer.valueOf( aAnalysisResult.getDecodedWordCount() ), aAnalysisResult.getTotalTime() );
   }
 
   /**
@@ -560,33 +626,37 @@ ExportAware<Asm45DataSet>
    *
    * @param aSelectedFile
    * @param aAnalysisResult
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private void storeToCsvFile( final File aSelectedFile, final Asm45DataSet aAnalysisResult )
+  private void storeToCsvFile( final File aSelectedFile, final Asm45DataSet aAnalysisResult ) throws IOException
   {
+    final ToolProgressListener progressListener = getProgressListener();
+    final CsvExporter exporter = ExportUtils.createCsvExporter( aSelectedFile );
+
     try
     {
-      final CsvExporter exporter = ExportUtils.createCsvExporter( aSelectedFile );
-
       exporter.setHeaders( "index", "clocks", "block", "address", "value", "bus grant", "type", "event" );
 
       final List<Asm45Data> dataSet = aAnalysisResult.getData();
-      for ( int i = 0; i < dataSet.size(); i++ )
+      final int size = dataSet.size();
+      for ( int i = 0; i < size; i++ )
       {
         final Asm45Data ds = dataSet.get( i );
         exporter.addRow( Integer.valueOf( i ), Integer.valueOf( ds.getClocks() ),
             integerToHexString( ds.getBlock(), 2 ), StringUtils.integerToHexString( ds.getAddress(), 4 ),
             integerToHexString( ds.getValue(), 4 ), ds.getBusGrant() ? "X" : "-", ds.getType(), ds.getEvent() );
-      }
 
-      exporter.close();
+        if ( ( i % PROGRESS_INTERVAL ) == 0 )
+        {
+          progressListener.setProgress( NumberUtils.getPercentage( i, size ) );
+        }
+      }
     }
-    catch ( final IOException exception )
+    finally
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        LOG.log( Level.WARNING, "CSV export failed!", exception );
-      }
+      exporter.close();
+      progressListener.setProgress( 100 );
     }
   }
 
@@ -595,143 +665,91 @@ ExportAware<Asm45DataSet>
    *
    * @param aSelectedFile
    * @param aAnalysisResult
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private void storeToHtmlFile( final File aSelectedFile, final Asm45DataSet aAnalysisResult )
+  private void storeToHtmlFile( final File aSelectedFile, final Asm45DataSet aAnalysisResult ) throws IOException
   {
+    final HtmlExporter template = createHtmlTemplate( ExportUtils.createHtmlExporter() );
+    final HtmlReportWriter writer = ExportUtils.createHtmlReportWriter( aSelectedFile, template, "decoded-data",
+        createMacroResolver( aAnalysisResult ) );
+
     try
     {
-      toHtmlPage( aSelectedFile, aAnalysisResult );
+      writeDecodedData( writer, aAnalysisResult, getProgressListener() );
     }
-    catch ( final IOException exception )
+    finally
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        LOG.log( Level.WARNING, "HTML export failed!", exception );
-      }
+      writer.close();
     }
   }
 
   /**
-   * generate a HTML page
+   * Writes the decoded data as table rows to the given report writer.
    *
-   * @param aEmpty
-   *          if this is true an empty output is generated
-   * @return String with HTML data
+   * @param aWriter
+   *          the report writer to write the rows to, cannot be
+   *          <code>null</code>;
+   * @param aAnalysisResult
+   *          the analysis results to write, cannot be <code>null</code>;
+   * @param aProgressListener
+   *          the progress listener to report the progress to, cannot be
+   *          <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
    */
   // table data:
   //
   // Index, Clocks, Block, Address, Value, Type, Event
   //
-  private String toHtmlPage( final File aFile, final Asm45DataSet aAnalysisResult ) throws IOException
+  private void writeDecodedData( final HtmlReportWriter aWriter, final Asm45DataSet aAnalysisResult,
+      final ToolProgressListener aProgressListener ) throws IOException
   {
-    final MacroResolver macroResolver = new MacroResolver()
+    final List<Asm45Data> dataSet = aAnalysisResult.getData();
+    final int size = dataSet.size();
+
+    for ( int i = 0; i < size; i++ )
     {
-      @Override
-      @SuppressWarnings( "boxing" )
-      public Object resolve( final String aMacro, final Element aParent )
+      final Asm45Data data = dataSet.get( i );
+      int index = i - aAnalysisResult.getTriggerEvent();
+
+      String bgColor;
+
+      if ( index == 0 )
       {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        else if ( "smc-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineSMC.getSelectedIndex();
-        }
-        else if ( "stm-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineSTM.getSelectedIndex();
-        }
-        else if ( "ebg-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineEBG.getSelectedIndex();
-        }
-        else if ( "byte-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineBYTE.getSelectedIndex();
-        }
-        else if ( "bl-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineBL.getSelectedIndex();
-        }
-        else if ( "wrt-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineWRT.getSelectedIndex();
-        }
-        else if ( "sync-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineSYNC.getSelectedIndex();
-        }
-        else if ( "decoded-words".equals( aMacro ) )
+        // trigger event
+        bgColor = "#ffa0ff";
+      }
+      else if ( data.getType().equals( Asm45Data.TYPE_INSTRUCTION ) )
+      {
+        // machine instruction
+        bgColor = "#ffffff";
+      }
+      else
+      {
+        // data transfer (w/ or w/o bus grant)
+        if ( data.getBusGrant() )
         {
-          return Integer.valueOf( aAnalysisResult.getDecodedWordCount() );
+          bgColor = "#64ff64";
         }
-        else if ( "decoded-data".equals( aMacro ) )
+        else
         {
-          final List<Asm45Data> dataSet = aAnalysisResult.getData();
-          Element tr;
-
-          for ( int i = 0; i < dataSet.size(); i++ )
-          {
-            final Asm45Data data = dataSet.get( i );
-            int index = i - aAnalysisResult.getTriggerEvent();
-
-            String bgColor;
-
-            if ( index == 0 )
-            {
-              // trigger event
-              bgColor = "#ffa0ff";
-            }
-            else if ( data.getType().equals( Asm45Data.TYPE_INSTRUCTION ) )
-            {
-              // machine instruction
-              bgColor = "#ffffff";
-            }
-            else
-            {
-              // data transfer (w/ or w/o bus grant)
-              if ( data.getBusGrant() )
-              {
-                bgColor = "#64ff64";
-              }
-              else
-              {
-                bgColor = "#e0e0ff";
-              }
-            }
-
-            tr = aParent.addChild( TR )
-                .addAttribute( "style", "background-color: " + bgColor + "; text-align: center;" );
-            tr.addChild( TD ).addContent( String.valueOf( index ) );
-            tr.addChild( TD ).addContent( String.valueOf( data.getClocks() ) );
-            tr.addChild( TD ).addContent( integerToHexString( data.getBlock(), 2 ) );
-            tr.addChild( TD ).addContent( integerToHexString( data.getAddress(), 4 ) );
-            tr.addChild( TD ).addContent( integerToHexString( data.getValue(), 4 ) );
-            tr.addChild( TD ).addContent( data.getBusGrant() ? "X" : "-" );
-            tr.addChild( TD ).addContent( data.getType() );
-            tr.addChild( TD ).addAttribute( "style", "text-align: left;" ).addContent( data.getEvent() );
-          }
+          bgColor = "#e0e0ff";
         }
-
-        return null;
       }
-    };
 
-    if ( aFile == null )
-    {
-      final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-      return exporter.toString( macroResolver );
-    }
-    else
-    {
-      final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
-      exporter.write( macroResolver );
-      exporter.close();
+      aWriter.writeRow( "background-color: " + bgColor + "; text-align: center;", String.valueOf( index ),
+          String.valueOf( data.getClocks() ), integerToHexString( data.getBlock(), 2 ),
+          integerToHexString( data.getAddress(), 4 ), integerToHexString( data.getValue(), 4 ),
+          data.getBusGrant() ? "X" : "-", data.getType(),
+          "<div style='text-align: left;'>" + data.getEvent() + "</div>" );
+
+      if ( ( i % PROGRESS_INTERVAL ) == 0 )
+      {
+        aProgressListener.setProgress( NumberUtils.getPercentage( i, size ) );
+      }
     }
 
-    return null;
+    aProgressListener.setProgress( 100 );
   }
 }
@@ -30,6 +30,7 @@ import javax.swing.*;
 import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.Configurable;
 import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.annotation.*;
 import nl.lxtreme.ols.api.task.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.util.swing.*;
@@ -67,6 +68,8 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JFrame implements Tool
   private volatile Future<RESULT_TYPE> toolFutureTask;
   private volatile ToolTask<RESULT_TYPE> toolTask;
   private volatile RESULT_TYPE lastResult;
+  private volatile ToolResultCache.Key cacheKey;
+  private volatile RecordingAnnotationListener recordingListener;
 
   // CONSTRUCTORS
 
@@ -181,7 +184,28 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JFrame implements Tool
     boolean settingsValid = validateToolSettings();
     if ( settingsValid )
     {
-      this.toolTask = this.tool.createToolTask( this.context, this.toolProgressListener, this.annotationListener );
+      AnnotationListener listener = this.annotationListener;
+
+      this.cacheKey = null;
+      this.recordingListener = null;
+      if ( isResultCacheable() )
+      {
+        final ToolResultCache cache = ToolResultCache.getInstance();
+        final ToolResultCache.Key key = cache.createKey( this.tool.getClass().getName(), this.context, this );
+
+        final ToolResultCache.Entry entry = cache.get( key );
+        if ( entry != null )
+        {
+          showCachedResult( entry );
+          return true;
+        }
+
+        this.cacheKey = key;
+        this.recordingListener = new RecordingAnnotationListener( listener );
+        listener = this.recordingListener;
+      }
+
+      this.toolTask = this.tool.createToolTask( this.context, this.toolProgressListener, listener );
       prepareToolTask( this.toolTask );
 
       this.toolFutureTask = this.taskExecutionService.execute( this.toolTask );
@@ -217,6 +241,15 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JFrame implements Tool
     {
       this.lastResult = ( RESULT_TYPE )aResult;
 
+      final ToolResultCache.Key key = this.cacheKey;
+      final RecordingAnnotationListener recording = this.recordingListener;
+      if ( ( key != null ) && ( recording != null ) && ( aResult != null ) )
+      {
+        ToolResultCache.getInstance().put( key, aResult, recording.getRecording(), recording.getAnnotationCount() );
+      }
+      this.cacheKey = null;
+      this.recordingListener = null;
+
       SwingComponentUtils.invokeOnEDT( new Runnable()
       {
         @Override
@@ -256,6 +289,9 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JFrame implements Tool
         }
       } );
 
+      this.cacheKey = null;
+      this.recordingListener = null;
+
       this.toolFutureTask = null;
       this.toolTask = null;
     }
@@ -304,6 +340,35 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JFrame implements Tool
     return this.context.getData();
   }
 
+  /**
+   * Returns the progress listener of this dialog, which can be used to report
+   * the progress of lengthy operations, such as exporting the results.
+   *
+   * @return the progress listener, never <code>null</code>.
+   */
+  protected final ToolProgressListener getProgressListener()
+  {
+    return this.toolProgressListener;
+  }
+
+  /**
+   * Returns whether the results of this tool can be cached.
+   * <p>
+   * Cached results are keyed on the acquired data, the decoding range and the
+   * settings written by {@link #writePreferences(UserSettings)}. Tools should
+   * therefore only return <code>true</code> if the latter includes
+   * <em>all</em> settings that are passed to the tool task in
+   * {@link #prepareToolTask(ToolTask)}. By default, results are not cached.
+   * </p>
+   *
+   * @return <code>true</code> if a cached result can be shown instead of
+   *         running the tool again, <code>false</code> otherwise.
+   */
+  protected boolean isResultCacheable()
+  {
+    return false;
+  }
+
   /**
    * Called right before this dialog is made invisible.
    */
@@ -428,4 +493,30 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JFrame implements Tool
   {
     return true;
   }
+
+  /**
+   * Shows the given cached result as if the tool just finished, replaying the
+   * annotations it produced.
+   *
+   * @param aEntry
+   *          the cached result to show, cannot be <code>null</code>.
+   */
+  @SuppressWarnings( "unchecked" )
+  private void showCachedResult( final ToolResultCache.Entry aEntry )
+  {
+    this.lastResult = ( RESULT_TYPE )aEntry.result;
+
+    RecordingAnnotationListener.replay( aEntry.annotations, this.annotationListener );
+
+    SwingComponentUtils.invokeOnEDT( new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        onToolStarted();
+
+        onToolEnded( BaseToolDialog.this.lastResult );
+      }
+    } );
+  }
 }
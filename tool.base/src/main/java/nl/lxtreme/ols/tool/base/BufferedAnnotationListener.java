@@ -0,0 +1,162 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.annotation.*;
+
+
+/**
+ * Provides an annotation listener that collects annotations and passes them in
+ * blocks to another annotation listener.
+ * <p>
+ * The order of all calls is retained: pending annotations are passed on before
+ * any annotations are cleared. Call {@link #flush()} once all annotations are
+ * reported, to pass on the last (partial) block.
+ * </p>
+ * <p>
+ * This class is <em>not</em> thread-safe, and is intended to be used by a
+ * single tool task.
+ * </p>
+ */
+public final class BufferedAnnotationListener implements AnnotationListener
+{
+  // CONSTANTS
+
+  public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+  // VARIABLES
+
+  private final AnnotationListener listener;
+  private final int blockSize;
+
+  private List<Annotation<?>> buffer;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new BufferedAnnotationListener instance with a default block
+   * size.
+   *
+   * @param aListener
+   *          the annotation listener to pass the annotations to, cannot be
+   *          <code>null</code>.
+   */
+  public BufferedAnnotationListener( final AnnotationListener aListener )
+  {
+    this( aListener, DEFAULT_BLOCK_SIZE );
+  }
+
+  /**
+   * Creates a new BufferedAnnotationListener instance.
+   *
+   * @param aListener
+   *          the annotation listener to pass the annotations to, cannot be
+   *          <code>null</code>;
+   * @param aBlockSize
+   *          the number of annotations to pass on at once, > 0.
+   */
+  public BufferedAnnotationListener( final AnnotationListener aListener, final int aBlockSize )
+  {
+    if ( aListener == null )
+    {
+      throw new IllegalArgumentException( "Listener cannot be null!" );
+    }
+    if ( aBlockSize <= 0 )
+    {
+      throw new IllegalArgumentException( "Block size should be positive!" );
+    }
+
+    this.listener = aListener;
+    this.blockSize = aBlockSize;
+    this.buffer = new ArrayList<Annotation<?>>( aBlockSize );
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clearAnnotations()
+  {
+    flush();
+
+    this.listener.clearAnnotations();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clearAnnotations( final int aChannelIdx )
+  {
+    flush();
+
+    this.listener.clearAnnotations( aChannelIdx );
+  }
+
+  /**
+   * Passes all pending annotations on to the annotation listener.
+   */
+  public void flush()
+  {
+    if ( this.buffer.isEmpty() )
+    {
+      return;
+    }
+
+    final List<Annotation<?>> block = this.buffer;
+    this.buffer = new ArrayList<Annotation<?>>( this.blockSize );
+
+    this.listener.onAnnotations( Collections.unmodifiableList( block ) );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onAnnotation( final Annotation<?> aAnnotation )
+  {
+    this.buffer.add( aAnnotation );
+
+    if ( this.buffer.size() >= this.blockSize )
+    {
+      flush();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onAnnotations( final Collection<? extends Annotation<?>> aAnnotations )
+  {
+    this.buffer.addAll( aAnnotations );
+
+    if ( this.buffer.size() >= this.blockSize )
+    {
+      flush();
+    }
+  }
+}
@@ -0,0 +1,292 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.awt.*;
+import java.awt.event.*;
+import java.util.*;
+import java.util.regex.*;
+
+import javax.swing.*;
+import javax.swing.event.*;
+import javax.swing.table.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.util.swing.component.*;
+
+
+/**
+ * Provides a virtualised table view for the decoded results of a tool, as
+ * alternative to a (single) HTML page.
+ * <p>
+ * Only the visible rows of the table are formatted, so even huge results are
+ * shown directly. The results can be sorted by clicking on the column headers
+ * and filtered by entering a text in the filter field. Selecting a row moves
+ * the view of the acquired data to the start of the selected result.
+ * </p>
+ *
+ * @param <DATA>
+ *          the actual data entity of the shown data set.
+ */
+public class DataSetTable<DATA extends BaseData<DATA>> extends JPanel
+{
+  // INNER TYPES
+
+  /**
+   * Provides a comparator that compares cell values in their natural order,
+   * avoiding the (expensive) collation of their string representations.
+   */
+  static final class NaturalOrderComparator implements Comparator<Object>
+  {
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings( { "rawtypes", "unchecked" } )
+    public int compare( final Object aValue1, final Object aValue2 )
+    {
+      if ( ( aValue1 instanceof Comparable ) && aValue1.getClass().equals( aValue2.getClass() ) )
+      {
+        return ( ( Comparable )aValue1 ).compareTo( aValue2 );
+      }
+      return String.valueOf( aValue1 ).compareTo( String.valueOf( aValue2 ) );
+    }
+  }
+
+  /**
+   * Provides a table that highlights rows as indicated by its model.
+   */
+  final class ResultTable extends JLxTable
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link ResultTable} instance.
+     */
+    public ResultTable()
+    {
+      super( DataSetTable.this.model );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Component prepareRenderer( final TableCellRenderer aRenderer, final int aRow, final int aColumn )
+    {
+      final Component comp = super.prepareRenderer( aRenderer, aRow, aColumn );
+      if ( !isCellSelected( aRow, aColumn ) )
+      {
+        final Color color = DataSetTable.this.model.getRowBackground( convertRowIndexToModel( aRow ) );
+        if ( color != null )
+        {
+          comp.setBackground( color );
+        }
+      }
+      return comp;
+    }
+  }
+
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  // VARIABLES
+
+  private final DataSetTableModel<DATA> model;
+  private final ToolContext context;
+  private final TableRowSorter<DataSetTableModel<DATA>> sorter;
+  private final JLxTable table;
+  private final JLabel summary;
+  private final JTextField filter;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link DataSetTable} instance.
+   *
+   * @param aModel
+   *          the table model to show, cannot be <code>null</code>;
+   * @param aContext
+   *          the tool context, used to move the view to a selected result,
+   *          cannot be <code>null</code>.
+   */
+  public DataSetTable( final DataSetTableModel<DATA> aModel, final ToolContext aContext )
+  {
+    super( new BorderLayout( 4, 4 ) );
+
+    this.model = aModel;
+    this.context = aContext;
+
+    this.sorter = new TableRowSorter<DataSetTableModel<DATA>>( this.model );
+    // Resorting a large result on each update is expensive; only sort when
+    // explicitly asked for...
+    this.sorter.setSortsOnUpdates( false );
+    final NaturalOrderComparator comparator = new NaturalOrderComparator();
+    for ( int i = 0; i < this.model.getColumnCount(); i++ )
+    {
+      this.sorter.setComparator( i, comparator );
+    }
+
+    this.table = new ResultTable();
+    this.table.setRowSorter( this.sorter );
+    this.table.setFillsViewportHeight( true );
+    this.table.setShowVerticalLines( false );
+    this.table.setSelectionMode( ListSelectionModel.SINGLE_SELECTION );
+    this.table.getSelectionModel().addListSelectionListener( new ListSelectionListener()
+    {
+      @Override
+      public void valueChanged( final ListSelectionEvent aEvent )
+      {
+        if ( !aEvent.getValueIsAdjusting() )
+        {
+          gotoSelectedResult();
+        }
+      }
+    } );
+
+    this.summary = new JLabel( " " );
+
+    this.filter = new JTextField( 15 );
+    this.filter.setToolTipText( "Enter a text to show only the matching results, press enter to apply." );
+    this.filter.addActionListener( new ActionListener()
+    {
+      @Override
+      public void actionPerformed( final ActionEvent aEvent )
+      {
+        applyFilter();
+      }
+    } );
+
+    final JPanel filterPane = new JPanel( new FlowLayout( FlowLayout.TRAILING, 4, 0 ) );
+    filterPane.add( new JLabel( "Filter:" ) );
+    filterPane.add( this.filter );
+
+    final JPanel header = new JPanel( new BorderLayout() );
+    header.add( this.summary, BorderLayout.CENTER );
+    header.add( filterPane, BorderLayout.EAST );
+
+    add( header, BorderLayout.NORTH );
+    add( new JScrollPane( this.table ), BorderLayout.CENTER );
+  }
+
+  // METHODS
+
+  /**
+   * Returns the table model of this table.
+   *
+   * @return the table model, never <code>null</code>.
+   */
+  public final DataSetTableModel<DATA> getModel()
+  {
+    return this.model;
+  }
+
+  /**
+   * Sets the data set to show.
+   *
+   * @param aDataSet
+   *          the data set to show, can be <code>null</code> to clear this
+   *          table.
+   */
+  public void setDataSet( final BaseDataSet<DATA> aDataSet )
+  {
+    this.filter.setText( "" );
+    this.sorter.setRowFilter( null );
+    this.sorter.setSortKeys( null );
+
+    this.model.setDataSet( aDataSet );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setEnabled( final boolean aEnabled )
+  {
+    super.setEnabled( aEnabled );
+
+    this.table.setEnabled( aEnabled );
+    this.filter.setEnabled( aEnabled );
+  }
+
+  /**
+   * Sets the summary text shown above the table, for example, the statistics
+   * of the shown results.
+   *
+   * @param aSummary
+   *          the summary to show, can be <code>null</code>.
+   */
+  public void setSummary( final String aSummary )
+  {
+    this.summary.setText( ( aSummary == null ) || aSummary.isEmpty() ? " " : aSummary );
+  }
+
+  /**
+   * Applies the current filter text to the shown results.
+   */
+  final void applyFilter()
+  {
+    final String text = this.filter.getText();
+    if ( ( text == null ) || text.trim().isEmpty() )
+    {
+      this.sorter.setRowFilter( null );
+    }
+    else
+    {
+      this.sorter.setRowFilter( RowFilter.<DataSetTableModel<DATA>, Integer> regexFilter( "(?i)"
+          + Pattern.quote( text.trim() ) ) );
+    }
+  }
+
+  /**
+   * Moves the view of the acquired data to the start of the selected result.
+   */
+  final void gotoSelectedResult()
+  {
+    final int row = this.table.getSelectedRow();
+    if ( ( row < 0 ) || ( this.model.getDataSet() == null ) )
+    {
+      return;
+    }
+
+    final DATA data = this.model.getData( this.table.convertRowIndexToModel( row ) );
+
+    final AcquisitionResult acquisitionResult = this.context.getData();
+    final long[] timestamps = acquisitionResult.getTimestamps();
+    final int sampleIdx = data.getStartSampleIndex();
+    if ( ( sampleIdx >= 0 ) && ( sampleIdx < timestamps.length ) )
+    {
+      this.context.gotoTimestamp( timestamps[sampleIdx] );
+    }
+  }
+}
@@ -0,0 +1,308 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+import javax.swing.table.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.util.*;
+
+
+/**
+ * Provides a lazy table model for the decoded results of a tool.
+ * <p>
+ * This model is directly backed by the data list of a {@link BaseDataSet},
+ * and does not copy or pre-format any of it: a cell value is only determined
+ * when the table asks for it, which is only done for the visible rows. This
+ * way, even results with millions of rows can be shown directly.
+ * </p>
+ * <p>
+ * The first two columns of this model always are the index and (start) time
+ * of a result, the remaining columns are defined by the concrete model. The
+ * cell values should be cheap to determine and preferably be "raw" (that is,
+ * numbers instead of formatted strings) to allow them to be sorted properly.
+ * </p>
+ *
+ * @param <DATA>
+ *          the actual data entity of the shown data set.
+ */
+public abstract class DataSetTableModel<DATA extends BaseData<DATA>> extends AbstractTableModel
+{
+  // INNER TYPES
+
+  /**
+   * Provides a (sortable) time value, which is only formatted when shown.
+   */
+  public static final class TimeValue implements Comparable<TimeValue>
+  {
+    // VARIABLES
+
+    private final double time;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link TimeValue} instance.
+     *
+     * @param aTime
+     *          the time, in seconds.
+     */
+    public TimeValue( final double aTime )
+    {
+      this.time = aTime;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int compareTo( final TimeValue aOther )
+    {
+      return Double.compare( this.time, aOther.time );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( final Object aObject )
+    {
+      if ( this == aObject )
+      {
+        return true;
+      }
+      if ( !( aObject instanceof TimeValue ) )
+      {
+        return false;
+      }
+      return Double.compare( this.time, ( ( TimeValue )aObject ).time ) == 0;
+    }
+
+    /**
+     * Returns the time.
+     *
+     * @return the time, in seconds.
+     */
+    public double getTime()
+    {
+      return this.time;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+      final long bits = Double.doubleToLongBits( this.time );
+      return ( int )( bits ^ ( bits >>> 32 ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+      return Unit.Time.format( this.time );
+    }
+  }
+
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  /** The column containing the index of a result. */
+  public static final int INDEX_COLUMN = 0;
+  /** The column containing the start time of a result, see {@link TimeValue}. */
+  public static final int TIME_COLUMN = 1;
+
+  // VARIABLES
+
+  private final String[] columnNames;
+
+  private volatile BaseDataSet<DATA> dataSet;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link DataSetTableModel} instance.
+   *
+   * @param aColumnNames
+   *          the names of the columns following the index and time columns.
+   */
+  protected DataSetTableModel( final String... aColumnNames )
+  {
+    this.columnNames = new String[aColumnNames.length + 2];
+    this.columnNames[INDEX_COLUMN] = "Index";
+    this.columnNames[TIME_COLUMN] = "Time";
+    System.arraycopy( aColumnNames, 0, this.columnNames, 2, aColumnNames.length );
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Class<?> getColumnClass( final int aColumnIndex )
+  {
+    if ( aColumnIndex == INDEX_COLUMN )
+    {
+      return Integer.class;
+    }
+    else if ( aColumnIndex == TIME_COLUMN )
+    {
+      return TimeValue.class;
+    }
+    return Object.class;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getColumnCount()
+  {
+    return this.columnNames.length;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getColumnName( final int aColumnIndex )
+  {
+    return this.columnNames[aColumnIndex];
+  }
+
+  /**
+   * Returns the data entity of the given row.
+   *
+   * @param aRowIndex
+   *          the <em>model</em> index of the row to return the data entity
+   *          for.
+   * @return a data entity, never <code>null</code>.
+   */
+  public final DATA getData( final int aRowIndex )
+  {
+    return getDataList().get( aRowIndex );
+  }
+
+  /**
+   * Returns the shown data set.
+   *
+   * @return the data set, can be <code>null</code> if no data set is shown.
+   */
+  public final BaseDataSet<DATA> getDataSet()
+  {
+    return this.dataSet;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final int getRowCount()
+  {
+    return getDataList().size();
+  }
+
+  /**
+   * Returns the background color of the given row, allowing, for example,
+   * events and errors to be highlighted.
+   * <p>
+   * By default, <code>null</code> is returned.
+   * </p>
+   *
+   * @param aRowIndex
+   *          the <em>model</em> index of the row to return the color for.
+   * @return a background color, or <code>null</code> to use the default
+   *         background.
+   */
+  public Color getRowBackground( final int aRowIndex )
+  {
+    return null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final Object getValueAt( final int aRowIndex, final int aColumnIndex )
+  {
+    final DATA data = getData( aRowIndex );
+    if ( aColumnIndex == INDEX_COLUMN )
+    {
+      return Integer.valueOf( aRowIndex );
+    }
+    else if ( aColumnIndex == TIME_COLUMN )
+    {
+      return new TimeValue( this.dataSet.getTime( data.getStartSampleIndex() ) );
+    }
+    return getValueAt( data, aColumnIndex - 2 );
+  }
+
+  /**
+   * Sets the data set to show.
+   *
+   * @param aDataSet
+   *          the data set to show, can be <code>null</code> to clear this
+   *          model.
+   */
+  public final void setDataSet( final BaseDataSet<DATA> aDataSet )
+  {
+    this.dataSet = aDataSet;
+    fireTableDataChanged();
+  }
+
+  /**
+   * Returns the value of a tool-specific column for the given data entity.
+   *
+   * @param aData
+   *          the data entity to return the value for, never <code>null</code>;
+   * @param aColumnIndex
+   *          the index of the tool-specific column, that is, 0 denotes the
+   *          first column after the time column.
+   * @return the cell value, can be <code>null</code>.
+   */
+  protected abstract Object getValueAt( DATA aData, int aColumnIndex );
+
+  /**
+   * @return the data list of the current data set, never <code>null</code>.
+   */
+  private List<DATA> getDataList()
+  {
+    final BaseDataSet<DATA> ds = this.dataSet;
+    if ( ds == null )
+    {
+      return Collections.emptyList();
+    }
+    return ds.getData();
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.annotation.*;
+
+
+/**
+ * Provides an annotation listener that passes all calls on to another
+ * annotation listener, while recording them so they can be replayed later on.
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+final class RecordingAnnotationListener implements AnnotationListener
+{
+  // CONSTANTS
+
+  /** Marks a call to {@link #clearAnnotations()} in the recording. */
+  private static final Object CLEAR_ALL = new Object();
+
+  // VARIABLES
+
+  private final AnnotationListener listener;
+  /** Contains annotations, channel indexes (as Integer) and CLEAR_ALL. */
+  private final List<Object> recording;
+
+  private int annotationCount;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new RecordingAnnotationListener instance.
+   * 
+   * @param aListener
+   *          the annotation listener to pass all calls on to, cannot be
+   *          <code>null</code>.
+   */
+  public RecordingAnnotationListener( final AnnotationListener aListener )
+  {
+    if ( aListener == null )
+    {
+      throw new IllegalArgumentException( "Listener cannot be null!" );
+    }
+
+    this.listener = aListener;
+    this.recording = new ArrayList<Object>();
+  }
+
+  // METHODS
+
+  /**
+   * Replays the given recording to the given annotation listener.
+   * 
+   * @param aRecording
+   *          the recording to replay, as obtained by {@link #getRecording()};
+   * @param aListener
+   *          the annotation listener to replay the recording to, cannot be
+   *          <code>null</code>.
+   */
+  public static void replay( final List<Object> aRecording, final AnnotationListener aListener )
+  {
+    final List<Annotation<?>> block = new ArrayList<Annotation<?>>();
+    for ( Object item : aRecording )
+    {
+      if ( item instanceof Annotation<?> )
+      {
+        block.add( ( Annotation<?> )item );
+        continue;
+      }
+
+      if ( !block.isEmpty() )
+      {
+        aListener.onAnnotations( new ArrayList<Annotation<?>>( block ) );
+        block.clear();
+      }
+
+      if ( item == CLEAR_ALL )
+      {
+        aListener.clearAnnotations();
+      }
+      else
+      {
+        aListener.clearAnnotations( ( ( Integer )item ).intValue() );
+      }
+    }
+
+    if ( !block.isEmpty() )
+    {
+      aListener.onAnnotations( block );
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clearAnnotations()
+  {
+    synchronized ( this.recording )
+    {
+      this.recording.add( CLEAR_ALL );
+    }
+
+    this.listener.clearAnnotations();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clearAnnotations( final int aChannelIdx )
+  {
+    synchronized ( this.recording )
+    {
+      this.recording.add( Integer.valueOf( aChannelIdx ) );
+    }
+
+    this.listener.clearAnnotations( aChannelIdx );
+  }
+
+  /**
+   * Returns the number of annotations recorded so far.
+   * 
+   * @return an annotation count, >= 0.
+   */
+  public int getAnnotationCount()
+  {
+    synchronized ( this.recording )
+    {
+      return this.annotationCount;
+    }
+  }
+
+  /**
+   * Returns a copy of all calls recorded so far.
+   * 
+   * @return a recording, never <code>null</code>.
+   * @see #replay(List, AnnotationListener)
+   */
+  public List<Object> getRecording()
+  {
+    synchronized ( this.recording )
+    {
+      return new ArrayList<Object>( this.recording );
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onAnnotation( final Annotation<?> aAnnotation )
+  {
+    synchronized ( this.recording )
+    {
+      this.recording.add( aAnnotation );
+      this.annotationCount++;
+    }
+
+    this.listener.onAnnotation( aAnnotation );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onAnnotations( final Collection<? extends Annotation<?>> aAnnotations )
+  {
+    synchronized ( this.recording )
+    {
+      this.recording.addAll( aAnnotations );
+      this.annotationCount += aAnnotations.size();
+    }
+
+    this.listener.onAnnotations( aAnnotations );
+  }
+}
+
+/* EOF */
@@ -0,0 +1,563 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.tools.*;
+
+
+/**
+ * Provides a cache for the results of tool runs, allowing repeated analyses of
+ * the same acquisition result with the same tool configuration to return
+ * instantly.
+ * <p>
+ * Results are keyed by a fingerprint of the acquisition result, the decoding
+ * range and the configuration of the tool. The fingerprint is a hash over all
+ * sample values and timestamps of the acquisition result. It is computed only
+ * once per acquisition result, so repeated lookups remain cheap for large
+ * captures.
+ * </p>
+ * <p>
+ * The least recently used results are evicted once the (estimated) memory
+ * used by all results exceeds the memory budget. The default budget can be
+ * set, in megabytes, through the system property
+ * {@value #PROPERTY_MEMORY_BUDGET}.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public final class ToolResultCache
+{
+  // INNER TYPES
+
+  /**
+   * Denotes a key for a cached tool result.
+   */
+  static final class Key
+  {
+    // VARIABLES
+
+    private final long fingerprint;
+    private final String configuration;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Key instance.
+     */
+    Key( final long aFingerprint, final String aConfiguration )
+    {
+      this.fingerprint = aFingerprint;
+      this.configuration = aConfiguration;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( final Object aObject )
+    {
+      if ( this == aObject )
+      {
+        return true;
+      }
+      if ( !( aObject instanceof Key ) )
+      {
+        return false;
+      }
+
+      final Key other = ( Key )aObject;
+      return ( this.fingerprint == other.fingerprint ) && this.configuration.equals( other.configuration );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+      final int prime = 31;
+      int result = ( int )( this.fingerprint ^ ( this.fingerprint >>> 32 ) );
+      result = ( prime * result ) + this.configuration.hashCode();
+      return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+      return String.format( "%016x:%s", Long.valueOf( this.fingerprint ), this.configuration );
+    }
+  }
+
+  /**
+   * Denotes a cached tool result along with the annotations it produced.
+   */
+  static final class Entry
+  {
+    // VARIABLES
+
+    final Object result;
+    final List<Object> annotations;
+    final long size;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Entry instance.
+     */
+    Entry( final Object aResult, final List<Object> aAnnotations, final long aSize )
+    {
+      this.result = aResult;
+      this.annotations = aAnnotations;
+      this.size = aSize;
+    }
+  }
+
+  /**
+   * Provides an in-memory {@link UserSettings} implementation, used to obtain
+   * the configuration of a tool.
+   */
+  static final class ConfigurationSettings implements UserSettings
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // VARIABLES
+
+    private final SortedMap<String, Object> settings = new TreeMap<String, Object>();
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String get( final String aName, final String aDefaultValue )
+    {
+      final Object value = this.settings.get( aName );
+      return ( value == null ) ? aDefaultValue : String.valueOf( value );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean getBoolean( final String aName, final boolean aDefaultValue )
+    {
+      final Object value = this.settings.get( aName );
+      return ( value == null ) ? aDefaultValue : Boolean.parseBoolean( String.valueOf( value ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getInt( final String aName, final int aDefaultValue )
+    {
+      final Object value = this.settings.get( aName );
+      return ( value == null ) ? aDefaultValue : Integer.parseInt( String.valueOf( value ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLong( final String aName, final long aDefaultValue )
+    {
+      final Object value = this.settings.get( aName );
+      return ( value == null ) ? aDefaultValue : Long.parseLong( String.valueOf( value ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName()
+    {
+      return "toolConfiguration";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<Map.Entry<String, Object>> iterator()
+    {
+      return Collections.unmodifiableMap( this.settings ).entrySet().iterator();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put( final String aName, final String aValue )
+    {
+      this.settings.put( aName, aValue );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putAll( final Map<?, ?> aSettings )
+    {
+      for ( Map.Entry<?, ?> entry : aSettings.entrySet() )
+      {
+        this.settings.put( String.valueOf( entry.getKey() ), entry.getValue() );
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putBoolean( final String aName, final boolean aValue )
+    {
+      this.settings.put( aName, Boolean.valueOf( aValue ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putInt( final String aName, final int aValue )
+    {
+      this.settings.put( aName, Integer.valueOf( aValue ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putLong( final String aName, final long aValue )
+    {
+      this.settings.put( aName, Long.valueOf( aValue ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+      return this.settings.toString();
+    }
+  }
+
+  // CONSTANTS
+
+  /** The system property defining the memory budget, in megabytes. */
+  public static final String PROPERTY_MEMORY_BUDGET = "nl.lxtreme.ols.tool.cache.budget";
+
+  private static final int DEFAULT_MEMORY_BUDGET = 64;
+
+  /** The estimated size, in bytes, of a single decoded data entity. */
+  private static final int DATA_SIZE = 32;
+  /** The estimated size, in bytes, of a single annotation. */
+  private static final int ANNOTATION_SIZE = 64;
+  /** The estimated size, in bytes, of the bookkeeping of a single result. */
+  private static final int ENTRY_SIZE = 1024;
+
+  private static final ToolResultCache INSTANCE = new ToolResultCache( Integer.getInteger( PROPERTY_MEMORY_BUDGET,
+      DEFAULT_MEMORY_BUDGET ).intValue() * 1024L * 1024L );
+
+  // VARIABLES
+
+  private final LinkedHashMap<Key, Entry> entries;
+  /** Caches the fingerprints of data, keyed on the identity of its values. */
+  private final Map<int[], Long> fingerprints;
+
+  private long memoryBudget;
+  private long memoryUsage;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ToolResultCache instance.
+   * 
+   * @param aMemoryBudget
+   *          the maximum (estimated) number of bytes used by all cached
+   *          results, >= 0.
+   */
+  public ToolResultCache( final long aMemoryBudget )
+  {
+    if ( aMemoryBudget < 0 )
+    {
+      throw new IllegalArgumentException( "Memory budget cannot be negative!" );
+    }
+
+    this.entries = new LinkedHashMap<Key, Entry>( 16, 0.75f, true /* accessOrder */);
+    this.fingerprints = new WeakHashMap<int[], Long>();
+
+    this.memoryBudget = aMemoryBudget;
+    this.memoryUsage = 0L;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the tool result cache shared by all tools.
+   * 
+   * @return a tool result cache, never <code>null</code>.
+   */
+  public static ToolResultCache getInstance()
+  {
+    return INSTANCE;
+  }
+
+  /**
+   * Estimates the memory used by the given tool result and its annotations.
+   */
+  private static long estimateSize( final Object aResult, final int aAnnotationCount )
+  {
+    long size = ENTRY_SIZE + ( ( long )aAnnotationCount * ANNOTATION_SIZE );
+    if ( aResult instanceof BaseDataSet<?> )
+    {
+      size += ( long )( ( BaseDataSet<?> )aResult ).size() * DATA_SIZE;
+    }
+    return size;
+  }
+
+  /**
+   * Calculates a hash over all given values and timestamps.
+   */
+  private static long hash( final int[] aValues, final long[] aTimestamps )
+  {
+    long hash = 0xcbf29ce484222325L;
+    hash = mix( hash, aValues.length );
+    for ( int i = 0; i < aValues.length; i++ )
+    {
+      hash = mix( hash, aValues[i] );
+    }
+
+    hash = mix( hash, aTimestamps.length );
+    for ( int i = 0; i < aTimestamps.length; i++ )
+    {
+      hash = mix( hash, aTimestamps[i] );
+    }
+    return hash;
+  }
+
+  /**
+   * Mixes the given value into the given hash.
+   */
+  private static long mix( final long aHash, final long aValue )
+  {
+    return ( aHash ^ aValue ) * 0x100000001B3L;
+  }
+
+  /**
+   * Removes all cached results.
+   */
+  public synchronized void clear()
+  {
+    this.entries.clear();
+    this.memoryUsage = 0L;
+  }
+
+  /**
+   * Returns the memory budget of this cache.
+   * 
+   * @return a memory budget, in bytes, >= 0.
+   */
+  public synchronized long getMemoryBudget()
+  {
+    return this.memoryBudget;
+  }
+
+  /**
+   * Returns the (estimated) amount of memory used by all cached results.
+   * 
+   * @return a memory usage, in bytes, >= 0.
+   */
+  public synchronized long getMemoryUsage()
+  {
+    return this.memoryUsage;
+  }
+
+  /**
+   * Sets the memory budget of this cache, evicting results if needed.
+   * 
+   * @param aMemoryBudget
+   *          the memory budget to set, in bytes, >= 0.
+   */
+  public synchronized void setMemoryBudget( final long aMemoryBudget )
+  {
+    if ( aMemoryBudget < 0 )
+    {
+      throw new IllegalArgumentException( "Memory budget cannot be negative!" );
+    }
+
+    this.memoryBudget = aMemoryBudget;
+    evict();
+  }
+
+  /**
+   * Returns the number of cached results.
+   * 
+   * @return a result count, >= 0.
+   */
+  public synchronized int size()
+  {
+    return this.entries.size();
+  }
+
+  /**
+   * Creates a key for a run of the given tool with the given context and
+   * configuration.
+   * 
+   * @param aToolId
+   *          the identifier of the tool, cannot be <code>null</code>;
+   * @param aContext
+   *          the tool context, cannot be <code>null</code>;
+   * @param aConfigurable
+   *          the configurable providing the tool configuration, cannot be
+   *          <code>null</code>.
+   * @return a new key, never <code>null</code>.
+   */
+  Key createKey( final String aToolId, final ToolContext aContext, final Configurable aConfigurable )
+  {
+    final ConfigurationSettings settings = new ConfigurationSettings();
+    aConfigurable.writePreferences( settings );
+
+    final StringBuilder sb = new StringBuilder( aToolId );
+    sb.append( '[' ).append( aContext.getStartSampleIndex() );
+    sb.append( ',' ).append( aContext.getEndSampleIndex() );
+    sb.append( ',' ).append( aContext.getChannels() );
+    sb.append( ',' ).append( Integer.toHexString( aContext.getEnabledChannels() ) );
+    sb.append( ']' ).append( settings );
+
+    return new Key( getFingerprint( aContext.getData() ), sb.toString() );
+  }
+
+  /**
+   * Returns the cached result for the given key.
+   * 
+   * @param aKey
+   *          the key to return the cached result for, cannot be
+   *          <code>null</code>.
+   * @return the cached result, or <code>null</code> if no such result exists.
+   */
+  synchronized Entry get( final Key aKey )
+  {
+    return this.entries.get( aKey );
+  }
+
+  /**
+   * Returns the fingerprint of the given data.
+   * 
+   * @param aData
+   *          the data to return the fingerprint for, cannot be
+   *          <code>null</code>.
+   * @return a fingerprint.
+   */
+  long getFingerprint( final AcquisitionResult aData )
+  {
+    final int[] values = aData.getValues();
+    final long[] timestamps = aData.getTimestamps();
+
+    Long cached;
+    synchronized ( this.fingerprints )
+    {
+      cached = this.fingerprints.get( values );
+    }
+    if ( cached == null )
+    {
+      // Hash outside the lock, as this takes a while for large captures...
+      cached = Long.valueOf( hash( values, timestamps ) );
+      synchronized ( this.fingerprints )
+      {
+        this.fingerprints.put( values, cached );
+      }
+    }
+
+    long hash = cached.longValue();
+    // These properties are cheap, and might change without the values...
+    hash = mix( hash, aData.getSampleRate() );
+    hash = mix( hash, aData.getAbsoluteLength() );
+    hash = mix( hash, aData.hasTriggerData() ? aData.getTriggerPosition() : -1L );
+    hash = mix( hash, aData.getChannels() );
+    hash = mix( hash, aData.getEnabledChannels() );
+    return hash;
+  }
+
+  /**
+   * Caches the given result.
+   * 
+   * @param aKey
+   *          the key to cache the result under, cannot be <code>null</code>;
+   * @param aResult
+   *          the result to cache, cannot be <code>null</code>;
+   * @param aAnnotations
+   *          the recorded annotations of the result, cannot be
+   *          <code>null</code>;
+   * @param aAnnotationCount
+   *          the number of annotations in the recording.
+   * @return <code>true</code> if the result is cached, <code>false</code> if
+   *         it is too large to be cached.
+   */
+  synchronized boolean put( final Key aKey, final Object aResult, final List<Object> aAnnotations,
+      final int aAnnotationCount )
+  {
+    final long size = estimateSize( aResult, aAnnotationCount );
+    if ( size > this.memoryBudget )
+    {
+      return false;
+    }
+
+    final Entry old = this.entries.put( aKey, new Entry( aResult, aAnnotations, size ) );
+    if ( old != null )
+    {
+      this.memoryUsage -= old.size;
+    }
+    this.memoryUsage += size;
+
+    evict();
+    return true;
+  }
+
+  /**
+   * Evicts the least recently used results until the memory budget is met.
+   */
+  private void evict()
+  {
+    final Iterator<Entry> iter = this.entries.values().iterator();
+    while ( ( this.memoryUsage > this.memoryBudget ) && iter.hasNext() )
+    {
+      this.memoryUsage -= iter.next().size;
+      iter.remove();
+    }
+  }
+}
+
+/* EOF */
@@ -24,6 +24,8 @@ package nl.lxtreme.ols.tool.base;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
 import javax.swing.*;
 
 import nl.lxtreme.ols.tool.base.ExportAware.*;
@@ -60,6 +62,8 @@ public class ToolUtils
 
     private static final long serialVersionUID = 1L;
 
+    private static final Logger LOG = Logger.getLogger( ExportAction.class.getName() );
+
     // VARIABLES
 
     private final ExportAware<?> toolDialog;
@@ -102,14 +106,42 @@ public class ToolUtils
           format = ExportFormat.HTML;
         }
 
-        try
-        {
-          this.toolDialog.exportToFile( selectedFile, format );
-        }
-        catch ( IOException exception )
+        // Exporting large results can take a while, so do this in the
+        // background; the action is disabled until the export is finished...
+        setEnabled( false );
+
+        final ExportFormat exportFormat = format;
+        final SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>()
         {
-          // TODO
-        }
+          @Override
+          protected Void doInBackground() throws Exception
+          {
+            ExportAction.this.toolDialog.exportToFile( selectedFile, exportFormat );
+            return null;
+          }
+
+          @Override
+          protected void done()
+          {
+            setEnabled( true );
+
+            try
+            {
+              get();
+            }
+            catch ( InterruptedException exception )
+            {
+              Thread.currentThread().interrupt();
+            }
+            catch ( ExecutionException exception )
+            {
+              final Throwable cause = exception.getCause();
+              LOG.log( Level.WARNING, "Export to " + selectedFile + " failed!", cause );
+              showErrorMessage( owner, "Export failed!\n" + cause.getMessage() );
+            }
+          }
+        };
+        worker.execute();
       }
     }
 
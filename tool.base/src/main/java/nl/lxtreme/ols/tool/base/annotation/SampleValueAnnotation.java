@@ -0,0 +1,71 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base.annotation;
+
+
+import nl.lxtreme.ols.api.data.annotation.*;
+
+
+/**
+ * Provides a sample data annotation for a decoded value, which keeps the value
+ * next to its textual representation.
+ */
+public class SampleValueAnnotation extends SampleDataAnnotation implements ValueAnnotation<String>
+{
+  // VARIABLES
+
+  private final int value;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link SampleValueAnnotation} instance.
+   * 
+   * @param aChannelIdx
+   *          the index of the channel the value was decoded on;
+   * @param aStartTimestamp
+   *          the timestamp at which the value starts;
+   * @param aEndTimestamp
+   *          the timestamp at which the value ends;
+   * @param aValue
+   *          the decoded value;
+   * @param aText
+   *          the textual representation of the value.
+   */
+  public SampleValueAnnotation( final int aChannelIdx, final long aStartTimestamp, final long aEndTimestamp,
+      final int aValue, final String aText )
+  {
+    super( aChannelIdx, aStartTimestamp, aEndTimestamp, aText );
+
+    this.value = aValue;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getValue()
+  {
+    return this.value;
+  }
+}
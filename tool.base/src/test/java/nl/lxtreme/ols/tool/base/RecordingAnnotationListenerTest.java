@@ -0,0 +1,163 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.tool.base.annotation.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link RecordingAnnotationListener}.
+ */
+public class RecordingAnnotationListenerTest
+{
+  // INNER TYPES
+
+  /**
+   * Provides an annotation listener that logs all calls made to it.
+   */
+  static final class TestAnnotationListener implements AnnotationListener
+  {
+    // VARIABLES
+
+    final List<String> calls = new ArrayList<String>();
+
+    // METHODS
+
+    @Override
+    public void clearAnnotations()
+    {
+      this.calls.add( "clear" );
+    }
+
+    @Override
+    public void clearAnnotations( final int aChannelIdx )
+    {
+      this.calls.add( "clear " + aChannelIdx );
+    }
+
+    @Override
+    public void onAnnotation( final Annotation<?> aAnnotation )
+    {
+      this.calls.add( "annotate " + aAnnotation.getAnnotation() );
+    }
+
+    @Override
+    public void onAnnotations( final Collection<? extends Annotation<?>> aAnnotations )
+    {
+      final StringBuilder sb = new StringBuilder( "annotate" );
+      for ( Annotation<?> annotation : aAnnotations )
+      {
+        sb.append( ' ' ).append( annotation.getAnnotation() );
+      }
+      this.calls.add( sb.toString() );
+    }
+  }
+
+  // CONSTANTS
+
+  /** The calls made by {@link #annotate(AnnotationListener)}. */
+  static final List<String> EXPECTED_CALLS = Arrays.asList( "clear", "clear 1", "annotate a", "annotate b c",
+      "clear 2", "annotate d" );
+  /** The calls made when replaying {@link #annotate(AnnotationListener)}. */
+  static final List<String> EXPECTED_REPLAY = Arrays.asList( "clear", "clear 1", "annotate a b c", "clear 2",
+      "annotate d" );
+
+  // METHODS
+
+  /**
+   * Makes a fixed sequence of calls to the given annotation listener.
+   */
+  static void annotate( final AnnotationListener aListener )
+  {
+    aListener.clearAnnotations();
+    aListener.clearAnnotations( 1 );
+    aListener.onAnnotation( new ChannelLabelAnnotation( 1, "a" ) );
+    aListener.onAnnotations( Arrays.<Annotation<?>> asList( new ChannelLabelAnnotation( 1, "b" ),
+        new ChannelLabelAnnotation( 1, "c" ) ) );
+    aListener.clearAnnotations( 2 );
+    aListener.onAnnotation( new ChannelLabelAnnotation( 2, "d" ) );
+  }
+
+  /**
+   * Tests that all calls are passed on to the wrapped listener.
+   */
+  @Test
+  public void testPassOnCallsOk()
+  {
+    final TestAnnotationListener listener = new TestAnnotationListener();
+    final RecordingAnnotationListener recorder = new RecordingAnnotationListener( listener );
+
+    annotate( recorder );
+
+    assertEquals( EXPECTED_CALLS, listener.calls );
+    assertEquals( 4, recorder.getAnnotationCount() );
+  }
+
+  /**
+   * Tests that replaying a recording yields the same annotations and clears,
+   * in the same order.
+   */
+  @Test
+  public void testReplayOk()
+  {
+    final RecordingAnnotationListener recorder = new RecordingAnnotationListener( new TestAnnotationListener() );
+    annotate( recorder );
+
+    final List<Object> recording = recorder.getRecording();
+
+    final TestAnnotationListener replayed = new TestAnnotationListener();
+    RecordingAnnotationListener.replay( recording, replayed );
+    assertEquals( EXPECTED_REPLAY, replayed.calls );
+
+    // A recording can be replayed more than once...
+    final TestAnnotationListener replayedAgain = new TestAnnotationListener();
+    RecordingAnnotationListener.replay( recording, replayedAgain );
+    assertEquals( EXPECTED_REPLAY, replayedAgain.calls );
+  }
+
+  /**
+   * Tests that the recording is not affected by calls made after it is
+   * obtained.
+   */
+  @Test
+  public void testRecordingIsCopyOk()
+  {
+    final RecordingAnnotationListener recorder = new RecordingAnnotationListener( new TestAnnotationListener() );
+    annotate( recorder );
+
+    final List<Object> recording = recorder.getRecording();
+    recorder.clearAnnotations( 3 );
+
+    final TestAnnotationListener replayed = new TestAnnotationListener();
+    RecordingAnnotationListener.replay( recording, replayed );
+    assertEquals( EXPECTED_REPLAY, replayed.calls );
+  }
+}
+
+/* EOF */
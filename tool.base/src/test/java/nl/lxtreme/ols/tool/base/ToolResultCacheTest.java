@@ -0,0 +1,247 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.test.data.*;
+import nl.lxtreme.ols.tool.base.RecordingAnnotationListenerTest.TestAnnotationListener;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link ToolResultCache}.
+ */
+public class ToolResultCacheTest
+{
+  // INNER TYPES
+
+  /**
+   * Provides a configurable with a single setting.
+   */
+  static final class TestConfigurable implements Configurable
+  {
+    // VARIABLES
+
+    private final int setting;
+
+    // CONSTRUCTORS
+
+    TestConfigurable( final int aSetting )
+    {
+      this.setting = aSetting;
+    }
+
+    // METHODS
+
+    @Override
+    public void readPreferences( final UserSettings aSettings )
+    {
+      // NO-op
+    }
+
+    @Override
+    public void writePreferences( final UserSettings aSettings )
+    {
+      aSettings.putInt( "setting", this.setting );
+    }
+  }
+
+  // CONSTANTS
+
+  private static final int SAMPLE_COUNT = 100000;
+
+  /** The (estimated) size of a cached result without any data. */
+  private static final long ENTRY_SIZE = 1024L;
+
+  // VARIABLES
+
+  private ToolResultCache cache;
+  private AcquisitionResult data;
+
+  // METHODS
+
+  /**
+   * Creates a cache and a capture to use.
+   */
+  @Before
+  public void setUp()
+  {
+    this.cache = new ToolResultCache( 3 * ENTRY_SIZE );
+    this.data = createData( -1 );
+  }
+
+  /**
+   * Tests that results that do not fit in the memory budget are not cached.
+   */
+  @Test
+  public void testCacheTooLargeResultFails()
+  {
+    this.cache.setMemoryBudget( ENTRY_SIZE - 1 );
+
+    assertFalse( this.cache.put( createKey( "tool", 1 ), new Object(), new ArrayList<Object>(), 0 ) );
+    assertEquals( 0, this.cache.size() );
+    assertEquals( 0L, this.cache.getMemoryUsage() );
+  }
+
+  /**
+   * Tests that the least recently used results are evicted once the memory
+   * budget is exceeded.
+   */
+  @Test
+  public void testEvictLeastRecentlyUsedOk()
+  {
+    final ToolResultCache.Key key1 = createKey( "tool", 1 );
+    final ToolResultCache.Key key2 = createKey( "tool", 2 );
+    final ToolResultCache.Key key3 = createKey( "tool", 3 );
+    final ToolResultCache.Key key4 = createKey( "tool", 4 );
+
+    assertTrue( this.cache.put( key1, "result1", new ArrayList<Object>(), 0 ) );
+    assertTrue( this.cache.put( key2, "result2", new ArrayList<Object>(), 0 ) );
+    assertTrue( this.cache.put( key3, "result3", new ArrayList<Object>(), 0 ) );
+    assertEquals( 3, this.cache.size() );
+    assertEquals( 3 * ENTRY_SIZE, this.cache.getMemoryUsage() );
+
+    // Use the first result, making the second the least recently used one...
+    assertEquals( "result1", this.cache.get( key1 ).result );
+
+    assertTrue( this.cache.put( key4, "result4", new ArrayList<Object>(), 0 ) );
+    assertEquals( 3, this.cache.size() );
+    assertEquals( 3 * ENTRY_SIZE, this.cache.getMemoryUsage() );
+
+    assertNull( this.cache.get( key2 ) );
+    assertNotNull( this.cache.get( key1 ) );
+    assertNotNull( this.cache.get( key3 ) );
+    assertNotNull( this.cache.get( key4 ) );
+
+    // Lowering the budget evicts the least recently used result as well...
+    this.cache.setMemoryBudget( 2 * ENTRY_SIZE );
+
+    assertEquals( 2, this.cache.size() );
+    assertNull( this.cache.get( key1 ) );
+    assertNotNull( this.cache.get( key3 ) );
+    assertNotNull( this.cache.get( key4 ) );
+  }
+
+  /**
+   * Tests that the fingerprint of data covers all samples.
+   */
+  @Test
+  public void testFingerprintCoversAllSamplesOk()
+  {
+    final long fingerprint = this.cache.getFingerprint( this.data );
+    assertEquals( fingerprint, this.cache.getFingerprint( this.data ) );
+    assertEquals( fingerprint, this.cache.getFingerprint( createData( -1 ) ) );
+
+    // Differ in a single sample somewhere in the middle of the capture...
+    assertFalse( fingerprint == this.cache.getFingerprint( createData( 50123 ) ) );
+    assertFalse( fingerprint == this.cache.getFingerprint( createData( 1 ) ) );
+    assertFalse( fingerprint == this.cache.getFingerprint( createData( SAMPLE_COUNT - 2 ) ) );
+  }
+
+  /**
+   * Tests that keys are equal only for the same tool, data, decoding range and
+   * configuration.
+   */
+  @Test
+  public void testKeyEqualityOk()
+  {
+    final ToolResultCache.Key key = createKey( "tool", 1 );
+
+    assertEquals( key, createKey( "tool", 1 ) );
+    assertEquals( key.hashCode(), createKey( "tool", 1 ).hashCode() );
+
+    assertFalse( key.equals( createKey( "tool", 2 ) ) );
+    assertFalse( key.equals( createKey( "otherTool", 1 ) ) );
+    assertFalse( key.equals( this.cache.createKey( "tool", DataTestUtils.createToolContext( this.data, 1, 10 ),
+        new TestConfigurable( 1 ) ) ) );
+    assertFalse( key.equals( this.cache.createKey( "tool", createContext( createData( 50123 ) ),
+        new TestConfigurable( 1 ) ) ) );
+  }
+
+  /**
+   * Tests that a cached result replays the annotations that were recorded for
+   * it.
+   */
+  @Test
+  public void testReplayCachedAnnotationsOk()
+  {
+    final TestAnnotationListener listener = new TestAnnotationListener();
+    final RecordingAnnotationListener recorder = new RecordingAnnotationListener( listener );
+    RecordingAnnotationListenerTest.annotate( recorder );
+
+    final ToolResultCache.Key key = createKey( "tool", 1 );
+    assertTrue( this.cache.put( key, "result", recorder.getRecording(), recorder.getAnnotationCount() ) );
+
+    final ToolResultCache.Entry entry = this.cache.get( createKey( "tool", 1 ) );
+    assertNotNull( entry );
+    assertEquals( "result", entry.result );
+
+    final TestAnnotationListener replayed = new TestAnnotationListener();
+    RecordingAnnotationListener.replay( entry.annotations, replayed );
+
+    assertEquals( RecordingAnnotationListenerTest.EXPECTED_REPLAY, replayed.calls );
+  }
+
+  /**
+   * Creates a tool context for the whole given capture.
+   */
+  private ToolContext createContext( final AcquisitionResult aData )
+  {
+    return DataTestUtils.createToolContext( aData, 0, aData.getValues().length - 1 );
+  }
+
+  /**
+   * Creates a capture, optionally with a single different sample.
+   * 
+   * @param aDifferentIdx
+   *          the index of the sample that should differ, or -1 if all samples
+   *          should be the same.
+   */
+  private AcquisitionResult createData( final int aDifferentIdx )
+  {
+    final CapturedDataBuilder builder = new CapturedDataBuilder( SAMPLE_COUNT ).setSampleRate( 1000000 );
+    for ( int i = 0; i < SAMPLE_COUNT; i++ )
+    {
+      final int value = ( i == aDifferentIdx ) ? 0x100 : ( i & 0xFF );
+      builder.add( value, 2L * i );
+    }
+    return builder.build();
+  }
+
+  /**
+   * Creates a key for the given tool and setting, using the default capture.
+   */
+  private ToolResultCache.Key createKey( final String aToolId, final int aSetting )
+  {
+    return this.cache.createKey( aToolId, createContext( this.data ), new TestConfigurable( aSetting ) );
+  }
+}
+
+/* EOF */
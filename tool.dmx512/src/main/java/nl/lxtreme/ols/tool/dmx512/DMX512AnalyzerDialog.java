@@ -30,7 +30,6 @@ import java.io.*;
 import java.text.*;
 import java.util.*;
 import java.util.List;
-import java.util.logging.*;
 
 import javax.swing.*;
 
@@ -44,7 +43,7 @@ import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
-import nl.lxtreme.ols.util.ExportUtils.HtmlFileExporter;
+import nl.lxtreme.ols.util.ExportUtils.HtmlReportWriter;
 import nl.lxtreme.ols.util.swing.*;
 
 import org.osgi.framework.*;
@@ -55,16 +54,107 @@ import org.osgi.framework.*;
  */
 public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> implements ExportAware<DMX512DataSet>
 {
+  // INNER TYPES
+
+  /**
+   * Provides a lazy table model for the decoded DMX512 data.
+   */
+  final class DMX512DataTableModel extends DataSetTableModel<DMX512Data>
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link DMX512DataTableModel} instance.
+     */
+    public DMX512DataTableModel()
+    {
+      super( "Hex", "Bin", "Dec", "ASCII" );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Color getRowBackground( final int aRowIndex )
+    {
+      final String event = getData( aRowIndex ).getEventName();
+      if ( "FRAME".equals( event ) )
+      {
+        return FRAME_ERROR_ROW_COLOR;
+      }
+      else if ( "PARITY".equals( event ) )
+      {
+        return PARITY_ERROR_ROW_COLOR;
+      }
+      else if ( "START".equals( event ) )
+      {
+        return START_ERROR_ROW_COLOR;
+      }
+      return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object getValueAt( final DMX512Data aData, final int aColumnIndex )
+    {
+      final String event = aData.getEventName();
+      if ( "FRAME".equals( event ) )
+      {
+        return ( aColumnIndex == 0 ) ? "Frame error" : null;
+      }
+      else if ( "PARITY".equals( event ) )
+      {
+        return ( aColumnIndex == 0 ) ? "Parity error" : null;
+      }
+      else if ( "START".equals( event ) )
+      {
+        return ( aColumnIndex == 0 ) ? "Start error" : null;
+      }
+      else if ( event != null )
+      {
+        return ( aColumnIndex == 0 ) ? event : null;
+      }
+
+      final int value = aData.getData();
+      switch ( aColumnIndex )
+      {
+        case 0:
+          return "0x".concat( integerToHexString( value, 2 ) );
+        case 1:
+          return "0b".concat( integerToBinString( value, 8 ) );
+        case 2:
+          return Integer.valueOf( value );
+        default:
+          return toASCII( value );
+      }
+    }
+  }
+
   // CONSTANTS
 
   private static final long serialVersionUID = 1L;
 
-  private static final Logger LOG = Logger.getLogger( DMX512AnalyzerDialog.class.getName() );
+  private static final Color FRAME_ERROR_ROW_COLOR = new Color( 0xff6600 );
+  private static final Color PARITY_ERROR_ROW_COLOR = new Color( 0xff9900 );
+  private static final Color START_ERROR_ROW_COLOR = new Color( 0xffcc00 );
+
+  /** The number of rows after which the export progress is reported. */
+  private static final int PROGRESS_INTERVAL = 1024;
+  /** The column spans of an error row in the HTML report. */
+  private static final int[] ERROR_COL_SPANS = { 1, 1, 4 };
 
   // VARIABLES
 
   private JComboBox dataLine;
-  private JEditorPane outText;
+  private DataSetTable<DMX512Data> resultTable;
 
   private RestorableAction runAnalysisAction;
   private Action closeAction;
@@ -128,8 +218,8 @@ public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> im
   @Override
   public void reset()
   {
-    this.outText.setText( getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.resultTable.setDataSet( null );
+    this.resultTable.setSummary( null );
 
     this.runAnalysisAction.restore();
 
@@ -153,32 +243,10 @@ public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> im
   @Override
   protected void onToolEnded( final DMX512DataSet aAnalysisResult )
   {
-    try
-    {
-      final String htmlPage;
-      if ( aAnalysisResult != null )
-      {
-        htmlPage = toHtmlPage( null /* aFile */, aAnalysisResult );
-      }
-      else
-      {
-        htmlPage = getEmptyHtmlPage();
-      }
-
-      this.outText.setText( htmlPage );
-      this.outText.setEditable( false );
+    this.resultTable.setDataSet( aAnalysisResult );
+    this.resultTable.setSummary( ( aAnalysisResult == null ) ? null : getSummary( aAnalysisResult ) );
 
-      this.runAnalysisAction.restore();
-    }
-    catch ( final IOException exception )
-    {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        // Should not happen in this situation!
-        throw new RuntimeException( exception );
-      }
-    }
+    this.runAnalysisAction.restore();
   }
 
   /**
@@ -286,6 +354,43 @@ public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> im
     return aExporter;
   }
 
+  /**
+   * Creates the macro resolver for the statistics of the given data set.
+   *
+   * @param aDataSet
+   *          the data set to create the macro resolver for, cannot be
+   *          <code>null</code>.
+   * @return a macro resolver, never <code>null</code>.
+   */
+  private MacroResolver createMacroResolver( final DMX512DataSet aDataSet )
+  {
+    return new MacroResolver()
+    {
+      @Override
+      public Object resolve( final String aMacro, final Element aParent )
+      {
+        if ( "date-now".equals( aMacro ) )
+        {
+          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
+          return df.format( new Date() );
+        }
+        else if ( "decoded-bytes".equals( aMacro ) )
+        {
+          return Integer.valueOf( aDataSet.getDecodedSymbols() );
+        }
+        else if ( "slot-count".equals( aMacro ) )
+        {
+          return Integer.valueOf( aDataSet.getSlotCount() );
+        }
+        else if ( "detected-bus-errors".equals( aMacro ) )
+        {
+          return Integer.valueOf( aDataSet.getDetectedErrors() );
+        }
+        return null;
+      }
+    };
+  }
+
   /**
    * @return
    */
@@ -293,10 +398,9 @@ public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> im
   {
     final JPanel panTable = new JPanel( new GridLayout( 1, 1, 0, 0 ) );
 
-    this.outText = new JEditorPane( "text/html", getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.resultTable = new DataSetTable<DMX512Data>( new DMX512DataTableModel(), getContext() );
 
-    panTable.add( new JScrollPane( this.outText ) );
+    panTable.add( this.resultTable );
 
     return panTable;
   }
@@ -322,37 +426,17 @@ public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> im
   }
 
   /**
-   * generate a HTML page
+   * Returns a short summary of the statistics of the given analysis results.
    *
-   * @param empty
-   *          if this is true an empty output is generated
-   * @return String with HTML data
+   * @param aAnalysisResult
+   *          the analysis results to summarize, cannot be <code>null</code>.
+   * @return a summary, never <code>null</code>.
    */
-  private String getEmptyHtmlPage()
+  private String getSummary( final DMX512DataSet aAnalysisResult )
   {
-    final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-    return exporter.toString( new MacroResolver()
-    {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
-      {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        else if ( "decoded-bytes".equals( aMacro ) || "detected-bus-errors".equals( aMacro )
-            || "baudrate".equals( aMacro ) )
-        {
-          return "-";
-        }
-        else if ( "decoded-data".equals( aMacro ) )
-        {
-          return null;
-        }
-        return null;
-      }
-    } );
+    return String.format( "<html>Decoded symbols: <b>%d</b>, slots: <b>%d</b>, detected errors: <b>%d</b></html>",
+        Integer.valueOf( aAnalysisResult.getDecodedSymbols() ), Integer.valueOf( aAnalysisResult.getSlotCount() ),
+        Integer.valueOf( aAnalysisResult.getDetectedErrors() ) );
   }
 
   /**
@@ -391,18 +475,22 @@ public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> im
    *
    * @param aFile
    *          File object
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private void storeToCsvFile( final File aFile, final DMX512DataSet aDataSet )
+  private void storeToCsvFile( final File aFile, final DMX512DataSet aDataSet ) throws IOException
   {
+    final ToolProgressListener progressListener = getProgressListener();
+    final CsvExporter exporter = ExportUtils.createCsvExporter( aFile );
+
     try
     {
-      final CsvExporter exporter = ExportUtils.createCsvExporter( aFile );
-
       exporter.setHeaders( "index", "start-time", "end-time", "event?", "event-type", "RxD event", "TxD event",
           "RxD data", "TxD data" );
 
       final List<DMX512Data> decodedData = aDataSet.getData();
-      for ( int i = 0; i < decodedData.size(); i++ )
+      final int size = decodedData.size();
+      for ( int i = 0; i < size; i++ )
       {
         final DMX512Data ds = decodedData.get( i );
 
@@ -413,17 +501,17 @@ public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> im
         String dataValue = Integer.toString( ds.getData() );
 
         exporter.addRow( Integer.valueOf( i ), startTime, endTime, eventType, dataValue );
-      }
 
-      exporter.close();
+        if ( ( i % PROGRESS_INTERVAL ) == 0 )
+        {
+          progressListener.setProgress( NumberUtils.getPercentage( i, size ) );
+        }
+      }
     }
-    catch ( final IOException exception )
+    finally
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        LOG.log( Level.WARNING, "CSV export failed!", exception );
-      }
+      exporter.close();
+      progressListener.setProgress( 100 );
     }
   }
 
@@ -432,125 +520,98 @@ public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> im
    *
    * @param aFile
    *          file object
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private void storeToHtmlFile( final File aFile, final DMX512DataSet aDataSet )
+  private void storeToHtmlFile( final File aFile, final DMX512DataSet aDataSet ) throws IOException
   {
+    final HtmlExporter template = createHtmlTemplate( ExportUtils.createHtmlExporter() );
+    final HtmlReportWriter writer = ExportUtils.createHtmlReportWriter( aFile, template, "decoded-data",
+        createMacroResolver( aDataSet ) );
+
     try
     {
-      toHtmlPage( aFile, aDataSet );
+      writeDecodedData( writer, aDataSet, getProgressListener() );
     }
-    catch ( final IOException exception )
+    finally
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        LOG.log( Level.WARNING, "HTML export failed!", exception );
-      }
+      writer.close();
     }
   }
 
   /**
-   * generate a HTML page
+   * Writes the decoded data as table rows to the given report writer.
    *
-   * @param empty
-   *          if this is true an empty output is generated
-   * @return String with HTML data
+   * @param aWriter
+   *          the report writer to write the rows to, cannot be
+   *          <code>null</code>;
+   * @param aDataSet
+   *          the data set to write, cannot be <code>null</code>;
+   * @param aProgressListener
+   *          the progress listener to report the progress to, cannot be
+   *          <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private String toHtmlPage( final File aFile, final DMX512DataSet aDataSet ) throws IOException
+  private void writeDecodedData( final HtmlReportWriter aWriter, final DMX512DataSet aDataSet, final ToolProgressListener aProgressListener ) throws IOException
   {
     final int bitCount = 8;
     final int bitAdder = 0;
 
-    final MacroResolver macroResolver = new MacroResolver()
+    final List<DMX512Data> decodedData = aDataSet.getData();
+    final int size = decodedData.size();
+
+    for ( int i = 0; i < size; i++ )
     {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
+      final DMX512Data ds = decodedData.get( i );
+
+      String eventName = ds.getEventName();
+      String bgColor;
+      if ( "FRAME".equals( eventName ) )
       {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        else if ( "decoded-bytes".equals( aMacro ) )
-        {
-          return Integer.valueOf( aDataSet.getDecodedSymbols() );
-        }
-        else if ( "slot-count".equals( aMacro ) )
-        {
-          return Integer.valueOf( aDataSet.getSlotCount() );
-        }
-        else if ( "detected-bus-errors".equals( aMacro ) )
-        {
-          return Integer.valueOf( aDataSet.getDetectedErrors() );
-        }
-        else if ( "decoded-data".equals( aMacro ) )
-        {
-          final List<DMX512Data> decodedData = aDataSet.getData();
-          Element tr;
-
-          for ( int i = 0; i < decodedData.size(); i++ )
-          {
-            final DMX512Data ds = decodedData.get( i );
-
-            String eventName = ds.getEventName();
-            String bgColor;
-            if ( "FRAME".equals( eventName ) )
-            {
-              eventName = "Frame error";
-              bgColor = "#ff6600";
-            }
-            else if ( "PARITY".equals( eventName ) )
-            {
-              eventName = "Parity error";
-              bgColor = "#ff9900";
-            }
-            else if ( "START".equals( eventName ) )
-            {
-              eventName = "Start error";
-              bgColor = "#ffcc00";
-            }
-            else
-            {
-              // symbol
-              bgColor = ( i % 2 ) == 0 ? "#ffffff" : "#eeeeee";
-            }
-
-            tr = aParent.addChild( TR ).addAttribute( "style", "background-color: " + bgColor + ";" );
-            tr.addChild( TD ).addContent( String.valueOf( i ) );
-            tr.addChild( TD ).addContent( Unit.Time.format( aDataSet.getTime( ds.getStartSampleIndex() ) ) );
-            if ( eventName == null )
-            {
-              // normal symbol...
-              int data = ds.getData();
-
-              tr.addChild( TD ).addContent( "0x", integerToHexString( data, ( bitCount / 4 ) + bitAdder ) );
-              tr.addChild( TD ).addContent( "0b", integerToBinString( data, bitCount ) );
-              tr.addChild( TD ).addContent( String.valueOf( data ) );
-              tr.addChild( TD ).addContent( toASCII( data ) );
-            }
-            else
-            {
-              // error event...
-              tr.addChild( TD ).addAttribute( "colspan", "4" ).addContent( eventName );
-            }
-          }
-        }
-        return null;
+        eventName = "Frame error";
+        bgColor = "#ff6600";
+      }
+      else if ( "PARITY".equals( eventName ) )
+      {
+        eventName = "Parity error";
+        bgColor = "#ff9900";
+      }
+      else if ( "START".equals( eventName ) )
+      {
+        eventName = "Start error";
+        bgColor = "#ffcc00";
+      }
+      else
+      {
+        // symbol
+        bgColor = ( i % 2 ) == 0 ? "#ffffff" : "#eeeeee";
       }
-    };
 
-    if ( aFile == null )
-    {
-      final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-      return exporter.toString( macroResolver );
-    }
-    else
-    {
-      final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
-      exporter.write( macroResolver );
-      exporter.close();
+      final String style = "background-color: " + bgColor + ";";
+      final String index = String.valueOf( i );
+      final String time = Unit.Time.format( aDataSet.getTime( ds.getStartSampleIndex() ) );
+
+      if ( eventName == null )
+      {
+        // normal symbol...
+        final int data = ds.getData();
+
+        aWriter.writeRow( style, index, time, "0x".concat( integerToHexString( data, ( bitCount / 4 ) + bitAdder ) ),
+            "0b".concat( integerToBinString( data, bitCount ) ), String.valueOf( data ), toASCII( data ) );
+      }
+      else
+      {
+        // error event...
+        aWriter.writeRow( style, ERROR_COL_SPANS, index, time, eventName );
+      }
+
+      if ( ( i % PROGRESS_INTERVAL ) == 0 )
+      {
+        aProgressListener.setProgress( NumberUtils.getPercentage( i, size ) );
+      }
     }
 
-    return null;
+    aProgressListener.setProgress( 100 );
   }
 }
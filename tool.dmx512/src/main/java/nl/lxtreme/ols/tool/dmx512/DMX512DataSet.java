@@ -29,7 +29,7 @@ import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.ErrorType;
 /**
  * 
  */
-public class DMX512DataSet extends BaseDataSet<DMX512Data>
+public class DMX512DataSet extends CompactDataSet<DMX512Data>
 {
   // CONSTANTS
 
@@ -102,13 +102,12 @@ public class DMX512DataSet extends BaseDataSet<DMX512Data>
    */
   public void reportData( final int aChannelIdx, final int aStartSampleIdx, final int aEndSampleIdx, final int aSymbol )
   {
-    final int idx = size();
     this.decodedSymbols++;
     if ( Boolean.TRUE.equals( this.inMaB ) )
     {
       this.symbolsBetweenMaB++;
     }
-    addData( new DMX512Data( idx, aChannelIdx, aStartSampleIdx, aEndSampleIdx, aSymbol ) );
+    addData( aChannelIdx, aStartSampleIdx, aEndSampleIdx, aSymbol, null, 0 );
   }
 
   /**
@@ -117,9 +116,8 @@ public class DMX512DataSet extends BaseDataSet<DMX512Data>
    */
   public void reportError( final int aChannelIdx, final ErrorType aType, final int aSampleIndex )
   {
-    final int idx = size();
     this.detectedErrors++;
-    addData( new DMX512Data( idx, aChannelIdx, aSampleIndex, aType ) );
+    addData( aChannelIdx, aSampleIndex, aSampleIndex, -1, aType.name(), 0 );
   }
 
   /**
@@ -131,7 +129,6 @@ public class DMX512DataSet extends BaseDataSet<DMX512Data>
   public void reportEvent( final int aChannelIdx, final String aEvent, final int aStartSampleIdx,
       final int aEndSampleIdx )
   {
-    final int idx = size();
     if ( EVENT_MAB.equals( aEvent ) )
     {
       if ( Boolean.FALSE.equals( this.inMaB ) )
@@ -143,6 +140,20 @@ public class DMX512DataSet extends BaseDataSet<DMX512Data>
         this.inMaB = null;
       }
     }
-    addData( new DMX512Data( idx, aChannelIdx, aStartSampleIdx, aEndSampleIdx, aEvent ) );
+    addData( aChannelIdx, aStartSampleIdx, aEndSampleIdx, -1, aEvent, 0 );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected DMX512Data createData( final int aIdx, final int aChannelIdx, final int aStartSampleIdx,
+      final int aEndSampleIdx, final int aValue, final String aEventName, final int aAttribute )
+  {
+    if ( aEventName != null )
+    {
+      return new DMX512Data( aIdx, aChannelIdx, aStartSampleIdx, aEndSampleIdx, aEventName );
+    }
+    return new DMX512Data( aIdx, aChannelIdx, aStartSampleIdx, aEndSampleIdx, aValue );
   }
 }
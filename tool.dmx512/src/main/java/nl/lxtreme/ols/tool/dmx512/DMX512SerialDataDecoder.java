@@ -91,4 +91,15 @@ public class DMX512SerialDataDecoder extends AsyncSerialDataDecoder
 
     return time;
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean isChunkedDecodingSupported()
+  {
+    // A break spans more than a frame, hence we cannot split the data line at
+    // idle gaps...
+    return false;
+  }
 }
@@ -29,6 +29,7 @@ import java.util.logging.*;
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
 import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.tool.base.annotation.*;
 
 
@@ -48,15 +49,13 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
   private static final String CHANNEL_SCL_NAME = "SCL";
   private static final String CHANNEL_SDA_NAME = "SDA";
 
-  private static final int I2C_BITCOUNT = 8;
-
   private static final Logger LOG = Logger.getLogger( I2CAnalyserTask.class.getName() );
 
   // VARIABLES
 
   private final ToolContext context;
   private final ToolProgressListener progressListener;
-  private final AnnotationListener annotationListener;
+  private final BufferedAnnotationListener annotationListener;
   private final PropertyChangeSupport pcs;
 
   private boolean detectSDA_SCL;
@@ -84,7 +83,8 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
   {
     this.context = aContext;
     this.progressListener = aProgressListener;
-    this.annotationListener = aAnnotationListener;
+    // Publish the annotations in blocks, instead of one by one...
+    this.annotationListener = new BufferedAnnotationListener( aAnnotationListener );
 
     this.pcs = new PropertyChangeSupport( this );
 
@@ -117,13 +117,8 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
   {
     final AcquisitionResult data = this.context.getData();
 
-    final int[] values = data.getValues();
     final long[] timestamps = data.getTimestamps();
 
-    // process the captured data and write to output
-    int oldSCL, oldSDA, bitCount;
-    int byteValue;
-
     if ( LOG.isLoggable( Level.FINE ) )
     {
       LOG.log( Level.FINE, "Line A mask = 0x{0}", Integer.toHexString( this.lineAmask ) );
@@ -144,207 +139,36 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
       this.sdaIdx = this.lineBidx;
     }
 
-    final int sdaMask = ( 1 << this.sdaIdx );
-    final int sclMask = ( 1 << this.sclIdx );
-
     final I2CDataSet i2cDataSet = new I2CDataSet( startOfDecode, endOfDecode, data );
 
-    // Prepare everything for the decoding results...
-    prepareResults();
-
-    /*
-     * Now decode the bytes, SDA may only change when SCL is low. Otherwise it
-     * may be a repeated start condition or stop condition. If the start/stop
-     * condition is not at a byte boundary a bus error is detected. So we have
-     * to scan for SCL rises and for SDA changes during SCL is high. Each byte
-     * is followed by a 9th bit (ACK/NACK).
-     */
-    int idx = i2cDataSet.getStartOfDecode();
-    int prevIdx = -1;
-
-    oldSCL = values[idx] & sclMask;
-    oldSDA = values[idx] & sdaMask;
-
-    bitCount = I2C_BITCOUNT;
-    byteValue = 0;
-
-    boolean startCondFound = false;
-    boolean tenBitAddress = false;
-    int slaveAddress = 0x00;
-    int direction = -1;
-
-    if ( this.detectSDA_SCL )
+    try
     {
-      // We've just found our start condition, start the report with that...
-      reportStartCondition( i2cDataSet, startOfDecode );
-
-      this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, timestamps[startOfDecode],
-          I2CDataSet.I2C_START ) );
-
-      startCondFound = true;
-    }
-
-    for ( ; idx < i2cDataSet.getEndOfDecode(); idx++ )
-    {
-      final int dataValue = values[idx];
-
-      final int sda = ( dataValue & sdaMask );
-      final int scl = ( dataValue & sclMask );
-
-      // detect SCL fall/rise
-      if ( oldSCL > scl )
-      {
-        // SCL falls
-        if ( ( prevIdx < 0 ) || ( bitCount == I2C_BITCOUNT ) )
-        {
-          prevIdx = idx;
-        }
+      // Prepare everything for the decoding results...
+      prepareResults();
 
-        if ( bitCount == 0 )
-        {
-          // store decoded byte
-          reportData( i2cDataSet, prevIdx, idx, byteValue );
-
-          final String annotation;
-          if ( startCondFound )
-          {
-            // This is the (7- or 10-bit) address part...
-            direction = ( byteValue & 0x01 );
-
-            if ( ( byteValue & 0xf8 ) == 0xf0 )
-            {
-              // 10-bit address part...
-              slaveAddress = ( byteValue & 0x06 ) << 6;
-              tenBitAddress = true;
-
-              annotation = String.format( "Setup %s 10-bit slave", ( direction == 1 ) ? "read from" : "write to" );
-            }
-            else
-            {
-              if ( tenBitAddress )
-              {
-                // 10-bit address needs the first few bits of the previous slave
-                // address, so OR-ing is needed here...
-                slaveAddress |= ( byteValue & 0xFF );
-              }
-              else
-              {
-                // 7-bit address, directly available. See issue #51
-                slaveAddress = ( ( byteValue >> 1 ) & 0xFF );
-              }
-              startCondFound = false;
-
-              annotation = String.format( tenBitAddress ? "Setup %s slave: 0x%X " : "Setup %s slave: 0x%X [0x%X]",
-                  ( direction == 1 ) ? "read from" : "write to", Integer.valueOf( slaveAddress ),
-                  Integer.valueOf( byteValue ) );
-
-              tenBitAddress = false;
-            }
-          }
-          else
-          {
-            annotation = String.format( "%s data: 0x%X (%c)", ( direction == 1 ) ? "Read" : "Write",
-                Integer.valueOf( byteValue ), Integer.valueOf( byteValue ) );
-          }
-
-          this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, timestamps[prevIdx],
-              timestamps[idx], annotation ) );
-
-          byteValue = 0;
-        }
-      }
-      else if ( scl > oldSCL )
-      {
-        // SCL rises
-        if ( sda != oldSDA )
-        {
-          reportBusError( i2cDataSet, idx );
-        }
-        else
-        {
-          // read SDA
-          if ( bitCount != 0 )
-          {
-            bitCount--;
-            if ( sda != 0 )
-            {
-              byteValue |= ( 1 << bitCount );
-            }
-          }
-          else
-          {
-            // read the confirmation of the slave...
-            if ( sda != 0 )
-            {
-              // NACK
-              reportNACK( i2cDataSet, idx );
-
-              this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, timestamps[idx],
-                  I2CDataSet.I2C_NACK ) );
-            }
-            else
-            {
-              // ACK
-              reportACK( i2cDataSet, idx );
-
-              this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, timestamps[idx],
-                  I2CDataSet.I2C_ACK ) );
-            }
-
-            // next byte
-            bitCount = I2C_BITCOUNT;
-            byteValue = 0;
-          }
-        }
-      }
+      final I2CTransitionDecoder decoder = new I2CTransitionDecoder( i2cDataSet, this.annotationListener,
+          this.sdaIdx, this.sclIdx, i2cDataSet.getStartOfDecode() );
+      decoder.setReportACK( this.reportACK );
+      decoder.setReportNACK( this.reportNACK );
+      decoder.setReportStart( this.reportStart );
+      decoder.setReportStop( this.reportStop );
 
-      // detect SDA change when SCL high
-      if ( ( scl == sclMask ) && ( sda != oldSDA ) )
+      if ( this.detectSDA_SCL )
       {
-        // SDA changes here
-        if ( ( bitCount > 0 ) && ( bitCount < ( I2C_BITCOUNT - 1 ) ) )
-        {
-          // bus error, no complete byte detected
-          reportBusError( i2cDataSet, idx );
-        }
-        else
-        {
-          if ( sda > oldSDA )
-          {
-            // SDA rises, this is a stop condition
-            reportStopCondition( i2cDataSet, idx );
-
-            this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, timestamps[idx],
-                I2CDataSet.I2C_STOP ) );
-
-            slaveAddress = 0x00;
-            direction = -1;
-          }
-          else
-          {
-            // SDA falls, this is a start condition
-            reportStartCondition( i2cDataSet, idx );
-
-            this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, timestamps[idx],
-                I2CDataSet.I2C_START ) );
-
-            startCondFound = true;
-          }
-
-          // new byte
-          bitCount = I2C_BITCOUNT;
-          byteValue = 0;
-        }
+        // We've just found our start condition, start the report with that...
+        decoder.reportStartCondition( startOfDecode, timestamps[startOfDecode] );
       }
 
-      oldSCL = scl;
-      oldSDA = sda;
+      TransitionDecoderUtils.feed( decoder, data, i2cDataSet.getStartOfDecode(), i2cDataSet.getEndOfDecode(),
+          this.progressListener );
 
-      this.progressListener
-          .setProgress( getPercentage( idx, i2cDataSet.getStartOfDecode(), i2cDataSet.getEndOfDecode() ) );
+      return i2cDataSet;
+    }
+    finally
+    {
+      // Publish the last block of annotations, even if the decoding failed...
+      this.annotationListener.flush();
     }
-
-    return i2cDataSet;
   }
 
   /**
@@ -534,69 +358,6 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
     this.annotationListener.onAnnotation( new ChannelLabelAnnotation( this.sdaIdx, CHANNEL_SDA_NAME ) );
     this.annotationListener.clearAnnotations( this.sdaIdx );
   }
-
-  /**
-   * @param aTime
-   */
-  private void reportACK( final I2CDataSet aDataSet, final int aSampleIdx )
-  {
-    if ( this.reportACK )
-    {
-      aDataSet.reportACK( this.sdaIdx, aSampleIdx );
-    }
-  }
-
-  /**
-   * @param aTime
-   */
-  private void reportBusError( final I2CDataSet aDataSet, final int aSampleIdx )
-  {
-    aDataSet.reportBusError( this.sdaIdx, aSampleIdx );
-  }
-
-  /**
-   * @param aTime
-   * @param aByteValue
-   */
-  private void reportData( final I2CDataSet aDataSet, final int aStartSampleIdx, final int aEndSampleIdx,
-      final int aByteValue )
-  {
-    aDataSet.reportData( this.sdaIdx, aStartSampleIdx, aEndSampleIdx, aByteValue );
-  }
-
-  /**
-   * @param aDataSet
-   * @param aTime
-   */
-  private void reportNACK( final I2CDataSet aDataSet, final int aSampleIdx )
-  {
-    if ( this.reportNACK )
-    {
-      aDataSet.reportNACK( this.sdaIdx, aSampleIdx );
-    }
-  }
-
-  /**
-   * @param aTime
-   */
-  private void reportStartCondition( final I2CDataSet aDataSet, final int aSampleIdx )
-  {
-    if ( this.reportStart )
-    {
-      aDataSet.reportStartCondition( this.sdaIdx, aSampleIdx );
-    }
-  }
-
-  /**
-   * @param aTime
-   */
-  private void reportStopCondition( final I2CDataSet aDataSet, final int aSampleIdx )
-  {
-    if ( this.reportStop )
-    {
-      aDataSet.reportStopCondition( this.sdaIdx, aSampleIdx );
-    }
-  }
 }
 
 /* EOF */
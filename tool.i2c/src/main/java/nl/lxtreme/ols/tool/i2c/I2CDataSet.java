@@ -28,7 +28,7 @@ import nl.lxtreme.ols.api.data.*;
 /**
  * 
  */
-public final class I2CDataSet extends BaseDataSet<I2CData>
+public final class I2CDataSet extends CompactDataSet<I2CData>
 {
   // CONSTANTS
 
@@ -83,8 +83,7 @@ public final class I2CDataSet extends BaseDataSet<I2CData>
    */
   public void reportACK( final int aChannelIdx, final int aSampleIdx )
   {
-    final int idx = size();
-    addData( new I2CData( idx, aChannelIdx, aSampleIdx, I2C_ACK ) );
+    addData( aChannelIdx, aSampleIdx, aSampleIdx, 0, I2C_ACK, 0 );
   }
 
   /**
@@ -92,9 +91,8 @@ public final class I2CDataSet extends BaseDataSet<I2CData>
    */
   public void reportBusError( final int aChannelIdx, final int aSampleIdx )
   {
-    final int idx = size();
     this.busErrors++;
-    addData( new I2CData( idx, aChannelIdx, aSampleIdx, I2C_BUS_ERROR ) );
+    addData( aChannelIdx, aSampleIdx, aSampleIdx, 0, I2C_BUS_ERROR, 0 );
   }
 
   /**
@@ -104,9 +102,8 @@ public final class I2CDataSet extends BaseDataSet<I2CData>
   public void reportData( final int aChannelIdx, final int aStartSampleIdx, final int aEndSampleIdx,
       final int aByteValue )
   {
-    final int idx = size();
     this.decodedBytes++;
-    addData( new I2CData( idx, aChannelIdx, aStartSampleIdx, aEndSampleIdx, aByteValue ) );
+    addData( aChannelIdx, aStartSampleIdx, aEndSampleIdx, aByteValue, null, 0 );
   }
 
   /**
@@ -114,8 +111,7 @@ public final class I2CDataSet extends BaseDataSet<I2CData>
    */
   public void reportNACK( final int aChannelIdx, final int aSampleIdx )
   {
-    final int idx = size();
-    addData( new I2CData( idx, aChannelIdx, aSampleIdx, I2C_NACK ) );
+    addData( aChannelIdx, aSampleIdx, aSampleIdx, 0, I2C_NACK, 0 );
   }
 
   /**
@@ -123,8 +119,7 @@ public final class I2CDataSet extends BaseDataSet<I2CData>
    */
   public void reportStartCondition( final int aChannelIdx, final int aSampleIdx )
   {
-    final int idx = size();
-    addData( new I2CData( idx, aChannelIdx, aSampleIdx, I2C_START ) );
+    addData( aChannelIdx, aSampleIdx, aSampleIdx, 0, I2C_START, 0 );
   }
 
   /**
@@ -132,8 +127,21 @@ public final class I2CDataSet extends BaseDataSet<I2CData>
    */
   public void reportStopCondition( final int aChannelIdx, final int aSampleIdx )
   {
-    final int idx = size();
-    addData( new I2CData( idx, aChannelIdx, aSampleIdx, I2C_STOP ) );
+    addData( aChannelIdx, aSampleIdx, aSampleIdx, 0, I2C_STOP, 0 );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected I2CData createData( final int aIdx, final int aChannelIdx, final int aStartSampleIdx,
+      final int aEndSampleIdx, final int aValue, final String aEventName, final int aAttribute )
+  {
+    if ( aEventName != null )
+    {
+      return new I2CData( aIdx, aChannelIdx, aStartSampleIdx, aEventName );
+    }
+    return new I2CData( aIdx, aChannelIdx, aStartSampleIdx, aEndSampleIdx, aValue );
   }
 }
 
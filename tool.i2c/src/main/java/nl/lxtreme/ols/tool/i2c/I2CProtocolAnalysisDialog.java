@@ -32,7 +32,6 @@ import java.io.*;
 import java.text.*;
 import java.util.*;
 import java.util.List;
-import java.util.logging.*;
 
 import javax.swing.*;
 
@@ -46,7 +45,7 @@ import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
-import nl.lxtreme.ols.util.ExportUtils.HtmlFileExporter;
+import nl.lxtreme.ols.util.ExportUtils.HtmlReportWriter;
 import nl.lxtreme.ols.util.swing.*;
 
 import org.osgi.framework.*;
@@ -61,11 +60,95 @@ import org.osgi.framework.*;
 public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet> implements ExportAware<I2CDataSet>,
     PropertyChangeListener
 {
+  // INNER TYPES
+
+  /**
+   * Provides a lazy table model for the decoded I2C data.
+   */
+  final class I2CDataTableModel extends DataSetTableModel<I2CData>
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link I2CDataTableModel} instance.
+     */
+    public I2CDataTableModel()
+    {
+      super( "Hex", "Bin", "Dec", "ASCII" );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Color getRowBackground( final int aRowIndex )
+    {
+      final I2CData data = getData( aRowIndex );
+      if ( !data.isEvent() )
+      {
+        return null;
+      }
+
+      final String event = data.getEventName();
+      if ( I2CDataSet.I2C_START.equals( event ) || I2CDataSet.I2C_STOP.equals( event ) )
+      {
+        return EVENT_ROW_COLOR;
+      }
+      else if ( I2CDataSet.I2C_ACK.equals( event ) )
+      {
+        return ACK_ROW_COLOR;
+      }
+      else if ( I2CDataSet.I2C_NACK.equals( event ) )
+      {
+        return NACK_ROW_COLOR;
+      }
+      // unknown event
+      return ERROR_ROW_COLOR;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object getValueAt( final I2CData aData, final int aColumnIndex )
+    {
+      if ( aData.isEvent() )
+      {
+        return ( aColumnIndex == 0 ) ? aData.getEventName() : null;
+      }
+
+      final int value = aData.getValue();
+      switch ( aColumnIndex )
+      {
+        case 0:
+          return "0x".concat( integerToHexString( value, 2 ) );
+        case 1:
+          return "0b".concat( integerToBinString( value, 8 ) );
+        case 2:
+          return Integer.valueOf( value );
+        default:
+          return toASCII( value );
+      }
+    }
+  }
+
   // CONSTANTS
 
   private static final long serialVersionUID = 1L;
 
-  private static final Logger LOG = Logger.getLogger( I2CProtocolAnalysisDialog.class.getName() );
+  private static final Color EVENT_ROW_COLOR = new Color( 0xe0e0e0 );
+  private static final Color ACK_ROW_COLOR = new Color( 0xc0ffc0 );
+  private static final Color NACK_ROW_COLOR = new Color( 0xffc0c0 );
+  private static final Color ERROR_ROW_COLOR = new Color( 0xff8000 );
+
+  /** The number of rows after which the export progress is reported. */
+  private static final int PROGRESS_INTERVAL = 1024;
 
   // VARIABLES
 
@@ -73,7 +156,7 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
   private JComboBox lineA;
   private JLabel lineBLabel;
   private JComboBox lineB;
-  private JEditorPane outText;
+  private DataSetTable<I2CData> resultTable;
   private JLabel busSetSCL;
   private JLabel busSetSDA;
   private JCheckBox detectSDA_SCL;
@@ -185,9 +268,8 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
   @Override
   public void reset()
   {
-    final String emptyHtmlPage = getEmptyHtmlPage();
-    this.outText.setText( emptyHtmlPage );
-    this.outText.setEditable( false );
+    this.resultTable.setDataSet( null );
+    this.resultTable.setSummary( null );
 
     this.runAnalysisAction.restore();
 
@@ -248,40 +330,27 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
     }
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean isResultCacheable()
+  {
+    return true;
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   protected void onToolEnded( final I2CDataSet aAnalysisResult )
   {
-    try
-    {
-      final String htmlPage;
-      if ( aAnalysisResult != null )
-      {
-        htmlPage = toHtmlPage( null /* aFile */, aAnalysisResult );
-        this.exportAction.setEnabled( !aAnalysisResult.isEmpty() );
-      }
-      else
-      {
-        htmlPage = getEmptyHtmlPage();
-        this.exportAction.setEnabled( false );
-      }
+    this.resultTable.setDataSet( aAnalysisResult );
+    this.resultTable.setSummary( ( aAnalysisResult == null ) ? null : getSummary( aAnalysisResult ) );
 
-      this.outText.setText( htmlPage );
-      this.outText.setEditable( false );
+    this.exportAction.setEnabled( ( aAnalysisResult != null ) && !aAnalysisResult.isEmpty() );
 
-      this.runAnalysisAction.restore();
-    }
-    catch ( final IOException exception )
-    {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        // This should not happen for the no-file exports!
-        throw new RuntimeException( exception );
-      }
-    }
+    this.runAnalysisAction.restore();
   }
 
   /**
@@ -381,6 +450,48 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
     return aExporter;
   }
 
+  /**
+   * Creates the macro resolver for the statistics of the given analysis
+   * results.
+   *
+   * @param aAnalysisResult
+   *          the analysis results to create the macro resolver for, cannot be
+   *          <code>null</code>.
+   * @return a macro resolver, never <code>null</code>.
+   */
+  private MacroResolver createMacroResolver( final I2CDataSet aAnalysisResult )
+  {
+    return new MacroResolver()
+    {
+      @Override
+      public Object resolve( final String aMacro, final Element aParent )
+      {
+        if ( "date-now".equals( aMacro ) )
+        {
+          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
+          return df.format( new Date() );
+        }
+        else if ( "sda-bus-config".equals( aMacro ) )
+        {
+          return I2CProtocolAnalysisDialog.this.busSetSDA.getText();
+        }
+        else if ( "scl-bus-config".equals( aMacro ) )
+        {
+          return I2CProtocolAnalysisDialog.this.busSetSCL.getText();
+        }
+        else if ( "decoded-bytes".equals( aMacro ) )
+        {
+          return Integer.valueOf( aAnalysisResult.getDecodedByteCount() );
+        }
+        else if ( "detected-bus-errors".equals( aMacro ) )
+        {
+          return Integer.valueOf( aAnalysisResult.getBusErrorCount() );
+        }
+        return null;
+      }
+    };
+  }
+
   /**
    * @return
    */
@@ -388,10 +499,9 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
   {
     final JPanel output = new JPanel( new GridLayout( 1, 1, 0, 0 ) );
 
-    this.outText = new JEditorPane( "text/html", getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.resultTable = new DataSetTable<I2CData>( new I2CDataTableModel(), getContext() );
 
-    output.add( new JScrollPane( this.outText ) );
+    output.add( this.resultTable );
 
     return output;
   }
@@ -469,34 +579,16 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
   }
 
   /**
-   * Returns an "empty" HTML page.
+   * Returns a short summary of the statistics of the given analysis results.
    *
-   * @return an empty HTML page string, never <code>null</code>.
+   * @param aAnalysisResult
+   *          the analysis results to summarize, cannot be <code>null</code>.
+   * @return a summary, never <code>null</code>.
    */
-  private String getEmptyHtmlPage()
+  private String getSummary( final I2CDataSet aAnalysisResult )
   {
-    final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-    return exporter.toString( new MacroResolver()
-    {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
-      {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        else if ( "sda-bus-config".equals( aMacro ) || "scl-bus-config".equals( aMacro ) )
-        {
-          return "&lt;auto detect&gt;";
-        }
-        else if ( "decoded-bytes".equals( aMacro ) || "detected-bus-errors".equals( aMacro ) )
-        {
-          return "-";
-        }
-        return null;
-      }
-    } );
+    return String.format( "<html>Decoded bytes: <b>%d</b>, detected bus errors: <b>%d</b></html>",
+        Integer.valueOf( aAnalysisResult.getDecodedByteCount() ), Integer.valueOf( aAnalysisResult.getBusErrorCount() ) );
   }
 
   /**
@@ -540,17 +632,21 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
    *
    * @param aSelectedFile
    * @param aAnalysisResult
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private void storeToCsvFile( final File aSelectedFile, final I2CDataSet aAnalysisResult )
+  private void storeToCsvFile( final File aSelectedFile, final I2CDataSet aAnalysisResult ) throws IOException
   {
+    final ToolProgressListener progressListener = getProgressListener();
+    final CsvExporter exporter = ExportUtils.createCsvExporter( aSelectedFile );
+
     try
     {
-      final CsvExporter exporter = ExportUtils.createCsvExporter( aSelectedFile );
-
       exporter.setHeaders( "index", "start-time", "end-time", "event?", "event-type", "data" );
 
       final List<I2CData> dataSet = aAnalysisResult.getData();
-      for ( int i = 0; i < dataSet.size(); i++ )
+      final int size = dataSet.size();
+      for ( int i = 0; i < size; i++ )
       {
         final I2CData ds = dataSet.get( i );
 
@@ -560,17 +656,17 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
 
         exporter.addRow( Integer.valueOf( i ), startTime, endTime, Boolean.valueOf( ds.isEvent() ), ds.getEventName(),
             data );
-      }
 
-      exporter.close();
+        if ( ( i % PROGRESS_INTERVAL ) == 0 )
+        {
+          progressListener.setProgress( NumberUtils.getPercentage( i, size ) );
+        }
+      }
     }
-    catch ( final IOException exception )
+    finally
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        LOG.log( Level.WARNING, "CSV export failed!", exception );
-      }
+      exporter.close();
+      progressListener.setProgress( 100 );
     }
   }
 
@@ -579,130 +675,92 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
    *
    * @param aSelectedFile
    * @param aAnalysisResult
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private void storeToHtmlFile( final File aSelectedFile, final I2CDataSet aAnalysisResult )
+  private void storeToHtmlFile( final File aSelectedFile, final I2CDataSet aAnalysisResult ) throws IOException
   {
+    final HtmlExporter template = createHtmlTemplate( ExportUtils.createHtmlExporter() );
+    final HtmlReportWriter writer = ExportUtils.createHtmlReportWriter( aSelectedFile, template, "decoded-data",
+        createMacroResolver( aAnalysisResult ) );
+
     try
     {
-      toHtmlPage( aSelectedFile, aAnalysisResult );
+      writeDecodedData( writer, aAnalysisResult, getProgressListener() );
     }
-    catch ( final IOException exception )
+    finally
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        LOG.log( Level.WARNING, "HTML export failed!", exception );
-      }
+      writer.close();
     }
   }
 
   /**
-   * generate a HTML page
+   * Writes the decoded data as table rows to the given report writer.
    *
-   * @param aEmpty
-   *          if this is true an empty output is generated
-   * @return String with HTML data
+   * @param aWriter
+   *          the report writer to write the rows to, cannot be
+   *          <code>null</code>;
+   * @param aAnalysisResult
+   *          the analysis results to write, cannot be <code>null</code>;
+   * @param aProgressListener
+   *          the progress listener to report the progress to, cannot be
+   *          <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private String toHtmlPage( final File aFile, final I2CDataSet aAnalysisResult ) throws IOException
+  private void writeDecodedData( final HtmlReportWriter aWriter, final I2CDataSet aAnalysisResult,
+      final ToolProgressListener aProgressListener ) throws IOException
   {
-    final MacroResolver macroResolver = new MacroResolver()
+    final List<I2CData> dataSet = aAnalysisResult.getData();
+    final int size = dataSet.size();
+
+    for ( int i = 0; i < size; i++ )
     {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
+      final I2CData data = dataSet.get( i );
+
+      final String index = String.valueOf( i );
+      final String time = Unit.Time.format( aAnalysisResult.getTime( data.getStartSampleIndex() ) );
+
+      if ( data.isEvent() )
       {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        else if ( "sda-bus-config".equals( aMacro ) )
-        {
-          return I2CProtocolAnalysisDialog.this.busSetSDA.getText();
-        }
-        else if ( "scl-bus-config".equals( aMacro ) )
+        // this is an event
+        final String event = data.getEventName();
+
+        String bgColor;
+        if ( I2CDataSet.I2C_START.equals( event ) || I2CDataSet.I2C_STOP.equals( event ) )
         {
-          return I2CProtocolAnalysisDialog.this.busSetSCL.getText();
+          bgColor = "#e0e0e0";
         }
-        else if ( "decoded-bytes".equals( aMacro ) )
+        else if ( I2CDataSet.I2C_ACK.equals( event ) )
         {
-          return Integer.valueOf( aAnalysisResult.getDecodedByteCount() );
+          bgColor = "#c0ffc0";
         }
-        else if ( "detected-bus-errors".equals( aMacro ) )
+        else if ( I2CDataSet.I2C_NACK.equals( event ) )
         {
-          return Integer.valueOf( aAnalysisResult.getBusErrorCount() );
+          bgColor = "#ffc0c0";
         }
-        else if ( "decoded-data".equals( aMacro ) )
+        else
         {
-          final List<I2CData> dataSet = aAnalysisResult.getData();
-          Element tr;
-
-          for ( int i = 0; i < dataSet.size(); i++ )
-          {
-            final I2CData data = dataSet.get( i );
-
-            if ( data.isEvent() )
-            {
-              // this is an event
-              final String event = data.getEventName();
-
-              String bgColor;
-              if ( I2CDataSet.I2C_START.equals( event ) || I2CDataSet.I2C_STOP.equals( event ) )
-              {
-                bgColor = "#e0e0e0";
-              }
-              else if ( I2CDataSet.I2C_ACK.equals( event ) )
-              {
-                bgColor = "#c0ffc0";
-              }
-              else if ( I2CDataSet.I2C_NACK.equals( event ) )
-              {
-                bgColor = "#ffc0c0";
-              }
-              else
-              {
-                // unknown event
-                bgColor = "#ff8000";
-              }
-
-              tr = aParent.addChild( TR ).addAttribute( "style", "background-color: " + bgColor + ";" );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( Unit.Time.format( aAnalysisResult.getTime( data.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( event );
-              tr.addChild( TD );
-              tr.addChild( TD );
-              tr.addChild( TD );
-            }
-            else
-            {
-              final int value = data.getValue();
-
-              tr = aParent.addChild( TR );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( Unit.Time.format( aAnalysisResult.getTime( data.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( "0x" + integerToHexString( value, 2 ) );
-              tr.addChild( TD ).addContent( "0b" + integerToBinString( value, 8 ) );
-              tr.addChild( TD ).addContent( String.valueOf( value ) );
-              tr.addChild( TD ).addContent( toASCII( value ) );
-            }
-          }
+          // unknown event
+          bgColor = "#ff8000";
         }
 
-        return null;
+        aWriter.writeRow( "background-color: " + bgColor + ";", index, time, event, null, null, null );
       }
-    };
+      else
+      {
+        final int value = data.getValue();
 
-    if ( aFile == null )
-    {
-      final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-      return exporter.toString( macroResolver );
-    }
-    else
-    {
-      final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
-      exporter.write( macroResolver );
-      exporter.close();
+        aWriter.writeRow( null /* aStyle */, index, time, "0x" + integerToHexString( value, 2 ),
+            "0b" + integerToBinString( value, 8 ), String.valueOf( value ), toASCII( value ) );
+      }
+
+      if ( ( i % PROGRESS_INTERVAL ) == 0 )
+      {
+        aProgressListener.setProgress( NumberUtils.getPercentage( i, size ) );
+      }
     }
 
-    return null;
+    aProgressListener.setProgress( 100 );
   }
 }
@@ -0,0 +1,400 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.i2c;
+
+
+import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.tool.base.annotation.*;
+
+
+/**
+ * Provides a push-style I2C decoder, which decodes the transitions of the SCL
+ * and SDA lines as they are fed to it.
+ * <p>
+ * The SDA may only change when SCL is low. Otherwise it may be a repeated
+ * start condition or stop condition. If the start/stop condition is not at a
+ * byte boundary a bus error is detected. So we scan for SCL rises and for SDA
+ * changes during SCL is high. Each byte is followed by a 9th bit (ACK/NACK).
+ * </p>
+ */
+public class I2CTransitionDecoder implements TransitionDecoder
+{
+  // CONSTANTS
+
+  private static final int I2C_BITCOUNT = 8;
+
+  // VARIABLES
+
+  private final I2CDataSet dataSet;
+  private final AnnotationListener annotationListener;
+  private final int sdaIdx;
+  private final int sdaMask;
+  private final int sclMask;
+
+  private boolean reportACK;
+  private boolean reportNACK;
+  private boolean reportStart;
+  private boolean reportStop;
+
+  private boolean initialized;
+  private int sampleIdx;
+  private int oldSCL;
+  private int oldSDA;
+  private int bitCount;
+  private int byteValue;
+  private int prevIdx;
+  private long prevTimestamp;
+  private boolean startCondFound;
+  private boolean tenBitAddress;
+  private int slaveAddress;
+  private int direction;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new I2CTransitionDecoder instance.
+   * 
+   * @param aDataSet
+   *          the data set to report the decoded frames to, cannot be
+   *          <code>null</code>;
+   * @param aAnnotationListener
+   *          the annotation listener to report the annotations to, cannot be
+   *          <code>null</code>;
+   * @param aSdaIdx
+   *          the channel index of the SDA line;
+   * @param aSclIdx
+   *          the channel index of the SCL line;
+   * @param aFirstSampleIdx
+   *          the sample index of the first transition that will be fed to this
+   *          decoder.
+   */
+  public I2CTransitionDecoder( final I2CDataSet aDataSet, final AnnotationListener aAnnotationListener,
+      final int aSdaIdx, final int aSclIdx, final int aFirstSampleIdx )
+  {
+    this.dataSet = aDataSet;
+    this.annotationListener = aAnnotationListener;
+    this.sdaIdx = aSdaIdx;
+    this.sdaMask = ( 1 << aSdaIdx );
+    this.sclMask = ( 1 << aSclIdx );
+
+    this.initialized = false;
+    this.sampleIdx = aFirstSampleIdx;
+    this.bitCount = I2C_BITCOUNT;
+    this.byteValue = 0;
+    this.prevIdx = -1;
+    this.startCondFound = false;
+    this.tenBitAddress = false;
+    this.slaveAddress = 0x00;
+    this.direction = -1;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void decode( final int[] aValues, final long[] aTimestamps, final int aOffset, final int aLength )
+  {
+    final int end = aOffset + aLength;
+    for ( int i = aOffset; i < end; i++, this.sampleIdx++ )
+    {
+      decode( aValues[i], aTimestamps[i] );
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void finish()
+  {
+    // Nothing to flush; an incomplete byte at the end of the data is dropped...
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isDone()
+  {
+    // All transitions fed to this decoder are decoded...
+    return false;
+  }
+
+  /**
+   * Reports a start condition at the given sample, for example, because it is
+   * detected prior to feeding the transitions to this decoder.
+   * 
+   * @param aSampleIdx
+   *          the sample index of the start condition;
+   * @param aTimestamp
+   *          the timestamp of the start condition.
+   */
+  public void reportStartCondition( final int aSampleIdx, final long aTimestamp )
+  {
+    if ( this.reportStart )
+    {
+      this.dataSet.reportStartCondition( this.sdaIdx, aSampleIdx );
+    }
+
+    this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, aTimestamp,
+        I2CDataSet.I2C_START ) );
+
+    this.startCondFound = true;
+  }
+
+  /**
+   * @param aReportACK
+   */
+  public void setReportACK( final boolean aReportACK )
+  {
+    this.reportACK = aReportACK;
+  }
+
+  /**
+   * @param aReportNACK
+   */
+  public void setReportNACK( final boolean aReportNACK )
+  {
+    this.reportNACK = aReportNACK;
+  }
+
+  /**
+   * @param aReportStart
+   */
+  public void setReportStart( final boolean aReportStart )
+  {
+    this.reportStart = aReportStart;
+  }
+
+  /**
+   * @param aReportStop
+   */
+  public void setReportStop( final boolean aReportStop )
+  {
+    this.reportStop = aReportStop;
+  }
+
+  /**
+   * Decodes a single transition.
+   * 
+   * @param aValue
+   *          the sample value;
+   * @param aTimestamp
+   *          the timestamp of the sample.
+   */
+  private void decode( final int aValue, final long aTimestamp )
+  {
+    final int idx = this.sampleIdx;
+
+    final int sda = ( aValue & this.sdaMask );
+    final int scl = ( aValue & this.sclMask );
+
+    if ( !this.initialized )
+    {
+      this.oldSCL = scl;
+      this.oldSDA = sda;
+      this.initialized = true;
+    }
+
+    // detect SCL fall/rise
+    if ( this.oldSCL > scl )
+    {
+      // SCL falls
+      if ( ( this.prevIdx < 0 ) || ( this.bitCount == I2C_BITCOUNT ) )
+      {
+        this.prevIdx = idx;
+        this.prevTimestamp = aTimestamp;
+      }
+
+      if ( this.bitCount == 0 )
+      {
+        reportData( idx, aTimestamp );
+      }
+    }
+    else if ( scl > this.oldSCL )
+    {
+      // SCL rises
+      if ( sda != this.oldSDA )
+      {
+        reportBusError( idx );
+      }
+      else
+      {
+        // read SDA
+        if ( this.bitCount != 0 )
+        {
+          this.bitCount--;
+          if ( sda != 0 )
+          {
+            this.byteValue |= ( 1 << this.bitCount );
+          }
+        }
+        else
+        {
+          // read the confirmation of the slave...
+          if ( sda != 0 )
+          {
+            // NACK
+            if ( this.reportNACK )
+            {
+              this.dataSet.reportNACK( this.sdaIdx, idx );
+            }
+
+            this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, aTimestamp,
+                I2CDataSet.I2C_NACK ) );
+          }
+          else
+          {
+            // ACK
+            if ( this.reportACK )
+            {
+              this.dataSet.reportACK( this.sdaIdx, idx );
+            }
+
+            this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, aTimestamp,
+                I2CDataSet.I2C_ACK ) );
+          }
+
+          // next byte
+          this.bitCount = I2C_BITCOUNT;
+          this.byteValue = 0;
+        }
+      }
+    }
+
+    // detect SDA change when SCL high
+    if ( ( scl == this.sclMask ) && ( sda != this.oldSDA ) )
+    {
+      // SDA changes here
+      if ( ( this.bitCount > 0 ) && ( this.bitCount < ( I2C_BITCOUNT - 1 ) ) )
+      {
+        // bus error, no complete byte detected
+        reportBusError( idx );
+      }
+      else
+      {
+        if ( sda > this.oldSDA )
+        {
+          // SDA rises, this is a stop condition
+          if ( this.reportStop )
+          {
+            this.dataSet.reportStopCondition( this.sdaIdx, idx );
+          }
+
+          this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, aTimestamp,
+              I2CDataSet.I2C_STOP ) );
+
+          this.slaveAddress = 0x00;
+          this.direction = -1;
+        }
+        else
+        {
+          // SDA falls, this is a start condition
+          reportStartCondition( idx, aTimestamp );
+        }
+
+        // new byte
+        this.bitCount = I2C_BITCOUNT;
+        this.byteValue = 0;
+      }
+    }
+
+    this.oldSCL = scl;
+    this.oldSDA = sda;
+  }
+
+  /**
+   * @param aSampleIdx
+   */
+  private void reportBusError( final int aSampleIdx )
+  {
+    this.dataSet.reportBusError( this.sdaIdx, aSampleIdx );
+  }
+
+  /**
+   * Reports the byte that is decoded between the previous sample and the given
+   * one.
+   * 
+   * @param aSampleIdx
+   *          the sample index at which the byte ends;
+   * @param aTimestamp
+   *          the timestamp at which the byte ends.
+   */
+  private void reportData( final int aSampleIdx, final long aTimestamp )
+  {
+    final int value = this.byteValue;
+
+    // store decoded byte
+    this.dataSet.reportData( this.sdaIdx, this.prevIdx, aSampleIdx, value );
+
+    final String annotation;
+    if ( this.startCondFound )
+    {
+      // This is the (7- or 10-bit) address part...
+      this.direction = ( value & 0x01 );
+
+      if ( ( value & 0xf8 ) == 0xf0 )
+      {
+        // 10-bit address part...
+        this.slaveAddress = ( value & 0x06 ) << 6;
+        this.tenBitAddress = true;
+
+        annotation = String.format( "Setup %s 10-bit slave", ( this.direction == 1 ) ? "read from" : "write to" );
+      }
+      else
+      {
+        if ( this.tenBitAddress )
+        {
+          // 10-bit address needs the first few bits of the previous slave
+          // address, so OR-ing is needed here...
+          this.slaveAddress |= ( value & 0xFF );
+        }
+        else
+        {
+          // 7-bit address, directly available. See issue #51
+          this.slaveAddress = ( ( value >> 1 ) & 0xFF );
+        }
+        this.startCondFound = false;
+
+        annotation = String.format( this.tenBitAddress ? "Setup %s slave: 0x%X " : "Setup %s slave: 0x%X [0x%X]",
+            ( this.direction == 1 ) ? "read from" : "write to", Integer.valueOf( this.slaveAddress ),
+            Integer.valueOf( value ) );
+
+        this.tenBitAddress = false;
+      }
+    }
+    else
+    {
+      annotation = String.format( "%s data: 0x%X (%c)", ( this.direction == 1 ) ? "Read" : "Write",
+          Integer.valueOf( value ), Integer.valueOf( value ) );
+    }
+
+    this.annotationListener.onAnnotation( new SampleValueAnnotation( this.sdaIdx, this.prevTimestamp, aTimestamp,
+        value, annotation ) );
+
+    this.byteValue = 0;
+  }
+}
+
+/* EOF */
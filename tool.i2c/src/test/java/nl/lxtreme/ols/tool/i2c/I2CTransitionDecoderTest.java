@@ -0,0 +1,132 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.i2c;
+
+
+import static org.junit.Assert.*;
+
+import java.net.*;
+import java.util.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
+import nl.lxtreme.ols.test.*;
+import nl.lxtreme.ols.test.data.*;
+
+import org.junit.*;
+import org.mockito.*;
+
+
+/**
+ * Tests that {@link I2CTransitionDecoder} yields the same results regardless of
+ * how the transitions are batched.
+ */
+public class I2CTransitionDecoderTest
+{
+  // METHODS
+
+  /**
+   * Tests that decoding per single transition yields the same data as
+   * decoding all transitions at once.
+   */
+  @Test
+  public void testDecodeSingleTransitionsOk() throws Exception
+  {
+    final AcquisitionResult data = getCapturedData( "i2c_3.ols" );
+
+    final List<String> expected = decode( data, Integer.MAX_VALUE );
+    assertFalse( expected.isEmpty() );
+
+    assertEquals( expected, decode( data, 1 ) );
+  }
+
+  /**
+   * Tests that decoding in small, odd-sized batches yields the same data as
+   * decoding all transitions at once.
+   */
+  @Test
+  public void testDecodeSmallBatchesOk() throws Exception
+  {
+    final AcquisitionResult data = getCapturedData( "i2c_2.ols" );
+
+    final List<String> expected = decode( data, Integer.MAX_VALUE );
+    assertFalse( expected.isEmpty() );
+
+    assertEquals( expected, decode( data, 7 ) );
+  }
+
+  /**
+   * Decodes the given data in batches of the given size.
+   * 
+   * @param aData
+   *          the data to decode;
+   * @param aBatchSize
+   *          the maximum number of transitions per batch.
+   * @return a textual representation of the decoded data, never
+   *         <code>null</code>.
+   */
+  private List<String> decode( final AcquisitionResult aData, final int aBatchSize )
+  {
+    final int[] values = aData.getValues();
+    final long[] timestamps = aData.getTimestamps();
+
+    final I2CDataSet dataSet = new I2CDataSet( 0, values.length, aData );
+
+    AnnotationListener annotationListener = Mockito.mock( AnnotationListener.class );
+
+    final I2CTransitionDecoder decoder = new I2CTransitionDecoder( dataSet, annotationListener, 1 /* SDA */,
+        0 /* SCL */, dataSet.getStartOfDecode() );
+    decoder.setReportACK( true );
+    decoder.setReportNACK( true );
+    decoder.setReportStart( true );
+    decoder.setReportStop( true );
+
+    int idx = dataSet.getStartOfDecode();
+    while ( idx < dataSet.getEndOfDecode() )
+    {
+      final int length = Math.min( aBatchSize, dataSet.getEndOfDecode() - idx );
+      decoder.decode( values, timestamps, idx, length );
+      idx += length;
+    }
+    decoder.finish();
+
+    final List<String> result = new ArrayList<String>();
+    for ( I2CData item : dataSet.getData() )
+    {
+      result.add( item.getStartSampleIndex() + "-" + item.getEndSampleIndex() + ":"
+          + ( item.isEvent() ? item.getEventName() : Integer.toString( item.getValue() ) ) );
+    }
+    return result;
+  }
+
+  /**
+   * @param aResourceName
+   *          the name of the resource (= data file) to load.
+   * @return the captured data, never <code>null</code>.
+   */
+  private AcquisitionResult getCapturedData( final String aResourceName ) throws Exception
+  {
+    URL resource = ResourceUtils.getResource( getClass(), aResourceName );
+    return DataTestUtils.getCapturedData( resource );
+  }
+}
+
+/* EOF */
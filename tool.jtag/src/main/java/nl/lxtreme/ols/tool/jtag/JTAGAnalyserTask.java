@@ -38,7 +38,6 @@ import static nl.lxtreme.ols.tool.jtag.JTAGState.TEST_LOGIC_RESET;
 import static nl.lxtreme.ols.tool.jtag.JTAGState.UPDATE_DR;
 import static nl.lxtreme.ols.tool.jtag.JTAGState.UPDATE_IR;
 
-import java.math.BigInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -207,8 +206,8 @@ public class JTAGAnalyserTask implements ToolTask<JTAGDataSet>
     int startTdiDataIdx = 0;
     int endTdiDataIdx = 0;
     
-    String tdiData = null;
-    String tdoData = null;
+    final JTAGShiftData.Builder tdiData = new JTAGShiftData.Builder();
+    final JTAGShiftData.Builder tdoData = new JTAGShiftData.Builder();
 
     this.currentState = TEST_LOGIC_RESET;
     this.oldState = TEST_LOGIC_RESET;
@@ -267,8 +266,8 @@ public class JTAGAnalyserTask implements ToolTask<JTAGDataSet>
           { // state 3: Capture DR
             state = this.currentState.getDisplayText();
             
-            tdiData = null;
-            tdoData = null;
+            tdiData.clear();
+            tdoData.clear();
             
             if ( tmsValue == 0 )
             {
@@ -283,32 +282,14 @@ public class JTAGAnalyserTask implements ToolTask<JTAGDataSet>
           { // state 4: Shift DR
             state = this.currentState.getDisplayText();
             
-            if ( tdiData == null )
+            if ( tdiData.isEmpty() )
             {
               startTdiDataIdx = idx;
-              
-              tdiData = "";
-              tdoData = "";
             }
             endTdiDataIdx = idx;
 
-            if ( tdiValue == 0 )
-            {
-              tdiData = "0" + tdiData;
-            }
-            else
-            {
-              tdiData = "1" + tdiData;
-            }
-
-            if ( tdoValue == 0 )
-            {
-              tdoData = "0" + tdoData;
-            }
-            else
-            {
-              tdoData = "1" + tdoData;
-            }
+            tdiData.append( tdiValue != 0 );
+            tdoData.append( tdoValue != 0 );
 
             if ( tmsValue != 0 )
             {
@@ -355,13 +336,7 @@ public class JTAGAnalyserTask implements ToolTask<JTAGDataSet>
           { // state 8: Update DR
             state = this.currentState.getDisplayText();
 
-            this.annotationListener.onAnnotation( new SampleDataAnnotation( this.tdiIdx, timestamps[startTdiDataIdx],
-                timestamps[endTdiDataIdx], String.format( "0x%x", new BigInteger( tdiData, 2 ) ) ) );
-            this.annotationListener.onAnnotation( new SampleDataAnnotation( this.tdoIdx, timestamps[startTdiDataIdx],
-                timestamps[endTdiDataIdx], String.format( "0x%x", new BigInteger( tdoData, 2 ) ) ) );
-
-            aDataSet.reportJTAGTdiData( tdiIdx, startTdiDataIdx, endTdiDataIdx, currentState, tdiData );
-            aDataSet.reportJTAGTdoData( tdoIdx, startTdiDataIdx, endTdiDataIdx, currentState, tdoData );
+            reportShiftData( aDataSet, timestamps, tdiData, tdoData, startTdiDataIdx, endTdiDataIdx );
 
             if ( tmsValue == 0 )
             {
@@ -388,8 +363,8 @@ public class JTAGAnalyserTask implements ToolTask<JTAGDataSet>
           { // state 10: Capture IR
             state = this.currentState.getDisplayText();
             
-            tdiData = null;
-            tdoData = null;
+            tdiData.clear();
+            tdoData.clear();
             
             if ( tmsValue == 0 )
             {
@@ -404,32 +379,14 @@ public class JTAGAnalyserTask implements ToolTask<JTAGDataSet>
           { // state 11: Shift IR
             state = this.currentState.getDisplayText();
 
-            if ( tdiData == null )
+            if ( tdiData.isEmpty() )
             {
               startTdiDataIdx = idx;
-              
-              tdiData = "";
-              tdoData = "";
             }
             endTdiDataIdx = idx;
 
-            if ( tdiValue == 0 )
-            {
-              tdiData = "0" + tdiData;
-            }
-            else
-            {
-              tdiData = "1" + tdiData;
-            }
-
-            if ( tdoValue == 0 )
-            {
-              tdoData = "0" + tdoData;
-            }
-            else
-            {
-              tdoData = "1" + tdoData;
-            }
+            tdiData.append( tdiValue != 0 );
+            tdoData.append( tdoValue != 0 );
 
             if ( tmsValue != 0 )
             {
@@ -476,14 +433,7 @@ public class JTAGAnalyserTask implements ToolTask<JTAGDataSet>
           { // state 15: Update IR
             state = this.currentState.getDisplayText();
 
-            this.annotationListener.onAnnotation( new SampleDataAnnotation( this.tdiIdx, timestamps[startTdiDataIdx],
-                timestamps[endTdiDataIdx], String.format( "0x%x", new BigInteger( tdiData, 2 ) ) ) );
-
-            this.annotationListener.onAnnotation( new SampleDataAnnotation( this.tdoIdx, timestamps[startTdiDataIdx],
-                timestamps[endTdiDataIdx], String.format( "0x%x", new BigInteger( tdoData, 2 ) ) ) );
-
-            aDataSet.reportJTAGTdiData( tdiIdx, startTdiDataIdx, endTdiDataIdx, currentState, tdiData );
-            aDataSet.reportJTAGTdoData( tdoIdx, startTdiDataIdx, endTdiDataIdx, currentState, tdoData );
+            reportShiftData( aDataSet, timestamps, tdiData, tdoData, startTdiDataIdx, endTdiDataIdx );
 
             if ( tmsValue == 0 )
             {
@@ -543,4 +493,42 @@ public class JTAGAnalyserTask implements ToolTask<JTAGDataSet>
       this.annotationListener.onAnnotation( new ChannelLabelAnnotation( this.tdoIdx, JTAGDataSet.JTAG_TDO ) );
     }
   }
+
+  /**
+   * Reports the data shifted during a DR or IR scan, if any.
+   * 
+   * @param aDataSet
+   *          the data set to report the data to;
+   * @param aTimestamps
+   *          the timestamps of the samples;
+   * @param aTdiData
+   *          the shifted TDI data;
+   * @param aTdoData
+   *          the shifted TDO data;
+   * @param aStartIdx
+   *          the sample index of the first shifted bit;
+   * @param aEndIdx
+   *          the sample index of the last shifted bit.
+   */
+  private void reportShiftData( final JTAGDataSet aDataSet, final long[] aTimestamps,
+      final JTAGShiftData.Builder aTdiData, final JTAGShiftData.Builder aTdoData, final int aStartIdx,
+      final int aEndIdx )
+  {
+    if ( aTdiData.isEmpty() )
+    {
+      // Nothing shifted (Capture -> Exit1 -> Update); nothing to report...
+      return;
+    }
+
+    final JTAGShiftData tdiData = aTdiData.build();
+    final JTAGShiftData tdoData = aTdoData.build();
+
+    this.annotationListener.onAnnotation( new JTAGShiftDataAnnotation( this.tdiIdx, aTimestamps[aStartIdx],
+        aTimestamps[aEndIdx], tdiData ) );
+    this.annotationListener.onAnnotation( new JTAGShiftDataAnnotation( this.tdoIdx, aTimestamps[aStartIdx],
+        aTimestamps[aEndIdx], tdoData ) );
+
+    aDataSet.reportJTAGTdiData( this.tdiIdx, aStartIdx, aEndIdx, this.currentState, tdiData );
+    aDataSet.reportJTAGTdoData( this.tdoIdx, aStartIdx, aEndIdx, this.currentState, tdoData );
+  }
 }
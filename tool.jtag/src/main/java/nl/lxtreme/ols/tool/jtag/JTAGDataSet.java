@@ -21,8 +21,6 @@
 package nl.lxtreme.ols.tool.jtag;
 
 
-import java.math.BigInteger;
-
 import nl.lxtreme.ols.api.acquisition.AcquisitionResult;
 import nl.lxtreme.ols.api.data.BaseDataSet;
 
@@ -64,19 +62,21 @@ public final class JTAGDataSet extends BaseDataSet<JTAGData>
   /**
    * @param aTimeValue
    */
-  public void reportJTAGTdiData( final int aChannelIdx, final int aStartIdx, final int aEndIdx, final JTAGState aState, final String aTdiData )
+  public void reportJTAGTdiData( final int aChannelIdx, final int aStartIdx, final int aEndIdx, final JTAGState aState,
+      final JTAGShiftData aTdiData )
   {
     final int idx = size();
-    addData( new JTAGData( idx, aChannelIdx, JTAG_TDI, new BigInteger( aTdiData, 2 ), aStartIdx, aEndIdx ) );
+    addData( new JTAGData( idx, aChannelIdx, JTAG_TDI, aTdiData, aStartIdx, aEndIdx ) );
   }
 
   /**
    * @param aTimeValue
    */
-  public void reportJTAGTdoData( final int aChannelIdx, final int aStartIdx, final int aEndIdx, final JTAGState aState, final String aTdoData )
+  public void reportJTAGTdoData( final int aChannelIdx, final int aStartIdx, final int aEndIdx, final JTAGState aState,
+      final JTAGShiftData aTdoData )
   {
     final int idx = size();
-    addData( new JTAGData( idx, aChannelIdx, JTAG_TDO, new BigInteger( aTdoData, 2 ), aStartIdx, aEndIdx ) );
+    addData( new JTAGData( idx, aChannelIdx, JTAG_TDO, aTdoData, aStartIdx, aEndIdx ) );
   }
 
   /**
@@ -26,11 +26,9 @@ import static nl.lxtreme.ols.util.swing.SwingComponentUtils.*;
 
 import java.awt.*;
 import java.io.*;
-import java.math.*;
 import java.text.*;
 import java.util.*;
 import java.util.List;
-import java.util.logging.*;
 
 import javax.swing.*;
 
@@ -44,7 +42,7 @@ import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
-import nl.lxtreme.ols.util.ExportUtils.HtmlFileExporter;
+import nl.lxtreme.ols.util.ExportUtils.HtmlReportWriter;
 import nl.lxtreme.ols.util.swing.*;
 
 import org.osgi.framework.*;
@@ -57,11 +55,77 @@ import org.osgi.framework.*;
  */
 public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet> implements ExportAware<JTAGDataSet>
 {
+  // INNER TYPES
+
+  /**
+   * Provides a lazy table model for the decoded JTAG data.
+   */
+  final class JTAGDataTableModel extends DataSetTableModel<JTAGData>
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link JTAGDataTableModel} instance.
+     */
+    public JTAGDataTableModel()
+    {
+      super( "State", "TDI Hex", "TDI Bin", "TDO Hex", "TDO Bin" );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Color getRowBackground( final int aRowIndex )
+    {
+      return getData( aRowIndex ).isEvent() ? EVENT_ROW_COLOR : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object getValueAt( final JTAGData aData, final int aColumnIndex )
+    {
+      if ( aData.isEvent() )
+      {
+        return ( aColumnIndex == 0 ) ? String.valueOf( aData.getDataValue() ) : null;
+      }
+
+      final JTAGShiftData tdiData = aData.isTdiData() ? ( JTAGShiftData )aData.getDataValue() : null;
+      final JTAGShiftData tdoData = aData.isTdoData() ? ( JTAGShiftData )aData.getDataValue() : null;
+      switch ( aColumnIndex )
+      {
+        case 0:
+          return aData.getEventName();
+        case 1:
+          return ( tdiData != null ) ? "0x".concat( tdiData.toHexString() ) : null;
+        case 2:
+          return ( tdiData != null ) ? "0b".concat( tdiData.toBinaryString() ) : null;
+        case 3:
+          return ( tdoData != null ) ? "0x".concat( tdoData.toHexString() ) : null;
+        default:
+          return ( tdoData != null ) ? "0b".concat( tdoData.toBinaryString() ) : null;
+      }
+    }
+  }
+
   // CONSTANTS
 
   private static final long serialVersionUID = 1L;
 
-  private static final Logger LOG = Logger.getLogger( JTAGProtocolAnalysisDialog.class.getName() );
+  private static final Color EVENT_ROW_COLOR = new Color( 0xfefeff );
+
+  /** The number of rows after which the export progress is reported. */
+  private static final int PROGRESS_INTERVAL = 1024;
+  /** The column spans of an event row in the HTML report. */
+  private static final int[] EVENT_COL_SPANS = { 1, 1, 1, 4 };
 
   // VARIABLES
 
@@ -69,7 +133,7 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
   private JComboBox tdo;
   private JComboBox tdi;
   private JComboBox tms;
-  private JEditorPane outText;
+  private DataSetTable<JTAGData> resultTable;
 
   private RestorableAction runAnalysisAction;
   private Action exportAction;
@@ -134,8 +198,8 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
   @Override
   public void reset()
   {
-    this.outText.setText( getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.resultTable.setDataSet( null );
+    this.resultTable.setSummary( null );
 
     this.runAnalysisAction.restore();
 
@@ -161,34 +225,11 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
   @Override
   protected void onToolEnded( final JTAGDataSet aAnalysisResult )
   {
-    try
-    {
-      final String htmlPage;
-      if ( aAnalysisResult != null )
-      {
-        htmlPage = toHtmlPage( null /* aFile */, aAnalysisResult );
-        this.exportAction.setEnabled( !aAnalysisResult.isEmpty() );
-      }
-      else
-      {
-        htmlPage = getEmptyHtmlPage();
-        this.exportAction.setEnabled( false );
-      }
+    this.resultTable.setDataSet( aAnalysisResult );
 
-      this.outText.setText( htmlPage );
-      this.outText.setEditable( false );
+    this.exportAction.setEnabled( ( aAnalysisResult != null ) && !aAnalysisResult.isEmpty() );
 
-      this.runAnalysisAction.restore();
-    }
-    catch ( final IOException exception )
-    {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        // Should not happen in this situation!
-        throw new RuntimeException( exception );
-      }
-    }
+    this.runAnalysisAction.restore();
   }
 
   /**
@@ -292,6 +333,28 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
     return aExporter;
   }
 
+  /**
+   * Creates the macro resolver for the header of the analysis results.
+   *
+   * @return a macro resolver, never <code>null</code>.
+   */
+  private MacroResolver createMacroResolver()
+  {
+    return new MacroResolver()
+    {
+      @Override
+      public Object resolve( final String aMacro, final Element aParent )
+      {
+        if ( "date-now".equals( aMacro ) )
+        {
+          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
+          return df.format( new Date() );
+        }
+        return null;
+      }
+    };
+  }
+
   /**
    * @return
    */
@@ -299,10 +362,9 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
   {
     final JPanel panTable = new JPanel( new GridLayout( 1, 1, 0, 0 ) );
 
-    this.outText = new JEditorPane( "text/html", getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.resultTable = new DataSetTable<JTAGData>( new JTAGDataTableModel(), getContext() );
 
-    panTable.add( new JScrollPane( this.outText ) );
+    panTable.add( this.resultTable );
 
     return panTable;
   }
@@ -339,29 +401,6 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
     return settings;
   }
 
-  /**
-   * Generates an empty HTML page.
-   *
-   * @return String with HTML data.
-   */
-  private String getEmptyHtmlPage()
-  {
-    final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-    return exporter.toString( new MacroResolver()
-    {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
-      {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        return null;
-      }
-    } );
-  }
-
   /**
    * Initializes this dialog.
    */
@@ -398,34 +437,38 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
    *
    * @param aFile
    *          File object
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private void storeToCsvFile( final File aFile, final JTAGDataSet aDataSet )
+  private void storeToCsvFile( final File aFile, final JTAGDataSet aDataSet ) throws IOException
   {
+    final ToolProgressListener progressListener = getProgressListener();
+    final CsvExporter exporter = ExportUtils.createCsvExporter( aFile );
+
     try
     {
-      final CsvExporter exporter = ExportUtils.createCsvExporter( aFile );
-
       exporter.setHeaders( "index", "time", "state", "TDI data", "TDO data" );
 
       final List<JTAGData> dataSet = aDataSet.getData();
-      for ( int i = 0; i < dataSet.size(); i++ )
+      final int size = dataSet.size();
+      for ( int i = 0; i < size; i++ )
       {
         final JTAGData data = dataSet.get( i );
 
         final String time = Unit.Time.format( aDataSet.getTime( data.getStartSampleIndex() ) );
         final String event = data.isEvent() ? data.getEventName() : null;
 
-        BigInteger tdiData = null;
-        BigInteger tdoData = null;
+        JTAGShiftData tdiData = null;
+        JTAGShiftData tdoData = null;
 
         // Try to coalesce equal timestamps...
-        if ( ( i + 1 ) < dataSet.size() )
+        if ( ( i + 1 ) < size )
         {
           final JTAGData next = dataSet.get( i + 1 );
           if ( next.getStartSampleIndex() == data.getStartSampleIndex() )
           {
-            tdiData = ( BigInteger )( next.isTdiData() ? next.getDataValue() : data.getDataValue() );
-            tdoData = ( BigInteger )( next.isTdoData() ? next.getDataValue() : data.getDataValue() );
+            tdiData = ( JTAGShiftData )( next.isTdiData() ? next.getDataValue() : data.getDataValue() );
+            tdoData = ( JTAGShiftData )( next.isTdoData() ? next.getDataValue() : data.getDataValue() );
             // Make sure to skip this entry in the next iteration...
             i++;
           }
@@ -433,30 +476,30 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
 
         if ( ( tdiData == null ) && data.isTdiData() )
         {
-          tdiData = ( BigInteger )data.getDataValue();
+          tdiData = ( JTAGShiftData )data.getDataValue();
           tdoData = null;
         }
         else if ( ( tdoData == null ) && data.isTdoData() )
         {
           tdiData = null;
-          tdoData = ( BigInteger )data.getDataValue();
+          tdoData = ( JTAGShiftData )data.getDataValue();
         }
 
-        final String tdiDataValue = tdiData != null ? "0x" + tdiData.toString( 16 ) : null;
-        final String tdoDataValue = tdoData != null ? "0x" + tdoData.toString( 16 ) : null;
+        final String tdiDataValue = tdiData != null ? tdiData.toString() : null;
+        final String tdoDataValue = tdoData != null ? tdoData.toString() : null;
 
         exporter.addRow( Integer.valueOf( i ), time, event, tdiDataValue, tdoDataValue );
-      }
 
-      exporter.close();
+        if ( ( i % PROGRESS_INTERVAL ) == 0 )
+        {
+          progressListener.setProgress( NumberUtils.getPercentage( i, size ) );
+        }
+      }
     }
-    catch ( final IOException exception )
+    finally
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        LOG.log( Level.WARNING, "CSV export failed!", exception );
-      }
+      exporter.close();
+      progressListener.setProgress( 100 );
     }
   }
 
@@ -465,138 +508,119 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
    *
    * @param aFile
    *          file object
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private void storeToHtmlFile( final File aFile, final JTAGDataSet aDataSet )
+  private void storeToHtmlFile( final File aFile, final JTAGDataSet aDataSet ) throws IOException
   {
+    final HtmlExporter template = createHtmlTemplate( ExportUtils.createHtmlExporter() );
+    final HtmlReportWriter writer = ExportUtils.createHtmlReportWriter( aFile, template, "decoded-data",
+        createMacroResolver() );
+
     try
     {
-      toHtmlPage( aFile, aDataSet );
+      writeDecodedData( writer, aDataSet, getProgressListener() );
     }
-    catch ( final IOException exception )
+    finally
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        LOG.log( Level.WARNING, "HTML export failed!", exception );
-      }
+      writer.close();
     }
   }
 
   /**
-   * generate a HTML page
+   * Writes the decoded data as table rows to the given report writer.
    *
-   * @param aDataSet
-   *          the data set to create the HTML page for, cannot be
+   * @param aWriter
+   *          the report writer to write the rows to, cannot be
+   *          <code>null</code>;
+   * @param aAnalysisResult
+   *          the analysis results to write, cannot be <code>null</code>;
+   * @param aProgressListener
+   *          the progress listener to report the progress to, cannot be
    *          <code>null</code>.
-   * @return String with HTML data
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private String toHtmlPage( final File aFile, final JTAGDataSet aAnalysisResult ) throws IOException
+  private void writeDecodedData( final HtmlReportWriter aWriter, final JTAGDataSet aAnalysisResult,
+      final ToolProgressListener aProgressListener ) throws IOException
   {
-    LOG.log( Level.INFO, "toHtmlPage" );
+    final List<JTAGData> dataSet = aAnalysisResult.getData();
+    final int size = dataSet.size();
 
-    final MacroResolver macroResolver = new MacroResolver()
+    int i = 0;
+    while ( i < size )
     {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
+      final JTAGData data = dataSet.get( i );
+
+      final String index = String.valueOf( i );
+      final String time = Unit.Time.format( aAnalysisResult.getTime( data.getStartSampleIndex() ) );
+
+      if ( data.isEvent() )
       {
-        if ( "date-now".equals( aMacro ) )
+        aWriter.writeRow( "background-color: #fefeff;", EVENT_COL_SPANS, index, time,
+            String.valueOf( data.getDataValue() ), null );
+      }
+      else
+      {
+        JTAGShiftData tdiData = null;
+        JTAGShiftData tdoData = null;
+
+        // Try to coalesce equal timestamps...
+        if ( ( i + 1 ) < size )
         {
-          LOG.log( Level.INFO, "toHtmlPage date-now" );
+          final JTAGData next = dataSet.get( i + 1 );
+          if ( next.getStartSampleIndex() == data.getStartSampleIndex() )
+          {
+            tdiData = ( JTAGShiftData )( next.isTdiData() ? next.getDataValue() : data.getDataValue() );
+            tdoData = ( JTAGShiftData )( next.isTdoData() ? next.getDataValue() : data.getDataValue() );
+            // Make sure to skip this entry in the next iteration...
+            i++;
+          }
+        }
 
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
+        if ( ( tdiData == null ) && data.isTdiData() )
+        {
+          tdiData = ( JTAGShiftData )data.getDataValue();
+          tdoData = null;
         }
-        else if ( "decoded-data".equals( aMacro ) )
+        else if ( ( tdoData == null ) && data.isTdoData() )
         {
-          LOG.log( Level.INFO, "toHtmlPage decoded-data" );
-
-          final List<JTAGData> dataSet = aAnalysisResult.getData();
-          Element tr;
+          tdiData = null;
+          tdoData = ( JTAGShiftData )data.getDataValue();
+        }
 
-          for ( int i = 0; i < dataSet.size(); i++ )
+        // A missing TDI or TDO value is written as a single empty cell spanning
+        // both its columns...
+        final List<Object> cells = new ArrayList<Object>( 7 );
+        final int[] colSpans = new int[7];
+        cells.add( index );
+        cells.add( time );
+        cells.add( data.getEventName() );
+        for ( JTAGShiftData shiftData : new JTAGShiftData[] { tdiData, tdoData } )
+        {
+          if ( shiftData != null )
           {
-            final JTAGData data = dataSet.get( i );
-
-            if ( data.isEvent() )
-            {
-              tr = aParent.addChild( TR ).addAttribute( "style", "background-color: #fefeff;" );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( Unit.Time.format( aAnalysisResult.getTime( data.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( String.valueOf( data.getDataValue() ) );
-              tr.addChild( TD ).addAttribute( "colspan", "4" );
-            }
-            else
-            {
-              tr = aParent.addChild( TR );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( Unit.Time.format( aAnalysisResult.getTime( data.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( data.getEventName() );
-
-              BigInteger tdiData = null;
-              BigInteger tdoData = null;
-
-              // Try to coalesce equal timestamps...
-              if ( ( i + 1 ) < dataSet.size() )
-              {
-                final JTAGData next = dataSet.get( i + 1 );
-                if ( next.getStartSampleIndex() == data.getStartSampleIndex() )
-                {
-                  tdiData = ( BigInteger )( next.isTdiData() ? next.getDataValue() : data.getDataValue() );
-                  tdoData = ( BigInteger )( next.isTdoData() ? next.getDataValue() : data.getDataValue() );
-                  // Make sure to skip this entry in the next iteration...
-                  i++;
-                }
-              }
-
-              if ( ( tdiData == null ) && data.isTdiData() )
-              {
-                tdiData = ( BigInteger )data.getDataValue();
-                tdoData = null;
-              }
-              else if ( ( tdoData == null ) && data.isTdoData() )
-              {
-                tdiData = null;
-                tdoData = ( BigInteger )data.getDataValue();
-              }
-
-              if ( tdiData != null )
-              {
-                tr.addChild( TD ).addContent( "0x", tdiData.toString( 16 ) );
-                tr.addChild( TD ).addContent( "0b", tdiData.toString( 2 ) );
-              }
-              else
-              {
-                tr.addChild( TD ).addAttribute( "colspan", "2" );
-              }
-              if ( tdoData != null )
-              {
-                tr.addChild( TD ).addContent( "0x", tdoData.toString( 16 ) );
-                tr.addChild( TD ).addContent( "0b", tdoData.toString( 2 ) );
-              }
-              else
-              {
-                tr.addChild( TD ).addAttribute( "colspan", "2" );
-              }
-            }
+            cells.add( "0x".concat( shiftData.toHexString() ) );
+            cells.add( "0b".concat( shiftData.toBinaryString() ) );
+          }
+          else
+          {
+            colSpans[cells.size()] = 2;
+            cells.add( null );
           }
         }
 
-        return null;
+        aWriter.writeRow( null /* aStyle */, colSpans, cells.toArray() );
       }
-    };
 
-    if ( aFile == null )
-    {
-      final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-      return exporter.toString( macroResolver );
-    }
-    else
-    {
-      final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
-      exporter.write( macroResolver );
-      exporter.close();
+      if ( ( i % PROGRESS_INTERVAL ) == 0 )
+      {
+        aProgressListener.setProgress( NumberUtils.getPercentage( i, size ) );
+      }
+
+      i++;
     }
 
-    return null;
+    aProgressListener.setProgress( 100 );
   }
 }
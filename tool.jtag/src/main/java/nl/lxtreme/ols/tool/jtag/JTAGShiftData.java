@@ -0,0 +1,301 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.jtag;
+
+
+import java.util.*;
+
+
+/**
+ * Provides the (immutable) data shifted in or out during a single DR or IR
+ * scan, packed as bits in an array of longs.
+ * <p>
+ * The first shifted bit is the least significant bit of the data. The data is
+ * only rendered as string when it is actually shown, which keeps the decoding
+ * of long scans (such as boundary-scan chains) linear in time.
+ * </p>
+ */
+public final class JTAGShiftData implements Comparable<JTAGShiftData>
+{
+  // INNER TYPES
+
+  /**
+   * Provides a growable shift register, to which the bits of a scan are
+   * appended one at a time.
+   */
+  static final class Builder
+  {
+    // VARIABLES
+
+    private long[] words = new long[4];
+    private int bitCount;
+
+    // METHODS
+
+    /**
+     * Appends a single bit to this shift register.
+     * 
+     * @param aBit
+     *          the bit value to append.
+     */
+    void append( final boolean aBit )
+    {
+      final int wordIdx = this.bitCount >>> 6;
+      if ( wordIdx >= this.words.length )
+      {
+        this.words = Arrays.copyOf( this.words, this.words.length << 1 );
+      }
+      if ( aBit )
+      {
+        this.words[wordIdx] |= ( 1L << this.bitCount );
+      }
+      this.bitCount++;
+    }
+
+    /**
+     * Creates an immutable copy of the bits appended so far.
+     * 
+     * @return a new {@link JTAGShiftData} instance, never <code>null</code>.
+     */
+    JTAGShiftData build()
+    {
+      return new JTAGShiftData( Arrays.copyOf( this.words, ( this.bitCount + 63 ) >>> 6 ), this.bitCount );
+    }
+
+    /**
+     * Clears this shift register, retaining its capacity.
+     */
+    void clear()
+    {
+      Arrays.fill( this.words, 0, ( this.bitCount + 63 ) >>> 6, 0L );
+      this.bitCount = 0;
+    }
+
+    /**
+     * @return <code>true</code> if no bits are appended, <code>false</code>
+     *         otherwise.
+     */
+    boolean isEmpty()
+    {
+      return this.bitCount == 0;
+    }
+  }
+
+  // CONSTANTS
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  // VARIABLES
+
+  private final long[] words;
+  private final int bitCount;
+
+  private volatile String hexString;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link JTAGShiftData} instance.
+   * 
+   * @param aWords
+   *          the packed bits, bit <em>i</em> is stored in word <em>i / 64</em>
+   *          at bit position <em>i % 64</em>, cannot be <code>null</code>;
+   * @param aBitCount
+   *          the number of shifted bits, >= 0.
+   */
+  JTAGShiftData( final long[] aWords, final int aBitCount )
+  {
+    this.words = aWords;
+    this.bitCount = aBitCount;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int compareTo( final JTAGShiftData aOther )
+  {
+    final int length = getSignificantWordCount();
+    final int otherLength = aOther.getSignificantWordCount();
+    if ( length != otherLength )
+    {
+      return ( length < otherLength ) ? -1 : 1;
+    }
+    for ( int i = length - 1; i >= 0; i-- )
+    {
+      if ( this.words[i] != aOther.words[i] )
+      {
+        // Compare as unsigned values...
+        return ( ( this.words[i] + Long.MIN_VALUE ) < ( aOther.words[i] + Long.MIN_VALUE ) ) ? -1 : 1;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean equals( final Object aObject )
+  {
+    if ( this == aObject )
+    {
+      return true;
+    }
+    if ( !( aObject instanceof JTAGShiftData ) )
+    {
+      return false;
+    }
+    return compareTo( ( JTAGShiftData )aObject ) == 0;
+  }
+
+  /**
+   * Returns the value of a single shifted bit.
+   * 
+   * @param aIndex
+   *          the index of the bit to return, 0 denotes the first shifted bit.
+   * @return <code>true</code> if the bit is set, <code>false</code> otherwise.
+   */
+  public boolean getBit( final int aIndex )
+  {
+    if ( ( aIndex < 0 ) || ( aIndex >= this.bitCount ) )
+    {
+      throw new IndexOutOfBoundsException( "Invalid bit index: " + aIndex );
+    }
+    return ( this.words[aIndex >>> 6] & ( 1L << aIndex ) ) != 0L;
+  }
+
+  /**
+   * Returns the number of shifted bits.
+   * 
+   * @return a bit count, >= 0.
+   */
+  public int getBitCount()
+  {
+    return this.bitCount;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode()
+  {
+    final int length = getSignificantWordCount();
+    int result = 1;
+    for ( int i = 0; i < length; i++ )
+    {
+      result = ( 31 * result ) + ( int )( this.words[i] ^ ( this.words[i] >>> 32 ) );
+    }
+    return result;
+  }
+
+  /**
+   * Returns the shifted data as binary string, without leading zeros.
+   * 
+   * @return a binary string, never <code>null</code>.
+   */
+  public String toBinaryString()
+  {
+    final int highestBit = getHighestSetBit();
+    if ( highestBit < 0 )
+    {
+      return "0";
+    }
+
+    final char[] result = new char[highestBit + 1];
+    for ( int i = highestBit, j = 0; i >= 0; i--, j++ )
+    {
+      result[j] = ( ( this.words[i >>> 6] & ( 1L << i ) ) != 0L ) ? '1' : '0';
+    }
+    return new String( result );
+  }
+
+  /**
+   * Returns the shifted data as hexadecimal string, without leading zeros.
+   * 
+   * @return a hexadecimal string, never <code>null</code>.
+   */
+  public String toHexString()
+  {
+    String result = this.hexString;
+    if ( result == null )
+    {
+      final int highestBit = getHighestSetBit();
+      if ( highestBit < 0 )
+      {
+        result = "0";
+      }
+      else
+      {
+        final char[] digits = new char[( highestBit >>> 2 ) + 1];
+        for ( int i = digits.length - 1, j = 0; i >= 0; i--, j++ )
+        {
+          digits[j] = HEX_DIGITS[( int )( this.words[i >>> 4] >>> ( ( i & 15 ) << 2 ) ) & 0xF];
+        }
+        result = new String( digits );
+      }
+      this.hexString = result;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the shifted data as hexadecimal string, prefixed with "0x".
+   * 
+   * @return a string representation, never <code>null</code>.
+   */
+  @Override
+  public String toString()
+  {
+    return "0x".concat( toHexString() );
+  }
+
+  /**
+   * @return the index of the most significant bit that is set, or -1 if no bit
+   *         is set.
+   */
+  private int getHighestSetBit()
+  {
+    final int length = getSignificantWordCount();
+    if ( length == 0 )
+    {
+      return -1;
+    }
+    return ( ( length - 1 ) << 6 ) + 63 - Long.numberOfLeadingZeros( this.words[length - 1] );
+  }
+
+  /**
+   * @return the number of words up to and including the most significant
+   *         non-zero word.
+   */
+  private int getSignificantWordCount()
+  {
+    int length = this.words.length;
+    while ( ( length > 0 ) && ( this.words[length - 1] == 0L ) )
+    {
+      length--;
+    }
+    return length;
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.jtag;
+
+
+import nl.lxtreme.ols.api.data.annotation.*;
+
+
+/**
+ * Provides a data annotation for the data shifted during a DR or IR scan,
+ * which is only rendered as text when it is shown.
+ */
+final class JTAGShiftDataAnnotation implements DataAnnotation<JTAGShiftData>
+{
+  // VARIABLES
+
+  private final int channelIdx;
+  private final long startTimestamp;
+  private final long endTimestamp;
+  private final JTAGShiftData data;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link JTAGShiftDataAnnotation} instance.
+   * 
+   * @param aChannelIdx
+   *          the channel index of this annotation;
+   * @param aStartTimestamp
+   *          the start timestamp of the scan;
+   * @param aEndTimestamp
+   *          the end timestamp of the scan;
+   * @param aData
+   *          the shifted data, cannot be <code>null</code>.
+   */
+  public JTAGShiftDataAnnotation( final int aChannelIdx, final long aStartTimestamp, final long aEndTimestamp,
+      final JTAGShiftData aData )
+  {
+    this.channelIdx = aChannelIdx;
+    this.startTimestamp = aStartTimestamp;
+    this.endTimestamp = aEndTimestamp;
+    this.data = aData;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int compareTo( final Annotation<JTAGShiftData> aOther )
+  {
+    int result = ( this.channelIdx - aOther.getChannel() );
+    if ( ( result == 0 ) && ( aOther instanceof DataAnnotation ) )
+    {
+      final DataAnnotation<?> other = ( DataAnnotation<?> )aOther;
+      result = compare( this.startTimestamp, other.getStartTimestamp() );
+      if ( result == 0 )
+      {
+        result = compare( this.endTimestamp, other.getEndTimestamp() );
+      }
+    }
+    if ( result == 0 )
+    {
+      result = this.data.compareTo( aOther.getAnnotation() );
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public JTAGShiftData getAnnotation()
+  {
+    return this.data;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getChannel()
+  {
+    return this.channelIdx;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getEndTimestamp()
+  {
+    return this.endTimestamp;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getStartTimestamp()
+  {
+    return this.startTimestamp;
+  }
+
+  /**
+   * Compares two timestamps.
+   */
+  private static int compare( final long aValue1, final long aValue2 )
+  {
+    return ( aValue1 < aValue2 ) ? -1 : ( ( aValue1 == aValue2 ) ? 0 : 1 );
+  }
+}
@@ -0,0 +1,248 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.jtag;
+
+
+import static org.junit.Assert.*;
+
+import java.math.*;
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.test.data.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link JTAGAnalyserTask} and {@link JTAGShiftData}.
+ */
+public class JTAGAnalyserTaskTest
+{
+  // CONSTANTS
+
+  private static final int TCK = 0;
+  private static final int TMS = 1;
+  private static final int TDI = 2;
+  private static final int TDO = 3;
+
+  // VARIABLES
+
+  private CapturedDataBuilder builder;
+  private long time;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.builder = new CapturedDataBuilder().setSampleRate( 1000000 ).setChannels( 4 ).setEnabledChannels( 0x0F );
+    this.time = 0L;
+  }
+
+  /**
+   * Tests that a long DR scan is decoded correctly and in linear time.
+   */
+  @Test
+  public void testDecodeLongDataRegisterScan() throws Exception
+  {
+    final Random rnd = new Random( 21L );
+    final int bitCount = 100000;
+
+    final boolean[] tdi = new boolean[bitCount];
+    final boolean[] tdo = new boolean[bitCount];
+    for ( int i = 0; i < bitCount; i++ )
+    {
+      tdi[i] = rnd.nextBoolean();
+      tdo[i] = rnd.nextBoolean();
+    }
+    // Ensure the most significant bit is zero, which should not end up in
+    // the hexadecimal representation...
+    tdi[bitCount - 1] = false;
+
+    // Test-Logic-Reset -> Run-Test/Idle -> Select-DR -> Capture-DR ->
+    // Shift-DR...
+    clock( false, false, false );
+    clock( true, false, false );
+    clock( false, false, false );
+    clock( false, false, false );
+    for ( int i = 0; i < bitCount; i++ )
+    {
+      // The last bit is shifted while leaving Shift-DR...
+      clock( i == ( bitCount - 1 ), tdi[i], tdo[i] );
+    }
+    // Exit1-DR -> Update-DR -> Run-Test/Idle...
+    clock( true, false, false );
+    clock( false, false, false );
+    clock( false, false, false );
+
+    final long start = System.nanoTime();
+    final JTAGDataSet dataSet = decode();
+    final long duration = System.nanoTime() - start;
+
+    JTAGShiftData tdiData = null;
+    JTAGShiftData tdoData = null;
+    for ( JTAGData data : dataSet.getData() )
+    {
+      if ( data.isTdiData() )
+      {
+        tdiData = ( JTAGShiftData )data.getDataValue();
+      }
+      else if ( data.isTdoData() )
+      {
+        tdoData = ( JTAGShiftData )data.getDataValue();
+      }
+    }
+
+    assertNotNull( tdiData );
+    assertNotNull( tdoData );
+    assertEquals( bitCount, tdiData.getBitCount() );
+    assertEquals( bitCount, tdoData.getBitCount() );
+    assertEquals( toBigInteger( tdi ).toString( 16 ), tdiData.toHexString() );
+    assertEquals( toBigInteger( tdo ).toString( 16 ), tdoData.toHexString() );
+    assertEquals( toBigInteger( tdo ).toString( 2 ), tdoData.toBinaryString() );
+
+    // Prepending characters to strings took minutes for this scan...
+    assertTrue( "Decoding took " + ( duration / 1000000L ) + " ms!", duration < 5000000000L );
+  }
+
+  /**
+   * Tests that {@link JTAGShiftData} is formatted like {@link BigInteger}.
+   */
+  @Test
+  public void testShiftDataFormatting()
+  {
+    final Random rnd = new Random( 7L );
+    final JTAGShiftData.Builder shiftRegister = new JTAGShiftData.Builder();
+
+    for ( int i = 0; i < 500; i++ )
+    {
+      final boolean[] bits = new boolean[1 + rnd.nextInt( 300 )];
+      final boolean sparse = ( i % 3 ) == 0;
+
+      shiftRegister.clear();
+      for ( int j = 0; j < bits.length; j++ )
+      {
+        bits[j] = sparse ? ( rnd.nextInt( 100 ) == 0 ) : rnd.nextBoolean();
+        shiftRegister.append( bits[j] );
+      }
+
+      final JTAGShiftData data = shiftRegister.build();
+      final BigInteger expected = toBigInteger( bits );
+
+      assertEquals( bits.length, data.getBitCount() );
+      assertEquals( expected.toString( 16 ), data.toHexString() );
+      assertEquals( expected.toString( 2 ), data.toBinaryString() );
+      assertEquals( "0x" + expected.toString( 16 ), data.toString() );
+      for ( int j = 0; j < bits.length; j++ )
+      {
+        assertEquals( bits[j], data.getBit( j ) );
+      }
+    }
+  }
+
+  /**
+   * Adds a single TCK cycle with the given TMS, TDI and TDO levels.
+   */
+  private void clock( final boolean aTms, final boolean aTdi, final boolean aTdo )
+  {
+    int value = 0;
+    value |= aTms ? ( 1 << TMS ) : 0;
+    value |= aTdi ? ( 1 << TDI ) : 0;
+    value |= aTdo ? ( 1 << TDO ) : 0;
+
+    this.builder.add( value, this.time++ );
+    this.builder.add( value | ( 1 << TCK ), this.time++ );
+  }
+
+  /**
+   * Decodes the captured data.
+   */
+  private JTAGDataSet decode() throws Exception
+  {
+    // Add some trailing samples to ensure the last clock edge is decoded...
+    this.builder.add( 0, this.time++ );
+    this.builder.add( 0x08, this.time++ );
+    this.builder.setAbsoluteLength( this.time );
+
+    final CapturedData data = this.builder.build();
+    final ToolContext toolContext = DataTestUtils.createToolContext( data, 0, data.getValues().length - 1 );
+
+    final JTAGAnalyserTask task = new JTAGAnalyserTask( toolContext, new ToolProgressListener()
+    {
+      @Override
+      public void setProgress( final int aPercentage )
+      {
+        // NO-op
+      }
+    }, new AnnotationListener()
+    {
+      @Override
+      public void clearAnnotations()
+      {
+        // NO-op
+      }
+
+      @Override
+      public void clearAnnotations( final int aChannelIdx )
+      {
+        // NO-op
+      }
+
+      @Override
+      public void onAnnotation( final Annotation<?> aAnnotation )
+      {
+        // NO-op
+      }
+
+      @Override
+      public void onAnnotations( final Collection<? extends Annotation<?>> aAnnotations )
+      {
+        // NO-op
+      }
+    } );
+    task.setTckIndex( TCK );
+    task.setTmsIndex( TMS );
+    task.setTdiIndex( TDI );
+    task.setTdoIndex( TDO );
+
+    return task.call();
+  }
+
+  /**
+   * Converts the given bits, first shifted bit is least significant, to a
+   * {@link BigInteger}.
+   */
+  private static BigInteger toBigInteger( final boolean[] aBits )
+  {
+    final StringBuilder sb = new StringBuilder( aBits.length );
+    for ( int i = aBits.length - 1; i >= 0; i-- )
+    {
+      sb.append( aBits[i] ? '1' : '0' );
+    }
+    return new BigInteger( sb.toString(), 2 );
+  }
+}
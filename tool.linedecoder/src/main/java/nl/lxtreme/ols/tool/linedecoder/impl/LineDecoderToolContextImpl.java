@@ -139,6 +139,15 @@ public class LineDecoderToolContextImpl implements LineDecoderToolContext
     return this.toolContext.getStartSampleIndex();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void gotoTimestamp( final long aTimestamp )
+  {
+    this.toolContext.gotoTimestamp( aTimestamp );
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -45,7 +45,7 @@ import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
-import nl.lxtreme.ols.util.ExportUtils.HtmlFileExporter;
+import nl.lxtreme.ols.util.ExportUtils.HtmlReportWriter;
 import nl.lxtreme.ols.util.NumberUtils.BitOrder;
 import nl.lxtreme.ols.util.swing.*;
 import nl.lxtreme.ols.util.swing.component.*;
@@ -131,16 +131,98 @@ public final class SBUSProtocolAnalysisDialog extends BaseToolDialog<SBUSDataSet
     }
   }
 
+  /**
+   * Provides a lazy table model for the decoded SBUS data.
+   */
+  final class SBUSDataTableModel extends DataSetTableModel<SBUSData>
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link SBUSDataTableModel} instance.
+     */
+    public SBUSDataTableModel()
+    {
+      super( "Hex", "Bin", "Dec", "ASCII" );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Color getRowBackground( final int aRowIndex )
+    {
+      final SBUSData data = getData( aRowIndex );
+      if ( !data.isEvent() )
+      {
+        return null;
+      }
+      return "FRAME LOST".equals( data.getEventName() ) ? FRAME_LOST_ROW_COLOR : EVENT_ROW_COLOR;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object getValueAt( final SBUSData aData, final int aColumnIndex )
+    {
+      if ( aData.isEvent() )
+      {
+        switch ( aColumnIndex )
+        {
+          case 0:
+            return aData.getEventName();
+          case 1:
+            return aData.getDataString();
+          default:
+            return null;
+        }
+      }
+
+      final int value = aData.isSbusData() ? aData.getDataValue() : 0;
+      switch ( aColumnIndex )
+      {
+        case 0:
+          return "0x".concat( integerToHexString( value, HEX_DIGITS ) );
+        case 1:
+          return "0b".concat( integerToBinString( value, BIT_COUNT ) );
+        case 2:
+          return Integer.valueOf( value );
+        default:
+          return toASCII( value );
+      }
+    }
+  }
+
   // CONSTANTS
 
   private static final long serialVersionUID = 1L;
   private static final Logger LOG = Logger.getLogger( SBUSProtocolAnalysisDialog.class.getName() );
 
+  private static final Color EVENT_ROW_COLOR = new Color( 0x728fce );
+  private static final Color FRAME_LOST_ROW_COLOR = new Color( 0xf75d59 );
+
+  /** The number of bits of a single SBUS data word. */
+  private static final int BIT_COUNT = 12;
+  /** The number of hex digits needed to show a single SBUS data word. */
+  private static final int HEX_DIGITS = ( BIT_COUNT + 3 ) / 4;
+
+  /** The number of rows after which the export progress is reported. */
+  private static final int PROGRESS_INTERVAL = 1024;
+  /** The column spans of an event row in the HTML report. */
+  private static final int[] EVENT_COL_SPANS = { 1, 1, 1, 3 };
+
   // VARIABLES
 
   private JComboBox data;
   private JComboBox mode; // LOW_SPEED analog 14ms, HIGH_SPEED digital 7ms
-  private JEditorPane outText;
+  private DataSetTable<SBUSData> resultTable;
 
   private RestorableAction runAnalysisAction;
   private Action exportAction;
@@ -234,8 +316,8 @@ public final class SBUSProtocolAnalysisDialog extends BaseToolDialog<SBUSDataSet
   @Override
   public void reset()
   {
-    this.outText.setText( getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.resultTable.setDataSet( null );
+    this.resultTable.setSummary( null );
 
     this.runAnalysisAction.restore();
 
@@ -271,34 +353,12 @@ public final class SBUSProtocolAnalysisDialog extends BaseToolDialog<SBUSDataSet
   @Override
   protected void onToolEnded( final SBUSDataSet aAnalysisResult )
   {
-    try
-    {
-      final String htmlPage;
-      if ( aAnalysisResult != null )
-      {
-        htmlPage = toHtmlPage( null /* aFile */, aAnalysisResult );
-        this.exportAction.setEnabled( !aAnalysisResult.isEmpty() );
-      }
-      else
-      {
-        htmlPage = getEmptyHtmlPage();
-        this.exportAction.setEnabled( false );
-      }
+    this.resultTable.setDataSet( aAnalysisResult );
+    this.resultTable.setSummary( ( aAnalysisResult == null ) ? null : getSummary() );
 
-      this.outText.setText( htmlPage );
-      this.outText.setEditable( false );
+    this.exportAction.setEnabled( ( aAnalysisResult != null ) && !aAnalysisResult.isEmpty() );
 
-      this.runAnalysisAction.restore();
-    }
-    catch ( final IOException exception )
-    {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        // Should not happen in this situation!
-        throw new RuntimeException( exception );
-      }
-    }
+    this.runAnalysisAction.restore();
   }
 
   /**
@@ -467,6 +527,32 @@ public final class SBUSProtocolAnalysisDialog extends BaseToolDialog<SBUSDataSet
     return aExporter;
   }
 
+  /**
+   * Creates the macro resolver for the header of the analysis results.
+   *
+   * @return a macro resolver, never <code>null</code>.
+   */
+  private MacroResolver createMacroResolver()
+  {
+    return new MacroResolver()
+    {
+      @Override
+      public Object resolve( final String aMacro, final Element aParent )
+      {
+        if ( "date-now".equals( aMacro ) )
+        {
+          final DateFormat df = DateFormat.getDateInstance( DateFormat.FULL );
+          return df.format( new Date() );
+        }
+        else if ( "detected-sbus-mode".equals( aMacro ) )
+        {
+          return getDetectedSBUSModeName();
+        }
+        return null;
+      }
+    };
+  }
+
   /**
    * @return
    */
@@ -474,10 +560,9 @@ public final class SBUSProtocolAnalysisDialog extends BaseToolDialog<SBUSDataSet
   {
     final JPanel panTable = new JPanel( new GridLayout( 1, 1, 0, 0 ) );
 
-    this.outText = new JEditorPane( "text/html", getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.resultTable = new DataSetTable<SBUSData>( new SBUSDataTableModel(), getContext() );
 
-    panTable.add( new JScrollPane( this.outText ) );
+    panTable.add( this.resultTable );
 
     return panTable;
   }
@@ -509,26 +594,35 @@ public final class SBUSProtocolAnalysisDialog extends BaseToolDialog<SBUSDataSet
   }
 
   /**
-   * Generates an empty HTML page.
+   * Returns the display name of the detected SBUS mode.
    *
-   * @return String with HTML data.
+   * @return a display name, never <code>null</code>.
    */
-  private String getEmptyHtmlPage()
+  private String getDetectedSBUSModeName()
   {
-    final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-    return exporter.toString( new MacroResolver()
+    String result = "<unknown>";
+    switch ( this.detectedSBUSMode )
     {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
-      {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.FULL );
-          return df.format( new Date() );
-        }
-        return null;
-      }
-    } );
+      case LOW_SPEED:
+        result = "Low Speed";
+        break;
+      case HIGH_SPEED:
+        result = "High Speed";
+        break;
+      default:
+        break;
+    }
+    return result;
+  }
+
+  /**
+   * Returns a short summary of the analysis results.
+   *
+   * @return a summary, never <code>null</code>.
+   */
+  private String getSummary()
+  {
+    return "SBUS mode: ".concat( getDetectedSBUSModeName() );
   }
 
   /**
@@ -567,17 +661,21 @@ public final class SBUSProtocolAnalysisDialog extends BaseToolDialog<SBUSDataSet
    *
    * @param aFile
    *          File object
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private void storeToCsvFile( final File aFile, final SBUSDataSet aDataSet )
+  private void storeToCsvFile( final File aFile, final SBUSDataSet aDataSet ) throws IOException
   {
+    final ToolProgressListener progressListener = getProgressListener();
+    final CsvExporter exporter = ExportUtils.createCsvExporter( aFile );
+
     try
     {
-      final CsvExporter exporter = ExportUtils.createCsvExporter( aFile );
-
       exporter.setHeaders( "index", "start-time", "end-time", "event?", "event-type", "SBUS Data" );
 
       final List<SBUSData> decodedData = aDataSet.getData();
-      for ( int i = 0; i < decodedData.size(); i++ )
+      final int size = decodedData.size();
+      for ( int i = 0; i < size; i++ )
       {
         final SBUSData ds = decodedData.get( i );
 
@@ -586,18 +684,18 @@ public final class SBUSProtocolAnalysisDialog extends BaseToolDialog<SBUSDataSet
         final String sbusDataValue = ds.isSbusData() ? Integer.toString( ds.getDataValue() ) : null;
 
         exporter.addRow( Integer.valueOf( i ), startTime, endTime, Boolean.valueOf( ds.isEvent() ), ds.getEventName(),
-        		sbusDataValue );
-      }
+            sbusDataValue );
 
-      exporter.close();
+        if ( ( i % PROGRESS_INTERVAL ) == 0 )
+        {
+          progressListener.setProgress( NumberUtils.getPercentage( i, size ) );
+        }
+      }
     }
-    catch ( final IOException exception )
+    finally
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        LOG.log( Level.WARNING, "CSV export failed!", exception );
-      }
+      exporter.close();
+      progressListener.setProgress( 100 );
     }
   }
 
@@ -606,148 +704,94 @@ public final class SBUSProtocolAnalysisDialog extends BaseToolDialog<SBUSDataSet
    *
    * @param aFile
    *          file object
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private void storeToHtmlFile( final File aFile, final SBUSDataSet aDataSet )
+  private void storeToHtmlFile( final File aFile, final SBUSDataSet aDataSet ) throws IOException
   {
+    final HtmlExporter template = createHtmlTemplate( ExportUtils.createHtmlExporter() );
+    final HtmlReportWriter writer = ExportUtils.createHtmlReportWriter( aFile, template, "decoded-data",
+        createMacroResolver() );
+
     try
     {
-      toHtmlPage( aFile, aDataSet );
+      writeDecodedData( writer, aDataSet, getProgressListener() );
     }
-    catch ( final IOException exception )
+    finally
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        LOG.log( Level.WARNING, "HTML export failed!", exception );
-      }
+      writer.close();
     }
   }
 
   /**
-   * generate a HTML page
+   * Writes the decoded data as table rows to the given report writer.
    *
+   * @param aWriter
+   *          the report writer to write the rows to, cannot be
+   *          <code>null</code>;
    * @param aDataSet
-   *          the data set to create the HTML page for, cannot be
+   *          the data set to write, cannot be <code>null</code>;
+   * @param aProgressListener
+   *          the progress listener to report the progress to, cannot be
    *          <code>null</code>.
-   * @return String with HTML data
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private String toHtmlPage( final File aFile, final SBUSDataSet aDataSet ) throws IOException
+  private void writeDecodedData( final HtmlReportWriter aWriter, final SBUSDataSet aDataSet, final ToolProgressListener aProgressListener ) throws IOException
   {
-    final int bitCount = 12; //= Integer.parseInt( ( String )this.bits.getSelectedItem() );
-    final int bitAdder = ( ( bitCount % 4 ) != 0 ) ? 1 : 0;
-    final int hexPerByte = bitCount/4 + bitAdder;
+    final List<SBUSData> decodedData = aDataSet.getData();
+    final int size = decodedData.size();
 
-    final MacroResolver macroResolver = new MacroResolver()
+    int i = 0;
+    while ( i < size )
     {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
+      final SBUSData ds = decodedData.get( i );
+
+      if ( ds.isEvent() )
       {
-        if ( "date-now".equals( aMacro ) )
+        // unknown event
+        String bgColor = "#728FCE";
+        String eventName = ds.getEventName();
+        if ( eventName.equals( "FRAME LOST" ) )
         {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.FULL );
-          return df.format( new Date() );
+          bgColor = "#F75D59";
         }
-        else if ( "detected-sbus-mode".equals( aMacro ) )
-        {
-          String result = "<unknown>";
-          switch ( SBUSProtocolAnalysisDialog.this.detectedSBUSMode )
-          {
-            case LOW_SPEED:
-              result = "Low Speed";
-              break;
-            case HIGH_SPEED:
-              result = "High Speed";
-              break;
-            default:
-              break;
-          }
-          return result;
-        }
-        else if ( "decoded-data".equals( aMacro ) )
-        {
-          final List<SBUSData> decodedData = aDataSet.getData();
-          Element tr;
 
-          for ( int i = 0; i < decodedData.size(); i++ )
+        aWriter.writeRow( "background-color: " + bgColor + ";", EVENT_COL_SPANS, String.valueOf( i ),
+            Unit.Time.format( aDataSet.getTime( ds.getStartSampleIndex() ) ), eventName, ds.getDataString() );
+      }
+      else if ( ds.isData() )
+      {
+        final int sampleIdx = ds.getStartSampleIndex();
+        final String index = String.valueOf( i );
+
+        int dataValue = ds.isSbusData() ? ds.getDataValue() : 0;
+
+        // Try to coalesce equal timestamps...
+        if ( ( i + 1 ) < size )
+        {
+          final SBUSData nextDS = decodedData.get( i + 1 );
+          if ( nextDS.getStartSampleIndex() == sampleIdx )
           {
-            final SBUSData ds = decodedData.get( i );
-
-            if ( ds.isEvent() )
-            {
-            	// unknown event
-            	String bgColor = "#728FCE";
-            	String eventName = ds.getEventName();
-            	if ( eventName.equals( "FRAME LOST" ))
-            	{
-            	  bgColor = "#F75D59";
-            	}
-
-              tr = aParent.addChild( TR ).addAttribute( "style", "background-color: " + bgColor + ";" );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( Unit.Time.format( aDataSet.getTime( ds.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( eventName );
-              tr.addChild( TD ).addAttribute( "colspan", "3" ).addContent( ds.getDataString() );
-//            tr.addChild( TD );
-//            tr.addChild( TD );
-
-            }
-            else if ( ds.isData() )
-            {
-              final int sampleIdx = ds.getStartSampleIndex();
-
-              tr = aParent.addChild( TR );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( Unit.Time.format( aDataSet.getTime( sampleIdx ) ) );
-
-              int dataValue = ds.isSbusData() ? ds.getDataValue() : 0;
-
-              // Try to coalesce equal timestamps...
-              if ( ( i + 1 ) < decodedData.size() )
-              {
-                final SBUSData nextDS = decodedData.get( i + 1 );
-                if ( nextDS.getStartSampleIndex() == sampleIdx )
-                {
-                  dataValue = nextDS.isSbusData() ? nextDS.getDataValue() : dataValue;
-                  // Make sure to skip this DS in the next iteration...
-                  i++;
-                }
-              }
-              // MOSI value first, MISO value next...
-              addDataValues( tr, i, sampleIdx, dataValue );
-            }
+            dataValue = nextDS.isSbusData() ? nextDS.getDataValue() : dataValue;
+            // Make sure to skip this DS in the next iteration...
+            i++;
           }
         }
 
-        return null;
+        aWriter.writeRow( null /* aStyle */, index, Unit.Time.format( aDataSet.getTime( sampleIdx ) ),
+            "0x".concat( integerToHexString( dataValue, HEX_DIGITS ) ),
+            "0b".concat( integerToBinString( dataValue, BIT_COUNT ) ), String.valueOf( dataValue ), toASCII( dataValue ) );
       }
 
-      /**
-       * @param aTableRow
-       * @param aIdx
-       * @param aSampleIdx
-       * @param aValue
-       */
-      private void addDataValues( final Element aTableRow, final int aIdx, final int aSampleIdx, final int aValue )
+      if ( ( i % PROGRESS_INTERVAL ) == 0 )
       {
-        aTableRow.addChild( TD ).addContent( "0x", integerToHexString( aValue, hexPerByte ) );
-        aTableRow.addChild( TD ).addContent( "0b", integerToBinString( aValue, bitCount ) );
-        aTableRow.addChild( TD ).addContent( String.valueOf( aValue ) );
-        aTableRow.addChild( TD ).addContent( toASCII( aValue ) );
+        aProgressListener.setProgress( NumberUtils.getPercentage( i, size ) );
       }
-    };
 
-    if ( aFile == null )
-    {
-      final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-      return exporter.toString( macroResolver );
-    }
-    else
-    {
-      final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
-      exporter.write( macroResolver );
-      exporter.close();
+      i++;
     }
 
-    return null;
+    aProgressListener.setProgress( 100 );
   }
 }
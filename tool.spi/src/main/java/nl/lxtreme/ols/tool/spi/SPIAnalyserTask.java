@@ -21,8 +21,6 @@
 package nl.lxtreme.ols.tool.spi;
 
 
-import static nl.lxtreme.ols.util.NumberUtils.*;
-
 import java.beans.*;
 import java.util.logging.*;
 
@@ -30,8 +28,8 @@ import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
 import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.tool.base.annotation.*;
-import nl.lxtreme.ols.util.*;
 import nl.lxtreme.ols.util.NumberUtils.BitOrder;
 import nl.lxtreme.ols.util.analysis.*;
 
@@ -51,7 +49,7 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
 
   private final ToolContext context;
   private final ToolProgressListener progressListener;
-  private final AnnotationListener annotationListener;
+  private final BufferedAnnotationListener annotationListener;
   private final PropertyChangeSupport pcs;
 
   private int csIdx;
@@ -81,7 +79,8 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
   {
     this.context = aContext;
     this.progressListener = aProgressListener;
-    this.annotationListener = aAnnotationListener;
+    // Publish the annotations in blocks, instead of one by one...
+    this.annotationListener = new BufferedAnnotationListener( aAnnotationListener );
 
     this.pcs = new PropertyChangeSupport( this );
 
@@ -134,29 +133,59 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
       throw new IllegalStateException( "No CS start-condition found!" );
     }
 
-    // Initialize the channel labels + clear any existing annotations...
-    prepareResults();
-
-    if ( ( this.spiMode == null ) || ( this.spiMode == SPIMode.AUTODETECT ) )
+    try
     {
-      LOG.log( Level.INFO, "Detecting which SPI mode is most probably used..." );
-      this.spiMode = detectSPIMode( startOfDecode, endOfDecode );
-    }
+      // Initialize the channel labels + clear any existing annotations...
+      prepareResults();
+
+      if ( ( this.spiMode == null ) || ( this.spiMode == SPIMode.AUTODETECT ) )
+      {
+        LOG.log( Level.INFO, "Detecting which SPI mode is most probably used..." );
+        this.spiMode = detectSPIMode( startOfDecode, endOfDecode );
+      }
 
-    // Notify any listeners of the detected mode...
-    this.pcs.firePropertyChange( PROPERTY_AUTO_DETECT_MODE, null, this.spiMode );
+      // Notify any listeners of the detected mode...
+      this.pcs.firePropertyChange( PROPERTY_AUTO_DETECT_MODE, null, this.spiMode );
 
-    final SPIDataSet decodedData = new SPIDataSet( startOfDecode, endOfDecode, this.context.getData() );
-    if ( slaveSelected >= 0 )
-    {
-      // now the trigger is in b, add trigger event to table
-      reportCsLow( decodedData, slaveSelected );
-    }
+      final AcquisitionResult data = this.context.getData();
 
-    // Perform the actual decoding of the data line(s)...
-    clockDataOnEdge( decodedData, this.spiMode, slaveSelected );
+      final SPIDataSet decodedData = new SPIDataSet( startOfDecode, endOfDecode, data );
 
-    return decodedData;
+      // Start decoding at the slave-select, if it lies after the first cursor...
+      final int firstSampleIdx = Math.max( slaveSelected, decodedData.getStartOfDecode() );
+
+      final SPITransitionDecoder decoder = new SPITransitionDecoder( decodedData, this.annotationListener,
+          this.spiMode, firstSampleIdx );
+      decoder.setBitCount( this.bitCount );
+      decoder.setCSIndex( this.csIdx );
+      decoder.setSCKIndex( this.sckIdx );
+      decoder.setIO0Index( this.mosiIdx );
+      decoder.setIO1Index( this.misoIdx );
+      decoder.setIO2Index( this.io2Idx );
+      decoder.setIO3Index( this.io3Idx );
+      decoder.setOrder( this.bitOrder );
+      decoder.setProtocol( this.protocol );
+      decoder.setReportCS( this.reportCS );
+      decoder.setHonourCS( this.honourCS );
+      decoder.setInvertCS( this.invertCS );
+
+      if ( slaveSelected >= 0 )
+      {
+        // now the trigger is in b, add trigger event to table
+        decoder.reportCsLow( slaveSelected );
+      }
+
+      // Perform the actual decoding of the data line(s)...
+      TransitionDecoderUtils.feed( decoder, data, firstSampleIdx, decodedData.getEndOfDecode(),
+          this.progressListener );
+
+      return decodedData;
+    }
+    finally
+    {
+      // Publish the last block of annotations, even if the decoding failed...
+      this.annotationListener.flush();
+    }
   }
 
   /**
@@ -317,194 +346,6 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
     this.spiMode = aMode;
   }
 
-  /**
-   * Decodes the SPI-data on a given clock edge.
-   * 
-   * @param aDataSet
-   *          the decoded data to fill;
-   * @param aMode
-   *          the SPI mode defining the edges on which data can be sampled and
-   *          on which edges data can change.
-   */
-  private void clockDataOnEdge( final SPIDataSet aDataSet, final SPIMode aMode, final int aSlaveSelectedIdx )
-  {
-    final AcquisitionResult data = this.context.getData();
-
-    final int[] values = data.getValues();
-
-    final int startOfDecode = Math.max( aSlaveSelectedIdx, aDataSet.getStartOfDecode() );
-    final int endOfDecode = aDataSet.getEndOfDecode();
-
-    final int mosiMask = ( 1 << this.mosiIdx ); // IO0
-    final int misoMask = ( 1 << this.misoIdx ); // IO1
-    final int io2Mask = ( 1 << this.io2Idx );
-    final int io3Mask = ( 1 << this.io3Idx );
-    final int sckMask = ( 1 << this.sckIdx );
-    final int csMask = ( 1 << this.csIdx );
-
-    // scanning for falling/rising clk edges
-    int oldSckValue = ( values[startOfDecode] & sckMask );
-    int oldCsValue = ( values[startOfDecode] & csMask );
-
-    boolean slaveSelected = true;
-    int dataStartIdx = startOfDecode;
-
-    int bitIdx = this.bitCount;
-
-    final int clockEdgeCount = ( this.bitCount + 1 ) * 2;
-    int clockEdgeIdx = 0;
-
-    int misovalue = 0;
-    int mosivalue = 0;
-
-    for ( int idx = startOfDecode + 1; idx < endOfDecode; idx++ )
-    {
-      final int dataSample = values[idx];
-      /* CLK edge detection */
-      final int sckValue = ( dataSample & sckMask );
-      /* CS edge detection */
-      final int csValue = ( dataSample & csMask );
-
-      final Edge slaveSelectEdge = Edge.toEdge( oldCsValue, csValue );
-      oldCsValue = csValue;
-
-      if ( slaveSelectEdge.isFalling() )
-      {
-        reportCsLow( aDataSet, idx );
-
-        slaveSelected = !this.invertCS;
-      }
-      else if ( slaveSelectEdge.isRising() )
-      {
-        reportCsHigh( aDataSet, idx );
-
-        slaveSelected = this.invertCS;
-        // it could be that we're waiting until a next clock cycle comes along;
-        // however, the /CS signal might be going up before that cycle actually
-        // comes...
-        if ( bitIdx <= 0 )
-        {
-          // Full datagram decoded...
-          reportData( aDataSet, dataStartIdx, idx, mosivalue, misovalue );
-
-          bitIdx = this.bitCount;
-          misovalue = 0;
-          mosivalue = 0;
-        }
-      }
-
-      if ( this.honourCS && !slaveSelected )
-      {
-        // We should honour the slave-select, but the slave isn't
-        // currently selected...
-        continue;
-      }
-
-      final Edge clockEdge = Edge.toEdge( oldSckValue, sckValue );
-      oldSckValue = sckValue;
-
-      final boolean sampleEdgeSeen;
-      if ( clockEdge.isRising() || clockEdge.isFalling() )
-      {
-        clockEdgeIdx = ( clockEdgeIdx + 1 ) % clockEdgeCount;
-        // When CPHA is '1', we should sample at the even numbered clock edges,
-        // when CPHA is '0' we should sample at the odd numbered clock edges...
-        sampleEdgeSeen = ( ( clockEdgeIdx + aMode.getCPHA() ) % 2 ) != 0;
-
-        // First clock edge we've seen? If so, we should keep this index as our
-        // start of data index...
-        if ( sampleEdgeSeen && ( bitIdx == this.bitCount ) )
-        {
-          dataStartIdx = idx;
-        }
-
-        LOG.log( Level.FINE, "Clock edge: {0}, idx: {1}, sample? {2}", //
-            new Object[] { clockEdge, Integer.valueOf( clockEdgeIdx ), Boolean.valueOf( sampleEdgeSeen ) } );
-      }
-      else
-      {
-        // Only actual clock edges should be taken into account...
-        sampleEdgeSeen = false;
-      }
-
-      if ( sampleEdgeSeen )
-      {
-        if ( SPIFIMode.STANDARD.equals( this.protocol ) )
-        {
-          // sample MiSo here; always MSB first, perform conversion later on...
-          if ( ( this.misoIdx >= 0 ) && ( ( dataSample & misoMask ) != 0 ) )
-          {
-            misovalue |= ( 1 << bitIdx );
-          }
-          // sample MoSi here; always MSB first, perform conversion later on...
-          if ( ( this.mosiIdx >= 0 ) && ( ( dataSample & mosiMask ) != 0 ) )
-          {
-            mosivalue |= ( 1 << bitIdx );
-          }
-
-          if ( bitIdx >= 0 )
-          {
-            bitIdx--;
-          }
-        }
-        else if ( SPIFIMode.DUAL.equals( this.protocol ) )
-        {
-          // Sample both MOSI/IO0 & MISO/IO1 here; they form two bits of our
-          // symbol; we do MSB first, as the decoded symbol will be corrected
-          // later on...
-          if ( ( dataSample & misoMask ) != 0 )
-          {
-            mosivalue |= ( 1 << bitIdx );
-          }
-          bitIdx--;
-          if ( ( dataSample & mosiMask ) != 0 )
-          {
-            mosivalue |= ( 1 << bitIdx );
-          }
-          bitIdx--;
-        }
-        else if ( SPIFIMode.QUAD.equals( this.protocol ) )
-        {
-          // Sample both MOSI/IO0, MISO/IO1, IO2 & IO3 here; they form four bits
-          // of our symbol; we do MSB first, as the decoded symbol will be
-          // corrected later on...
-          if ( ( dataSample & io3Mask ) != 0 )
-          {
-            mosivalue |= ( 1 << bitIdx );
-          }
-          bitIdx--;
-          if ( ( dataSample & io2Mask ) != 0 )
-          {
-            mosivalue |= ( 1 << bitIdx );
-          }
-          bitIdx--;
-          if ( ( dataSample & misoMask ) != 0 )
-          {
-            mosivalue |= ( 1 << bitIdx );
-          }
-          bitIdx--;
-          if ( ( dataSample & mosiMask ) != 0 )
-          {
-            mosivalue |= ( 1 << bitIdx );
-          }
-          bitIdx--;
-        }
-
-        if ( bitIdx < 0 )
-        {
-          // Full datagram decoded...
-          reportData( aDataSet, dataStartIdx, idx, mosivalue, misovalue );
-
-          bitIdx = this.bitCount;
-          misovalue = 0;
-          mosivalue = 0;
-        }
-      }
-
-      this.progressListener.setProgress( getPercentage( idx, startOfDecode, endOfDecode ) );
-    }
-  }
-
   /**
    * Tries the detect what the clock polarity of the contained data values is.
    * Based on this we can make a "educated" guess what SPI mode should be used
@@ -595,113 +436,6 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
     }
   }
 
-  /**
-   * Reports a slave-select low->high transition, effectively causing the slave
-   * to be no longer selected.
-   * 
-   * @param aDecodedData
-   *          the data set to add the event to;
-   * @param aIndex
-   *          the sample index on which the event occurred.
-   */
-  private void reportCsHigh( final SPIDataSet aDecodedData, final int aIndex )
-  {
-    if ( this.reportCS )
-    {
-      aDecodedData.reportCSHigh( this.csIdx, aIndex );
-    }
-  }
-
-  /**
-   * Reports a slave-select high->low transition, effectively causing the slave
-   * to be selected.
-   * 
-   * @param aDecodedData
-   *          the data set to add the event to;
-   * @param aIndex
-   *          the sample index on which the event occurred.
-   */
-  private void reportCsLow( final SPIDataSet aDecodedData, final int aIndex )
-  {
-    if ( this.reportCS )
-    {
-      aDecodedData.reportCSLow( this.csIdx, aIndex );
-    }
-  }
-
-  /**
-   * Reports a set of data-bytes (both MISO and MOSI).
-   * 
-   * @param aDecodedData
-   *          the data set to add the data event(s) to;
-   * @param aStartIdx
-   *          the starting sample index on which the data started;
-   * @param aEndIdx
-   *          the ending sample index on which the data ended;
-   * @param aMosiValue
-   *          the MOSI data value;
-   * @param aMisoValue
-   *          the MISO data value.
-   */
-  private void reportData( final SPIDataSet aDecodedData, final int aStartIdx, final int aEndIdx, final int aMosiValue,
-      final int aMisoValue )
-  {
-    long[] timestamps = this.context.getData().getTimestamps();
-
-    if ( SPIFIMode.STANDARD.equals( this.protocol ) )
-    {
-      if ( this.mosiIdx >= 0 )
-      {
-        // Perform bit-order conversion on the full byte...
-        final int mosivalue = NumberUtils.convertBitOrder( aMosiValue, ( this.bitCount + 1 ), this.bitOrder );
-
-        String formatSpec = "0x%1$X";
-        if ( Character.isLetterOrDigit( mosivalue ) )
-        {
-          formatSpec = formatSpec.concat( " (%1$c)" );
-        }
-
-        this.annotationListener.onAnnotation( new SampleDataAnnotation( this.mosiIdx, timestamps[aStartIdx],
-            timestamps[aEndIdx], String.format( formatSpec, Integer.valueOf( mosivalue ) ) ) );
-
-        aDecodedData.reportMosiData( this.mosiIdx, aStartIdx, aEndIdx, mosivalue );
-      }
-
-      if ( this.misoIdx >= 0 )
-      {
-        // Perform bit-order conversion on the full byte...
-        final int misovalue = NumberUtils.convertBitOrder( aMisoValue, ( this.bitCount + 1 ), this.bitOrder );
-
-        String formatSpec = "0x%1$X";
-        if ( Character.isLetterOrDigit( misovalue ) )
-        {
-          formatSpec = formatSpec.concat( " (%1$c)" );
-        }
-
-        this.annotationListener.onAnnotation( new SampleDataAnnotation( this.misoIdx, timestamps[aStartIdx],
-            timestamps[aEndIdx], String.format( formatSpec, Integer.valueOf( misovalue ) ) ) );
-
-        aDecodedData.reportMisoData( this.misoIdx, aStartIdx, aEndIdx, misovalue );
-      }
-    }
-    else
-    {
-      // Perform bit-order conversion on the full byte...
-      final int mosivalue = NumberUtils.convertBitOrder( aMosiValue, ( this.bitCount + 1 ), this.bitOrder );
-
-      String formatSpec = "0x%1$X";
-      if ( Character.isLetterOrDigit( mosivalue ) )
-      {
-        formatSpec = formatSpec.concat( " (%1$c)" );
-      }
-
-      this.annotationListener.onAnnotation( new SampleDataAnnotation( this.mosiIdx, timestamps[aStartIdx],
-          timestamps[aEndIdx], String.format( formatSpec, Integer.valueOf( mosivalue ) ) ) );
-
-      aDecodedData.reportMosiData( this.mosiIdx, aStartIdx, aEndIdx, mosivalue );
-    }
-  }
-
   /**
    * @param aSampleIndex
    * @param aI
@@ -28,7 +28,7 @@ import nl.lxtreme.ols.api.data.*;
 /**
  * @author jajans
  */
-public final class SPIDataSet extends BaseDataSet<SPIData>
+public final class SPIDataSet extends CompactDataSet<SPIData>
 {
   // CONSTANTS
 
@@ -39,6 +39,10 @@ public final class SPIDataSet extends BaseDataSet<SPIData>
   public static final String SPI_SCK = "SCK";
   public static final String SPI_CS = "/CS";
 
+  /** Attribute values used to denote the kind of compactly stored data. */
+  private static final int MISO_DATA = 1;
+  private static final int MOSI_DATA = 2;
+
   // CONSTRUCTORS
 
   /**
@@ -56,8 +60,7 @@ public final class SPIDataSet extends BaseDataSet<SPIData>
    */
   public void reportCSHigh( final int aChannelIdx, final int aSampleIdx )
   {
-    final int idx = size();
-    addData( new SPIData( idx, aChannelIdx, SPI_CS_HIGH, aSampleIdx ) );
+    addData( aChannelIdx, aSampleIdx, aSampleIdx, 0, SPI_CS_HIGH, 0 );
   }
 
   /**
@@ -65,8 +68,7 @@ public final class SPIDataSet extends BaseDataSet<SPIData>
    */
   public void reportCSLow( final int aChannelIdx, final int aSampleIdx )
   {
-    final int idx = size();
-    addData( new SPIData( idx, aChannelIdx, SPI_CS_LOW, aSampleIdx ) );
+    addData( aChannelIdx, aSampleIdx, aSampleIdx, 0, SPI_CS_LOW, 0 );
   }
 
   /**
@@ -74,8 +76,7 @@ public final class SPIDataSet extends BaseDataSet<SPIData>
    */
   public void reportMisoData( final int aChannelIdx, final int aStartIdx, final int aEndIdx, final int aDataValue )
   {
-    final int idx = size();
-    addData( new SPIData( idx, aChannelIdx, SPI_MISO, aDataValue, aStartIdx, aEndIdx ) );
+    addData( aChannelIdx, aStartIdx, aEndIdx, aDataValue, null, MISO_DATA );
   }
 
   /**
@@ -83,7 +84,21 @@ public final class SPIDataSet extends BaseDataSet<SPIData>
    */
   public void reportMosiData( final int aChannelIdx, final int aStartIdx, final int aEndIdx, final int aDataValue )
   {
-    final int idx = size();
-    addData( new SPIData( idx, aChannelIdx, SPI_MOSI, aDataValue, aStartIdx, aEndIdx ) );
+    addData( aChannelIdx, aStartIdx, aEndIdx, aDataValue, null, MOSI_DATA );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected SPIData createData( final int aIdx, final int aChannelIdx, final int aStartSampleIdx,
+      final int aEndSampleIdx, final int aValue, final String aEventName, final int aAttribute )
+  {
+    if ( aEventName != null )
+    {
+      return new SPIData( aIdx, aChannelIdx, aEventName, aStartSampleIdx );
+    }
+    final String dataName = ( aAttribute == MISO_DATA ) ? SPI_MISO : SPI_MOSI;
+    return new SPIData( aIdx, aChannelIdx, dataName, aValue, aStartSampleIdx, aEndSampleIdx );
   }
 }
@@ -46,7 +46,7 @@ import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
-import nl.lxtreme.ols.util.ExportUtils.HtmlFileExporter;
+import nl.lxtreme.ols.util.ExportUtils.HtmlReportWriter;
 import nl.lxtreme.ols.util.NumberUtils.BitOrder;
 import nl.lxtreme.ols.util.swing.*;
 import nl.lxtreme.ols.util.swing.component.*;
@@ -181,12 +181,112 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
     }
   }
 
+  /**
+   * Provides a lazy table model for the decoded SPI data.
+   */
+  final class SPIDataTableModel extends DataSetTableModel<SPIData>
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // VARIABLES
+
+    private volatile int bitCount = 8;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link SPIDataTableModel} instance.
+     */
+    public SPIDataTableModel()
+    {
+      super( "MOSI Hex", "MOSI Bin", "MOSI Dec", "MOSI ASCII", "MISO Hex", "MISO Bin", "MISO Dec", "MISO ASCII" );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Color getRowBackground( final int aRowIndex )
+    {
+      final SPIData ds = getData( aRowIndex );
+      if ( !ds.isEvent() )
+      {
+        return null;
+      }
+      if ( SPIDataSet.SPI_CS_LOW.equals( ds.getEventName() ) )
+      {
+        return CS_LOW_ROW_COLOR;
+      }
+      else if ( SPIDataSet.SPI_CS_HIGH.equals( ds.getEventName() ) )
+      {
+        return CS_HIGH_ROW_COLOR;
+      }
+      // unknown event
+      return ERROR_ROW_COLOR;
+    }
+
+    /**
+     * Sets the number of data bits of the shown data.
+     *
+     * @param aBitCount
+     *          the number of data bits, > 0.
+     */
+    public void setBitCount( final int aBitCount )
+    {
+      this.bitCount = aBitCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object getValueAt( final SPIData aData, final int aColumnIndex )
+    {
+      // Columns 0..3 are for MOSI, 4..7 for MISO...
+      final boolean mosiColumn = ( aColumnIndex < 4 );
+
+      if ( aData.isEvent() )
+      {
+        return ( ( aColumnIndex % 4 ) == 0 ) ? aData.getEventName() : null;
+      }
+      if ( !aData.isData() || ( mosiColumn ? !aData.isMosiData() : !aData.isMisoData() ) )
+      {
+        return null;
+      }
+
+      final int value = aData.getDataValue();
+      final int bits = this.bitCount;
+      switch ( aColumnIndex % 4 )
+      {
+        case 0:
+          return "0x".concat( integerToHexString( value, ( bits + 3 ) / 4 ) );
+        case 1:
+          return "0b".concat( integerToBinString( value, bits ) );
+        case 2:
+          return Integer.valueOf( value );
+        default:
+          return toASCII( value );
+      }
+    }
+  }
+
   // CONSTANTS
 
   private static final long serialVersionUID = 1L;
 
   private static final Logger LOG = Logger.getLogger( SPIProtocolAnalysisDialog.class.getName() );
 
+  private static final Color CS_LOW_ROW_COLOR = new Color( 0xc0ffc0 );
+  private static final Color CS_HIGH_ROW_COLOR = new Color( 0xe0e0e0 );
+  private static final Color ERROR_ROW_COLOR = new Color( 0xff8000 );
+
+  /** The number of rows after which the export progress is reported. */
+  private static final int PROGRESS_INTERVAL = 1024;
+
   // VARIABLES
 
   private JLabel misoLabel;
@@ -204,7 +304,7 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
   private JComboBox bits;
   private JComboBox order;
   private JComboBox spifiMode;
-  private JEditorPane outText;
+  private DataSetTable<SPIData> resultTable;
   private JCheckBox reportCS;
   private JCheckBox honourCS;
   private JCheckBox invertCS;
@@ -313,8 +413,8 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
   @Override
   public void reset()
   {
-    this.outText.setText( getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.resultTable.setDataSet( null );
+    this.resultTable.setSummary( null );
 
     this.runAnalysisAction.restore();
 
@@ -382,40 +482,30 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
     this.io3.setEnabled( enabled );
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean isResultCacheable()
+  {
+    return true;
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   protected void onToolEnded( final SPIDataSet aAnalysisResult )
   {
-    try
-    {
-      final String htmlPage;
-      if ( aAnalysisResult != null )
-      {
-        htmlPage = toHtmlPage( null /* aFile */, aAnalysisResult );
-        this.exportAction.setEnabled( !aAnalysisResult.isEmpty() );
-      }
-      else
-      {
-        htmlPage = getEmptyHtmlPage();
-        this.exportAction.setEnabled( false );
-      }
+    final SPIDataTableModel model = ( SPIDataTableModel )this.resultTable.getModel();
+    model.setBitCount( Integer.parseInt( ( String )this.bits.getSelectedItem() ) );
 
-      this.outText.setText( htmlPage );
-      this.outText.setEditable( false );
+    this.resultTable.setDataSet( aAnalysisResult );
+    this.resultTable.setSummary( ( aAnalysisResult == null ) ? null : getSummary() );
 
-      this.runAnalysisAction.restore();
-    }
-    catch ( final IOException exception )
-    {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        // Should not happen in this situation!
-        throw new RuntimeException( exception );
-      }
-    }
+    this.exportAction.setEnabled( ( aAnalysisResult != null ) && !aAnalysisResult.isEmpty() );
+
+    this.runAnalysisAction.restore();
   }
 
   /**
@@ -609,6 +699,32 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
     return aExporter;
   }
 
+  /**
+   * Creates the macro resolver for the statistics of the analysis results.
+   *
+   * @return a macro resolver, never <code>null</code>.
+   */
+  private MacroResolver createMacroResolver()
+  {
+    return new MacroResolver()
+    {
+      @Override
+      public Object resolve( final String aMacro, final Element aParent )
+      {
+        if ( "date-now".equals( aMacro ) )
+        {
+          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
+          return df.format( new Date() );
+        }
+        else if ( "detected-spi-mode".equals( aMacro ) )
+        {
+          return getDetectedSPIModeName();
+        }
+        return null;
+      }
+    };
+  }
+
   /**
    * @return
    */
@@ -616,10 +732,9 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
   {
     final JPanel panTable = new JPanel( new GridLayout( 1, 1, 0, 0 ) );
 
-    this.outText = new JEditorPane( "text/html", getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.resultTable = new DataSetTable<SPIData>( new SPIDataTableModel(), getContext() );
 
-    panTable.add( new JScrollPane( this.outText ) );
+    panTable.add( this.resultTable );
 
     return panTable;
   }
@@ -732,26 +847,41 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
   }
 
   /**
-   * Generates an empty HTML page.
+   * Returns a description of the detected SPI mode.
    *
-   * @return String with HTML data.
+   * @return a SPI mode description, never <code>null</code>.
    */
-  private String getEmptyHtmlPage()
+  private String getDetectedSPIModeName()
   {
-    final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-    return exporter.toString( new MacroResolver()
+    String result = "<unknown>";
+    switch ( this.detectedSPIMode )
     {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
-      {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        return null;
-      }
-    } );
+      case MODE_0:
+        result = "Mode 0 (CPOL = 0, CPHA = 0)";
+        break;
+      case MODE_1:
+        result = "Mode 1 (CPOL = 0, CPHA = 1)";
+        break;
+      case MODE_2:
+        result = "Mode 2 (CPOL = 1, CPHA = 0)";
+        break;
+      case MODE_3:
+        result = "Mode 3 (CPOL = 1, CPHA = 1)";
+        break;
+      default:
+        break;
+    }
+    return result;
+  }
+
+  /**
+   * Returns a short summary of the analysis results.
+   *
+   * @return a summary, never <code>null</code>.
+   */
+  private String getSummary()
+  {
+    return "SPI mode: ".concat( getDetectedSPIModeName() );
   }
 
   /**
@@ -790,17 +920,21 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
    *
    * @param aFile
    *          File object
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private void storeToCsvFile( final File aFile, final SPIDataSet aDataSet )
+  private void storeToCsvFile( final File aFile, final SPIDataSet aDataSet ) throws IOException
   {
+    final ToolProgressListener progressListener = getProgressListener();
+    final CsvExporter exporter = ExportUtils.createCsvExporter( aFile );
+
     try
     {
-      final CsvExporter exporter = ExportUtils.createCsvExporter( aFile );
-
       exporter.setHeaders( "index", "start-time", "end-time", "event?", "event-type", "MOSI data", "MISO data" );
 
       final List<SPIData> decodedData = aDataSet.getData();
-      for ( int i = 0; i < decodedData.size(); i++ )
+      final int size = decodedData.size();
+      for ( int i = 0; i < size; i++ )
       {
         final SPIData ds = decodedData.get( i );
 
@@ -811,17 +945,17 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
 
         exporter.addRow( Integer.valueOf( i ), startTime, endTime, Boolean.valueOf( ds.isEvent() ), ds.getEventName(),
             mosiDataValue, misoDataValue );
-      }
 
-      exporter.close();
+        if ( ( i % PROGRESS_INTERVAL ) == 0 )
+        {
+          progressListener.setProgress( NumberUtils.getPercentage( i, size ) );
+        }
+      }
     }
-    catch ( final IOException exception )
+    finally
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        LOG.log( Level.WARNING, "CSV export failed!", exception );
-      }
+      exporter.close();
+      progressListener.setProgress( 100 );
     }
   }
 
@@ -830,175 +964,118 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
    *
    * @param aFile
    *          file object
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private void storeToHtmlFile( final File aFile, final SPIDataSet aDataSet )
+  private void storeToHtmlFile( final File aFile, final SPIDataSet aDataSet ) throws IOException
   {
+    final HtmlExporter template = createHtmlTemplate( ExportUtils.createHtmlExporter() );
+    final HtmlReportWriter writer = ExportUtils.createHtmlReportWriter( aFile, template, "decoded-data",
+        createMacroResolver() );
+
     try
     {
-      toHtmlPage( aFile, aDataSet );
+      writeDecodedData( writer, aDataSet, getProgressListener() );
     }
-    catch ( final IOException exception )
+    finally
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        LOG.log( Level.WARNING, "HTML export failed!", exception );
-      }
+      writer.close();
     }
   }
 
   /**
-   * generate a HTML page
+   * Writes the decoded data as table rows to the given report writer.
    *
+   * @param aWriter
+   *          the report writer to write the rows to, cannot be
+   *          <code>null</code>;
    * @param aDataSet
-   *          the data set to create the HTML page for, cannot be
+   *          the data set to write, cannot be <code>null</code>;
+   * @param aProgressListener
+   *          the progress listener to report the progress to, cannot be
    *          <code>null</code>.
-   * @return String with HTML data
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private String toHtmlPage( final File aFile, final SPIDataSet aDataSet ) throws IOException
+  private void writeDecodedData( final HtmlReportWriter aWriter, final SPIDataSet aDataSet, final ToolProgressListener aProgressListener ) throws IOException
   {
     final int bitCount = Integer.parseInt( ( String )this.bits.getSelectedItem() );
-    final int bitAdder = ( ( bitCount % 4 ) != 0 ) ? 1 : 0;
+    final int digits = ( bitCount / 4 ) + ( ( ( bitCount % 4 ) != 0 ) ? 1 : 0 );
+
+    final List<SPIData> decodedData = aDataSet.getData();
+    final int size = decodedData.size();
 
-    final MacroResolver macroResolver = new MacroResolver()
+    int i = 0;
+    while ( i < size )
     {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
+      final SPIData ds = decodedData.get( i );
+
+      if ( ds.isEvent() )
       {
-        if ( "date-now".equals( aMacro ) )
+        String event;
+        String bgColor;
+
+        // this is an event
+        if ( SPIDataSet.SPI_CS_LOW.equals( ds.getEventName() ) )
         {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
+          // start condition
+          event = ds.getEventName();
+          bgColor = "#c0ffc0";
         }
-        else if ( "detected-spi-mode".equals( aMacro ) )
+        else if ( SPIDataSet.SPI_CS_HIGH.equals( ds.getEventName() ) )
         {
-          String result = "<unknown>";
-          switch ( SPIProtocolAnalysisDialog.this.detectedSPIMode )
-          {
-            case MODE_0:
-              result = "Mode 0 (CPOL = 0, CPHA = 0)";
-              break;
-            case MODE_1:
-              result = "Mode 1 (CPOL = 0, CPHA = 1)";
-              break;
-            case MODE_2:
-              result = "Mode 2 (CPOL = 1, CPHA = 0)";
-              break;
-            case MODE_3:
-              result = "Mode 3 (CPOL = 1, CPHA = 1)";
-              break;
-            default:
-              break;
-          }
-          return result;
+          // stop condition
+          event = ds.getEventName();
+          bgColor = "#e0e0e0";
         }
-        else if ( "decoded-data".equals( aMacro ) )
+        else
         {
-          final List<SPIData> decodedData = aDataSet.getData();
-          Element tr;
+          // unknown event
+          event = "UNKNOWN";
+          bgColor = "#ff8000";
+        }
+
+        aWriter.writeRow( "background-color: " + bgColor + ";", String.valueOf( i ),
+            Unit.Time.format( aDataSet.getTime( ds.getStartSampleIndex() ) ), event, null, null, null, event, null,
+            null, null );
+      }
+      else if ( ds.isData() )
+      {
+        final int sampleIdx = ds.getStartSampleIndex();
+        final String index = String.valueOf( i );
 
-          for ( int i = 0; i < decodedData.size(); i++ )
+        int mosiValue = ds.isMosiData() ? ds.getDataValue() : 0;
+        int misoValue = ds.isMisoData() ? ds.getDataValue() : 0;
+
+        // Try to coalesce equal timestamps...
+        if ( ( i + 1 ) < size )
+        {
+          final SPIData nextDS = decodedData.get( i + 1 );
+          if ( nextDS.getStartSampleIndex() == sampleIdx )
           {
-            final SPIData ds = decodedData.get( i );
-
-            if ( ds.isEvent() )
-            {
-              String event;
-              String bgColor;
-
-              // this is an event
-              if ( SPIDataSet.SPI_CS_LOW.equals( ds.getEventName() ) )
-              {
-                // start condition
-                event = ds.getEventName();
-                bgColor = "#c0ffc0";
-              }
-              else if ( SPIDataSet.SPI_CS_HIGH.equals( ds.getEventName() ) )
-              {
-                // stop condition
-                event = ds.getEventName();
-                bgColor = "#e0e0e0";
-              }
-              else
-              {
-                // unknown event
-                event = "UNKNOWN";
-                bgColor = "#ff8000";
-              }
-
-              tr = aParent.addChild( TR ).addAttribute( "style", "background-color: " + bgColor + ";" );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( Unit.Time.format( aDataSet.getTime( ds.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( event );
-              tr.addChild( TD );
-              tr.addChild( TD );
-              tr.addChild( TD );
-              tr.addChild( TD ).addContent( event );
-              tr.addChild( TD );
-              tr.addChild( TD );
-              tr.addChild( TD );
-            }
-            else if ( ds.isData() )
-            {
-              final int sampleIdx = ds.getStartSampleIndex();
-
-              tr = aParent.addChild( TR );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( Unit.Time.format( aDataSet.getTime( sampleIdx ) ) );
-
-              int mosiValue = ds.isMosiData() ? ds.getDataValue() : 0;
-              int misoValue = ds.isMisoData() ? ds.getDataValue() : 0;
-
-              // Try to coalesce equal timestamps...
-              if ( ( i + 1 ) < decodedData.size() )
-              {
-                final SPIData nextDS = decodedData.get( i + 1 );
-                if ( nextDS.getStartSampleIndex() == sampleIdx )
-                {
-                  mosiValue = nextDS.isMosiData() ? nextDS.getDataValue() : mosiValue;
-                  misoValue = nextDS.isMisoData() ? nextDS.getDataValue() : misoValue;
-                  // Make sure to skip this DS in the next iteration...
-                  i++;
-                }
-              }
-
-              // MOSI value first, MISO value next...
-              addDataValues( tr, i, sampleIdx, mosiValue );
-              addDataValues( tr, i, sampleIdx, misoValue );
-            }
+            mosiValue = nextDS.isMosiData() ? nextDS.getDataValue() : mosiValue;
+            misoValue = nextDS.isMisoData() ? nextDS.getDataValue() : misoValue;
+            // Make sure to skip this DS in the next iteration...
+            i++;
           }
         }
 
-        return null;
+        // MOSI value first, MISO value next...
+        aWriter.writeRow( null /* aStyle */, index, Unit.Time.format( aDataSet.getTime( sampleIdx ) ),
+            "0x".concat( integerToHexString( mosiValue, digits ) ), "0b".concat( integerToBinString( mosiValue,
+                bitCount ) ), String.valueOf( mosiValue ), toASCII( mosiValue ),
+            "0x".concat( integerToHexString( misoValue, digits ) ), "0b".concat( integerToBinString( misoValue,
+                bitCount ) ), String.valueOf( misoValue ), toASCII( misoValue ) );
       }
 
-      /**
-       * @param aTableRow
-       * @param aIdx
-       * @param aSampleIdx
-       * @param aValue
-       */
-      private void addDataValues( final Element aTableRow, final int aIdx, final int aSampleIdx, final int aValue )
+      if ( ( i % PROGRESS_INTERVAL ) == 0 )
       {
-        aTableRow.addChild( TD ).addContent( "0x", integerToHexString( aValue, ( bitCount / 4 ) + bitAdder ) );
-        aTableRow.addChild( TD ).addContent( "0b", integerToBinString( aValue, bitCount ) );
-        aTableRow.addChild( TD ).addContent( String.valueOf( aValue ) );
-        aTableRow.addChild( TD ).addContent( toASCII( aValue ) );
+        aProgressListener.setProgress( NumberUtils.getPercentage( i, size ) );
       }
-    };
 
-    if ( aFile == null )
-    {
-      final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-      return exporter.toString( macroResolver );
-    }
-    else
-    {
-      final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
-      exporter.write( macroResolver );
-      exporter.close();
+      i++;
     }
 
-    return null;
+    aProgressListener.setProgress( 100 );
   }
 }
@@ -0,0 +1,544 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.spi;
+
+
+import java.util.logging.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.tool.base.annotation.*;
+import nl.lxtreme.ols.util.*;
+import nl.lxtreme.ols.util.NumberUtils.BitOrder;
+
+
+/**
+ * Provides a push-style SPI decoder, which decodes the transitions of the
+ * chip-select, clock and data lines as they are fed to it.
+ * <p>
+ * Data is sampled on the clock edges defined by the SPI mode, and reported
+ * once a full datagram is clocked in, or when the chip-select line is
+ * released after the last bit of a datagram.
+ * </p>
+ */
+public class SPITransitionDecoder implements TransitionDecoder
+{
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( SPITransitionDecoder.class.getName() );
+
+  // VARIABLES
+
+  private final SPIDataSet dataSet;
+  private final AnnotationListener annotationListener;
+  private final SPIMode spiMode;
+
+  private int csIdx;
+  private int sckIdx;
+  private SPIFIMode protocol;
+  private int bitCount;
+  private BitOrder bitOrder;
+  private boolean reportCS;
+  private boolean honourCS;
+  private boolean invertCS;
+  private int mosiIdx;
+  private int misoIdx;
+  private int io2Idx;
+  private int io3Idx;
+
+  private boolean initialized;
+  private int sampleIdx;
+  private int oldSckValue;
+  private int oldCsValue;
+  private boolean slaveSelected;
+  private int dataStartIdx;
+  private long dataStartTimestamp;
+  private int bitIdx;
+  private int clockEdgeIdx;
+  private int misoValue;
+  private int mosiValue;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SPITransitionDecoder instance.
+   * 
+   * @param aDataSet
+   *          the data set to report the decoded frames to, cannot be
+   *          <code>null</code>;
+   * @param aAnnotationListener
+   *          the annotation listener to report the annotations to, cannot be
+   *          <code>null</code>;
+   * @param aMode
+   *          the SPI mode defining the edges on which data can be sampled and
+   *          on which edges data can change, cannot be <code>null</code>;
+   * @param aFirstSampleIdx
+   *          the sample index of the first transition that will be fed to this
+   *          decoder.
+   */
+  public SPITransitionDecoder( final SPIDataSet aDataSet, final AnnotationListener aAnnotationListener,
+      final SPIMode aMode, final int aFirstSampleIdx )
+  {
+    this.dataSet = aDataSet;
+    this.annotationListener = aAnnotationListener;
+    this.spiMode = aMode;
+
+    this.misoIdx = -1;
+    this.mosiIdx = -1;
+    this.io2Idx = -1;
+    this.io3Idx = -1;
+    this.protocol = SPIFIMode.STANDARD;
+    this.bitOrder = BitOrder.MSB_FIRST;
+
+    this.initialized = false;
+    this.sampleIdx = aFirstSampleIdx;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void decode( final int[] aValues, final long[] aTimestamps, final int aOffset, final int aLength )
+  {
+    final int end = aOffset + aLength;
+    for ( int i = aOffset; i < end; i++, this.sampleIdx++ )
+    {
+      decode( aValues[i], aTimestamps[i] );
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void finish()
+  {
+    // Nothing to flush; an incomplete datagram at the end of the data is
+    // dropped...
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isDone()
+  {
+    // All transitions fed to this decoder are decoded...
+    return false;
+  }
+
+  /**
+   * Reports a slave-select high->low transition, for example, because it is
+   * detected prior to feeding the transitions to this decoder.
+   * 
+   * @param aSampleIdx
+   *          the sample index on which the event occurred.
+   */
+  public void reportCsLow( final int aSampleIdx )
+  {
+    if ( this.reportCS )
+    {
+      this.dataSet.reportCSLow( this.csIdx, aSampleIdx );
+    }
+  }
+
+  /**
+   * Sets the number of bits an SPI datagram should consist of.
+   * 
+   * @param aBitCount
+   *          the number of bits in a SPI datagram, >= 8.
+   */
+  public void setBitCount( final int aBitCount )
+  {
+    this.bitCount = aBitCount;
+  }
+
+  /**
+   * Sets the chip-select channel index.
+   * 
+   * @param aCsIndex
+   *          the index of the chip-select channel.
+   */
+  public void setCSIndex( final int aCsIndex )
+  {
+    this.csIdx = aCsIndex;
+  }
+
+  /**
+   * Sets whether or not chip-select should be honoured in the analysis.
+   * 
+   * @param aHonourCS
+   *          <code>true</code> to only decode data when the chip-select line is
+   *          low, <code>false</code> to decode all data.
+   */
+  public void setHonourCS( final boolean aHonourCS )
+  {
+    this.honourCS = aHonourCS;
+  }
+
+  /**
+   * Sets whether CS is default high, or default low.
+   * 
+   * @param aInvertCS
+   *          <code>true</code> if CS is default low, <code>false</code> if CS
+   *          is default high.
+   */
+  public void setInvertCS( final boolean aInvertCS )
+  {
+    this.invertCS = aInvertCS;
+  }
+
+  /**
+   * Sets the MOSI/IO0 channel index.
+   * 
+   * @param aIndex
+   *          the index of the "master-out slave-in"/IO0 channel.
+   */
+  public void setIO0Index( final int aIndex )
+  {
+    this.mosiIdx = aIndex;
+  }
+
+  /**
+   * Sets the MISO/IO1 channel index.
+   * 
+   * @param aIndex
+   *          the index of the "master-in slave-out"/IO1 channel.
+   */
+  public void setIO1Index( final int aIndex )
+  {
+    this.misoIdx = aIndex;
+  }
+
+  /**
+   * Sets the channel index for IO2 (used in QUAD SPI).
+   * 
+   * @param aIndex
+   *          the index of the IO2 channel.
+   */
+  public void setIO2Index( final int aIndex )
+  {
+    this.io2Idx = aIndex;
+  }
+
+  /**
+   * Sets the channel index for IO3 (used in QUAD SPI).
+   * 
+   * @param aIndex
+   *          the index of the IO3 channel.
+   */
+  public void setIO3Index( final int aIndex )
+  {
+    this.io3Idx = aIndex;
+  }
+
+  /**
+   * Sets the order in which bits in a SPI datagram are transmitted.
+   * 
+   * @param aOrder
+   *          the bit order to use, cannot be <code>null</code>.
+   */
+  public void setOrder( final BitOrder aOrder )
+  {
+    this.bitOrder = aOrder;
+  }
+
+  /**
+   * Sets which SPI protocol (i.e., standard, dual or quad) should be used.
+   * 
+   * @param aProtocol
+   *          the protocol to set, cannot be <code>null</code>.
+   */
+  public void setProtocol( final SPIFIMode aProtocol )
+  {
+    this.protocol = aProtocol;
+  }
+
+  /**
+   * Sets whether or not chip-select events should be reported.
+   * 
+   * @param aReportCS
+   *          <code>true</code> to include chip-select events in the analysis
+   *          result, <code>false</code> to exclude them.
+   */
+  public void setReportCS( final boolean aReportCS )
+  {
+    this.reportCS = aReportCS;
+  }
+
+  /**
+   * Sets the serial-clock channel index.
+   * 
+   * @param aSckIndex
+   *          the index of the "serial-clock" channel.
+   */
+  public void setSCKIndex( final int aSckIndex )
+  {
+    this.sckIdx = aSckIndex;
+  }
+
+  /**
+   * Annotates a single data value on the given channel.
+   * 
+   * @param aChannelIdx
+   *          the index of the channel to annotate;
+   * @param aValue
+   *          the sampled value, MSB first;
+   * @param aEndTimestamp
+   *          the timestamp at which the value ends.
+   * @return the value in the configured bit order.
+   */
+  private int annotateValue( final int aChannelIdx, final int aValue, final long aEndTimestamp )
+  {
+    // Perform bit-order conversion on the full byte...
+    final int value = NumberUtils.convertBitOrder( aValue, ( this.bitCount + 1 ), this.bitOrder );
+
+    String formatSpec = "0x%1$X";
+    if ( Character.isLetterOrDigit( value ) )
+    {
+      formatSpec = formatSpec.concat( " (%1$c)" );
+    }
+
+    this.annotationListener.onAnnotation( new SampleValueAnnotation( aChannelIdx, this.dataStartTimestamp,
+        aEndTimestamp, value, String.format( formatSpec, Integer.valueOf( value ) ) ) );
+
+    return value;
+  }
+
+  /**
+   * Decodes a single transition.
+   * 
+   * @param aValue
+   *          the sample value;
+   * @param aTimestamp
+   *          the timestamp of the sample.
+   */
+  private void decode( final int aValue, final long aTimestamp )
+  {
+    final int idx = this.sampleIdx;
+
+    final int sckMask = ( 1 << this.sckIdx );
+    final int csMask = ( 1 << this.csIdx );
+
+    /* CLK edge detection */
+    final int sckValue = ( aValue & sckMask );
+    /* CS edge detection */
+    final int csValue = ( aValue & csMask );
+
+    if ( !this.initialized )
+    {
+      // scanning for falling/rising clk edges
+      this.oldSckValue = sckValue;
+      this.oldCsValue = csValue;
+
+      this.slaveSelected = true;
+      this.dataStartIdx = idx;
+      this.dataStartTimestamp = aTimestamp;
+      this.bitIdx = this.bitCount;
+      this.clockEdgeIdx = 0;
+      this.misoValue = 0;
+      this.mosiValue = 0;
+
+      this.initialized = true;
+      return;
+    }
+
+    final Edge slaveSelectEdge = Edge.toEdge( this.oldCsValue, csValue );
+    this.oldCsValue = csValue;
+
+    if ( slaveSelectEdge.isFalling() )
+    {
+      reportCsLow( idx );
+
+      this.slaveSelected = !this.invertCS;
+    }
+    else if ( slaveSelectEdge.isRising() )
+    {
+      reportCsHigh( idx );
+
+      this.slaveSelected = this.invertCS;
+      // it could be that we're waiting until a next clock cycle comes along;
+      // however, the /CS signal might be going up before that cycle actually
+      // comes...
+      if ( this.bitIdx <= 0 )
+      {
+        // Full datagram decoded...
+        reportData( idx, aTimestamp );
+      }
+    }
+
+    if ( this.honourCS && !this.slaveSelected )
+    {
+      // We should honour the slave-select, but the slave isn't
+      // currently selected...
+      return;
+    }
+
+    final Edge clockEdge = Edge.toEdge( this.oldSckValue, sckValue );
+    this.oldSckValue = sckValue;
+
+    if ( !clockEdge.isRising() && !clockEdge.isFalling() )
+    {
+      // Only actual clock edges should be taken into account...
+      return;
+    }
+
+    final int clockEdgeCount = ( this.bitCount + 1 ) * 2;
+    this.clockEdgeIdx = ( this.clockEdgeIdx + 1 ) % clockEdgeCount;
+    // When CPHA is '1', we should sample at the even numbered clock edges,
+    // when CPHA is '0' we should sample at the odd numbered clock edges...
+    final boolean sampleEdgeSeen = ( ( this.clockEdgeIdx + this.spiMode.getCPHA() ) % 2 ) != 0;
+
+    // First clock edge we've seen? If so, we should keep this index as our
+    // start of data index...
+    if ( sampleEdgeSeen && ( this.bitIdx == this.bitCount ) )
+    {
+      this.dataStartIdx = idx;
+      this.dataStartTimestamp = aTimestamp;
+    }
+
+    if ( LOG.isLoggable( Level.FINE ) )
+    {
+      LOG.log( Level.FINE, "Clock edge: {0}, idx: {1}, sample? {2}", //
+          new Object[] { clockEdge, Integer.valueOf( this.clockEdgeIdx ), Boolean.valueOf( sampleEdgeSeen ) } );
+    }
+
+    if ( !sampleEdgeSeen )
+    {
+      return;
+    }
+
+    if ( SPIFIMode.STANDARD.equals( this.protocol ) )
+    {
+      // sample MiSo here; always MSB first, perform conversion later on...
+      if ( ( this.misoIdx >= 0 ) && ( ( aValue & ( 1 << this.misoIdx ) ) != 0 ) )
+      {
+        this.misoValue |= ( 1 << this.bitIdx );
+      }
+      // sample MoSi here; always MSB first, perform conversion later on...
+      if ( ( this.mosiIdx >= 0 ) && ( ( aValue & ( 1 << this.mosiIdx ) ) != 0 ) )
+      {
+        this.mosiValue |= ( 1 << this.bitIdx );
+      }
+
+      if ( this.bitIdx >= 0 )
+      {
+        this.bitIdx--;
+      }
+    }
+    else if ( SPIFIMode.DUAL.equals( this.protocol ) )
+    {
+      // Sample both MOSI/IO0 & MISO/IO1 here; they form two bits of our
+      // symbol; we do MSB first, as the decoded symbol will be corrected
+      // later on...
+      sampleBit( aValue, this.misoIdx );
+      sampleBit( aValue, this.mosiIdx );
+    }
+    else if ( SPIFIMode.QUAD.equals( this.protocol ) )
+    {
+      // Sample both MOSI/IO0, MISO/IO1, IO2 & IO3 here; they form four bits
+      // of our symbol; we do MSB first, as the decoded symbol will be
+      // corrected later on...
+      sampleBit( aValue, this.io3Idx );
+      sampleBit( aValue, this.io2Idx );
+      sampleBit( aValue, this.misoIdx );
+      sampleBit( aValue, this.mosiIdx );
+    }
+
+    if ( this.bitIdx < 0 )
+    {
+      // Full datagram decoded...
+      reportData( idx, aTimestamp );
+    }
+  }
+
+  /**
+   * Reports a slave-select low->high transition, effectively causing the slave
+   * to be no longer selected.
+   * 
+   * @param aSampleIdx
+   *          the sample index on which the event occurred.
+   */
+  private void reportCsHigh( final int aSampleIdx )
+  {
+    if ( this.reportCS )
+    {
+      this.dataSet.reportCSHigh( this.csIdx, aSampleIdx );
+    }
+  }
+
+  /**
+   * Reports the datagram that is decoded between the start of data and the
+   * given sample, and prepares for the next datagram.
+   * 
+   * @param aEndIdx
+   *          the sample index at which the datagram ends;
+   * @param aEndTimestamp
+   *          the timestamp at which the datagram ends.
+   */
+  private void reportData( final int aEndIdx, final long aEndTimestamp )
+  {
+    if ( SPIFIMode.STANDARD.equals( this.protocol ) )
+    {
+      if ( this.mosiIdx >= 0 )
+      {
+        final int value = annotateValue( this.mosiIdx, this.mosiValue, aEndTimestamp );
+        this.dataSet.reportMosiData( this.mosiIdx, this.dataStartIdx, aEndIdx, value );
+      }
+      if ( this.misoIdx >= 0 )
+      {
+        final int value = annotateValue( this.misoIdx, this.misoValue, aEndTimestamp );
+        this.dataSet.reportMisoData( this.misoIdx, this.dataStartIdx, aEndIdx, value );
+      }
+    }
+    else
+    {
+      final int value = annotateValue( this.mosiIdx, this.mosiValue, aEndTimestamp );
+      this.dataSet.reportMosiData( this.mosiIdx, this.dataStartIdx, aEndIdx, value );
+    }
+
+    this.bitIdx = this.bitCount;
+    this.misoValue = 0;
+    this.mosiValue = 0;
+  }
+
+  /**
+   * Samples a single bit of a dual or quad datagram into the MOSI value.
+   * 
+   * @param aValue
+   *          the sample value;
+   * @param aChannelIdx
+   *          the index of the channel to sample.
+   */
+  private void sampleBit( final int aValue, final int aChannelIdx )
+  {
+    if ( ( aValue & ( 1 << aChannelIdx ) ) != 0 )
+    {
+      this.mosiValue |= ( 1 << this.bitIdx );
+    }
+    this.bitIdx--;
+  }
+}
+
+/* EOF */
@@ -74,38 +74,18 @@ public class StateAnalysisTask implements ToolTask<AcquisitionResult>
 
     final int maskValue = 1 << this.number;
 
-    int size = 0;
-    int last = ( values[0] & maskValue ) >> this.number;
-
-    // calculate new sample array size
-    for ( final int value : values )
-    {
-      final int current = ( value & maskValue ) >> this.number;
-      if ( ( last == this.level ) && ( current != this.level ) )
-      {
-        size++;
-      }
-      last = current;
-    }
-
-    if ( size <= 0 )
-    {
-      LOG.log( Level.WARNING, "No state changes found in data; aborting analysis..." );
-      throw new IllegalStateException( "No state changes found!" );
-    }
-
     // convert captured data
-    last = values[0] & maskValue;
+    int last = ( values[0] & maskValue ) >> this.number;
     int pos = 0;
     int newTrigger = -1;
 
-    final int[] newValues = new int[size];
+    final CapturedDataBuilder builder = new CapturedDataBuilder();
     for ( int i = 0; i < values.length; i++ )
     {
       final int current = ( values[i] & maskValue ) >> this.number;
       if ( ( last == this.level ) && ( current != this.level ) )
       {
-        newValues[pos++] = values[i - 1];
+        builder.add( values[i - 1], pos++ );
       }
       if ( triggerPosition == i )
       {
@@ -114,8 +94,18 @@ public class StateAnalysisTask implements ToolTask<AcquisitionResult>
       last = current;
     }
 
-    final CapturedData newCapturedData = new CapturedData( newValues, newTrigger, Ols.NOT_AVAILABLE,
-        data.getChannels(), data.getEnabledChannels() );
+    if ( pos <= 0 )
+    {
+      LOG.log( Level.WARNING, "No state changes found in data; aborting analysis..." );
+      throw new IllegalStateException( "No state changes found!" );
+    }
+
+    final CapturedData newCapturedData = builder.setTriggerPosition( newTrigger ) //
+        .setSampleRate( Ols.NOT_AVAILABLE ) //
+        .setChannels( data.getChannels() ) //
+        .setEnabledChannels( data.getEnabledChannels() ) //
+        .setAbsoluteLength( pos - 1 ) //
+        .build();
 
     return newCapturedData;
   }
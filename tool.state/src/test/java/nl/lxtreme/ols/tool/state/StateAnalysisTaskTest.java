@@ -0,0 +1,116 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.state;
+
+
+import static org.junit.Assert.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.test.data.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link StateAnalysisTask}.
+ */
+public class StateAnalysisTaskTest
+{
+  // METHODS
+
+  /**
+   * Tests that a clock on channel 0 yields one state per falling clock edge.
+   */
+  @Test
+  public void testFallingEdgesOfFirstChannel() throws Exception
+  {
+    // bit 0 = clock, bits 4..7 = data...
+    final int[] values = { 0x00, 0x11, 0x10, 0x21, 0x21, 0x20, 0x31, 0x30, 0x30 };
+
+    final CapturedData result = analyse( values, 0 /* aNumber */, 1 /* aLevel */);
+
+    assertArrayEquals( new int[] { 0x11, 0x21, 0x31 }, result.getValues() );
+    assertArrayEquals( new long[] { 0L, 1L, 2L }, result.getTimestamps() );
+    assertEquals( 2L, result.getAbsoluteLength() );
+    assertEquals( Ols.NOT_AVAILABLE, result.getSampleRate() );
+  }
+
+  /**
+   * Tests that a clock on a higher channel whose first sample is already at
+   * the clock level does not yield a spurious leading state.
+   */
+  @Test
+  public void testFirstSampleAtClockLevelOfHigherChannel() throws Exception
+  {
+    // bit 2 = clock, bits 4..7 = data...
+    final int[] values = { 0x14, 0x10, 0x24, 0x20, 0x34, 0x30 };
+
+    final CapturedData result = analyse( values, 2 /* aNumber */, 1 /* aLevel */);
+
+    assertArrayEquals( new int[] { 0x14, 0x24, 0x34 }, result.getValues() );
+    assertArrayEquals( new long[] { 0L, 1L, 2L }, result.getTimestamps() );
+    assertEquals( 2L, result.getAbsoluteLength() );
+  }
+
+  /**
+   * Tests that trailing states without a value change still count towards the
+   * absolute length of the resulting state data.
+   */
+  @Test
+  public void testRepeatedTrailingStatesAreKept() throws Exception
+  {
+    // bit 0 = clock, bits 4..7 = data...
+    final int[] values = { 0x11, 0x10, 0x21, 0x20, 0x21, 0x20, 0x21, 0x20 };
+
+    final CapturedData result = analyse( values, 0 /* aNumber */, 1 /* aLevel */);
+
+    assertArrayEquals( new int[] { 0x11, 0x21, 0x21 }, result.getValues() );
+    assertArrayEquals( new long[] { 0L, 1L, 3L }, result.getTimestamps() );
+    assertEquals( 3L, result.getAbsoluteLength() );
+  }
+
+  /**
+   * Tests that data without any clock edges is rejected.
+   */
+  @Test( expected = IllegalStateException.class )
+  public void testNoStateChangesFails() throws Exception
+  {
+    analyse( new int[] { 0x10, 0x20, 0x30 }, 0 /* aNumber */, 1 /* aLevel */);
+  }
+
+  /**
+   * Runs the state analysis on the given values.
+   */
+  private CapturedData analyse( final int[] aValues, final int aNumber, final int aLevel ) throws Exception
+  {
+    final CapturedData data = new CapturedData( aValues, 0L, 100, 8, 0xFF );
+    final ToolContext context = DataTestUtils.createToolContext( data );
+
+    final StateAnalysisTask task = new StateAnalysisTask( context );
+    task.setNumber( aNumber );
+    task.setLevel( aLevel );
+    return task.call();
+  }
+}
+
+/* EOF */
@@ -24,7 +24,9 @@ package nl.lxtreme.ols.tool.uart;
 import static nl.lxtreme.ols.util.NumberUtils.*;
 
 import java.util.*;
+import java.util.concurrent.*;
 
+import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.tools.*;
@@ -357,8 +359,8 @@ public class AsyncSerialDataDecoder
     // VARIABLES
 
     private double time;
-    private int mask;
     private int channelIndex;
+    private TransitionCursor cursor;
     private double bitLength;
     /** The number of samples that we've seen between two confirmed edges */
     private double confirmedSamples;
@@ -375,7 +377,7 @@ public class AsyncSerialDataDecoder
     {
       this.time = 0;
       this.channelIndex = aChannelIndex;
-      this.mask = ( 1 << aChannelIndex );
+      this.cursor = AsyncSerialDataDecoder.this.getTransitionCursor( aChannelIndex );
       this.bitLength = AsyncSerialDataDecoder.this.configuration.getBitLength( AsyncSerialDataDecoder.this.dataSet
           .getSampleRate() );
     }
@@ -389,7 +391,8 @@ public class AsyncSerialDataDecoder
     public BitLevel level()
     {
       final long halfTime = ( long )( this.time + ( this.bitLength / 2 ) );
-      final int level = AsyncSerialDataDecoder.this.getDataValue( halfTime, this.mask );
+      // The value right *before* the given time, see #getDataValue...
+      final int level = this.cursor.getValue( halfTime - 1 );
       return ( level == 0 ? BitLevel.LOW : BitLevel.HIGH );
     }
 
@@ -468,6 +471,155 @@ public class AsyncSerialDataDecoder
     }
   }
 
+  /**
+   * Decodes a single chunk of a data line, collecting all results in order to
+   * report them once all preceding chunks are reported.
+   */
+  private final class ChunkDecoder implements Callable<ChunkDecoder>, SerialDecoderCallback
+  {
+    // VARIABLES
+
+    private final int channelIndex;
+    private final long startTime;
+    private final long endTime;
+    private final long endOfDecode;
+    private final List<DecodedEvent> events;
+
+    /** The number of samples seen between confirmed edges in this chunk. */
+    double confirmedSamples;
+    /** The number of bits seen between confirmed edges in this chunk. */
+    long confirmedBits;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link ChunkDecoder} instance.
+     */
+    ChunkDecoder( final int aChannelIndex, final long aStartTime, final long aEndTime, final long aEndOfDecode )
+    {
+      this.channelIndex = aChannelIndex;
+      this.startTime = aStartTime;
+      this.endTime = aEndTime;
+      this.endOfDecode = aEndOfDecode;
+      this.events = new ArrayList<DecodedEvent>();
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ChunkDecoder call() throws Exception
+    {
+      final AsyncSerialTransitionDecoder decoder = decodeChunk( this.channelIndex, this.startTime, this.endTime,
+          this.endOfDecode, this, null /* aProgressListener */);
+
+      this.confirmedSamples = decoder.getConfirmedSamples();
+      this.confirmedBits = decoder.getConfirmedBits();
+
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onError( final int aChannelIdx, final ErrorType aType, final long aTime )
+    {
+      this.events.add( new DecodedEvent( aChannelIdx, aType, null, 0, aTime, aTime ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onEvent( final int aChannelIdx, final String aEvent, final long aStartTime, final long aEndTime )
+    {
+      this.events.add( new DecodedEvent( aChannelIdx, null, aEvent, 0, aStartTime, aEndTime ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onSymbol( final int aChannelIdx, final int aSymbol, final long aStartTime, final long aEndTime )
+    {
+      this.events.add( new DecodedEvent( aChannelIdx, null, null, aSymbol, aStartTime, aEndTime ) );
+    }
+
+    /**
+     * Reports all decoded events of this chunk, in the order they were decoded.
+     * 
+     * @param aCallback
+     *          the callback to report the events to, can be <code>null</code>.
+     */
+    void replay( final SerialDecoderCallback aCallback )
+    {
+      if ( aCallback == null )
+      {
+        return;
+      }
+      for ( DecodedEvent event : this.events )
+      {
+        event.replay( aCallback );
+      }
+    }
+  }
+
+  /**
+   * Denotes a single symbol, error or event, as reported to a
+   * {@link SerialDecoderCallback}.
+   */
+  private static final class DecodedEvent
+  {
+    // VARIABLES
+
+    private final int channelIdx;
+    private final ErrorType error;
+    private final String event;
+    private final int symbol;
+    private final long startTime;
+    private final long endTime;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link DecodedEvent} instance.
+     */
+    DecodedEvent( final int aChannelIdx, final ErrorType aError, final String aEvent, final int aSymbol,
+        final long aStartTime, final long aEndTime )
+    {
+      this.channelIdx = aChannelIdx;
+      this.error = aError;
+      this.event = aEvent;
+      this.symbol = aSymbol;
+      this.startTime = aStartTime;
+      this.endTime = aEndTime;
+    }
+
+    // METHODS
+
+    /**
+     * Reports this event to the given callback.
+     */
+    void replay( final SerialDecoderCallback aCallback )
+    {
+      if ( this.error != null )
+      {
+        aCallback.onError( this.channelIdx, this.error, this.startTime );
+      }
+      else if ( this.event != null )
+      {
+        aCallback.onEvent( this.channelIdx, this.event, this.startTime, this.endTime );
+      }
+      else
+      {
+        aCallback.onSymbol( this.channelIdx, this.symbol, this.startTime, this.endTime );
+      }
+    }
+  }
+
   /**
    * Denotes the number of stop bits, as used in serial protocols to indicate an
    * end-of-frame.
@@ -510,12 +662,18 @@ public class AsyncSerialDataDecoder
   public static final int[] COMMON_BAUDRATES = { 150, 300, 600, 1200, 2400, 4800, 9600, 14400, 19200, 28800, 38400,
       57600, 76800, 115200, 230400, 460800, 921600 };
 
+  /** The number of chunks per processor to split a data line into. */
+  private static final int CHUNKS_PER_PROCESSOR = 4;
+
   // VARIABLES
 
   protected final SerialConfiguration configuration;
   protected final AcquisitionResult dataSet;
   protected final ToolContext context;
 
+  /** the transition cursors per channel; not shared between threads. */
+  private final ThreadLocal<TransitionCursor[]> cursors;
+
   private SerialDecoderCallback callback;
   private ToolProgressListener progressListener;
 
@@ -534,6 +692,14 @@ public class AsyncSerialDataDecoder
     this.configuration = aConfiguration;
     this.context = aContext;
     this.dataSet = aContext.getData();
+    this.cursors = new ThreadLocal<TransitionCursor[]>()
+    {
+      @Override
+      protected TransitionCursor[] initialValue()
+      {
+        return new TransitionCursor[Ols.MAX_CHANNELS];
+      }
+    };
   }
 
   // METHODS
@@ -568,107 +734,113 @@ public class AsyncSerialDataDecoder
    */
   public double decodeDataLine( final int aChannelIndex )
   {
-    final int frameSize = this.configuration.getFrameSize( this.dataSet.getSampleRate() );
-    final double bitLength = this.configuration.getBitLength( this.dataSet.getSampleRate() );
-    final int bitCount = this.configuration.getDataBits();
-
-    final StopBits stopBits = this.configuration.getStopBits();
-    final Parity parity = this.configuration.getParity();
-
     final long[] timestamps = this.dataSet.getTimestamps();
 
     final long startOfDecode = timestamps[this.context.getStartSampleIndex()];
     final long endOfDecode = timestamps[this.context.getEndSampleIndex()];
-    final BitLevel idleLevel = this.configuration.getIdleLevel();
 
-    DataBitExtractor extractor = new DataBitExtractor( aChannelIndex );
     setProgress( 0 );
 
-    long start = findStartBit( aChannelIndex, idleLevel.nextEdge(), startOfDecode, endOfDecode );
-    while ( ( start >= 0 ) && ( ( endOfDecode - start ) > frameSize ) )
-    {
-      extractor.jumpTo( start );
+    final DataBitExtractor extractor = decodeRange( aChannelIndex, startOfDecode, endOfDecode, endOfDecode,
+        this.callback, true /* aReportProgress */);
 
-      if ( ( extractor.level() != idleLevel.invert() ) && ( this.callback != null ) )
-      {
-        // this is not a start bit !
-        this.callback.onError( aChannelIndex, ErrorType.START, extractor.time() );
-      }
-      extractor.next();
+    setProgress( 100 );
 
-      // Keep track of where the symbol originally started;
-      final long startTime = extractor.time();
+    return extractor.averageBitLength();
+  }
 
-      int symbol = 0;
-      int marks = 0;
-      for ( int bitIdx = 0; bitIdx < bitCount; bitIdx++ )
-      {
-        if ( extractor.value() == BitValue.MARK )
-        {
-          symbol |= ( 1 << bitIdx );
-          marks++;
-        }
-        extractor.next();
-      }
-      final long endTime = extractor.time() - 1;
+  /**
+   * Decodes a serial data line by splitting it at idle gaps and decoding the
+   * resulting chunks concurrently, each with its own
+   * {@link AsyncSerialTransitionDecoder}.
+   * <p>
+   * A data line is only split at gaps without any transition that are longer
+   * than a single frame (plus a margin of two bits), as the decoding of a
+   * symbol never looks beyond such a gap. This makes the results of this
+   * method, including the order in which the callback is called, identical to
+   * those of {@link #decodeDataLine(int)}. The callback is only called from the
+   * calling thread.
+   * </p>
+   * <p>
+   * If this decoder does not support chunked decoding (see
+   * {@link #isChunkedDecodingSupported()}), the data line is decoded by
+   * {@link #decodeDataLine(int)}. If the data line cannot be split, it is
+   * decoded as a single chunk on the calling thread.
+   * </p>
+   * 
+   * @param aChannelIndex
+   *          the channel index to decode, >= 0;
+   * @param aExecutor
+   *          the executor to decode the chunks with, cannot be
+   *          <code>null</code>.
+   * @return the bit length used in decoding, in number of samples, >= 0;
+   * @throws InterruptedException
+   *           in case the calling thread was interrupted while waiting for the
+   *           chunks to be decoded;
+   * @throws ExecutionException
+   *           in case the decoding of a chunk failed.
+   */
+  public double decodeDataLine( final int aChannelIndex, final ExecutorService aExecutor )
+      throws InterruptedException, ExecutionException
+  {
+    final long[] timestamps = this.dataSet.getTimestamps();
 
-      // If the most significant bit is first, we need to swap bit-order, as we
-      // normally represent the bits with the least significant bit first...
-      if ( this.configuration.getBitOrder() == BitOrder.MSB_FIRST )
-      {
-        symbol = reverseBits( symbol, bitCount );
-      }
+    final long startOfDecode = timestamps[this.context.getStartSampleIndex()];
+    final long endOfDecode = timestamps[this.context.getEndSampleIndex()];
 
-      // fully decoded a single symbol...
-      if ( this.callback != null )
-      {
-        this.callback.onSymbol( aChannelIndex, symbol, startTime, endTime );
-      }
+    if ( !isChunkedDecodingSupported() )
+    {
+      return decodeDataLine( aChannelIndex );
+    }
 
-      // Sample parity bit (if available/desired).
-      if ( parity.isOdd() || parity.isEven() )
-      {
-        if ( extractor.value() == BitValue.MARK )
-        {
-          marks++;
-        }
+    final long[] boundaries = findChunkBoundaries( aChannelIndex, startOfDecode, endOfDecode );
 
-        // Even parity means total number of marks (including the parity
-        // bit) should be even, odd means they should be odd.
-        if ( ( parity.isOdd() && ( marks % 2 == 0 ) ) || ( parity.isEven() && ( marks % 2 == 1 ) ) )
-        {
-          this.callback.onError( aChannelIndex, ErrorType.PARITY, extractor.time() );
-        }
+    setProgress( 0 );
 
-        extractor.next();
-      }
+    if ( boundaries.length <= 2 )
+    {
+      final AsyncSerialTransitionDecoder decoder = decodeChunk( aChannelIndex, startOfDecode, endOfDecode,
+          endOfDecode, this.callback, this.progressListener );
+      return decoder.getAverageBitLength();
+    }
 
-      // Check value of stopbit
-      if ( ( extractor.level() != idleLevel ) && ( this.callback != null ) )
+    final int chunkCount = boundaries.length - 1;
+
+    final List<Future<ChunkDecoder>> futures = new ArrayList<Future<ChunkDecoder>>( chunkCount );
+    try
+    {
+      for ( int i = 0; i < chunkCount; i++ )
       {
-        this.callback.onError( aChannelIndex, ErrorType.FRAME, extractor.time() );
+        futures.add( aExecutor.submit( new ChunkDecoder( aChannelIndex, boundaries[i], boundaries[i + 1],
+            endOfDecode ) ) );
       }
 
-      // Find start bit after the stop bit
-      start = findStartBit( aChannelIndex, idleLevel.nextEdge(), ( long )( extractor.time() + ( bitLength / 2 ) ),
-          endOfDecode );
-
-      // Check length of stopbit
-      final long endOfStopbit = extractor.time() + ( long )( stopBits.getValue() * bitLength );
-      if ( start >= 0 && ( endOfStopbit > start ) && ( this.callback != null ) )
+      // Report the decoded chunks in order, as if they were decoded
+      // sequentially...
+      double confirmedSamples = 0.0;
+      long confirmedBits = 0L;
+      for ( int i = 0; i < chunkCount; i++ )
       {
-        this.callback.onError( aChannelIndex, ErrorType.FRAME, extractor.time() );
+        final ChunkDecoder chunk = futures.get( i ).get();
+        chunk.replay( this.callback );
+
+        confirmedSamples += chunk.confirmedSamples;
+        confirmedBits += chunk.confirmedBits;
+
+        setProgress( getPercentage( i + 1, chunkCount ) );
       }
 
-      if ( start >= 0 )
+      setProgress( 100 );
+
+      return ( confirmedSamples / confirmedBits );
+    }
+    finally
+    {
+      for ( Future<ChunkDecoder> future : futures )
       {
-        setProgress( getPercentage( start, startOfDecode, endOfDecode ) );
+        future.cancel( true /* mayInterruptIfRunning */);
       }
     }
-
-    setProgress( 100 );
-
-    return extractor.averageBitLength();
   }
 
   /**
@@ -711,29 +883,11 @@ public class AsyncSerialDataDecoder
   protected final long findEdge( final int aChannelIndex, final Edge aSampleEdge, final long aStartOfDecode,
       final long aEndOfDecode )
   {
-    final int mask = ( 1 << aChannelIndex );
-    long result = -1;
-
-    int oldBitValue = getDataValue( aStartOfDecode, mask );
-    for ( long timeCursor = aStartOfDecode + 1; ( result < 0 ) && ( timeCursor < aEndOfDecode ); timeCursor++ )
-    {
-      final int bitValue = getDataValue( timeCursor, mask );
-
-      Edge edge = Edge.toEdge( oldBitValue, bitValue );
-      if ( aSampleEdge.isNone() && !edge.isNone() )
-      {
-        /* No edge given, so any edge will do */
-        result = timeCursor;
-      }
-      else if ( !aSampleEdge.isNone() && ( aSampleEdge == edge ) )
-      {
-        result = timeCursor;
-      }
-
-      oldBitValue = bitValue;
-    }
-
-    return result;
+    // As we look at the value right *before* a given time (see #getDataValue),
+    // a transition of the channel becomes visible one time unit later...
+    final long result = getTransitionCursor( aChannelIndex ).findTransition( aStartOfDecode - 1, aEndOfDecode - 1,
+        aSampleEdge );
+    return ( result < 0 ) ? -1 : ( result + 1 );
   }
 
   /**
@@ -785,6 +939,45 @@ public class AsyncSerialDataDecoder
     return value & aMask;
   }
 
+  /**
+   * Returns the transition cursor of the calling thread for the given channel,
+   * creating it if needed.
+   * 
+   * @param aChannelIndex
+   *          the index of the channel to return the cursor for, >= 0.
+   * @return a transition cursor, never <code>null</code>.
+   */
+  protected final TransitionCursor getTransitionCursor( final int aChannelIndex )
+  {
+    final TransitionCursor[] channelCursors = this.cursors.get();
+
+    TransitionCursor result = channelCursors[aChannelIndex];
+    if ( result == null )
+    {
+      result = new TransitionCursor( this.dataSet, aChannelIndex );
+      channelCursors[aChannelIndex] = result;
+    }
+    return result;
+  }
+
+  /**
+   * Returns whether data lines can be decoded in independent chunks, see
+   * {@link #decodeDataLine(int, ExecutorService)}.
+   * <p>
+   * This requires that the start bit of a symbol is found by only looking at
+   * the first edge after the previous symbol, as the default implementation of
+   * {@link #findStartBit(int, Edge, long, long)} does. Subclasses that look
+   * further ahead should override this method and return <code>false</code>.
+   * </p>
+   * 
+   * @return <code>true</code> if data lines can be decoded in chunks,
+   *         <code>false</code> otherwise.
+   */
+  protected boolean isChunkedDecodingSupported()
+  {
+    return true;
+  }
+
   /**
    * @param aProgress
    */
@@ -795,4 +988,237 @@ public class AsyncSerialDataDecoder
       this.progressListener.setProgress( aProgress );
     }
   }
+
+  /**
+   * Decodes a single chunk of a data line by feeding its transitions to an
+   * {@link AsyncSerialTransitionDecoder}.
+   * 
+   * @param aChannelIndex
+   *          the channel index to decode, >= 0;
+   * @param aStartTime
+   *          the timestamp at which the chunk starts;
+   * @param aEndTime
+   *          the timestamp at which the chunk ends, no start bits are searched
+   *          beyond this timestamp;
+   * @param aEndOfDecode
+   *          the timestamp at which the decoding of the entire data line ends;
+   * @param aCallback
+   *          the callback to report the decoded symbols to, can be
+   *          <code>null</code>;
+   * @param aProgressListener
+   *          the progress listener to report the progress to, can be
+   *          <code>null</code>.
+   * @return the decoder used to decode the chunk, never <code>null</code>.
+   */
+  private AsyncSerialTransitionDecoder decodeChunk( final int aChannelIndex, final long aStartTime,
+      final long aEndTime, final long aEndOfDecode, final SerialDecoderCallback aCallback,
+      final ToolProgressListener aProgressListener )
+  {
+    final long[] timestamps = this.dataSet.getTimestamps();
+
+    final AsyncSerialTransitionDecoder decoder = new AsyncSerialTransitionDecoder( this.configuration,
+        this.dataSet.getSampleRate(), aChannelIndex, aStartTime, aEndOfDecode, aEndTime, aCallback );
+
+    // Start one sample early, as the level right before the start of the
+    // chunk is needed to recognise its first transition; the feeding stops
+    // by itself once the decoder is done...
+    final int startIdx = Math.max( 0, findSampleIndex( timestamps, aStartTime ) - 1 );
+    TransitionDecoderUtils.feed( decoder, this.dataSet, startIdx, timestamps.length, aProgressListener );
+
+    return decoder;
+  }
+
+  /**
+   * Decodes all symbols of a serial data line that start in the given time
+   * range.
+   * 
+   * @param aChannelIndex
+   *          the channel index to decode, >= 0;
+   * @param aStartTime
+   *          the timestamp to start searching for start bits;
+   * @param aEndTime
+   *          the timestamp to stop searching for start bits;
+   * @param aEndOfDecode
+   *          the timestamp at which the decoding of the entire data line ends;
+   * @param aCallback
+   *          the callback to report the decoded symbols to, can be
+   *          <code>null</code>;
+   * @param aReportProgress
+   *          <code>true</code> to report the progress of the decoding,
+   *          <code>false</code> otherwise.
+   * @return the bit extractor used for decoding, never <code>null</code>.
+   */
+  private DataBitExtractor decodeRange( final int aChannelIndex, final long aStartTime, final long aEndTime,
+      final long aEndOfDecode, final SerialDecoderCallback aCallback, final boolean aReportProgress )
+  {
+    final int frameSize = this.configuration.getFrameSize( this.dataSet.getSampleRate() );
+    final double bitLength = this.configuration.getBitLength( this.dataSet.getSampleRate() );
+    final int bitCount = this.configuration.getDataBits();
+
+    final StopBits stopBits = this.configuration.getStopBits();
+    final Parity parity = this.configuration.getParity();
+
+    final BitLevel idleLevel = this.configuration.getIdleLevel();
+
+    DataBitExtractor extractor = new DataBitExtractor( aChannelIndex );
+
+    long start = findStartBit( aChannelIndex, idleLevel.nextEdge(), aStartTime, aEndTime );
+    while ( ( start >= 0 ) && ( ( aEndOfDecode - start ) > frameSize ) )
+    {
+      extractor.jumpTo( start );
+
+      if ( ( extractor.level() != idleLevel.invert() ) && ( aCallback != null ) )
+      {
+        // this is not a start bit !
+        aCallback.onError( aChannelIndex, ErrorType.START, extractor.time() );
+      }
+      extractor.next();
+
+      // Keep track of where the symbol originally started;
+      final long startTime = extractor.time();
+
+      int symbol = 0;
+      int marks = 0;
+      for ( int bitIdx = 0; bitIdx < bitCount; bitIdx++ )
+      {
+        if ( extractor.value() == BitValue.MARK )
+        {
+          symbol |= ( 1 << bitIdx );
+          marks++;
+        }
+        extractor.next();
+      }
+      final long endTime = extractor.time() - 1;
+
+      // If the most significant bit is first, we need to swap bit-order, as we
+      // normally represent the bits with the least significant bit first...
+      if ( this.configuration.getBitOrder() == BitOrder.MSB_FIRST )
+      {
+        symbol = reverseBits( symbol, bitCount );
+      }
+
+      // fully decoded a single symbol...
+      if ( aCallback != null )
+      {
+        aCallback.onSymbol( aChannelIndex, symbol, startTime, endTime );
+      }
+
+      // Sample parity bit (if available/desired).
+      if ( parity.isOdd() || parity.isEven() )
+      {
+        if ( extractor.value() == BitValue.MARK )
+        {
+          marks++;
+        }
+
+        // Even parity means total number of marks (including the parity
+        // bit) should be even, odd means they should be odd.
+        if ( ( ( parity.isOdd() && ( marks % 2 == 0 ) ) || ( parity.isEven() && ( marks % 2 == 1 ) ) )
+            && ( aCallback != null ) )
+        {
+          aCallback.onError( aChannelIndex, ErrorType.PARITY, extractor.time() );
+        }
+
+        extractor.next();
+      }
+
+      // Check value of stopbit
+      if ( ( extractor.level() != idleLevel ) && ( aCallback != null ) )
+      {
+        aCallback.onError( aChannelIndex, ErrorType.FRAME, extractor.time() );
+      }
+
+      // Find start bit after the stop bit
+      start = findStartBit( aChannelIndex, idleLevel.nextEdge(), ( long )( extractor.time() + ( bitLength / 2 ) ),
+          aEndTime );
+
+      // Check length of stopbit
+      final long endOfStopbit = extractor.time() + ( long )( stopBits.getValue() * bitLength );
+      if ( start >= 0 && ( endOfStopbit > start ) && ( aCallback != null ) )
+      {
+        aCallback.onError( aChannelIndex, ErrorType.FRAME, extractor.time() );
+      }
+
+      if ( aReportProgress && ( start >= 0 ) )
+      {
+        setProgress( getPercentage( start, aStartTime, aEndOfDecode ) );
+      }
+    }
+
+    return extractor;
+  }
+
+  /**
+   * Determines at which timestamps a data line can be split into chunks that
+   * can be decoded independently.
+   * 
+   * @param aChannelIndex
+   *          the channel index to split, >= 0;
+   * @param aStartOfDecode
+   *          the timestamp at which the decoding starts;
+   * @param aEndOfDecode
+   *          the timestamp at which the decoding ends.
+   * @return the boundaries of all chunks, including the start and end of
+   *         decoding, never <code>null</code>.
+   */
+  final long[] findChunkBoundaries( final int aChannelIndex, final long aStartOfDecode, final long aEndOfDecode )
+  {
+    final int sampleRate = this.dataSet.getSampleRate();
+    final int frameSize = this.configuration.getFrameSize( sampleRate );
+    final double bitLength = this.configuration.getBitLength( sampleRate );
+
+    if ( bitLength < 2.0 )
+    {
+      // Too few samples per bit to reason about the extent of a symbol...
+      return new long[] { aStartOfDecode, aEndOfDecode };
+    }
+
+    // A symbol, including the search for the next start bit, never looks
+    // further than this beyond its last transition...
+    final long minGap = ( long )Math.ceil( frameSize + ( 2.0 * bitLength ) );
+    // Do not bother splitting into more chunks than we can use...
+    final long minChunkLength = Math.max( 16L * minGap, ( aEndOfDecode - aStartOfDecode )
+        / ( CHUNKS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors() ) );
+
+    final List<Long> boundaries = new ArrayList<Long>();
+    boundaries.add( Long.valueOf( aStartOfDecode ) );
+
+    final TransitionCursor cursor = getTransitionCursor( aChannelIndex );
+
+    long lastBoundary = aStartOfDecode;
+    // As we look at the value right *before* a given time, a transition of the
+    // channel becomes visible one time unit later (see #findEdge)...
+    long transition = cursor.findTransition( lastBoundary + minChunkLength - 1, aEndOfDecode - 1, Edge.NONE );
+    while ( transition >= 0 )
+    {
+      final long boundary = transition + 1 + minGap;
+
+      final long next = cursor.findTransition( transition, aEndOfDecode - 1, Edge.NONE );
+      if ( next < 0 )
+      {
+        break;
+      }
+
+      if ( ( next + 1 ) > boundary )
+      {
+        boundaries.add( Long.valueOf( boundary ) );
+        lastBoundary = boundary;
+
+        transition = cursor.findTransition( lastBoundary + minChunkLength - 1, aEndOfDecode - 1, Edge.NONE );
+      }
+      else
+      {
+        transition = next;
+      }
+    }
+
+    boundaries.add( Long.valueOf( aEndOfDecode ) );
+
+    final long[] result = new long[boundaries.size()];
+    for ( int i = 0; i < result.length; i++ )
+    {
+      result[i] = boundaries.get( i ).longValue();
+    }
+    return result;
+  }
 }
@@ -0,0 +1,580 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.uart;
+
+
+import static nl.lxtreme.ols.util.NumberUtils.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.BitEncoding;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.BitLevel;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.BitOrder;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.BitValue;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.ErrorType;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.Parity;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.SerialConfiguration;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.SerialDecoderCallback;
+
+
+/**
+ * Provides a push-style decoder for asynchronous serial data, which decodes the
+ * transitions of a single data line as they are fed to it.
+ * <p>
+ * The symbols, errors and the resulting bit length are identical to those of
+ * {@link AsyncSerialDataDecoder#decodeDataLine(int)}. As a symbol can only be
+ * decoded once the entire frame is seen, this decoder keeps the transitions of
+ * the current frame, and decodes it as soon as enough transitions are fed to it.
+ * </p>
+ */
+public class AsyncSerialTransitionDecoder implements TransitionDecoder
+{
+  // CONSTANTS
+
+  /** The initial number of transitions that can be kept. */
+  private static final int INITIAL_CAPACITY = 64;
+
+  // VARIABLES
+
+  private final SerialConfiguration configuration;
+  private final int channelIdx;
+  private final int mask;
+  private final long endOfDecode;
+  /** The timestamp at which the search for start bits ends. */
+  private final long endOfSearch;
+  private final SerialDecoderCallback callback;
+
+  private final double bitLength;
+  private final int frameSize;
+  /** The maximum number of time units a single frame can span. */
+  private final long frameExtent;
+
+  /** The timestamps of the transitions that are kept. */
+  private long[] times;
+  /** The channel levels right after the transitions that are kept. */
+  private int[] levels;
+  private int first;
+  private int last;
+  /** The channel level before the first transition that is kept. */
+  private int baseLevel;
+  /** The timestamp up to which all transitions are known. */
+  private long knownUntil;
+  private boolean initialized;
+  private boolean done;
+
+  /** The timestamp from which the next start bit is searched. */
+  private long searchFrom;
+  /** The start of the frame to decode, or -1 if no start bit is found yet. */
+  private long frameStart;
+  /** The end of the stop bit(s) of the previous frame, or -1 if none. */
+  private long stopBitEnd;
+  private long stopBitTime;
+
+  private double time;
+  /** The number of samples that we've seen between two confirmed edges */
+  private double confirmedSamples;
+  /** The number of bits that we've seen between two confirmed edges */
+  private long confirmedBits;
+  /** The timestamp of the last edge we've seen */
+  private double lastEdge;
+  /** The number of bits we've processed since the last edge */
+  private int bitsSinceEdge;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link AsyncSerialTransitionDecoder} instance.
+   *
+   * @param aConfiguration
+   *          the serial configuration to use, cannot be <code>null</code>;
+   * @param aSampleRate
+   *          the sample rate of the transitions, in Hertz, > 0;
+   * @param aChannelIdx
+   *          the index of the channel to decode, >= 0;
+   * @param aStartOfDecode
+   *          the timestamp to start searching for start bits;
+   * @param aEndOfDecode
+   *          the timestamp at which the decoding ends, use
+   *          {@link Long#MAX_VALUE} if not known in advance;
+   * @param aCallback
+   *          the callback to report the decoded symbols and errors to, can be
+   *          <code>null</code>.
+   */
+  public AsyncSerialTransitionDecoder( final SerialConfiguration aConfiguration, final int aSampleRate,
+      final int aChannelIdx, final long aStartOfDecode, final long aEndOfDecode,
+      final SerialDecoderCallback aCallback )
+  {
+    this( aConfiguration, aSampleRate, aChannelIdx, aStartOfDecode, aEndOfDecode, aEndOfDecode, aCallback );
+  }
+
+  /**
+   * Creates a new {@link AsyncSerialTransitionDecoder} instance that only
+   * decodes the symbols whose start bit lies in a part of the data line.
+   *
+   * @param aConfiguration
+   *          the serial configuration to use, cannot be <code>null</code>;
+   * @param aSampleRate
+   *          the sample rate of the transitions, in Hertz, > 0;
+   * @param aChannelIdx
+   *          the index of the channel to decode, >= 0;
+   * @param aStartOfDecode
+   *          the timestamp to start searching for start bits;
+   * @param aEndOfDecode
+   *          the timestamp at which the decoding of the entire data line ends;
+   * @param aEndOfSearch
+   *          the timestamp to stop searching for start bits, <=
+   *          <tt>aEndOfDecode</tt>;
+   * @param aCallback
+   *          the callback to report the decoded symbols and errors to, can be
+   *          <code>null</code>.
+   */
+  public AsyncSerialTransitionDecoder( final SerialConfiguration aConfiguration, final int aSampleRate,
+      final int aChannelIdx, final long aStartOfDecode, final long aEndOfDecode, final long aEndOfSearch,
+      final SerialDecoderCallback aCallback )
+  {
+    this.configuration = aConfiguration;
+    this.channelIdx = aChannelIdx;
+    this.mask = ( 1 << aChannelIdx );
+    this.endOfDecode = aEndOfDecode;
+    this.endOfSearch = aEndOfSearch;
+    this.callback = aCallback;
+
+    this.bitLength = aConfiguration.getBitLength( aSampleRate );
+    this.frameSize = aConfiguration.getFrameSize( aSampleRate );
+
+    // Each bit is either found at the next confirmed edge, which lies at most a
+    // quarter bit after the expected time, or at the expected time...
+    final int bitCount = 2 + aConfiguration.getDataBits() + ( aConfiguration.getParity().isNone() ? 0 : 1 );
+    this.frameExtent = ( long )Math.ceil( bitCount * ( ( 1.25 * this.bitLength ) + 2.0 ) );
+
+    this.times = new long[INITIAL_CAPACITY];
+    this.levels = new int[INITIAL_CAPACITY];
+
+    this.searchFrom = aStartOfDecode;
+    this.frameStart = -1L;
+    this.stopBitEnd = -1L;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void decode( final int[] aValues, final long[] aTimestamps, final int aOffset, final int aLength )
+  {
+    if ( this.done || ( aLength <= 0 ) )
+    {
+      return;
+    }
+
+    final int end = aOffset + aLength;
+    for ( int i = aOffset; i < end; i++ )
+    {
+      final int level = aValues[i] & this.mask;
+      if ( !this.initialized )
+      {
+        this.baseLevel = level;
+        this.initialized = true;
+      }
+      else if ( level != currentLevel() )
+      {
+        addTransition( aTimestamps[i], level );
+      }
+    }
+    this.knownUntil = aTimestamps[end - 1];
+
+    decodeFrames();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void finish()
+  {
+    if ( this.initialized )
+    {
+      // The channel keeps its last level from here on...
+      this.knownUntil = Long.MAX_VALUE;
+
+      decodeFrames();
+    }
+    this.done = true;
+  }
+
+  /**
+   * Returns the average bit length for sequences of bits found between two
+   * edges, see {@link AsyncSerialDataDecoder#decodeDataLine(int)}.
+   *
+   * @return the bit length used in decoding, in number of samples.
+   */
+  public double getAverageBitLength()
+  {
+    return ( this.confirmedSamples / this.confirmedBits );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isDone()
+  {
+    return this.done;
+  }
+
+  /**
+   * @return the number of bits seen between two confirmed edges.
+   */
+  final long getConfirmedBits()
+  {
+    return this.confirmedBits;
+  }
+
+  /**
+   * @return the number of samples seen between two confirmed edges.
+   */
+  final double getConfirmedSamples()
+  {
+    return this.confirmedSamples;
+  }
+
+  /**
+   * Keeps the given transition.
+   */
+  private void addTransition( final long aTime, final int aLevel )
+  {
+    if ( this.last == this.times.length )
+    {
+      final int count = this.last - this.first;
+      if ( this.first >= ( this.times.length / 2 ) )
+      {
+        // Plenty of room at the start; move all transitions there...
+        System.arraycopy( this.times, this.first, this.times, 0, count );
+        System.arraycopy( this.levels, this.first, this.levels, 0, count );
+      }
+      else
+      {
+        final long[] newTimes = new long[this.times.length * 2];
+        final int[] newLevels = new int[this.levels.length * 2];
+        System.arraycopy( this.times, this.first, newTimes, 0, count );
+        System.arraycopy( this.levels, this.first, newLevels, 0, count );
+        this.times = newTimes;
+        this.levels = newLevels;
+      }
+      this.first = 0;
+      this.last = count;
+    }
+
+    this.times[this.last] = aTime;
+    this.levels[this.last] = aLevel;
+    this.last++;
+  }
+
+  /**
+   * @return the level of the channel after the last transition.
+   */
+  private int currentLevel()
+  {
+    return ( this.last > this.first ) ? this.levels[this.last - 1] : this.baseLevel;
+  }
+
+  /**
+   * Decodes a single frame, starting at {@link #frameStart}, which must be
+   * fully known.
+   */
+  private void decodeFrame()
+  {
+    final int bitCount = this.configuration.getDataBits();
+    final Parity parity = this.configuration.getParity();
+    final BitLevel idleLevel = this.configuration.getIdleLevel();
+
+    jumpTo( this.frameStart );
+
+    if ( ( level() != idleLevel.invert() ) && ( this.callback != null ) )
+    {
+      // this is not a start bit !
+      this.callback.onError( this.channelIdx, ErrorType.START, time() );
+    }
+    next();
+
+    // Keep track of where the symbol originally started;
+    final long startTime = time();
+
+    int symbol = 0;
+    int marks = 0;
+    for ( int bitIdx = 0; bitIdx < bitCount; bitIdx++ )
+    {
+      if ( value() == BitValue.MARK )
+      {
+        symbol |= ( 1 << bitIdx );
+        marks++;
+      }
+      next();
+    }
+    final long endTime = time() - 1;
+
+    // If the most significant bit is first, we need to swap bit-order, as we
+    // normally represent the bits with the least significant bit first...
+    if ( this.configuration.getBitOrder() == BitOrder.MSB_FIRST )
+    {
+      symbol = reverseBits( symbol, bitCount );
+    }
+
+    // fully decoded a single symbol...
+    if ( this.callback != null )
+    {
+      this.callback.onSymbol( this.channelIdx, symbol, startTime, endTime );
+    }
+
+    // Sample parity bit (if available/desired).
+    if ( parity.isOdd() || parity.isEven() )
+    {
+      if ( value() == BitValue.MARK )
+      {
+        marks++;
+      }
+
+      // Even parity means total number of marks (including the parity
+      // bit) should be even, odd means they should be odd.
+      if ( ( ( parity.isOdd() && ( marks % 2 == 0 ) ) || ( parity.isEven() && ( marks % 2 == 1 ) ) )
+          && ( this.callback != null ) )
+      {
+        this.callback.onError( this.channelIdx, ErrorType.PARITY, time() );
+      }
+
+      next();
+    }
+
+    // Check value of stopbit
+    if ( ( level() != idleLevel ) && ( this.callback != null ) )
+    {
+      this.callback.onError( this.channelIdx, ErrorType.FRAME, time() );
+    }
+
+    // The length of the stopbit is checked once the next start bit is found...
+    this.stopBitTime = time();
+    this.stopBitEnd = time() + ( long )( this.configuration.getStopBits().getValue() * this.bitLength );
+
+    // Find start bit after the stop bit
+    this.searchFrom = ( long )( time() + ( this.bitLength / 2 ) );
+    this.frameStart = -1L;
+  }
+
+  /**
+   * Decodes as many frames as possible with the transitions known so far.
+   */
+  private void decodeFrames()
+  {
+    final Edge startEdge = this.configuration.getIdleLevel().nextEdge();
+
+    while ( !this.done )
+    {
+      if ( this.frameStart < 0 )
+      {
+        final long start = findEdge( startEdge, this.searchFrom, this.endOfSearch );
+        if ( ( start < 0 ) && !isKnown( this.endOfSearch ) )
+        {
+          // Wait for more transitions...
+          return;
+        }
+
+        // Check length of stopbit
+        if ( ( start >= 0 ) && ( this.stopBitEnd > start ) && ( this.callback != null ) )
+        {
+          this.callback.onError( this.channelIdx, ErrorType.FRAME, this.stopBitTime );
+        }
+        this.stopBitEnd = -1L;
+
+        if ( ( start < 0 ) || ( ( this.endOfDecode - start ) <= this.frameSize ) )
+        {
+          this.done = true;
+          return;
+        }
+
+        this.frameStart = start;
+        // Nothing before the start bit is needed anymore...
+        discardTransitionsBefore( start - 2 );
+      }
+
+      if ( ( this.frameStart + this.frameExtent ) > this.knownUntil )
+      {
+        // Wait for the rest of the frame...
+        return;
+      }
+
+      decodeFrame();
+
+      discardTransitionsBefore( this.searchFrom - 2 );
+    }
+  }
+
+  /**
+   * Discards all transitions before the given timestamp, as they are no longer
+   * needed.
+   */
+  private void discardTransitionsBefore( final long aTime )
+  {
+    while ( ( this.first < this.last ) && ( this.times[this.first] < aTime ) )
+    {
+      this.baseLevel = this.levels[this.first];
+      this.first++;
+    }
+  }
+
+  /**
+   * Finds a certain type of edge between the two given timestamps, see
+   * {@link AsyncSerialDataDecoder#findEdge(int, Edge, long, long)}.
+   *
+   * @param aEdge
+   *          the edge to find, Edge.NONE for any edge;
+   * @param aStart
+   *          the timestamp to start searching;
+   * @param aEnd
+   *          the timestamp to end the search;
+   * @return the time at which the edge was found, -1 if it is not found (yet).
+   */
+  private long findEdge( final Edge aEdge, final long aStart, final long aEnd )
+  {
+    // As we look at the value right *before* a given time, a transition of the
+    // channel becomes visible one time unit later...
+    for ( int i = search( aStart - 1 ); i < this.last; i++ )
+    {
+      final long transition = this.times[i];
+      if ( transition >= ( aEnd - 1 ) )
+      {
+        break;
+      }
+
+      final int oldLevel = ( i > this.first ) ? this.levels[i - 1] : this.baseLevel;
+      if ( aEdge.isNone() || ( aEdge == Edge.toEdge( oldLevel, this.levels[i] ) ) )
+      {
+        return transition + 1;
+      }
+    }
+    return -1L;
+  }
+
+  /**
+   * @return <code>true</code> if all transitions that are visible before the
+   *         given timestamp are known, <code>false</code> otherwise.
+   */
+  private boolean isKnown( final long aTime )
+  {
+    return ( aTime - 2 ) <= this.knownUntil;
+  }
+
+  /**
+   * Jump to the bit starting at the given time (sample number).
+   */
+  private void jumpTo( final long aTime )
+  {
+    this.time = aTime;
+    // Assume we're jumping here because our caller found an edge.
+    this.lastEdge = aTime;
+    this.bitsSinceEdge = 0;
+  }
+
+  /**
+   * The level of the current bit (always the raw level, regardless of bit
+   * encoding settings).
+   */
+  private BitLevel level()
+  {
+    final long halfTime = ( long )( this.time + ( this.bitLength / 2 ) );
+    // The value right *before* the given time...
+    final int idx = search( halfTime - 1 );
+    final int level = ( idx > this.first ) ? this.levels[idx - 1] : this.baseLevel;
+    return ( level == 0 ? BitLevel.LOW : BitLevel.HIGH );
+  }
+
+  /**
+   * Skip over the current bit to the next one.
+   */
+  private void next()
+  {
+    this.time += this.bitLength;
+    this.bitsSinceEdge++;
+    final long start = ( long )( this.time - this.bitLength * 0.25 - 1 );
+    final long end = ( long )( this.time + this.bitLength * 0.25 + 1 );
+
+    // Find an edge in the area where we would expect one
+    final long edge = findEdge( Edge.NONE, start, end );
+    if ( edge >= 0 )
+    {
+      // Found an edge, skip to that timestamp instead.
+      this.time = edge;
+
+      // Add the bits since the last edge to the average
+      this.confirmedSamples += ( this.time - this.lastEdge );
+      this.confirmedBits += this.bitsSinceEdge;
+      // And reset the last edge
+      this.lastEdge = this.time;
+      this.bitsSinceEdge = 0;
+    }
+  }
+
+  /**
+   * Returns the index of the first kept transition whose timestamp lies after
+   * the given time.
+   */
+  private int search( final long aTime )
+  {
+    int low = this.first;
+    int high = this.last;
+    while ( low < high )
+    {
+      final int mid = ( low + high ) >>> 1;
+      if ( this.times[mid] <= aTime )
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * The sample time of the start of the current bit.
+   */
+  private long time()
+  {
+    return ( long )( this.time );
+  }
+
+  /**
+   * The value of the current bit (this is its meaning depending on the bit
+   * encoding, regardless of voltage levels).
+   */
+  private BitValue value()
+  {
+    if ( this.configuration.getBitEncoding() == BitEncoding.HIGH_IS_SPACE )
+    {
+      return ( level() == BitLevel.HIGH ? BitValue.SPACE : BitValue.MARK );
+    }
+    return ( level() == BitLevel.HIGH ? BitValue.MARK : BitValue.SPACE );
+  }
+}
+
+/* EOF */
@@ -23,11 +23,13 @@ package nl.lxtreme.ols.tool.uart.impl;
 
 import static nl.lxtreme.ols.util.NumberUtils.*;
 
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.*;
 
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
-import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
+import nl.lxtreme.ols.api.data.annotation.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.tool.base.annotation.*;
 import nl.lxtreme.ols.tool.uart.*;
@@ -46,6 +48,99 @@ import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.StopBits;
  */
 public class UARTAnalyserTask implements ToolTask<UARTDataSet>
 {
+  // INNER TYPES
+
+  /**
+   * Decodes a single data or control line into its own data set, allowing all
+   * lines to be decoded concurrently.
+   */
+  final class LineDecoder implements Callable<LineDecoder>, ToolProgressListener
+  {
+    // VARIABLES
+
+    final int channelIndex;
+    /** the event type of a data line, or -1 for a control line. */
+    final int eventType;
+    final String label;
+    final UARTDataSet dataSet;
+    final List<Annotation<?>> annotations;
+    final ExecutorService executor;
+    /** all lines that are decoded, including this one. */
+    private final List<LineDecoder> lines;
+
+    boolean bitLengthSampled;
+    private volatile int progress;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link LineDecoder} instance.
+     */
+    LineDecoder( final List<LineDecoder> aLines, final UARTDataSet aDataSet, final int aChannelIndex,
+        final int aEventType, final String aLabel, final ExecutorService aExecutor )
+    {
+      this.lines = aLines;
+      this.channelIndex = aChannelIndex;
+      this.eventType = aEventType;
+      this.label = aLabel;
+      this.dataSet = new UARTDataSet( aDataSet.getStartOfDecode(), aDataSet.getEndOfDecode(),
+          UARTAnalyserTask.this.context.getData() );
+      this.annotations = new ArrayList<Annotation<?>>();
+      this.executor = aExecutor;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LineDecoder call() throws Exception
+    {
+      if ( isDataLine() )
+      {
+        decodeData( this );
+      }
+      else
+      {
+        decodeControl( this );
+      }
+      return this;
+    }
+
+    /**
+     * Reports the average progress of all lines.
+     */
+    @Override
+    public void setProgress( final int aPercentage )
+    {
+      if ( aPercentage == this.progress )
+      {
+        return;
+      }
+      this.progress = aPercentage;
+
+      synchronized ( this.lines )
+      {
+        int total = 0;
+        for ( LineDecoder line : this.lines )
+        {
+          total += line.progress;
+        }
+        UARTAnalyserTask.this.progressListener.setProgress( total / this.lines.size() );
+      }
+    }
+
+    /**
+     * @return <code>true</code> if this decoder decodes a data line,
+     *         <code>false</code> if it decodes a control line.
+     */
+    boolean isDataLine()
+    {
+      return this.eventType >= 0;
+    }
+  }
+
   // CONSTANTS
 
   private static final Logger LOG = Logger.getLogger( UARTAnalyserTask.class.getName() );
@@ -149,40 +244,31 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
 
     final UARTDataSet decodedData = new UARTDataSet( startOfDecode, endOfDecode, data );
 
-    // decode RxD/TxD data lines...
-    if ( this.rxdIndex >= 0 )
-    {
-      prepareAndDecodeData( decodedData, this.rxdIndex, UARTData.UART_TYPE_RXDATA, UARTDataSet.UART_RXD );
-    }
-    if ( this.txdIndex >= 0 )
-    {
-      prepareAndDecodeData( decodedData, this.txdIndex, UARTData.UART_TYPE_TXDATA, UARTDataSet.UART_TXD );
-    }
-
-    // decode control lines...
-    if ( this.ctsIndex >= 0 )
-    {
-      prepareAndDecodeControl( decodedData, this.ctsIndex, UARTDataSet.UART_CTS );
-    }
-    if ( this.rtsIndex >= 0 )
-    {
-      prepareAndDecodeControl( decodedData, this.rtsIndex, UARTDataSet.UART_RTS );
-    }
-    if ( this.dcdIndex >= 0 )
-    {
-      prepareAndDecodeControl( decodedData, this.dcdIndex, UARTDataSet.UART_DCD );
-    }
-    if ( this.riIndex >= 0 )
-    {
-      prepareAndDecodeControl( decodedData, this.riIndex, UARTDataSet.UART_RI );
-    }
-    if ( this.dsrIndex >= 0 )
+    // Decode all lines concurrently; the data lines are split into chunks that
+    // are decoded concurrently as well...
+    final ExecutorService chunkExecutor = Executors.newFixedThreadPool( Runtime.getRuntime().availableProcessors() );
+    try
     {
-      prepareAndDecodeControl( decodedData, this.dsrIndex, UARTDataSet.UART_DSR );
+      // The order of the lines is the order in which their results are
+      // reported, as if they were decoded sequentially...
+      final List<LineDecoder> lines = new ArrayList<LineDecoder>();
+      addLine( lines, decodedData, this.rxdIndex, UARTData.UART_TYPE_RXDATA, UARTDataSet.UART_RXD, chunkExecutor );
+      addLine( lines, decodedData, this.txdIndex, UARTData.UART_TYPE_TXDATA, UARTDataSet.UART_TXD, chunkExecutor );
+      addLine( lines, decodedData, this.ctsIndex, -1, UARTDataSet.UART_CTS, chunkExecutor );
+      addLine( lines, decodedData, this.rtsIndex, -1, UARTDataSet.UART_RTS, chunkExecutor );
+      addLine( lines, decodedData, this.dcdIndex, -1, UARTDataSet.UART_DCD, chunkExecutor );
+      addLine( lines, decodedData, this.riIndex, -1, UARTDataSet.UART_RI, chunkExecutor );
+      addLine( lines, decodedData, this.dsrIndex, -1, UARTDataSet.UART_DSR, chunkExecutor );
+      addLine( lines, decodedData, this.dtrIndex, -1, UARTDataSet.UART_DTR, chunkExecutor );
+
+      for ( LineDecoder line : decodeLines( lines ) )
+      {
+        mergeResult( decodedData, line );
+      }
     }
-    if ( this.dtrIndex >= 0 )
+    finally
     {
-      prepareAndDecodeControl( decodedData, this.dtrIndex, UARTDataSet.UART_DTR );
+      chunkExecutor.shutdownNow();
     }
 
     // sort the results by time
@@ -323,8 +409,35 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
   }
 
   /**
-   * Emits a new symbol annotation to the interested listener(s).
+   * Adds a line to decode, if its channel is defined.
+   * 
+   * @param aLines
+   *          the list of lines to add the line to;
+   * @param aDataSet
+   *          the data set that will contain the results of all lines;
+   * @param aChannelIndex
+   *          the channel index of the line, or -1 if the line is not defined;
+   * @param aEventType
+   *          the event type of a data line, or -1 for a control line;
+   * @param aLabel
+   *          the default label to use for the decoded channel;
+   * @param aExecutor
+   *          the executor to decode the chunks of a data line with.
+   */
+  private void addLine( final List<LineDecoder> aLines, final UARTDataSet aDataSet, final int aChannelIndex,
+      final int aEventType, final String aLabel, final ExecutorService aExecutor )
+  {
+    if ( aChannelIndex >= 0 )
+    {
+      aLines.add( new LineDecoder( aLines, aDataSet, aChannelIndex, aEventType, aLabel, aExecutor ) );
+    }
+  }
+
+  /**
+   * Adds a new symbol annotation to the given list of annotations.
    * 
+   * @param aAnnotations
+   *          the list to add the annotation to;
    * @param aChannelIndex
    *          the channel index on which the symbol was found;
    * @param aSymbol
@@ -334,39 +447,36 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
    * @param aEndSampleIdx
    *          the end sample index of the symbol.
    */
-  private void addSymbolAnnotation( final int aChannelIndex, final int aSymbol, final long aStartTimestamp,
-      final long aEndTimestamp )
+  private void addSymbolAnnotation( final List<Annotation<?>> aAnnotations, final int aChannelIndex,
+      final int aSymbol, final long aStartTimestamp, final long aEndTimestamp )
   {
-    this.annotationListener.onAnnotation( new SampleDataAnnotation( aChannelIndex, aStartTimestamp, aEndTimestamp,
+    aAnnotations.add( new SampleValueAnnotation( aChannelIndex, aStartTimestamp, aEndTimestamp, aSymbol,
         String.format( "0x%1$X (%1$c)", Integer.valueOf( aSymbol ) ) ) );
   }
 
   /**
    * Decodes a control line.
    * 
-   * @param aDataSet
-   *          the data set to add the decoded data to;
-   * @param aChannelIndex
-   *          the channel index of the control-line to decode;
-   * @param aName
-   *          the name of the control line to decode.
+   * @param aLine
+   *          the control line to decode.
    */
-  private void decodeControl( final UARTDataSet aDataSet, final int aChannelIndex, final String aName )
+  private void decodeControl( final LineDecoder aLine )
   {
     final AcquisitionResult data = this.context.getData();
 
     if ( LOG.isLoggable( Level.FINE ) )
     {
-      LOG.log( Level.FINE, "Decoding control: {0} ...", aName );
+      LOG.log( Level.FINE, "Decoding control: {0} ...", aLine.label );
     }
 
-    final int mask = ( 1 << aChannelIndex );
+    final UARTDataSet dataSet = aLine.dataSet;
+    final int mask = ( 1 << aLine.channelIndex );
 
-    final int startSampleIdx = aDataSet.getStartOfDecode();
-    final int endSampleIdx = aDataSet.getEndOfDecode();
+    final int startSampleIdx = dataSet.getStartOfDecode();
+    final int endSampleIdx = dataSet.getEndOfDecode();
 
     final int[] values = data.getValues();
-    this.progressListener.setProgress( 0 );
+    aLine.setProgress( 0 );
 
     int oldValue = values[startSampleIdx] & mask;
     for ( int i = startSampleIdx + 1; i < endSampleIdx; i++ )
@@ -376,45 +486,47 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
       final Edge edge = Edge.toEdge( oldValue, value );
       if ( edge.isRising() )
       {
-        aDataSet.reportControlHigh( aChannelIndex, i, aName );
+        dataSet.reportControlHigh( aLine.channelIndex, i, aLine.label );
       }
       if ( edge.isFalling() )
       {
-        aDataSet.reportControlLow( aChannelIndex, i, aName );
+        dataSet.reportControlLow( aLine.channelIndex, i, aLine.label );
       }
       oldValue = value;
 
       // update progress
-      this.progressListener.setProgress( getPercentage( i, startSampleIdx, endSampleIdx ) );
+      aLine.setProgress( getPercentage( i, startSampleIdx, endSampleIdx ) );
     }
   }
 
   /**
-   * @param aDataSet
-   *          the data set to add the decoded data to;
-   * @param aChannelIndex
-   *          the channel index to decode;
-   * @param aType
-   *          type of the data (rx or tx)
+   * Decodes a data line.
+   * 
+   * @param aLine
+   *          the data line to decode.
    */
-  private void decodeData( final UARTDataSet aDataSet, final int aChannelIndex, final int aEventType )
+  private void decodeData( final LineDecoder aLine ) throws InterruptedException, ExecutionException
   {
     final AcquisitionResult data = this.context.getData();
 
+    final UARTDataSet dataSet = aLine.dataSet;
+    final int channelIndex = aLine.channelIndex;
+    final int eventType = aLine.eventType;
+
     final int baudRate;
 
     if ( this.baudRate == AUTO_DETECT_BAUDRATE )
     {
       // Auto detect the baud rate...
-      final int mask = ( 1 << aChannelIndex );
+      final int mask = ( 1 << channelIndex );
       final BaudRateAnalyzer baudRateAnalyzer = new BaudRateAnalyzer( data.getSampleRate(), data.getValues(), data.getTimestamps(), mask );
       baudRate = baudRateAnalyzer.getBaudRateExact();
       // Set nominal (normalized) baud rate
-      aDataSet.setBaudRate( baudRateAnalyzer.getBaudRate() );
+      dataSet.setBaudRate( baudRateAnalyzer.getBaudRate() );
     } else {
       baudRate = this.baudRate;
       // Set nominal baud rate
-      aDataSet.setBaudRate( baudRate );
+      dataSet.setBaudRate( baudRate );
     }
 
     LOG.log( Level.FINE, "Baudrate = {0}bps", Integer.valueOf( baudRate ) );
@@ -422,7 +534,7 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
     if ( baudRate <= 0 )
     {
       LOG.log( Level.INFO, "No (usable) {0}-data found for determining bitlength/baudrate ...",
-          aChannelIndex == this.rxdIndex ? UARTDataSet.UART_RXD : UARTDataSet.UART_TXD );
+          channelIndex == this.rxdIndex ? UARTDataSet.UART_RXD : UARTDataSet.UART_TXD );
     }
     else
     {
@@ -431,17 +543,17 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
           this.stopBits, this.parity, this.bitEncoding, this.bitOrder, this.idleLevel );
 
       AsyncSerialDataDecoder decoder = new AsyncSerialDataDecoder( config, this.context );
-      decoder.setProgressListener( this.progressListener );
+      decoder.setProgressListener( aLine );
       decoder.setCallback( new SerialDecoderCallback()
       {
         @Override
         public void onError( final int aChannelIdx, final ErrorType aType, final long aTime )
         {
           final int sampleIdx = data.getSampleIndex( aTime );
-          final int eventType = ( aEventType == UARTData.UART_TYPE_RXDATA ) ? UARTData.UART_TYPE_RXEVENT
+          final int type = ( eventType == UARTData.UART_TYPE_RXDATA ) ? UARTData.UART_TYPE_RXEVENT
               : UARTData.UART_TYPE_TXEVENT;
 
-          aDataSet.reportError( aType, aChannelIdx, sampleIdx, eventType );
+          dataSet.reportError( aType, aChannelIdx, sampleIdx, type );
         }
 
         @Override
@@ -456,16 +568,63 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
           final int startSampleIdx = Math.max( data.getSampleIndex( aStartTime ), 0 );
           final int endSampleIdx = Math.min( data.getSampleIndex( aEndTime ), data.getTimestamps().length - 1 );
 
-          aDataSet.reportData( aChannelIndex, startSampleIdx, endSampleIdx, aSymbol, aEventType );
+          dataSet.reportData( channelIndex, startSampleIdx, endSampleIdx, aSymbol, eventType );
 
-          addSymbolAnnotation( aChannelIndex, aSymbol, aStartTime, aEndTime );
+          addSymbolAnnotation( aLine.annotations, channelIndex, aSymbol, aStartTime, aEndTime );
         }
       } );
 
-      final double sampledBitLength = decoder.decodeDataLine( aChannelIndex );
+      final double sampledBitLength = decoder.decodeDataLine( channelIndex, aLine.executor );
       // Set the actual bit length used, so UARTDataSet can calculate
       // the actual baud rate used.
-      aDataSet.setSampledBitLength( sampledBitLength );
+      dataSet.setSampledBitLength( sampledBitLength );
+      aLine.bitLengthSampled = true;
+    }
+  }
+
+  /**
+   * Decodes all given lines concurrently.
+   * 
+   * @param aLines
+   *          the lines to decode.
+   * @return the decoded lines, in the same order as given.
+   */
+  private List<LineDecoder> decodeLines( final List<LineDecoder> aLines ) throws Exception
+  {
+    final List<LineDecoder> result = new ArrayList<LineDecoder>();
+    if ( aLines.isEmpty() )
+    {
+      return result;
+    }
+
+    final ExecutorService lineExecutor = Executors.newFixedThreadPool( aLines.size() );
+    try
+    {
+      for ( Future<LineDecoder> future : lineExecutor.invokeAll( aLines ) )
+      {
+        try
+        {
+          result.add( future.get() );
+        }
+        catch ( ExecutionException exception )
+        {
+          final Throwable cause = exception.getCause();
+          if ( cause instanceof Exception )
+          {
+            throw ( Exception )cause;
+          }
+          if ( cause instanceof Error )
+          {
+            throw ( Error )cause;
+          }
+          throw exception;
+        }
+      }
+      return result;
+    }
+    finally
+    {
+      lineExecutor.shutdownNow();
     }
   }
 
@@ -530,38 +689,32 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
   }
 
   /**
-   * Prepares and decoded the control line indicated by the given channel index.
+   * Merges the results of a decoded line into the given data set, and reports
+   * its annotations, in the same order as they would be reported when decoding
+   * all lines sequentially.
    * 
    * @param aDataSet
-   *          the dataset to add the decoding results to;
-   * @param aChannelIndex
-   *          the channel index of the channel to decode;
-   * @param aDefaultLabel
-   *          the default label to use for the decoded channel.
+   *          the data set to merge the results into;
+   * @param aLine
+   *          the decoded line.
    */
-  private void prepareAndDecodeControl( final UARTDataSet aDataSet, final int aChannelIndex, final String aDefaultLabel )
+  private void mergeResult( final UARTDataSet aDataSet, final LineDecoder aLine )
   {
-    prepareResult( aChannelIndex, aDefaultLabel );
-    decodeControl( aDataSet, aChannelIndex, aDefaultLabel );
-  }
+    prepareResult( aLine.channelIndex, aLine.label );
+    if ( !aLine.annotations.isEmpty() )
+    {
+      this.annotationListener.onAnnotations( aLine.annotations );
+    }
 
-  /**
-   * Prepares and decoded the data line indicated by the given channel index.
-   * 
-   * @param aDataSet
-   *          the dataset to add the decoding results to;
-   * @param aChannelIndex
-   *          the channel index of the channel to decode;
-   * @param aEventType
-   *          the event type to use for the decoded data;
-   * @param aDefaultLabel
-   *          the default label to use for the decoded channel.
-   */
-  private void prepareAndDecodeData( final UARTDataSet aDataSet, final int aChannelIndex, final int aEventType,
-      final String aDefaultLabel )
-  {
-    prepareResult( aChannelIndex, aDefaultLabel );
-    decodeData( aDataSet, aChannelIndex, aEventType );
+    aDataSet.addAll( aLine.dataSet );
+    if ( aLine.isDataLine() )
+    {
+      aDataSet.setBaudRate( aLine.dataSet.getBaudRate() );
+      if ( aLine.bitLengthSampled )
+      {
+        aDataSet.setSampledBitLength( aLine.dataSet.getBitLength() );
+      }
+    }
   }
 
   /**
@@ -31,7 +31,7 @@ import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.ErrorType;
 /**
  * @author jajans
  */
-public final class UARTDataSet extends BaseDataSet<UARTData>
+public final class UARTDataSet extends CompactDataSet<UARTData>
 {
   // CONSTANTS
 
@@ -132,14 +132,32 @@ public final class UARTDataSet extends BaseDataSet<UARTData>
     return getBitLength() > 15;
   }
 
+  /**
+   * Adds all decoded data of the given data set to this data set, keeping their
+   * order.
+   * 
+   * @param aDataSet
+   *          the data set to add the data of, cannot be <code>null</code>.
+   */
+  void addAll( final UARTDataSet aDataSet )
+  {
+    final int count = aDataSet.size();
+    for ( int i = 0; i < count; i++ )
+    {
+      addData( aDataSet.getChannelIdx( i ), aDataSet.getStartSampleIndex( i ), aDataSet.getEndSampleIndex( i ),
+          aDataSet.getValue( i ), aDataSet.getEventName( i ), aDataSet.getAttribute( i ) );
+    }
+    this.decodedSymbols += aDataSet.decodedSymbols;
+    this.detectedErrors += aDataSet.detectedErrors;
+  }
+
   /**
    * @param aTime
    * @param aName
    */
   public void reportControlHigh( final int aChannelIdx, final int aSampleIdx, final String aName )
   {
-    final int idx = size();
-    addData( new UARTData( idx, aChannelIdx, aSampleIdx, aName.toUpperCase() + "_HIGH" ) );
+    addData( aChannelIdx, aSampleIdx, aSampleIdx, 0, aName.toUpperCase() + "_HIGH", UARTData.UART_TYPE_EVENT );
   }
 
   /**
@@ -148,8 +166,7 @@ public final class UARTDataSet extends BaseDataSet<UARTData>
    */
   public void reportControlLow( final int aChannelIdx, final int aSampleIdx, final String aName )
   {
-    final int idx = size();
-    addData( new UARTData( idx, aChannelIdx, aSampleIdx, aName.toUpperCase() + "_LOW" ) );
+    addData( aChannelIdx, aSampleIdx, aSampleIdx, 0, aName.toUpperCase() + "_LOW", UARTData.UART_TYPE_EVENT );
   }
 
   /**
@@ -160,9 +177,8 @@ public final class UARTDataSet extends BaseDataSet<UARTData>
   public void reportData( final int aChannelIdx, final int aStartSampleIdx, final int aEndSampleIdx, final int aValue,
       final int aEventType )
   {
-    final int idx = size();
     this.decodedSymbols++;
-    addData( new UARTData( idx, aChannelIdx, aStartSampleIdx, aEndSampleIdx, aValue, aEventType ) );
+    addData( aChannelIdx, aStartSampleIdx, aEndSampleIdx, aValue, null, aEventType );
   }
 
   /**
@@ -171,9 +187,8 @@ public final class UARTDataSet extends BaseDataSet<UARTData>
    */
   public void reportError( final ErrorType aType, final int aChannelIdx, final int aSampleIdx, final int aEventType )
   {
-    final int idx = size();
     this.detectedErrors++;
-    addData( new UARTData( idx, aChannelIdx, aSampleIdx, aType.name(), aEventType ) );
+    addData( aChannelIdx, aSampleIdx, aSampleIdx, 0, aType.name(), aEventType );
   }
 
   /**
@@ -231,11 +246,25 @@ public final class UARTDataSet extends BaseDataSet<UARTData>
   }
 
   /**
-   * @see nl.lxtreme.ols.api.data.BaseDataSet#sort()
+   * @see nl.lxtreme.ols.api.data.CompactDataSet#sort()
    */
   @Override
   public void sort()
   {
     super.sort();
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected UARTData createData( final int aIdx, final int aChannelIdx, final int aStartSampleIdx,
+      final int aEndSampleIdx, final int aValue, final String aEventName, final int aAttribute )
+  {
+    if ( aEventName != null )
+    {
+      return new UARTData( aIdx, aChannelIdx, aStartSampleIdx, aEventName, aAttribute );
+    }
+    return new UARTData( aIdx, aChannelIdx, aStartSampleIdx, aEndSampleIdx, aValue, aAttribute );
+  }
 }
@@ -31,7 +31,6 @@ import java.io.*;
 import java.text.*;
 import java.util.*;
 import java.util.List;
-import java.util.logging.*;
 
 import javax.swing.*;
 
@@ -51,7 +50,7 @@ import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
-import nl.lxtreme.ols.util.ExportUtils.HtmlFileExporter;
+import nl.lxtreme.ols.util.ExportUtils.HtmlReportWriter;
 import nl.lxtreme.ols.util.swing.*;
 import nl.lxtreme.ols.util.swing.component.*;
 
@@ -227,11 +226,121 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
     }
   }
 
+  /**
+   * Provides a lazy table model for the decoded UART data.
+   */
+  final class UARTDataTableModel extends DataSetTableModel<UARTData>
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // VARIABLES
+
+    private volatile int bitCount = 8;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link UARTDataTableModel} instance.
+     */
+    public UARTDataTableModel()
+    {
+      super( "RxD Hex", "RxD Bin", "RxD Dec", "RxD ASCII", "TxD Hex", "TxD Bin", "TxD Dec", "TxD ASCII" );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Color getRowBackground( final int aRowIndex )
+    {
+      final UARTData ds = getData( aRowIndex );
+      if ( !ds.isEvent() )
+      {
+        return null;
+      }
+      if ( ds.getEventName().endsWith( "_ERR" ) )
+      {
+        return ERROR_ROW_COLOR;
+      }
+      if ( UARTData.UART_TYPE_EVENT == ds.getType() )
+      {
+        return EVENT_ROW_COLOR;
+      }
+      else if ( ( UARTData.UART_TYPE_RXEVENT == ds.getType() ) || ( UARTData.UART_TYPE_TXEVENT == ds.getType() ) )
+      {
+        return CHANNEL_EVENT_ROW_COLOR;
+      }
+      // unknown event
+      return ERROR_ROW_COLOR;
+    }
+
+    /**
+     * Sets the number of data bits of the shown data.
+     *
+     * @param aBitCount
+     *          the number of data bits, > 0.
+     */
+    public void setBitCount( final int aBitCount )
+    {
+      this.bitCount = aBitCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object getValueAt( final UARTData aData, final int aColumnIndex )
+    {
+      // Columns 0..3 are for RxD, 4..7 for TxD...
+      final boolean rxdColumn = ( aColumnIndex < 4 );
+      final int type = aData.getType();
+
+      if ( aData.isEvent() )
+      {
+        if ( ( ( aColumnIndex % 4 ) == 0 )
+            && ( ( type == UARTData.UART_TYPE_EVENT ) || ( rxdColumn == ( type == UARTData.UART_TYPE_RXEVENT ) ) ) )
+        {
+          return aData.getEventName();
+        }
+        return null;
+      }
+      if ( rxdColumn != ( type == UARTData.UART_TYPE_RXDATA ) )
+      {
+        return null;
+      }
+
+      final int value = aData.getData();
+      final int bits = this.bitCount;
+      switch ( aColumnIndex % 4 )
+      {
+        case 0:
+          return "0x".concat( integerToHexString( value, ( bits + 3 ) / 4 ) );
+        case 1:
+          return "0b".concat( integerToBinString( value, bits ) );
+        case 2:
+          return Integer.valueOf( value );
+        default:
+          return toASCII( value );
+      }
+    }
+  }
+
   // CONSTANTS
 
   private static final long serialVersionUID = 1L;
 
-  private static final Logger LOG = Logger.getLogger( UARTProtocolAnalysisDialog.class.getName() );
+  private static final Color EVENT_ROW_COLOR = new Color( 0xe0e0e0 );
+  private static final Color CHANNEL_EVENT_ROW_COLOR = new Color( 0xc0ffc0 );
+  private static final Color ERROR_ROW_COLOR = new Color( 0xff8000 );
+
+  /** The number of rows after which the export progress is reported. */
+  private static final int PROGRESS_INTERVAL = 1024;
+  /** The column spans of an event row in the HTML report. */
+  private static final int[] EVENT_COL_SPANS = { 1, 1, 4, 4 };
 
   // VARIABLES
 
@@ -251,7 +360,7 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
   private JComboBox idleLevel;
   private JCheckBox autoDetectBaudRate;
   private JComboBox baudrate;
-  private JEditorPane outText;
+  private DataSetTable<UARTData> resultTable;
 
   private RestorableAction runAnalysisAction;
   private Action closeAction;
@@ -332,8 +441,8 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
   @Override
   public void reset()
   {
-    this.outText.setText( getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.resultTable.setDataSet( null );
+    this.resultTable.setSummary( null );
 
     this.runAnalysisAction.restore();
 
@@ -366,38 +475,28 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
     aSettings.putBoolean( "auto-baudrate", this.autoDetectBaudRate.isSelected() );
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean isResultCacheable()
+  {
+    return true;
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   protected void onToolEnded( final UARTDataSet aAnalysisResult )
   {
-    try
-    {
-      final String htmlPage;
-      if ( aAnalysisResult != null )
-      {
-        htmlPage = toHtmlPage( null /* aFile */, aAnalysisResult );
-      }
-      else
-      {
-        htmlPage = getEmptyHtmlPage();
-      }
+    final UARTDataTableModel model = ( UARTDataTableModel )this.resultTable.getModel();
+    model.setBitCount( Integer.parseInt( ( String )this.bits.getSelectedItem() ) );
 
-      this.outText.setText( htmlPage );
-      this.outText.setEditable( false );
+    this.resultTable.setDataSet( aAnalysisResult );
+    this.resultTable.setSummary( ( aAnalysisResult == null ) ? null : getSummary( aAnalysisResult ) );
 
-      this.runAnalysisAction.restore();
-    }
-    catch ( final IOException exception )
-    {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        // Should not happen in this situation!
-        throw new RuntimeException( exception );
-      }
-    }
+    this.runAnalysisAction.restore();
   }
 
   /**
@@ -547,6 +646,58 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
     return aExporter;
   }
 
+  /**
+   * Creates the macro resolver for the statistics of the given data set.
+   *
+   * @param aDataSet
+   *          the data set to create the macro resolver for, cannot be
+   *          <code>null</code>.
+   * @return a macro resolver, never <code>null</code>.
+   */
+  private MacroResolver createMacroResolver( final UARTDataSet aDataSet )
+  {
+    return new MacroResolver()
+    {
+      @Override
+      public Object resolve( final String aMacro, final Element aParent )
+      {
+        if ( "date-now".equals( aMacro ) )
+        {
+          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
+          return df.format( new Date() );
+        }
+        else if ( "decoded-bytes".equals( aMacro ) )
+        {
+          return Integer.valueOf( aDataSet.getDecodedSymbols() );
+        }
+        else if ( "detected-bus-errors".equals( aMacro ) )
+        {
+          return Integer.valueOf( aDataSet.getDetectedErrors() );
+        }
+        else if ( "baudrate".equals( aMacro ) )
+        {
+          final String baudrate;
+          if ( aDataSet.getBaudRate() <= 0 )
+          {
+            baudrate = "<span class='error'>Baudrate calculation failed!</span>";
+          }
+          else
+          {
+            baudrate = String.format( "%d (exact: %d)", Integer.valueOf( aDataSet.getBaudRate() ),
+                Integer.valueOf( aDataSet.getBaudRateExact() ) );
+            if ( !aDataSet.isBitLengthUsable() )
+            {
+              return baudrate
+                  .concat( " <span class='warning'>The baudrate may be wrong, use a higher samplerate to avoid this!</span>" );
+            }
+          }
+          return baudrate;
+        }
+        return null;
+      }
+    };
+  }
+
   /**
    * @return
    */
@@ -554,10 +705,9 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
   {
     final JPanel panTable = new JPanel( new GridLayout( 1, 1, 0, 0 ) );
 
-    this.outText = new JEditorPane( "text/html", getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.resultTable = new DataSetTable<UARTData>( new UARTDataTableModel(), getContext() );
 
-    panTable.add( new JScrollPane( this.outText ) );
+    panTable.add( this.resultTable );
 
     return panTable;
   }
@@ -679,37 +829,32 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
   }
 
   /**
-   * generate a HTML page
+   * Returns a short summary of the statistics of the given data set.
    *
-   * @param empty
-   *          if this is true an empty output is generated
-   * @return String with HTML data
+   * @param aDataSet
+   *          the data set to summarize, cannot be <code>null</code>.
+   * @return a summary, never <code>null</code>.
    */
-  private String getEmptyHtmlPage()
+  private String getSummary( final UARTDataSet aDataSet )
   {
-    final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-    return exporter.toString( new MacroResolver()
+    final String baudrate;
+    if ( aDataSet.getBaudRate() <= 0 )
     {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
-      {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        else if ( "decoded-bytes".equals( aMacro ) || "detected-bus-errors".equals( aMacro )
-            || "baudrate".equals( aMacro ) )
-        {
-          return "-";
-        }
-        else if ( "decoded-data".equals( aMacro ) )
-        {
-          return null;
-        }
-        return null;
-      }
-    } );
+      baudrate = "<span style='color: red;'>calculation failed!</span>";
+    }
+    else if ( !aDataSet.isBitLengthUsable() )
+    {
+      baudrate = String.format( "%d <span style='color: orange;'>(may be wrong, use a higher samplerate)</span>",
+          Integer.valueOf( aDataSet.getBaudRate() ) );
+    }
+    else
+    {
+      baudrate = String.format( "%d (exact: %d)", Integer.valueOf( aDataSet.getBaudRate() ),
+          Integer.valueOf( aDataSet.getBaudRateExact() ) );
+    }
+
+    return String.format( "<html>Decoded bytes: <b>%d</b>, detected bus errors: <b>%d</b>, baudrate: %s</html>",
+        Integer.valueOf( aDataSet.getDecodedSymbols() ), Integer.valueOf( aDataSet.getDetectedErrors() ), baudrate );
   }
 
   /**
@@ -748,18 +893,22 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
    *
    * @param aFile
    *          File object
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private void storeToCsvFile( final File aFile, final UARTDataSet aDataSet )
+  private void storeToCsvFile( final File aFile, final UARTDataSet aDataSet ) throws IOException
   {
+    final ToolProgressListener progressListener = getProgressListener();
+    final CsvExporter exporter = ExportUtils.createCsvExporter( aFile );
+
     try
     {
-      final CsvExporter exporter = ExportUtils.createCsvExporter( aFile );
-
       exporter.setHeaders( "index", "start-time", "end-time", "event?", "event-type", "RxD event", "TxD event",
           "RxD data", "TxD data" );
 
       final List<UARTData> decodedData = aDataSet.getData();
-      for ( int i = 0; i < decodedData.size(); i++ )
+      final int size = decodedData.size();
+      for ( int i = 0; i < size; i++ )
       {
         final UARTData ds = decodedData.get( i );
 
@@ -800,17 +949,17 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
 
         exporter.addRow( Integer.valueOf( i ), startTime, endTime, Boolean.valueOf( ds.isEvent() ), eventType,
             rxdEvent, txdEvent, rxdData, txdData );
-      }
 
-      exporter.close();
+        if ( ( i % PROGRESS_INTERVAL ) == 0 )
+        {
+          progressListener.setProgress( NumberUtils.getPercentage( i, size ) );
+        }
+      }
     }
-    catch ( final IOException exception )
+    finally
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        LOG.log( Level.WARNING, "CSV export failed!", exception );
-      }
+      exporter.close();
+      progressListener.setProgress( 100 );
     }
   }
 
@@ -819,182 +968,126 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
    *
    * @param aFile
    *          file object
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private void storeToHtmlFile( final File aFile, final UARTDataSet aDataSet )
+  private void storeToHtmlFile( final File aFile, final UARTDataSet aDataSet ) throws IOException
   {
+    final HtmlExporter template = createHtmlTemplate( ExportUtils.createHtmlExporter() );
+    final HtmlReportWriter writer = ExportUtils.createHtmlReportWriter( aFile, template, "decoded-data",
+        createMacroResolver( aDataSet ) );
+
     try
     {
-      toHtmlPage( aFile, aDataSet );
+      writeDecodedData( writer, aDataSet, getProgressListener() );
     }
-    catch ( final IOException exception )
+    finally
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        LOG.log( Level.WARNING, "HTML export failed!", exception );
-      }
+      writer.close();
     }
   }
 
   /**
-   * generate a HTML page
+   * Writes the decoded data as table rows to the given report writer.
    *
-   * @param empty
-   *          if this is true an empty output is generated
-   * @return String with HTML data
+   * @param aWriter
+   *          the report writer to write the rows to, cannot be
+   *          <code>null</code>;
+   * @param aDataSet
+   *          the data set to write, cannot be <code>null</code>;
+   * @param aProgressListener
+   *          the progress listener to report the progress to, cannot be
+   *          <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private String toHtmlPage( final File aFile, final UARTDataSet aDataSet ) throws IOException
+  private void writeDecodedData( final HtmlReportWriter aWriter, final UARTDataSet aDataSet,
+      final ToolProgressListener aProgressListener ) throws IOException
   {
     final int bitCount = Integer.parseInt( ( String )this.bits.getSelectedItem() );
     final int bitAdder = ( ( bitCount % 4 ) != 0 ) ? 1 : 0;
 
-    final MacroResolver macroResolver = new MacroResolver()
+    final List<UARTData> decodedData = aDataSet.getData();
+    final int size = decodedData.size();
+
+    for ( int i = 0; i < size; i++ )
     {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
+      final UARTData ds = decodedData.get( i );
+
+      final String index = String.valueOf( i );
+      final String time = Unit.Time.format( aDataSet.getTime( ds.getStartSampleIndex() ) );
+
+      if ( ds.isEvent() )
       {
-        if ( "date-now".equals( aMacro ) )
+        String rxEventData = "";
+        String txEventData = "";
+
+        String bgColor;
+        if ( UARTData.UART_TYPE_EVENT == ds.getType() )
         {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
+          rxEventData = txEventData = ds.getEventName();
+          bgColor = "#e0e0e0";
         }
-        else if ( "decoded-bytes".equals( aMacro ) )
+        else if ( UARTData.UART_TYPE_RXEVENT == ds.getType() )
         {
-          return Integer.valueOf( aDataSet.getDecodedSymbols() );
+          rxEventData = ds.getEventName();
+          bgColor = "#c0ffc0";
         }
-        else if ( "detected-bus-errors".equals( aMacro ) )
+        else if ( UARTData.UART_TYPE_TXEVENT == ds.getType() )
         {
-          return Integer.valueOf( aDataSet.getDetectedErrors() );
+          txEventData = ds.getEventName();
+          bgColor = "#c0ffc0";
         }
-        else if ( "baudrate".equals( aMacro ) )
+        else
         {
-          final String baudrate;
-          if ( aDataSet.getBaudRate() <= 0 )
-          {
-            baudrate = "<span class='error'>Baudrate calculation failed!</span>";
-          }
-          else
-          {
-            baudrate = String.format( "%d (exact: %d)", Integer.valueOf( aDataSet.getBaudRate() ),
-                Integer.valueOf( aDataSet.getBaudRateExact() ) );
-            if ( !aDataSet.isBitLengthUsable() )
-            {
-              return baudrate
-                  .concat( " <span class='warning'>The baudrate may be wrong, use a higher samplerate to avoid this!</span>" );
-            }
+          // unknown event
+          bgColor = "#ff8000";
+        }
 
-            return baudrate;
-          }
+        if ( txEventData.endsWith( "_ERR" ) || rxEventData.endsWith( "_ERR" ) )
+        {
+          bgColor = "#ff8000";
         }
-        else if ( "decoded-data".equals( aMacro ) )
+
+        aWriter.writeRow( "background-color: " + bgColor + ";", EVENT_COL_SPANS, index, time, rxEventData,
+            txEventData );
+      }
+      else
+      {
+        String rxDataHex = "", rxDataBin = "", rxDataDec = "", rxDataASCII = "";
+        String txDataHex = "", txDataBin = "", txDataDec = "", txDataASCII = "";
+
+        // Normal data...
+        if ( UARTData.UART_TYPE_RXDATA == ds.getType() )
         {
-          final List<UARTData> decodedData = aDataSet.getData();
-          Element tr;
+          final int rxData = ds.getData();
 
-          for ( int i = 0; i < decodedData.size(); i++ )
-          {
-            final UARTData ds = decodedData.get( i );
+          rxDataHex = integerToHexString( rxData, ( bitCount / 4 ) + bitAdder );
+          rxDataBin = integerToBinString( rxData, bitCount );
+          rxDataDec = String.valueOf( rxData );
+          rxDataASCII = toASCII( ( char )rxData );
+        }
+        else
+        /* if ( UARTData.UART_TYPE_TXDATA == ds.getType() ) */
+        {
+          final int txData = ds.getData();
 
-            if ( ds.isEvent() )
-            {
-              String rxEventData = "";
-              String txEventData = "";
-
-              String bgColor;
-              if ( UARTData.UART_TYPE_EVENT == ds.getType() )
-              {
-                rxEventData = txEventData = ds.getEventName();
-                bgColor = "#e0e0e0";
-              }
-              else if ( UARTData.UART_TYPE_RXEVENT == ds.getType() )
-              {
-                rxEventData = ds.getEventName();
-                bgColor = "#c0ffc0";
-              }
-              else if ( UARTData.UART_TYPE_TXEVENT == ds.getType() )
-              {
-                txEventData = ds.getEventName();
-                bgColor = "#c0ffc0";
-              }
-              else
-              {
-                // unknown event
-                bgColor = "#ff8000";
-              }
-
-              if ( txEventData.endsWith( "_ERR" ) || rxEventData.endsWith( "_ERR" ) )
-              {
-                bgColor = "#ff8000";
-              }
-
-              tr = aParent.addChild( TR ).addAttribute( "style", "background-color: " + bgColor + ";" );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( Unit.Time.format( aDataSet.getTime( ds.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( rxEventData );
-              tr.addChild( TD );
-              tr.addChild( TD );
-              tr.addChild( TD );
-              tr.addChild( TD ).addContent( txEventData );
-              tr.addChild( TD );
-              tr.addChild( TD );
-              tr.addChild( TD );
-            }
-            else
-            {
-              String rxDataHex = "", rxDataBin = "", rxDataDec = "", rxDataASCII = "";
-              String txDataHex = "", txDataBin = "", txDataDec = "", txDataASCII = "";
-
-              // Normal data...
-              if ( UARTData.UART_TYPE_RXDATA == ds.getType() )
-              {
-                final int rxData = ds.getData();
-
-                rxDataHex = integerToHexString( rxData, ( bitCount / 4 ) + bitAdder );
-                rxDataBin = integerToBinString( rxData, bitCount );
-                rxDataDec = String.valueOf( rxData );
-                rxDataASCII = toASCII( ( char )rxData );
-              }
-              else
-              /* if ( UARTData.UART_TYPE_TXDATA == ds.getType() ) */
-              {
-                final int txData = ds.getData();
-
-                txDataHex = integerToHexString( txData, ( bitCount / 4 ) + bitAdder );
-                txDataBin = integerToBinString( txData, bitCount );
-                txDataDec = String.valueOf( txData );
-                txDataASCII = toASCII( txData );
-              }
-
-              tr = aParent.addChild( TR );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( Unit.Time.format( aDataSet.getTime( ds.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( "0x", rxDataHex );
-              tr.addChild( TD ).addContent( "0b", rxDataBin );
-              tr.addChild( TD ).addContent( rxDataDec );
-              tr.addChild( TD ).addContent( rxDataASCII );
-              tr.addChild( TD ).addContent( "0x", txDataHex );
-              tr.addChild( TD ).addContent( "0b", txDataBin );
-              tr.addChild( TD ).addContent( txDataDec );
-              tr.addChild( TD ).addContent( txDataASCII );
-            }
-          }
+          txDataHex = integerToHexString( txData, ( bitCount / 4 ) + bitAdder );
+          txDataBin = integerToBinString( txData, bitCount );
+          txDataDec = String.valueOf( txData );
+          txDataASCII = toASCII( txData );
         }
-        return null;
+
+        aWriter.writeRow( null /* aStyle */, index, time, "0x".concat( rxDataHex ), "0b".concat( rxDataBin ),
+            rxDataDec, rxDataASCII, "0x".concat( txDataHex ), "0b".concat( txDataBin ), txDataDec, txDataASCII );
       }
-    };
 
-    if ( aFile == null )
-    {
-      final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-      return exporter.toString( macroResolver );
-    }
-    else
-    {
-      final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
-      exporter.write( macroResolver );
-      exporter.close();
+      if ( ( i % PROGRESS_INTERVAL ) == 0 )
+      {
+        aProgressListener.setProgress( NumberUtils.getPercentage( i, size ) );
+      }
     }
 
-    return null;
+    aProgressListener.setProgress( 100 );
   }
 }
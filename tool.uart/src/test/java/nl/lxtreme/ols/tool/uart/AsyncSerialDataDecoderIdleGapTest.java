@@ -0,0 +1,221 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.uart;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.test.data.*;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.ErrorType;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.SerialConfiguration;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.SerialDecoderCallback;
+
+import org.junit.*;
+
+
+/**
+ * Regression benchmark for {@link AsyncSerialDataDecoder}, decoding a capture
+ * with long idle gaps between the symbols.
+ * <p>
+ * With a sample rate of 1MHz, the capture spans more than 6*10^9 time ticks,
+ * while having only a few hundred samples. Looking at each individual time
+ * tick takes several minutes to decode this capture; jumping from transition to
+ * transition takes (far) less than a second.
+ * </p>
+ * <p>
+ * The idle gaps also allow the data line to be split into chunks that are
+ * decoded concurrently, which should yield the same results as decoding the
+ * data line sequentially.
+ * </p>
+ */
+public class AsyncSerialDataDecoderIdleGapTest
+{
+  // CONSTANTS
+
+  private static final int SAMPLE_RATE = 1000000;
+  private static final int BAUD_RATE = 9600;
+  private static final long IDLE_GAP = 1000000000L;
+
+  // METHODS
+
+  /**
+   * Tests that decoding a data line in chunks yields the same results as
+   * decoding it sequentially.
+   */
+  @Test
+  public void testDecodeChunksEqualsSequentialDecode() throws Exception
+  {
+    final Random rnd = new Random( 11L );
+
+    final CapturedDataBuilder builder = new CapturedDataBuilder().setSampleRate( SAMPLE_RATE );
+    builder.add( 0x01, 0L );
+
+    long time = 1000L;
+    for ( int i = 0; i < 500; i++ )
+    {
+      time = addFrame( builder, time, rnd.nextInt( 256 ) ) + 1 + rnd.nextInt( ( i % 10 ) == 0 ? 100000 : 500 );
+    }
+    builder.add( 0x01, time );
+
+    final AcquisitionResult data = builder.build();
+    final ToolContext context = DataTestUtils.createToolContext( data, 0, data.getValues().length - 1 );
+
+    // Make sure the data line is actually split, otherwise this test proves
+    // nothing...
+    final long[] timestamps = data.getTimestamps();
+    final long[] boundaries = createDecoder( context, new ArrayList<String>() ).findChunkBoundaries( 0,
+        timestamps[0], timestamps[timestamps.length - 1] );
+    assertTrue( "Expected at least two chunks, got " + ( boundaries.length - 1 ), boundaries.length >= 3 );
+
+    final List<String> sequential = new ArrayList<String>();
+    final double sequentialBitLength = createDecoder( context, sequential ).decodeDataLine( 0 );
+
+    final List<String> chunked = new ArrayList<String>();
+    final ExecutorService executor = Executors.newFixedThreadPool( 4 );
+    try
+    {
+      final double chunkedBitLength = createDecoder( context, chunked ).decodeDataLine( 0, executor );
+
+      assertEquals( 500, sequential.size() );
+      assertEquals( sequential, chunked );
+      assertEquals( sequentialBitLength, chunkedBitLength, 1.0e-9 );
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Tests that symbols separated by long idle gaps are decoded in time.
+   */
+  @Test
+  public void testDecodeLongIdleGaps() throws Exception
+  {
+    final int[] symbols = { 'O', 'L', 'S', 0x00, 0xFF, 0x55 };
+
+    final CapturedDataBuilder builder = new CapturedDataBuilder().setSampleRate( SAMPLE_RATE );
+    builder.add( 0x01, 0L );
+
+    long time = 1000L;
+    for ( int symbol : symbols )
+    {
+      time = addFrame( builder, time, symbol ) + IDLE_GAP;
+    }
+    builder.add( 0x01, time );
+
+    final AcquisitionResult data = builder.build();
+    final ToolContext context = DataTestUtils.createToolContext( data, 0, data.getValues().length - 1 );
+
+    final List<Integer> decoded = new ArrayList<Integer>();
+    final AsyncSerialDataDecoder decoder = new AsyncSerialDataDecoder( new SerialConfiguration(), context );
+    decoder.setCallback( new SerialDecoderCallback()
+    {
+      @Override
+      public void onError( final int aChannelIdx, final ErrorType aType, final long aTime )
+      {
+        fail( "Unexpected error: " + aType + " @ " + aTime );
+      }
+
+      @Override
+      public void onEvent( final int aChannelIdx, final String aEvent, final long aStartTime, final long aEndTime )
+      {
+        // Nop
+      }
+
+      @Override
+      public void onSymbol( final int aChannelIdx, final int aSymbol, final long aStartTime, final long aEndTime )
+      {
+        decoded.add( Integer.valueOf( aSymbol ) );
+      }
+    } );
+
+    final long start = System.nanoTime();
+    decoder.decodeDataLine( 0 );
+    final long duration = ( System.nanoTime() - start ) / 1000000L;
+
+    assertTrue( time > ( symbols.length * IDLE_GAP ) );
+    assertEquals( symbols.length, decoded.size() );
+    for ( int i = 0; i < symbols.length; i++ )
+    {
+      assertEquals( symbols[i], decoded.get( i ).intValue() );
+    }
+
+    // Jumping from transition to transition should take far less than a
+    // second, while looking at each time tick would take minutes...
+    assertTrue( "Decoding took " + duration + " ms!", duration < 1000L );
+  }
+
+  /**
+   * Creates a decoder for a 8N1 data line on channel 0 that records all
+   * decoded symbols and errors in the given list.
+   */
+  private AsyncSerialDataDecoder createDecoder( final ToolContext aContext, final List<String> aEvents )
+  {
+    final AsyncSerialDataDecoder decoder = new AsyncSerialDataDecoder( new SerialConfiguration(), aContext );
+    decoder.setCallback( new SerialDecoderCallback()
+    {
+      @Override
+      public void onError( final int aChannelIdx, final ErrorType aType, final long aTime )
+      {
+        aEvents.add( aType + " @ " + aTime );
+      }
+
+      @Override
+      public void onEvent( final int aChannelIdx, final String aEvent, final long aStartTime, final long aEndTime )
+      {
+        aEvents.add( aEvent + " @ " + aStartTime + ".." + aEndTime );
+      }
+
+      @Override
+      public void onSymbol( final int aChannelIdx, final int aSymbol, final long aStartTime, final long aEndTime )
+      {
+        aEvents.add( aSymbol + " @ " + aStartTime + ".." + aEndTime );
+      }
+    } );
+    return decoder;
+  }
+
+  /**
+   * Adds a single 8N1 frame on channel 0 to the given builder.
+   *
+   * @return the time at which the frame ends.
+   */
+  private long addFrame( final CapturedDataBuilder aBuilder, final long aTime, final int aSymbol )
+  {
+    final double bitLength = ( double )SAMPLE_RATE / BAUD_RATE;
+
+    // start bit, 8 data bits (LSB first) and a stop bit...
+    final int bits = 0x200 | ( ( aSymbol & 0xFF ) << 1 );
+    for ( int i = 0; i < 10; i++ )
+    {
+      aBuilder.add( ( bits >> i ) & 1, aTime + Math.round( i * bitLength ) );
+    }
+
+    return aTime + Math.round( 10 * bitLength );
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.uart;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.test.data.*;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.BitEncoding;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.BitLevel;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.BitOrder;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.ErrorType;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.Parity;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.SerialConfiguration;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.SerialDecoderCallback;
+import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.StopBits;
+
+import org.junit.*;
+
+
+/**
+ * Tests that {@link AsyncSerialTransitionDecoder} yields the same results as
+ * {@link AsyncSerialDataDecoder}, regardless of how the transitions are
+ * batched.
+ */
+public class AsyncSerialTransitionDecoderTest
+{
+  // CONSTANTS
+
+  private static final int SAMPLE_RATE = 1000000;
+  private static final int BAUD_RATE = 9600;
+
+  // VARIABLES
+
+  private AcquisitionResult data;
+  private SerialConfiguration config;
+
+  // METHODS
+
+  /**
+   * Creates a capture of 8E1 frames with jitter, bad parity and bad stop bits.
+   */
+  @Before
+  public void setUp()
+  {
+    this.config = new SerialConfiguration( BAUD_RATE, 8, StopBits.ONE, Parity.EVEN, BitEncoding.HIGH_IS_MARK,
+        BitOrder.LSB_FIRST, BitLevel.HIGH );
+
+    final Random rnd = new Random( 7L );
+
+    final CapturedDataBuilder builder = new CapturedDataBuilder().setSampleRate( SAMPLE_RATE );
+    builder.add( 0x01, 0L );
+
+    long time = 1000L;
+    for ( int i = 0; i < 300; i++ )
+    {
+      time = addFrame( builder, rnd, time ) + 5 + rnd.nextInt( ( i % 10 ) == 0 ? 5000 : 200 );
+    }
+    builder.add( 0x01, time );
+
+    this.data = builder.build();
+  }
+
+  /**
+   * Tests that decoding per single transition yields the same results as the
+   * pull-based decoder.
+   */
+  @Test
+  public void testDecodeSingleTransitionsOk() throws Exception
+  {
+    assertDecodeEquals( 0, this.data.getValues().length - 1, 1 );
+  }
+
+  /**
+   * Tests that decoding in small, odd-sized batches yields the same results as
+   * the pull-based decoder.
+   */
+  @Test
+  public void testDecodeSmallBatchesOk() throws Exception
+  {
+    assertDecodeEquals( 0, this.data.getValues().length - 1, 7 );
+  }
+
+  /**
+   * Tests that decoding a part of the data yields the same results as the
+   * pull-based decoder.
+   */
+  @Test
+  public void testDecodeSubRangeOk() throws Exception
+  {
+    final int size = this.data.getValues().length;
+    assertDecodeEquals( size / 3, ( 2 * size ) / 3, TransitionDecoderUtils.DEFAULT_BATCH_SIZE );
+  }
+
+  /**
+   * Adds a single 8E1 frame on channel 0 to the given builder, with some jitter
+   * and, occasionally, a bad parity or stop bit.
+   *
+   * @return the time at which the frame ends.
+   */
+  private long addFrame( final CapturedDataBuilder aBuilder, final Random aRnd, final long aTime )
+  {
+    final double bitLength = ( double )SAMPLE_RATE / BAUD_RATE;
+
+    final int symbol = aRnd.nextInt( 256 );
+    int parity = Integer.bitCount( symbol ) & 1;
+    if ( aRnd.nextInt( 20 ) == 0 )
+    {
+      parity ^= 1;
+    }
+    final int stop = ( aRnd.nextInt( 20 ) == 0 ) ? 0 : 1;
+
+    // start bit, 8 data bits (LSB first), parity bit and a stop bit...
+    final int bits = ( stop << 10 ) | ( parity << 9 ) | ( symbol << 1 );
+    for ( int i = 0; i < 11; i++ )
+    {
+      aBuilder.add( ( bits >> i ) & 1, aTime + Math.round( i * bitLength ) + aRnd.nextInt( 9 ) - 4 );
+    }
+    aBuilder.add( 1, aTime + Math.round( 11 * bitLength ) );
+
+    return aTime + Math.round( 11 * bitLength );
+  }
+
+  /**
+   * Asserts that the push-based decoder yields the same results as the
+   * pull-based decoder for the given range.
+   */
+  private void assertDecodeEquals( final int aStartIdx, final int aEndIdx, final int aBatchSize )
+  {
+    final ToolContext context = DataTestUtils.createToolContext( this.data, aStartIdx, aEndIdx );
+
+    final List<String> expected = new ArrayList<String>();
+    final AsyncSerialDataDecoder pullDecoder = new AsyncSerialDataDecoder( this.config, context );
+    pullDecoder.setCallback( createCallback( expected ) );
+    final double expectedBitLength = pullDecoder.decodeDataLine( 0 );
+
+    final int[] values = this.data.getValues();
+    final long[] timestamps = this.data.getTimestamps();
+
+    final List<String> actual = new ArrayList<String>();
+    final AsyncSerialTransitionDecoder pushDecoder = new AsyncSerialTransitionDecoder( this.config, SAMPLE_RATE, 0,
+        timestamps[aStartIdx], timestamps[aEndIdx], createCallback( actual ) );
+
+    int idx = Math.max( 0, aStartIdx - 1 );
+    while ( idx < values.length )
+    {
+      final int length = Math.min( aBatchSize, values.length - idx );
+      pushDecoder.decode( values, timestamps, idx, length );
+      idx += length;
+    }
+    pushDecoder.finish();
+
+    assertTrue( expected.size() > 10 );
+    assertTrue( expected.toString(), expected.toString().contains( ErrorType.PARITY.name() ) );
+    assertTrue( expected.toString(), expected.toString().contains( ErrorType.FRAME.name() ) );
+
+    assertEquals( expected, actual );
+    assertEquals( expectedBitLength, pushDecoder.getAverageBitLength(), 1.0e-9 );
+  }
+
+  /**
+   * Creates a callback that records all decoded symbols and errors in the
+   * given list.
+   */
+  private SerialDecoderCallback createCallback( final List<String> aEvents )
+  {
+    return new SerialDecoderCallback()
+    {
+      @Override
+      public void onError( final int aChannelIdx, final ErrorType aType, final long aTime )
+      {
+        aEvents.add( aType + " @ " + aTime );
+      }
+
+      @Override
+      public void onEvent( final int aChannelIdx, final String aEvent, final long aStartTime, final long aEndTime )
+      {
+        aEvents.add( aEvent + " @ " + aStartTime + ".." + aEndTime );
+      }
+
+      @Override
+      public void onSymbol( final int aChannelIdx, final int aSymbol, final long aStartTime, final long aEndTime )
+      {
+        aEvents.add( aSymbol + " @ " + aStartTime + ".." + aEndTime );
+      }
+    };
+  }
+}
+
+/* EOF */
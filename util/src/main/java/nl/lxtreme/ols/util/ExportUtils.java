@@ -325,6 +325,65 @@ public final class ExportUtils
     void close() throws IOException;
   }
 
+  /**
+   * Provides a streaming HTML report writer, which writes a HTML template with
+   * a (potentially large) number of table rows directly to a writer, without
+   * keeping these rows in memory.
+   */
+  public interface HtmlReportWriter
+  {
+    // METHODS
+
+    /**
+     * Writes the remainder of the template, and closes this writer.
+     * 
+     * @throws IOException
+     *           in case of I/O problems.
+     */
+    void close() throws IOException;
+
+    /**
+     * Returns the number of rows written so far.
+     * 
+     * @return a row count, >= 0.
+     */
+    int getRowCount();
+
+    /**
+     * Writes a single table row. Like
+     * {@link HtmlExporter.Element#addContent(String...)}, the cell contents
+     * are written as-is, hence may contain HTML markup.
+     * 
+     * @param aStyle
+     *          the (CSS) style of the row, can be <code>null</code>;
+     * @param aCells
+     *          the contents of the cells, <code>null</code> values yield empty
+     *          cells.
+     * @throws IOException
+     *           in case of I/O problems.
+     */
+    void writeRow( final String aStyle, final Object... aCells ) throws IOException;
+
+    /**
+     * Writes a single table row, in which cells can span multiple columns.
+     * 
+     * @param aStyle
+     *          the (CSS) style of the row, can be <code>null</code>;
+     * @param aColSpans
+     *          the number of columns spanned by each cell, can be
+     *          <code>null</code> or shorter than the number of cells. Cells
+     *          without a column span, or with a column span <= 1, span a single
+     *          column;
+     * @param aCells
+     *          the contents of the cells, <code>null</code> values yield empty
+     *          cells.
+     * @throws IOException
+     *           in case of I/O problems.
+     * @see #writeRow(String, Object...)
+     */
+    void writeRow( final String aStyle, final int[] aColSpans, final Object... aCells ) throws IOException;
+  }
+
   // CONSTRUCTORS
 
   /**
@@ -382,4 +441,68 @@ public final class ExportUtils
     }
     return new HtmlFileExporterImpl( aFile );
   }
+
+  /**
+   * Creates a streaming HTML report writer for the given file, which is
+   * written in UTF-8.
+   * 
+   * @param aFile
+   *          the file to write the report to, cannot be <code>null</code>;
+   * @param aTemplate
+   *          the template of the report, cannot be <code>null</code>;
+   * @param aRowsMacro
+   *          the name of the macro that marks the position of the rows in the
+   *          template, cannot be <code>null</code>;
+   * @param aResolver
+   *          the macro resolver for all other macros, cannot be
+   *          <code>null</code>.
+   * @return a HTML report writer, never <code>null</code>.
+   * @throws IOException
+   *           in case of I/O errors.
+   */
+  public static HtmlReportWriter createHtmlReportWriter( final File aFile, final HtmlExporter aTemplate,
+      final String aRowsMacro, final HtmlExporter.MacroResolver aResolver ) throws IOException
+  {
+    if ( aFile == null )
+    {
+      throw new IllegalArgumentException( "File cannot be null!" );
+    }
+    // Ensure for HTML files the content type is set...
+    aTemplate.getHead().addChild( HtmlExporter.META ).addAttribute( "http-equiv", "Content-type" )
+        .addAttribute( "content", "text/html;charset=UTF-8" );
+
+    final Writer writer = new BufferedWriter( new OutputStreamWriter( new FileOutputStream( aFile ), "UTF8" ) );
+    try
+    {
+      return new HtmlReportWriterImpl( writer, aTemplate, aRowsMacro, aResolver );
+    }
+    catch ( IOException exception )
+    {
+      writer.close();
+      throw exception;
+    }
+  }
+
+  /**
+   * Creates a streaming HTML report writer for the given writer.
+   * 
+   * @param aWriter
+   *          the writer to write the report to, cannot be <code>null</code>;
+   * @param aTemplate
+   *          the template of the report, cannot be <code>null</code>;
+   * @param aRowsMacro
+   *          the name of the macro that marks the position of the rows in the
+   *          template, cannot be <code>null</code>;
+   * @param aResolver
+   *          the macro resolver for all other macros, cannot be
+   *          <code>null</code>.
+   * @return a HTML report writer, never <code>null</code>.
+   * @throws IOException
+   *           in case of I/O errors.
+   */
+  public static HtmlReportWriter createHtmlReportWriter( final Writer aWriter, final HtmlExporter aTemplate,
+      final String aRowsMacro, final HtmlExporter.MacroResolver aResolver ) throws IOException
+  {
+    return new HtmlReportWriterImpl( aWriter, aTemplate, aRowsMacro, aResolver );
+  }
 }
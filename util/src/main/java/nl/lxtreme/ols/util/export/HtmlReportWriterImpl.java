@@ -0,0 +1,193 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ * 
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ * 
+ * 
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.util.export;
+
+
+import java.io.*;
+
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
+import nl.lxtreme.ols.util.ExportUtils.HtmlReportWriter;
+
+
+/**
+ * Provides a streaming HTML report writer, which writes the rows of a report
+ * directly to a {@link Writer}.
+ * <p>
+ * A report consists of a HTML template, such as the header and statistics of
+ * a tool result, and a (potentially very large) number of table rows. The
+ * template is built as usual with a {@link HtmlExporter}, and contains a
+ * single macro at the position where the rows should appear, for example, in
+ * the body of a table. The template is written up to this macro upon creation
+ * of this writer; the rows are written one by one by {@link #writeRow}; the
+ * remainder of the template is written upon {@link #close()}. This way, the
+ * rows are never kept in memory.
+ * </p>
+ * <p>
+ * Like {@link Element#addContent(String...)}, the cells are written as-is,
+ * hence may contain HTML markup.
+ * </p>
+ */
+public class HtmlReportWriterImpl implements HtmlReportWriter
+{
+  // CONSTANTS
+
+  /** Marks the position of the rows in the template, cannot occur in HTML. */
+  private static final String ROWS_MARKER = "\u0000rows\u0000";
+
+  // VARIABLES
+
+  private final Writer writer;
+  private final String trailer;
+
+  private int rowCount;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link HtmlReportWriterImpl} instance, and directly writes the
+   * template up to the rows.
+   * 
+   * @param aWriter
+   *          the writer to write the report to, cannot be <code>null</code>;
+   * @param aTemplate
+   *          the template of the report, cannot be <code>null</code>;
+   * @param aRowsMacro
+   *          the name of the macro (without braces) that marks the position of
+   *          the rows in the template, cannot be <code>null</code>;
+   * @param aResolver
+   *          the macro resolver for all other macros in the template, cannot
+   *          be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public HtmlReportWriterImpl( final Writer aWriter, final HtmlExporter aTemplate, final String aRowsMacro,
+      final MacroResolver aResolver ) throws IOException
+  {
+    if ( ( aWriter == null ) || ( aTemplate == null ) || ( aRowsMacro == null ) || ( aResolver == null ) )
+    {
+      throw new IllegalArgumentException( "Parameters cannot be null!" );
+    }
+
+    final String page = aTemplate.toString( new MacroResolver()
+    {
+      @Override
+      public Object resolve( final String aMacro, final Element aParent )
+      {
+        if ( aRowsMacro.equals( aMacro ) )
+        {
+          return ROWS_MARKER;
+        }
+        return aResolver.resolve( aMacro, aParent );
+      }
+    } );
+
+    final int idx = page.indexOf( ROWS_MARKER );
+    if ( idx < 0 )
+    {
+      throw new IllegalArgumentException( "Template does not contain macro {" + aRowsMacro + "}!" );
+    }
+
+    this.writer = aWriter;
+    this.trailer = page.substring( idx + ROWS_MARKER.length() );
+
+    this.writer.write( page, 0, idx );
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException
+  {
+    try
+    {
+      this.writer.write( this.trailer );
+      this.writer.flush();
+    }
+    finally
+    {
+      this.writer.close();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getRowCount()
+  {
+    return this.rowCount;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeRow( final String aStyle, final Object... aCells ) throws IOException
+  {
+    writeRow( aStyle, null /* aColSpans */, aCells );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeRow( final String aStyle, final int[] aColSpans, final Object... aCells ) throws IOException
+  {
+    this.writer.write( "<tr" );
+    if ( aStyle != null )
+    {
+      this.writer.write( " style='" );
+      this.writer.write( aStyle );
+      this.writer.write( '\'' );
+    }
+    this.writer.write( '>' );
+
+    for ( int i = 0; i < aCells.length; i++ )
+    {
+      final int colSpan = ( ( aColSpans != null ) && ( i < aColSpans.length ) ) ? aColSpans[i] : 1;
+      if ( colSpan > 1 )
+      {
+        this.writer.write( "<td colspan='" );
+        this.writer.write( String.valueOf( colSpan ) );
+        this.writer.write( "'>" );
+      }
+      else
+      {
+        this.writer.write( "<td>" );
+      }
+
+      final Object cell = aCells[i];
+      if ( cell != null )
+      {
+        this.writer.write( String.valueOf( cell ) );
+      }
+      this.writer.write( "</td>" );
+    }
+
+    this.writer.write( "</tr>" );
+    this.rowCount++;
+  }
+}
@@ -22,6 +22,9 @@ package nl.lxtreme.ols.util;
 
 
 import static org.junit.Assert.*;
+
+import java.io.*;
+
 import nl.lxtreme.ols.util.ExportUtils.*;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.*;
 import nl.lxtreme.ols.util.export.*;
@@ -162,6 +165,68 @@ public class ExportUtilsTest
         this.exporter.toString() );
   }
 
+  /**
+   * Tests that a report writer refuses a template without the rows macro.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testReportWriterWithoutRowsMacroFails() throws IOException
+  {
+    this.exporter.getBody().addChild( HtmlExporter.TABLE ).addContent( "{foo}" );
+
+    new HtmlReportWriterImpl( new StringWriter(), this.exporter, "rows", new UppercaseMacroResolver() );
+  }
+
+  /**
+   * Tests that a report writer writes its rows in place of the rows macro.
+   */
+  @Test
+  public void testReportWriterWritesRows() throws IOException
+  {
+    Element cur = this.exporter.getBody();
+    cur.addChild( HtmlExporter.H1 ).addContent( "{foo}" );
+    cur.addChild( HtmlExporter.TABLE ).addChild( HtmlExporter.TBODY ).addContent( "{rows}" );
+    cur.addChild( HtmlExporter.DIV ).addContent( "{bar}" );
+
+    final StringWriter buffer = new StringWriter();
+    final HtmlReportWriter writer = new HtmlReportWriterImpl( buffer, this.exporter, "rows",
+        new UppercaseMacroResolver() );
+    // The part before the rows should be written directly...
+    assertEquals( "<html><head><title></title></head><body><h1>FOO</h1><table><tbody>", buffer.toString() );
+
+    writer.writeRow( null, "1", null );
+    writer.writeRow( "color: red;", Integer.valueOf( 2 ), "b" );
+    assertEquals( 2, writer.getRowCount() );
+
+    writer.close();
+
+    assertEquals( "<html><head><title></title></head><body><h1>FOO</h1><table><tbody>"
+        + "<tr><td>1</td><td></td></tr><tr style='color: red;'><td>2</td><td>b</td></tr>"
+        + "</tbody></table><div>BAR</div></body></html>", buffer.toString() );
+  }
+
+  /**
+   * Tests that a report writer writes the column spans of its cells.
+   */
+  @Test
+  public void testReportWriterWritesColSpans() throws IOException
+  {
+    this.exporter.getBody().addChild( HtmlExporter.TABLE ).addContent( "{rows}" );
+
+    final StringWriter buffer = new StringWriter();
+    final HtmlReportWriter writer = new HtmlReportWriterImpl( buffer, this.exporter, "rows",
+        new UppercaseMacroResolver() );
+
+    writer.writeRow( "color: red;", new int[] { 1, 4 }, "1", "event" );
+    writer.writeRow( null, new int[] { 2 }, null, "a", "b" );
+    assertEquals( 2, writer.getRowCount() );
+
+    writer.close();
+
+    assertEquals( "<html><head><title></title></head><body><table>"
+        + "<tr style='color: red;'><td>1</td><td colspan='4'>event</td></tr>"
+        + "<tr><td colspan='2'></td><td>a</td><td>b</td></tr>" + "</table></body></html>", buffer.toString() );
+  }
+
   /**
    * @
    */